@@ -7,6 +7,8 @@
  */
 package com.sitewhere.asset.grpc;
 
+import java.util.List;
+
 import com.sitewhere.grpc.client.GrpcUtils;
 import com.sitewhere.grpc.model.AssetModel.GAssetSearchResults;
 import com.sitewhere.grpc.model.AssetModel.GAssetTypeSearchResults;
@@ -23,6 +25,8 @@ import com.sitewhere.grpc.service.GDeleteAssetTypeRequest;
 import com.sitewhere.grpc.service.GDeleteAssetTypeResponse;
 import com.sitewhere.grpc.service.GGetAssetByIdRequest;
 import com.sitewhere.grpc.service.GGetAssetByIdResponse;
+import com.sitewhere.grpc.service.GGetAssetsByIdsRequest;
+import com.sitewhere.grpc.service.GGetAssetsByIdsResponse;
 import com.sitewhere.grpc.service.GGetAssetByTokenRequest;
 import com.sitewhere.grpc.service.GGetAssetByTokenResponse;
 import com.sitewhere.grpc.service.GGetAssetTypeByIdRequest;
@@ -260,6 +264,29 @@ public class AssetManagementImpl extends AssetManagementGrpc.AssetManagementImpl
 	}
     }
 
+    /*
+     * @see com.sitewhere.grpc.service.AssetManagementGrpc.AssetManagementImplBase#
+     * getAssetsByIds(com.sitewhere.grpc.service.GGetAssetsByIdsRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void getAssetsByIds(GGetAssetsByIdsRequest request,
+	    StreamObserver<GGetAssetsByIdsResponse> responseObserver) {
+	try {
+	    GrpcUtils.logServerMethodEntry(AssetManagementGrpc.METHOD_GET_ASSETS_BY_IDS);
+	    List<IAsset> apiResult = getAssetManagement()
+		    .getAssetsByIds(CommonModelConverter.asApiUuids(request.getAssetIdsList()));
+	    GGetAssetsByIdsResponse.Builder response = GGetAssetsByIdsResponse.newBuilder();
+	    if (apiResult != null) {
+		response.addAllAssets(AssetModelConverter.asGrpcAssets(apiResult));
+	    }
+	    responseObserver.onNext(response.build());
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(AssetManagementGrpc.METHOD_GET_ASSETS_BY_IDS, e, responseObserver);
+	}
+    }
+
     /*
      * @see com.sitewhere.grpc.service.AssetManagementGrpc.AssetManagementImplBase#
      * getAssetByToken(com.sitewhere.grpc.service.GGetAssetByTokenRequest,
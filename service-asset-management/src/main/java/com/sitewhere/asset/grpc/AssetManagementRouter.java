@@ -25,6 +25,8 @@ import com.sitewhere.grpc.service.GDeleteAssetTypeRequest;
 import com.sitewhere.grpc.service.GDeleteAssetTypeResponse;
 import com.sitewhere.grpc.service.GGetAssetByIdRequest;
 import com.sitewhere.grpc.service.GGetAssetByIdResponse;
+import com.sitewhere.grpc.service.GGetAssetsByIdsRequest;
+import com.sitewhere.grpc.service.GGetAssetsByIdsResponse;
 import com.sitewhere.grpc.service.GGetAssetByTokenRequest;
 import com.sitewhere.grpc.service.GGetAssetByTokenResponse;
 import com.sitewhere.grpc.service.GGetAssetTypeByIdRequest;
@@ -175,6 +177,17 @@ public class AssetManagementRouter extends AssetManagementGrpc.AssetManagementIm
 	getTenantImplementation().getAssetById(request, responseObserver);
     }
 
+    /*
+     * @see com.sitewhere.grpc.service.AssetManagementGrpc.AssetManagementImplBase#
+     * getAssetsByIds(com.sitewhere.grpc.service.GGetAssetsByIdsRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void getAssetsByIds(GGetAssetsByIdsRequest request,
+	    StreamObserver<GGetAssetsByIdsResponse> responseObserver) {
+	getTenantImplementation().getAssetsByIds(request, responseObserver);
+    }
+
     /*
      * @see com.sitewhere.grpc.service.AssetManagementGrpc.AssetManagementImplBase#
      * getAssetByToken(com.sitewhere.grpc.service.GGetAssetByTokenRequest,
@@ -7,6 +7,7 @@
  */
 package com.sitewhere.asset.persistence.hbase;
 
+import java.util.List;
 import java.util.UUID;
 
 import org.apache.commons.logging.Log;
@@ -182,6 +183,15 @@ public class HBaseAssetManagement extends TenantEngineLifecycleComponent impleme
 	throw new SiteWhereException("Not implemented yet for HBase asset managment.");
     }
 
+    /*
+     * @see
+     * com.sitewhere.spi.asset.IAssetManagement#getAssetsByIds(java.util.List)
+     */
+    @Override
+    public List<IAsset> getAssetsByIds(List<UUID> assetIds) throws SiteWhereException {
+	throw new SiteWhereException("Not implemented yet for HBase asset managment.");
+    }
+
     /*
      * @see
      * com.sitewhere.spi.asset.IAssetManagement#getAssetByToken(java.lang.String)
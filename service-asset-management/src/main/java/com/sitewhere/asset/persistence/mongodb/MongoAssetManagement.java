@@ -7,6 +7,8 @@
  */
 package com.sitewhere.asset.persistence.mongodb;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 import org.apache.commons.logging.Log;
@@ -257,6 +259,25 @@ public class MongoAssetManagement extends TenantEngineLifecycleComponent impleme
 	return null;
     }
 
+    /*
+     * @see
+     * com.sitewhere.spi.asset.IAssetManagement#getAssetsByIds(java.util.List)
+     */
+    @Override
+    public List<IAsset> getAssetsByIds(List<UUID> assetIds) throws SiteWhereException {
+	try {
+	    MongoCollection<Document> assets = getMongoClient().getAssetsCollection();
+	    Document query = new Document(MongoAsset.PROP_ID, new Document("$in", assetIds));
+	    List<IAsset> results = new ArrayList<IAsset>();
+	    for (Document match : assets.find(query)) {
+		results.add(MongoAsset.fromDocument(match));
+	    }
+	    return results;
+	} catch (MongoClientException e) {
+	    throw MongoPersistence.handleClientException(e);
+	}
+    }
+
     /*
      * @see
      * com.sitewhere.spi.asset.IAssetManagement#getAssetByToken(java.lang.String)
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.batch;
+
+import com.sitewhere.batch.spi.IBatchOperationManager;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.batch.IBatchManagement;
+import com.sitewhere.spi.batch.IBatchOperation;
+import com.sitewhere.spi.batch.request.IBatchCommandForCriteriaRequest;
+import com.sitewhere.spi.batch.request.IBatchCommandInvocationRequest;
+import com.sitewhere.spi.batch.request.IBatchOperationCreateRequest;
+
+/**
+ * Trigger actions based on batch management API calls.
+ * 
+ * @author Derek
+ */
+public class BatchManagementTriggers extends BatchManagementDecorator {
+
+    /** Batch operation manager */
+    private IBatchOperationManager batchOperationManager;
+
+    public BatchManagementTriggers(IBatchManagement delegate, IBatchOperationManager batchOperationManager) {
+	super(delegate);
+	this.batchOperationManager = batchOperationManager;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.batch.BatchManagementDecorator#createBatchOperation(com.sitewhere
+     * .spi.batch.request.IBatchOperationCreateRequest)
+     */
+    @Override
+    public IBatchOperation createBatchOperation(IBatchOperationCreateRequest request) throws SiteWhereException {
+	IBatchOperation operation = super.createBatchOperation(request);
+	getBatchOperationManager().process(operation);
+	return operation;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.batch.BatchManagementDecorator#createBatchCommandInvocation(com.
+     * sitewhere.spi.batch.request.IBatchCommandInvocationRequest)
+     */
+    @Override
+    public IBatchOperation createBatchCommandInvocation(IBatchCommandInvocationRequest request)
+	    throws SiteWhereException {
+	IBatchOperation operation = super.createBatchCommandInvocation(request);
+	getBatchOperationManager().process(operation);
+	return operation;
+    }
+
+    /*
+     * @see com.sitewhere.batch.BatchManagementDecorator#
+     * createBatchCommandInvocationFromCriteria(com.sitewhere.spi.batch.request.
+     * IBatchCommandForCriteriaRequest)
+     */
+    @Override
+    public IBatchOperation createBatchCommandInvocationFromCriteria(IBatchCommandForCriteriaRequest request)
+	    throws SiteWhereException {
+	IBatchOperation operation = super.createBatchCommandInvocationFromCriteria(request);
+	getBatchOperationManager().process(operation);
+	return operation;
+    }
+
+    public IBatchOperationManager getBatchOperationManager() {
+	return batchOperationManager;
+    }
+
+    public void setBatchOperationManager(IBatchOperationManager batchOperationManager) {
+	this.batchOperationManager = batchOperationManager;
+    }
+}
\ No newline at end of file
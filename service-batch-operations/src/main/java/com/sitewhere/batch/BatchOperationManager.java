@@ -7,12 +7,18 @@
  */
 package com.sitewhere.batch;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -21,9 +27,12 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.sitewhere.batch.handler.BatchCommandInvocationHandler;
+import com.sitewhere.batch.persistence.BatchManagementPersistence;
 import com.sitewhere.batch.spi.IBatchOperationHandler;
 import com.sitewhere.batch.spi.IBatchOperationManager;
+import com.sitewhere.batch.spi.microservice.IBatchOperationsMicroservice;
 import com.sitewhere.batch.spi.microservice.IBatchOperationsTenantEngine;
+import com.sitewhere.grpc.client.spi.client.IDeviceManagementApiChannel;
 import com.sitewhere.rest.model.batch.request.BatchElementUpdateRequest;
 import com.sitewhere.rest.model.batch.request.BatchOperationUpdateRequest;
 import com.sitewhere.rest.model.search.device.BatchElementSearchCriteria;
@@ -34,15 +43,23 @@ import com.sitewhere.spi.batch.ElementProcessingStatus;
 import com.sitewhere.spi.batch.IBatchElement;
 import com.sitewhere.spi.batch.IBatchManagement;
 import com.sitewhere.spi.batch.IBatchOperation;
+import com.sitewhere.spi.batch.request.IBatchCommandForCriteriaRequest;
+import com.sitewhere.spi.batch.request.IBatchElementUpdateRequest;
 import com.sitewhere.spi.search.ISearchResults;
-import com.sitewhere.spi.search.device.IBatchElementSearchCriteria;
 import com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor;
 import com.sitewhere.spi.server.lifecycle.LifecycleComponentType;
 import com.sitewhere.spi.server.lifecycle.LifecycleStatus;
 
 /**
  * Default implementation of {@link IBatchOperationManager}. Uses multiple
- * threads to process batch operations.
+ * threads to process batch operations. Operations created from criteria have
+ * their matching devices added as elements a page at a time before processing
+ * starts. Devices that already have an element are skipped, so resolving the
+ * criteria again after an interruption is safe. Elements are read a page at a
+ * time and processed concurrently within a bounded window. Results are buffered
+ * and written back in bulk. Since an element is only marked once its result
+ * has been written, an interrupted operation resumes from the first
+ * uncommitted element when it is processed again.
  * 
  * @author Derek
  */
@@ -54,12 +71,42 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
     /** Number of threads used for batch operation processing */
     private static final int BATCH_PROCESSOR_THREAD_COUNT = 10;
 
+    /** Default number of elements loaded per page */
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+
+    /** Default number of elements processed concurrently for an operation */
+    private static final int DEFAULT_MAX_IN_FLIGHT_ELEMENTS = 20;
+
+    /** Default number of element updates written in a single call */
+    private static final int DEFAULT_UPDATE_BATCH_SIZE = 500;
+
+    /** Default interval at which buffered element updates are written */
+    private static final long DEFAULT_UPDATE_FLUSH_INTERVAL_MS = 1000;
+
     /** Thread pool for processing events */
     private ExecutorService processorPool;
 
-    /** Throttling delay in milliseconds */
+    /** Thread pool for processing batch elements */
+    private ExecutorService elementPool;
+
+    /** Throttling delay in milliseconds (used if no rate is configured) */
     private long throttleDelayMs;
 
+    /** Maximum elements processed per second for an operation (0 = unlimited) */
+    private double elementsPerSecond;
+
+    /** Number of elements loaded per page */
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    /** Number of elements processed concurrently for an operation */
+    private int maxInFlightElements = DEFAULT_MAX_IN_FLIGHT_ELEMENTS;
+
+    /** Number of element updates written in a single call */
+    private int updateBatchSize = DEFAULT_UPDATE_BATCH_SIZE;
+
+    /** Interval at which buffered element updates are written */
+    private long updateFlushIntervalMs = DEFAULT_UPDATE_FLUSH_INTERVAL_MS;
+
     /** Map of handlers by operation type */
     private Map<String, IBatchOperationHandler> handlersByOperationType = new HashMap<String, IBatchOperationHandler>();
 
@@ -80,6 +127,7 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
     @Override
     public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	processorPool = Executors.newFixedThreadPool(BATCH_PROCESSOR_THREAD_COUNT, new ProcessorsThreadFactory());
+	elementPool = Executors.newFixedThreadPool(getMaxInFlightElements(), new ElementsThreadFactory());
 
 	// Start handlers.
 	for (String key : getHandlersByOperationType().keySet()) {
@@ -107,6 +155,7 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
     @Override
     public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	processorPool.shutdownNow();
+	elementPool.shutdownNow();
 
 	// Stop handlers.
 	for (String key : getHandlersByOperationType().keySet()) {
@@ -136,6 +185,20 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
 	processorPool.execute(new BatchOperationProcessor(operation));
     }
 
+    /**
+     * Create rate limiter based on configured settings. Returns null if elements
+     * are not throttled.
+     * 
+     * @return
+     */
+    protected TokenBucketRateLimiter createRateLimiter() {
+	double rate = getElementsPerSecond();
+	if ((rate <= 0) && (getThrottleDelayMs() > 0)) {
+	    rate = 1000.0 / getThrottleDelayMs();
+	}
+	return (rate > 0) ? new TokenBucketRateLimiter(rate, Math.min(rate, getMaxInFlightElements())) : null;
+    }
+
     public long getThrottleDelayMs() {
 	return throttleDelayMs;
     }
@@ -144,10 +207,55 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
 	this.throttleDelayMs = throttleDelayMs;
     }
 
+    public double getElementsPerSecond() {
+	return elementsPerSecond;
+    }
+
+    public void setElementsPerSecond(double elementsPerSecond) {
+	this.elementsPerSecond = elementsPerSecond;
+    }
+
+    public int getPageSize() {
+	return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+	this.pageSize = pageSize;
+    }
+
+    public int getMaxInFlightElements() {
+	return maxInFlightElements;
+    }
+
+    public void setMaxInFlightElements(int maxInFlightElements) {
+	this.maxInFlightElements = maxInFlightElements;
+    }
+
+    public int getUpdateBatchSize() {
+	return updateBatchSize;
+    }
+
+    public void setUpdateBatchSize(int updateBatchSize) {
+	this.updateBatchSize = updateBatchSize;
+    }
+
+    public long getUpdateFlushIntervalMs() {
+	return updateFlushIntervalMs;
+    }
+
+    public void setUpdateFlushIntervalMs(long updateFlushIntervalMs) {
+	this.updateFlushIntervalMs = updateFlushIntervalMs;
+    }
+
     public IBatchManagement getBatchManagement() {
 	return ((IBatchOperationsTenantEngine) getTenantEngine()).getBatchManagement();
     }
 
+    public IDeviceManagementApiChannel getDeviceManagement() {
+	return ((IBatchOperationsMicroservice) getTenantEngine().getMicroservice()).getDeviceManagementApiDemux()
+		.getApiChannel();
+    }
+
     /**
      * Processes a batch in a separate thread.
      * 
@@ -158,6 +266,18 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
 	/** Operation being processed */
 	private IBatchOperation operation;
 
+	/** Limits number of elements processed concurrently */
+	private Semaphore window = new Semaphore(getMaxInFlightElements());
+
+	/** Limits rate of element processing (null if unlimited) */
+	private TokenBucketRateLimiter rateLimiter = createRateLimiter();
+
+	/** Buffers element updates until they are written */
+	private ElementUpdateBuffer updates = new ElementUpdateBuffer();
+
+	/** Tracks processing results */
+	private BatchProcessingResults results = new BatchProcessingResults();
+
 	public BatchOperationProcessor(IBatchOperation operation) {
 	    this.operation = operation;
 	}
@@ -168,96 +288,224 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
 	    try {
 		BatchOperationUpdateRequest request = new BatchOperationUpdateRequest();
 		request.setProcessingStatus(BatchOperationStatus.Processing);
-		request.setProcessingStartedDate(new Date());
+		if (operation.getProcessingStartedDate() == null) {
+		    request.setProcessingStartedDate(new Date());
+		}
 		getBatchManagement().updateBatchOperation(operation.getId(), request);
 
+		// Add elements for devices matching stored criteria.
+		addElementsForCriteria();
+
 		// Process all batch elements.
-		IBatchElementSearchCriteria criteria = new BatchElementSearchCriteria(1, 0);
-		ISearchResults<IBatchElement> matches = getBatchManagement().listBatchElements(operation.getId(),
-			criteria);
-		BatchProcessingResults result = processBatchElements(operation, matches.getResults());
+		processBatchElements();
 
 		// Update operation to reflect processing results.
 		request = new BatchOperationUpdateRequest();
 		request.setProcessingStatus(BatchOperationStatus.FinishedSuccessfully);
 		request.setProcessingEndedDate(new Date());
-		if (result.getErrorCount() > 0) {
+		if (getFailedElementCount() > 0) {
 		    request.setProcessingStatus(BatchOperationStatus.FinishedWithErrors);
 		}
 		getBatchManagement().updateBatchOperation(operation.getId(), request);
+	    } catch (InterruptedException e) {
+		LOGGER.warn("Batch operation interrupted. Processing will resume from last committed element.");
+		Thread.currentThread().interrupt();
 	    } catch (SiteWhereException e) {
 		LOGGER.error("Error processing batch operation.", e);
 	    }
 	}
 
 	/**
-	 * Handle case where batch operation manager has been paused.
+	 * Adds elements for devices matching the criteria stored with the operation.
+	 * Devices are read a page at a time and their elements are added in a single
+	 * call per page.
+	 * 
+	 * @throws SiteWhereException
 	 */
-	protected void handlePauseAndThrottle() {
-	    while (getLifecycleStatus() == LifecycleStatus.Paused) {
-		try {
-		    Thread.sleep(1000);
-		} catch (InterruptedException e) {
-		}
+	protected void addElementsForCriteria() throws SiteWhereException {
+	    IBatchCommandForCriteriaRequest criteria = BatchManagementPersistence
+		    .batchCommandForCriteriaFromOperation(operation);
+	    if (criteria == null) {
+		return;
 	    }
-	    if (getThrottleDelayMs() > 0) {
-		try {
-		    Thread.sleep(getThrottleDelayMs());
-		} catch (InterruptedException e) {
-		    LOGGER.warn("Throttle timer interrupted.");
+	    List<UUID> deviceIds = new ArrayList<UUID>();
+	    BatchUtils.visitDevicesForCriteria(criteria, getDeviceManagement(), device -> {
+		deviceIds.add(device.getId());
+		if (deviceIds.size() >= getPageSize()) {
+		    getBatchManagement().addBatchElements(operation.getId(), deviceIds);
+		    deviceIds.clear();
 		}
+	    });
+	    if (!deviceIds.isEmpty()) {
+		getBatchManagement().addBatchElements(operation.getId(), deviceIds);
 	    }
 	}
 
 	/**
-	 * Processes a page of batch elements.
+	 * Count elements stored with a failed status. Counted from the store rather
+	 * than from results of this run so that failures recorded before the
+	 * operation was interrupted and resumed are included.
 	 * 
-	 * @param operation
-	 * @param elements
 	 * @return
 	 * @throws SiteWhereException
 	 */
-	protected BatchProcessingResults processBatchElements(IBatchOperation operation, List<IBatchElement> elements)
-		throws SiteWhereException {
-	    BatchProcessingResults results = new BatchProcessingResults();
-	    for (IBatchElement element : elements) {
-		// Check whether manager has been paused.
-		handlePauseAndThrottle();
-
-		// Only process unprocessed elements.
-		if (element.getProcessingStatus() != ElementProcessingStatus.Unprocessed) {
-		    continue;
+	protected long getFailedElementCount() throws SiteWhereException {
+	    if (results.getErrorCount() > 0) {
+		return results.getErrorCount();
+	    }
+	    BatchElementSearchCriteria criteria = new BatchElementSearchCriteria(1, 1);
+	    criteria.setProcessingStatus(ElementProcessingStatus.Failed);
+	    return getBatchManagement().listBatchElements(operation.getId(), criteria).getNumResults();
+	}
+
+	/**
+	 * Handle case where batch operation manager has been paused or elements are
+	 * being throttled.
+	 * 
+	 * @throws InterruptedException
+	 */
+	protected void handlePauseAndThrottle() throws InterruptedException {
+	    while (getLifecycleStatus() == LifecycleStatus.Paused) {
+		Thread.sleep(1000);
+	    }
+	    if (rateLimiter != null) {
+		rateLimiter.acquire();
+	    }
+	}
+
+	/**
+	 * Processes unprocessed elements a page at a time. The first page is always
+	 * requested since elements drop out of the unprocessed set as soon as their
+	 * updates are written.
+	 * 
+	 * @throws SiteWhereException
+	 * @throws InterruptedException
+	 */
+	protected void processBatchElements() throws SiteWhereException, InterruptedException {
+	    Set<UUID> previous = new HashSet<UUID>();
+	    while (true) {
+		BatchElementSearchCriteria criteria = new BatchElementSearchCriteria(1, getPageSize());
+		criteria.setProcessingStatus(ElementProcessingStatus.Unprocessed);
+		ISearchResults<IBatchElement> matches = getBatchManagement().listBatchElements(operation.getId(),
+			criteria);
+		List<IBatchElement> page = matches.getResults();
+		if (page.isEmpty()) {
+		    return;
 		}
 
-		// Indicate element is being processed.
-		BatchElementUpdateRequest request = new BatchElementUpdateRequest();
-		request.setProcessingStatus(ElementProcessingStatus.Processing);
-		getBatchManagement().updateBatchElement(element.getBatchOperationId(), request);
-
-		request = new BatchElementUpdateRequest();
-		ElementProcessingStatus status = ElementProcessingStatus.Succeeded;
-		try {
-		    IBatchOperationHandler handler = getHandlersByOperationType().get(operation.getOperationType());
-		    if (handler != null) {
-			status = handler.process(operation, element, request);
-		    } else {
-			status = ElementProcessingStatus.Failed;
+		// Stop rather than loop forever if updates were not stored.
+		Set<UUID> current = new HashSet<UUID>();
+		for (IBatchElement element : page) {
+		    if (previous.contains(element.getId())) {
+			throw new SiteWhereException(
+				"Batch element was not updated after processing: " + element.getId());
+		    }
+		    current.add(element.getId());
+		}
+		previous = current;
+
+		for (IBatchElement element : page) {
+		    handlePauseAndThrottle();
+		    window.acquire();
+		    try {
+			elementPool.execute(new Runnable() {
+
+			    @Override
+			    public void run() {
+				try {
+				    updates.add(element.getId(), processBatchElement(element));
+				} finally {
+				    window.release();
+				}
+			    }
+			});
+		    } catch (RejectedExecutionException e) {
+			window.release();
+			throw new InterruptedException("Batch element pool has been shut down.");
 		    }
+		    updates.flush(false);
+		}
+
+		// Wait for page to complete, then write remaining updates.
+		window.acquire(getMaxInFlightElements());
+		window.release(getMaxInFlightElements());
+		updates.flush(true);
+	    }
+	}
 
-		    // Indicate element succeeded in processing.
-		    request.setProcessingStatus(status);
-		    request.setProcessedDate(new Date());
-		} catch (SiteWhereException t) {
-		    // Indicate element failed in processing.
-		    LOGGER.error("Error processing batch invocation element.", t);
-		    request.setProcessingStatus(ElementProcessingStatus.Failed);
-		} finally {
-		    IBatchElement updated = getBatchManagement().updateBatchElement(element.getBatchOperationId(),
-			    request);
-		    results.process(updated);
+	/**
+	 * Processes a single batch element.
+	 * 
+	 * @param element
+	 * @return
+	 */
+	protected IBatchElementUpdateRequest processBatchElement(IBatchElement element) {
+	    BatchElementUpdateRequest request = new BatchElementUpdateRequest();
+	    ElementProcessingStatus status = ElementProcessingStatus.Succeeded;
+	    try {
+		IBatchOperationHandler handler = getHandlersByOperationType().get(operation.getOperationType());
+		if (handler != null) {
+		    status = handler.process(operation, element, request);
+		} else {
+		    status = ElementProcessingStatus.Failed;
+		}
+
+		// Indicate element succeeded in processing.
+		request.setProcessingStatus(status);
+	    } catch (Throwable t) {
+		// Indicate element failed in processing.
+		LOGGER.error("Error processing batch invocation element.", t);
+		request.setProcessingStatus(ElementProcessingStatus.Failed);
+	    }
+	    request.setProcessedDate(new Date());
+	    results.process(request.getProcessingStatus());
+	    return request;
+	}
+
+	/**
+	 * Collects element updates so they can be written in bulk.
+	 * 
+	 * @author Derek
+	 */
+	private class ElementUpdateBuffer {
+
+	    /** Updates waiting to be written */
+	    private Map<UUID, IBatchElementUpdateRequest> pending = new HashMap<UUID, IBatchElementUpdateRequest>();
+
+	    /** Time updates were last written */
+	    private long lastFlush = System.currentTimeMillis();
+
+	    /**
+	     * Add an update to the buffer.
+	     * 
+	     * @param elementId
+	     * @param request
+	     */
+	    public synchronized void add(UUID elementId, IBatchElementUpdateRequest request) {
+		pending.put(elementId, request);
+	    }
+
+	    /**
+	     * Write buffered updates if the buffer is full, the flush interval has
+	     * passed, or the flush is forced.
+	     * 
+	     * @param force
+	     * @throws SiteWhereException
+	     */
+	    public void flush(boolean force) throws SiteWhereException {
+		Map<UUID, IBatchElementUpdateRequest> batch;
+		synchronized (this) {
+		    boolean due = (pending.size() >= getUpdateBatchSize())
+			    || ((System.currentTimeMillis() - lastFlush) >= getUpdateFlushIntervalMs());
+		    if (pending.isEmpty() || (!force && !due)) {
+			return;
+		    }
+		    batch = pending;
+		    pending = new HashMap<UUID, IBatchElementUpdateRequest>();
+		    lastFlush = System.currentTimeMillis();
 		}
+		getBatchManagement().bulkUpdateBatchElements(batch);
 	    }
-	    return results;
 	}
     }
 
@@ -282,8 +530,8 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
 	// Count of elements that failed to process.
 	private AtomicLong failed = new AtomicLong();
 
-	public void process(IBatchElement element) {
-	    switch (element.getProcessingStatus()) {
+	public void process(ElementProcessingStatus status) {
+	    switch (status) {
 	    case Succeeded: {
 		success.incrementAndGet();
 		break;
@@ -294,12 +542,16 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
 	    }
 	    case Processing:
 	    case Unprocessed: {
-		LOGGER.warn("Batch element was not in an expected state: " + element.getProcessingStatus());
+		LOGGER.warn("Batch element was not in an expected state: " + status);
 		break;
 	    }
 	    }
 	}
 
+	public long getSuccessCount() {
+	    return success.get();
+	}
+
 	public long getErrorCount() {
 	    return failed.get();
 	}
@@ -315,4 +567,15 @@ public class BatchOperationManager extends TenantEngineLifecycleComponent implem
 	    return new Thread(r, "Batch Operation Processor " + counter.incrementAndGet());
 	}
     }
+
+    /** Used for naming batch element processor threads */
+    private class ElementsThreadFactory implements ThreadFactory {
+
+	/** Counts threads */
+	private AtomicInteger counter = new AtomicInteger();
+
+	public Thread newThread(Runnable r) {
+	    return new Thread(r, "Batch Element Processor " + counter.incrementAndGet());
+	}
+    }
 }
\ No newline at end of file
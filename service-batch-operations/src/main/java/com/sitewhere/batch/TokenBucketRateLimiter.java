@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.batch;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the rate at which batch elements are dispatched. Tokens accumulate at
+ * a fixed rate up to a maximum burst size and each dispatch consumes one
+ * token. Callers only block for the time needed to earn the next token rather
+ * than for a fixed delay per element.
+ *
+ * @author Derek
+ */
+public class TokenBucketRateLimiter {
+
+    /** Source of time and waiting */
+    private final Clock clock;
+
+    /** Tokens added per second */
+    private final double permitsPerSecond;
+
+    /** Maximum number of tokens that may accumulate */
+    private final double maxBurst;
+
+    /** Tokens currently available */
+    private double tokens;
+
+    /** Time tokens were last added */
+    private long lastRefillNanos;
+
+    public TokenBucketRateLimiter(double permitsPerSecond, double maxBurst) {
+	this(permitsPerSecond, maxBurst, Clock.SYSTEM);
+    }
+
+    public TokenBucketRateLimiter(double permitsPerSecond, double maxBurst, Clock clock) {
+	if (permitsPerSecond <= 0) {
+	    throw new IllegalArgumentException("Rate must be greater than zero.");
+	}
+	this.clock = clock;
+	this.permitsPerSecond = permitsPerSecond;
+	this.maxBurst = Math.max(1, maxBurst);
+	this.tokens = this.maxBurst;
+	this.lastRefillNanos = clock.nanoTime();
+    }
+
+    /**
+     * Take a single token, blocking until one is available.
+     *
+     * @throws InterruptedException
+     */
+    public void acquire() throws InterruptedException {
+	while (true) {
+	    long waitNanos;
+	    synchronized (this) {
+		refill();
+		if (tokens >= 1) {
+		    tokens -= 1;
+		    return;
+		}
+		waitNanos = (long) (((1 - tokens) / permitsPerSecond) * TimeUnit.SECONDS.toNanos(1));
+	    }
+	    clock.sleep(Math.max(waitNanos, 1));
+	}
+    }
+
+    /**
+     * Take a single token if one is available without blocking.
+     *
+     * @return
+     */
+    public synchronized boolean tryAcquire() {
+	refill();
+	if (tokens >= 1) {
+	    tokens -= 1;
+	    return true;
+	}
+	return false;
+    }
+
+    /**
+     * Add tokens earned since the last refill. Caller must hold the lock.
+     */
+    protected void refill() {
+	long now = clock.nanoTime();
+	double earned = ((now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1)) * permitsPerSecond;
+	tokens = Math.min(maxBurst, tokens + earned);
+	lastRefillNanos = now;
+    }
+
+    public double getPermitsPerSecond() {
+	return permitsPerSecond;
+    }
+
+    public double getMaxBurst() {
+	return maxBurst;
+    }
+
+    /**
+     * Source of time and waiting for the limiter.
+     */
+    public static interface Clock {
+
+	/** Uses system time and sleeps the calling thread */
+	public static final Clock SYSTEM = new Clock() {
+
+	    @Override
+	    public long nanoTime() {
+		return System.nanoTime();
+	    }
+
+	    @Override
+	    public void sleep(long nanos) throws InterruptedException {
+		TimeUnit.NANOSECONDS.sleep(nanos);
+	    }
+	};
+
+	/**
+	 * Get current time in nanoseconds.
+	 * 
+	 * @return
+	 */
+	public long nanoTime();
+
+	/**
+	 * Wait for the given number of nanoseconds.
+	 * 
+	 * @param nanos
+	 * @throws InterruptedException
+	 */
+	public void sleep(long nanos) throws InterruptedException;
+    }
+}
\ No newline at end of file
@@ -98,6 +98,14 @@ public class BatchOperationsModelProvider extends ConfigurationModelProvider {
 		.description("Number of milliseconds to wait between processing elements in a "
 			+ "batch operation. This throttles the output to prevent overloading the system.")
 		.defaultValue("0").build()));
+	builder.attribute((new AttributeNode.Builder("Elements per second", "elementsPerSecond", AttributeType.Decimal)
+		.description("Maximum number of elements processed per second for a batch operation. "
+			+ "Overrides the throttle delay if set. A value of zero disables throttling.")
+		.defaultValue("0").build()));
+	builder.attribute((new AttributeNode.Builder("Max in-flight elements", "maxInFlightElements",
+		AttributeType.Integer)
+			.description("Maximum number of elements processed concurrently for a batch operation.")
+			.defaultValue("20").build()));
 	return builder.build();
     }
 }
\ No newline at end of file
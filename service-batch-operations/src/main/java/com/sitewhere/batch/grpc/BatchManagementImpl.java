@@ -7,12 +7,25 @@
  */
 package com.sitewhere.batch.grpc;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
 import com.sitewhere.grpc.client.GrpcUtils;
 import com.sitewhere.grpc.model.BatchModel.GBatchOperationElementSearchResults;
 import com.sitewhere.grpc.model.BatchModel.GBatchOperationSearchResults;
+import com.sitewhere.grpc.model.CommonModel.GUUID;
 import com.sitewhere.grpc.model.batch.BatchModelConverter;
 import com.sitewhere.grpc.model.converter.CommonModelConverter;
 import com.sitewhere.grpc.service.BatchManagementGrpc;
+import com.sitewhere.grpc.service.GAddBatchOperationElementsRequest;
+import com.sitewhere.grpc.service.GAddBatchOperationElementsResponse;
+import com.sitewhere.grpc.service.GBulkUpdateBatchOperationElementsRequest;
+import com.sitewhere.grpc.service.GBulkUpdateBatchOperationElementsResponse;
+import com.sitewhere.grpc.service.GCreateBatchCommandInvocationFromCriteriaRequest;
+import com.sitewhere.grpc.service.GCreateBatchCommandInvocationFromCriteriaResponse;
 import com.sitewhere.grpc.service.GCreateBatchCommandInvocationRequest;
 import com.sitewhere.grpc.service.GCreateBatchCommandInvocationResponse;
 import com.sitewhere.grpc.service.GCreateBatchOperationRequest;
@@ -32,6 +45,7 @@ import com.sitewhere.grpc.service.GUpdateBatchOperationResponse;
 import com.sitewhere.spi.batch.IBatchElement;
 import com.sitewhere.spi.batch.IBatchManagement;
 import com.sitewhere.spi.batch.IBatchOperation;
+import com.sitewhere.spi.batch.request.IBatchCommandForCriteriaRequest;
 import com.sitewhere.spi.batch.request.IBatchCommandInvocationRequest;
 import com.sitewhere.spi.batch.request.IBatchElementUpdateRequest;
 import com.sitewhere.spi.batch.request.IBatchOperationCreateRequest;
@@ -100,6 +114,31 @@ public class BatchManagementImpl extends BatchManagementGrpc.BatchManagementImpl
 	}
     }
 
+    /*
+     * @see com.sitewhere.grpc.service.BatchManagementGrpc.BatchManagementImplBase#
+     * createBatchCommandInvocationFromCriteria(com.sitewhere.grpc.service.
+     * GCreateBatchCommandInvocationFromCriteriaRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void createBatchCommandInvocationFromCriteria(GCreateBatchCommandInvocationFromCriteriaRequest request,
+	    StreamObserver<GCreateBatchCommandInvocationFromCriteriaResponse> responseObserver) {
+	try {
+	    GrpcUtils.logServerMethodEntry(BatchManagementGrpc.METHOD_CREATE_BATCH_COMMAND_INVOCATION_FROM_CRITERIA);
+	    IBatchCommandForCriteriaRequest apiRequest = BatchModelConverter
+		    .asApiBatchCommandForCriteriaRequest(request.getRequest());
+	    IBatchOperation apiResult = getBatchManagement().createBatchCommandInvocationFromCriteria(apiRequest);
+	    GCreateBatchCommandInvocationFromCriteriaResponse.Builder response = GCreateBatchCommandInvocationFromCriteriaResponse
+		    .newBuilder();
+	    response.setBatchOperation(BatchModelConverter.asGrpcBatchOperation(apiResult));
+	    responseObserver.onNext(response.build());
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(
+		    BatchManagementGrpc.METHOD_CREATE_BATCH_COMMAND_INVOCATION_FROM_CRITERIA, e, responseObserver);
+	}
+    }
+
     /*
      * @see com.sitewhere.grpc.service.BatchManagementGrpc.BatchManagementImplBase#
      * updateBatchOperation(com.sitewhere.grpc.service.GUpdateBatchOperationRequest,
@@ -248,6 +287,57 @@ public class BatchManagementImpl extends BatchManagementGrpc.BatchManagementImpl
 	}
     }
 
+    /*
+     * @see com.sitewhere.grpc.service.BatchManagementGrpc.BatchManagementImplBase#
+     * bulkUpdateBatchOperationElements(com.sitewhere.grpc.service.
+     * GBulkUpdateBatchOperationElementsRequest, io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void bulkUpdateBatchOperationElements(GBulkUpdateBatchOperationElementsRequest request,
+	    StreamObserver<GBulkUpdateBatchOperationElementsResponse> responseObserver) {
+	try {
+	    GrpcUtils.logServerMethodEntry(BatchManagementGrpc.METHOD_BULK_UPDATE_BATCH_OPERATION_ELEMENTS);
+	    Map<UUID, IBatchElementUpdateRequest> apiRequests = new HashMap<>();
+	    for (GUpdateBatchOperationElementRequest update : request.getUpdatesList()) {
+		apiRequests.put(CommonModelConverter.asApiUuid(update.getElementId()),
+			BatchModelConverter.asApiBatchElementUpdateRequest(update.getRequest()));
+	    }
+	    getBatchManagement().bulkUpdateBatchElements(apiRequests);
+	    GBulkUpdateBatchOperationElementsResponse.Builder response = GBulkUpdateBatchOperationElementsResponse
+		    .newBuilder();
+	    responseObserver.onNext(response.build());
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(BatchManagementGrpc.METHOD_BULK_UPDATE_BATCH_OPERATION_ELEMENTS, e,
+		    responseObserver);
+	}
+    }
+
+    /*
+     * @see com.sitewhere.grpc.service.BatchManagementGrpc.BatchManagementImplBase#
+     * addBatchOperationElements(com.sitewhere.grpc.service.
+     * GAddBatchOperationElementsRequest, io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void addBatchOperationElements(GAddBatchOperationElementsRequest request,
+	    StreamObserver<GAddBatchOperationElementsResponse> responseObserver) {
+	try {
+	    GrpcUtils.logServerMethodEntry(BatchManagementGrpc.METHOD_ADD_BATCH_OPERATION_ELEMENTS);
+	    List<UUID> deviceIds = new ArrayList<>();
+	    for (GUUID deviceId : request.getDeviceIdsList()) {
+		deviceIds.add(CommonModelConverter.asApiUuid(deviceId));
+	    }
+	    getBatchManagement().addBatchElements(CommonModelConverter.asApiUuid(request.getBatchOperationId()),
+		    deviceIds);
+	    GAddBatchOperationElementsResponse.Builder response = GAddBatchOperationElementsResponse.newBuilder();
+	    responseObserver.onNext(response.build());
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(BatchManagementGrpc.METHOD_ADD_BATCH_OPERATION_ELEMENTS, e,
+		    responseObserver);
+	}
+    }
+
     public IBatchManagement getBatchManagement() {
 	return batchManagement;
     }
@@ -15,6 +15,12 @@ import org.apache.commons.logging.LogFactory;
 import com.sitewhere.batch.spi.microservice.IBatchOperationsMicroservice;
 import com.sitewhere.batch.spi.microservice.IBatchOperationsTenantEngine;
 import com.sitewhere.grpc.service.BatchManagementGrpc;
+import com.sitewhere.grpc.service.GAddBatchOperationElementsRequest;
+import com.sitewhere.grpc.service.GAddBatchOperationElementsResponse;
+import com.sitewhere.grpc.service.GBulkUpdateBatchOperationElementsRequest;
+import com.sitewhere.grpc.service.GBulkUpdateBatchOperationElementsResponse;
+import com.sitewhere.grpc.service.GCreateBatchCommandInvocationFromCriteriaRequest;
+import com.sitewhere.grpc.service.GCreateBatchCommandInvocationFromCriteriaResponse;
 import com.sitewhere.grpc.service.GCreateBatchCommandInvocationRequest;
 import com.sitewhere.grpc.service.GCreateBatchCommandInvocationResponse;
 import com.sitewhere.grpc.service.GCreateBatchOperationRequest;
@@ -101,6 +107,18 @@ public class BatchManagementRouter extends BatchManagementGrpc.BatchManagementIm
 	getTenantImplementation().createBatchCommandInvocation(request, responseObserver);
     }
 
+    /*
+     * @see com.sitewhere.grpc.service.BatchManagementGrpc.BatchManagementImplBase#
+     * createBatchCommandInvocationFromCriteria(com.sitewhere.grpc.service.
+     * GCreateBatchCommandInvocationFromCriteriaRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void createBatchCommandInvocationFromCriteria(GCreateBatchCommandInvocationFromCriteriaRequest request,
+	    StreamObserver<GCreateBatchCommandInvocationFromCriteriaResponse> responseObserver) {
+	getTenantImplementation().createBatchCommandInvocationFromCriteria(request, responseObserver);
+    }
+
     /*
      * @see com.sitewhere.grpc.service.BatchManagementGrpc.BatchManagementImplBase#
      * updateBatchOperation(com.sitewhere.grpc.service.GUpdateBatchOperationRequest,
@@ -167,6 +185,28 @@ public class BatchManagementRouter extends BatchManagementGrpc.BatchManagementIm
 	getTenantImplementation().updateBatchOperationElement(request, responseObserver);
     }
 
+    /*
+     * @see com.sitewhere.grpc.service.BatchManagementGrpc.BatchManagementImplBase#
+     * bulkUpdateBatchOperationElements(com.sitewhere.grpc.service.
+     * GBulkUpdateBatchOperationElementsRequest, io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void bulkUpdateBatchOperationElements(GBulkUpdateBatchOperationElementsRequest request,
+	    StreamObserver<GBulkUpdateBatchOperationElementsResponse> responseObserver) {
+	getTenantImplementation().bulkUpdateBatchOperationElements(request, responseObserver);
+    }
+
+    /*
+     * @see com.sitewhere.grpc.service.BatchManagementGrpc.BatchManagementImplBase#
+     * addBatchOperationElements(com.sitewhere.grpc.service.
+     * GAddBatchOperationElementsRequest, io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void addBatchOperationElements(GAddBatchOperationElementsRequest request,
+	    StreamObserver<GAddBatchOperationElementsResponse> responseObserver) {
+	getTenantImplementation().addBatchOperationElements(request, responseObserver);
+    }
+
     public IBatchOperationsMicroservice getMicroservice() {
 	return microservice;
     }
@@ -10,7 +10,9 @@ package com.sitewhere.batch.microservice;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.sitewhere.batch.BatchManagementTriggers;
 import com.sitewhere.batch.grpc.BatchManagementImpl;
+import com.sitewhere.batch.spi.IBatchOperationManager;
 import com.sitewhere.batch.spi.microservice.IBatchOperationsTenantEngine;
 import com.sitewhere.grpc.service.BatchManagementGrpc;
 import com.sitewhere.microservice.multitenant.MicroserviceTenantEngine;
@@ -39,6 +41,9 @@ public class BatchOperationsTenantEngine extends MicroserviceTenantEngine implem
     /** Batch management persistence implementation */
     private IBatchManagement batchManagement;
 
+    /** Batch operation manager */
+    private IBatchOperationManager batchOperationManager;
+
     /** Responds to batch management GRPC requests */
     private BatchManagementGrpc.BatchManagementImplBase batchManagementImpl;
 
@@ -54,8 +59,11 @@ public class BatchOperationsTenantEngine extends MicroserviceTenantEngine implem
     @Override
     public void tenantInitialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	// Create management interfaces.
-	this.batchManagement = (IBatchManagement) getModuleContext()
+	IBatchManagement persistence = (IBatchManagement) getModuleContext()
 		.getBean(BatchManagementBeans.BEAN_BATCH_MANAGEMENT);
+	this.batchOperationManager = (IBatchOperationManager) getModuleContext()
+		.getBean(BatchManagementBeans.BEAN_BATCH_OPERATION_MANAGER);
+	this.batchManagement = new BatchManagementTriggers(persistence, getBatchOperationManager());
 	this.batchManagementImpl = new BatchManagementImpl(getBatchManagement());
 
 	// Create step that will initialize components.
@@ -67,6 +75,9 @@ public class BatchOperationsTenantEngine extends MicroserviceTenantEngine implem
 	// Initialize batch management persistence.
 	init.addInitializeStep(this, getBatchManagement(), true);
 
+	// Initialize batch operation manager.
+	init.addInitializeStep(this, getBatchOperationManager(), true);
+
 	// Execute initialization steps.
 	init.execute(monitor);
     }
@@ -86,6 +97,9 @@ public class BatchOperationsTenantEngine extends MicroserviceTenantEngine implem
 	// Start batch management persistence.
 	start.addStartStep(this, getBatchManagement(), true);
 
+	// Start batch operation manager.
+	start.addStartStep(this, getBatchOperationManager(), true);
+
 	// Execute startup steps.
 	start.execute(monitor);
     }
@@ -108,6 +122,9 @@ public class BatchOperationsTenantEngine extends MicroserviceTenantEngine implem
 	// Create step that will stop components.
 	ICompositeLifecycleStep stop = new CompositeLifecycleStep("Stop " + getComponentName());
 
+	// Stop batch operation manager.
+	stop.addStopStep(this, getBatchOperationManager());
+
 	// Stop batch management persistence.
 	stop.addStopStep(this, getBatchManagement());
 
@@ -131,6 +148,19 @@ public class BatchOperationsTenantEngine extends MicroserviceTenantEngine implem
 	this.batchManagement = batchManagement;
     }
 
+    /*
+     * @see com.sitewhere.batch.spi.microservice.IBatchOperationsTenantEngine#
+     * getBatchOperationManager()
+     */
+    @Override
+    public IBatchOperationManager getBatchOperationManager() {
+	return batchOperationManager;
+    }
+
+    public void setBatchOperationManager(IBatchOperationManager batchOperationManager) {
+	this.batchOperationManager = batchOperationManager;
+    }
+
     /*
      * @see com.sitewhere.batch.spi.microservice.IBatchOperationsTenantEngine#
      * getBatchManagementImpl()
@@ -7,6 +7,9 @@
  */
 package com.sitewhere.batch.persistence;
 
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -15,16 +18,22 @@ import com.sitewhere.batch.BatchOperationTypes;
 import com.sitewhere.persistence.Persistence;
 import com.sitewhere.rest.model.batch.BatchElement;
 import com.sitewhere.rest.model.batch.BatchOperation;
+import com.sitewhere.rest.model.batch.request.BatchCommandForCriteriaRequest;
 import com.sitewhere.rest.model.batch.request.BatchOperationCreateRequest;
 import com.sitewhere.rest.model.common.MetadataProvider;
+import com.sitewhere.rest.model.datatype.JsonDateSerializer;
 import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.SiteWhereSystemException;
 import com.sitewhere.spi.batch.ElementProcessingStatus;
 import com.sitewhere.spi.batch.IBatchOperation;
+import com.sitewhere.spi.batch.request.IBatchCommandForCriteriaRequest;
 import com.sitewhere.spi.batch.request.IBatchCommandInvocationRequest;
 import com.sitewhere.spi.batch.request.IBatchElementUpdateRequest;
 import com.sitewhere.spi.batch.request.IBatchOperationCreateRequest;
 import com.sitewhere.spi.batch.request.IBatchOperationUpdateRequest;
 import com.sitewhere.spi.device.IDevice;
+import com.sitewhere.spi.error.ErrorCode;
+import com.sitewhere.spi.error.ErrorLevel;
 
 /**
  * Common methods needed by batch management implementations.
@@ -97,10 +106,23 @@ public class BatchManagementPersistence extends Persistence {
      */
     public static BatchElement batchElementCreateLogic(IBatchOperation operation, IDevice device)
 	    throws SiteWhereException {
+	return batchElementCreateLogic(operation.getId(), device.getId());
+    }
+
+    /**
+     * Common logic for creating a batch operation element from ids.
+     * 
+     * @param batchOperationId
+     * @param deviceId
+     * @return
+     * @throws SiteWhereException
+     */
+    public static BatchElement batchElementCreateLogic(UUID batchOperationId, UUID deviceId)
+	    throws SiteWhereException {
 	BatchElement element = new BatchElement();
 	element.setId(UUID.randomUUID());
-	element.setBatchOperationId(operation.getId());
-	element.setDeviceId(device.getId());
+	element.setBatchOperationId(batchOperationId);
+	element.setDeviceId(deviceId);
 	element.setProcessingStatus(ElementProcessingStatus.Unprocessed);
 	element.setProcessedDate(null);
 	return element;
@@ -150,4 +172,105 @@ public class BatchManagementPersistence extends Persistence {
 	batch.setMetadata(params);
 	return batch;
     }
+
+    /**
+     * Encodes a batch command invocation for devices matching criteria into the
+     * generic {@link IBatchOperationCreateRequest} format. The criteria are stored
+     * as operation parameters and devices are resolved separately.
+     * 
+     * @param request
+     * @param uuid
+     * @return
+     * @throws SiteWhereException
+     */
+    public static IBatchOperationCreateRequest batchCommandForCriteriaCreateLogic(
+	    IBatchCommandForCriteriaRequest request, String uuid) throws SiteWhereException {
+	if (request.getDeviceTypeToken() == null) {
+	    throw new SiteWhereSystemException(ErrorCode.InvalidDeviceTypeToken, ErrorLevel.ERROR);
+	}
+	BatchOperationCreateRequest batch = new BatchOperationCreateRequest();
+	batch.setToken(uuid);
+	batch.setOperationType(BatchOperationTypes.OPERATION_BATCH_COMMAND_INVOCATION);
+	batch.getParameters().put(IBatchCommandInvocationRequest.PARAM_COMMAND_TOKEN, request.getCommandToken());
+	putIfPresent(batch.getParameters(), IBatchCommandForCriteriaRequest.PARAM_DEVICE_TYPE_TOKEN,
+		request.getDeviceTypeToken());
+	putIfPresent(batch.getParameters(), IBatchCommandForCriteriaRequest.PARAM_GROUP_TOKEN,
+		request.getGroupToken());
+	putIfPresent(batch.getParameters(), IBatchCommandForCriteriaRequest.PARAM_GROUPS_WITH_ROLE,
+		request.getGroupsWithRole());
+	putIfPresent(batch.getParameters(), IBatchCommandForCriteriaRequest.PARAM_AREA_TOKEN, request.getAreaToken());
+	if (request.getStartDate() != null) {
+	    batch.getParameters().put(IBatchCommandForCriteriaRequest.PARAM_START_DATE,
+		    JsonDateSerializer.serialize(request.getStartDate()));
+	}
+	if (request.getEndDate() != null) {
+	    batch.getParameters().put(IBatchCommandForCriteriaRequest.PARAM_END_DATE,
+		    JsonDateSerializer.serialize(request.getEndDate()));
+	}
+	Map<String, String> params = new HashMap<String, String>();
+	if (request.getParameterValues() != null) {
+	    params.putAll(request.getParameterValues());
+	}
+	batch.setMetadata(params);
+	return batch;
+    }
+
+    /**
+     * Decodes the criteria stored by
+     * {@link #batchCommandForCriteriaCreateLogic(IBatchCommandForCriteriaRequest, String)}
+     * from the operation parameters. Returns null if the operation was created
+     * with an explicit list of devices.
+     * 
+     * @param operation
+     * @return
+     * @throws SiteWhereException
+     */
+    public static IBatchCommandForCriteriaRequest batchCommandForCriteriaFromOperation(IBatchOperation operation)
+	    throws SiteWhereException {
+	Map<String, String> parameters = operation.getParameters();
+	if ((parameters == null) || (parameters.get(IBatchCommandForCriteriaRequest.PARAM_DEVICE_TYPE_TOKEN) == null)) {
+	    return null;
+	}
+	BatchCommandForCriteriaRequest criteria = new BatchCommandForCriteriaRequest();
+	criteria.setToken(operation.getToken());
+	criteria.setCommandToken(parameters.get(IBatchCommandInvocationRequest.PARAM_COMMAND_TOKEN));
+	criteria.setDeviceTypeToken(parameters.get(IBatchCommandForCriteriaRequest.PARAM_DEVICE_TYPE_TOKEN));
+	criteria.setGroupToken(parameters.get(IBatchCommandForCriteriaRequest.PARAM_GROUP_TOKEN));
+	criteria.setGroupsWithRole(parameters.get(IBatchCommandForCriteriaRequest.PARAM_GROUPS_WITH_ROLE));
+	criteria.setAreaToken(parameters.get(IBatchCommandForCriteriaRequest.PARAM_AREA_TOKEN));
+	criteria.setStartDate(parseDate(parameters.get(IBatchCommandForCriteriaRequest.PARAM_START_DATE)));
+	criteria.setEndDate(parseDate(parameters.get(IBatchCommandForCriteriaRequest.PARAM_END_DATE)));
+	return criteria;
+    }
+
+    /**
+     * Parse a date written by {@link JsonDateSerializer#serialize(Date)}.
+     * 
+     * @param value
+     * @return
+     * @throws SiteWhereException
+     */
+    protected static Date parseDate(String value) throws SiteWhereException {
+	if (value == null) {
+	    return null;
+	}
+	try {
+	    return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ").parse(value);
+	} catch (ParseException e) {
+	    throw new SiteWhereException("Invalid date in batch operation parameters: " + value, e);
+	}
+    }
+
+    /**
+     * Add a parameter only if it has a value.
+     * 
+     * @param parameters
+     * @param name
+     * @param value
+     */
+    protected static void putIfPresent(Map<String, String> parameters, String name, String value) {
+	if ((value != null) && (value.trim().length() > 0)) {
+	    parameters.put(name, value);
+	}
+    }
 }
\ No newline at end of file
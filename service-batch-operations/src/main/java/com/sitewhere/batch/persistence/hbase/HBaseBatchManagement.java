@@ -7,6 +7,8 @@
  */
 package com.sitewhere.batch.persistence.hbase;
 
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.apache.commons.logging.Log;
@@ -19,13 +21,17 @@ import com.sitewhere.hbase.encoder.IPayloadMarshaler;
 import com.sitewhere.rest.model.search.SearchResults;
 import com.sitewhere.server.lifecycle.TenantEngineLifecycleComponent;
 import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.SiteWhereSystemException;
 import com.sitewhere.spi.batch.IBatchElement;
 import com.sitewhere.spi.batch.IBatchManagement;
 import com.sitewhere.spi.batch.IBatchOperation;
+import com.sitewhere.spi.batch.request.IBatchCommandForCriteriaRequest;
 import com.sitewhere.spi.batch.request.IBatchCommandInvocationRequest;
 import com.sitewhere.spi.batch.request.IBatchElementUpdateRequest;
 import com.sitewhere.spi.batch.request.IBatchOperationCreateRequest;
 import com.sitewhere.spi.batch.request.IBatchOperationUpdateRequest;
+import com.sitewhere.spi.error.ErrorCode;
+import com.sitewhere.spi.error.ErrorLevel;
 import com.sitewhere.spi.search.ISearchResults;
 import com.sitewhere.spi.search.batch.IBatchOperationSearchCriteria;
 import com.sitewhere.spi.search.device.IBatchElementSearchCriteria;
@@ -138,6 +144,28 @@ public class HBaseBatchManagement extends TenantEngineLifecycleComponent impleme
 	return null;
     }
 
+    /*
+     * @see
+     * com.sitewhere.spi.batch.IBatchManagement#bulkUpdateBatchElements(java.util.
+     * Map)
+     */
+    @Override
+    public void bulkUpdateBatchElements(Map<UUID, IBatchElementUpdateRequest> requestsByElementId)
+	    throws SiteWhereException {
+	for (Map.Entry<UUID, IBatchElementUpdateRequest> entry : requestsByElementId.entrySet()) {
+	    updateBatchElement(entry.getKey(), entry.getValue());
+	}
+    }
+
+    /*
+     * @see com.sitewhere.spi.batch.IBatchManagement#addBatchElements(java.util.UUID,
+     * java.util.List)
+     */
+    @Override
+    public void addBatchElements(UUID batchOperationId, List<UUID> deviceIds) throws SiteWhereException {
+	throw new SiteWhereSystemException(ErrorCode.OperationNotSupported, ErrorLevel.ERROR);
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -154,6 +182,17 @@ public class HBaseBatchManagement extends TenantEngineLifecycleComponent impleme
 	return createBatchOperation(generic);
     }
 
+    /*
+     * @see com.sitewhere.spi.batch.IBatchManagement#
+     * createBatchCommandInvocationFromCriteria(com.sitewhere.spi.batch.request.
+     * IBatchCommandForCriteriaRequest)
+     */
+    @Override
+    public IBatchOperation createBatchCommandInvocationFromCriteria(IBatchCommandForCriteriaRequest request)
+	    throws SiteWhereException {
+	throw new SiteWhereSystemException(ErrorCode.OperationNotSupported, ErrorLevel.ERROR);
+    }
+
     /*
      * (non-Javadoc)
      * 
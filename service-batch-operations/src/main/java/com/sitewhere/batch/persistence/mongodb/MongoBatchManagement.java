@@ -7,19 +7,29 @@
  */
 package com.sitewhere.batch.persistence.mongodb;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.bson.Document;
 
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
 import com.mongodb.MongoClientException;
+import com.mongodb.bulk.BulkWriteError;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
 import com.sitewhere.batch.persistence.BatchManagementPersistence;
 import com.sitewhere.batch.spi.microservice.IBatchOperationsMicroservice;
 import com.sitewhere.mongodb.IMongoConverterLookup;
 import com.sitewhere.mongodb.MongoPersistence;
+import com.sitewhere.mongodb.common.MongoMetadataProvider;
 import com.sitewhere.mongodb.common.MongoSiteWhereEntity;
 import com.sitewhere.rest.model.batch.BatchElement;
 import com.sitewhere.rest.model.batch.BatchOperation;
@@ -30,6 +40,7 @@ import com.sitewhere.spi.SiteWhereSystemException;
 import com.sitewhere.spi.batch.IBatchElement;
 import com.sitewhere.spi.batch.IBatchManagement;
 import com.sitewhere.spi.batch.IBatchOperation;
+import com.sitewhere.spi.batch.request.IBatchCommandForCriteriaRequest;
 import com.sitewhere.spi.batch.request.IBatchCommandInvocationRequest;
 import com.sitewhere.spi.batch.request.IBatchElementUpdateRequest;
 import com.sitewhere.spi.batch.request.IBatchOperationCreateRequest;
@@ -70,6 +81,9 @@ public class MongoBatchManagement extends TenantEngineLifecycleComponent impleme
 	getMongoClient().getBatchOperationElementsCollection().createIndex(
 		new Document(MongoBatchElement.PROP_BATCH_OPERATION_ID, 1).append(MongoBatchElement.PROP_DEVICE_ID, 1),
 		new IndexOptions().unique(true));
+	getMongoClient().getBatchOperationElementsCollection().createIndex(
+		new Document(MongoBatchElement.PROP_BATCH_OPERATION_ID, 1).append(MongoBatchElement.PROP_PROCESSING_STATUS,
+			1));
     }
 
     /*
@@ -232,6 +246,77 @@ public class MongoBatchManagement extends TenantEngineLifecycleComponent impleme
 	return MongoBatchElement.fromDocument(updated);
     }
 
+    /*
+     * @see
+     * com.sitewhere.spi.batch.IBatchManagement#bulkUpdateBatchElements(java.util.
+     * Map)
+     */
+    @Override
+    public void bulkUpdateBatchElements(Map<UUID, IBatchElementUpdateRequest> requestsByElementId)
+	    throws SiteWhereException {
+	List<WriteModel<Document>> updates = new ArrayList<>();
+	for (Map.Entry<UUID, IBatchElementUpdateRequest> entry : requestsByElementId.entrySet()) {
+	    IBatchElementUpdateRequest request = entry.getValue();
+	    BatchElement element = new BatchElement();
+	    BatchManagementPersistence.batchElementUpdateLogic(request, element);
+
+	    // Only overwrite fields present in the request.
+	    Document fields = new Document();
+	    if (element.getProcessingStatus() != null) {
+		fields.append(MongoBatchElement.PROP_PROCESSING_STATUS, element.getProcessingStatus().name());
+	    }
+	    if (element.getProcessedDate() != null) {
+		fields.append(MongoBatchElement.PROP_PROCESSED_DATE, element.getProcessedDate());
+	    }
+	    if (request.getMetadata() != null) {
+		MongoMetadataProvider.toDocument(element, fields);
+	    }
+	    if (fields.isEmpty()) {
+		continue;
+	    }
+	    Document match = new Document(MongoBatchElement.PROP_ID, entry.getKey());
+	    updates.add(new UpdateOneModel<Document>(match, new Document("$set", fields)));
+	}
+	if (updates.size() == 0) {
+	    return;
+	}
+	try {
+	    getMongoClient().getBatchOperationElementsCollection().bulkWrite(updates);
+	} catch (MongoClientException e) {
+	    throw MongoPersistence.handleClientException(e);
+	}
+    }
+
+    /*
+     * @see com.sitewhere.spi.batch.IBatchManagement#addBatchElements(java.util.UUID,
+     * java.util.List)
+     */
+    @Override
+    public void addBatchElements(UUID batchOperationId, List<UUID> deviceIds) throws SiteWhereException {
+	assertBatchOperation(batchOperationId);
+	if (deviceIds.isEmpty()) {
+	    return;
+	}
+	List<Document> created = new ArrayList<>();
+	for (UUID deviceId : deviceIds) {
+	    BatchElement element = BatchManagementPersistence.batchElementCreateLogic(batchOperationId, deviceId);
+	    created.add(MongoBatchElement.toDocument(element));
+	}
+	try {
+	    getMongoClient().getBatchOperationElementsCollection().insertMany(created,
+		    new InsertManyOptions().ordered(false));
+	} catch (MongoBulkWriteException e) {
+	    // Devices already in the operation are rejected by the unique index.
+	    for (BulkWriteError error : e.getWriteErrors()) {
+		if (ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+		    throw new SiteWhereException("Unable to add batch operation elements.", e);
+		}
+	    }
+	} catch (MongoClientException e) {
+	    throw MongoPersistence.handleClientException(e);
+	}
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -248,6 +333,22 @@ public class MongoBatchManagement extends TenantEngineLifecycleComponent impleme
 	return createBatchOperation(generic);
     }
 
+    /*
+     * @see com.sitewhere.spi.batch.IBatchManagement#
+     * createBatchCommandInvocationFromCriteria(com.sitewhere.spi.batch.request.
+     * IBatchCommandForCriteriaRequest)
+     */
+    @Override
+    public IBatchOperation createBatchCommandInvocationFromCriteria(IBatchCommandForCriteriaRequest request)
+	    throws SiteWhereException {
+	String uuid = ((request.getToken() != null) ? request.getToken() : UUID.randomUUID().toString());
+	IBatchOperationCreateRequest generic = BatchManagementPersistence.batchCommandForCriteriaCreateLogic(request,
+		uuid);
+
+	// Only the criteria are stored. Devices are resolved when processed.
+	return createBatchOperation(generic);
+    }
+
     /**
      * Returns the {@link Document} for the batch operation with the given token.
      * Returns null if not found.
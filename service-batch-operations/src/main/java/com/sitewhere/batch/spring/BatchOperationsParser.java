@@ -16,8 +16,10 @@ import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.xml.AbstractBeanDefinitionParser;
 import org.springframework.beans.factory.xml.ParserContext;
 import org.springframework.util.xml.DomUtils;
+import org.w3c.dom.Attr;
 import org.w3c.dom.Element;
 
+import com.sitewhere.batch.BatchOperationManager;
 import com.sitewhere.batch.persistence.mongodb.BatchManagementMongoClient;
 import com.sitewhere.batch.persistence.mongodb.MongoBatchManagement;
 import com.sitewhere.configuration.datastore.DatastoreConfiguration;
@@ -45,6 +47,7 @@ public class BatchOperationsParser extends AbstractBeanDefinitionParser {
      */
     @Override
     protected AbstractBeanDefinition parseInternal(Element element, ParserContext context) {
+	boolean hasManager = false;
 	List<Element> dsChildren = DomUtils.getChildElements(element);
 	for (Element child : dsChildren) {
 	    Elements type = Elements.getByLocalName(child.getLocalName());
@@ -57,13 +60,49 @@ public class BatchOperationsParser extends AbstractBeanDefinitionParser {
 		break;
 	    }
 	    case BatchOperationManager: {
+		parseBatchOperationManager(child, context);
+		hasManager = true;
 		break;
 	    }
 	    }
 	}
+
+	// Use default settings if batch operation manager is not configured.
+	if (!hasManager) {
+	    context.getRegistry().registerBeanDefinition(BatchManagementBeans.BEAN_BATCH_OPERATION_MANAGER,
+		    BeanDefinitionBuilder.rootBeanDefinition(BatchOperationManager.class).getBeanDefinition());
+	}
 	return null;
     }
 
+    /**
+     * Parse batch operation manager element.
+     * 
+     * @param element
+     * @param context
+     */
+    protected void parseBatchOperationManager(Element element, ParserContext context) {
+	BeanDefinitionBuilder manager = BeanDefinitionBuilder.rootBeanDefinition(BatchOperationManager.class);
+
+	Attr throttleDelayMs = element.getAttributeNode("throttleDelayMs");
+	if (throttleDelayMs != null) {
+	    manager.addPropertyValue("throttleDelayMs", throttleDelayMs.getValue());
+	}
+
+	Attr elementsPerSecond = element.getAttributeNode("elementsPerSecond");
+	if (elementsPerSecond != null) {
+	    manager.addPropertyValue("elementsPerSecond", elementsPerSecond.getValue());
+	}
+
+	Attr maxInFlightElements = element.getAttributeNode("maxInFlightElements");
+	if (maxInFlightElements != null) {
+	    manager.addPropertyValue("maxInFlightElements", maxInFlightElements.getValue());
+	}
+
+	context.getRegistry().registerBeanDefinition(BatchManagementBeans.BEAN_BATCH_OPERATION_MANAGER,
+		manager.getBeanDefinition());
+    }
+
     /**
      * Parse device management datastore element.
      * 
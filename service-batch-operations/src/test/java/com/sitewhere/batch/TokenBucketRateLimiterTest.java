@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TokenBucketRateLimiterTest {
+
+    @Test
+    public void testBurstIsAvailableImmediately() {
+	TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 5);
+	for (int i = 0; i < 5; i++) {
+	    assertTrue(limiter.tryAcquire());
+	}
+	assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    public void testRateIsEnforced() throws InterruptedException {
+	ManualClock clock = new ManualClock();
+	TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(100, 1, clock);
+	for (int i = 0; i < 51; i++) {
+	    limiter.acquire();
+	}
+
+	// First token is available immediately and the rest arrive every 10ms.
+	assertEquals(500, TimeUnit.NANOSECONDS.toMillis(clock.now));
+	assertFalse(limiter.tryAcquire());
+	clock.now += TimeUnit.MILLISECONDS.toNanos(10);
+	assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void testBurstIsCapped() {
+	ManualClock clock = new ManualClock();
+	TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 5, clock);
+	for (int i = 0; i < 5; i++) {
+	    assertTrue(limiter.tryAcquire());
+	}
+	clock.now += TimeUnit.SECONDS.toNanos(60);
+	for (int i = 0; i < 5; i++) {
+	    assertTrue(limiter.tryAcquire());
+	}
+	assertFalse(limiter.tryAcquire());
+    }
+
+    /**
+     * Clock that only advances when the limiter waits or the test moves it.
+     */
+    private static class ManualClock implements TokenBucketRateLimiter.Clock {
+
+	/** Current time in nanoseconds */
+	private long now;
+
+	@Override
+	public long nanoTime() {
+	    return now;
+	}
+
+	@Override
+	public void sleep(long nanos) {
+	    now += nanos;
+	}
+    }
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.batch.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+
+import org.junit.Test;
+
+import com.sitewhere.rest.model.batch.BatchOperation;
+import com.sitewhere.rest.model.batch.request.BatchCommandForCriteriaRequest;
+import com.sitewhere.rest.model.batch.request.BatchCommandInvocationRequest;
+import com.sitewhere.spi.batch.request.IBatchCommandForCriteriaRequest;
+
+/**
+ * Verifies that criteria stored with a batch operation can be read back when
+ * the operation is processed.
+ *
+ * @author Derek
+ */
+public class BatchManagementPersistenceTest {
+
+    @Test
+    public void testCriteriaRoundTrip() throws Exception {
+	BatchCommandForCriteriaRequest request = new BatchCommandForCriteriaRequest();
+	request.setCommandToken("reboot");
+	request.setDeviceTypeToken("tracker");
+	request.setGroupsWithRole("fleet");
+	request.setAreaToken("north");
+	request.setStartDate(new Date(1500000000000L));
+	request.setEndDate(new Date(1600000000000L));
+	request.setParameterValues(new HashMap<String, String>());
+	BatchOperation operation = BatchManagementPersistence.batchOperationCreateLogic(
+		BatchManagementPersistence.batchCommandForCriteriaCreateLogic(request, "op-1"));
+
+	IBatchCommandForCriteriaRequest criteria = BatchManagementPersistence
+		.batchCommandForCriteriaFromOperation(operation);
+	assertEquals("op-1", criteria.getToken());
+	assertEquals("reboot", criteria.getCommandToken());
+	assertEquals("tracker", criteria.getDeviceTypeToken());
+	assertNull(criteria.getGroupToken());
+	assertEquals("fleet", criteria.getGroupsWithRole());
+	assertEquals("north", criteria.getAreaToken());
+	assertEquals(request.getStartDate(), criteria.getStartDate());
+	assertEquals(request.getEndDate(), criteria.getEndDate());
+    }
+
+    @Test
+    public void testDeviceListIsNotCriteria() throws Exception {
+	BatchCommandInvocationRequest request = new BatchCommandInvocationRequest();
+	request.setCommandToken("reboot");
+	request.setDeviceTokens(new ArrayList<String>());
+	request.setParameterValues(new HashMap<String, String>());
+	BatchOperation operation = BatchManagementPersistence.batchOperationCreateLogic(
+		BatchManagementPersistence.batchCommandInvocationCreateLogic(request, "op-2"));
+
+	assertNull(BatchManagementPersistence.batchCommandForCriteriaFromOperation(operation));
+    }
+}
\ No newline at end of file
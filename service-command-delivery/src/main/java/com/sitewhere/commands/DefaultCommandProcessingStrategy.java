@@ -7,7 +7,10 @@
  */
 package com.sitewhere.commands;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -16,6 +19,8 @@ import com.sitewhere.commands.spi.ICommandExecutionBuilder;
 import com.sitewhere.commands.spi.ICommandProcessingStrategy;
 import com.sitewhere.commands.spi.ICommandTargetResolver;
 import com.sitewhere.commands.spi.IDeviceCommunication;
+import com.sitewhere.grpc.client.cache.CacheEntryInvalidator;
+import com.sitewhere.grpc.client.cache.DeviceManagementCacheProviders;
 import com.sitewhere.server.lifecycle.TenantEngineLifecycleComponent;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.device.IDevice;
@@ -47,6 +52,15 @@ public class DefaultCommandProcessingStrategy extends TenantEngineLifecycleCompo
     /** Configured command execution builder */
     private ICommandExecutionBuilder commandExecutionBuilder = new DefaultCommandExecutionBuilder();
 
+    /** Cache of parent devices for nested devices */
+    private ParentDeviceCache parentDeviceCache = new ParentDeviceCache();
+
+    /** Shared device cache used to detect device updates */
+    private DeviceManagementCacheProviders.DeviceByIdCache deviceByIdCache;
+
+    /** Registration id for device update listener */
+    private String deviceListenerId;
+
     public DefaultCommandProcessingStrategy() {
 	super(LifecycleComponentType.CommandProcessingStrategy);
     }
@@ -62,19 +76,37 @@ public class DefaultCommandProcessingStrategy extends TenantEngineLifecycleCompo
     public void deliverCommand(IDeviceCommunication communication, IDeviceCommandInvocation invocation)
 	    throws SiteWhereException {
 	LOGGER.debug("Command processing strategy handling invocation.");
-	IDeviceCommand command = getDeviceManagement(getTenantEngine().getTenant())
-		.getDeviceCommandByToken(invocation.getCommandToken());
+	IDeviceManagement management = getDeviceManagement(getTenantEngine().getTenant());
+	IDeviceCommand command = management.getDeviceCommandByToken(invocation.getCommandToken());
 	if (command != null) {
 	    IDeviceCommandExecution execution = getCommandExecutionBuilder().createExecution(command, invocation);
 	    List<IDeviceAssignment> assignments = getCommandTargetResolver().resolveTargets(invocation);
+
+	    // Resolve each targeted device only once.
+	    Map<UUID, IDevice> devicesById = new HashMap<UUID, IDevice>();
 	    for (IDeviceAssignment assignment : assignments) {
-		IDevice device = getDeviceManagement(getTenantEngine().getTenant()).getDevice(assignment.getDeviceId());
-		if (device == null) {
-		    throw new SiteWhereException("Targeted assignment references device that does not exist.");
+		if (!devicesById.containsKey(assignment.getDeviceId())) {
+		    IDevice device = management.getDevice(assignment.getDeviceId());
+		    if (device == null) {
+			throw new SiteWhereException("Targeted assignment references device that does not exist.");
+		    }
+		    devicesById.put(assignment.getDeviceId(), device);
 		}
+	    }
 
-		IDeviceNestingContext nesting = NestedDeviceSupport.calculateNestedDeviceInformation(device,
-			getTenantEngine().getTenant());
+	    // Load parents for all nested targets before routing.
+	    if (devicesById.size() > 1) {
+		getParentDeviceCache().prefetch(devicesById.values(), management::getDevice);
+	    }
+
+	    Map<UUID, IDeviceNestingContext> nestingByDeviceId = new HashMap<UUID, IDeviceNestingContext>();
+	    for (IDeviceAssignment assignment : assignments) {
+		IDeviceNestingContext nesting = nestingByDeviceId.get(assignment.getDeviceId());
+		if (nesting == null) {
+		    nesting = NestedDeviceSupport.calculateNestedDeviceInformation(
+			    devicesById.get(assignment.getDeviceId()), getParentDeviceCache(), management::getDevice);
+		    nestingByDeviceId.put(assignment.getDeviceId(), nesting);
+		}
 		communication.getOutboundCommandRouter().routeCommand(execution, nesting, assignment);
 	    }
 	} else {
@@ -100,7 +132,7 @@ public class DefaultCommandProcessingStrategy extends TenantEngineLifecycleCompo
 	}
 	IDeviceAssignment assignment = management.getDeviceAssignment(device.getDeviceAssignmentId());
 	IDeviceNestingContext nesting = NestedDeviceSupport.calculateNestedDeviceInformation(device,
-		getTenantEngine().getTenant());
+		getParentDeviceCache(), management::getDevice);
 	communication.getOutboundCommandRouter().routeSystemCommand(command, nesting, assignment);
     }
 
@@ -125,6 +157,16 @@ public class DefaultCommandProcessingStrategy extends TenantEngineLifecycleCompo
 	    throw new SiteWhereException("No command target resolver configured for command processing.");
 	}
 	startNestedComponent(getCommandTargetResolver(), monitor, true);
+
+	// Drop cached parents when devices are updated or removed.
+	getParentDeviceCache().clear();
+	this.deviceByIdCache = new DeviceManagementCacheProviders.DeviceByIdCache(getTenantEngine().getMicroservice(),
+		false);
+	this.deviceListenerId = deviceByIdCache.addEntryListener(getTenantEngine().getTenant(),
+		new ParentDeviceInvalidator());
+	if (deviceListenerId == null) {
+	    LOGGER.warn("Device cache not available. Cached parent devices will only expire by age.");
+	}
     }
 
     /*
@@ -146,6 +188,15 @@ public class DefaultCommandProcessingStrategy extends TenantEngineLifecycleCompo
      */
     @Override
     public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	// Stop listening for device updates.
+	if (deviceByIdCache != null) {
+	    deviceByIdCache.removeEntryListener(getTenantEngine().getTenant(), deviceListenerId);
+	    deviceListenerId = null;
+	}
+	LOGGER.info("Parent device cache served " + getParentDeviceCache().getHitCount() + " lookups and loaded "
+		+ getParentDeviceCache().getMissCount() + " devices.");
+	getParentDeviceCache().clear();
+
 	// Stop command execution builder.
 	if (getCommandExecutionBuilder() != null) {
 	    getCommandExecutionBuilder().lifecycleStop(monitor);
@@ -157,6 +208,31 @@ public class DefaultCommandProcessingStrategy extends TenantEngineLifecycleCompo
 	}
     }
 
+    /**
+     * Invalidates cached parents when the shared device cache changes.
+     * 
+     * @author Derek
+     */
+    private class ParentDeviceInvalidator extends CacheEntryInvalidator<UUID, IDevice> {
+
+	/*
+	 * @see com.sitewhere.grpc.client.cache.CacheEntryInvalidator#invalidate(java.
+	 * lang.Object, java.lang.Object)
+	 */
+	@Override
+	protected void invalidate(UUID key, IDevice value) {
+	    getParentDeviceCache().invalidate(key);
+	}
+    }
+
+    public ParentDeviceCache getParentDeviceCache() {
+	return parentDeviceCache;
+    }
+
+    public void setParentDeviceCache(ParentDeviceCache parentDeviceCache) {
+	this.parentDeviceCache = parentDeviceCache;
+    }
+
     public ICommandTargetResolver getCommandTargetResolver() {
 	return commandTargetResolver;
     }
@@ -31,6 +31,23 @@ public class NestedDeviceSupport {
      */
     public static NestedDeviceInformation calculateNestedDeviceInformation(IDevice target, ITenant tenant)
 	    throws SiteWhereException {
+	return calculateNestedDeviceInformation(target, null, (id) -> getDeviceManagement(tenant).getDevice(id));
+    }
+
+    /**
+     * Locate device nesting information, resolving the parent through a cache.
+     * If the cached parent has no mapping for the target (for instance, the
+     * target was moved to this parent after it was cached), the parent is
+     * reloaded before falling back to the target as gateway.
+     * 
+     * @param target
+     * @param cache
+     * @param loader
+     * @return
+     * @throws SiteWhereException
+     */
+    public static NestedDeviceInformation calculateNestedDeviceInformation(IDevice target, ParentDeviceCache cache,
+	    ParentDeviceCache.IDeviceLoader loader) throws SiteWhereException {
 	NestedDeviceInformation nested = new NestedDeviceInformation();
 
 	// No parent set. Treat target device as gateway.
@@ -40,7 +57,8 @@ public class NestedDeviceSupport {
 	}
 
 	// Resolve parent and verify it exists.
-	IDevice parent = getDeviceManagement(tenant).getDevice(target.getParentDeviceId());
+	IDevice parent = (cache != null) ? cache.getParent(target.getParentDeviceId(), loader)
+		: loader.getDevice(target.getParentDeviceId());
 	if (parent == null) {
 	    throw new SiteWhereException("Parent device reference points to device that does not exist.");
 	}
@@ -48,6 +66,15 @@ public class NestedDeviceSupport {
 	// Parent should contain a mapping entry for the target device.
 	IDeviceElementMapping mapping = DeviceUtils.findMappingFor(parent, target.getToken());
 
+	// Cached parent may predate the mapping. Reload and check again.
+	if ((mapping == null) && (cache != null)) {
+	    parent = cache.load(target.getParentDeviceId(), loader);
+	    if (parent == null) {
+		throw new SiteWhereException("Parent device reference points to device that does not exist.");
+	    }
+	    mapping = DeviceUtils.findMappingFor(parent, target.getToken());
+	}
+
 	// Fall back to target as gateway if no mapping exists. This should not
 	// happen.
 	if (mapping == null) {
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.commands;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.IDevice;
+
+/**
+ * Caches parent (gateway) devices by id so that commands delivered to nested
+ * devices do not look up the same gateway for every command. Entries expire
+ * after a fixed time and may be invalidated early when a device is updated.
+ *
+ * @author Derek
+ */
+public class ParentDeviceCache {
+
+    /** Default time an entry remains valid */
+    public static final long DEFAULT_TTL_MS = 5 * 60 * 1000;
+
+    /** Cached parents by device id */
+    private Map<UUID, CachedParent> parentsById = new ConcurrentHashMap<UUID, CachedParent>();
+
+    /** Time an entry remains valid */
+    private long ttlMs;
+
+    /** Number of lookups served from the cache */
+    private AtomicLong hitCount = new AtomicLong();
+
+    /** Number of lookups that loaded the device */
+    private AtomicLong missCount = new AtomicLong();
+
+    public ParentDeviceCache() {
+	this(DEFAULT_TTL_MS);
+    }
+
+    public ParentDeviceCache(long ttlMs) {
+	this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Get a parent device, loading it if not cached or expired. Returns null if
+     * the device does not exist.
+     *
+     * @param parentId
+     * @param loader
+     * @return
+     * @throws SiteWhereException
+     */
+    public IDevice getParent(UUID parentId, IDeviceLoader loader) throws SiteWhereException {
+	CachedParent cached = parentsById.get(parentId);
+	if ((cached != null) && (cached.expires > System.currentTimeMillis())) {
+	    hitCount.incrementAndGet();
+	    return cached.device;
+	}
+	return load(parentId, loader);
+    }
+
+    /**
+     * Load a parent device, replacing any cached copy.
+     *
+     * @param parentId
+     * @param loader
+     * @return
+     * @throws SiteWhereException
+     */
+    public IDevice load(UUID parentId, IDeviceLoader loader) throws SiteWhereException {
+	missCount.incrementAndGet();
+	IDevice parent = loader.getDevice(parentId);
+	if (parent != null) {
+	    parentsById.put(parentId, new CachedParent(parent, System.currentTimeMillis() + ttlMs));
+	} else {
+	    parentsById.remove(parentId);
+	}
+	return parent;
+    }
+
+    /**
+     * Load parents for a group of devices so that later lookups are served from
+     * the cache. Each distinct parent is loaded at most once.
+     *
+     * @param children
+     * @param loader
+     * @throws SiteWhereException
+     */
+    public void prefetch(Collection<IDevice> children, IDeviceLoader loader) throws SiteWhereException {
+	long now = System.currentTimeMillis();
+	for (IDevice child : children) {
+	    UUID parentId = child.getParentDeviceId();
+	    if (parentId == null) {
+		continue;
+	    }
+	    CachedParent cached = parentsById.get(parentId);
+	    if ((cached == null) || (cached.expires <= now)) {
+		load(parentId, loader);
+	    }
+	}
+    }
+
+    /**
+     * Remove a device from the cache.
+     *
+     * @param deviceId
+     */
+    public void invalidate(UUID deviceId) {
+	parentsById.remove(deviceId);
+    }
+
+    /**
+     * Remove all devices from the cache.
+     */
+    public void clear() {
+	parentsById.clear();
+    }
+
+    public int size() {
+	return parentsById.size();
+    }
+
+    public long getHitCount() {
+	return hitCount.get();
+    }
+
+    public long getMissCount() {
+	return missCount.get();
+    }
+
+    public long getTtlMs() {
+	return ttlMs;
+    }
+
+    public void setTtlMs(long ttlMs) {
+	this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Loads a device by id.
+     *
+     * @author Derek
+     */
+    public static interface IDeviceLoader {
+
+	/**
+	 * Get device by id or null if not found.
+	 *
+	 * @param id
+	 * @return
+	 * @throws SiteWhereException
+	 */
+	public IDevice getDevice(UUID id) throws SiteWhereException;
+    }
+
+    /**
+     * Parent device with expiration time.
+     *
+     * @author Derek
+     */
+    private static class CachedParent {
+
+	/** Parent device */
+	private final IDevice device;
+
+	/** Time entry expires */
+	private final long expires;
+
+	public CachedParent(IDevice device, long expires) {
+	    this.device = device;
+	    this.expires = expires;
+	}
+    }
+}
\ No newline at end of file
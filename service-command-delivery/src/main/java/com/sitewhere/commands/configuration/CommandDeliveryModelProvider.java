@@ -190,6 +190,12 @@ public class CommandDeliveryModelProvider extends ConfigurationModelProvider {
 	// Add common MQTT connectivity attributes.
 	CommonConnectorModel.addMqttConnectivityAttributes(builder);
 
+	builder.attribute((new AttributeNode.Builder("Connection count", "connectionCount", AttributeType.Integer)
+		.description("Number of broker connections used to publish commands.").defaultValue("4").build()));
+	builder.attribute((new AttributeNode.Builder("Max in-flight publishes", "maxInFlight", AttributeType.Integer)
+		.description("Number of unacknowledged publishes allowed on each connection before delivery waits.")
+		.defaultValue("500").build()));
+
 	return builder.build();
     }
 
@@ -10,17 +10,20 @@ package com.sitewhere.commands.destination;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.sitewhere.commands.DeviceCommunication;
 import com.sitewhere.commands.spi.ICommandDestinationsManager;
-import com.sitewhere.server.lifecycle.TenantEngineLifecycleComponent;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.microservice.kafka.payload.IEnrichedEventPayload;
+import com.sitewhere.spi.microservice.kafka.payload.ISystemCommandPayload;
 
 /**
- * Default {@link ICommandDestinationsManager} implementation.
+ * Default {@link ICommandDestinationsManager} implementation. Routes commands to
+ * the configured command destinations via the command processing strategy and
+ * outbound command router.
  * 
  * @author Derek
  */
-public class CommandDestinationsManager extends TenantEngineLifecycleComponent implements ICommandDestinationsManager {
+public class CommandDestinationsManager extends DeviceCommunication implements ICommandDestinationsManager {
 
     /** Static logger instance */
     private static Log LOGGER = LogFactory.getLog(CommandDestinationsManager.class);
@@ -42,4 +45,15 @@ public class CommandDestinationsManager extends TenantEngineLifecycleComponent i
     public void processCommandInvocation(IEnrichedEventPayload payload) throws SiteWhereException {
 	getLogger().info("Command destinations manager received a command invocation.");
     }
+
+    /*
+     * @see com.sitewhere.commands.spi.ICommandDestinationsManager#
+     * processSystemCommand(com.sitewhere.spi.microservice.kafka.payload.
+     * ISystemCommandPayload)
+     */
+    @Override
+    public void processSystemCommand(ISystemCommandPayload payload) throws SiteWhereException {
+	getLogger().debug("Routing system command for '" + payload.getDeviceToken() + "'.");
+	deliverSystemCommand(payload.getDeviceToken(), payload.getCommand());
+    }
 }
\ No newline at end of file
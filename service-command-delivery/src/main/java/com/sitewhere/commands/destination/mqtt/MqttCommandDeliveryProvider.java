@@ -7,9 +7,16 @@
  */
 package com.sitewhere.commands.destination.mqtt;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.fusesource.hawtdispatch.ShutdownException;
+import org.fusesource.mqtt.client.Callback;
 import org.fusesource.mqtt.client.FutureConnection;
 import org.fusesource.mqtt.client.QoS;
 
@@ -27,6 +34,12 @@ import com.sitewhere.spi.server.lifecycle.LifecycleComponentType;
  * an MQTT topic so that they can be processed asynchronously by a device
  * listening on the topic.
  * 
+ * Publishes are pipelined over a pool of connections. Each topic is always
+ * published on the same connection so per-device ordering is preserved, and
+ * each connection has a bounded window of unacknowledged publishes. When the
+ * window is full, delivery blocks until the broker acknowledges earlier
+ * publishes or the timeout expires.
+ * 
  * @author Derek
  */
 public class MqttCommandDeliveryProvider extends MqttLifecycleComponent
@@ -35,8 +48,35 @@ public class MqttCommandDeliveryProvider extends MqttLifecycleComponent
     /** Static logger instance */
     private static Log LOGGER = LogFactory.getLog(MqttCommandDeliveryProvider.class);
 
-    /** Shared MQTT connection */
-    private FutureConnection connection;
+    /** Default number of broker connections */
+    private static final int DEFAULT_CONNECTION_COUNT = 4;
+
+    /** Default number of unacknowledged publishes per connection */
+    private static final int DEFAULT_MAX_IN_FLIGHT = 500;
+
+    /** Default time to wait for space in the in-flight window */
+    private static final long DEFAULT_PUBLISH_TIMEOUT_MS = 10 * 1000;
+
+    /** Number of broker connections */
+    private int connectionCount = DEFAULT_CONNECTION_COUNT;
+
+    /** Number of unacknowledged publishes per connection */
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+
+    /** Time to wait for space in the in-flight window */
+    private long publishTimeoutMs = DEFAULT_PUBLISH_TIMEOUT_MS;
+
+    /** Pooled MQTT connections */
+    private List<FutureConnection> connections = new ArrayList<FutureConnection>();
+
+    /** In-flight window for each connection */
+    private List<Semaphore> windows = new ArrayList<Semaphore>();
+
+    /** Number of publishes acknowledged by the broker */
+    private AtomicLong deliveredCount = new AtomicLong();
+
+    /** Number of publishes that failed */
+    private AtomicLong failedCount = new AtomicLong();
 
     public MqttCommandDeliveryProvider() {
 	super(LifecycleComponentType.CommandDeliveryProvider);
@@ -53,8 +93,14 @@ public class MqttCommandDeliveryProvider extends MqttLifecycleComponent
     public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	super.start(monitor);
 
-	LOGGER.info("Connecting to MQTT broker at '" + getHostname() + ":" + getPort() + "'...");
-	connection = getConnection();
+	LOGGER.info("Opening " + getConnectionCount() + " connections to MQTT broker at '" + getHostname() + ":"
+		+ getPort() + "'...");
+	connections.clear();
+	windows.clear();
+	for (int i = 0; i < Math.max(1, getConnectionCount()); i++) {
+	    connections.add(getConnection());
+	    windows.add(new Semaphore(getMaxInFlight()));
+	}
 	LOGGER.info("Connected to MQTT broker.");
     }
 
@@ -76,7 +122,7 @@ public class MqttCommandDeliveryProvider extends MqttLifecycleComponent
      */
     @Override
     public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
-	if (connection != null) {
+	for (FutureConnection connection : connections) {
 	    try {
 		connection.disconnect().await();
 		connection.kill().await();
@@ -86,6 +132,10 @@ public class MqttCommandDeliveryProvider extends MqttLifecycleComponent
 		LOGGER.error("Error shutting down MQTT device event receiver.", e);
 	    }
 	}
+	connections.clear();
+	windows.clear();
+	LOGGER.info("MQTT command delivery stopped with " + getDeliveredCount() + " commands delivered and "
+		+ getFailedCount() + " failed.");
 	super.stop(monitor);
     }
 
@@ -101,13 +151,8 @@ public class MqttCommandDeliveryProvider extends MqttLifecycleComponent
     @Override
     public void deliver(IDeviceNestingContext nested, IDeviceAssignment assignment, IDeviceCommandExecution execution,
 	    byte[] encoded, MqttParameters params) throws SiteWhereException {
-	try {
-	    LOGGER.debug("About to publish command message to topic: " + params.getCommandTopic());
-	    connection.publish(params.getCommandTopic(), encoded, QoS.AT_LEAST_ONCE, false);
-	    LOGGER.debug("Command published.");
-	} catch (Exception e) {
-	    throw new SiteWhereException("Unable to publish command to MQTT topic.", e);
-	}
+	LOGGER.debug("About to publish command message to topic: " + params.getCommandTopic());
+	publish(params.getCommandTopic(), encoded);
     }
 
     /*
@@ -121,12 +166,98 @@ public class MqttCommandDeliveryProvider extends MqttLifecycleComponent
     @Override
     public void deliverSystemCommand(IDeviceNestingContext nested, IDeviceAssignment assignment, byte[] encoded,
 	    MqttParameters params) throws SiteWhereException {
+	LOGGER.debug("About to publish system message to topic: " + params.getSystemTopic());
+	publish(params.getSystemTopic(), encoded);
+    }
+
+    /**
+     * Publish a payload without waiting for the broker to acknowledge it. Waits
+     * for space in the in-flight window of the connection assigned to the topic.
+     * 
+     * @param topic
+     * @param encoded
+     * @throws SiteWhereException
+     */
+    protected void publish(String topic, byte[] encoded) throws SiteWhereException {
+	if (connections.isEmpty()) {
+	    throw new SiteWhereException("MQTT command delivery provider is not started.");
+	}
+	int index = (topic.hashCode() & Integer.MAX_VALUE) % connections.size();
+	Semaphore window = windows.get(index);
+	try {
+	    if (!window.tryAcquire(getPublishTimeoutMs(), TimeUnit.MILLISECONDS)) {
+		failedCount.incrementAndGet();
+		throw new SiteWhereException("Timed out waiting to publish command to MQTT topic: " + topic);
+	    }
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new SiteWhereException("Interrupted while waiting to publish command to MQTT topic.", e);
+	}
 	try {
-	    LOGGER.debug("About to publish system message to topic: " + params.getSystemTopic());
-	    connection.publish(params.getSystemTopic(), encoded, QoS.AT_LEAST_ONCE, false);
-	    LOGGER.debug("Command published.");
+	    connections.get(index).publish(topic, encoded, QoS.AT_LEAST_ONCE, false).then(new Callback<Void>() {
+
+		@Override
+		public void onSuccess(Void value) {
+		    window.release();
+		    deliveredCount.incrementAndGet();
+		}
+
+		@Override
+		public void onFailure(Throwable e) {
+		    window.release();
+		    failedCount.incrementAndGet();
+		    LOGGER.error("Unable to publish command to MQTT topic: " + topic, e);
+		}
+	    });
 	} catch (Exception e) {
+	    window.release();
+	    failedCount.incrementAndGet();
 	    throw new SiteWhereException("Unable to publish command to MQTT topic.", e);
 	}
     }
+
+    /**
+     * Get number of publishes waiting for broker acknowledgement.
+     * 
+     * @return
+     */
+    public int getInFlightCount() {
+	int total = 0;
+	for (Semaphore window : windows) {
+	    total += getMaxInFlight() - window.availablePermits();
+	}
+	return total;
+    }
+
+    public long getDeliveredCount() {
+	return deliveredCount.get();
+    }
+
+    public long getFailedCount() {
+	return failedCount.get();
+    }
+
+    public int getConnectionCount() {
+	return connectionCount;
+    }
+
+    public void setConnectionCount(int connectionCount) {
+	this.connectionCount = connectionCount;
+    }
+
+    public int getMaxInFlight() {
+	return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+	this.maxInFlight = maxInFlight;
+    }
+
+    public long getPublishTimeoutMs() {
+	return publishTimeoutMs;
+    }
+
+    public void setPublishTimeoutMs(long publishTimeoutMs) {
+	this.publishTimeoutMs = publishTimeoutMs;
+    }
 }
\ No newline at end of file
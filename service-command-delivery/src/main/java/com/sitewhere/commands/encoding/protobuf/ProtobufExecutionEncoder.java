@@ -9,6 +9,7 @@ package com.sitewhere.commands.encoding.protobuf;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.UUID;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -16,6 +17,7 @@ import org.apache.commons.logging.LogFactory;
 import com.google.protobuf.ByteString;
 import com.sitewhere.commands.spi.ICommandExecutionEncoder;
 import com.sitewhere.common.MarshalUtils;
+import com.sitewhere.communication.protobuf.DeviceTypeDescriptorCache;
 import com.sitewhere.communication.protobuf.ProtobufMessageBuilder;
 import com.sitewhere.communication.protobuf.proto.Sitewhere.Device.Command;
 import com.sitewhere.communication.protobuf.proto.Sitewhere.Device.DeviceStreamAck;
@@ -27,16 +29,21 @@ import com.sitewhere.communication.protobuf.proto.Sitewhere.Device.RegistrationA
 import com.sitewhere.communication.protobuf.proto.Sitewhere.Model;
 import com.sitewhere.communication.protobuf.proto.Sitewhere.Model.DeviceStreamData;
 import com.sitewhere.core.DataUtils;
+import com.sitewhere.grpc.client.cache.CacheEntryInvalidator;
+import com.sitewhere.grpc.client.cache.DeviceManagementCacheProviders;
 import com.sitewhere.server.lifecycle.TenantEngineLifecycleComponent;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.device.IDeviceAssignment;
 import com.sitewhere.spi.device.IDeviceNestingContext;
+import com.sitewhere.spi.device.IDeviceType;
+import com.sitewhere.spi.device.command.IDeviceCommand;
 import com.sitewhere.spi.device.command.IDeviceCommandExecution;
 import com.sitewhere.spi.device.command.IDeviceStreamAckCommand;
 import com.sitewhere.spi.device.command.IRegistrationAckCommand;
 import com.sitewhere.spi.device.command.IRegistrationFailureCommand;
 import com.sitewhere.spi.device.command.ISendDeviceStreamDataCommand;
 import com.sitewhere.spi.device.command.ISystemCommand;
+import com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor;
 import com.sitewhere.spi.server.lifecycle.LifecycleComponentType;
 
 /**
@@ -51,10 +58,64 @@ public class ProtobufExecutionEncoder extends TenantEngineLifecycleComponent
     /** Static logger instance */
     private static Log LOGGER = LogFactory.getLog(ProtobufExecutionEncoder.class);
 
+    /** Compiled descriptors by device type */
+    private DeviceTypeDescriptorCache descriptorCache = new DeviceTypeDescriptorCache();
+
+    /** Shared device type cache used to detect device type updates */
+    private DeviceManagementCacheProviders.DeviceTypeByIdCache deviceTypeByIdCache;
+
+    /** Shared device command cache used to detect command updates */
+    private DeviceManagementCacheProviders.DeviceCommandCache deviceCommandCache;
+
+    /** Registration id for device type listener */
+    private String deviceTypeListenerId;
+
+    /** Registration id for device command listener */
+    private String deviceCommandListenerId;
+
     public ProtobufExecutionEncoder() {
 	super(LifecycleComponentType.CommandExecutionEncoder);
     }
 
+    /*
+     * @see com.sitewhere.server.lifecycle.LifecycleComponent#start(com.sitewhere.
+     * spi.server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	getDescriptorCache().clear();
+
+	// Drop compiled descriptors when device types or commands change.
+	this.deviceTypeByIdCache = new DeviceManagementCacheProviders.DeviceTypeByIdCache(
+		getTenantEngine().getMicroservice(), false);
+	this.deviceTypeListenerId = deviceTypeByIdCache.addEntryListener(getTenantEngine().getTenant(),
+		new DeviceTypeInvalidator());
+	this.deviceCommandCache = new DeviceManagementCacheProviders.DeviceCommandCache(
+		getTenantEngine().getMicroservice(), false);
+	this.deviceCommandListenerId = deviceCommandCache.addEntryListener(getTenantEngine().getTenant(),
+		new DeviceCommandInvalidator(), true);
+	if ((deviceTypeListenerId == null) || (deviceCommandListenerId == null)) {
+	    LOGGER.warn("Device management caches not available. Compiled descriptors will only expire by age.");
+	}
+    }
+
+    /*
+     * @see com.sitewhere.server.lifecycle.LifecycleComponent#stop(com.sitewhere.
+     * spi.server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	if (deviceTypeByIdCache != null) {
+	    deviceTypeByIdCache.removeEntryListener(getTenantEngine().getTenant(), deviceTypeListenerId);
+	    deviceTypeListenerId = null;
+	}
+	if (deviceCommandCache != null) {
+	    deviceCommandCache.removeEntryListener(getTenantEngine().getTenant(), deviceCommandListenerId);
+	    deviceCommandListenerId = null;
+	}
+	getDescriptorCache().clear();
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -67,8 +128,10 @@ public class ProtobufExecutionEncoder extends TenantEngineLifecycleComponent
     public byte[] encode(IDeviceCommandExecution execution, IDeviceNestingContext nested, IDeviceAssignment assignment)
 	    throws SiteWhereException {
 	byte[] encoded = ProtobufMessageBuilder.createMessage(execution, nested, assignment,
-		getTenantEngine().getTenant());
-	LOGGER.debug("Protobuf message: 0x" + DataUtils.bytesToHex(encoded));
+		getTenantEngine().getTenant(), getDescriptorCache());
+	if (LOGGER.isDebugEnabled()) {
+	    LOGGER.debug("Protobuf message: 0x" + DataUtils.bytesToHex(encoded));
+	}
 	return encoded;
     }
 
@@ -229,4 +292,63 @@ public class ProtobufExecutionEncoder extends TenantEngineLifecycleComponent
     public Log getLogger() {
 	return LOGGER;
     }
+
+    public DeviceTypeDescriptorCache getDescriptorCache() {
+	return descriptorCache;
+    }
+
+    public void setDescriptorCache(DeviceTypeDescriptorCache descriptorCache) {
+	this.descriptorCache = descriptorCache;
+    }
+
+    /**
+     * Invalidates compiled descriptors when a device type changes.
+     * 
+     * @author Derek
+     */
+    private class DeviceTypeInvalidator extends CacheEntryInvalidator<UUID, IDeviceType> {
+
+	public DeviceTypeInvalidator() {
+	    super(false);
+	}
+
+	/*
+	 * @see com.sitewhere.grpc.client.cache.CacheEntryInvalidator#invalidate(java.
+	 * lang.Object, java.lang.Object)
+	 */
+	@Override
+	protected void invalidate(UUID key, IDeviceType value) {
+	    getDescriptorCache().invalidate(key);
+	}
+    }
+
+    /**
+     * Invalidates compiled descriptors for the device type of a command when the
+     * command is added, changed or removed. Adding or removing a command changes
+     * the numbering of the command enum for the whole device type.
+     * 
+     * @author Derek
+     */
+    private class DeviceCommandInvalidator extends CacheEntryInvalidator<String, IDeviceCommand> {
+
+	public DeviceCommandInvalidator() {
+	    super(false);
+	}
+
+	/**
+	 * Invalidate the device type for a command. Clears all entries if the
+	 * command is not available.
+	 * 
+	 * @see com.sitewhere.grpc.client.cache.CacheEntryInvalidator#invalidate(java.
+	 *      lang.Object, java.lang.Object)
+	 */
+	@Override
+	protected void invalidate(String key, IDeviceCommand command) {
+	    if (command != null) {
+		getDescriptorCache().invalidate(command.getDeviceTypeId());
+	    } else {
+		getDescriptorCache().clear();
+	    }
+	}
+    }
 }
\ No newline at end of file
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.commands.kafka;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.sitewhere.commands.microservice.CommandDeliveryTenantEngine;
+import com.sitewhere.commands.spi.kafka.ISystemCommandsConsumer;
+import com.sitewhere.commands.spi.microservice.ICommandDeliveryTenantEngine;
+import com.sitewhere.common.MarshalUtils;
+import com.sitewhere.grpc.kafka.model.KafkaModel.GSystemCommandPayload;
+import com.sitewhere.grpc.model.converter.KafkaModelConverter;
+import com.sitewhere.grpc.model.marshaler.KafkaModelMarshaler;
+import com.sitewhere.microservice.kafka.MicroserviceKafkaConsumer;
+import com.sitewhere.microservice.security.SystemUserRunnable;
+import com.sitewhere.rest.model.microservice.kafka.payload.SystemCommandPayload;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine;
+import com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor;
+
+/**
+ * Consumes system commands (registration acks, mapping acks, etc) from a
+ * well-known Kafka topic and makes them available to the command destinations
+ * manager.
+ * 
+ * @author Derek
+ */
+public class SystemCommandsConsumer extends MicroserviceKafkaConsumer implements ISystemCommandsConsumer {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(SystemCommandsConsumer.class);
+
+    /** Consumer id */
+    private static String CONSUMER_ID = UUID.randomUUID().toString();
+
+    /** Suffix for group id */
+    private static String GROUP_ID_SUFFIX = "system-command-consumers";
+
+    /** Number of threads processing system commands */
+    private static final int CONCURRENT_COMMAND_PROCESSING_THREADS = 2;
+
+    /** Executor */
+    private ExecutorService executor;
+
+    public SystemCommandsConsumer(CommandDeliveryTenantEngine tenantEngine) {
+	super(tenantEngine.getMicroservice(), tenantEngine);
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#
+     * getConsumerId()
+     */
+    @Override
+    public String getConsumerId() throws SiteWhereException {
+	return CONSUMER_ID;
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#
+     * getConsumerGroupId()
+     */
+    @Override
+    public String getConsumerGroupId() throws SiteWhereException {
+	return getMicroservice().getKafkaTopicNaming().getTenantPrefix(getTenantEngine().getTenant()) + GROUP_ID_SUFFIX;
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#
+     * getSourceTopicNames()
+     */
+    @Override
+    public List<String> getSourceTopicNames() throws SiteWhereException {
+	List<String> topics = new ArrayList<String>();
+	topics.add(getMicroservice().getKafkaTopicNaming().getOutboundSystemCommandsTopic(getTenantEngine().getTenant()));
+	return topics;
+    }
+
+    /*
+     * @see com.sitewhere.microservice.kafka.MicroserviceKafkaConsumer#start(com.
+     * sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	super.start(monitor);
+	executor = Executors.newFixedThreadPool(CONCURRENT_COMMAND_PROCESSING_THREADS,
+		new SystemCommandProcessorThreadFactory());
+    }
+
+    /*
+     * @see com.sitewhere.microservice.kafka.MicroserviceKafkaConsumer#stop(com.
+     * sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	super.stop(monitor);
+	if (executor != null) {
+	    executor.shutdown();
+	    try {
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+	    } catch (InterruptedException e) {
+		getLogger().warn("Executor did not terminate within allotted time.");
+	    }
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#received(
+     * java.lang.String, byte[])
+     */
+    @Override
+    public void received(String key, byte[] message) throws SiteWhereException {
+	executor.execute(new SystemCommandProcessor(getTenantEngine(), message));
+    }
+
+    /*
+     * @see com.sitewhere.spi.server.lifecycle.ILifecycleComponent#getLogger()
+     */
+    @Override
+    public Log getLogger() {
+	return LOGGER;
+    }
+
+    /**
+     * Processor that unmarshals a system command and hands it off for delivery.
+     * 
+     * @author Derek
+     */
+    protected class SystemCommandProcessor extends SystemUserRunnable {
+
+	/** Encoded payload */
+	private byte[] encoded;
+
+	public SystemCommandProcessor(IMicroserviceTenantEngine tenantEngine, byte[] encoded) {
+	    super(tenantEngine.getMicroservice(), tenantEngine.getTenant());
+	    this.encoded = encoded;
+	}
+
+	/*
+	 * @see com.sitewhere.microservice.security.SystemUserRunnable#
+	 * runAsSystemUser()
+	 */
+	@Override
+	public void runAsSystemUser() throws SiteWhereException {
+	    try {
+		GSystemCommandPayload grpc = KafkaModelMarshaler.parseSystemCommandPayloadMessage(encoded);
+		SystemCommandPayload payload = KafkaModelConverter.asApiSystemCommandPayload(grpc);
+		if (getLogger().isDebugEnabled()) {
+		    getLogger().debug("Received system command:\n\n" + MarshalUtils.marshalJsonAsPrettyString(payload));
+		}
+
+		// Pass decoded payload to command destinations manager.
+		((ICommandDeliveryTenantEngine) getTenantEngine()).getCommandDestinationsManager()
+			.processSystemCommand(payload);
+	    } catch (SiteWhereException e) {
+		getLogger().error("Unable to process system command payload.", e);
+	    } catch (Throwable e) {
+		getLogger().error("Unhandled exception processing system command payload.", e);
+	    }
+	}
+    }
+
+    /** Used for naming system command processing threads */
+    private class SystemCommandProcessorThreadFactory implements ThreadFactory {
+
+	/** Counts threads */
+	private AtomicInteger counter = new AtomicInteger();
+
+	public Thread newThread(Runnable r) {
+	    return new Thread(r, "System Commands " + counter.incrementAndGet());
+	}
+    }
+}
\ No newline at end of file
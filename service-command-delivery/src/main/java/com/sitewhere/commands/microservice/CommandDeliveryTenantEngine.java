@@ -11,8 +11,10 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.sitewhere.commands.kafka.EnrichedCommandInvocationsConsumer;
+import com.sitewhere.commands.kafka.SystemCommandsConsumer;
 import com.sitewhere.commands.spi.ICommandDestinationsManager;
 import com.sitewhere.commands.spi.kafka.IEnrichedCommandInvocationsConsumer;
+import com.sitewhere.commands.spi.kafka.ISystemCommandsConsumer;
 import com.sitewhere.commands.spi.microservice.ICommandDeliveryTenantEngine;
 import com.sitewhere.microservice.multitenant.MicroserviceTenantEngine;
 import com.sitewhere.server.lifecycle.CompositeLifecycleStep;
@@ -42,6 +44,9 @@ public class CommandDeliveryTenantEngine extends MicroserviceTenantEngine implem
     /** Kafka consumer for enriched command invocations */
     private IEnrichedCommandInvocationsConsumer enrichedCommandInvocationsConsumer;
 
+    /** Kafka consumer for system commands */
+    private ISystemCommandsConsumer systemCommandsConsumer;
+
     public CommandDeliveryTenantEngine(IMultitenantMicroservice<?> microservice, ITenant tenant) {
 	super(microservice, tenant);
     }
@@ -54,6 +59,7 @@ public class CommandDeliveryTenantEngine extends MicroserviceTenantEngine implem
     @Override
     public void tenantInitialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	this.enrichedCommandInvocationsConsumer = new EnrichedCommandInvocationsConsumer(this);
+	this.systemCommandsConsumer = new SystemCommandsConsumer(this);
 
 	// Load configured registration manager.
 	this.commandDestinationsManager = (ICommandDestinationsManager) getModuleContext()
@@ -75,6 +81,9 @@ public class CommandDeliveryTenantEngine extends MicroserviceTenantEngine implem
 	// Start command invocations consumer.
 	start.addStartStep(this, getEnrichedCommandInvocationsConsumer(), true);
 
+	// Start system commands consumer.
+	start.addStartStep(this, getSystemCommandsConsumer(), true);
+
 	// Execute startup steps.
 	start.execute(monitor);
     }
@@ -97,6 +106,9 @@ public class CommandDeliveryTenantEngine extends MicroserviceTenantEngine implem
 	// Create step that will stop components.
 	ICompositeLifecycleStep stop = new CompositeLifecycleStep("Stop " + getComponentName());
 
+	// Stop system commands consumer.
+	stop.addStopStep(this, getSystemCommandsConsumer());
+
 	// Stop command invocations consumer.
 	stop.addStopStep(this, getEnrichedCommandInvocationsConsumer());
 
@@ -134,6 +146,19 @@ public class CommandDeliveryTenantEngine extends MicroserviceTenantEngine implem
 	this.enrichedCommandInvocationsConsumer = enrichedCommandInvocationsConsumer;
     }
 
+    /*
+     * @see com.sitewhere.commands.spi.microservice.ICommandDeliveryTenantEngine#
+     * getSystemCommandsConsumer()
+     */
+    @Override
+    public ISystemCommandsConsumer getSystemCommandsConsumer() {
+	return systemCommandsConsumer;
+    }
+
+    public void setSystemCommandsConsumer(ISystemCommandsConsumer systemCommandsConsumer) {
+	this.systemCommandsConsumer = systemCommandsConsumer;
+    }
+
     /*
      * @see com.sitewhere.spi.server.lifecycle.ILifecycleComponent#getLogger()
      */
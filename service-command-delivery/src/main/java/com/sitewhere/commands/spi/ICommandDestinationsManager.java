@@ -9,6 +9,7 @@ package com.sitewhere.commands.spi;
 
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.microservice.kafka.payload.IEnrichedEventPayload;
+import com.sitewhere.spi.microservice.kafka.payload.ISystemCommandPayload;
 import com.sitewhere.spi.server.lifecycle.ITenantEngineLifecycleComponent;
 
 /**
@@ -25,4 +26,12 @@ public interface ICommandDestinationsManager extends ITenantEngineLifecycleCompo
      * @throws SiteWhereException
      */
     public void processCommandInvocation(IEnrichedEventPayload payload) throws SiteWhereException;
+
+    /**
+     * Process a system command targeted at a device.
+     * 
+     * @param payload
+     * @throws SiteWhereException
+     */
+    public void processSystemCommand(ISystemCommandPayload payload) throws SiteWhereException;
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.commands.spi.kafka;
+
+import com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer;
+
+/**
+ * Kafka consumer that receives system commands to be delivered to devices.
+ * 
+ * @author Derek
+ */
+public interface ISystemCommandsConsumer extends IMicroserviceKafkaConsumer {
+}
\ No newline at end of file
@@ -9,6 +9,7 @@ package com.sitewhere.commands.spi.microservice;
 
 import com.sitewhere.commands.spi.ICommandDestinationsManager;
 import com.sitewhere.commands.spi.kafka.IEnrichedCommandInvocationsConsumer;
+import com.sitewhere.commands.spi.kafka.ISystemCommandsConsumer;
 import com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine;
 
 /**
@@ -32,4 +33,11 @@ public interface ICommandDeliveryTenantEngine extends IMicroserviceTenantEngine
      * @return
      */
     public IEnrichedCommandInvocationsConsumer getEnrichedCommandInvocationsConsumer();
+
+    /**
+     * Get Kafka consumer for system commands.
+     * 
+     * @return
+     */
+    public ISystemCommandsConsumer getSystemCommandsConsumer();
 }
\ No newline at end of file
@@ -22,6 +22,7 @@ import org.springframework.util.xml.DomUtils;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Element;
 
+import com.sitewhere.commands.SingleChoiceCommandRouter;
 import com.sitewhere.commands.destination.CommandDestinationsManager;
 import com.sitewhere.commands.destination.coap.CoapCommandDeliveryProvider;
 import com.sitewhere.commands.destination.coap.CoapCommandDestination;
@@ -74,6 +75,7 @@ public class CommandDeliveryParser extends AbstractBeanDefinitionParser {
 		manager.getBeanDefinition());
 
 	ManagedList<Object> destinations = new ManagedList<Object>();
+	boolean hasRouter = false;
 	List<Element> children = DomUtils.getChildElements(element);
 	for (Element child : children) {
 	    Elements type = Elements.getByLocalName(child.getLocalName());
@@ -82,6 +84,8 @@ public class CommandDeliveryParser extends AbstractBeanDefinitionParser {
 	    }
 	    switch (type) {
 	    case CommandRouter: {
+		manager.addPropertyValue("outboundCommandRouter", parseCommandRouterReference(child, context));
+		hasRouter = true;
 		break;
 	    }
 	    case SpecificationMappingRouter: {
@@ -108,10 +112,32 @@ public class CommandDeliveryParser extends AbstractBeanDefinitionParser {
 	    }
 	    }
 	}
+	manager.addPropertyValue("commandDestinations", destinations);
+
+	// Route everything to the destination if only one is configured.
+	if ((!hasRouter) && (destinations.size() == 1)) {
+	    manager.addPropertyValue("outboundCommandRouter",
+		    BeanDefinitionBuilder.rootBeanDefinition(SingleChoiceCommandRouter.class).getBeanDefinition());
+	}
 
 	return null;
     }
 
+    /**
+     * Parse a command router reference.
+     * 
+     * @param element
+     * @param context
+     * @return
+     */
+    protected RuntimeBeanReference parseCommandRouterReference(Element element, ParserContext context) {
+	Attr ref = element.getAttributeNode("ref");
+	if (ref != null) {
+	    return new RuntimeBeanReference(ref.getValue());
+	}
+	throw new RuntimeException("Command router reference does not contain ref attribute.");
+    }
+
     /**
      * Parse a command destination reference.
      * 
@@ -214,6 +240,16 @@ public class CommandDeliveryParser extends AbstractBeanDefinitionParser {
 	    mqtt.addPropertyValue("keyStorePassword", trustStorePassword.getValue());
 	}
 
+	Attr connectionCount = element.getAttributeNode("connectionCount");
+	if (connectionCount != null) {
+	    mqtt.addPropertyValue("connectionCount", connectionCount.getValue());
+	}
+
+	Attr maxInFlight = element.getAttributeNode("maxInFlight");
+	if (maxInFlight != null) {
+	    mqtt.addPropertyValue("maxInFlight", maxInFlight.getValue());
+	}
+
 	return mqtt.getBeanDefinition();
     }
 
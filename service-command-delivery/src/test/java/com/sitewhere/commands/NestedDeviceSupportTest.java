@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.commands;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.sitewhere.rest.model.device.Device;
+import com.sitewhere.rest.model.device.DeviceElementMapping;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.IDevice;
+
+public class NestedDeviceSupportTest {
+
+    /** Devices returned by the loader */
+    private Map<UUID, IDevice> devices = new HashMap<UUID, IDevice>();
+
+    /** Number of loader calls */
+    private int loads;
+
+    @Test
+    public void testGatewayLoadedOnceForManyChildren() throws SiteWhereException {
+	Device gateway = createDevice("gateway", null);
+	List<IDevice> children = new ArrayList<IDevice>();
+	for (int i = 0; i < 10000; i++) {
+	    Device child = createDevice("child-" + i, gateway.getId());
+	    addMapping(gateway, child, "/slot/" + i);
+	    children.add(child);
+	}
+	devices.put(gateway.getId(), gateway);
+
+	ParentDeviceCache cache = new ParentDeviceCache();
+	cache.prefetch(children, this::load);
+	for (IDevice child : children) {
+	    NestedDeviceSupport.NestedDeviceInformation nested = NestedDeviceSupport
+		    .calculateNestedDeviceInformation(child, cache, this::load);
+	    assertEquals(gateway.getId(), nested.getGateway().getId());
+	}
+	assertEquals(1, loads);
+	assertEquals(10000, cache.getHitCount());
+    }
+
+    @Test
+    public void testChildMovedToCachedParent() throws SiteWhereException {
+	Device first = createDevice("first", null);
+	Device second = createDevice("second", null);
+	Device child = createDevice("child", first.getId());
+	Device other = createDevice("other", second.getId());
+	addMapping(first, child, "/a");
+	addMapping(second, other, "/b");
+	devices.put(first.getId(), first);
+	devices.put(second.getId(), second);
+
+	ParentDeviceCache cache = new ParentDeviceCache();
+	assertEquals("/a", NestedDeviceSupport.calculateNestedDeviceInformation(child, cache, this::load).getPath());
+	assertEquals("/b", NestedDeviceSupport.calculateNestedDeviceInformation(other, cache, this::load).getPath());
+
+	// Move child to second parent. Stored copy changes but cached copy does not.
+	Device updated = createDevice("second", null);
+	updated.setId(second.getId());
+	updated.getDeviceElementMappings().addAll(second.getDeviceElementMappings());
+	Device moved = createDevice("child", second.getId());
+	moved.setId(child.getId());
+	addMapping(updated, moved, "/c");
+	devices.put(second.getId(), updated);
+
+	NestedDeviceSupport.NestedDeviceInformation nested = NestedDeviceSupport
+		.calculateNestedDeviceInformation(moved, cache, this::load);
+	assertEquals(second.getId(), nested.getGateway().getId());
+	assertEquals("/c", nested.getPath());
+    }
+
+    @Test
+    public void testInvalidatedParentIsReloaded() throws SiteWhereException {
+	Device gateway = createDevice("gateway", null);
+	Device child = createDevice("child", gateway.getId());
+	addMapping(gateway, child, "/a");
+	devices.put(gateway.getId(), gateway);
+
+	ParentDeviceCache cache = new ParentDeviceCache();
+	NestedDeviceSupport.calculateNestedDeviceInformation(child, cache, this::load);
+
+	// Change mapping path on the stored parent.
+	Device updated = createDevice("gateway", null);
+	updated.setId(gateway.getId());
+	addMapping(updated, child, "/b");
+	devices.put(gateway.getId(), updated);
+	assertEquals("/a", NestedDeviceSupport.calculateNestedDeviceInformation(child, cache, this::load).getPath());
+
+	cache.invalidate(gateway.getId());
+	assertEquals("/b", NestedDeviceSupport.calculateNestedDeviceInformation(child, cache, this::load).getPath());
+	assertEquals(2, loads);
+    }
+
+    @Test
+    public void testDeviceWithoutParentIsGateway() throws SiteWhereException {
+	Device device = createDevice("device", null);
+	NestedDeviceSupport.NestedDeviceInformation nested = NestedDeviceSupport
+		.calculateNestedDeviceInformation(device, new ParentDeviceCache(), this::load);
+	assertEquals(device, nested.getGateway());
+	assertNull(nested.getNested());
+	assertEquals(0, loads);
+    }
+
+    protected IDevice load(UUID id) {
+	loads++;
+	return devices.get(id);
+    }
+
+    protected static Device createDevice(String token, UUID parentId) {
+	Device device = new Device();
+	device.setId(UUID.randomUUID());
+	device.setToken(token);
+	device.setParentDeviceId(parentId);
+	device.setDeviceElementMappings(new ArrayList<DeviceElementMapping>());
+	return device;
+    }
+
+    protected static void addMapping(Device parent, Device child, String path) {
+	DeviceElementMapping mapping = new DeviceElementMapping();
+	mapping.setDeviceToken(child.getToken());
+	mapping.setDeviceElementSchemaPath(path);
+	parent.getDeviceElementMappings().add(mapping);
+    }
+}
\ No newline at end of file
@@ -11,12 +11,14 @@ import java.util.UUID;
 
 import com.sitewhere.rest.model.device.event.request.DeviceStateChangeCreateRequest;
 import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.IDevice;
 import com.sitewhere.spi.device.IDeviceAssignment;
 import com.sitewhere.spi.device.IDeviceManagement;
 import com.sitewhere.spi.device.event.IDeviceEventManagement;
 import com.sitewhere.spi.device.event.state.StateChangeCategory;
 import com.sitewhere.spi.device.event.state.StateChangeType;
 import com.sitewhere.spi.device.request.IDeviceAssignmentCreateRequest;
+import com.sitewhere.spi.device.request.IDeviceCreateRequest;
 
 /**
  * Adds triggers for processing related to device management API calls.
@@ -49,6 +51,26 @@ public class DeviceManagementTriggers extends DeviceManagementDecorator {
 	return created;
     }
 
+    /*
+     * @see
+     * com.sitewhere.device.DeviceManagementDecorator#createDeviceWithAssignment(
+     * com.sitewhere.spi.device.request.IDeviceCreateRequest,
+     * com.sitewhere.spi.device.request.IDeviceAssignmentCreateRequest)
+     */
+    @Override
+    public IDeviceAssignment createDeviceWithAssignment(IDeviceCreateRequest device,
+	    IDeviceAssignmentCreateRequest assignment) throws SiteWhereException {
+	IDevice existing = super.getDeviceByToken(device.getToken());
+	boolean wasAssigned = (existing != null) && (existing.getDeviceAssignmentId() != null);
+	IDeviceAssignment created = super.createDeviceWithAssignment(device, assignment);
+	if (!wasAssigned) {
+	    DeviceStateChangeCreateRequest state = new DeviceStateChangeCreateRequest(StateChangeCategory.Assignment,
+		    StateChangeType.Assignment_Created, null, null);
+	    getDeviceEventManangement().addDeviceStateChange(created, state);
+	}
+	return created;
+    }
+
     /*
      * @see
      * com.sitewhere.device.DeviceManagementDecorator#updateDeviceAssignment(java.
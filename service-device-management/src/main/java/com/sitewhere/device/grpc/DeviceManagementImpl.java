@@ -7,6 +7,7 @@
  */
 package com.sitewhere.device.grpc;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -14,6 +15,7 @@ import com.sitewhere.grpc.client.GrpcUtils;
 import com.sitewhere.grpc.model.DeviceModel.GAreaSearchResults;
 import com.sitewhere.grpc.model.DeviceModel.GAreaTypeSearchResults;
 import com.sitewhere.grpc.model.DeviceModel.GDeviceAssignmentSearchResults;
+import com.sitewhere.grpc.model.DeviceModel.GDeviceCreateRequest;
 import com.sitewhere.grpc.model.DeviceModel.GDeviceGroupElementsSearchResults;
 import com.sitewhere.grpc.model.DeviceModel.GDeviceGroupSearchResults;
 import com.sitewhere.grpc.model.DeviceModel.GDeviceSearchResults;
@@ -527,6 +529,57 @@ public class DeviceManagementImpl extends DeviceManagementGrpc.DeviceManagementI
 	}
     }
 
+    /*
+     * @see
+     * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
+     * createDevices(com.sitewhere.grpc.service.GCreateDevicesRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void createDevices(GCreateDevicesRequest request, StreamObserver<GCreateDevicesResponse> responseObserver) {
+	try {
+	    GrpcUtils.logServerMethodEntry(DeviceManagementGrpc.METHOD_CREATE_DEVICES);
+	    List<IDeviceCreateRequest> apiRequests = new ArrayList<IDeviceCreateRequest>();
+	    for (GDeviceCreateRequest grequest : request.getRequestsList()) {
+		apiRequests.add(DeviceModelConverter.asApiDeviceCreateRequest(grequest));
+	    }
+	    List<IDevice> apiResult = getDeviceManagement().createDevices(apiRequests);
+	    GCreateDevicesResponse.Builder response = GCreateDevicesResponse.newBuilder();
+	    for (IDevice device : apiResult) {
+		response.addDevices(DeviceModelConverter.asGrpcDevice(device));
+	    }
+	    responseObserver.onNext(response.build());
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(DeviceManagementGrpc.METHOD_CREATE_DEVICES, e, responseObserver);
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
+     * createDeviceWithAssignment(com.sitewhere.grpc.service.
+     * GCreateDeviceWithAssignmentRequest, io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void createDeviceWithAssignment(GCreateDeviceWithAssignmentRequest request,
+	    StreamObserver<GCreateDeviceWithAssignmentResponse> responseObserver) {
+	try {
+	    GrpcUtils.logServerMethodEntry(DeviceManagementGrpc.METHOD_CREATE_DEVICE_WITH_ASSIGNMENT);
+	    IDeviceCreateRequest apiDevice = DeviceModelConverter.asApiDeviceCreateRequest(request.getDevice());
+	    IDeviceAssignmentCreateRequest apiAssignment = DeviceModelConverter
+		    .asApiDeviceAssignmentCreateRequest(request.getAssignment());
+	    IDeviceAssignment apiResult = getDeviceManagement().createDeviceWithAssignment(apiDevice, apiAssignment);
+	    GCreateDeviceWithAssignmentResponse.Builder response = GCreateDeviceWithAssignmentResponse.newBuilder();
+	    response.setAssignment(DeviceModelConverter.asGrpcDeviceAssignment(apiResult));
+	    responseObserver.onNext(response.build());
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(DeviceManagementGrpc.METHOD_CREATE_DEVICE_WITH_ASSIGNMENT, e,
+		    responseObserver);
+	}
+    }
+
     /*
      * @see
      * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
@@ -549,6 +602,72 @@ public class DeviceManagementImpl extends DeviceManagementGrpc.DeviceManagementI
 	}
     }
 
+    /*
+     * @see
+     * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
+     * getDevices(com.sitewhere.grpc.service.GGetDevicesRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void getDevices(GGetDevicesRequest request, StreamObserver<GGetDevicesResponse> responseObserver) {
+	try {
+	    GrpcUtils.logServerMethodEntry(DeviceManagementGrpc.METHOD_GET_DEVICES);
+	    List<IDevice> apiResult = getDeviceManagement()
+		    .getDevices(CommonModelConverter.asApiUuids(request.getIdsList()));
+	    GGetDevicesResponse.Builder response = GGetDevicesResponse.newBuilder();
+	    response.addAllDevices(DeviceModelConverter.asGrpcDevices(apiResult));
+	    responseObserver.onNext(response.build());
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(DeviceManagementGrpc.METHOD_GET_DEVICES, e, responseObserver);
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
+     * getDevicesByToken(com.sitewhere.grpc.service.GGetDevicesByTokenRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void getDevicesByToken(GGetDevicesByTokenRequest request,
+	    StreamObserver<GGetDevicesByTokenResponse> responseObserver) {
+	try {
+	    GrpcUtils.logServerMethodEntry(DeviceManagementGrpc.METHOD_GET_DEVICES_BY_TOKEN);
+	    List<IDevice> apiResult = getDeviceManagement().getDevicesByToken(request.getTokensList());
+	    GGetDevicesByTokenResponse.Builder response = GGetDevicesByTokenResponse.newBuilder();
+	    response.addAllDevices(DeviceModelConverter.asGrpcDevices(apiResult));
+	    responseObserver.onNext(response.build());
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(DeviceManagementGrpc.METHOD_GET_DEVICES_BY_TOKEN, e,
+		    responseObserver);
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
+     * getDeviceAssignments(com.sitewhere.grpc.service.GGetDeviceAssignmentsRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void getDeviceAssignments(GGetDeviceAssignmentsRequest request,
+	    StreamObserver<GGetDeviceAssignmentsResponse> responseObserver) {
+	try {
+	    GrpcUtils.logServerMethodEntry(DeviceManagementGrpc.METHOD_GET_DEVICE_ASSIGNMENTS);
+	    List<IDeviceAssignment> apiResult = getDeviceManagement()
+		    .getDeviceAssignments(CommonModelConverter.asApiUuids(request.getIdsList()));
+	    GGetDeviceAssignmentsResponse.Builder response = GGetDeviceAssignmentsResponse.newBuilder();
+	    response.addAllAssignments(DeviceModelConverter.asGrpcDeviceAssignments(apiResult));
+	    responseObserver.onNext(response.build());
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(DeviceManagementGrpc.METHOD_GET_DEVICE_ASSIGNMENTS, e,
+		    responseObserver);
+	}
+    }
+
     /*
      * @see
      * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
@@ -1457,6 +1576,27 @@ public class DeviceManagementImpl extends DeviceManagementGrpc.DeviceManagementI
 	}
     }
 
+    /*
+     * @see
+     * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
+     * getAreas(com.sitewhere.grpc.service.GGetAreasRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void getAreas(GGetAreasRequest request, StreamObserver<GGetAreasResponse> responseObserver) {
+	try {
+	    GrpcUtils.logServerMethodEntry(DeviceManagementGrpc.METHOD_GET_AREAS);
+	    List<IArea> apiResult = getDeviceManagement()
+		    .getAreas(CommonModelConverter.asApiUuids(request.getIdsList()));
+	    GGetAreasResponse.Builder response = GGetAreasResponse.newBuilder();
+	    response.addAllAreas(DeviceModelConverter.asGrpcAreas(apiResult));
+	    responseObserver.onNext(response.build());
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(DeviceManagementGrpc.METHOD_GET_AREAS, e, responseObserver);
+	}
+    }
+
     /*
      * @see
      * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
@@ -1503,6 +1643,29 @@ public class DeviceManagementImpl extends DeviceManagementGrpc.DeviceManagementI
 	}
     }
 
+    /*
+     * @see
+     * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
+     * getAreaDescendantIds(com.sitewhere.grpc.service.
+     * GGetAreaDescendantIdsRequest, io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void getAreaDescendantIds(GGetAreaDescendantIdsRequest request,
+	    StreamObserver<GGetAreaDescendantIdsResponse> responseObserver) {
+	try {
+	    GrpcUtils.logServerMethodEntry(DeviceManagementGrpc.METHOD_GET_AREA_DESCENDANT_IDS);
+	    List<UUID> apiResult = getDeviceManagement()
+		    .getAreaDescendantIds(CommonModelConverter.asApiUuid(request.getId()));
+	    GGetAreaDescendantIdsResponse.Builder response = GGetAreaDescendantIdsResponse.newBuilder();
+	    response.addAllIds(CommonModelConverter.asGrpcUuids(apiResult));
+	    responseObserver.onNext(response.build());
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(DeviceManagementGrpc.METHOD_GET_AREA_DESCENDANT_IDS, e,
+		    responseObserver);
+	}
+    }
+
     /*
      * @see
      * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
@@ -278,6 +278,29 @@ public class DeviceManagementRouter extends DeviceManagementGrpc.DeviceManagemen
 	getTenantImplementation().createDevice(request, responseObserver);
     }
 
+    /*
+     * @see
+     * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
+     * createDevices(com.sitewhere.grpc.service.GCreateDevicesRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void createDevices(GCreateDevicesRequest request, StreamObserver<GCreateDevicesResponse> responseObserver) {
+	getTenantImplementation().createDevices(request, responseObserver);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
+     * createDeviceWithAssignment(com.sitewhere.grpc.service.
+     * GCreateDeviceWithAssignmentRequest, io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void createDeviceWithAssignment(GCreateDeviceWithAssignmentRequest request,
+	    StreamObserver<GCreateDeviceWithAssignmentResponse> responseObserver) {
+	getTenantImplementation().createDeviceWithAssignment(request, responseObserver);
+    }
+
     /*
      * @see
      * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
@@ -289,6 +312,41 @@ public class DeviceManagementRouter extends DeviceManagementGrpc.DeviceManagemen
 	getTenantImplementation().getDevice(request, responseObserver);
     }
 
+    /*
+     * @see
+     * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
+     * getDevices(com.sitewhere.grpc.service.GGetDevicesRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void getDevices(GGetDevicesRequest request, StreamObserver<GGetDevicesResponse> responseObserver) {
+	getTenantImplementation().getDevices(request, responseObserver);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
+     * getDevicesByToken(com.sitewhere.grpc.service.GGetDevicesByTokenRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void getDevicesByToken(GGetDevicesByTokenRequest request,
+	    StreamObserver<GGetDevicesByTokenResponse> responseObserver) {
+	getTenantImplementation().getDevicesByToken(request, responseObserver);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
+     * getDeviceAssignments(com.sitewhere.grpc.service.GGetDeviceAssignmentsRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void getDeviceAssignments(GGetDeviceAssignmentsRequest request,
+	    StreamObserver<GGetDeviceAssignmentsResponse> responseObserver) {
+	getTenantImplementation().getDeviceAssignments(request, responseObserver);
+    }
+
     /*
      * @see
      * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
@@ -702,6 +760,17 @@ public class DeviceManagementRouter extends DeviceManagementGrpc.DeviceManagemen
 	getTenantImplementation().getArea(request, responseObserver);
     }
 
+    /*
+     * @see
+     * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
+     * getAreas(com.sitewhere.grpc.service.GGetAreasRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void getAreas(GGetAreasRequest request, StreamObserver<GGetAreasResponse> responseObserver) {
+	getTenantImplementation().getAreas(request, responseObserver);
+    }
+
     /*
      * @see
      * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
@@ -726,6 +795,18 @@ public class DeviceManagementRouter extends DeviceManagementGrpc.DeviceManagemen
 	getTenantImplementation().getAreaChildren(request, responseObserver);
     }
 
+    /*
+     * @see
+     * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
+     * getAreaDescendantIds(com.sitewhere.grpc.service.
+     * GGetAreaDescendantIdsRequest, io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void getAreaDescendantIds(GGetAreaDescendantIdsRequest request,
+	    StreamObserver<GGetAreaDescendantIdsResponse> responseObserver) {
+	getTenantImplementation().getAreaDescendantIds(request, responseObserver);
+    }
+
     /*
      * @see
      * com.sitewhere.grpc.service.DeviceManagementGrpc.DeviceManagementImplBase#
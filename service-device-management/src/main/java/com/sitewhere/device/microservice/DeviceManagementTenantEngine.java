@@ -7,8 +7,8 @@
  */
 package com.sitewhere.device.microservice;
 
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -110,6 +110,15 @@ public class DeviceManagementTenantEngine extends MicroserviceTenantEngine imple
 	start.execute(monitor);
     }
 
+    /*
+     * @see com.sitewhere.microservice.multitenant.MicroserviceTenantEngine#
+     * getModuleBootstrapDependencies()
+     */
+    @Override
+    public List<String> getModuleBootstrapDependencies() {
+	return Collections.singletonList(IMicroserviceIdentifiers.ASSET_MANAGEMENT);
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -127,7 +136,6 @@ public class DeviceManagementTenantEngine extends MicroserviceTenantEngine imple
 	// Wait for remote APIs to become available.
 	getAssetManagementApiChannel().waitForApiAvailable();
 	getEventManagementApiChannel().waitForApiAvailable();
-	waitForModuleBootstrapped(IMicroserviceIdentifiers.ASSET_MANAGEMENT, 2, TimeUnit.MINUTES);
 
 	// Execute remote calls as superuser.
 	Authentication previous = SecurityContextHolder.getContext().getAuthentication();
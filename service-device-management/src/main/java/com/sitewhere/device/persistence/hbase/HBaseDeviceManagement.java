@@ -7,6 +7,7 @@
  */
 package com.sitewhere.device.persistence.hbase;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -25,6 +26,7 @@ import com.sitewhere.rest.model.area.Area;
 import com.sitewhere.rest.model.search.SearchResults;
 import com.sitewhere.server.lifecycle.TenantEngineLifecycleComponent;
 import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.SiteWhereSystemException;
 import com.sitewhere.spi.area.IArea;
 import com.sitewhere.spi.area.IAreaType;
 import com.sitewhere.spi.area.IZone;
@@ -49,6 +51,8 @@ import com.sitewhere.spi.device.request.IDeviceGroupElementCreateRequest;
 import com.sitewhere.spi.device.request.IDeviceStatusCreateRequest;
 import com.sitewhere.spi.device.request.IDeviceTypeCreateRequest;
 import com.sitewhere.spi.device.streaming.IDeviceStream;
+import com.sitewhere.spi.error.ErrorCode;
+import com.sitewhere.spi.error.ErrorLevel;
 import com.sitewhere.spi.search.ISearchCriteria;
 import com.sitewhere.spi.search.ISearchResults;
 import com.sitewhere.spi.search.area.IAreaSearchCriteria;
@@ -318,6 +322,43 @@ public class HBaseDeviceManagement extends TenantEngineLifecycleComponent implem
 	return HBaseDevice.createDevice(context, device);
     }
 
+    /*
+     * @see com.sitewhere.spi.device.IDeviceManagement#createDevices(java.util.List)
+     */
+    @Override
+    public List<IDevice> createDevices(List<IDeviceCreateRequest> devices) throws SiteWhereException {
+	List<IDevice> results = new ArrayList<IDevice>();
+	for (IDeviceCreateRequest request : devices) {
+	    IDevice existing = HBaseDevice.getDeviceByToken(context, request.getToken());
+	    results.add((existing != null) ? existing : HBaseDevice.createDevice(context, request));
+	}
+	return results;
+    }
+
+    /*
+     * @see com.sitewhere.spi.device.IDeviceManagement#createDeviceWithAssignment(
+     * com.sitewhere.spi.device.request.IDeviceCreateRequest,
+     * com.sitewhere.spi.device.request.IDeviceAssignmentCreateRequest)
+     */
+    @Override
+    public IDeviceAssignment createDeviceWithAssignment(IDeviceCreateRequest device,
+	    IDeviceAssignmentCreateRequest assignment) throws SiteWhereException {
+	if ((device.getToken() == null) || (!device.getToken().equals(assignment.getDeviceToken()))) {
+	    throw new SiteWhereSystemException(ErrorCode.InvalidDeviceToken, ErrorLevel.ERROR);
+	}
+	IDevice existing = HBaseDevice.getDeviceByToken(context, device.getToken());
+	if (existing == null) {
+	    existing = HBaseDevice.createDevice(context, device);
+	}
+	if ((existing != null) && (existing.getDeviceAssignmentId() != null)) {
+	    IDeviceAssignment current = getDeviceAssignment(existing.getDeviceAssignmentId());
+	    if (current != null) {
+		return current;
+	    }
+	}
+	return HBaseDeviceAssignment.createDeviceAssignment(context, assignment);
+    }
+
     /*
      * @see com.sitewhere.spi.device.IDeviceManagement#getDevice(java.util.UUID)
      */
@@ -326,6 +367,54 @@ public class HBaseDeviceManagement extends TenantEngineLifecycleComponent implem
 	return null;
     }
 
+    /*
+     * @see com.sitewhere.spi.device.IDeviceManagement#getDevices(java.util.List)
+     */
+    @Override
+    public List<IDevice> getDevices(List<UUID> deviceIds) throws SiteWhereException {
+	List<IDevice> results = new ArrayList<>();
+	for (UUID deviceId : deviceIds) {
+	    IDevice device = getDevice(deviceId);
+	    if (device != null) {
+		results.add(device);
+	    }
+	}
+	return results;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.device.IDeviceManagement#getDevicesByToken(java.util.List)
+     */
+    @Override
+    public List<IDevice> getDevicesByToken(List<String> tokens) throws SiteWhereException {
+	List<IDevice> results = new ArrayList<>();
+	for (String token : tokens) {
+	    IDevice device = getDeviceByToken(token);
+	    if (device != null) {
+		results.add(device);
+	    }
+	}
+	return results;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.device.IDeviceManagement#getDeviceAssignments(java.util.
+     * List)
+     */
+    @Override
+    public List<IDeviceAssignment> getDeviceAssignments(List<UUID> ids) throws SiteWhereException {
+	List<IDeviceAssignment> results = new ArrayList<>();
+	for (UUID id : ids) {
+	    IDeviceAssignment assignment = getDeviceAssignment(id);
+	    if (assignment != null) {
+		results.add(assignment);
+	    }
+	}
+	return results;
+    }
+
     /*
      * @see
      * com.sitewhere.spi.device.IDeviceManagement#getDeviceByToken(java.lang.String)
@@ -610,6 +699,21 @@ public class HBaseDeviceManagement extends TenantEngineLifecycleComponent implem
 	return null;
     }
 
+    /*
+     * @see com.sitewhere.spi.device.IDeviceManagement#getAreas(java.util.List)
+     */
+    @Override
+    public List<IArea> getAreas(List<UUID> ids) throws SiteWhereException {
+	List<IArea> results = new ArrayList<>();
+	for (UUID id : ids) {
+	    IArea area = getArea(id);
+	    if (area != null) {
+		results.add(area);
+	    }
+	}
+	return results;
+    }
+
     /*
      * @see
      * com.sitewhere.spi.device.IDeviceManagement#getAreaByToken(java.lang.String)
@@ -628,6 +732,16 @@ public class HBaseDeviceManagement extends TenantEngineLifecycleComponent implem
 	return null;
     }
 
+    /*
+     * @see
+     * com.sitewhere.spi.device.IDeviceManagement#getAreaDescendantIds(java.util.
+     * UUID)
+     */
+    @Override
+    public List<UUID> getAreaDescendantIds(UUID id) throws SiteWhereException {
+	throw new SiteWhereSystemException(ErrorCode.OperationNotSupported, ErrorLevel.INFO);
+    }
+
     /*
      * @see
      * com.sitewhere.spi.device.IDeviceManagement#listAreas(com.sitewhere.spi.search
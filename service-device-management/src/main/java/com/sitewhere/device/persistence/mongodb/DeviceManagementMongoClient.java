@@ -47,6 +47,9 @@ public class DeviceManagementMongoClient extends MongoDbClient implements IDevic
     /** Injected name used for area types collection */
     private String areaTypesCollectionName = IDeviceManagementMongoClient.DEFAULT_AREA_TYPES_COLLECTION_NAME;
 
+    /** Injected name used for area locks collection */
+    private String areaLocksCollectionName = IDeviceManagementMongoClient.DEFAULT_AREA_LOCKS_COLLECTION_NAME;
+
     /** Injected name used for zones collection */
     private String zonesCollectionName = IDeviceManagementMongoClient.DEFAULT_ZONES_COLLECTION_NAME;
 
@@ -129,6 +132,15 @@ public class DeviceManagementMongoClient extends MongoDbClient implements IDevic
 	return getDatabase().getCollection(getAreaTypesCollectionName());
     }
 
+    /*
+     * @see com.sitewhere.device.persistence.mongodb.IDeviceManagementMongoClient#
+     * getAreaLocksCollection()
+     */
+    @Override
+    public MongoCollection<Document> getAreaLocksCollection() throws SiteWhereException {
+	return getDatabase().getCollection(getAreaLocksCollectionName());
+    }
+
     /*
      * @see com.sitewhere.device.persistence.mongodb.IDeviceManagementMongoClient#
      * getZonesCollection()
@@ -271,6 +283,14 @@ public class DeviceManagementMongoClient extends MongoDbClient implements IDevic
 	this.streamsCollectionName = streamsCollectionName;
     }
 
+    public String getAreaLocksCollectionName() {
+	return areaLocksCollectionName;
+    }
+
+    public void setAreaLocksCollectionName(String areaLocksCollectionName) {
+	this.areaLocksCollectionName = areaLocksCollectionName;
+    }
+
     public String getStreamDataCollectionName() {
 	return streamDataCollectionName;
     }
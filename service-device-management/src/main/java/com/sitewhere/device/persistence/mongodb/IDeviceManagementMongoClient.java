@@ -25,6 +25,9 @@ public interface IDeviceManagementMongoClient {
     /** Default collection name for SiteWhere area types */
     public static final String DEFAULT_AREA_TYPES_COLLECTION_NAME = "areatypes";
 
+    /** Default collection name for SiteWhere area hierarchy locks */
+    public static final String DEFAULT_AREA_LOCKS_COLLECTION_NAME = "arealocks";
+
     /** Default collection name for SiteWhere zones */
     public static final String DEFAULT_ZONES_COLLECTION_NAME = "zones";
 
@@ -111,6 +114,14 @@ public interface IDeviceManagementMongoClient {
      */
     public MongoCollection<Document> getAreaTypesCollection() throws SiteWhereException;
 
+    /**
+     * Get collection for area hierarchy locks.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    public MongoCollection<Document> getAreaLocksCollection() throws SiteWhereException;
+
     /**
      * Collection for zones.
      * 
@@ -7,6 +7,8 @@
  */
 package com.sitewhere.device.persistence.mongodb;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 import org.bson.Document;
@@ -55,6 +57,9 @@ public class MongoArea implements MongoConverter<IArea> {
     /** Property for map metadata */
     public static final String PROP_MAP_METADATA = "mpmd";
 
+    /** Property for ancestor area ids (ordered from root to parent) */
+    public static final String PROP_ANCESTOR_IDS = "anid";
+
     /*
      * (non-Javadoc)
      * 
@@ -135,6 +140,29 @@ public class MongoArea implements MongoConverter<IArea> {
 	MongoMetadataProvider.fromDocument(source, target);
     }
 
+    /**
+     * Get ids of ancestor areas stored with an area {@link Document}, ordered
+     * from the root area to the direct parent.
+     * 
+     * @param source
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static List<UUID> getAncestorIds(Document source) {
+	List<UUID> ancestors = (List<UUID>) source.get(PROP_ANCESTOR_IDS);
+	return (ancestors != null) ? ancestors : new ArrayList<UUID>();
+    }
+
+    /**
+     * Set ids of ancestor areas on an area {@link Document}.
+     * 
+     * @param target
+     * @param ancestors
+     */
+    public static void setAncestorIds(Document target, List<UUID> ancestors) {
+	target.append(PROP_ANCESTOR_IDS, ancestors);
+    }
+
     /**
      * Convert SPI object to Mongo {@link Document}.
      * 
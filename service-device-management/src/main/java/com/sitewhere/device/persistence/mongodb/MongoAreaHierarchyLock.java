@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.device.persistence.mongodb;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.bson.Document;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoClientException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.result.UpdateResult;
+import com.sitewhere.mongodb.MongoPersistence;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Lock that serializes changes to the area hierarchy for a tenant across all
+ * device management instances sharing the tenant database. The lock is a single
+ * document whose unique id guarantees one holder at a time. Each hold is a
+ * lease with an expiration, so a lock left behind by a crashed instance is
+ * taken over once the lease runs out. The holder renews its lease in the
+ * background and checks with {@link #assertHeld(String)} before writing, so a
+ * hold that outlives its lease fails rather than overwriting changes made by
+ * the instance that took it over.
+ * <p>
+ * Threads of the same instance queue on a local lock and only one of them
+ * competes for the lock document. Competing with other instances backs off
+ * exponentially rather than polling at a fixed interval.
+ *
+ * @author Derek
+ */
+public class MongoAreaHierarchyLock {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(MongoAreaHierarchyLock.class);
+
+    /** Renews leases for all locks */
+    private static final ScheduledExecutorService RENEWALS = Executors
+	    .newSingleThreadScheduledExecutor(new LeaseRenewalThreadFactory());
+
+    /** Id of lock document */
+    private static final String LOCK_ID = "areaHierarchy";
+
+    /** Property for lock owner */
+    public static final String PROP_OWNER = "ownr";
+
+    /** Property for lease expiration */
+    public static final String PROP_EXPIRES = "expr";
+
+    /** Default time a lease is held before others may take it over */
+    private static final long DEFAULT_LEASE_MS = TimeUnit.SECONDS.toMillis(60);
+
+    /** Default time to wait for the lock */
+    private static final long DEFAULT_ACQUIRE_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+
+    /** Initial interval between attempts to take the lock */
+    private static final long RETRY_INTERVAL_MS = 25;
+
+    /** Maximum interval between attempts to take the lock */
+    private static final long MAX_RETRY_INTERVAL_MS = 1000;
+
+    /** Mongo client */
+    private IDeviceManagementMongoClient mongoClient;
+
+    /** Time a lease is held before others may take it over */
+    private long leaseMs = DEFAULT_LEASE_MS;
+
+    /** Time to wait for the lock */
+    private long acquireTimeoutMs = DEFAULT_ACQUIRE_TIMEOUT_MS;
+
+    /** Serializes holders within this instance */
+    private ReentrantLock local = new ReentrantLock(true);
+
+    /** Owner id of current hold */
+    private volatile String owner;
+
+    /** Indicates the lease of the current hold was lost */
+    private volatile boolean lost;
+
+    /** Time by which the lease of the current hold is known to be valid */
+    private volatile long expires;
+
+    /** Renews lease of current hold */
+    private ScheduledFuture<?> renewal;
+
+    public MongoAreaHierarchyLock(IDeviceManagementMongoClient mongoClient) {
+	this.mongoClient = mongoClient;
+    }
+
+    /**
+     * Acquire the lock, waiting until it is available. Returns an owner id that
+     * must be passed to {@link #release(String)}.
+     *
+     * @return
+     * @throws SiteWhereException
+     */
+    public String acquire() throws SiteWhereException {
+	long deadline = System.currentTimeMillis() + getAcquireTimeoutMs();
+	try {
+	    if (!local.tryLock(getAcquireTimeoutMs(), TimeUnit.MILLISECONDS)) {
+		throw new SiteWhereException("Timed out waiting for area hierarchy lock.");
+	    }
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new SiteWhereException("Interrupted while waiting for area hierarchy lock.", e);
+	}
+	try {
+	    String candidate = UUID.randomUUID().toString();
+	    long interval = RETRY_INTERVAL_MS;
+	    long attempt = System.currentTimeMillis();
+	    while (!tryAcquire(candidate)) {
+		long remaining = deadline - System.currentTimeMillis();
+		if (remaining <= 0) {
+		    throw new SiteWhereException("Timed out waiting for area hierarchy lock.");
+		}
+		Thread.sleep(Math.min(remaining, ThreadLocalRandom.current().nextLong(interval / 2, interval + 1)));
+		interval = Math.min(interval * 2, MAX_RETRY_INTERVAL_MS);
+		attempt = System.currentTimeMillis();
+	    }
+	    this.owner = candidate;
+	    this.lost = false;
+	    this.expires = attempt + getLeaseMs();
+	    long renewMs = Math.max(1, getLeaseMs() / 3);
+	    this.renewal = RENEWALS.scheduleWithFixedDelay(() -> renew(candidate), renewMs, renewMs,
+		    TimeUnit.MILLISECONDS);
+	    return candidate;
+	} catch (InterruptedException e) {
+	    local.unlock();
+	    Thread.currentThread().interrupt();
+	    throw new SiteWhereException("Interrupted while waiting for area hierarchy lock.", e);
+	} catch (SiteWhereException | RuntimeException e) {
+	    local.unlock();
+	    throw e;
+	}
+    }
+
+    /**
+     * Verify that the lease for the given owner has not been lost. Called before
+     * writes made while holding the lock.
+     *
+     * @param owner
+     * @throws SiteWhereException
+     */
+    public void assertHeld(String owner) throws SiteWhereException {
+	if ((lost) || (!owner.equals(this.owner)) || (System.currentTimeMillis() >= expires)) {
+	    throw new SiteWhereException("Area hierarchy lock lease was lost before changes were written.");
+	}
+    }
+
+    /**
+     * Release the lock if it is still held by the given owner.
+     *
+     * @param owner
+     * @throws SiteWhereException
+     */
+    public void release(String owner) throws SiteWhereException {
+	if (!owner.equals(this.owner)) {
+	    return;
+	}
+	renewal.cancel(false);
+	this.owner = null;
+	try {
+	    getLocks().deleteOne(new Document(MongoArea.PROP_ID, LOCK_ID).append(PROP_OWNER, owner));
+	} catch (MongoClientException e) {
+	    throw MongoPersistence.handleClientException(e);
+	} finally {
+	    local.unlock();
+	}
+    }
+
+    /**
+     * Extend the lease for the current hold. If the lock document is no longer
+     * held by the owner, the hold is marked as lost.
+     *
+     * @param owner
+     */
+    protected void renew(String owner) {
+	if ((lost) || (!owner.equals(this.owner))) {
+	    return;
+	}
+	try {
+	    long renewed = System.currentTimeMillis() + getLeaseMs();
+	    Document held = new Document(MongoArea.PROP_ID, LOCK_ID).append(PROP_OWNER, owner);
+	    Document update = new Document("$set", new Document(PROP_EXPIRES, new Date(renewed)));
+	    UpdateResult result = getLocks().updateOne(held, update);
+	    if (result.getMatchedCount() > 0) {
+		expires = renewed;
+	    } else if (owner.equals(this.owner)) {
+		lost = true;
+		LOGGER.warn("Area hierarchy lock lease was taken over before it could be renewed.");
+	    }
+	} catch (Throwable e) {
+	    LOGGER.warn("Unable to renew area hierarchy lock lease.", e);
+	}
+    }
+
+    /**
+     * Make a single attempt to take the lock, either by creating the lock
+     * document or by taking over an expired lease.
+     *
+     * @param owner
+     * @return
+     * @throws SiteWhereException
+     */
+    protected boolean tryAcquire(String owner) throws SiteWhereException {
+	Date now = new Date();
+	Date expires = new Date(now.getTime() + getLeaseMs());
+	try {
+	    Document lock = new Document(MongoArea.PROP_ID, LOCK_ID);
+	    lock.append(PROP_OWNER, owner);
+	    lock.append(PROP_EXPIRES, expires);
+	    getLocks().insertOne(lock);
+	    return true;
+	} catch (MongoWriteException e) {
+	    if (ErrorCategory.DUPLICATE_KEY != e.getError().getCategory()) {
+		throw new SiteWhereException("Unable to acquire area hierarchy lock.", e);
+	    }
+	} catch (MongoClientException e) {
+	    throw MongoPersistence.handleClientException(e);
+	}
+
+	// Lock is held. Take it over if the lease has expired.
+	try {
+	    Document expired = new Document(MongoArea.PROP_ID, LOCK_ID).append(PROP_EXPIRES,
+		    new Document("$lt", now));
+	    Document update = new Document("$set",
+		    new Document(PROP_OWNER, owner).append(PROP_EXPIRES, expires));
+	    return getLocks().findOneAndUpdate(expired, update) != null;
+	} catch (MongoClientException e) {
+	    throw MongoPersistence.handleClientException(e);
+	}
+    }
+
+    protected MongoCollection<Document> getLocks() throws SiteWhereException {
+	return getMongoClient().getAreaLocksCollection();
+    }
+
+    public IDeviceManagementMongoClient getMongoClient() {
+	return mongoClient;
+    }
+
+    public void setMongoClient(IDeviceManagementMongoClient mongoClient) {
+	this.mongoClient = mongoClient;
+    }
+
+    public long getLeaseMs() {
+	return leaseMs;
+    }
+
+    public void setLeaseMs(long leaseMs) {
+	this.leaseMs = leaseMs;
+    }
+
+    public long getAcquireTimeoutMs() {
+	return acquireTimeoutMs;
+    }
+
+    public void setAcquireTimeoutMs(long acquireTimeoutMs) {
+	this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    /**
+     * Creates daemon thread for renewing leases.
+     */
+    private static class LeaseRenewalThreadFactory implements ThreadFactory {
+
+	public Thread newThread(Runnable r) {
+	    Thread thread = new Thread(r, "Area Hierarchy Lease Renewal");
+	    thread.setDaemon(true);
+	    return thread;
+	}
+    }
+}
\ No newline at end of file
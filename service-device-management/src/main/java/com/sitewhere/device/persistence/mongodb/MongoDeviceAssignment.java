@@ -50,6 +50,9 @@ public class MongoDeviceAssignment implements MongoConverter<IDeviceAssignment>
     /** Property for status */
     public static final String PROP_STATUS = "stat";
 
+    /** Property for device id while assignment is not released */
+    public static final String PROP_CURRENT_DEVICE_ID = "cdid";
+
     /*
      * (non-Javadoc)
      * 
@@ -90,6 +93,9 @@ public class MongoDeviceAssignment implements MongoConverter<IDeviceAssignment>
 	if (source.getStatus() != null) {
 	    target.append(PROP_STATUS, source.getStatus().name());
 	}
+	if (source.getStatus() != DeviceAssignmentStatus.Released) {
+	    target.append(PROP_CURRENT_DEVICE_ID, source.getDeviceId());
+	}
 
 	MongoSiteWhereEntity.toDocument(source, target);
 	MongoMetadataProvider.toDocument(source, target);
@@ -9,7 +9,11 @@ package com.sitewhere.device.persistence.mongodb;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import org.apache.commons.lang.StringUtils;
@@ -17,11 +21,18 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.bson.Document;
 
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
 import com.mongodb.MongoClientException;
+import com.mongodb.MongoCommandException;
+import com.mongodb.bulk.BulkWriteError;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
 import com.mongodb.client.result.DeleteResult;
 import com.sitewhere.device.microservice.DeviceManagementMicroservice;
 import com.sitewhere.device.persistence.DeviceManagementPersistence;
@@ -102,6 +113,9 @@ public class MongoDeviceManagement extends TenantEngineLifecycleComponent implem
     /** Injected with global SiteWhere Mongo client */
     private IDeviceManagementMongoClient mongoClient;
 
+    /** Serializes changes to the area hierarchy across instances */
+    private MongoAreaHierarchyLock areaHierarchyLock;
+
     public MongoDeviceManagement() {
 	super(LifecycleComponentType.DataStore);
     }
@@ -114,8 +128,13 @@ public class MongoDeviceManagement extends TenantEngineLifecycleComponent implem
      * .server.lifecycle.ILifecycleProgressMonitor)
      */
     public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	this.areaHierarchyLock = new MongoAreaHierarchyLock(getMongoClient());
+
 	// Ensure that collection indexes exist.
 	ensureIndexes();
+
+	// Ensure that area hierarchy index is populated.
+	ensureAreaAncestors();
     }
 
     /*
@@ -137,6 +156,7 @@ public class MongoDeviceManagement extends TenantEngineLifecycleComponent implem
 	// Area indexes.
 	getMongoClient().getAreasCollection().createIndex(new Document(MongoArea.PROP_TOKEN, 1),
 		new IndexOptions().unique(true));
+	getMongoClient().getAreasCollection().createIndex(new Document(MongoArea.PROP_ANCESTOR_IDS, 1));
 
 	// Device-type-related indexes.
 	getMongoClient().getDeviceTypesCollection().createIndex(new Document(MongoDeviceType.PROP_TOKEN, 1),
@@ -155,6 +175,16 @@ public class MongoDeviceManagement extends TenantEngineLifecycleComponent implem
 	getMongoClient().getDeviceAssignmentsCollection()
 		.createIndex(new Document(MongoDeviceAssignment.PROP_AREA_ID, 1)
 			.append(MongoDeviceAssignment.PROP_ASSET_ID, 1).append(MongoDeviceAssignment.PROP_STATUS, 1));
+	ensureCurrentAssignmentDeviceIds();
+	try {
+	    getMongoClient().getDeviceAssignmentsCollection().createIndex(
+		    new Document(MongoDeviceAssignment.PROP_CURRENT_DEVICE_ID, 1),
+		    new IndexOptions().unique(true).partialFilterExpression(new Document(
+			    MongoDeviceAssignment.PROP_CURRENT_DEVICE_ID, new Document("$exists", true))));
+	} catch (MongoCommandException e) {
+	    getLogger().warn("Unable to create unique current assignment index. Devices may have duplicate "
+		    + "active or missing assignments that must be released manually.", e);
+	}
 
 	// Device group indexes.
 	getMongoClient().getDeviceGroupsCollection().createIndex(new Document(MongoDeviceGroup.PROP_TOKEN, 1),
@@ -636,6 +666,115 @@ public class MongoDeviceManagement extends TenantEngineLifecycleComponent implem
 	return newDevice;
     }
 
+    /*
+     * @see com.sitewhere.spi.device.IDeviceManagement#createDevices(java.util.List)
+     */
+    @Override
+    public List<IDevice> createDevices(List<IDeviceCreateRequest> requests) throws SiteWhereException {
+	Map<String, IDeviceType> deviceTypes = new HashMap<>();
+	List<Device> newDevices = new ArrayList<>();
+	List<Document> documents = new ArrayList<>();
+	for (IDeviceCreateRequest request : requests) {
+	    IDeviceType deviceType = deviceTypes.get(request.getDeviceTypeToken());
+	    if (deviceType == null) {
+		deviceType = getDeviceTypeByToken(request.getDeviceTypeToken());
+		if (deviceType == null) {
+		    throw new SiteWhereSystemException(ErrorCode.InvalidDeviceTypeToken, ErrorLevel.ERROR);
+		}
+		deviceTypes.put(request.getDeviceTypeToken(), deviceType);
+	    }
+	    Device newDevice = DeviceManagementPersistence.deviceCreateLogic(request, deviceType);
+	    newDevices.add(newDevice);
+	    documents.add(MongoDevice.toDocument(newDevice));
+	}
+	if (documents.isEmpty()) {
+	    return new ArrayList<>();
+	}
+
+	// Insert all devices, noting which ones already existed.
+	Set<Integer> duplicates = new HashSet<>();
+	try {
+	    getMongoClient().getDevicesCollection().insertMany(documents, new InsertManyOptions().ordered(false));
+	} catch (MongoBulkWriteException e) {
+	    for (BulkWriteError error : e.getWriteErrors()) {
+		if (ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+		    throw new SiteWhereException("Error during MongoDB device bulk insert.", e);
+		}
+		duplicates.add(error.getIndex());
+	    }
+	} catch (MongoClientException e) {
+	    throw MongoPersistence.handleClientException(e);
+	}
+
+	List<IDevice> results = new ArrayList<>();
+	for (int i = 0; i < newDevices.size(); i++) {
+	    if (duplicates.contains(i)) {
+		IDevice existing = getDeviceByToken(newDevices.get(i).getToken());
+		if (existing == null) {
+		    throw new SiteWhereSystemException(ErrorCode.DuplicateDeviceToken, ErrorLevel.ERROR);
+		}
+		results.add(existing);
+	    } else {
+		results.add(newDevices.get(i));
+	    }
+	}
+	return results;
+    }
+
+    /*
+     * @see com.sitewhere.spi.device.IDeviceManagement#createDeviceWithAssignment(
+     * com.sitewhere.spi.device.request.IDeviceCreateRequest,
+     * com.sitewhere.spi.device.request.IDeviceAssignmentCreateRequest)
+     */
+    @Override
+    public IDeviceAssignment createDeviceWithAssignment(IDeviceCreateRequest device,
+	    IDeviceAssignmentCreateRequest assignment) throws SiteWhereException {
+	if ((device.getToken() == null) || (!device.getToken().equals(assignment.getDeviceToken()))) {
+	    throw new SiteWhereSystemException(ErrorCode.InvalidDeviceToken, ErrorLevel.ERROR);
+	}
+
+	// Create device unless it already exists.
+	IDevice existing = getDeviceByToken(device.getToken());
+	if (existing == null) {
+	    try {
+		existing = createDevice(device);
+	    } catch (ResourceExistsException e) {
+		existing = getDeviceByToken(device.getToken());
+		if (existing == null) {
+		    throw e;
+		}
+	    }
+	}
+
+	// Return current assignment if already assigned.
+	if (existing.getDeviceAssignmentId() != null) {
+	    IDeviceAssignment current = getDeviceAssignment(existing.getDeviceAssignmentId());
+	    if (current != null) {
+		return current;
+	    }
+	}
+
+	// Unique index on active assignments prevents concurrent duplicates.
+	try {
+	    return createDeviceAssignment(assignment);
+	} catch (ResourceExistsException e) {
+	    IDeviceAssignment active = getActiveDeviceAssignment(existing.getId());
+	    if (active == null) {
+		throw e;
+	    }
+	    return active;
+	} catch (SiteWhereSystemException e) {
+	    if (e.getCode() != ErrorCode.DeviceAlreadyAssigned) {
+		throw e;
+	    }
+	    IDeviceAssignment active = getActiveDeviceAssignment(existing.getId());
+	    if (active == null) {
+		throw e;
+	    }
+	    return active;
+	}
+    }
+
     /*
      * @see com.sitewhere.spi.device.IDeviceManagement#updateDevice(java.util.UUID,
      * com.sitewhere.spi.device.request.IDeviceCreateRequest)
@@ -683,6 +822,72 @@ public class MongoDeviceManagement extends TenantEngineLifecycleComponent implem
 	return null;
     }
 
+    /*
+     * @see com.sitewhere.spi.device.IDeviceManagement#getDevices(java.util.List)
+     */
+    @Override
+    public List<IDevice> getDevices(List<UUID> deviceIds) throws SiteWhereException {
+	List<IDevice> results = new ArrayList<>();
+	if (deviceIds.isEmpty()) {
+	    return results;
+	}
+	try {
+	    MongoCollection<Document> devices = getMongoClient().getDevicesCollection();
+	    Document query = new Document(MongoDevice.PROP_ID, new Document("$in", deviceIds));
+	    for (Document match : devices.find(query)) {
+		results.add(MongoDevice.fromDocument(match));
+	    }
+	    return results;
+	} catch (MongoClientException e) {
+	    throw MongoPersistence.handleClientException(e);
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.device.IDeviceManagement#getDevicesByToken(java.util.List)
+     */
+    @Override
+    public List<IDevice> getDevicesByToken(List<String> tokens) throws SiteWhereException {
+	List<IDevice> results = new ArrayList<>();
+	if (tokens.isEmpty()) {
+	    return results;
+	}
+	try {
+	    MongoCollection<Document> devices = getMongoClient().getDevicesCollection();
+	    Document query = new Document(MongoDevice.PROP_TOKEN, new Document("$in", tokens));
+	    for (Document match : devices.find(query)) {
+		results.add(MongoDevice.fromDocument(match));
+	    }
+	    return results;
+	} catch (MongoClientException e) {
+	    throw MongoPersistence.handleClientException(e);
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.device.IDeviceManagement#getDeviceAssignments(java.util.
+     * List)
+     */
+    @Override
+    public List<IDeviceAssignment> getDeviceAssignments(List<UUID> ids) throws SiteWhereException {
+	List<IDeviceAssignment> results = new ArrayList<>();
+	if (ids.isEmpty()) {
+	    return results;
+	}
+	try {
+	    MongoCollection<Document> assignments = getMongoClient().getDeviceAssignmentsCollection();
+	    Document query = new Document(MongoDeviceAssignment.PROP_ID, new Document("$in", ids));
+	    for (Document match : assignments.find(query)) {
+		results.add(MongoDeviceAssignment.fromDocument(match));
+	    }
+	    return results;
+	} catch (MongoClientException e) {
+	    throw MongoPersistence.handleClientException(e);
+	}
+    }
+
     /*
      * @see
      * com.sitewhere.spi.device.IDeviceManagement#getDeviceByToken(java.lang.String)
@@ -881,6 +1086,52 @@ public class MongoDeviceManagement extends TenantEngineLifecycleComponent implem
 	return newAssignment;
     }
 
+    /**
+     * Set the current device id on unreleased assignments stored before it was
+     * tracked, so the unique index covers both active and missing assignments.
+     * 
+     * @throws SiteWhereException
+     */
+    protected void ensureCurrentAssignmentDeviceIds() throws SiteWhereException {
+	try {
+	    MongoCollection<Document> assignments = getMongoClient().getDeviceAssignmentsCollection();
+	    Document query = new Document(MongoDeviceAssignment.PROP_CURRENT_DEVICE_ID, new Document("$exists", false))
+		    .append(MongoDeviceAssignment.PROP_STATUS,
+			    new Document("$ne", DeviceAssignmentStatus.Released.name()));
+	    List<WriteModel<Document>> updates = new ArrayList<>();
+	    for (Document match : assignments.find(query)) {
+		updates.add(new UpdateOneModel<Document>(
+			new Document(MongoDeviceAssignment.PROP_ID, match.get(MongoDeviceAssignment.PROP_ID)),
+			new Document("$set", new Document(MongoDeviceAssignment.PROP_CURRENT_DEVICE_ID,
+				match.get(MongoDeviceAssignment.PROP_DEVICE_ID)))));
+	    }
+	    if (!updates.isEmpty()) {
+		assignments.bulkWrite(updates);
+	    }
+	} catch (MongoClientException e) {
+	    throw MongoPersistence.handleClientException(e);
+	}
+    }
+
+    /**
+     * Get the current (active or missing) assignment for a device or null if not
+     * assigned.
+     * 
+     * @param deviceId
+     * @return
+     * @throws SiteWhereException
+     */
+    protected IDeviceAssignment getActiveDeviceAssignment(UUID deviceId) throws SiteWhereException {
+	try {
+	    MongoCollection<Document> assignments = getMongoClient().getDeviceAssignmentsCollection();
+	    Document query = new Document(MongoDeviceAssignment.PROP_CURRENT_DEVICE_ID, deviceId);
+	    Document match = assignments.find(query).first();
+	    return (match != null) ? MongoDeviceAssignment.fromDocument(match) : null;
+	} catch (MongoClientException e) {
+	    throw MongoPersistence.handleClientException(e);
+	}
+    }
+
     /*
      * @see
      * com.sitewhere.spi.device.IDeviceManagement#getDeviceAssignment(java.util.
@@ -974,12 +1225,31 @@ public class MongoDeviceManagement extends TenantEngineLifecycleComponent implem
 
 	DeviceManagementPersistence.setUpdatedEntityMetadata(assignment);
 	Document query = new Document(MongoDeviceAssignment.PROP_ID, id);
-	MongoCollection<Document> assignments = getMongoClient().getDeviceAssignmentsCollection();
-	MongoPersistence.update(assignments, query, MongoDeviceAssignment.toDocument(assignment));
+	updateDeviceAssignmentDocument(query, MongoDeviceAssignment.toDocument(assignment));
 
 	return assignment;
     }
 
+    /**
+     * Update a device assignment document, clearing the current device id if the
+     * assignment has been released.
+     * 
+     * @param query
+     * @param document
+     * @throws SiteWhereException
+     */
+    protected void updateDeviceAssignmentDocument(Document query, Document document) throws SiteWhereException {
+	Document update = new Document("$set", document);
+	if (!document.containsKey(MongoDeviceAssignment.PROP_CURRENT_DEVICE_ID)) {
+	    update.append("$unset", new Document(MongoDeviceAssignment.PROP_CURRENT_DEVICE_ID, ""));
+	}
+	try {
+	    getMongoClient().getDeviceAssignmentsCollection().updateOne(query, update);
+	} catch (MongoClientException e) {
+	    throw MongoPersistence.handleClientException(e);
+	}
+    }
+
     /*
      * @see com.sitewhere.spi.device.IDeviceManagement#listDeviceAssignments(com.
      * sitewhere.spi.search.device.IDeviceAssignmentSearchCriteria)
@@ -1015,9 +1285,9 @@ public class MongoDeviceManagement extends TenantEngineLifecycleComponent implem
 	Document match = assertDeviceAssignment(id);
 	match.put(MongoDeviceAssignment.PROP_RELEASED_DATE, Calendar.getInstance().getTime());
 	match.put(MongoDeviceAssignment.PROP_STATUS, DeviceAssignmentStatus.Released.name());
-	MongoCollection<Document> assignments = getMongoClient().getDeviceAssignmentsCollection();
+	match.remove(MongoDeviceAssignment.PROP_CURRENT_DEVICE_ID);
 	Document query = new Document(MongoDeviceAssignment.PROP_ID, id);
-	MongoPersistence.update(assignments, query, match);
+	updateDeviceAssignmentDocument(query, match);
 
 	// Remove device assignment reference.
 	MongoCollection<Document> devices = getMongoClient().getDevicesCollection();
@@ -1247,8 +1517,22 @@ public class MongoDeviceManagement extends TenantEngineLifecycleComponent implem
 
 	MongoCollection<Document> sites = getMongoClient().getAreasCollection();
 	Document created = MongoArea.toDocument(area);
-	MongoPersistence.insert(sites, created, ErrorCode.DuplicateAreaToken);
-	return MongoArea.fromDocument(created);
+	if (parentArea == null) {
+	    MongoArea.setAncestorIds(created, getAreaPath(null));
+	    MongoPersistence.insert(sites, created, ErrorCode.DuplicateAreaToken);
+	    return MongoArea.fromDocument(created);
+	}
+
+	// Hold hierarchy lock so parent path can not change before insert.
+	String owner = getAreaHierarchyLock().acquire();
+	try {
+	    MongoArea.setAncestorIds(created, getAreaPath(parentArea));
+	    getAreaHierarchyLock().assertHeld(owner);
+	    MongoPersistence.insert(sites, created, ErrorCode.DuplicateAreaToken);
+	    return MongoArea.fromDocument(created);
+	} finally {
+	    getAreaHierarchyLock().release(owner);
+	}
     }
 
     /*
@@ -1263,6 +1547,27 @@ public class MongoDeviceManagement extends TenantEngineLifecycleComponent implem
 	return null;
     }
 
+    /*
+     * @see com.sitewhere.spi.device.IDeviceManagement#getAreas(java.util.List)
+     */
+    @Override
+    public List<IArea> getAreas(List<UUID> ids) throws SiteWhereException {
+	List<IArea> results = new ArrayList<>();
+	if (ids.isEmpty()) {
+	    return results;
+	}
+	try {
+	    MongoCollection<Document> areas = getMongoClient().getAreasCollection();
+	    Document query = new Document(MongoArea.PROP_ID, new Document("$in", ids));
+	    for (Document match : areas.find(query)) {
+		results.add(MongoArea.fromDocument(match));
+	    }
+	    return results;
+	} catch (MongoClientException e) {
+	    throw MongoPersistence.handleClientException(e);
+	}
+    }
+
     /*
      * @see
      * com.sitewhere.spi.device.IDeviceManagement#getAreaByToken(java.lang.String)
@@ -1295,6 +1600,30 @@ public class MongoDeviceManagement extends TenantEngineLifecycleComponent implem
 	return matches.getResults();
     }
 
+    /*
+     * @see
+     * com.sitewhere.spi.device.IDeviceManagement#getAreaDescendantIds(java.util.
+     * UUID)
+     */
+    @Override
+    public List<UUID> getAreaDescendantIds(UUID id) throws SiteWhereException {
+	try {
+	    MongoCollection<Document> areas = getMongoClient().getAreasCollection();
+	    Document query = new Document(MongoArea.PROP_ANCESTOR_IDS, id);
+	    Document projection = new Document(MongoArea.PROP_ID, 1);
+	    List<UUID> ids = new ArrayList<>();
+	    for (Document match : areas.find(query).projection(projection)) {
+		ids.add((UUID) match.get(MongoArea.PROP_ID));
+	    }
+	    if (ids.isEmpty() && (getAreaDocumentById(id) == null)) {
+		throw new SiteWhereSystemException(ErrorCode.InvalidAreaId, ErrorLevel.ERROR);
+	    }
+	    return ids;
+	} catch (MongoClientException e) {
+	    throw MongoPersistence.handleClientException(e);
+	}
+    }
+
     /*
      * @see com.sitewhere.spi.device.IDeviceManagement#updateArea(java.util.UUID,
      * com.sitewhere.spi.area.request.IAreaCreateRequest)
@@ -1303,15 +1632,50 @@ public class MongoDeviceManagement extends TenantEngineLifecycleComponent implem
     public IArea updateArea(UUID id, IAreaCreateRequest request) throws SiteWhereException {
 	IArea area = getApiAreaById(id);
 
+	// Check whether area is being moved. An empty parent token moves the area to
+	// the root of the hierarchy.
+	IArea parent = null;
+	boolean moved = false;
+	if (request.getParentAreaToken() != null) {
+	    if (request.getParentAreaToken().isEmpty()) {
+		moved = (area.getParentAreaId() != null);
+	    } else {
+		parent = getAreaByToken(request.getParentAreaToken());
+		if (parent == null) {
+		    throw new SiteWhereSystemException(ErrorCode.InvalidAreaToken, ErrorLevel.ERROR);
+		}
+		moved = !parent.getId().equals(area.getParentAreaId());
+	    }
+	}
+
 	// Use common update logic.
 	DeviceManagementPersistence.areaUpdateLogic(request, (Area) area);
 
-	Document updated = MongoArea.toDocument(area);
-
 	MongoCollection<Document> areas = getMongoClient().getAreasCollection();
 	Document query = new Document(MongoArea.PROP_ID, id);
-	MongoPersistence.update(areas, query, updated);
-	return MongoArea.fromDocument(updated);
+	if (!moved) {
+	    Document updated = MongoArea.toDocument(area);
+	    MongoPersistence.update(areas, query, updated);
+	    return MongoArea.fromDocument(updated);
+	}
+
+	// Moves rewrite the ancestor path for the area and all of its descendants.
+	String owner = getAreaHierarchyLock().acquire();
+	try {
+	    List<UUID> path = getAreaPath(parent);
+	    if (path.contains(id)) {
+		throw new SiteWhereException("Area can not be moved below itself or one of its subareas.");
+	    }
+	    ((Area) area).setParentAreaId((parent != null) ? parent.getId() : null);
+	    Document updated = MongoArea.toDocument(area);
+	    MongoArea.setAncestorIds(updated, path);
+	    getAreaHierarchyLock().assertHeld(owner);
+	    MongoPersistence.update(areas, query, updated);
+	    updateDescendantAncestors(id, path, owner);
+	    return MongoArea.fromDocument(updated);
+	} finally {
+	    getAreaHierarchyLock().release(owner);
+	}
     }
 
     /*
@@ -1347,7 +1711,23 @@ public class MongoDeviceManagement extends TenantEngineLifecycleComponent implem
 	}
 	if (force) {
 	    MongoCollection<Document> areas = getMongoClient().getAreasCollection();
-	    MongoPersistence.delete(areas, existing);
+	    String owner = getAreaHierarchyLock().acquire();
+	    try {
+		existing = getAreaDocumentById(id);
+		if (existing == null) {
+		    throw new SiteWhereSystemException(ErrorCode.InvalidAreaToken, ErrorLevel.ERROR);
+		}
+		getAreaHierarchyLock().assertHeld(owner);
+		MongoPersistence.delete(areas, existing);
+
+		// Detach subareas from the ancestors of the deleted area.
+		List<UUID> detached = new ArrayList<>(MongoArea.getAncestorIds(existing));
+		detached.add(id);
+		areas.updateMany(new Document(MongoArea.PROP_ANCESTOR_IDS, id),
+			new Document("$pullAll", new Document(MongoArea.PROP_ANCESTOR_IDS, detached)));
+	    } finally {
+		getAreaHierarchyLock().release(owner);
+	    }
 	    return MongoArea.fromDocument(existing);
 	} else {
 	    MongoSiteWhereEntity.setDeleted(existing, true);
@@ -1358,6 +1738,103 @@ public class MongoDeviceManagement extends TenantEngineLifecycleComponent implem
 	}
     }
 
+    /**
+     * Get the ancestor path for an area placed below the given parent. The path
+     * lists area ids from the root area down to (and including) the parent.
+     * 
+     * @param parent
+     * @return
+     * @throws SiteWhereException
+     */
+    protected List<UUID> getAreaPath(IArea parent) throws SiteWhereException {
+	List<UUID> path = new ArrayList<>();
+	if (parent != null) {
+	    Document parentDoc = getAreaDocumentById(parent.getId());
+	    if (parentDoc == null) {
+		throw new SiteWhereSystemException(ErrorCode.InvalidAreaToken, ErrorLevel.ERROR);
+	    }
+	    path.addAll(MongoArea.getAncestorIds(parentDoc));
+	    path.add(parent.getId());
+	}
+	return path;
+    }
+
+    /**
+     * Rewrite the ancestor path for all descendants of an area after it has been
+     * moved to a new location in the hierarchy.
+     * 
+     * @param id
+     * @param path
+     * @param owner
+     * @throws SiteWhereException
+     */
+    protected void updateDescendantAncestors(UUID id, List<UUID> path, String owner) throws SiteWhereException {
+	try {
+	    MongoCollection<Document> areas = getMongoClient().getAreasCollection();
+	    Document query = new Document(MongoArea.PROP_ANCESTOR_IDS, id);
+	    Document projection = new Document(MongoArea.PROP_ANCESTOR_IDS, 1);
+	    List<WriteModel<Document>> updates = new ArrayList<>();
+	    for (Document descendant : areas.find(query).projection(projection)) {
+		List<UUID> previous = MongoArea.getAncestorIds(descendant);
+		List<UUID> updated = new ArrayList<>(path);
+		updated.addAll(previous.subList(previous.indexOf(id), previous.size()));
+		Document match = new Document(MongoArea.PROP_ID, descendant.get(MongoArea.PROP_ID));
+		updates.add(new UpdateOneModel<Document>(match,
+			new Document("$set", new Document(MongoArea.PROP_ANCESTOR_IDS, updated))));
+	    }
+	    if (updates.size() > 0) {
+		getAreaHierarchyLock().assertHeld(owner);
+		areas.bulkWrite(updates);
+	    }
+	} catch (MongoClientException e) {
+	    throw MongoPersistence.handleClientException(e);
+	}
+    }
+
+    /**
+     * Populate ancestor paths for areas that were stored before the area
+     * hierarchy index existed.
+     * 
+     * @throws SiteWhereException
+     */
+    protected void ensureAreaAncestors() throws SiteWhereException {
+	try {
+	    MongoCollection<Document> areas = getMongoClient().getAreasCollection();
+	    Document missing = new Document(MongoArea.PROP_ANCESTOR_IDS, new Document("$exists", false));
+	    if (areas.count(missing) == 0) {
+		return;
+	    }
+	    String owner = getAreaHierarchyLock().acquire();
+	    try {
+		Map<UUID, UUID> parents = new HashMap<>();
+		for (Document area : areas.find().projection(new Document(MongoArea.PROP_PARENT_AREA_ID, 1))) {
+		    parents.put((UUID) area.get(MongoArea.PROP_ID), (UUID) area.get(MongoArea.PROP_PARENT_AREA_ID));
+		}
+		List<WriteModel<Document>> updates = new ArrayList<>();
+		for (Document area : areas.find(missing).projection(new Document(MongoArea.PROP_ID, 1))) {
+		    List<UUID> path = new ArrayList<>();
+		    UUID current = parents.get(area.get(MongoArea.PROP_ID));
+		    while ((current != null) && (!path.contains(current))) {
+			path.add(0, current);
+			current = parents.get(current);
+		    }
+		    Document match = new Document(MongoArea.PROP_ID, area.get(MongoArea.PROP_ID));
+		    updates.add(new UpdateOneModel<Document>(match,
+			    new Document("$set", new Document(MongoArea.PROP_ANCESTOR_IDS, path))));
+		}
+		if (updates.size() > 0) {
+		    getAreaHierarchyLock().assertHeld(owner);
+		    areas.bulkWrite(updates);
+		}
+		getLogger().info("Populated area hierarchy index for " + updates.size() + " areas.");
+	    } finally {
+		getAreaHierarchyLock().release(owner);
+	    }
+	} catch (MongoClientException e) {
+	    throw MongoPersistence.handleClientException(e);
+	}
+    }
+
     /*
      * @see com.sitewhere.spi.device.IDeviceManagement#createZone(java.util.UUID,
      * com.sitewhere.spi.area.request.IZoneCreateRequest)
@@ -2003,6 +2480,10 @@ public class MongoDeviceManagement extends TenantEngineLifecycleComponent implem
 		.getApiChannel();
     }
 
+    public MongoAreaHierarchyLock getAreaHierarchyLock() {
+	return areaHierarchyLock;
+    }
+
     public IDeviceManagementMongoClient getMongoClient() {
 	return mongoClient;
     }
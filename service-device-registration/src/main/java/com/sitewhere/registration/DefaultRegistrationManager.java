@@ -7,19 +7,34 @@
  */
 package com.sitewhere.registration;
 
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.sitewhere.grpc.kafka.model.KafkaModel.GInboundEventPayload;
+import com.sitewhere.grpc.model.converter.KafkaModelConverter;
+import com.sitewhere.grpc.model.marshaler.KafkaModelMarshaler;
+import com.sitewhere.microservice.security.SystemUserCallable;
+import com.sitewhere.microservice.security.SystemUserRunnable;
 import com.sitewhere.registration.spi.IRegistrationManager;
+import com.sitewhere.registration.spi.kafka.IReprocessEventsProducer;
 import com.sitewhere.registration.spi.microservice.IDeviceRegistrationMicroservice;
+import com.sitewhere.registration.spi.microservice.IDeviceRegistrationTenantEngine;
 import com.sitewhere.rest.model.device.DeviceElementMapping;
 import com.sitewhere.rest.model.device.command.DeviceMappingAckCommand;
 import com.sitewhere.rest.model.device.command.RegistrationAckCommand;
 import com.sitewhere.rest.model.device.command.RegistrationFailureCommand;
 import com.sitewhere.rest.model.device.request.DeviceAssignmentCreateRequest;
 import com.sitewhere.rest.model.device.request.DeviceCreateRequest;
+import com.sitewhere.rest.model.microservice.kafka.payload.SystemCommandPayload;
 import com.sitewhere.server.lifecycle.TenantEngineLifecycleComponent;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.area.IArea;
@@ -27,10 +42,12 @@ import com.sitewhere.spi.device.IDevice;
 import com.sitewhere.spi.device.IDeviceManagement;
 import com.sitewhere.spi.device.IDeviceType;
 import com.sitewhere.spi.device.command.DeviceMappingResult;
+import com.sitewhere.spi.device.command.ISystemCommand;
 import com.sitewhere.spi.device.command.RegistrationFailureReason;
 import com.sitewhere.spi.device.command.RegistrationSuccessReason;
 import com.sitewhere.spi.device.event.request.IDeviceMappingCreateRequest;
 import com.sitewhere.spi.device.event.request.IDeviceRegistrationRequest;
+import com.sitewhere.spi.device.request.IDeviceCreateRequest;
 import com.sitewhere.spi.microservice.kafka.payload.IInboundEventPayload;
 import com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor;
 import com.sitewhere.spi.server.lifecycle.LifecycleComponentType;
@@ -60,6 +77,21 @@ public class DefaultRegistrationManager extends TenantEngineLifecycleComponent i
     /** Area used for automatic assignment */
     private IArea autoAssignArea;
 
+    /** Shares registrations in progress between duplicate requests */
+    private RegistrationCoalescer coalescer = new RegistrationCoalescer();
+
+    /** Batches creation of new devices */
+    private DeviceCreateBatcher deviceCreateBatcher = new DeviceCreateBatcher(this::createDevicesAsSystemUser);
+
+    /** Holds events for unregistered devices until they are registered */
+    private UnregisteredEventParkingLot parkingLot = new UnregisteredEventParkingLot();
+
+    /** Number of parked events evicted as of the last sweep */
+    private long lastEvictedEventCount;
+
+    /** Periodically checks whether devices with parked events are registered */
+    private ScheduledExecutorService parkedEventsSweeper;
+
     public DefaultRegistrationManager() {
 	super(LifecycleComponentType.RegistrationManager);
     }
@@ -73,28 +105,43 @@ public class DefaultRegistrationManager extends TenantEngineLifecycleComponent i
      */
     @Override
     public void handleDeviceRegistration(IDeviceRegistrationRequest request) throws SiteWhereException {
+	if (!getCoalescer().execute(request.getDeviceToken(), () -> register(request))) {
+	    LOGGER.debug("Registration for '" + request.getDeviceToken() + "' shared with request in progress.");
+	}
+    }
+
+    /**
+     * Register a device, creating and assigning it as needed. Only one
+     * registration runs at a time for a given device token.
+     * 
+     * @param request
+     * @throws SiteWhereException
+     */
+    protected void register(IDeviceRegistrationRequest request) throws SiteWhereException {
 	LOGGER.debug("Handling device registration request.");
 	IDevice device = getDeviceManagement().getDeviceByToken(request.getDeviceToken());
 	IDeviceType deviceType = getDeviceTypeFor(request);
+	boolean isNewRegistration = (device == null);
 
 	// Create device if it does not already exist.
 	if (device == null) {
 	    if (!isAllowNewDevices()) {
 		LOGGER.warn("Ignoring device registration request since new devices are not allowed.");
+		sendNoNewDevicesAllowed(request.getDeviceToken());
 		return;
 	    }
 	    LOGGER.debug("Creating new device as part of registration.");
 	    DeviceCreateRequest deviceCreate = new DeviceCreateRequest();
 	    deviceCreate.setToken(request.getDeviceToken());
-	    deviceCreate.setDeviceTypeToken(request.getDeviceTypeToken());
+	    deviceCreate.setDeviceTypeToken(deviceType.getToken());
 	    deviceCreate.setComments("Device created by on-demand registration.");
 	    deviceCreate.setMetadata(request.getMetadata());
-	    device = getDeviceManagement().createDevice(deviceCreate);
+	    device = getDeviceCreateBatcher().create(deviceCreate);
 	} else if (!device.getDeviceTypeId().equals(deviceType.getId())) {
 	    LOGGER.info("Found existing device registration, but device type does not match.");
 	    sendInvalidDeviceType(request.getDeviceToken());
 	    return;
-	} else {
+	} else if ((request.getMetadata() != null) && (!Objects.equals(request.getMetadata(), device.getMetadata()))) {
 	    LOGGER.info("Found existing device registration. Updating metadata.");
 	    DeviceCreateRequest deviceUpdate = new DeviceCreateRequest();
 	    deviceUpdate.setMetadata(request.getMetadata());
@@ -104,12 +151,55 @@ public class DefaultRegistrationManager extends TenantEngineLifecycleComponent i
 	// Make sure device is assigned.
 	if (device.getDeviceAssignmentId() == null) {
 	    LOGGER.debug("Handling unassigned device for registration.");
+	    DeviceCreateRequest deviceCreate = new DeviceCreateRequest();
+	    deviceCreate.setToken(device.getToken());
+	    deviceCreate.setDeviceTypeToken(deviceType.getToken());
+	    deviceCreate.setMetadata(device.getMetadata());
 	    DeviceAssignmentCreateRequest assnCreate = new DeviceAssignmentCreateRequest();
 	    assnCreate.setDeviceToken(device.getToken());
-	    getDeviceManagement().createDeviceAssignment(assnCreate);
+	    getDeviceManagement().createDeviceWithAssignment(deviceCreate, assnCreate);
 	}
-	boolean isNewRegistration = (device != null);
 	sendRegistrationAck(request.getDeviceToken(), isNewRegistration);
+	replayParkedEvents(request.getDeviceToken());
+    }
+
+    /**
+     * Create a batch of devices with system credentials for the tenant.
+     * 
+     * @param requests
+     * @return
+     * @throws SiteWhereException
+     */
+    protected List<IDevice> createDevicesAsSystemUser(List<IDeviceCreateRequest> requests)
+	    throws SiteWhereException {
+	try {
+	    return new SystemUserCallable<List<IDevice>>(getTenantEngine().getMicroservice(),
+		    getTenantEngine().getTenant()) {
+
+		@Override
+		public List<IDevice> runAsSystemUser() throws SiteWhereException {
+		    return getDeviceManagement().createDevices(requests);
+		}
+	    }.call();
+	} catch (SiteWhereException e) {
+	    throw e;
+	} catch (Exception e) {
+	    throw new SiteWhereException("Unable to create devices for registration.", e);
+	}
+    }
+
+    /**
+     * Send a system command to a device via the system commands topic.
+     * 
+     * @param deviceToken
+     * @param command
+     * @throws SiteWhereException
+     */
+    protected void sendSystemCommand(String deviceToken, ISystemCommand command) throws SiteWhereException {
+	SystemCommandPayload payload = new SystemCommandPayload(deviceToken, command);
+	byte[] message = KafkaModelMarshaler
+		.buildSystemCommandPayloadMessage(KafkaModelConverter.asGrpcSystemCommandPayload(payload));
+	((IDeviceRegistrationTenantEngine) getTenantEngine()).getSystemCommandsProducer().send(deviceToken, message);
     }
 
     /*
@@ -119,7 +209,64 @@ public class DefaultRegistrationManager extends TenantEngineLifecycleComponent i
      */
     @Override
     public void handleUnregisteredDeviceEvent(IInboundEventPayload payload) throws SiteWhereException {
-	getLogger().info("Would be handling unregistered device event for " + payload.getDeviceToken());
+	boolean check = getParkingLot().park(payload);
+	LOGGER.debug("Parked event for unregistered device '" + payload.getDeviceToken() + "'.");
+
+	// Device may have been registered by other means since the event was sent.
+	if (check) {
+	    IDevice device = getDeviceManagement().getDeviceByToken(payload.getDeviceToken());
+	    if ((device != null) && (device.getDeviceAssignmentId() != null)) {
+		replayParkedEvents(payload.getDeviceToken());
+	    }
+	}
+    }
+
+    /**
+     * Check devices with parked events that have not been looked up recently and
+     * replay events for those that have been created and assigned since. This
+     * covers devices registered by other means that send no further events
+     * through the unregistered path.
+     * 
+     * @throws SiteWhereException
+     */
+    protected void sweepParkedEvents() throws SiteWhereException {
+	getParkingLot().purgeExpired();
+	long evicted = getParkingLot().getEvictedEventCount();
+	if (evicted > lastEvictedEventCount) {
+	    LOGGER.warn("Evicted " + (evicted - lastEvictedEventCount)
+		    + " parked events for unregistered devices since last sweep. Parked devices: "
+		    + getParkingLot().getTokenCount() + " Parked events: " + getParkingLot().getEventCount());
+	    lastEvictedEventCount = evicted;
+	}
+	for (String deviceToken : getParkingLot().getTokensDueForLookup()) {
+	    IDevice device = getDeviceManagement().getDeviceByToken(deviceToken);
+	    if ((device != null) && (device.getDeviceAssignmentId() != null)) {
+		replayParkedEvents(deviceToken);
+	    }
+	}
+    }
+
+    /**
+     * Send events parked for a device to the reprocess topic in the order they
+     * were received. Replays are serialized so that events drained by the sweep
+     * and by the event path are not interleaved.
+     * 
+     * @param deviceToken
+     * @throws SiteWhereException
+     */
+    protected synchronized void replayParkedEvents(String deviceToken) throws SiteWhereException {
+	List<IInboundEventPayload> parked = getParkingLot().drain(deviceToken);
+	if (parked.isEmpty()) {
+	    return;
+	}
+	LOGGER.info("Replaying " + parked.size() + " parked events for device '" + deviceToken + "'.");
+	IReprocessEventsProducer producer = ((IDeviceRegistrationTenantEngine) getTenantEngine())
+		.getReprocessEventsProducer();
+	for (IInboundEventPayload payload : parked) {
+	    GInboundEventPayload grpc = KafkaModelConverter.asGrpcInboundEventPayload(payload).toBuilder()
+		    .setReprocessed(true).build();
+	    producer.send(deviceToken, KafkaModelMarshaler.buildInboundEventPayloadMessage(grpc));
+	}
     }
 
     /**
@@ -177,7 +324,7 @@ public class DefaultRegistrationManager extends TenantEngineLifecycleComponent i
 	RegistrationAckCommand command = new RegistrationAckCommand();
 	command.setReason((newRegistration) ? RegistrationSuccessReason.NewRegistration
 		: RegistrationSuccessReason.AlreadyRegistered);
-	// getDeviceCommunication().deliverSystemCommand(hardwareId, command);
+	sendSystemCommand(hardwareId, command);
     }
 
     /**
@@ -191,7 +338,7 @@ public class DefaultRegistrationManager extends TenantEngineLifecycleComponent i
 	RegistrationFailureCommand command = new RegistrationFailureCommand();
 	command.setReason(RegistrationFailureReason.NewDevicesNotAllowed);
 	command.setErrorMessage("Registration manager does not allow new devices to be created.");
-	// getDeviceCommunication().deliverSystemCommand(hardwareId, command);
+	sendSystemCommand(hardwareId, command);
     }
 
     /**
@@ -205,7 +352,7 @@ public class DefaultRegistrationManager extends TenantEngineLifecycleComponent i
 	RegistrationFailureCommand command = new RegistrationFailureCommand();
 	command.setReason(RegistrationFailureReason.InvalidDeviceTypeToken);
 	command.setErrorMessage("Device type token passed in registration was invalid.");
-	// getDeviceCommunication().deliverSystemCommand(hardwareId, command);
+	sendSystemCommand(hardwareId, command);
     }
 
     /**
@@ -219,7 +366,7 @@ public class DefaultRegistrationManager extends TenantEngineLifecycleComponent i
 	RegistrationFailureCommand command = new RegistrationFailureCommand();
 	command.setReason(RegistrationFailureReason.SiteTokenRequired);
 	command.setErrorMessage("Automatic site assignment disabled. Site token required.");
-	// getDeviceCommunication().deliverSystemCommand(hardwareId, command);
+	sendSystemCommand(hardwareId, command);
     }
 
     /*
@@ -242,7 +389,7 @@ public class DefaultRegistrationManager extends TenantEngineLifecycleComponent i
 	} catch (SiteWhereException e) {
 	    command.setResult(DeviceMappingResult.MappingFailedDueToExisting);
 	}
-	// getDeviceCommunication().deliverSystemCommand(hardwareId, command);
+	sendSystemCommand(deviceToken, command);
     }
 
     /*
@@ -268,6 +415,46 @@ public class DefaultRegistrationManager extends TenantEngineLifecycleComponent i
 	    }
 	    this.autoAssignArea = area;
 	}
+	getDeviceCreateBatcher().start();
+	startParkedEventsSweeper();
+    }
+
+    /*
+     * @see
+     * com.sitewhere.server.lifecycle.LifecycleComponent#stop(com.sitewhere.spi.
+     * server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	stopParkedEventsSweeper();
+	getDeviceCreateBatcher().stop();
+    }
+
+    /**
+     * Start checking devices with parked events at the parking lot lookup
+     * interval.
+     */
+    protected void startParkedEventsSweeper() {
+	long interval = getParkingLot().getLookupIntervalMs();
+	parkedEventsSweeper = Executors.newSingleThreadScheduledExecutor(new ParkedEventsSweeperThreadFactory());
+	parkedEventsSweeper.scheduleWithFixedDelay(
+		new SystemUserRunnable(getTenantEngine().getMicroservice(), getTenantEngine().getTenant()) {
+
+		    @Override
+		    public void runAsSystemUser() throws SiteWhereException {
+			sweepParkedEvents();
+		    }
+		}, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop checking devices with parked events.
+     */
+    protected void stopParkedEventsSweeper() {
+	if (parkedEventsSweeper != null) {
+	    parkedEventsSweeper.shutdownNow();
+	    parkedEventsSweeper = null;
+	}
     }
 
     /*
@@ -335,4 +522,73 @@ public class DefaultRegistrationManager extends TenantEngineLifecycleComponent i
 	return ((IDeviceRegistrationMicroservice) getTenantEngine().getMicroservice()).getDeviceManagementApiDemux()
 		.getApiChannel();
     }
+
+    public RegistrationCoalescer getCoalescer() {
+	return coalescer;
+    }
+
+    public void setCoalescer(RegistrationCoalescer coalescer) {
+	this.coalescer = coalescer;
+    }
+
+    public DeviceCreateBatcher getDeviceCreateBatcher() {
+	return deviceCreateBatcher;
+    }
+
+    public void setDeviceCreateBatcher(DeviceCreateBatcher deviceCreateBatcher) {
+	this.deviceCreateBatcher = deviceCreateBatcher;
+    }
+
+    public UnregisteredEventParkingLot getParkingLot() {
+	return parkingLot;
+    }
+
+    public void setParkingLot(UnregisteredEventParkingLot parkingLot) {
+	this.parkingLot = parkingLot;
+    }
+
+    public long getUnregisteredEventRetentionMs() {
+	return getParkingLot().getRetentionMs();
+    }
+
+    public void setUnregisteredEventRetentionMs(long unregisteredEventRetentionMs) {
+	getParkingLot().setRetentionMs(unregisteredEventRetentionMs);
+    }
+
+    public int getMaxUnregisteredEventsPerDevice() {
+	return getParkingLot().getMaxEventsPerToken();
+    }
+
+    public void setMaxUnregisteredEventsPerDevice(int maxUnregisteredEventsPerDevice) {
+	getParkingLot().setMaxEventsPerToken(maxUnregisteredEventsPerDevice);
+    }
+
+    public int getMaxUnregisteredDevices() {
+	return getParkingLot().getMaxTokens();
+    }
+
+    public void setMaxUnregisteredDevices(int maxUnregisteredDevices) {
+	getParkingLot().setMaxTokens(maxUnregisteredDevices);
+    }
+
+    public int getMaxUnregisteredEvents() {
+	return getParkingLot().getMaxEvents();
+    }
+
+    public void setMaxUnregisteredEvents(int maxUnregisteredEvents) {
+	getParkingLot().setMaxEvents(maxUnregisteredEvents);
+    }
+
+    /** Used for naming parked events sweeper thread */
+    private class ParkedEventsSweeperThreadFactory implements ThreadFactory {
+
+	/** Counts threads */
+	private AtomicInteger counter = new AtomicInteger();
+
+	public Thread newThread(Runnable r) {
+	    Thread thread = new Thread(r, "Parked Events Sweeper " + counter.incrementAndGet());
+	    thread.setDaemon(true);
+	    return thread;
+	}
+    }
 }
\ No newline at end of file
@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.registration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.IDevice;
+import com.sitewhere.spi.device.request.IDeviceCreateRequest;
+
+/**
+ * Collects device create requests from concurrent registrations and sends them
+ * to device management in bulk. A batch is sent when it reaches the maximum
+ * size or when the oldest request has waited for the maximum delay.
+ *
+ * @author Derek
+ */
+public class DeviceCreateBatcher {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(DeviceCreateBatcher.class);
+
+    /** Default maximum number of devices created in one call */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 500;
+
+    /** Default time the first request in a batch waits for others */
+    public static final long DEFAULT_MAX_WAIT_MS = 20;
+
+    /** Default time a caller waits for its device to be created */
+    public static final long DEFAULT_TIMEOUT_MS = 30 * 1000;
+
+    /** Creates devices in bulk */
+    private IBulkDeviceCreator creator;
+
+    /** Requests waiting to be sent */
+    private BlockingQueue<PendingCreate> queue = new LinkedBlockingQueue<PendingCreate>();
+
+    /** Maximum number of devices created in one call */
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+    /** Time the first request in a batch waits for others */
+    private long maxWaitMs = DEFAULT_MAX_WAIT_MS;
+
+    /** Time a caller waits for its device to be created */
+    private long timeoutMs = DEFAULT_TIMEOUT_MS;
+
+    /** Executor for batch processing */
+    private ExecutorService executor;
+
+    /** Indicates if batches are being processed */
+    private volatile boolean running;
+
+    /** Number of batches sent */
+    private AtomicLong batchCount = new AtomicLong();
+
+    /** Number of devices requested */
+    private AtomicLong deviceCount = new AtomicLong();
+
+    public DeviceCreateBatcher(IBulkDeviceCreator creator) {
+	this.creator = creator;
+    }
+
+    /**
+     * Start processing batches.
+     */
+    public void start() {
+	running = true;
+	executor = Executors.newSingleThreadExecutor(new DeviceCreateBatcherThreadFactory());
+	executor.execute(new BatchProcessor());
+    }
+
+    /**
+     * Stop processing batches. Requests that have not been sent fail.
+     */
+    public void stop() {
+	running = false;
+	if (executor != null) {
+	    executor.shutdownNow();
+	    try {
+		executor.awaitTermination(5, TimeUnit.SECONDS);
+	    } catch (InterruptedException e) {
+		LOGGER.warn("Device create batcher did not terminate within allotted time.");
+	    }
+	}
+	List<PendingCreate> remaining = new ArrayList<PendingCreate>();
+	queue.drainTo(remaining);
+	fail(remaining, new SiteWhereException("Device create batcher stopped."));
+    }
+
+    /**
+     * Create a device as part of the next batch, blocking until the batch has been
+     * processed.
+     *
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public IDevice create(IDeviceCreateRequest request) throws SiteWhereException {
+	if (!running) {
+	    throw new SiteWhereException("Device create batcher is not running.");
+	}
+	PendingCreate pending = new PendingCreate(request);
+	queue.add(pending);
+	try {
+	    return pending.result.get(getTimeoutMs(), TimeUnit.MILLISECONDS);
+	} catch (ExecutionException e) {
+	    if (e.getCause() instanceof SiteWhereException) {
+		throw (SiteWhereException) e.getCause();
+	    }
+	    throw new SiteWhereException("Unable to create device.", e.getCause());
+	} catch (TimeoutException e) {
+	    throw new SiteWhereException("Timed out waiting for device to be created.");
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new SiteWhereException("Interrupted waiting for device to be created.");
+	}
+    }
+
+    /**
+     * Send a batch of requests and complete the waiting callers.
+     *
+     * @param batch
+     */
+    protected void flush(List<PendingCreate> batch) {
+	List<IDeviceCreateRequest> requests = new ArrayList<IDeviceCreateRequest>(batch.size());
+	for (PendingCreate pending : batch) {
+	    requests.add(pending.request);
+	}
+	batchCount.incrementAndGet();
+	deviceCount.addAndGet(batch.size());
+	try {
+	    List<IDevice> devices = creator.createDevices(requests);
+	    if (devices.size() != batch.size()) {
+		throw new SiteWhereException(
+			"Bulk device create returned " + devices.size() + " devices for " + batch.size() + " requests.");
+	    }
+	    for (int i = 0; i < batch.size(); i++) {
+		batch.get(i).result.complete(devices.get(i));
+	    }
+	} catch (Throwable t) {
+	    LOGGER.error("Unable to create batch of " + batch.size() + " devices.", t);
+	    fail(batch, t);
+	}
+    }
+
+    /**
+     * Fail all requests in a batch.
+     *
+     * @param batch
+     * @param t
+     */
+    protected void fail(List<PendingCreate> batch, Throwable t) {
+	for (PendingCreate pending : batch) {
+	    pending.result.completeExceptionally(t);
+	}
+    }
+
+    public long getBatchCount() {
+	return batchCount.get();
+    }
+
+    public long getDeviceCount() {
+	return deviceCount.get();
+    }
+
+    public int getMaxBatchSize() {
+	return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+	this.maxBatchSize = maxBatchSize;
+    }
+
+    public long getMaxWaitMs() {
+	return maxWaitMs;
+    }
+
+    public void setMaxWaitMs(long maxWaitMs) {
+	this.maxWaitMs = maxWaitMs;
+    }
+
+    public long getTimeoutMs() {
+	return timeoutMs;
+    }
+
+    public void setTimeoutMs(long timeoutMs) {
+	this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Creates devices in bulk.
+     *
+     * @author Derek
+     */
+    public static interface IBulkDeviceCreator {
+
+	/**
+	 * Create devices, returning them in the same order as the requests.
+	 *
+	 * @param requests
+	 * @return
+	 * @throws SiteWhereException
+	 */
+	public List<IDevice> createDevices(List<IDeviceCreateRequest> requests) throws SiteWhereException;
+    }
+
+    /**
+     * Create request waiting for its batch to be sent.
+     *
+     * @author Derek
+     */
+    private static class PendingCreate {
+
+	/** Create request */
+	private final IDeviceCreateRequest request;
+
+	/** Created device */
+	private final CompletableFuture<IDevice> result = new CompletableFuture<IDevice>();
+
+	public PendingCreate(IDeviceCreateRequest request) {
+	    this.request = request;
+	}
+    }
+
+    /**
+     * Pulls requests from the queue and sends them in batches.
+     *
+     * @author Derek
+     */
+    private class BatchProcessor implements Runnable {
+
+	/*
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+	    while (running) {
+		List<PendingCreate> batch = new ArrayList<PendingCreate>();
+		try {
+		    PendingCreate first = queue.poll(1, TimeUnit.SECONDS);
+		    if (first == null) {
+			continue;
+		    }
+		    batch.add(first);
+		    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(getMaxWaitMs());
+		    while (batch.size() < getMaxBatchSize()) {
+			queue.drainTo(batch, getMaxBatchSize() - batch.size());
+			long remaining = deadline - System.nanoTime();
+			if ((batch.size() >= getMaxBatchSize()) || (remaining <= 0)) {
+			    break;
+			}
+			PendingCreate next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+			if (next == null) {
+			    break;
+			}
+			batch.add(next);
+		    }
+		    flush(batch);
+		} catch (InterruptedException e) {
+		    fail(batch, new SiteWhereException("Device create batcher stopped."));
+		    return;
+		}
+	    }
+	}
+    }
+
+    /** Used for naming device create batcher thread */
+    private class DeviceCreateBatcherThreadFactory implements ThreadFactory {
+
+	/** Counts threads */
+	private AtomicInteger counter = new AtomicInteger();
+
+	public Thread newThread(Runnable r) {
+	    return new Thread(r, "Device Create Batcher " + counter.incrementAndGet());
+	}
+    }
+}
\ No newline at end of file
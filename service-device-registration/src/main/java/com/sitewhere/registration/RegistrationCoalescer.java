@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.registration;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Makes sure only one registration runs at a time for a given device token.
+ * Requests that arrive while a registration for the same token is in progress
+ * wait for it to finish and share its outcome rather than repeating the same
+ * lookups and writes.
+ *
+ * @author Derek
+ */
+public class RegistrationCoalescer {
+
+    /** Default time a duplicate request waits for the registration in progress */
+    public static final long DEFAULT_TIMEOUT_MS = 30 * 1000;
+
+    /** Registrations in progress by device token */
+    private Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<String, CompletableFuture<Void>>();
+
+    /** Time a duplicate request waits for the registration in progress */
+    private long timeoutMs;
+
+    /** Number of registrations executed */
+    private AtomicLong executedCount = new AtomicLong();
+
+    /** Number of requests that shared a registration in progress */
+    private AtomicLong coalescedCount = new AtomicLong();
+
+    public RegistrationCoalescer() {
+	this(DEFAULT_TIMEOUT_MS);
+    }
+
+    public RegistrationCoalescer(long timeoutMs) {
+	this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Execute a registration for a device token unless one is already in
+     * progress, in which case wait for it to complete.
+     *
+     * @param deviceToken
+     * @param operation
+     * @return true if the operation was executed, false if it was coalesced
+     * @throws SiteWhereException
+     */
+    public boolean execute(String deviceToken, IRegistrationOperation operation) throws SiteWhereException {
+	CompletableFuture<Void> pending = new CompletableFuture<Void>();
+	CompletableFuture<Void> existing = inFlight.putIfAbsent(deviceToken, pending);
+	if (existing != null) {
+	    coalescedCount.incrementAndGet();
+	    await(deviceToken, existing);
+	    return false;
+	}
+	executedCount.incrementAndGet();
+	try {
+	    operation.execute();
+	    pending.complete(null);
+	    return true;
+	} catch (SiteWhereException | RuntimeException e) {
+	    pending.completeExceptionally(e);
+	    throw e;
+	} finally {
+	    inFlight.remove(deviceToken, pending);
+	}
+    }
+
+    /**
+     * Wait for a registration in progress to complete.
+     *
+     * @param deviceToken
+     * @param existing
+     * @throws SiteWhereException
+     */
+    protected void await(String deviceToken, CompletableFuture<Void> existing) throws SiteWhereException {
+	try {
+	    existing.get(getTimeoutMs(), TimeUnit.MILLISECONDS);
+	} catch (ExecutionException e) {
+	    throw new SiteWhereException("Registration in progress for '" + deviceToken + "' failed.", e.getCause());
+	} catch (TimeoutException e) {
+	    throw new SiteWhereException("Timed out waiting for registration of '" + deviceToken + "'.");
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new SiteWhereException("Interrupted waiting for registration of '" + deviceToken + "'.");
+	}
+    }
+
+    public int getInFlightCount() {
+	return inFlight.size();
+    }
+
+    public long getExecutedCount() {
+	return executedCount.get();
+    }
+
+    public long getCoalescedCount() {
+	return coalescedCount.get();
+    }
+
+    public long getTimeoutMs() {
+	return timeoutMs;
+    }
+
+    public void setTimeoutMs(long timeoutMs) {
+	this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Registration logic executed for a device token.
+     *
+     * @author Derek
+     */
+    public static interface IRegistrationOperation {
+
+	/**
+	 * Execute the registration.
+	 *
+	 * @throws SiteWhereException
+	 */
+	public void execute() throws SiteWhereException;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,431 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.registration;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sitewhere.spi.microservice.kafka.payload.IInboundEventPayload;
+
+/**
+ * Holds events sent by devices that are not yet registered so that they can be
+ * replayed once registration completes. Events are kept per device token in
+ * the order they arrived. Each token keeps at most a fixed number of events
+ * (oldest are dropped first) and events older than the retention window are
+ * discarded. The number of tokens and the total number of events are also
+ * capped across all devices. When either cap is exceeded, the token that was
+ * parked longest ago is evicted along with all of its events.
+ *
+ * Registration checks for a token back off exponentially from the lookup
+ * interval up to the maximum lookup interval, so devices that stay
+ * unregistered are looked up less and less often.
+ *
+ * Parked events are held in memory only. They are lost if the microservice
+ * restarts or the tenant engine is stopped, since the unregistered events
+ * consumer does not hold back its Kafka offsets for them. Events are also not
+ * shared between instances, so each instance replays only the events it
+ * consumed itself.
+ *
+ * @author Derek
+ */
+public class UnregisteredEventParkingLot {
+
+    /** Default time parked events are retained */
+    public static final long DEFAULT_RETENTION_MS = 10 * 60 * 1000;
+
+    /** Default maximum number of events parked per device token */
+    public static final int DEFAULT_MAX_EVENTS_PER_TOKEN = 100;
+
+    /** Default maximum number of device tokens with parked events */
+    public static final int DEFAULT_MAX_TOKENS = 10000;
+
+    /** Default maximum number of events parked across all device tokens */
+    public static final int DEFAULT_MAX_EVENTS = 100000;
+
+    /** Default time between registration checks for a device token */
+    public static final long DEFAULT_LOOKUP_INTERVAL_MS = 5 * 1000;
+
+    /** Default upper bound for backed off registration checks */
+    public static final long DEFAULT_MAX_LOOKUP_INTERVAL_MS = 2 * 60 * 1000;
+
+    /** Parked events by device token */
+    private Map<String, ParkedEvents> parkedByToken = new ConcurrentHashMap<String, ParkedEvents>();
+
+    /** Parked events in the order their tokens were first parked */
+    private Queue<ParkedEvents> tokensByAge = new ConcurrentLinkedQueue<ParkedEvents>();
+
+    /** Number of events currently parked across all tokens */
+    private AtomicInteger eventCount = new AtomicInteger();
+
+    /** Time parked events are retained */
+    private long retentionMs = DEFAULT_RETENTION_MS;
+
+    /** Maximum number of events parked per device token */
+    private int maxEventsPerToken = DEFAULT_MAX_EVENTS_PER_TOKEN;
+
+    /** Maximum number of device tokens with parked events */
+    private int maxTokens = DEFAULT_MAX_TOKENS;
+
+    /** Maximum number of events parked across all device tokens */
+    private int maxEvents = DEFAULT_MAX_EVENTS;
+
+    /** Time between registration checks for a device token */
+    private long lookupIntervalMs = DEFAULT_LOOKUP_INTERVAL_MS;
+
+    /** Upper bound for backed off registration checks */
+    private long maxLookupIntervalMs = DEFAULT_MAX_LOOKUP_INTERVAL_MS;
+
+    /** Time of last purge of expired events */
+    private volatile long lastPurge = System.currentTimeMillis();
+
+    /** Number of events parked */
+    private AtomicLong parkedCount = new AtomicLong();
+
+    /** Number of events dropped because a token was over its limit */
+    private AtomicLong droppedCount = new AtomicLong();
+
+    /** Number of events discarded after the retention window */
+    private AtomicLong expiredCount = new AtomicLong();
+
+    /** Number of tokens evicted because a global cap was exceeded */
+    private AtomicLong evictedTokenCount = new AtomicLong();
+
+    /** Number of events evicted with their tokens */
+    private AtomicLong evictedEventCount = new AtomicLong();
+
+    /**
+     * Park an event for a device that is not registered.
+     *
+     * @param payload
+     * @return true if the caller should check whether the device has been
+     *         registered since the last check
+     */
+    public boolean park(IInboundEventPayload payload) {
+	long now = System.currentTimeMillis();
+	purgeIfDue(now);
+	boolean check;
+	while (true) {
+	    ParkedEvents parked = parkedByToken.computeIfAbsent(payload.getDeviceToken(), token -> {
+		ParkedEvents created = new ParkedEvents(token);
+		tokensByAge.add(created);
+		return created;
+	    });
+	    synchronized (parked) {
+		// Token was drained, purged or evicted after lookup.
+		if (parked.closed) {
+		    continue;
+		}
+		parked.expire(now - getRetentionMs());
+		while (parked.events.size() >= getMaxEventsPerToken()) {
+		    parked.events.removeFirst();
+		    eventCount.decrementAndGet();
+		    droppedCount.incrementAndGet();
+		}
+		parked.events.addLast(new ParkedEvent(payload, now));
+		eventCount.incrementAndGet();
+		parkedCount.incrementAndGet();
+		check = parked.checkLookupDue(now);
+		break;
+	    }
+	}
+
+	// Evict outside of token lock since other tokens are locked.
+	evictIfOverLimits();
+	return check;
+    }
+
+    /**
+     * Evict tokens in the order they were first parked until both the token
+     * and event caps are satisfied.
+     */
+    protected void evictIfOverLimits() {
+	while ((parkedByToken.size() > getMaxTokens()) || (eventCount.get() > getMaxEvents())) {
+	    ParkedEvents oldest = tokensByAge.poll();
+	    if (oldest == null) {
+		return;
+	    }
+	    synchronized (oldest) {
+		if (oldest.closed) {
+		    continue;
+		}
+		oldest.closed = true;
+		parkedByToken.remove(oldest.token, oldest);
+		evictedEventCount.addAndGet(oldest.events.size());
+		oldest.clear();
+	    }
+	    evictedTokenCount.incrementAndGet();
+	}
+    }
+
+    /**
+     * Remove and return all unexpired events parked for a device token in the
+     * order they were parked.
+     *
+     * @param deviceToken
+     * @return
+     */
+    public List<IInboundEventPayload> drain(String deviceToken) {
+	ParkedEvents parked = parkedByToken.remove(deviceToken);
+	if (parked == null) {
+	    return Collections.emptyList();
+	}
+	synchronized (parked) {
+	    parked.closed = true;
+	    parked.expire(System.currentTimeMillis() - getRetentionMs());
+	    List<IInboundEventPayload> payloads = new ArrayList<IInboundEventPayload>(parked.events.size());
+	    for (ParkedEvent event : parked.events) {
+		payloads.add(event.payload);
+	    }
+	    parked.clear();
+	    return payloads;
+	}
+    }
+
+    /**
+     * Get device tokens whose registration has not been checked within their
+     * current (backed off) lookup interval. Returned tokens are marked as
+     * checked, so callers are expected to look them up.
+     *
+     * @return
+     */
+    public List<String> getTokensDueForLookup() {
+	long now = System.currentTimeMillis();
+	List<String> due = new ArrayList<String>();
+	for (Map.Entry<String, ParkedEvents> entry : parkedByToken.entrySet()) {
+	    ParkedEvents parked = entry.getValue();
+	    synchronized (parked) {
+		if ((!parked.closed) && (parked.checkLookupDue(now))) {
+		    due.add(entry.getKey());
+		}
+	    }
+	}
+	return due;
+    }
+
+    /**
+     * Discard events older than the retention window and remove empty tokens.
+     */
+    public void purgeExpired() {
+	long now = System.currentTimeMillis();
+	lastPurge = now;
+	long cutoff = now - getRetentionMs();
+	Iterator<Map.Entry<String, ParkedEvents>> it = parkedByToken.entrySet().iterator();
+	while (it.hasNext()) {
+	    Map.Entry<String, ParkedEvents> entry = it.next();
+	    ParkedEvents parked = entry.getValue();
+	    synchronized (parked) {
+		parked.expire(cutoff);
+		if (parked.events.isEmpty()) {
+		    parked.closed = true;
+		    parkedByToken.remove(entry.getKey(), parked);
+		}
+	    }
+	}
+
+	// Drop age entries for tokens that were drained or purged.
+	tokensByAge.removeIf(parked -> parked.closed);
+    }
+
+    /**
+     * Purge expired events if a tenth of the retention window has passed since
+     * the last purge.
+     *
+     * @param now
+     */
+    protected void purgeIfDue(long now) {
+	if (now - lastPurge >= getRetentionMs() / 10) {
+	    purgeExpired();
+	}
+    }
+
+    /**
+     * Get number of events currently parked for a device token.
+     *
+     * @param deviceToken
+     * @return
+     */
+    public int getParkedCount(String deviceToken) {
+	ParkedEvents parked = parkedByToken.get(deviceToken);
+	if (parked == null) {
+	    return 0;
+	}
+	synchronized (parked) {
+	    return parked.events.size();
+	}
+    }
+
+    public int getTokenCount() {
+	return parkedByToken.size();
+    }
+
+    public long getParkedCount() {
+	return parkedCount.get();
+    }
+
+    public long getDroppedCount() {
+	return droppedCount.get();
+    }
+
+    public int getEventCount() {
+	return eventCount.get();
+    }
+
+    public long getExpiredCount() {
+	return expiredCount.get();
+    }
+
+    public long getEvictedTokenCount() {
+	return evictedTokenCount.get();
+    }
+
+    public long getEvictedEventCount() {
+	return evictedEventCount.get();
+    }
+
+    public long getRetentionMs() {
+	return retentionMs;
+    }
+
+    public void setRetentionMs(long retentionMs) {
+	this.retentionMs = retentionMs;
+    }
+
+    public int getMaxEventsPerToken() {
+	return maxEventsPerToken;
+    }
+
+    public void setMaxEventsPerToken(int maxEventsPerToken) {
+	this.maxEventsPerToken = maxEventsPerToken;
+    }
+
+    public long getLookupIntervalMs() {
+	return lookupIntervalMs;
+    }
+
+    public void setLookupIntervalMs(long lookupIntervalMs) {
+	this.lookupIntervalMs = lookupIntervalMs;
+    }
+
+    public long getMaxLookupIntervalMs() {
+	return maxLookupIntervalMs;
+    }
+
+    public void setMaxLookupIntervalMs(long maxLookupIntervalMs) {
+	this.maxLookupIntervalMs = maxLookupIntervalMs;
+    }
+
+    public int getMaxTokens() {
+	return maxTokens;
+    }
+
+    public void setMaxTokens(int maxTokens) {
+	this.maxTokens = maxTokens;
+    }
+
+    public int getMaxEvents() {
+	return maxEvents;
+    }
+
+    public void setMaxEvents(int maxEvents) {
+	this.maxEvents = maxEvents;
+    }
+
+    /**
+     * Events parked for a single device token.
+     *
+     * @author Derek
+     */
+    private class ParkedEvents {
+
+	/** Device token */
+	private final String token;
+
+	/** Events in order parked */
+	private Deque<ParkedEvent> events = new ArrayDeque<ParkedEvent>();
+
+	/** Time of last registration check */
+	private long lastLookup = Long.MIN_VALUE / 2;
+
+	/** Time to wait after last registration check before the next one */
+	private long lookupDelay;
+
+	/** Indicates events were drained, purged or evicted */
+	private volatile boolean closed;
+
+	public ParkedEvents(String token) {
+	    this.token = token;
+	}
+
+	/**
+	 * Check whether a registration check is due. If so, the check is recorded
+	 * and the delay before the next one is doubled up to the maximum.
+	 *
+	 * @param now
+	 * @return
+	 */
+	private boolean checkLookupDue(long now) {
+	    if (now - lastLookup < lookupDelay) {
+		return false;
+	    }
+	    lastLookup = now;
+	    lookupDelay = (lookupDelay == 0) ? getLookupIntervalMs()
+		    : Math.min(lookupDelay * 2, Math.max(getLookupIntervalMs(), getMaxLookupIntervalMs()));
+	    return true;
+	}
+
+	/**
+	 * Remove all events.
+	 */
+	private void clear() {
+	    eventCount.addAndGet(-events.size());
+	    events.clear();
+	}
+
+	/**
+	 * Remove events parked before the cutoff.
+	 *
+	 * @param cutoff
+	 */
+	private void expire(long cutoff) {
+	    while ((!events.isEmpty()) && (events.peekFirst().parked < cutoff)) {
+		events.removeFirst();
+		eventCount.decrementAndGet();
+		expiredCount.incrementAndGet();
+	    }
+	}
+    }
+
+    /**
+     * Event with time it was parked.
+     *
+     * @author Derek
+     */
+    private static class ParkedEvent {
+
+	/** Event payload */
+	private final IInboundEventPayload payload;
+
+	/** Time event was parked */
+	private final long parked;
+
+	public ParkedEvent(IInboundEventPayload payload, long parked) {
+	    this.payload = payload;
+	    this.parked = parked;
+	}
+    }
+}
\ No newline at end of file
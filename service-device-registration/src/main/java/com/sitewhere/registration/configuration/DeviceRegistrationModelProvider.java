@@ -99,6 +99,27 @@ public class DeviceRegistrationModelProvider extends ConfigurationModelProvider
 		.description("Site token used for registering new devices if auto-assign is enabled "
 			+ "and no site token is passed.")
 		.build()));
+	builder.attribute((new AttributeNode.Builder("Unregistered event retention (ms)", "unregisteredEventRetentionMs",
+		AttributeType.Integer)
+			.description("Time events sent by unregistered devices are held for replay after the device "
+				+ "is registered. Events are held in memory and are lost if the microservice "
+				+ "restarts.")
+			.defaultValue("600000").build()));
+	builder.attribute((new AttributeNode.Builder("Max unregistered events per device",
+		"maxUnregisteredEventsPerDevice", AttributeType.Integer)
+			.description("Maximum number of events held for each unregistered device. Oldest events "
+				+ "are dropped first.")
+			.defaultValue("100").build()));
+	builder.attribute((new AttributeNode.Builder("Max unregistered devices", "maxUnregisteredDevices",
+		AttributeType.Integer)
+			.description("Maximum number of unregistered devices with held events. When exceeded, "
+				+ "events for the device held longest are evicted.")
+			.defaultValue("10000").build()));
+	builder.attribute((new AttributeNode.Builder("Max unregistered events", "maxUnregisteredEvents",
+		AttributeType.Integer)
+			.description("Maximum number of events held across all unregistered devices. When "
+				+ "exceeded, events for the device held longest are evicted.")
+			.defaultValue("100000").build()));
 	return builder.build();
     }
 }
\ No newline at end of file
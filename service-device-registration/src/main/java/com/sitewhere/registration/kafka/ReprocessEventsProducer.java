@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.registration.kafka;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.sitewhere.microservice.kafka.MicroserviceKafkaProducer;
+import com.sitewhere.registration.spi.kafka.IReprocessEventsProducer;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.IMicroservice;
+
+/**
+ * Kafka producer that sends events parked for unregistered devices back to the
+ * reprocess topic once the device has been registered.
+ * 
+ * @author Derek
+ */
+public class ReprocessEventsProducer extends MicroserviceKafkaProducer implements IReprocessEventsProducer {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(ReprocessEventsProducer.class);
+
+    public ReprocessEventsProducer(IMicroservice microservice) {
+	super(microservice);
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaProducer#
+     * getTargetTopicName()
+     */
+    @Override
+    public String getTargetTopicName() throws SiteWhereException {
+	return getMicroservice().getKafkaTopicNaming().getInboundReprocessEventsTopic(getTenantEngine().getTenant());
+    }
+
+    /*
+     * @see com.sitewhere.spi.server.lifecycle.ILifecycleComponent#getLogger()
+     */
+    @Override
+    public Log getLogger() {
+	return LOGGER;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.registration.kafka;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.sitewhere.microservice.kafka.MicroserviceKafkaProducer;
+import com.sitewhere.registration.spi.kafka.ISystemCommandsProducer;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.IMicroservice;
+
+/**
+ * Kafka producer that sends system commands (registration acks, etc.) to a
+ * topic for delivery to devices.
+ * 
+ * @author Derek
+ */
+public class SystemCommandsProducer extends MicroserviceKafkaProducer implements ISystemCommandsProducer {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(SystemCommandsProducer.class);
+
+    public SystemCommandsProducer(IMicroservice microservice) {
+	super(microservice);
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaProducer#
+     * getTargetTopicName()
+     */
+    @Override
+    public String getTargetTopicName() throws SiteWhereException {
+	return getMicroservice().getKafkaTopicNaming().getOutboundSystemCommandsTopic(getTenantEngine().getTenant());
+    }
+
+    /*
+     * @see com.sitewhere.spi.server.lifecycle.ILifecycleComponent#getLogger()
+     */
+    @Override
+    public Log getLogger() {
+	return LOGGER;
+    }
+}
\ No newline at end of file
@@ -26,10 +26,16 @@ import com.sitewhere.grpc.model.marshaler.KafkaModelMarshaler;
 import com.sitewhere.microservice.kafka.MicroserviceKafkaConsumer;
 import com.sitewhere.microservice.security.SystemUserRunnable;
 import com.sitewhere.registration.microservice.DeviceRegistrationTenantEngine;
+import com.sitewhere.registration.spi.IRegistrationManager;
 import com.sitewhere.registration.spi.kafka.IUnregisteredEventsConsumer;
 import com.sitewhere.registration.spi.microservice.IDeviceRegistrationTenantEngine;
+import com.sitewhere.rest.model.device.event.request.DeviceRegistrationRequest;
 import com.sitewhere.rest.model.microservice.kafka.payload.InboundEventPayload;
 import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.event.request.IDeviceRegistrationRequest;
+import com.sitewhere.spi.device.event.request.IDeviceStateChangeCreateRequest;
+import com.sitewhere.spi.device.event.state.StateChangeCategory;
+import com.sitewhere.spi.device.event.state.StateChangeType;
 import com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine;
 import com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor;
 
@@ -53,8 +59,11 @@ public class UnregisteredEventsConsumer extends MicroserviceKafkaConsumer implem
     /** Number of threads processing unregistered events */
     private static final int CONCURRENT_EVENT_PROCESSING_THREADS = 10;
 
-    /** Executor */
-    private ExecutorService executor;
+    /**
+     * Single-threaded executors. Events are partitioned by device token so that
+     * events for a device are handled in the order they were received.
+     */
+    private ExecutorService[] executors;
 
     public UnregisteredEventsConsumer(DeviceRegistrationTenantEngine tenantEngine) {
 	super(tenantEngine.getMicroservice(), tenantEngine);
@@ -99,8 +108,11 @@ public class UnregisteredEventsConsumer extends MicroserviceKafkaConsumer implem
     @Override
     public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	super.start(monitor);
-	executor = Executors.newFixedThreadPool(CONCURRENT_EVENT_PROCESSING_THREADS,
-		new UnregisteredEventProcessorThreadFactory());
+	ThreadFactory threadFactory = new UnregisteredEventProcessorThreadFactory();
+	executors = new ExecutorService[CONCURRENT_EVENT_PROCESSING_THREADS];
+	for (int i = 0; i < executors.length; i++) {
+	    executors[i] = Executors.newSingleThreadExecutor(threadFactory);
+	}
     }
 
     /*
@@ -112,10 +124,19 @@ public class UnregisteredEventsConsumer extends MicroserviceKafkaConsumer implem
     @Override
     public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	super.stop(monitor);
-	if (executor != null) {
-	    executor.shutdown();
+	if (executors != null) {
+	    for (ExecutorService executor : executors) {
+		executor.shutdown();
+	    }
 	    try {
-		executor.awaitTermination(10, TimeUnit.SECONDS);
+		long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+		for (ExecutorService executor : executors) {
+		    long remaining = Math.max(0, deadline - System.currentTimeMillis());
+		    if (!executor.awaitTermination(remaining, TimeUnit.MILLISECONDS)) {
+			getLogger().warn("Executor did not terminate within allotted time.");
+			break;
+		    }
+		}
 	    } catch (InterruptedException e) {
 		getLogger().warn("Executor did not terminate within allotted time.");
 	    }
@@ -129,7 +150,19 @@ public class UnregisteredEventsConsumer extends MicroserviceKafkaConsumer implem
      */
     @Override
     public void received(String key, byte[] message) throws SiteWhereException {
-	executor.execute(new UnregisteredDeviceEventProcessor(getTenantEngine(), message));
+	getExecutorFor(key).execute(new UnregisteredDeviceEventProcessor(getTenantEngine(), message));
+    }
+
+    /**
+     * Get executor for a record key. Records are keyed by device token, so all
+     * events for a device are handled by the same thread.
+     * 
+     * @param key
+     * @return
+     */
+    protected ExecutorService getExecutorFor(String key) {
+	int index = (key != null) ? Math.floorMod(key.hashCode(), executors.length) : 0;
+	return executors[index];
     }
 
     /*
@@ -171,14 +204,50 @@ public class UnregisteredEventsConsumer extends MicroserviceKafkaConsumer implem
 		}
 
 		// Pass payload to registration manager.
-		((IDeviceRegistrationTenantEngine) getTenantEngine()).getRegistrationManager()
-			.handleUnregisteredDeviceEvent(eventPayload);
+		IRegistrationManager manager = ((IDeviceRegistrationTenantEngine) getTenantEngine())
+			.getRegistrationManager();
+		IDeviceRegistrationRequest registration = asRegistrationRequest(eventPayload);
+		if (registration != null) {
+		    manager.handleDeviceRegistration(registration);
+		} else {
+		    manager.handleUnregisteredDeviceEvent(eventPayload);
+		}
 	    } catch (SiteWhereException e) {
 		getLogger().error("Unable to parse unregistered device event payload.", e);
 	    } catch (Throwable e) {
 		getLogger().error("Unhandled exception parsing unregistered device event payload.", e);
 	    }
 	}
+
+	/**
+	 * Get registration request carried by the payload. Registration requests
+	 * arrive as state changes in the registration category.
+	 * 
+	 * @param payload
+	 * @return registration request or null if payload holds another event
+	 */
+	protected IDeviceRegistrationRequest asRegistrationRequest(InboundEventPayload payload) {
+	    if (!(payload.getEventCreateRequest() instanceof IDeviceStateChangeCreateRequest)) {
+		return null;
+	    }
+	    IDeviceStateChangeCreateRequest stateChange = (IDeviceStateChangeCreateRequest) payload
+		    .getEventCreateRequest();
+	    if ((stateChange.getCategory() != StateChangeCategory.Registration)
+		    || (stateChange.getType() != StateChangeType.Registration_Requested)) {
+		return null;
+	    }
+	    DeviceRegistrationRequest registration = new DeviceRegistrationRequest();
+	    if (stateChange.getData() != null) {
+		registration.getData().putAll(stateChange.getData());
+	    }
+	    if (registration.getDeviceToken() == null) {
+		registration.setDeviceToken(payload.getDeviceToken());
+	    }
+	    registration.setAlternateId(stateChange.getAlternateId());
+	    registration.setEventDate(stateChange.getEventDate());
+	    registration.setMetadata(stateChange.getMetadata());
+	    return registration;
+	}
     }
 
     /** Used for naming inbound event processing threads */
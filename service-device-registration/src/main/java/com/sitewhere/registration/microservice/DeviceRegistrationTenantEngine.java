@@ -11,8 +11,12 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.sitewhere.microservice.multitenant.MicroserviceTenantEngine;
+import com.sitewhere.registration.kafka.ReprocessEventsProducer;
+import com.sitewhere.registration.kafka.SystemCommandsProducer;
 import com.sitewhere.registration.kafka.UnregisteredEventsConsumer;
 import com.sitewhere.registration.spi.IRegistrationManager;
+import com.sitewhere.registration.spi.kafka.IReprocessEventsProducer;
+import com.sitewhere.registration.spi.kafka.ISystemCommandsProducer;
 import com.sitewhere.registration.spi.kafka.IUnregisteredEventsConsumer;
 import com.sitewhere.registration.spi.microservice.IDeviceRegistrationTenantEngine;
 import com.sitewhere.server.lifecycle.CompositeLifecycleStep;
@@ -40,6 +44,12 @@ public class DeviceRegistrationTenantEngine extends MicroserviceTenantEngine
     /** Kafka consumer for unregistered device events */
     private IUnregisteredEventsConsumer unregisteredEventsConsumer;
 
+    /** Kafka producer for system commands sent to devices */
+    private ISystemCommandsProducer systemCommandsProducer;
+
+    /** Kafka producer for replaying events of newly registered devices */
+    private IReprocessEventsProducer reprocessEventsProducer;
+
     /** Device registration manager */
     private IRegistrationManager registrationManager;
 
@@ -55,10 +65,24 @@ public class DeviceRegistrationTenantEngine extends MicroserviceTenantEngine
     @Override
     public void tenantInitialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	this.unregisteredEventsConsumer = new UnregisteredEventsConsumer(this);
+	this.systemCommandsProducer = new SystemCommandsProducer(getMicroservice());
+	this.reprocessEventsProducer = new ReprocessEventsProducer(getMicroservice());
 
 	// Load configured registration manager.
 	this.registrationManager = (IRegistrationManager) getModuleContext()
 		.getBean(DeviceRegistrationBeans.BEAN_REGISTRATION_MANAGER);
+
+	// Create step that will initialize components.
+	ICompositeLifecycleStep init = new CompositeLifecycleStep("Initialize " + getComponentName());
+
+	// Initialize system commands producer.
+	init.addInitializeStep(this, getSystemCommandsProducer(), true);
+
+	// Initialize reprocess events producer.
+	init.addInitializeStep(this, getReprocessEventsProducer(), true);
+
+	// Execute initialization steps.
+	init.execute(monitor);
     }
 
     /*
@@ -70,6 +94,12 @@ public class DeviceRegistrationTenantEngine extends MicroserviceTenantEngine
 	// Create step that will start components.
 	ICompositeLifecycleStep start = new CompositeLifecycleStep("Start " + getComponentName());
 
+	// Start system commands producer.
+	start.addStartStep(this, getSystemCommandsProducer(), true);
+
+	// Start reprocess events producer.
+	start.addStartStep(this, getReprocessEventsProducer(), true);
+
 	// Start unregistered events consumer.
 	start.addStartStep(this, getUnregisteredEventsConsumer(), true);
 
@@ -104,6 +134,12 @@ public class DeviceRegistrationTenantEngine extends MicroserviceTenantEngine
 	// Stop registration manager.
 	stop.addStopStep(this, getRegistrationManager());
 
+	// Stop reprocess events producer.
+	stop.addStopStep(this, getReprocessEventsProducer());
+
+	// Stop system commands producer.
+	stop.addStopStep(this, getSystemCommandsProducer());
+
 	// Execute shutdown steps.
 	stop.execute(monitor);
     }
@@ -122,6 +158,34 @@ public class DeviceRegistrationTenantEngine extends MicroserviceTenantEngine
 	this.unregisteredEventsConsumer = unregisteredEventsConsumer;
     }
 
+    /*
+     * @see
+     * com.sitewhere.registration.spi.microservice.IDeviceRegistrationTenantEngine#
+     * getSystemCommandsProducer()
+     */
+    @Override
+    public ISystemCommandsProducer getSystemCommandsProducer() {
+	return systemCommandsProducer;
+    }
+
+    public void setSystemCommandsProducer(ISystemCommandsProducer systemCommandsProducer) {
+	this.systemCommandsProducer = systemCommandsProducer;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.registration.spi.microservice.IDeviceRegistrationTenantEngine#
+     * getReprocessEventsProducer()
+     */
+    @Override
+    public IReprocessEventsProducer getReprocessEventsProducer() {
+	return reprocessEventsProducer;
+    }
+
+    public void setReprocessEventsProducer(IReprocessEventsProducer reprocessEventsProducer) {
+	this.reprocessEventsProducer = reprocessEventsProducer;
+    }
+
     /*
      * @see
      * com.sitewhere.registration.spi.microservice.IDeviceRegistrationTenantEngine#
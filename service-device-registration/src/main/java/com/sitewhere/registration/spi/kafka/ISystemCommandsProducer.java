@@ -0,0 +1,19 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.registration.spi.kafka;
+
+import com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaProducer;
+
+/**
+ * Kafka producer that sends system commands (registration acks, etc.) to a
+ * topic for delivery to devices.
+ * 
+ * @author Derek
+ */
+public interface ISystemCommandsProducer extends IMicroserviceKafkaProducer {
+}
\ No newline at end of file
@@ -87,6 +87,26 @@ public class DeviceRegistrationParser extends AbstractBeanDefinitionParser {
 	    manager.addPropertyValue("autoAssignToken", autoAssignToken.getValue());
 	}
 
+	Attr unregisteredEventRetentionMs = element.getAttributeNode("unregisteredEventRetentionMs");
+	if (unregisteredEventRetentionMs != null) {
+	    manager.addPropertyValue("unregisteredEventRetentionMs", unregisteredEventRetentionMs.getValue());
+	}
+
+	Attr maxUnregisteredEventsPerDevice = element.getAttributeNode("maxUnregisteredEventsPerDevice");
+	if (maxUnregisteredEventsPerDevice != null) {
+	    manager.addPropertyValue("maxUnregisteredEventsPerDevice", maxUnregisteredEventsPerDevice.getValue());
+	}
+
+	Attr maxUnregisteredDevices = element.getAttributeNode("maxUnregisteredDevices");
+	if (maxUnregisteredDevices != null) {
+	    manager.addPropertyValue("maxUnregisteredDevices", maxUnregisteredDevices.getValue());
+	}
+
+	Attr maxUnregisteredEvents = element.getAttributeNode("maxUnregisteredEvents");
+	if (maxUnregisteredEvents != null) {
+	    manager.addPropertyValue("maxUnregisteredEvents", maxUnregisteredEvents.getValue());
+	}
+
 	context.getRegistry().registerBeanDefinition(DeviceRegistrationBeans.BEAN_REGISTRATION_MANAGER,
 		manager.getBeanDefinition());
     }
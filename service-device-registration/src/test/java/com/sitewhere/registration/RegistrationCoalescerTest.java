@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.registration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.sitewhere.rest.model.device.Device;
+import com.sitewhere.rest.model.device.request.DeviceCreateRequest;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.IDevice;
+import com.sitewhere.spi.device.request.IDeviceCreateRequest;
+
+public class RegistrationCoalescerTest {
+
+    /** Number of registration requests */
+    private static final int REGISTRATIONS = 100000;
+
+    /** Number of distinct device tokens */
+    private static final int TOKENS = 10000;
+
+    /** Devices created by the fake bulk creator */
+    private Map<String, IDevice> created = new ConcurrentHashMap<String, IDevice>();
+
+    /** Number of times each token was created */
+    private Map<String, AtomicInteger> createCounts = new ConcurrentHashMap<String, AtomicInteger>();
+
+    @Test
+    public void testDuplicateRegistrationsCreateOnce() throws Exception {
+	RegistrationCoalescer coalescer = new RegistrationCoalescer();
+	DeviceCreateBatcher batcher = new DeviceCreateBatcher(this::createDevices);
+	batcher.start();
+
+	AtomicInteger failures = new AtomicInteger();
+	CountDownLatch completed = new CountDownLatch(REGISTRATIONS);
+	ExecutorService executor = Executors.newFixedThreadPool(200);
+	try {
+	    for (int i = 0; i < REGISTRATIONS; i++) {
+		String token = "device-" + (i % TOKENS);
+		executor.execute(() -> {
+		    try {
+			coalescer.execute(token, () -> register(batcher, token));
+		    } catch (SiteWhereException e) {
+			failures.incrementAndGet();
+		    } finally {
+			completed.countDown();
+		    }
+		});
+	    }
+	    assertTrue("Only " + (REGISTRATIONS - completed.getCount()) + " registrations completed.",
+		    completed.await(60, TimeUnit.SECONDS));
+	} finally {
+	    executor.shutdownNow();
+	    batcher.stop();
+	}
+
+	assertEquals(0, failures.get());
+	assertEquals(TOKENS, created.size());
+	for (AtomicInteger count : createCounts.values()) {
+	    assertEquals(1, count.get());
+	}
+	assertEquals(TOKENS, batcher.getDeviceCount());
+	assertTrue(batcher.getBatchCount() < TOKENS / 10);
+    }
+
+    /**
+     * Register a device, creating it through the batcher if not found.
+     * 
+     * @param batcher
+     * @param token
+     * @throws SiteWhereException
+     */
+    protected void register(DeviceCreateBatcher batcher, String token) throws SiteWhereException {
+	if (created.get(token) != null) {
+	    return;
+	}
+	DeviceCreateRequest request = new DeviceCreateRequest();
+	request.setToken(token);
+	batcher.create(request);
+    }
+
+    /**
+     * Fake bulk device creator.
+     * 
+     * @param requests
+     * @return
+     * @throws SiteWhereException
+     */
+    protected List<IDevice> createDevices(List<IDeviceCreateRequest> requests) throws SiteWhereException {
+	List<IDevice> devices = new ArrayList<IDevice>();
+	for (IDeviceCreateRequest request : requests) {
+	    createCounts.computeIfAbsent(request.getToken(), token -> new AtomicInteger()).incrementAndGet();
+	    Device device = new Device();
+	    device.setId(UUID.randomUUID());
+	    device.setToken(request.getToken());
+	    created.put(request.getToken(), device);
+	    devices.add(device);
+	}
+	return devices;
+    }
+}
\ No newline at end of file
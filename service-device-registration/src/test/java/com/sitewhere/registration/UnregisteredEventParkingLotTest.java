@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.registration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.sitewhere.rest.model.microservice.kafka.payload.InboundEventPayload;
+import com.sitewhere.spi.microservice.kafka.payload.IInboundEventPayload;
+
+public class UnregisteredEventParkingLotTest {
+
+    @Test
+    public void testParkedEventsDrainInOrder() {
+	UnregisteredEventParkingLot lot = new UnregisteredEventParkingLot();
+	for (int i = 0; i < 50; i++) {
+	    lot.park(createPayload("device-a", "a-" + i));
+	    lot.park(createPayload("device-b", "b-" + i));
+	}
+	List<IInboundEventPayload> drained = lot.drain("device-a");
+	assertEquals(50, drained.size());
+	for (int i = 0; i < 50; i++) {
+	    assertEquals("a-" + i, drained.get(i).getSourceId());
+	}
+	assertEquals(0, lot.drain("device-a").size());
+	assertEquals(50, lot.getParkedCount("device-b"));
+    }
+
+    @Test
+    public void testOldestDroppedOverLimit() {
+	UnregisteredEventParkingLot lot = new UnregisteredEventParkingLot();
+	lot.setMaxEventsPerToken(10);
+	for (int i = 0; i < 25; i++) {
+	    lot.park(createPayload("device", "e-" + i));
+	}
+	List<IInboundEventPayload> drained = lot.drain("device");
+	assertEquals(10, drained.size());
+	assertEquals("e-15", drained.get(0).getSourceId());
+	assertEquals("e-24", drained.get(9).getSourceId());
+	assertEquals(15, lot.getDroppedCount());
+    }
+
+    @Test
+    public void testExpiredEventsDiscarded() throws InterruptedException {
+	UnregisteredEventParkingLot lot = new UnregisteredEventParkingLot();
+	lot.setRetentionMs(50);
+	lot.park(createPayload("device", "old"));
+	Thread.sleep(100);
+	lot.park(createPayload("device", "new"));
+	List<IInboundEventPayload> drained = lot.drain("device");
+	assertEquals(1, drained.size());
+	assertEquals("new", drained.get(0).getSourceId());
+	assertEquals(1, lot.getExpiredCount());
+    }
+
+    @Test
+    public void testRegistrationCheckThrottled() {
+	UnregisteredEventParkingLot lot = new UnregisteredEventParkingLot();
+	assertTrue(lot.park(createPayload("device", "first")));
+	for (int i = 0; i < 100; i++) {
+	    assertFalse(lot.park(createPayload("device", "next-" + i)));
+	}
+    }
+
+    @Test
+    public void testTokensDueForLookup() throws InterruptedException {
+	UnregisteredEventParkingLot lot = new UnregisteredEventParkingLot();
+	lot.setLookupIntervalMs(50);
+	lot.park(createPayload("device-a", "a"));
+	lot.park(createPayload("device-b", "b"));
+	lot.drain("device-b");
+
+	// Just checked on the event path.
+	assertEquals(0, lot.getTokensDueForLookup().size());
+	Thread.sleep(100);
+	List<String> due = lot.getTokensDueForLookup();
+	assertEquals(1, due.size());
+	assertEquals("device-a", due.get(0));
+
+	// Checked by the sweep, so not due again on the event path.
+	assertFalse(lot.park(createPayload("device-a", "a-2")));
+	assertEquals(0, lot.getTokensDueForLookup().size());
+    }
+
+    @Test
+    public void testOldestTokenEvictedOverTokenLimit() {
+	UnregisteredEventParkingLot lot = new UnregisteredEventParkingLot();
+	lot.setMaxTokens(10);
+	for (int i = 0; i < 25; i++) {
+	    lot.park(createPayload("device-" + i, "e-" + i));
+	    lot.park(createPayload("device-" + i, "f-" + i));
+	}
+	assertEquals(10, lot.getTokenCount());
+	assertEquals(20, lot.getEventCount());
+	assertEquals(15, lot.getEvictedTokenCount());
+	assertEquals(30, lot.getEvictedEventCount());
+	assertEquals(0, lot.drain("device-14").size());
+	assertEquals(2, lot.drain("device-15").size());
+	assertEquals(18, lot.getEventCount());
+    }
+
+    @Test
+    public void testOldestTokenEvictedOverEventLimit() {
+	UnregisteredEventParkingLot lot = new UnregisteredEventParkingLot();
+	lot.setMaxEvents(100);
+	for (int i = 0; i < 30; i++) {
+	    for (int j = 0; j < 10; j++) {
+		lot.park(createPayload("device-" + i, "e-" + j));
+	    }
+	}
+	assertEquals(100, lot.getEventCount());
+	assertEquals(10, lot.getTokenCount());
+	assertEquals(200, lot.getEvictedEventCount());
+	assertEquals(0, lot.getParkedCount("device-19"));
+	assertEquals(10, lot.getParkedCount("device-20"));
+
+	// Drained and evicted tokens are removed from the age order on purge.
+	lot.drain("device-20");
+	lot.purgeExpired();
+	lot.park(createPayload("device-new", "new"));
+	assertEquals(91, lot.getEventCount());
+    }
+
+    @Test
+    public void testLookupsBackOff() throws InterruptedException {
+	UnregisteredEventParkingLot lot = new UnregisteredEventParkingLot();
+	lot.setLookupIntervalMs(100);
+	lot.setMaxLookupIntervalMs(400);
+	assertTrue(lot.park(createPayload("device", "first")));
+
+	// Next check after base interval, then after doubled interval.
+	Thread.sleep(150);
+	assertEquals(1, lot.getTokensDueForLookup().size());
+	Thread.sleep(50);
+	assertEquals(0, lot.getTokensDueForLookup().size());
+	Thread.sleep(200);
+	assertEquals(1, lot.getTokensDueForLookup().size());
+    }
+
+    /**
+     * Create a payload for a device. The source id is used to track order.
+     * 
+     * @param deviceToken
+     * @param sourceId
+     * @return
+     */
+    protected InboundEventPayload createPayload(String deviceToken, String sourceId) {
+	InboundEventPayload payload = new InboundEventPayload();
+	payload.setDeviceToken(deviceToken);
+	payload.setSourceId(sourceId);
+	return payload;
+    }
+}
\ No newline at end of file
@@ -374,6 +374,17 @@ public class DeviceEventManagementDecorator extends LifecycleComponentDecorator<
 	return getDelegate().addDeviceStateChange(assignment, request);
     }
 
+    /*
+     * @see com.sitewhere.spi.device.event.IDeviceEventManagement#
+     * addDeviceStateChanges(java.util.List,
+     * com.sitewhere.spi.device.event.request.IDeviceStateChangeCreateRequest)
+     */
+    @Override
+    public List<IDeviceStateChange> addDeviceStateChanges(List<IDeviceAssignment> assignments,
+	    IDeviceStateChangeCreateRequest request) throws SiteWhereException {
+	return getDelegate().addDeviceStateChanges(assignments, request);
+    }
+
     /*
      * (non-Javadoc)
      * 
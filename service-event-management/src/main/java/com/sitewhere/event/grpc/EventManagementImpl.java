@@ -7,6 +7,8 @@
  */
 package com.sitewhere.event.grpc;
 
+import java.util.List;
+
 import com.sitewhere.grpc.client.GrpcUtils;
 import com.sitewhere.grpc.model.DeviceEventModel.GDeviceAlertSearchResults;
 import com.sitewhere.grpc.model.DeviceEventModel.GDeviceCommandInvocationSearchResults;
@@ -34,6 +36,8 @@ import com.sitewhere.grpc.service.GAddMeasurementsForAssignmentRequest;
 import com.sitewhere.grpc.service.GAddMeasurementsForAssignmentResponse;
 import com.sitewhere.grpc.service.GAddStateChangeForAssignmentRequest;
 import com.sitewhere.grpc.service.GAddStateChangeForAssignmentResponse;
+import com.sitewhere.grpc.service.GAddStateChangesForAssignmentsRequest;
+import com.sitewhere.grpc.service.GAddStateChangesForAssignmentsResponse;
 import com.sitewhere.grpc.service.GAddStreamDataForAssignmentRequest;
 import com.sitewhere.grpc.service.GAddStreamDataForAssignmentResponse;
 import com.sitewhere.grpc.service.GGetDeviceEventByAlternateIdRequest;
@@ -823,6 +827,31 @@ public class EventManagementImpl extends DeviceEventManagementGrpc.DeviceEventMa
 	}
     }
 
+    /*
+     * @see com.sitewhere.grpc.service.DeviceEventManagementGrpc.
+     * DeviceEventManagementImplBase#addStateChangesForAssignments(com.sitewhere.
+     * grpc.service.GAddStateChangesForAssignmentsRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void addStateChangesForAssignments(GAddStateChangesForAssignmentsRequest request,
+	    StreamObserver<GAddStateChangesForAssignmentsResponse> responseObserver) {
+	try {
+	    GrpcUtils.logServerMethodEntry(DeviceEventManagementGrpc.METHOD_ADD_STATE_CHANGES_FOR_ASSIGNMENTS);
+	    List<IDeviceStateChange> apiResult = getDeviceEventManagement().addDeviceStateChanges(
+		    DeviceModelConverter.asApiDeviceAssignments(request.getAssignmentsList()),
+		    EventModelConverter.asApiDeviceStateChangeCreateRequest(request.getRequest()));
+	    GAddStateChangesForAssignmentsResponse.Builder response = GAddStateChangesForAssignmentsResponse
+		    .newBuilder();
+	    response.addAllStateChanges(EventModelConverter.asGrpcDeviceStateChanges(apiResult));
+	    responseObserver.onNext(response.build());
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(DeviceEventManagementGrpc.METHOD_ADD_STATE_CHANGES_FOR_ASSIGNMENTS,
+		    e, responseObserver);
+	}
+    }
+
     /*
      * (non-Javadoc)
      * 
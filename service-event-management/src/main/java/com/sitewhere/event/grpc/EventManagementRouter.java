@@ -29,6 +29,8 @@ import com.sitewhere.grpc.service.GAddMeasurementsForAssignmentRequest;
 import com.sitewhere.grpc.service.GAddMeasurementsForAssignmentResponse;
 import com.sitewhere.grpc.service.GAddStateChangeForAssignmentRequest;
 import com.sitewhere.grpc.service.GAddStateChangeForAssignmentResponse;
+import com.sitewhere.grpc.service.GAddStateChangesForAssignmentsRequest;
+import com.sitewhere.grpc.service.GAddStateChangesForAssignmentsResponse;
 import com.sitewhere.grpc.service.GAddStreamDataForAssignmentRequest;
 import com.sitewhere.grpc.service.GAddStreamDataForAssignmentResponse;
 import com.sitewhere.grpc.service.GGetDeviceEventByAlternateIdRequest;
@@ -441,6 +443,18 @@ public class EventManagementRouter extends DeviceEventManagementGrpc.DeviceEvent
 	getTenantImplementation().addStateChangeForAssignment(request, responseObserver);
     }
 
+    /*
+     * @see com.sitewhere.grpc.service.DeviceEventManagementGrpc.
+     * DeviceEventManagementImplBase#addStateChangesForAssignments(com.sitewhere.
+     * grpc.service.GAddStateChangesForAssignmentsRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void addStateChangesForAssignments(GAddStateChangesForAssignmentsRequest request,
+	    StreamObserver<GAddStateChangesForAssignmentsResponse> responseObserver) {
+	getTenantImplementation().addStateChangesForAssignments(request, responseObserver);
+    }
+
     /*
      * (non-Javadoc)
      * 
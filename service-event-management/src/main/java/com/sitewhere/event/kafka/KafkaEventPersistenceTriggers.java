@@ -7,6 +7,8 @@
  */
 package com.sitewhere.event.kafka;
 
+import java.util.List;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -162,6 +164,21 @@ public class KafkaEventPersistenceTriggers extends DeviceEventManagementDecorato
 	return forwardEvent(assignment, super.addDeviceStateChange(assignment, request));
     }
 
+    /*
+     * @see com.sitewhere.event.DeviceEventManagementDecorator#
+     * addDeviceStateChanges(java.util.List,
+     * com.sitewhere.spi.device.event.request.IDeviceStateChangeCreateRequest)
+     */
+    @Override
+    public List<IDeviceStateChange> addDeviceStateChanges(List<IDeviceAssignment> assignments,
+	    IDeviceStateChangeCreateRequest request) throws SiteWhereException {
+	List<IDeviceStateChange> results = super.addDeviceStateChanges(assignments, request);
+	for (int i = 0; i < results.size(); i++) {
+	    forwardEvent(assignments.get(i), results.get(i));
+	}
+	return results;
+    }
+
     public IEventManagementTenantEngine getTenantEngine() {
 	return tenantEngine;
     }
@@ -7,6 +7,7 @@
  */
 package com.sitewhere.event.persistence.hbase;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -451,6 +452,21 @@ public class HBaseDeviceEventManagement extends TenantEngineLifecycleComponent i
 	return HBaseDeviceEvent.createDeviceStateChange(context, assignment, request);
     }
 
+    /*
+     * @see com.sitewhere.spi.device.event.IDeviceEventManagement#
+     * addDeviceStateChanges(java.util.List,
+     * com.sitewhere.spi.device.event.request.IDeviceStateChangeCreateRequest)
+     */
+    @Override
+    public List<IDeviceStateChange> addDeviceStateChanges(List<IDeviceAssignment> assignments,
+	    IDeviceStateChangeCreateRequest request) throws SiteWhereException {
+	List<IDeviceStateChange> results = new ArrayList<IDeviceStateChange>();
+	for (IDeviceAssignment assignment : assignments) {
+	    results.add(HBaseDeviceEvent.createDeviceStateChange(context, assignment, request));
+	}
+	return results;
+    }
+
     /*
      * (non-Javadoc)
      * 
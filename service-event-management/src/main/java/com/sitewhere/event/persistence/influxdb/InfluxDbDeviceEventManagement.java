@@ -8,12 +8,14 @@
 package com.sitewhere.event.persistence.influxdb;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.influxdb.dto.BatchPoints;
 import org.influxdb.dto.Point;
 
 import com.sitewhere.event.persistence.DeviceEventManagementPersistence;
@@ -513,6 +515,39 @@ public class InfluxDbDeviceEventManagement extends TenantEngineLifecycleComponen
 	return sc;
     }
 
+    /*
+     * @see com.sitewhere.spi.device.event.IDeviceEventManagement#
+     * addDeviceStateChanges(java.util.List,
+     * com.sitewhere.spi.device.event.request.IDeviceStateChangeCreateRequest)
+     */
+    @Override
+    public List<IDeviceStateChange> addDeviceStateChanges(List<IDeviceAssignment> assignments,
+	    IDeviceStateChangeCreateRequest request) throws SiteWhereException {
+	List<IDeviceStateChange> results = new ArrayList<IDeviceStateChange>();
+	Map<String, BatchPoints> batches = new LinkedHashMap<String, BatchPoints>();
+	for (IDeviceAssignment assignment : assignments) {
+	    DeviceStateChange sc = DeviceEventManagementPersistence.deviceStateChangeCreateLogic(assignment, request);
+	    sc.setId(UUID.randomUUID().toString());
+	    Point.Builder builder = InfluxDbDeviceEvent.createBuilder();
+	    InfluxDbDeviceStateChange.saveToBuilder(sc, builder);
+	    addUserDefinedTags(assignment, builder);
+
+	    // Points are written in one batch per retention policy.
+	    String policy = getAssignmentSpecificRetentionPolicy(assignment);
+	    BatchPoints batch = batches.get(policy);
+	    if (batch == null) {
+		batch = BatchPoints.database(getClient().getDatabase().getValue()).retentionPolicy(policy).build();
+		batches.put(policy, batch);
+	    }
+	    batch.point(builder.build());
+	    results.add(sc);
+	}
+	for (BatchPoints batch : batches.values()) {
+	    getClient().getInflux().write(batch);
+	}
+	return results;
+    }
+
     /*
      * (non-Javadoc)
      * 
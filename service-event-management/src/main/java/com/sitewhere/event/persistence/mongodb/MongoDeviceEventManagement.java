@@ -613,6 +613,31 @@ public class MongoDeviceEventManagement extends TenantEngineLifecycleComponent i
 	return MongoDeviceStateChange.fromDocument(dbstate);
     }
 
+    /*
+     * @see com.sitewhere.spi.device.event.IDeviceEventManagement#
+     * addDeviceStateChanges(java.util.List,
+     * com.sitewhere.spi.device.event.request.IDeviceStateChangeCreateRequest)
+     */
+    @Override
+    public List<IDeviceStateChange> addDeviceStateChanges(List<IDeviceAssignment> assignments,
+	    IDeviceStateChangeCreateRequest request) throws SiteWhereException {
+	List<Document> dbstates = new ArrayList<Document>();
+	for (IDeviceAssignment assignment : assignments) {
+	    DeviceStateChange state = DeviceEventManagementPersistence.deviceStateChangeCreateLogic(assignment,
+		    request);
+	    dbstates.add(MongoDeviceStateChange.toDocument(state));
+	}
+
+	MongoCollection<Document> events = getMongoClient().getEventsCollection();
+	MongoDeviceEventManagementPersistence.insertEvents(events, dbstates, isUseBulkEventInserts(),
+		getEventBuffer());
+	List<IDeviceStateChange> results = new ArrayList<IDeviceStateChange>();
+	for (Document dbstate : dbstates) {
+	    results.add(MongoDeviceStateChange.fromDocument(dbstate));
+	}
+	return results;
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -7,6 +7,8 @@
  */
 package com.sitewhere.event.persistence.mongodb;
 
+import java.util.List;
+
 import org.bson.Document;
 
 import com.mongodb.MongoCommandException;
@@ -52,6 +54,36 @@ public class MongoDeviceEventManagementPersistence extends MongoPersistence {
 	}
     }
 
+    /**
+     * Insert a list of events with a single request, or add them to the buffer
+     * when bulk inserts are enabled.
+     * 
+     * @param collection
+     * @param objects
+     * @param bulk
+     * @param buffer
+     * @throws SiteWhereException
+     */
+    public static void insertEvents(MongoCollection<Document> collection, List<Document> objects, boolean bulk,
+	    IDeviceEventBuffer buffer) throws SiteWhereException {
+	if (objects.isEmpty()) {
+	    return;
+	}
+	try {
+	    if (bulk) {
+		for (Document object : objects) {
+		    buffer.add(object);
+		}
+	    } else {
+		collection.insertMany(objects);
+	    }
+	} catch (MongoCommandException e) {
+	    throw new SiteWhereException("Error during MongoDB insert.", e);
+	} catch (MongoTimeoutException e) {
+	    throw new SiteWhereException("Connection to MongoDB lost.", e);
+	}
+    }
+
     /**
      * Marshal an {@link IDeviceEvent} into a {@link Document}.
      * 
@@ -25,4 +25,12 @@ public class BinaryInboundEventSource extends InboundEventSource<byte[]> {
     public byte[] getRawPayload(byte[] payload) {
 	return payload;
     }
+
+    /*
+     * @see com.sitewhere.sources.InboundEventSource#getEncodedPayload(byte[])
+     */
+    @Override
+    protected byte[] getEncodedPayload(byte[] payload) {
+	return payload;
+    }
 }
\ No newline at end of file
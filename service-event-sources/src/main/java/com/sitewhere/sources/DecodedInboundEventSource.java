@@ -45,6 +45,14 @@ public class DecodedInboundEventSource extends InboundEventSource<DecodedDeviceR
 	return new byte[0];
     }
 
+    /*
+     * @see com.sitewhere.sources.InboundEventSource#getEncodedPayload(byte[])
+     */
+    @Override
+    protected DecodedDeviceRequest<?> getEncodedPayload(byte[] payload) throws SiteWhereException {
+	throw new SiteWhereException("Event source receives decoded events and can not replay raw payloads.");
+    }
+
     /**
      * Decoder that just returns the decoded events.
      * 
@@ -7,26 +7,42 @@
  */
 package com.sitewhere.sources;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.TreeMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.kafka.common.header.Headers;
 
+import com.google.protobuf.ByteString;
+import com.sitewhere.grpc.kafka.model.KafkaModel.GFailedDecodePayload;
+import com.sitewhere.grpc.kafka.model.KafkaModel.GInboundEventPayloadBatch;
+import com.sitewhere.grpc.model.converter.KafkaModelConverter;
 import com.sitewhere.grpc.model.marshaler.KafkaModelMarshaler;
+import com.sitewhere.microservice.kafka.KafkaDeliveryTracker;
 import com.sitewhere.rest.model.microservice.kafka.payload.InboundEventPayload;
+import com.sitewhere.rest.model.sources.DecoderMetrics;
+import com.sitewhere.rest.model.sources.EventSourcesMetrics;
 import com.sitewhere.server.lifecycle.TenantEngineLifecycleComponent;
 import com.sitewhere.server.lifecycle.TracerUtils;
 import com.sitewhere.sources.kafka.DecodedEventsProducer;
 import com.sitewhere.sources.kafka.FailedDecodeEventsProducer;
+import com.sitewhere.sources.metrics.LatencyRecorder;
+import com.sitewhere.sources.metrics.Meter;
 import com.sitewhere.sources.spi.IDecodedDeviceRequest;
+import com.sitewhere.sources.spi.IDeviceEventDecoder;
 import com.sitewhere.sources.spi.IEventSourcesManager;
 import com.sitewhere.sources.spi.IInboundEventSource;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.device.event.request.IDeviceEventCreateRequest;
+import com.sitewhere.spi.microservice.kafka.payload.IInboundEventPayload;
 import com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor;
 import com.sitewhere.spi.server.lifecycle.LifecycleStatus;
+import com.sitewhere.spi.sources.IEventSourceMetrics;
+import com.sitewhere.spi.sources.IEventSourcesMetrics;
 
 import io.opentracing.ActiveSpan;
 
@@ -40,11 +56,11 @@ public class EventSourcesManager extends TenantEngineLifecycleComponent implemen
     /** Static logger instance */
     private static Log LOGGER = LogFactory.getLog(EventSourcesManager.class);
 
-    /** Count of decoded events */
-    private AtomicInteger decodedCount = new AtomicInteger();
+    /** Messages sent to decoded events topic */
+    private Meter sent = new Meter();
 
-    /** Count of events that could not be decoded */
-    private AtomicInteger decodeFailedCount = new AtomicInteger();
+    /** Time spent handing messages to decoded events producer */
+    private LatencyRecorder sendLatency = new LatencyRecorder();
 
     /** List of event sources */
     private List<IInboundEventSource<?>> eventSources;
@@ -214,28 +230,106 @@ public class EventSourcesManager extends TenantEngineLifecycleComponent implemen
     @Override
     public void handleDecodedEvent(String sourceId, byte[] encoded, Map<String, Object> metadata,
 	    IDecodedDeviceRequest<?> decoded) throws SiteWhereException {
-	int count = decodedCount.incrementAndGet();
-	if ((count % 100) == 0) {
-	    getLogger().info("Total decoded events: " + count);
-	}
 	if (getDecodedEventsProducer().getLifecycleStatus() == LifecycleStatus.Started) {
 	    if (decoded.getRequest() instanceof IDeviceEventCreateRequest) {
-		// Build payload message.
-		InboundEventPayload payload = new InboundEventPayload();
-		payload.setSourceId(sourceId);
-		payload.setDeviceToken(decoded.getDeviceToken());
-		payload.setOriginator(decoded.getOriginator());
-		payload.setEventCreateRequest((IDeviceEventCreateRequest) decoded.getRequest());
-
 		// Send payload to Kafka topic.
-		getDecodedEventsProducer().send(decoded.getDeviceToken(),
-			KafkaModelMarshaler.buildInboundEventPayloadMessage(payload));
+		send(decoded.getDeviceToken(),
+			KafkaModelMarshaler.buildInboundEventPayloadMessage(buildInboundEventPayload(sourceId, decoded)));
 	    }
-	} else if (getLogger().isWarnEnabled()) {
-	    getLogger().warn("Producer not started. Unable to add event to topic.");
+	} else {
+	    failNotStarted("Producer not started. Unable to add event to topic.");
 	}
     }
 
+    /*
+     * @see com.sitewhere.sources.spi.IEventSourcesManager#handleDecodedEvents(java.
+     * lang.String, byte[], java.util.Map, java.util.List)
+     */
+    @Override
+    public void handleDecodedEvents(String sourceId, byte[] encoded, Map<String, Object> metadata,
+	    List<IDecodedDeviceRequest<?>> decoded) throws SiteWhereException {
+	if (getDecodedEventsProducer().getLifecycleStatus() == LifecycleStatus.Started) {
+	    // Group payloads by device in the order they were decoded.
+	    Map<String, List<IInboundEventPayload>> byDevice = new LinkedHashMap<String, List<IInboundEventPayload>>();
+	    for (IDecodedDeviceRequest<?> request : decoded) {
+		if (request.getRequest() instanceof IDeviceEventCreateRequest) {
+		    byDevice.computeIfAbsent(request.getDeviceToken(), token -> new ArrayList<IInboundEventPayload>())
+			    .add(buildInboundEventPayload(sourceId, request));
+		}
+	    }
+
+	    // Send one message per device to Kafka topic.
+	    for (Map.Entry<String, List<IInboundEventPayload>> entry : byDevice.entrySet()) {
+		if (entry.getValue().size() == 1) {
+		    send(entry.getKey(), KafkaModelMarshaler.buildInboundEventPayloadMessage(entry.getValue().get(0)));
+		} else {
+		    GInboundEventPayloadBatch batch = KafkaModelConverter
+			    .asGrpcInboundEventPayloadBatch(entry.getValue());
+		    send(entry.getKey(), KafkaModelMarshaler.buildInboundEventPayloadBatchMessage(batch),
+			    KafkaModelMarshaler.buildInboundEventPayloadBatchHeaders());
+		}
+	    }
+	} else {
+	    failNotStarted("Producer not started. Unable to add events to topic.");
+	}
+    }
+
+    /**
+     * Report that events could not be sent because a producer is not started.
+     * The failure is registered with the delivery tracker of the receiver, if
+     * any, so that the inbound message is redelivered rather than acknowledged.
+     * 
+     * @param message
+     */
+    protected void failNotStarted(String message) {
+	getLogger().warn(message);
+	KafkaDeliveryTracker.failCurrent(new SiteWhereException(message));
+    }
+
+    /**
+     * Send a message to the decoded events topic, recording how long the
+     * producer takes to accept it. The producer blocks when its buffer is full,
+     * so this latency rises when Kafka falls behind.
+     * 
+     * @param key
+     * @param message
+     * @throws SiteWhereException
+     */
+    protected void send(String key, byte[] message) throws SiteWhereException {
+	send(key, message, null);
+    }
+
+    /**
+     * Send a message with record headers to the decoded events topic.
+     * 
+     * @param key
+     * @param message
+     * @param headers
+     * @throws SiteWhereException
+     */
+    protected void send(String key, byte[] message, Headers headers) throws SiteWhereException {
+	long start = System.nanoTime();
+	getDecodedEventsProducer().send(key, message, headers);
+	sendLatency.recordSince(start);
+	sent.mark();
+    }
+
+    /**
+     * Build inbound event payload for a decoded request.
+     * 
+     * @param sourceId
+     * @param decoded
+     * @return
+     */
+    protected InboundEventPayload buildInboundEventPayload(String sourceId, IDecodedDeviceRequest<?> decoded) {
+	InboundEventPayload payload = new InboundEventPayload();
+	payload.setSourceId(sourceId);
+	payload.setDeviceToken(decoded.getDeviceToken());
+	payload.setOriginator(decoded.getOriginator());
+	payload.setEventCreateRequest((IDeviceEventCreateRequest) decoded.getRequest());
+	return payload;
+    }
+
     /*
      * @see com.sitewhere.sources.spi.IEventSourcesManager#handleFailedDecode(java.
      * lang.String, byte[], java.util.Map, java.lang.Throwable)
@@ -243,16 +337,89 @@ public class EventSourcesManager extends TenantEngineLifecycleComponent implemen
     @Override
     public void handleFailedDecode(String sourceId, byte[] encoded, Map<String, Object> metadata, Throwable t)
 	    throws SiteWhereException {
-	int count = decodeFailedCount.incrementAndGet();
-	if ((count % 10) == 0) {
-	    getLogger().info("Total events unable to be decoded: " + count);
-	}
 	getLogger().warn("Event could not be decoded. Adding to failed decode topic.", t);
 	if (getFailedDecodeEventsProducer().getLifecycleStatus() == LifecycleStatus.Started) {
-	    getFailedDecodeEventsProducer().send(sourceId, encoded);
-	} else if (getLogger().isWarnEnabled()) {
-	    getLogger().warn("Producer not started. Unable to add event to topic.");
+	    getFailedDecodeEventsProducer().send(sourceId,
+		    KafkaModelMarshaler.buildFailedDecodePayloadMessage(buildFailedDecodePayload(sourceId, encoded, t)));
+	} else {
+	    failNotStarted("Producer not started. Unable to add event to failed decode topic.");
+	}
+    }
+
+    /**
+     * Build payload for the failed decode topic. Failures are classified by the
+     * innermost cause since decoders usually wrap the original error.
+     * 
+     * @param sourceId
+     * @param encoded
+     * @param t
+     * @return
+     */
+    protected GFailedDecodePayload buildFailedDecodePayload(String sourceId, byte[] encoded, Throwable t) {
+	Throwable cause = t;
+	while ((cause.getCause() != null) && (cause.getCause() != cause)) {
+	    cause = cause.getCause();
+	}
+	IInboundEventSource<?> source = getEventSource(sourceId);
+	IDeviceEventDecoder<?> decoder = (source != null) ? source.getDeviceEventDecoder() : null;
+
+	GFailedDecodePayload.Builder grpc = GFailedDecodePayload.newBuilder();
+	grpc.setSourceId(sourceId);
+	grpc.setDecoder((decoder != null) ? decoder.getClass().getSimpleName() : "");
+	grpc.setErrorClass(cause.getClass().getName());
+	if (cause.getMessage() != null) {
+	    grpc.setErrorMessage(cause.getMessage());
+	}
+	grpc.setPayload(ByteString.copyFrom(encoded));
+	grpc.setFailedDate(System.currentTimeMillis());
+	return grpc.build();
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.sources.IEventSourcesMonitoring#getEventSourcesMetrics()
+     */
+    @Override
+    public IEventSourcesMetrics getEventSourcesMetrics() throws SiteWhereException {
+	EventSourcesMetrics metrics = new EventSourcesMetrics();
+	Map<String, DecoderMetrics> byDecoder = new TreeMap<String, DecoderMetrics>();
+	for (IInboundEventSource<?> source : getEventSources()) {
+	    IEventSourceMetrics sourceMetrics = source.getMetrics();
+	    metrics.getEventSources().add(sourceMetrics);
+
+	    // Roll up sources that share a decoder.
+	    DecoderMetrics decoder = byDecoder.computeIfAbsent(sourceMetrics.getDecoder(), name -> {
+		DecoderMetrics created = new DecoderMetrics();
+		created.setDecoder(name);
+		return created;
+	    });
+	    decoder.setSourceCount(decoder.getSourceCount() + 1);
+	    decoder.setDecodedCount(decoder.getDecodedCount() + sourceMetrics.getDecodedCount());
+	    decoder.setDecodedRate(decoder.getDecodedRate() + sourceMetrics.getDecodedRate());
+	    decoder.setDecodeFailedCount(decoder.getDecodeFailedCount() + sourceMetrics.getDecodeFailedCount());
+	}
+	metrics.getDecoders().addAll(byDecoder.values());
+	metrics.setSentCount(sent.getCount());
+	metrics.setSentRate(sent.getRate());
+	metrics.setSendFailedCount(
+		(getDecodedEventsProducer() != null) ? getDecodedEventsProducer().getFailedSendCount() : 0);
+	metrics.setSendLatency(sendLatency.getSummary());
+	return metrics;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.sources.spi.IEventSourcesManager#getEventSource(java.lang.
+     * String)
+     */
+    @Override
+    public IInboundEventSource<?> getEventSource(String sourceId) {
+	for (IInboundEventSource<?> source : getEventSources()) {
+	    if (source.getSourceId().equals(sourceId)) {
+		return source;
+	    }
 	}
+	return null;
     }
 
     /*
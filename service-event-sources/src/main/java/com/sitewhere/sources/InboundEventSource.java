@@ -14,7 +14,9 @@ import java.util.Map;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.sitewhere.microservice.kafka.KafkaDeliveryTracker;
 import com.sitewhere.server.lifecycle.TenantEngineLifecycleComponent;
+import com.sitewhere.sources.metrics.EventSourceMeters;
 import com.sitewhere.sources.spi.EventDecodeException;
 import com.sitewhere.sources.spi.IDecodedDeviceRequest;
 import com.sitewhere.sources.spi.IDeviceEventDecoder;
@@ -25,6 +27,7 @@ import com.sitewhere.sources.spi.IInboundEventSource;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor;
 import com.sitewhere.spi.server.lifecycle.LifecycleComponentType;
+import com.sitewhere.spi.sources.IEventSourceMetrics;
 
 /**
  * Default implementation of {@link IInboundEventSource}.
@@ -38,6 +41,12 @@ public abstract class InboundEventSource<T> extends TenantEngineLifecycleCompone
     /** Static logger instance */
     private static Log LOGGER = LogFactory.getLog(InboundEventSource.class);
 
+    /**
+     * Metadata field set by receivers that authenticate a device per connection.
+     * Decoded events for any other device token are rejected.
+     */
+    public static final String META_AUTHENTICATED_DEVICE_TOKEN = "authenticatedDeviceToken";
+
     /** Manager for all event sources in a tenant */
     private IEventSourcesManager eventSourcesManager;
 
@@ -53,6 +62,9 @@ public abstract class InboundEventSource<T> extends TenantEngineLifecycleCompone
     /** List of {@link IInboundEventReceiver} that supply this processor */
     private List<IInboundEventReceiver<T>> inboundEventReceivers = new ArrayList<IInboundEventReceiver<T>>();
 
+    /** Counters and latencies for processed events */
+    private EventSourceMeters meters = new EventSourceMeters();
+
     public InboundEventSource() {
 	super(LifecycleComponentType.InboundEventSource);
     }
@@ -192,14 +204,75 @@ public abstract class InboundEventSource<T> extends TenantEngineLifecycleCompone
     @Override
     public void onEncodedEventReceived(IInboundEventReceiver<T> receiver, T encoded, Map<String, Object> metadata) {
 	LOGGER.debug("Device event receiver picked up event.");
+	getMeters().getReceived().mark();
 	List<IDecodedDeviceRequest<?>> requests = decodeEvent(encoded, metadata);
 	if (requests != null) {
-	    for (IDecodedDeviceRequest<?> decoded : requests) {
-		if (shouldProcess(decoded)) {
-		    handleDecodedRequest(encoded, metadata, decoded);
-		}
+	    processDecodedRequests(encoded, metadata, requests);
+	}
+    }
+
+    /*
+     * @see com.sitewhere.sources.spi.IInboundEventSource#replayRawPayload(byte[],
+     * java.util.Map)
+     */
+    @Override
+    public boolean replayRawPayload(byte[] payload, Map<String, Object> metadata) throws SiteWhereException {
+	T encoded = getEncodedPayload(payload);
+	List<IDecodedDeviceRequest<?>> requests;
+	try {
+	    requests = decodePayload(encoded, metadata);
+	} catch (EventDecodeException e) {
+	    return false;
+	}
+	processDecodedRequests(encoded, metadata, requests);
+	return true;
+    }
+
+    /*
+     * @see com.sitewhere.sources.spi.IInboundEventSource#getMetrics()
+     */
+    @Override
+    public IEventSourceMetrics getMetrics() {
+	String decoder = (getDeviceEventDecoder() != null) ? getDeviceEventDecoder().getClass().getSimpleName() : "";
+	return getMeters().getMetrics(getSourceId(), decoder);
+    }
+
+    /**
+     * Convert a raw payload back to the type expected by the decoder.
+     * 
+     * @param payload
+     * @return
+     * @throws SiteWhereException
+     */
+    protected abstract T getEncodedPayload(byte[] payload) throws SiteWhereException;
+
+    /**
+     * Forward requests that pass authentication and duplicate checks for
+     * processing.
+     * 
+     * @param encoded
+     * @param metadata
+     * @param requests
+     */
+    protected void processDecodedRequests(T encoded, Map<String, Object> metadata,
+	    List<IDecodedDeviceRequest<?>> requests) {
+	Object authenticated = (metadata != null) ? metadata.get(META_AUTHENTICATED_DEVICE_TOKEN) : null;
+	List<IDecodedDeviceRequest<?>> accepted = new ArrayList<IDecodedDeviceRequest<?>>(requests.size());
+	for (IDecodedDeviceRequest<?> decoded : requests) {
+	    if ((authenticated != null) && (!authenticated.equals(decoded.getDeviceToken()))) {
+		getLogger().warn("Rejected event for device '" + decoded.getDeviceToken()
+			+ "' received on connection authenticated as '" + authenticated + "'.");
+		continue;
+	    }
+	    if (shouldProcess(decoded)) {
+		accepted.add(decoded);
 	    }
 	}
+	if (accepted.size() == 1) {
+	    handleDecodedRequest(encoded, metadata, accepted.get(0));
+	} else if (accepted.size() > 1) {
+	    handleDecodedRequests(encoded, metadata, accepted);
+	}
     }
 
     /**
@@ -210,9 +283,17 @@ public abstract class InboundEventSource<T> extends TenantEngineLifecycleCompone
      * @return
      */
     protected List<IDecodedDeviceRequest<?>> decodeEvent(T encoded, Map<String, Object> metadata) {
+	long start = System.nanoTime();
 	try {
-	    return decodePayload(encoded, metadata);
+	    List<IDecodedDeviceRequest<?>> requests = decodePayload(encoded, metadata);
+	    getMeters().getDecodeLatency().recordSince(start);
+	    if (requests != null) {
+		getMeters().getDecoded().mark(requests.size());
+	    }
+	    return requests;
 	} catch (EventDecodeException e) {
+	    getMeters().getDecodeLatency().recordSince(start);
+	    getMeters().getDecodeFailed().mark();
 	    onEventDecodeFailed(encoded, metadata, e);
 	    return null;
 	}
@@ -226,11 +307,16 @@ public abstract class InboundEventSource<T> extends TenantEngineLifecycleCompone
      * @return
      */
     protected boolean shouldProcess(IDecodedDeviceRequest<?> decoded) {
+	if (getDeviceEventDeduplicator() == null) {
+	    return true;
+	}
 	try {
-	    boolean isDuplicate = ((getDeviceEventDeduplicator() != null)
-		    && (getDeviceEventDeduplicator().isDuplicate(decoded)));
+	    long start = System.nanoTime();
+	    boolean isDuplicate = getDeviceEventDeduplicator().isDuplicate(decoded);
+	    getMeters().getDedupeLatency().recordSince(start);
 	    if (isDuplicate) {
-		LOGGER.info("Event not processed due to duplicate detected.");
+		getMeters().getDuplicates().mark();
+		LOGGER.debug("Event not processed due to duplicate detected.");
 	    }
 	    return !isDuplicate;
 	} catch (SiteWhereException e) {
@@ -252,6 +338,25 @@ public abstract class InboundEventSource<T> extends TenantEngineLifecycleCompone
 	    getEventSourcesManager().handleDecodedEvent(getSourceId(), getRawPayload(encoded), metadata, decoded);
 	} catch (SiteWhereException e) {
 	    getLogger().error("Unable to handle decoded event.", e);
+	    KafkaDeliveryTracker.failCurrent(e);
+	}
+    }
+
+    /**
+     * Pass all events decoded from a payload to the {@link IEventSourcesManager}
+     * so that events for the same device can be forwarded together.
+     * 
+     * @param encoded
+     * @param metadata
+     * @param decoded
+     */
+    protected void handleDecodedRequests(T encoded, Map<String, Object> metadata,
+	    List<IDecodedDeviceRequest<?>> decoded) {
+	try {
+	    getEventSourcesManager().handleDecodedEvents(getSourceId(), getRawPayload(encoded), metadata, decoded);
+	} catch (SiteWhereException e) {
+	    getLogger().error("Unable to handle decoded events.", e);
+	    KafkaDeliveryTracker.failCurrent(e);
 	}
     }
 
@@ -268,6 +373,7 @@ public abstract class InboundEventSource<T> extends TenantEngineLifecycleCompone
 	    getEventSourcesManager().handleFailedDecode(getSourceId(), getRawPayload(encoded), metadata, t);
 	} catch (SiteWhereException e) {
 	    getLogger().error("Unable to handle failed event decode.", e);
+	    KafkaDeliveryTracker.failCurrent(e);
 	}
     }
 
@@ -324,6 +430,10 @@ public abstract class InboundEventSource<T> extends TenantEngineLifecycleCompone
 	this.deviceEventDecoder = deviceEventDecoder;
     }
 
+    /*
+     * @see com.sitewhere.sources.spi.IInboundEventSource#getDeviceEventDecoder()
+     */
+    @Override
     public IDeviceEventDecoder<T> getDeviceEventDecoder() {
 	return deviceEventDecoder;
     }
@@ -358,4 +468,8 @@ public abstract class InboundEventSource<T> extends TenantEngineLifecycleCompone
     public List<IInboundEventReceiver<T>> getInboundEventReceivers() {
 	return inboundEventReceivers;
     }
+
+    public EventSourceMeters getMeters() {
+	return meters;
+    }
 }
\ No newline at end of file
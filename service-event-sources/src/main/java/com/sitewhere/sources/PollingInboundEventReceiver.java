@@ -7,24 +7,27 @@
  */
 package com.sitewhere.sources;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.sitewhere.sources.spi.microservice.IEventSourcesTenantEngine;
+import com.sitewhere.sources.spi.polling.IPollable;
+import com.sitewhere.sources.spi.polling.IPollingScheduler;
+import com.sitewhere.sources.spi.polling.IScheduledPoll;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor;
 
 /**
  * Abstract base class for event receivers that poll an external source at a
- * given interval.
+ * given interval. Polls are run by the tenant {@link IPollingScheduler} rather
+ * than a thread per receiver. Stopping the receiver interrupts a poll in
+ * progress and waits for it to finish.
  * 
  * @author Derek
  *
  * @param <T>
  */
-public abstract class PollingInboundEventReceiver<T> extends InboundEventReceiver<T> {
+public abstract class PollingInboundEventReceiver<T> extends InboundEventReceiver<T> implements IPollable {
 
     /** Static logger instance */
     private static Log LOGGER = LogFactory.getLog(PollingInboundEventReceiver.class);
@@ -32,18 +35,14 @@ public abstract class PollingInboundEventReceiver<T> extends InboundEventReceive
     /** Default polling interval in milliseconds */
     private static final int DEFAULT_POLL_INTERVAL_MS = 10000;
 
+    /** Time to wait for a running poll to finish on stop */
+    private static final long STOP_TIMEOUT_MS = 10000;
+
     /** Polling interval in milliseconds */
     private int pollIntervalMs = DEFAULT_POLL_INTERVAL_MS;
 
-    /** Handles poller threading */
-    private ExecutorService executor;
-
-    /**
-     * Implemented in subclass to do work when polling occurs.
-     * 
-     * @throws SiteWhereException
-     */
-    public abstract void doPoll() throws SiteWhereException;
+    /** Schedule for this receiver */
+    private IScheduledPoll scheduledPoll;
 
     /*
      * (non-Javadoc)
@@ -54,8 +53,7 @@ public abstract class PollingInboundEventReceiver<T> extends InboundEventReceive
      */
     @Override
     public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
-	this.executor = Executors.newSingleThreadExecutor();
-	executor.submit(new Poller());
+	this.scheduledPoll = getPollingScheduler().schedule(getPollName(), getPollIntervalMs(), this);
     }
 
     /*
@@ -67,36 +65,37 @@ public abstract class PollingInboundEventReceiver<T> extends InboundEventReceive
      */
     @Override
     public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
-	if (executor != null) {
-	    executor.shutdownNow();
+	if (scheduledPoll != null) {
+	    try {
+		if (!scheduledPoll.cancelAndAwait(STOP_TIMEOUT_MS)) {
+		    getLogger().warn("Poll of '" + scheduledPoll.getName() + "' still running after stop.");
+		}
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+		throw new SiteWhereException("Interrupted while waiting for poll to finish.", e);
+	    }
 	}
     }
 
     /**
-     * Class that excutes polling code at a given interval.
+     * Get name used when logging polls.
      * 
-     * @author Derek
+     * @return
      */
-    public class Poller implements Runnable {
-
-	@Override
-	public void run() {
-	    while (true) {
-		try {
-		    doPoll();
-		} catch (SiteWhereException e) {
-		    LOGGER.error("Error executing polling logic.", e);
-		} catch (Exception e) {
-		    LOGGER.error("Unhandled exception in polling operation.", e);
-		}
-		try {
-		    Thread.sleep(getPollIntervalMs());
-		} catch (InterruptedException e) {
-		    LOGGER.warn("Poller thread interrupted.");
-		    return;
-		}
-	    }
+    protected String getPollName() {
+	if (getEventSource() != null) {
+	    return getDisplayName() + " (" + getEventSource().getSourceId() + ")";
 	}
+	return getDisplayName();
+    }
+
+    /**
+     * Get scheduler shared by polling receivers in the tenant.
+     * 
+     * @return
+     */
+    protected IPollingScheduler getPollingScheduler() {
+	return ((IEventSourcesTenantEngine) getTenantEngine()).getPollingScheduler();
     }
 
     /*
@@ -109,6 +108,10 @@ public abstract class PollingInboundEventReceiver<T> extends InboundEventReceive
 	return LOGGER;
     }
 
+    public IScheduledPoll getScheduledPoll() {
+	return scheduledPoll;
+    }
+
     public int getPollIntervalMs() {
 	return pollIntervalMs;
     }
@@ -25,4 +25,12 @@ public class StringInboundEventSource extends InboundEventSource<String> {
     public byte[] getRawPayload(String payload) {
 	return payload.getBytes();
     }
+
+    /*
+     * @see com.sitewhere.sources.InboundEventSource#getEncodedPayload(byte[])
+     */
+    @Override
+    protected String getEncodedPayload(byte[] payload) {
+	return new String(payload);
+    }
 }
\ No newline at end of file
@@ -7,12 +7,14 @@
  */
 package com.sitewhere.sources.activemq;
 
+import java.io.File;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.jms.BytesMessage;
@@ -26,11 +28,14 @@ import javax.jms.Session;
 import javax.jms.TextMessage;
 
 import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.RedeliveryPolicy;
 import org.apache.activemq.broker.BrokerService;
 import org.apache.activemq.broker.TransportConnector;
+import org.apache.activemq.store.kahadb.KahaDBPersistenceAdapter;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.sitewhere.microservice.kafka.KafkaDeliveryTracker;
 import com.sitewhere.sources.InboundEventReceiver;
 import com.sitewhere.sources.spi.IInboundEventReceiver;
 import com.sitewhere.spi.SiteWhereException;
@@ -38,7 +43,10 @@ import com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor;
 
 /**
  * Implementation of {@link IInboundEventReceiver} that uses an ActiveMQ broker
- * to listen on a transport for messages.
+ * to listen on a transport for messages. When persistent, the broker stores
+ * messages in KahaDB with settings tuned for a write-heavy queue that is
+ * drained continuously, so messages that have not been acknowledged survive a
+ * restart.
  * 
  * @author Derek
  */
@@ -50,6 +58,24 @@ public class ActiveMQBrokerEventReceiver extends InboundEventReceiver<byte[]> {
     /** Number of consumers reading messages from the queue */
     private static final int DEFAULT_NUM_CONSUMERS = 3;
 
+    /** Default number of unacknowledged messages dispatched to each consumer */
+    private static final int DEFAULT_PREFETCH = 250;
+
+    /** Default number of messages acknowledged together */
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    /** Default maximum time a message waits to be acknowledged */
+    private static final long DEFAULT_ACK_INTERVAL_MS = 1000;
+
+    /** Default size of KahaDB journal files */
+    private static final int DEFAULT_JOURNAL_MAX_FILE_LENGTH = 32 * 1024 * 1024;
+
+    /** Default number of KahaDB index pages written per batch */
+    private static final int DEFAULT_INDEX_WRITE_BATCH_SIZE = 10000;
+
+    /** Default number of KahaDB index pages cached in memory */
+    private static final int DEFAULT_INDEX_CACHE_SIZE = 10000;
+
     /** ActiveMQ broker service */
     private BrokerService brokerService;
 
@@ -62,19 +88,42 @@ public class ActiveMQBrokerEventReceiver extends InboundEventReceiver<byte[]> {
     /** Queue name used for inbound event data */
     private String queueName;
 
+    /** Indicates whether broker stores messages on disk */
+    private boolean persistent = true;
+
+    /** Directory for broker data */
+    private String dataDirectory;
+
+    /** Size of KahaDB journal files */
+    private int journalMaxFileLength = DEFAULT_JOURNAL_MAX_FILE_LENGTH;
+
+    /** Number of KahaDB index pages written per batch */
+    private int indexWriteBatchSize = DEFAULT_INDEX_WRITE_BATCH_SIZE;
+
+    /** Number of KahaDB index pages cached in memory */
+    private int indexCacheSize = DEFAULT_INDEX_CACHE_SIZE;
+
+    /** Indicates whether KahaDB syncs the journal to disk on every write */
+    private boolean journalDiskSyncs = true;
+
     /** Number of consumers used to read messages from the queue */
     private int numConsumers = DEFAULT_NUM_CONSUMERS;
 
+    /** Number of unacknowledged messages dispatched to each consumer */
+    private int prefetch = DEFAULT_PREFETCH;
+
+    /** Number of messages acknowledged together */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /** Maximum time a message waits to be acknowledged */
+    private long ackIntervalMs = DEFAULT_ACK_INTERVAL_MS;
+
     /** List of consumers reading messages */
     private List<Consumer> consumers = new ArrayList<Consumer>();
 
     /** Thread pool for consumer processing */
     private ExecutorService consumersPool;
 
-    public ActiveMQBrokerEventReceiver() {
-	this.brokerService = new BrokerService();
-    }
-
     /*
      * (non-Javadoc)
      * 
@@ -94,7 +143,9 @@ public class ActiveMQBrokerEventReceiver extends InboundEventReceiver<byte[]> {
 	    throw new SiteWhereException("Queue name is required.");
 	}
 	try {
+	    brokerService = new BrokerService();
 	    brokerService.setBrokerName(getBrokerName());
+	    configurePersistence();
 	    TransportConnector connector = new TransportConnector();
 	    connector.setUri(new URI(getTransportUri()));
 	    brokerService.addConnector(connector);
@@ -107,6 +158,35 @@ public class ActiveMQBrokerEventReceiver extends InboundEventReceiver<byte[]> {
 	}
     }
 
+    /**
+     * Configure message storage for the broker.
+     * 
+     * @throws Exception
+     */
+    protected void configurePersistence() throws Exception {
+	if (getDataDirectory() != null) {
+	    brokerService.setDataDirectory(getDataDirectory());
+	}
+	brokerService.setPersistent(isPersistent());
+	if (!isPersistent()) {
+	    return;
+	}
+	KahaDBPersistenceAdapter kahaDB = new KahaDBPersistenceAdapter();
+	if (getDataDirectory() != null) {
+	    kahaDB.setDirectory(new File(getDataDirectory(), "kahadb"));
+	}
+	kahaDB.setJournalMaxFileLength(getJournalMaxFileLength());
+	kahaDB.setIndexWriteBatchSize(getIndexWriteBatchSize());
+	kahaDB.setIndexCacheSize(getIndexCacheSize());
+	kahaDB.setEnableJournalDiskSyncs(isJournalDiskSyncs());
+
+	// Dispatch to waiting consumers without waiting for the store.
+	kahaDB.setConcurrentStoreAndDispatchQueues(true);
+	brokerService.setPersistenceAdapter(kahaDB);
+	LOGGER.info("ActiveMQ broker '" + getBrokerName() + "' storing messages in KahaDB"
+		+ ((getDataDirectory() != null) ? " under " + getDataDirectory() : "") + ".");
+    }
+
     /*
      * @see com.sitewhere.sources.InboundEventReceiver#getLogger()
      */
@@ -152,26 +232,33 @@ public class ActiveMQBrokerEventReceiver extends InboundEventReceiver<byte[]> {
      */
     @Override
     public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	stopConsumers();
 	if (brokerService != null) {
 	    try {
 		brokerService.stop();
+		brokerService.waitUntilStopped();
 	    } catch (Exception e) {
 		throw new SiteWhereException("Error stopping ActiveMQ broker.", e);
 	    }
 	}
-	stopConsumers();
     }
 
     /**
-     * Stops all consumers.
+     * Stops all consumers. Messages that were processed but not acknowledged are
+     * redelivered by the broker.
      * 
      * @throws SiteWhereException
      */
     protected void stopConsumers() throws SiteWhereException {
-	consumersPool.shutdownNow();
 	for (Consumer consumer : consumers) {
 	    consumer.stop();
 	}
+	consumersPool.shutdown();
+	try {
+	    consumersPool.awaitTermination(5, TimeUnit.SECONDS);
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	}
     }
 
     /** Used for naming consumer threads */
@@ -187,12 +274,29 @@ public class ActiveMQBrokerEventReceiver extends InboundEventReceiver<byte[]> {
 
     /**
      * Reads messages from the ActiveMQ queue and puts the binary content on a queue
-     * for SiteWhere to use.
+     * for SiteWhere to use. Messages are acknowledged in batches once the events
+     * decoded from them have been delivered. If delivery fails the session is
+     * recovered so that the batch is redelivered.
      * 
      * @author Derek
      */
     private class Consumer implements Runnable, ExceptionListener {
 
+	/** Indicates whether consumer should keep reading */
+	private volatile boolean running = true;
+
+	/** Number of processed messages not yet acknowledged */
+	private int pending;
+
+	/** Most recent processed message */
+	private Message lastMessage;
+
+	/** Tracks delivery of events produced from current batch */
+	private KafkaDeliveryTracker tracker = new KafkaDeliveryTracker();
+
+	/** Time first message in current batch was processed */
+	private long batchStarted;
+
 	/** Connection to ActiveMQ */
 	private Connection connection;
 
@@ -206,12 +310,25 @@ public class ActiveMQBrokerEventReceiver extends InboundEventReceiver<byte[]> {
 	    try {
 		// Create a VM connection to the broker.
 		ActiveMQConnectionFactory connectionFactory = new ActiveMQConnectionFactory("vm://" + getBrokerName());
+		connectionFactory.getPrefetchPolicy().setQueuePrefetch(getPrefetch());
+		if (getEffectiveBatchSize() < getBatchSize()) {
+		    LOGGER.warn("Acknowledgement batch size " + getBatchSize() + " exceeds prefetch. Using "
+			    + getEffectiveBatchSize() + ".");
+		}
+
+		// Keep redelivering until events are delivered rather than moving the
+		// messages to the dead letter queue.
+		RedeliveryPolicy redelivery = connectionFactory.getRedeliveryPolicy();
+		redelivery.setMaximumRedeliveries(RedeliveryPolicy.NO_MAXIMUM_REDELIVERIES);
+		redelivery.setInitialRedeliveryDelay(1000);
+		redelivery.setUseExponentialBackOff(true);
+		redelivery.setMaximumRedeliveryDelay(60 * 1000);
 		this.connection = connectionFactory.createConnection();
 		connection.setExceptionListener(this);
 		connection.start();
 
 		// Create a Session
-		this.session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+		this.session = connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
 
 		Destination destination = session.createQueue(getQueueName());
 		this.consumer = session.createConsumer(destination);
@@ -221,6 +338,7 @@ public class ActiveMQBrokerEventReceiver extends InboundEventReceiver<byte[]> {
 	}
 
 	public void stop() throws SiteWhereException {
+	    running = false;
 	    try {
 		consumer.close();
 		session.close();
@@ -237,30 +355,74 @@ public class ActiveMQBrokerEventReceiver extends InboundEventReceiver<byte[]> {
 	 */
 	@Override
 	public void run() {
-	    while (true) {
+	    while (running) {
 		try {
-		    Message message = consumer.receive();
-		    if (message == null) {
-			break;
+		    Message message = consumer.receive(getAckIntervalMs());
+		    if (message != null) {
+			process(message);
+			if (pending++ == 0) {
+			    batchStarted = System.currentTimeMillis();
+			}
+			lastMessage = message;
 		    }
-		    if (message instanceof TextMessage) {
-			TextMessage textMessage = (TextMessage) message;
-			onEventPayloadReceived(textMessage.getText().getBytes(), null);
-		    } else if (message instanceof BytesMessage) {
-			BytesMessage bytesMessage = (BytesMessage) message;
-			byte[] buffer = new byte[(int) bytesMessage.getBodyLength()];
-			bytesMessage.readBytes(buffer);
-			onEventPayloadReceived(buffer, null);
-		    } else {
-			LOGGER.warn("Ignoring unknown JMS message type: " + message.getClass().getName());
+		    if ((pending > 0) && ((message == null) || (pending >= getEffectiveBatchSize())
+			    || ((System.currentTimeMillis() - batchStarted) >= getAckIntervalMs()))) {
+			acknowledge();
 		    }
 		} catch (Throwable e) {
-		    LOGGER.error("Error in ActiveMQ message processing.", e);
+		    if (running) {
+			LOGGER.error("Error in ActiveMQ message processing.", e);
+		    }
 		    return;
 		}
 	    }
 	}
 
+	/**
+	 * Pass message content to the event source.
+	 * 
+	 * @param message
+	 * @throws JMSException
+	 */
+	protected void process(Message message) throws JMSException {
+	    tracker.bind();
+	    try {
+		if (message instanceof TextMessage) {
+		    TextMessage textMessage = (TextMessage) message;
+		    onEventPayloadReceived(textMessage.getText().getBytes(), null);
+		} else if (message instanceof BytesMessage) {
+		    BytesMessage bytesMessage = (BytesMessage) message;
+		    byte[] buffer = new byte[(int) bytesMessage.getBodyLength()];
+		    bytesMessage.readBytes(buffer);
+		    onEventPayloadReceived(buffer, null);
+		} else {
+		    LOGGER.warn("Ignoring unknown JMS message type: " + message.getClass().getName());
+		}
+	    } finally {
+		tracker.unbind();
+	    }
+	}
+
+	/**
+	 * Acknowledge all processed messages once the events produced from this
+	 * batch are delivered. Recovers the session so messages are redelivered if
+	 * any of those events could not be delivered.
+	 * 
+	 * @throws JMSException
+	 */
+	protected void acknowledge() throws JMSException {
+	    try {
+		tracker.await();
+		lastMessage.acknowledge();
+	    } catch (SiteWhereException e) {
+		LOGGER.error("Unable to deliver events. Redelivering " + pending + " ActiveMQ messages.", e);
+		session.recover();
+	    } finally {
+		pending = 0;
+		lastMessage = null;
+	    }
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -306,4 +468,87 @@ public class ActiveMQBrokerEventReceiver extends InboundEventReceiver<byte[]> {
     public void setNumConsumers(int numConsumers) {
 	this.numConsumers = numConsumers;
     }
+
+    public boolean isPersistent() {
+	return persistent;
+    }
+
+    public void setPersistent(boolean persistent) {
+	this.persistent = persistent;
+    }
+
+    public String getDataDirectory() {
+	return dataDirectory;
+    }
+
+    public void setDataDirectory(String dataDirectory) {
+	this.dataDirectory = dataDirectory;
+    }
+
+    public int getJournalMaxFileLength() {
+	return journalMaxFileLength;
+    }
+
+    public void setJournalMaxFileLength(int journalMaxFileLength) {
+	this.journalMaxFileLength = journalMaxFileLength;
+    }
+
+    public int getIndexWriteBatchSize() {
+	return indexWriteBatchSize;
+    }
+
+    public void setIndexWriteBatchSize(int indexWriteBatchSize) {
+	this.indexWriteBatchSize = indexWriteBatchSize;
+    }
+
+    public int getIndexCacheSize() {
+	return indexCacheSize;
+    }
+
+    public void setIndexCacheSize(int indexCacheSize) {
+	this.indexCacheSize = indexCacheSize;
+    }
+
+    public boolean isJournalDiskSyncs() {
+	return journalDiskSyncs;
+    }
+
+    public void setJournalDiskSyncs(boolean journalDiskSyncs) {
+	this.journalDiskSyncs = journalDiskSyncs;
+    }
+
+    public int getPrefetch() {
+	return prefetch;
+    }
+
+    public void setPrefetch(int prefetch) {
+	this.prefetch = prefetch;
+    }
+
+    public int getBatchSize() {
+	return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+	this.batchSize = batchSize;
+    }
+
+    /**
+     * Get number of messages acknowledged together. Limited to the prefetch
+     * since the broker stops dispatching once that many messages are waiting
+     * for acknowledgement.
+     * 
+     * @return
+     */
+    public int getEffectiveBatchSize() {
+	return (getPrefetch() > 0) ? Math.min(getBatchSize(), getPrefetch()) : getBatchSize();
+    }
+
+    public long getAckIntervalMs() {
+	return ackIntervalMs;
+    }
+
+    public void setAckIntervalMs(long ackIntervalMs) {
+	this.ackIntervalMs = ackIntervalMs;
+    }
 }
\ No newline at end of file
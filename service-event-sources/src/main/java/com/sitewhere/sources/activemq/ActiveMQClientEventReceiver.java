@@ -12,6 +12,7 @@ import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.jms.BytesMessage;
@@ -25,9 +26,11 @@ import javax.jms.Session;
 import javax.jms.TextMessage;
 
 import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.RedeliveryPolicy;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.sitewhere.microservice.kafka.KafkaDeliveryTracker;
 import com.sitewhere.sources.InboundEventReceiver;
 import com.sitewhere.sources.spi.IInboundEventReceiver;
 import com.sitewhere.spi.SiteWhereException;
@@ -47,9 +50,27 @@ public class ActiveMQClientEventReceiver extends InboundEventReceiver<byte[]> {
     /** Number of consumers reading messages from the queue */
     private static final int DEFAULT_NUM_CONSUMERS = 3;
 
+    /** Default number of unacknowledged messages dispatched to each consumer */
+    private static final int DEFAULT_PREFETCH = 250;
+
+    /** Default number of messages acknowledged together */
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    /** Default maximum time a message waits to be acknowledged */
+    private static final long DEFAULT_ACK_INTERVAL_MS = 1000;
+
     /** Number of consumers used to read messages from the queue */
     private int numConsumers = DEFAULT_NUM_CONSUMERS;
 
+    /** Number of unacknowledged messages dispatched to each consumer */
+    private int prefetch = DEFAULT_PREFETCH;
+
+    /** Number of messages acknowledged together */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /** Maximum time a message waits to be acknowledged */
+    private long ackIntervalMs = DEFAULT_ACK_INTERVAL_MS;
+
     /** List of consumers reading messages */
     private List<Consumer> consumers = new ArrayList<Consumer>();
 
@@ -110,15 +131,21 @@ public class ActiveMQClientEventReceiver extends InboundEventReceiver<byte[]> {
     }
 
     /**
-     * Stops all consumers.
+     * Stops all consumers. Messages that were processed but not acknowledged are
+     * redelivered by the broker.
      * 
      * @throws SiteWhereException
      */
     protected void stopConsumers() throws SiteWhereException {
-	consumersPool.shutdownNow();
 	for (Consumer consumer : consumers) {
 	    consumer.stop();
 	}
+	consumersPool.shutdown();
+	try {
+	    consumersPool.awaitTermination(5, TimeUnit.SECONDS);
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	}
     }
 
     /*
@@ -155,12 +182,29 @@ public class ActiveMQClientEventReceiver extends InboundEventReceiver<byte[]> {
 
     /**
      * Reads messages from the ActiveMQ queue and puts the binary content on a queue
-     * for SiteWhere to use.
+     * for SiteWhere to use. Messages are acknowledged in batches once the events
+     * decoded from them have been delivered. If delivery fails the session is
+     * recovered so that the batch is redelivered.
      * 
      * @author Derek
      */
     private class Consumer implements Runnable, ExceptionListener {
 
+	/** Indicates whether consumer should keep reading */
+	private volatile boolean running = true;
+
+	/** Number of processed messages not yet acknowledged */
+	private int pending;
+
+	/** Most recent processed message */
+	private Message lastMessage;
+
+	/** Tracks delivery of events produced from current batch */
+	private KafkaDeliveryTracker tracker = new KafkaDeliveryTracker();
+
+	/** Time first message in current batch was processed */
+	private long batchStarted;
+
 	/** Connection to remote broker */
 	private Connection connection;
 
@@ -174,12 +218,25 @@ public class ActiveMQClientEventReceiver extends InboundEventReceiver<byte[]> {
 	    try {
 		// Create a connection to the broker.
 		ActiveMQConnectionFactory connectionFactory = new ActiveMQConnectionFactory(getRemoteUri());
+		connectionFactory.getPrefetchPolicy().setQueuePrefetch(getPrefetch());
+		if (getEffectiveBatchSize() < getBatchSize()) {
+		    LOGGER.warn("Acknowledgement batch size " + getBatchSize() + " exceeds prefetch. Using "
+			    + getEffectiveBatchSize() + ".");
+		}
+
+		// Keep redelivering until events are delivered rather than moving the
+		// messages to the dead letter queue.
+		RedeliveryPolicy redelivery = connectionFactory.getRedeliveryPolicy();
+		redelivery.setMaximumRedeliveries(RedeliveryPolicy.NO_MAXIMUM_REDELIVERIES);
+		redelivery.setInitialRedeliveryDelay(1000);
+		redelivery.setUseExponentialBackOff(true);
+		redelivery.setMaximumRedeliveryDelay(60 * 1000);
 		this.connection = connectionFactory.createConnection();
 		connection.setExceptionListener(this);
 		connection.start();
 
 		// Create a Session
-		this.session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+		this.session = connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
 
 		Destination destination = session.createQueue(getQueueName());
 		this.consumer = session.createConsumer(destination);
@@ -189,6 +246,7 @@ public class ActiveMQClientEventReceiver extends InboundEventReceiver<byte[]> {
 	}
 
 	public void stop() throws SiteWhereException {
+	    running = false;
 	    try {
 		consumer.close();
 		session.close();
@@ -205,29 +263,74 @@ public class ActiveMQClientEventReceiver extends InboundEventReceiver<byte[]> {
 	 */
 	@Override
 	public void run() {
-	    while (true) {
+	    while (running) {
 		try {
-		    Message message = consumer.receive();
-		    if (message == null) {
-			break;
+		    Message message = consumer.receive(getAckIntervalMs());
+		    if (message != null) {
+			process(message);
+			if (pending++ == 0) {
+			    batchStarted = System.currentTimeMillis();
+			}
+			lastMessage = message;
 		    }
-		    if (message instanceof TextMessage) {
-			TextMessage textMessage = (TextMessage) message;
-			onEventPayloadReceived(textMessage.getText().getBytes(), null);
-		    } else if (message instanceof BytesMessage) {
-			BytesMessage bytesMessage = (BytesMessage) message;
-			byte[] buffer = new byte[(int) bytesMessage.getBodyLength()];
-			onEventPayloadReceived(buffer, null);
-		    } else {
-			LOGGER.warn("Ignoring unknown JMS message type: " + message.getClass().getName());
+		    if ((pending > 0) && ((message == null) || (pending >= getEffectiveBatchSize())
+			    || ((System.currentTimeMillis() - batchStarted) >= getAckIntervalMs()))) {
+			acknowledge();
 		    }
 		} catch (Throwable e) {
-		    LOGGER.error("Error in ActiveMQ message processing.", e);
+		    if (running) {
+			LOGGER.error("Error in ActiveMQ message processing.", e);
+		    }
 		    return;
 		}
 	    }
 	}
 
+	/**
+	 * Pass message content to the event source.
+	 * 
+	 * @param message
+	 * @throws JMSException
+	 */
+	protected void process(Message message) throws JMSException {
+	    tracker.bind();
+	    try {
+		if (message instanceof TextMessage) {
+		    TextMessage textMessage = (TextMessage) message;
+		    onEventPayloadReceived(textMessage.getText().getBytes(), null);
+		} else if (message instanceof BytesMessage) {
+		    BytesMessage bytesMessage = (BytesMessage) message;
+		    byte[] buffer = new byte[(int) bytesMessage.getBodyLength()];
+		    bytesMessage.readBytes(buffer);
+		    onEventPayloadReceived(buffer, null);
+		} else {
+		    LOGGER.warn("Ignoring unknown JMS message type: " + message.getClass().getName());
+		}
+	    } finally {
+		tracker.unbind();
+	    }
+	}
+
+	/**
+	 * Acknowledge all processed messages once the events produced from this
+	 * batch are delivered. Recovers the session so messages are redelivered if
+	 * any of those events could not be delivered.
+	 * 
+	 * @throws JMSException
+	 */
+	protected void acknowledge() throws JMSException {
+	    try {
+		tracker.await();
+		lastMessage.acknowledge();
+	    } catch (SiteWhereException e) {
+		LOGGER.error("Unable to deliver events. Redelivering " + pending + " ActiveMQ messages.", e);
+		session.recover();
+	    } finally {
+		pending = 0;
+		lastMessage = null;
+	    }
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -265,4 +368,39 @@ public class ActiveMQClientEventReceiver extends InboundEventReceiver<byte[]> {
     public void setNumConsumers(int numConsumers) {
 	this.numConsumers = numConsumers;
     }
+
+    public int getPrefetch() {
+	return prefetch;
+    }
+
+    public void setPrefetch(int prefetch) {
+	this.prefetch = prefetch;
+    }
+
+    public int getBatchSize() {
+	return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+	this.batchSize = batchSize;
+    }
+
+    /**
+     * Get number of messages acknowledged together. Limited to the prefetch
+     * since the broker stops dispatching once that many messages are waiting
+     * for acknowledgement.
+     * 
+     * @return
+     */
+    public int getEffectiveBatchSize() {
+	return (getPrefetch() > 0) ? Math.min(getBatchSize(), getPrefetch()) : getBatchSize();
+    }
+
+    public long getAckIntervalMs() {
+	return ackIntervalMs;
+    }
+
+    public void setAckIntervalMs(long ackIntervalMs) {
+	this.ackIntervalMs = ackIntervalMs;
+    }
 }
\ No newline at end of file
@@ -24,12 +24,14 @@
  *******************************************************************************/
 package com.sitewhere.sources.azure;
 
-import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
@@ -47,18 +49,41 @@ import com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor;
 public class EventHubInboundEventReceiver extends InboundEventReceiver<byte[]> {
 
     private static Log LOGGER = LogFactory.getLog(EventHubInboundEventReceiver.class);
-    private static String username = "";
-    private static String password = "";
-    private static String namespace = "";
-    private static String entityPath = "";
-    private static int partitionCount = 0;
-    private static String zkStateStore = "";
-    private static String targetFqn = "";
-    private ArrayList<EventHubReceiverTask> taskPool = new ArrayList<EventHubReceiverTask>();
 
-    private static EventHubReceiverTaskConfig config;
+    /** Seconds to wait before reopening a failed task */
+    private static final int EH_RETRY_SLEEP_SECONDS = 10;
 
-    private ExecutorService executor = Executors.newCachedThreadPool(new ReceiverThreadFactory());
+    private String username = "";
+    private String password = "";
+    private String namespace = "";
+    private String entityPath = "";
+    private int partitionCount = 0;
+    private String zkStateStore = "";
+    private String targetFqn = "";
+
+    /** Seconds between checkpoint writes */
+    private int checkpointIntervalSeconds = 10;
+
+    /** Offset updates that trigger a checkpoint write */
+    private int checkpointBatchSize = 1000;
+
+    /** Events read ahead per partition */
+    private int prefetchQueueSize = 1000;
+
+    /** Use Zookeeper leader latches to share partitions between instances */
+    private boolean dynamicPartitionOwnership = true;
+
+    /** Interval between partition rebalance checks */
+    private long rebalanceIntervalMs = 30000;
+
+    private List<EventHubReceiverTask> taskPool = new CopyOnWriteArrayList<EventHubReceiverTask>();
+
+    private EventHubReceiverTaskConfig config;
+
+    private ExecutorService executor;
+
+    /** Indicates whether processors should keep running */
+    private volatile boolean running;
 
     /**
      * Used for naming consumer threads
@@ -86,11 +111,25 @@ public class EventHubInboundEventReceiver extends InboundEventReceiver<byte[]> {
     @Override
     public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	config = new EventHubReceiverTaskConfig(username, password, namespace, entityPath, partitionCount,
-		zkStateStore);
+		zkStateStore, checkpointIntervalSeconds, 1024, Math.max(1024, prefetchQueueSize), 0);
 	config.setTargetAddress(targetFqn);
+	config.setCheckpointBatchSize(checkpointBatchSize);
+	config.setPrefetchQueueSize(prefetchQueueSize);
+	config.setDynamicPartitionOwnership(dynamicPartitionOwnership);
+	config.setRebalanceIntervalMs(rebalanceIntervalMs);
+	if (prefetchQueueSize > 0) {
+	    // Prefetched partitions wake the receive loop when events arrive.
+	    config.setReceiveTimeoutMs(1000);
+	}
 
-	for (int i = 0; i < partitionCount; i++) {
-	    executor.execute(new EventProcessor(partitionCount, i));
+	running = true;
+	executor = Executors.newCachedThreadPool(new ReceiverThreadFactory());
+	if (dynamicPartitionOwnership) {
+	    executor.execute(new EventProcessor(1, 0));
+	} else {
+	    for (int i = 0; i < partitionCount; i++) {
+		executor.execute(new EventProcessor(partitionCount, i));
+	    }
 	}
     }
 
@@ -103,10 +142,20 @@ public class EventHubInboundEventReceiver extends InboundEventReceiver<byte[]> {
      */
     @Override
     public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
-	for (EventHubReceiverTask task : taskPool) {
-	    task.deactivate();
+	running = false;
+	if (executor != null) {
+	    executor.shutdown();
+	    try {
+		if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+		    executor.shutdownNow();
+		}
+	    } catch (InterruptedException e) {
+		executor.shutdownNow();
+		Thread.currentThread().interrupt();
+	    }
+	    executor = null;
 	}
-	executor.shutdownNow();
+	taskPool.clear();
     }
 
     /*
@@ -119,6 +168,15 @@ public class EventHubInboundEventReceiver extends InboundEventReceiver<byte[]> {
 	return LOGGER;
     }
 
+    /**
+     * Create task that reads from EventHub partitions.
+     * 
+     * @return
+     */
+    protected EventHubReceiverTask createReceiverTask() {
+	return new EventHubReceiverTask(config);
+    }
+
     private class EventProcessor implements Runnable {
 
 	int taskIndex;
@@ -131,107 +189,142 @@ public class EventHubInboundEventReceiver extends InboundEventReceiver<byte[]> {
 
 	@Override
 	public void run() {
-	    EventHubReceiverTask task = new EventHubReceiverTask(config);
-	    taskPool.add(task);
-
 	    Map<String, Integer> context = new HashMap<String, Integer>();
 	    context.put(Constants.TotalTaskKey, this.totalTasks);
 	    context.put(Constants.TaskIndexKey, this.taskIndex);
-	    boolean SWITCH = true;
-	    int EH_RETRY_SLEEP_SECONDS = 10;
-
-	    while (SWITCH) {
 
+	    while (running) {
+		EventHubReceiverTask task = createReceiverTask();
+		taskPool.add(task);
 		try {
 		    task.open(context);
-		} catch (Exception e) {
-		    getLogger().warn(
-			    "Task " + taskIndex + " failed to open, retry in " + EH_RETRY_SLEEP_SECONDS + "seconds.",
+		    process(task);
+		} catch (Throwable e) {
+		    getLogger().warn("Task " + taskIndex + " failed, retry in " + EH_RETRY_SLEEP_SECONDS + " seconds.",
 			    e);
+		} finally {
+		    // Checkpoint progress before partitions are released.
+		    try {
+			task.deactivate();
+		    } catch (Throwable e) {
+			getLogger().warn("Unable to checkpoint EventHub task " + taskIndex + ".", e);
+		    }
 		    try {
 			task.close();
-			Thread.sleep(EH_RETRY_SLEEP_SECONDS * 1000);
-		    } catch (Exception ignored) {
+		    } catch (Throwable e) {
+			getLogger().warn("Unable to close EventHub task " + taskIndex + ".", e);
 		    }
-		    continue;
+		    taskPool.remove(task);
 		}
 
-		while (SWITCH) {
+		if (running) {
 		    try {
-			EventData data = task.receive();
-			if (data == null) {
-			    continue;
-			}
-			Message p = data.getMessage();
-
-			if (p == null || p.getApplicationProperties() == null
-				|| p.getApplicationProperties().getValue() == null
-				|| p.getApplicationProperties().getValue().get(Constants.AmqpPayloadKey) == null) {
-			    getLogger().warn("Skipped message without a valid payload received.");
-			    continue;
-			}
-			byte[] payload = p.getApplicationProperties().getValue().get(Constants.AmqpPayloadKey)
-				.toString().getBytes();
-			// Map eventContext = new HashMap();
-			// eventContext.put("enqueueTime",
-			// data.getEnqueueTime());
-			onEventPayloadReceived(payload, null);
-		    } catch (Exception e) {
-			e.printStackTrace();
-			getLogger().warn(
-				"Task " + taskIndex + " exception, restart in " + EH_RETRY_SLEEP_SECONDS + " seconds",
-				e);
-			try {
-			    task.close();
-			} catch (Exception ignored) {
-			}
+			Thread.sleep(EH_RETRY_SLEEP_SECONDS * 1000);
+		    } catch (InterruptedException ie) {
 			break;
-		    } catch (Throwable t) {
-			getLogger().error("Error in task " + taskIndex + ":" + t.getMessage());
-			try {
-			    task.close();
-			} catch (Throwable t1) {
-			    getLogger().error(t1.getMessage());
-			}
-			SWITCH = false;
 		    }
 		}
+	    }
+	}
 
+	/**
+	 * Pass events to the event source until stopped. Events are acknowledged
+	 * after processing so that checkpoints only cover processed events.
+	 * 
+	 * @param task
+	 */
+	protected void process(EventHubReceiverTask task) {
+	    while (running) {
+		EventData data = task.receive();
+		if (data == null) {
+		    continue;
+		}
 		try {
-		    Thread.sleep(EH_RETRY_SLEEP_SECONDS * 1000);
-		} catch (InterruptedException ie) {
-		    break;
+		    Message p = data.getMessage();
+		    if (p == null || p.getApplicationProperties() == null
+			    || p.getApplicationProperties().getValue() == null
+			    || p.getApplicationProperties().getValue().get(Constants.AmqpPayloadKey) == null) {
+			getLogger().warn("Skipped message without a valid payload received.");
+		    } else {
+			byte[] payload = p.getApplicationProperties().getValue().get(Constants.AmqpPayloadKey)
+				.toString().getBytes();
+			onEventPayloadReceived(payload, null);
+		    }
+		    task.ack(data.getMessageId());
+		} catch (RuntimeException e) {
+		    getLogger().warn("Unable to process EventHub message. Will retry.", e);
+		    task.fail(data.getMessageId());
 		}
 	    }
 	}
     }
 
-    public static void setUsername(String username) {
-	EventHubInboundEventReceiver.username = username;
+    public void setUsername(String username) {
+	this.username = username;
+    }
+
+    public void setPassword(String password) {
+	this.password = password;
+    }
+
+    public void setNamespace(String namespace) {
+	this.namespace = namespace;
+    }
+
+    public void setEntityPath(String entityPath) {
+	this.entityPath = entityPath;
+    }
+
+    public void setPartitionCount(int partitionCount) {
+	this.partitionCount = partitionCount;
+    }
+
+    public void setZkStateStore(String zkStateStore) {
+	this.zkStateStore = zkStateStore;
+    }
+
+    public void setTargetFqn(String targetFqn) {
+	this.targetFqn = targetFqn;
+    }
+
+    public int getCheckpointIntervalSeconds() {
+	return checkpointIntervalSeconds;
+    }
+
+    public void setCheckpointIntervalSeconds(int checkpointIntervalSeconds) {
+	this.checkpointIntervalSeconds = checkpointIntervalSeconds;
+    }
+
+    public int getCheckpointBatchSize() {
+	return checkpointBatchSize;
+    }
+
+    public void setCheckpointBatchSize(int checkpointBatchSize) {
+	this.checkpointBatchSize = checkpointBatchSize;
     }
 
-    public static void setPassword(String password) {
-	EventHubInboundEventReceiver.password = password;
+    public int getPrefetchQueueSize() {
+	return prefetchQueueSize;
     }
 
-    public static void setNamespace(String namespace) {
-	EventHubInboundEventReceiver.namespace = namespace;
+    public void setPrefetchQueueSize(int prefetchQueueSize) {
+	this.prefetchQueueSize = prefetchQueueSize;
     }
 
-    public static void setEntityPath(String entityPath) {
-	EventHubInboundEventReceiver.entityPath = entityPath;
+    public boolean isDynamicPartitionOwnership() {
+	return dynamicPartitionOwnership;
     }
 
-    public static void setPartitionCount(int partitionCount) {
-	EventHubInboundEventReceiver.partitionCount = partitionCount;
+    public void setDynamicPartitionOwnership(boolean dynamicPartitionOwnership) {
+	this.dynamicPartitionOwnership = dynamicPartitionOwnership;
     }
 
-    public static void setZkStateStore(String zkStateStore) {
-	EventHubInboundEventReceiver.zkStateStore = zkStateStore;
+    public long getRebalanceIntervalMs() {
+	return rebalanceIntervalMs;
     }
 
-    public static void setTargetFqn(String targetFqn) {
-	EventHubInboundEventReceiver.targetFqn = targetFqn;
+    public void setRebalanceIntervalMs(long rebalanceIntervalMs) {
+	this.rebalanceIntervalMs = rebalanceIntervalMs;
     }
 
     /*
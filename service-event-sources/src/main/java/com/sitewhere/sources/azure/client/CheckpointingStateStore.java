@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.azure.client;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Wraps a state store so that saved partition offsets are held in memory and
+ * only the latest value for each path is written to the underlying store.
+ * Writes happen when the configured number of updates have accumulated or when
+ * the flush interval passes, whichever comes first, so that store load does
+ * not grow with message rate.
+ *
+ * @author Derek
+ */
+public class CheckpointingStateStore implements IStateStore {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger logger = LoggerFactory.getLogger(CheckpointingStateStore.class);
+
+    /** Store that checkpoints are written to */
+    private final IStateStore delegate;
+
+    /** Interval at which pending checkpoints are written */
+    private final long flushIntervalMs;
+
+    /** Number of updates that triggers a write */
+    private final int maxPendingUpdates;
+
+    /** Latest unwritten data indexed by path */
+    private final transient Map<String, String> latest = new ConcurrentHashMap<String, String>();
+
+    /** Number of updates since last write */
+    private final transient AtomicInteger pendingUpdates = new AtomicInteger();
+
+    /** Scheduler for interval-based writes */
+    private transient ScheduledExecutorService scheduler;
+
+    public CheckpointingStateStore(IStateStore delegate, long flushIntervalMs, int maxPendingUpdates) {
+	this.delegate = delegate;
+	this.flushIntervalMs = flushIntervalMs;
+	this.maxPendingUpdates = maxPendingUpdates;
+    }
+
+    @Override
+    public void open() {
+	delegate.open();
+	scheduler = Executors.newSingleThreadScheduledExecutor(new CheckpointThreadFactory());
+	scheduler.scheduleWithFixedDelay(new Runnable() {
+
+	    @Override
+	    public void run() {
+		try {
+		    flush();
+		} catch (Throwable e) {
+		    logger.warn("Unable to write EventHub checkpoints.", e);
+		}
+	    }
+	}, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+	if (scheduler != null) {
+	    scheduler.shutdownNow();
+	    scheduler = null;
+	}
+	try {
+	    flush();
+	} finally {
+	    delegate.close();
+	}
+    }
+
+    @Override
+    public void saveData(String path, String data) {
+	latest.put(path, data == null ? "" : data);
+	if (pendingUpdates.incrementAndGet() >= maxPendingUpdates) {
+	    flush();
+	}
+    }
+
+    @Override
+    public String readData(String path) {
+	String data = latest.get(path);
+	return (data != null) ? data : delegate.readData(path);
+    }
+
+    /**
+     * Write the latest data for each updated path to the underlying store.
+     * Entries are only removed once written, so values updated during the write
+     * are picked up by the next flush.
+     */
+    @Override
+    public synchronized void flush() {
+	pendingUpdates.set(0);
+	for (Map.Entry<String, String> entry : latest.entrySet()) {
+	    delegate.saveData(entry.getKey(), entry.getValue());
+	    latest.remove(entry.getKey(), entry.getValue());
+	}
+	delegate.flush();
+    }
+
+    /**
+     * Get number of paths with unwritten data.
+     *
+     * @return
+     */
+    public int getPendingCount() {
+	return latest.size();
+    }
+
+    /**
+     * Used for naming checkpoint thread.
+     */
+    private static class CheckpointThreadFactory implements ThreadFactory {
+
+	/** Counts threads */
+	private static AtomicInteger counter = new AtomicInteger();
+
+	public Thread newThread(Runnable r) {
+	    Thread thread = new Thread(r, "SiteWhere EventHub Checkpoint " + counter.incrementAndGet());
+	    thread.setDaemon(true);
+	    return thread;
+	}
+    }
+}
\ No newline at end of file
@@ -35,16 +35,19 @@ public class EventHubReceiverTask {
 
     private static Log LOGGER = LogFactory.getLog(EventHubReceiverTask.class);
 
-    @SuppressWarnings("unused")
+    /** Longest time to wait before checking for newly owned partitions */
+    private static final long MAX_IDLE_WAIT_MS = 1000;
+
     private final UUID instanceId;
     private final EventHubReceiverTaskConfig eventHubConfig;
     private final int checkpointIntervalInSeconds;
 
     private IStateStore stateStore;
+    private boolean createdStateStore;
+    private CheckpointingStateStore checkpointStore;
     private IPartitionCoordinator partitionCoordinator;
     private IPartitionManagerFactory pmFactory;
     private IEventHubReceiverFactory recvFactory;
-    private long lastCheckpointTime;
     private int currentPartitionIndex = -1;
 
     public EventHubReceiverTask(EventHubReceiverTaskConfig config) {
@@ -57,7 +60,6 @@ public class EventHubReceiverTask {
 	this.eventHubConfig = config;
 	this.instanceId = UUID.randomUUID();
 	this.checkpointIntervalInSeconds = config.getCheckpointIntervalInSeconds();
-	this.lastCheckpointTime = System.currentTimeMillis();
 	stateStore = store;
 	this.pmFactory = pmFactory;
 	if (this.pmFactory == null) {
@@ -69,16 +71,27 @@ public class EventHubReceiverTask {
 		}
 	    };
 	}
-	this.recvFactory = recvFactory;
-	if (this.recvFactory == null) {
-	    this.recvFactory = new IEventHubReceiverFactory() {
+	IEventHubReceiverFactory baseFactory = recvFactory;
+	if (baseFactory == null) {
+	    baseFactory = new IEventHubReceiverFactory() {
 		@Override
 		public IEventHubReceiver create(EventHubReceiverTaskConfig config, String partitionId) {
 		    return new EventHubReceiverImpl(config, partitionId);
 		}
 	    };
 	}
-
+	this.recvFactory = baseFactory;
+	if (config.getPrefetchQueueSize() > 0) {
+	    final IEventHubReceiverFactory delegate = baseFactory;
+	    final PrefetchingEventHubReceiver.Availability availability = new PrefetchingEventHubReceiver.Availability();
+	    this.recvFactory = new IEventHubReceiverFactory() {
+		@Override
+		public IEventHubReceiver create(EventHubReceiverTaskConfig config, String partitionId) {
+		    return new PrefetchingEventHubReceiver(delegate.create(config, partitionId), partitionId,
+			    config.getPrefetchQueueSize(), availability);
+		}
+	    };
+	}
     }
 
     /**
@@ -91,11 +104,27 @@ public class EventHubReceiverTask {
 	if (stateStore == null) {
 	    String zkEndpointAddress = eventHubConfig.getZkConnectionString();
 	    stateStore = new ZookeeperStateStore(zkEndpointAddress);
+	    createdStateStore = true;
 	}
 
-	stateStore.open();
+	// Offsets are buffered in memory and written in batches.
+	checkpointStore = new CheckpointingStateStore(stateStore, checkpointIntervalInSeconds * 1000L,
+		eventHubConfig.getCheckpointBatchSize());
+	checkpointStore.open();
 
-	partitionCoordinator = new StaticPartitionCoordinator(eventHubConfig, taskIndex, totalTasks, stateStore,
+	if (eventHubConfig.isDynamicPartitionOwnership()) {
+	    if (!(stateStore instanceof ZookeeperStateStore)) {
+		throw new IllegalStateException("Dynamic partition ownership requires a Zookeeper state store.");
+	    }
+	    LeaderLatchPartitionCoordinator coordinator = new LeaderLatchPartitionCoordinator(eventHubConfig,
+		    ((ZookeeperStateStore) stateStore).getCuratorFramework(), instanceId.toString(), checkpointStore,
+		    pmFactory, recvFactory);
+	    partitionCoordinator = coordinator;
+	    coordinator.start();
+	    return;
+	}
+
+	partitionCoordinator = new StaticPartitionCoordinator(eventHubConfig, taskIndex, totalTasks, checkpointStore,
 		pmFactory, recvFactory);
 
 	for (IPartitionManager partitionManager : partitionCoordinator.getMyPartitionManagers()) {
@@ -106,9 +135,12 @@ public class EventHubReceiverTask {
     @SuppressWarnings("rawtypes")
     public void open(Map context) {
 	LOGGER.info("begin: open()");
-	int totalTasks;
-	totalTasks = (Integer) context.get(Constants.TotalTaskKey);
-	int taskIndex = (Integer) context.get(Constants.TaskIndexKey);
+	int totalTasks = 1;
+	int taskIndex = 0;
+	if (!eventHubConfig.isDynamicPartitionOwnership()) {
+	    totalTasks = (Integer) context.get(Constants.TotalTaskKey);
+	    taskIndex = (Integer) context.get(Constants.TaskIndexKey);
+	}
 	try {
 	    preparePartitions(context, totalTasks, taskIndex);
 	} catch (Exception e) {
@@ -119,10 +151,26 @@ public class EventHubReceiverTask {
 	LOGGER.info("end open()");
     }
 
+    /**
+     * Receive the next event from one of the owned partitions. Events must be
+     * passed to {@link #ack(Object)} or {@link #fail(Object)} once processed so
+     * that the partition checkpoint can advance past them.
+     *
+     * @return
+     */
     public EventData receive() {
 	EventData eventData = null;
 
 	List<IPartitionManager> partitionManagers = partitionCoordinator.getMyPartitionManagers();
+	if (partitionManagers.isEmpty()) {
+	    try {
+		Thread.sleep(Math.min(eventHubConfig.getReceiveTimeoutMs(), MAX_IDLE_WAIT_MS));
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+	    }
+	    return null;
+	}
+
 	for (int i = 0; i < partitionManagers.size(); i++) {
 	    currentPartitionIndex = (currentPartitionIndex + 1) % partitionManagers.size();
 	    IPartitionManager partitionManager = partitionManagers.get(currentPartitionIndex);
@@ -138,13 +186,9 @@ public class EventHubReceiverTask {
 	    }
 	}
 
-	if (eventData != null) {
-	    MessageId messageId = eventData.getMessageId();
-	    LOGGER.info(messageId.toString());
-	    ack(eventData.getMessageId());
+	if ((eventData != null) && (LOGGER.isDebugEnabled())) {
+	    LOGGER.debug(eventData.getMessageId().toString());
 	}
-
-	checkpointIfNeeded();
 	return eventData;
 
 	// We don't need to sleep here because the IPartitionManager.receive()
@@ -155,13 +199,23 @@ public class EventHubReceiverTask {
     public void ack(Object msgId) {
 	MessageId messageId = (MessageId) msgId;
 	IPartitionManager partitionManager = partitionCoordinator.getPartitionManager(messageId.getPartitionId());
+	if (partitionManager == null) {
+	    // partition was released after the event was received
+	    return;
+	}
 	String offset = messageId.getOffset();
 	partitionManager.ack(offset);
+
+	// only updates the in-memory offset until the checkpoint batch is written
+	partitionManager.checkpoint();
     }
 
     public void fail(Object msgId) {
 	MessageId messageId = (MessageId) msgId;
 	IPartitionManager partitionManager = partitionCoordinator.getPartitionManager(messageId.getPartitionId());
+	if (partitionManager == null) {
+	    return;
+	}
 	String offset = messageId.getOffset();
 	partitionManager.fail(offset);
     }
@@ -170,28 +224,41 @@ public class EventHubReceiverTask {
 	// let's checkpoint so that we can get the last checkpoint when
 	// restarting.
 	checkpoint();
+	if (checkpointStore != null) {
+	    checkpointStore.flush();
+	}
     }
 
     public void close() {
-	for (IPartitionManager partitionManager : partitionCoordinator.getMyPartitionManagers()) {
-	    partitionManager.close();
+	if (partitionCoordinator != null) {
+	    partitionCoordinator.close();
+	    partitionCoordinator = null;
+	}
+	if (checkpointStore != null) {
+	    checkpointStore.close();
+	    checkpointStore = null;
+	}
+	if (createdStateStore) {
+	    stateStore = null;
+	    createdStateStore = false;
 	}
-	stateStore.close();
-	stateStore = null;
     }
 
-    private void checkpointIfNeeded() {
-	long nextCheckpointTime = lastCheckpointTime + checkpointIntervalInSeconds * 1000;
-	if (nextCheckpointTime < System.currentTimeMillis()) {
-
-	    checkpoint();
-	    lastCheckpointTime = System.currentTimeMillis();
-	}
+    /**
+     * Get coordinator for partitions owned by this task.
+     *
+     * @return
+     */
+    public IPartitionCoordinator getPartitionCoordinator() {
+	return partitionCoordinator;
     }
 
     private void checkpoint() {
+	if (partitionCoordinator == null) {
+	    return;
+	}
 	for (IPartitionManager partitionManager : partitionCoordinator.getMyPartitionManagers()) {
 	    partitionManager.checkpoint();
 	}
     }
-}
+}
\ No newline at end of file
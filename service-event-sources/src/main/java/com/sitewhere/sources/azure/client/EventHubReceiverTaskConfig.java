@@ -51,6 +51,17 @@ public class EventHubReceiverTaskConfig implements Serializable {
 
     private String connectionString;
     private String targetFqnAddress;
+
+    // number of offset updates buffered before checkpoints are written
+    private int checkpointBatchSize = 1000;
+    // events buffered per partition ahead of processing (0 disables)
+    private int prefetchQueueSize = 0;
+    // time to wait for an event from a partition
+    private long receiveTimeoutMs = 5000;
+    // use Zookeeper leader latches rather than task index for ownership
+    private boolean dynamicPartitionOwnership = false;
+    // interval between checks for partition ownership rebalancing
+    private long rebalanceIntervalMs = 30000;
     // private IEventDataScheme scheme;
 
     public EventHubReceiverTaskConfig(String username, String password, String namespace, String entityPath,
@@ -114,6 +125,46 @@ public class EventHubReceiverTaskConfig implements Serializable {
 	return enqueueTimeFilter;
     }
 
+    public int getCheckpointBatchSize() {
+	return checkpointBatchSize;
+    }
+
+    public void setCheckpointBatchSize(int checkpointBatchSize) {
+	this.checkpointBatchSize = checkpointBatchSize;
+    }
+
+    public int getPrefetchQueueSize() {
+	return prefetchQueueSize;
+    }
+
+    public void setPrefetchQueueSize(int prefetchQueueSize) {
+	this.prefetchQueueSize = prefetchQueueSize;
+    }
+
+    public long getReceiveTimeoutMs() {
+	return receiveTimeoutMs;
+    }
+
+    public void setReceiveTimeoutMs(long receiveTimeoutMs) {
+	this.receiveTimeoutMs = receiveTimeoutMs;
+    }
+
+    public boolean isDynamicPartitionOwnership() {
+	return dynamicPartitionOwnership;
+    }
+
+    public void setDynamicPartitionOwnership(boolean dynamicPartitionOwnership) {
+	this.dynamicPartitionOwnership = dynamicPartitionOwnership;
+    }
+
+    public long getRebalanceIntervalMs() {
+	return rebalanceIntervalMs;
+    }
+
+    public void setRebalanceIntervalMs(long rebalanceIntervalMs) {
+	this.rebalanceIntervalMs = rebalanceIntervalMs;
+    }
+
     // public IEventDataScheme getEventDataScheme() {
     // return scheme;
     // }
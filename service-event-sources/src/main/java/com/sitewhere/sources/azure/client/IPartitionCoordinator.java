@@ -31,4 +31,6 @@ public interface IPartitionCoordinator {
     List<IPartitionManager> getMyPartitionManagers();
 
     IPartitionManager getPartitionManager(String partitionId);
+
+    void close();
 }
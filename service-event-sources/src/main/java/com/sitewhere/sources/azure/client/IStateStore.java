@@ -35,4 +35,6 @@ public interface IStateStore extends Serializable {
     public void saveData(String path, String data);
 
     public String readData(String path);
+
+    public void flush();
 }
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.azure.client;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.leader.LeaderLatch;
+import org.apache.curator.framework.recipes.leader.LeaderLatchListener;
+import org.apache.curator.framework.recipes.leader.Participant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coordinates partition ownership between receiver instances using a Curator
+ * leader latch per partition. Every instance joins every latch and processes
+ * the partitions it leads. Instances that lead more than their share of
+ * partitions periodically give up the excess so that partitions spread across
+ * replicas as they are added, and partitions owned by failed replicas move to
+ * the remaining ones when their sessions expire.
+ * <p>
+ * Ownership changes are applied by the thread calling
+ * {@link #getMyPartitionManagers()} so that a partition manager is never
+ * closed while it is being read. Checkpoints for a partition are flushed
+ * before its latch is released.
+ *
+ * @author Derek
+ */
+public class LeaderLatchPartitionCoordinator implements IPartitionCoordinator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderLatchPartitionCoordinator.class);
+    private static final String ownershipPathPrefix = "/eventhub-ownership";
+
+    private final EventHubReceiverTaskConfig config;
+    private final CuratorFramework curator;
+    private final String participantId;
+    private final IStateStore stateStore;
+    private final IPartitionManagerFactory pmFactory;
+    private final IEventHubReceiverFactory recvFactory;
+
+    /** Latches indexed by partition id */
+    private final Map<String, LeaderLatch> latches = new LinkedHashMap<String, LeaderLatch>();
+
+    /** Open partition managers indexed by partition id */
+    private final Map<String, IPartitionManager> owned = new LinkedHashMap<String, IPartitionManager>();
+
+    /** Snapshot of open partition managers */
+    private volatile List<IPartitionManager> partitionManagers = Collections.emptyList();
+
+    /** Set when latch leadership changes */
+    private volatile boolean leadershipChanged = true;
+
+    /** Time of next rebalance check */
+    private long nextRebalance;
+
+    public LeaderLatchPartitionCoordinator(EventHubReceiverTaskConfig config, CuratorFramework curator,
+	    String participantId, IStateStore stateStore, IPartitionManagerFactory pmFactory,
+	    IEventHubReceiverFactory recvFactory) {
+	this.config = config;
+	this.curator = curator;
+	this.participantId = participantId;
+	this.stateStore = stateStore;
+	this.pmFactory = pmFactory;
+	this.recvFactory = recvFactory;
+    }
+
+    /**
+     * Join the latch for each partition.
+     *
+     * @throws Exception
+     */
+    public void start() throws Exception {
+	for (String partitionId : config.getPartitionList()) {
+	    latches.put(partitionId, joinLatch(partitionId));
+	}
+	nextRebalance = System.currentTimeMillis() + config.getRebalanceIntervalMs();
+    }
+
+    @Override
+    public List<IPartitionManager> getMyPartitionManagers() {
+	if (leadershipChanged) {
+	    leadershipChanged = false;
+	    applyLeadership();
+	}
+	if (System.currentTimeMillis() >= nextRebalance) {
+	    rebalance();
+	    nextRebalance = System.currentTimeMillis() + config.getRebalanceIntervalMs();
+	}
+	return partitionManagers;
+    }
+
+    @Override
+    public IPartitionManager getPartitionManager(String partitionId) {
+	return owned.get(partitionId);
+    }
+
+    /**
+     * Get ids of partitions currently processed by this instance.
+     *
+     * @return
+     */
+    public Set<String> getOwnedPartitionIds() {
+	return new HashSet<String>(owned.keySet());
+    }
+
+    @Override
+    public void close() {
+	for (String partitionId : new ArrayList<String>(owned.keySet())) {
+	    closePartition(partitionId);
+	}
+	for (LeaderLatch latch : latches.values()) {
+	    closeLatch(latch);
+	}
+	latches.clear();
+	updateSnapshot();
+    }
+
+    /**
+     * Open managers for partitions this instance now leads and close managers
+     * for partitions it has lost.
+     */
+    protected void applyLeadership() {
+	for (Map.Entry<String, LeaderLatch> entry : latches.entrySet()) {
+	    String partitionId = entry.getKey();
+	    boolean leader = entry.getValue().hasLeadership();
+	    if (leader && !owned.containsKey(partitionId)) {
+		openPartition(partitionId);
+	    } else if (!leader && owned.containsKey(partitionId)) {
+		logger.info(String.format("%s lost ownership of partitionId %s.", participantId, partitionId));
+		closePartition(partitionId);
+	    }
+	}
+	updateSnapshot();
+    }
+
+    /**
+     * Release partitions beyond this instance's share so that other participants
+     * can take them over.
+     */
+    protected void rebalance() {
+	if (latches.isEmpty()) {
+	    return;
+	}
+	int participants;
+	try {
+	    participants = countParticipants(latches.values().iterator().next().getParticipants());
+	} catch (Exception e) {
+	    logger.warn("Unable to list EventHub partition owners.", e);
+	    return;
+	}
+	if (participants == 0) {
+	    return;
+	}
+	int share = (latches.size() + participants - 1) / participants;
+	List<String> partitionIds = new ArrayList<String>(owned.keySet());
+	for (int i = share; i < partitionIds.size(); i++) {
+	    String partitionId = partitionIds.get(i);
+	    logger.info(String.format("%s releasing partitionId %s to rebalance across %d participants.",
+		    participantId, partitionId, participants));
+	    closePartition(partitionId);
+	    closeLatch(latches.get(partitionId));
+	    try {
+		latches.put(partitionId, joinLatch(partitionId));
+	    } catch (Exception e) {
+		logger.warn("Unable to rejoin ownership latch for partitionId " + partitionId + ".", e);
+		latches.remove(partitionId);
+	    }
+	}
+	updateSnapshot();
+    }
+
+    /**
+     * Create and open the manager for a partition.
+     *
+     * @param partitionId
+     */
+    protected void openPartition(String partitionId) {
+	IEventHubReceiver receiver = recvFactory.create(config, partitionId);
+	IPartitionManager partitionManager = pmFactory.create(config, partitionId, stateStore, receiver);
+	try {
+	    partitionManager.open();
+	    owned.put(partitionId, partitionManager);
+	    logger.info(String.format("%s took ownership of partitionId %s.", participantId, partitionId));
+	} catch (Exception e) {
+	    logger.warn("Unable to open EventHub partitionId " + partitionId + ".", e);
+	    leadershipChanged = true;
+	}
+    }
+
+    /**
+     * Close the manager for a partition and make sure its checkpoint is written
+     * before another instance can take it over.
+     *
+     * @param partitionId
+     */
+    protected void closePartition(String partitionId) {
+	IPartitionManager partitionManager = owned.remove(partitionId);
+	if (partitionManager == null) {
+	    return;
+	}
+	try {
+	    partitionManager.close();
+	    stateStore.flush();
+	} catch (Throwable e) {
+	    logger.warn("Unable to checkpoint EventHub partitionId " + partitionId + " on release.", e);
+	}
+    }
+
+    /**
+     * Join the ownership latch for a partition.
+     *
+     * @param partitionId
+     * @return
+     * @throws Exception
+     */
+    protected LeaderLatch joinLatch(String partitionId) throws Exception {
+	LeaderLatch latch = new LeaderLatch(curator, getOwnershipPath(partitionId), participantId);
+	latch.addListener(new LeaderLatchListener() {
+
+	    @Override
+	    public void isLeader() {
+		leadershipChanged = true;
+	    }
+
+	    @Override
+	    public void notLeader() {
+		leadershipChanged = true;
+	    }
+	});
+	latch.start();
+	return latch;
+    }
+
+    /**
+     * Leave an ownership latch.
+     *
+     * @param latch
+     */
+    protected void closeLatch(LeaderLatch latch) {
+	try {
+	    latch.close();
+	} catch (Exception e) {
+	    logger.warn("Unable to close EventHub ownership latch.", e);
+	}
+    }
+
+    /**
+     * Count distinct participants for a latch.
+     *
+     * @param participants
+     * @return
+     */
+    protected int countParticipants(Collection<Participant> participants) {
+	Set<String> ids = new HashSet<String>();
+	for (Participant participant : participants) {
+	    ids.add(participant.getId());
+	}
+	return ids.size();
+    }
+
+    protected void updateSnapshot() {
+	partitionManagers = Collections.unmodifiableList(new ArrayList<IPartitionManager>(owned.values()));
+    }
+
+    protected String getOwnershipPath(String partitionId) {
+	return ownershipPathPrefix + "/" + config.getNamespace() + "/" + config.getEntityPath() + "/partitions/"
+		+ partitionId;
+    }
+}
\ No newline at end of file
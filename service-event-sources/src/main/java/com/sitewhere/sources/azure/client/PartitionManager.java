@@ -33,8 +33,6 @@ import java.util.TreeSet;
 
 public class PartitionManager extends SimplePartitionManager {
     private static final Logger logger = LoggerFactory.getLogger(PartitionManager.class);
-    private final int ehReceiveTimeoutMs = 5000;
-    // private final int ehReceiveTimeoutMs = -1;
 
     // all sent events are stored in pending
     private final Map<String, EventData> pending;
@@ -58,7 +56,7 @@ public class PartitionManager extends SimplePartitionManager {
 
 	EventData eventData;
 	if (toResend.isEmpty()) {
-	    eventData = receiver.receive(ehReceiveTimeoutMs);
+	    eventData = receiver.receive(config.getReceiveTimeoutMs());
 	} else {
 	    eventData = toResend.pollFirst();
 	}
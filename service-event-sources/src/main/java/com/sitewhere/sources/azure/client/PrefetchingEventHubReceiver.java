@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.azure.client;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Wraps the receiver for a partition with a thread that reads ahead into a
+ * bounded queue. The reader blocks when the queue is full, so a slow consumer
+ * limits how far ahead of processing a partition is read. Receivers created by
+ * the same task share an {@link Availability} so that waiting on an empty
+ * partition returns as soon as any partition has events.
+ *
+ * @author Derek
+ */
+public class PrefetchingEventHubReceiver implements IEventHubReceiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrefetchingEventHubReceiver.class);
+
+    /** Time to wait on a full queue before checking for shutdown */
+    private static final long OFFER_TIMEOUT_MS = 100;
+
+    /** Counts reader threads */
+    private static AtomicInteger counter = new AtomicInteger();
+
+    /** Receiver events are read from */
+    private final IEventHubReceiver delegate;
+
+    /** Partition being read */
+    private final String partitionId;
+
+    /** Events read ahead of processing */
+    private final BlockingQueue<EventData> queue;
+
+    /** Tracks events queued across partitions */
+    private final Availability availability;
+
+    /** Thread reading from the delegate */
+    private Thread reader;
+
+    /** Indicates whether reader should keep running */
+    private volatile boolean running;
+
+    public PrefetchingEventHubReceiver(IEventHubReceiver delegate, String partitionId, int queueSize,
+	    Availability availability) {
+	this.delegate = delegate;
+	this.partitionId = partitionId;
+	this.queue = new ArrayBlockingQueue<EventData>(queueSize);
+	this.availability = availability;
+    }
+
+    @Override
+    public void open(IEventHubReceiverFilter filter) throws EventHubException {
+	delegate.open(filter);
+	running = true;
+	reader = new Thread(new Runnable() {
+
+	    @Override
+	    public void run() {
+		read();
+	    }
+	}, "SiteWhere EventHub Prefetch (" + partitionId + ") " + counter.incrementAndGet());
+	reader.setDaemon(true);
+	reader.start();
+    }
+
+    /**
+     * Read events from the delegate until closed, blocking while the queue is
+     * full.
+     */
+    protected void read() {
+	while (running) {
+	    try {
+		EventData eventData = delegate.receive(OFFER_TIMEOUT_MS);
+		if (eventData == null) {
+		    continue;
+		}
+		while (running) {
+		    if (queue.offer(eventData, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+			availability.added();
+			break;
+		    }
+		}
+	    } catch (InterruptedException e) {
+		return;
+	    } catch (Throwable e) {
+		if (running) {
+		    logger.warn("Error reading from EventHub partition " + partitionId + ".", e);
+		    try {
+			Thread.sleep(OFFER_TIMEOUT_MS);
+		    } catch (InterruptedException ie) {
+			return;
+		    }
+		}
+	    }
+	}
+    }
+
+    @Override
+    public void close() {
+	running = false;
+	if (reader != null) {
+	    reader.interrupt();
+	    try {
+		reader.join(OFFER_TIMEOUT_MS * 10);
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+	    }
+	    reader = null;
+	}
+	availability.removed(queue.size());
+	queue.clear();
+	delegate.close();
+    }
+
+    @Override
+    public boolean isOpen() {
+	return delegate.isOpen();
+    }
+
+    /**
+     * Take the next queued event, waiting up to the given time if none are
+     * queued for any partition.
+     */
+    @Override
+    public EventData receive(long timeoutInMilliseconds) {
+	EventData eventData = queue.poll();
+	if ((eventData == null) && (timeoutInMilliseconds > 0)) {
+	    availability.await(timeoutInMilliseconds);
+	    eventData = queue.poll();
+	}
+	if (eventData != null) {
+	    availability.removed(1);
+	}
+	return eventData;
+    }
+
+    /**
+     * Get number of events waiting to be processed.
+     *
+     * @return
+     */
+    public int getQueuedCount() {
+	return queue.size();
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Map getMetricsData() {
+	return delegate.getMetricsData();
+    }
+
+    /**
+     * Counts events queued across a group of receivers and allows a consumer to
+     * wait until any of them has data.
+     */
+    public static class Availability {
+
+	/** Number of queued events */
+	private int queued;
+
+	public synchronized void added() {
+	    queued++;
+	    notifyAll();
+	}
+
+	public synchronized void removed(int count) {
+	    queued = Math.max(0, queued - count);
+	}
+
+	public synchronized void await(long timeoutMs) {
+	    if (queued == 0) {
+		try {
+		    wait(timeoutMs);
+		} catch (InterruptedException e) {
+		    Thread.currentThread().interrupt();
+		}
+	    }
+	}
+
+	public synchronized int getQueued() {
+	    return queued;
+	}
+    }
+}
\ No newline at end of file
@@ -84,7 +84,7 @@ public class SimplePartitionManager implements IPartitionManager {
     public void checkpoint() {
 	String completedOffset = getCompletedOffset();
 	if (!committedOffset.equals(completedOffset)) {
-	    logger.info("saving state " + completedOffset);
+	    logger.debug("saving state " + completedOffset);
 	    stateStore.saveData(statePath, completedOffset);
 	    committedOffset = completedOffset;
 	}
@@ -96,7 +96,7 @@ public class SimplePartitionManager implements IPartitionManager {
 
     @Override
     public EventData receive() {
-	EventData eventData = receiver.receive(5000);
+	EventData eventData = receiver.receive(config.getReceiveTimeoutMs());
 	if (eventData != null) {
 	    lastOffset = eventData.getMessageId().getOffset();
 	}
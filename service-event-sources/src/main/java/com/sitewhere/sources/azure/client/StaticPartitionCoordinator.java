@@ -72,6 +72,13 @@ public class StaticPartitionCoordinator implements IPartitionCoordinator {
 	return partitionManagerMap.get(partitionId);
     }
 
+    @Override
+    public void close() {
+	for (IPartitionManager partitionManager : partitionManagers) {
+	    partitionManager.close();
+	}
+    }
+
     protected List<String> calculateParititionIdsToOwn() {
 	List<String> taskPartitions = new ArrayList<String>();
 	for (int i = this.taskIndex; i < config.getPartitionCount(); i += this.totalTasks) {
@@ -75,12 +75,21 @@ public class ZookeeperStateStore implements IStateStore {
 		curatorFramework.setData().forPath(statePath, bytes);
 	    }
 
-	    logger.info(String.format("data was saved. path: %s, data: %s.", statePath, data));
+	    logger.debug(String.format("data was saved. path: %s, data: %s.", statePath, data));
 	} catch (Exception e) {
 	    throw new RuntimeException(e);
 	}
     }
 
+    @Override
+    public void flush() {
+	// data is written to Zookeeper as it is saved
+    }
+
+    public CuratorFramework getCuratorFramework() {
+	return curatorFramework;
+    }
+
     @Override
     public String readData(String statePath) {
 	try {
@@ -91,7 +100,7 @@ public class ZookeeperStateStore implements IStateStore {
 		byte[] bytes = curatorFramework.getData().forPath(statePath);
 		String data = new String(bytes);
 
-		logger.info(String.format("data was retrieved. path: %s, data: %s.", statePath, data));
+		logger.debug(String.format("data was retrieved. path: %s, data: %s.", statePath, data));
 
 		return data;
 	    }
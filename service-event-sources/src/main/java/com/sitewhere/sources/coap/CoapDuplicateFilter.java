@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.coap;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+
+/**
+ * Remembers recent requests by sender address, port and message id so that
+ * retransmitted requests are answered with the original response instead of
+ * being processed again.
+ *
+ * @author Derek
+ */
+public class CoapDuplicateFilter {
+
+    /** Default time requests are remembered */
+    public static final long DEFAULT_WINDOW_MS = 60 * 1000;
+
+    /** Default maximum number of requests remembered */
+    public static final int DEFAULT_MAX_ENTRIES = 200000;
+
+    /** Requests by sender and message id */
+    private Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    /** Time requests are remembered */
+    private long windowMs;
+
+    /** Maximum number of requests remembered */
+    private int maxEntries;
+
+    public CoapDuplicateFilter() {
+	this(DEFAULT_WINDOW_MS, DEFAULT_MAX_ENTRIES);
+    }
+
+    public CoapDuplicateFilter(long windowMs, int maxEntries) {
+	this.windowMs = windowMs;
+	this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Register a request. Returns null if the request has not been seen before,
+     * otherwise the entry for the original request.
+     *
+     * @param request
+     * @return
+     */
+    public Entry register(Request request) {
+	String key = getKey(request);
+	if (entries.size() >= maxEntries) {
+	    return entries.get(key);
+	}
+	return entries.putIfAbsent(key, new Entry(key));
+    }
+
+    /**
+     * Record the response sent for a request.
+     *
+     * @param request
+     * @param response
+     */
+    public void complete(Request request, Response response) {
+	Entry entry = entries.get(getKey(request));
+	if (entry != null) {
+	    entry.response = response;
+	}
+    }
+
+    /**
+     * Forget requests older than the window.
+     */
+    public void sweep() {
+	long oldest = System.currentTimeMillis() - windowMs;
+	Iterator<Entry> it = entries.values().iterator();
+	while (it.hasNext()) {
+	    if (it.next().received < oldest) {
+		it.remove();
+	    }
+	}
+    }
+
+    /**
+     * Get number of requests remembered.
+     *
+     * @return
+     */
+    public int size() {
+	return entries.size();
+    }
+
+    /**
+     * Build key from sender and message id.
+     *
+     * @param request
+     * @return
+     */
+    protected String getKey(Request request) {
+	return request.getSource().getHostAddress() + ":" + request.getSourcePort() + "#" + request.getMID();
+    }
+
+    public long getWindowMs() {
+	return windowMs;
+    }
+
+    public int getMaxEntries() {
+	return maxEntries;
+    }
+
+    /**
+     * Request that has been seen.
+     */
+    public static class Entry {
+
+	/** Sender and message id */
+	private final String key;
+
+	/** Time request was received */
+	private final long received = System.currentTimeMillis();
+
+	/** Response sent or null if still processing */
+	private volatile Response response;
+
+	private Entry(String key) {
+	    this.key = key;
+	}
+
+	public String getKey() {
+	    return key;
+	}
+
+	public Response getResponse() {
+	    return response;
+	}
+    }
+}
\ No newline at end of file
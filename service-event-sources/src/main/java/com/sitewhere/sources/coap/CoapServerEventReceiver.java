@@ -39,6 +39,24 @@ public class CoapServerEventReceiver extends InboundEventReceiver<byte[]> {
     /** Port for binding socket */
     private int port = COAP_PORT;
 
+    /** Number of threads processing requests */
+    private int processingThreads = SiteWhereMessageDeliverer.DEFAULT_PROCESSING_THREADS;
+
+    /** Maximum number of requests waiting for processing */
+    private int maxPendingRequests = SiteWhereMessageDeliverer.DEFAULT_MAX_PENDING_REQUESTS;
+
+    /** Time a request may wait for a processing thread */
+    private long queueTimeoutMs = SiteWhereMessageDeliverer.DEFAULT_QUEUE_TIMEOUT_MS;
+
+    /** Time retransmitted requests are detected */
+    private long duplicateWindowMs = CoapDuplicateFilter.DEFAULT_WINDOW_MS;
+
+    /** Number of CoAP protocol stage threads (0 uses Californium default) */
+    private int protocolThreads = 0;
+
+    /** UDP socket send and receive buffer size (0 uses OS default) */
+    private int socketBufferSize = 0;
+
     /** Customized SiteWhere CoAP server */
     private SiteWhereCoapServer server;
 
@@ -52,11 +70,38 @@ public class CoapServerEventReceiver extends InboundEventReceiver<byte[]> {
     @Override
     public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	if (server == null) {
-	    server = new SiteWhereCoapServer(this, getHostname(), getPort());
+	    SiteWhereMessageDeliverer deliverer = new SiteWhereMessageDeliverer(this);
+	    deliverer.setProcessingThreads(getProcessingThreads());
+	    deliverer.setMaxPendingRequests(getMaxPendingRequests());
+	    deliverer.setQueueTimeoutMs(getQueueTimeoutMs());
+	    deliverer.setDuplicateFilter(
+		    new CoapDuplicateFilter(getDuplicateWindowMs(), CoapDuplicateFilter.DEFAULT_MAX_ENTRIES));
+	    server = new SiteWhereCoapServer(deliverer, getHostname(), getPort(), buildNetworkConfig());
 	}
 	server.start();
     }
 
+    /**
+     * Build CoAP endpoint configuration. Standard settings are used unless thread
+     * or buffer settings are overridden.
+     * 
+     * @return
+     */
+    protected NetworkConfig buildNetworkConfig() {
+	if ((getProtocolThreads() <= 0) && (getSocketBufferSize() <= 0)) {
+	    return NetworkConfig.getStandard();
+	}
+	NetworkConfig config = new NetworkConfig();
+	if (getProtocolThreads() > 0) {
+	    config.setInt(NetworkConfig.Keys.PROTOCOL_STAGE_THREAD_COUNT, getProtocolThreads());
+	}
+	if (getSocketBufferSize() > 0) {
+	    config.setInt(NetworkConfig.Keys.UDP_CONNECTOR_RECEIVE_BUFFER, getSocketBufferSize());
+	    config.setInt(NetworkConfig.Keys.UDP_CONNECTOR_SEND_BUFFER, getSocketBufferSize());
+	}
+	return config;
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -113,4 +158,52 @@ public class CoapServerEventReceiver extends InboundEventReceiver<byte[]> {
     public void setPort(int port) {
 	this.port = port;
     }
+
+    public int getProcessingThreads() {
+	return processingThreads;
+    }
+
+    public void setProcessingThreads(int processingThreads) {
+	this.processingThreads = processingThreads;
+    }
+
+    public int getMaxPendingRequests() {
+	return maxPendingRequests;
+    }
+
+    public void setMaxPendingRequests(int maxPendingRequests) {
+	this.maxPendingRequests = maxPendingRequests;
+    }
+
+    public long getQueueTimeoutMs() {
+	return queueTimeoutMs;
+    }
+
+    public void setQueueTimeoutMs(long queueTimeoutMs) {
+	this.queueTimeoutMs = queueTimeoutMs;
+    }
+
+    public long getDuplicateWindowMs() {
+	return duplicateWindowMs;
+    }
+
+    public void setDuplicateWindowMs(long duplicateWindowMs) {
+	this.duplicateWindowMs = duplicateWindowMs;
+    }
+
+    public int getProtocolThreads() {
+	return protocolThreads;
+    }
+
+    public void setProtocolThreads(int protocolThreads) {
+	this.protocolThreads = protocolThreads;
+    }
+
+    public int getSocketBufferSize() {
+	return socketBufferSize;
+    }
+
+    public void setSocketBufferSize(int socketBufferSize) {
+	this.socketBufferSize = socketBufferSize;
+    }
 }
\ No newline at end of file
@@ -11,8 +11,7 @@ import java.net.InetSocketAddress;
 
 import org.eclipse.californium.core.CoapServer;
 import org.eclipse.californium.core.network.CoapEndpoint;
-
-import com.sitewhere.sources.spi.IInboundEventReceiver;
+import org.eclipse.californium.core.network.config.NetworkConfig;
 
 /**
  * Extends default CoAP server functionality to support SiteWhere requests.
@@ -21,10 +20,36 @@ import com.sitewhere.sources.spi.IInboundEventReceiver;
  */
 public class SiteWhereCoapServer extends CoapServer {
 
-    public SiteWhereCoapServer(IInboundEventReceiver<byte[]> receiver, String hostname, int port) {
-	super();
-	setMessageDeliverer(new SiteWhereMessageDeliverer(receiver));
+    /** Handles requests */
+    private SiteWhereMessageDeliverer deliverer;
+
+    public SiteWhereCoapServer(SiteWhereMessageDeliverer deliverer, String hostname, int port, NetworkConfig config) {
+	super(config);
+	this.deliverer = deliverer;
+	setMessageDeliverer(deliverer);
 	InetSocketAddress bindToAddress = new InetSocketAddress(hostname, port);
-	addEndpoint(new CoapEndpoint(bindToAddress));
+	addEndpoint(new CoapEndpoint(bindToAddress, config));
+    }
+
+    /*
+     * @see org.eclipse.californium.core.CoapServer#start()
+     */
+    @Override
+    public void start() {
+	deliverer.start();
+	super.start();
+    }
+
+    /*
+     * @see org.eclipse.californium.core.CoapServer#stop()
+     */
+    @Override
+    public void stop() {
+	super.stop();
+	deliverer.stop();
+    }
+
+    public SiteWhereMessageDeliverer getDeliverer() {
+	return deliverer;
     }
-}
\ No newline at end of file
+}
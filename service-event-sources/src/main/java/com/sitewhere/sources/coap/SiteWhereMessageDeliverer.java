@@ -10,31 +10,53 @@ package com.sitewhere.sources.coap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.CoAP.Type;
 import org.eclipse.californium.core.coap.OptionSet;
+import org.eclipse.californium.core.coap.Request;
 import org.eclipse.californium.core.coap.Response;
 import org.eclipse.californium.core.network.Exchange;
 import org.eclipse.californium.core.server.MessageDeliverer;
 
-import com.sitewhere.rest.model.device.communication.DeviceRequest.Type;
+import com.sitewhere.microservice.kafka.KafkaDeliveryTracker;
+import com.sitewhere.rest.model.device.communication.DeviceRequest;
 import com.sitewhere.sources.spi.IInboundEventReceiver;
+import com.sitewhere.sources.spi.microservice.IEventSourcesMicroservice;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.device.IDevice;
 import com.sitewhere.spi.device.IDeviceManagement;
 import com.sitewhere.spi.tenant.ITenant;
 
 /**
- * Take care of all SiteWhere message handling.
+ * Take care of all SiteWhere message handling. Requests are handed to a bounded
+ * pool of processing threads so that decoding and Kafka hand-off never block
+ * the CoAP endpoint. Confirmable requests that complete quickly get a
+ * piggybacked response. Others are acknowledged with an empty ACK so the client
+ * stops retransmitting, and get a separate response when processing completes.
+ * 
+ * A success response is only sent once the events decoded from the payload
+ * have been delivered to Kafka. A request that waits too long for a processing
+ * thread is answered with 5.03 and dropped without being processed, so a
+ * client that retries it does not create duplicate events. Once processing has
+ * started, the request is always allowed to finish.
  * 
  * @author Derek
  */
 public class SiteWhereMessageDeliverer implements MessageDeliverer {
 
     /** Static logger instance */
-    @SuppressWarnings("unused")
     private static Log LOGGER = LogFactory.getLog(SiteWhereMessageDeliverer.class);
 
     /** Indicates type of event (detected from URI) */
@@ -43,13 +65,80 @@ public class SiteWhereMessageDeliverer implements MessageDeliverer {
     /** Indicates device token (detected from URI) */
     private static final String META_DEVICE_TOKEN = "token";
 
+    /** Default number of threads processing requests */
+    public static final int DEFAULT_PROCESSING_THREADS = 8;
+
+    /** Default maximum number of requests waiting for processing */
+    public static final int DEFAULT_MAX_PENDING_REQUESTS = 10000;
+
+    /** Default time to wait for a piggybacked response before sending an ACK */
+    public static final long DEFAULT_ACCEPT_DELAY_MS = 50;
+
+    /** Default time a request may wait for a processing thread */
+    public static final long DEFAULT_QUEUE_TIMEOUT_MS = 10000;
+
     /** Receiver that handles incoming events */
     private IInboundEventReceiver<byte[]> eventReceiver;
 
+    /** Number of threads processing requests */
+    private int processingThreads = DEFAULT_PROCESSING_THREADS;
+
+    /** Maximum number of requests waiting for processing */
+    private int maxPendingRequests = DEFAULT_MAX_PENDING_REQUESTS;
+
+    /** Time to wait for a piggybacked response before sending an ACK */
+    private long acceptDelayMs = DEFAULT_ACCEPT_DELAY_MS;
+
+    /** Time a request may wait for a processing thread */
+    private long queueTimeoutMs = DEFAULT_QUEUE_TIMEOUT_MS;
+
+    /** Detects retransmitted requests */
+    private CoapDuplicateFilter duplicateFilter = new CoapDuplicateFilter();
+
+    /** Requests that have not been responded to */
+    private Map<Exchange, PendingRequest> pendingRequests = new ConcurrentHashMap<Exchange, PendingRequest>();
+
+    /** Processes requests */
+    private ThreadPoolExecutor processor;
+
+    /** Sends ACKs and timeout responses */
+    private ScheduledThreadPoolExecutor timer;
+
     public SiteWhereMessageDeliverer(IInboundEventReceiver<byte[]> eventReceiver) {
 	this.eventReceiver = eventReceiver;
     }
 
+    /**
+     * Start threads used for processing.
+     */
+    public void start() {
+	this.processor = new ThreadPoolExecutor(getProcessingThreads(), getProcessingThreads(), 0L,
+		TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(getMaxPendingRequests()),
+		new DelivererThreadFactory("CoAP Processor"));
+	this.timer = new ScheduledThreadPoolExecutor(1, new DelivererThreadFactory("CoAP Timer"));
+	timer.setRemoveOnCancelPolicy(true);
+	long sweep = Math.max(1000, getDuplicateFilter().getWindowMs() / 2);
+	timer.scheduleWithFixedDelay(new Runnable() {
+
+	    @Override
+	    public void run() {
+		getDuplicateFilter().sweep();
+	    }
+	}, sweep, sweep, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop processing threads.
+     */
+    public void stop() {
+	if (processor != null) {
+	    processor.shutdownNow();
+	}
+	if (timer != null) {
+	    timer.shutdownNow();
+	}
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -58,9 +147,81 @@ public class SiteWhereMessageDeliverer implements MessageDeliverer {
      */
     @Override
     public void deliverRequest(Exchange exchange) {
-	OptionSet options = exchange.getRequest().getOptions();
-	List<String> paths = options.getUriPath();
-	handleTenantRequest(getEventReceiver().getTenantEngine().getTenant(), paths, exchange);
+	Request request = exchange.getRequest();
+	CoapDuplicateFilter.Entry original = getDuplicateFilter().register(request);
+	if (original != null) {
+	    handleDuplicateRequest(original, exchange);
+	    return;
+	}
+
+	PendingRequest pending = new PendingRequest(exchange);
+	pendingRequests.put(exchange, pending);
+	try {
+	    processor.execute(new Runnable() {
+
+		@Override
+		public void run() {
+		    if (pending.start()) {
+			processRequest(exchange);
+		    }
+		}
+	    });
+	} catch (RejectedExecutionException e) {
+	    createAndSendResponse(ResponseCode.SERVICE_UNAVAILABLE, "Server is busy.", exchange);
+	    return;
+	}
+	if (request.getType() == Type.CON) {
+	    pending.setAcceptFuture(timer.schedule(new Runnable() {
+
+		@Override
+		public void run() {
+		    pending.accept();
+		}
+	    }, getAcceptDelayMs(), TimeUnit.MILLISECONDS));
+	}
+	pending.setTimeoutFuture(timer.schedule(new Runnable() {
+
+	    @Override
+	    public void run() {
+		if (pending.expire(createResponse(ResponseCode.SERVICE_UNAVAILABLE, "Server is busy."))) {
+		    pendingRequests.remove(exchange, pending);
+		    LOGGER.warn("CoAP request not started within " + getQueueTimeoutMs() + "ms. Dropped.");
+		}
+	    }
+	}, getQueueTimeoutMs(), TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Process a request on a processing thread.
+     * 
+     * @param exchange
+     */
+    protected void processRequest(Exchange exchange) {
+	try {
+	    OptionSet options = exchange.getRequest().getOptions();
+	    List<String> paths = options.getUriPath();
+	    handleTenantRequest(getEventReceiver().getTenantEngine().getTenant(), paths, exchange);
+	} catch (Throwable t) {
+	    LOGGER.error("Unhandled exception processing CoAP request.", t);
+	    createAndSendResponse(ResponseCode.INTERNAL_SERVER_ERROR, "Unable to process request.", exchange);
+	}
+    }
+
+    /**
+     * Answer a retransmitted request. If the original has been responded to, the
+     * response is sent again. Otherwise the request is acknowledged and the
+     * original response will follow.
+     * 
+     * @param original
+     * @param exchange
+     */
+    protected void handleDuplicateRequest(CoapDuplicateFilter.Entry original, Exchange exchange) {
+	Response response = original.getResponse();
+	if (response != null) {
+	    exchange.sendResponse(copy(response));
+	} else if (exchange.getRequest().getType() == Type.CON) {
+	    exchange.sendAccept();
+	}
     }
 
     /**
@@ -91,9 +252,8 @@ public class SiteWhereMessageDeliverer implements MessageDeliverer {
 	    switch (exchange.getRequest().getCode()) {
 	    case POST: {
 		Map<String, Object> metadata = new HashMap<String, Object>();
-		metadata.put(META_EVENT_TYPE, Type.RegisterDevice.name());
-		getEventReceiver().onEventPayloadReceived(exchange.getRequest().getPayload(), metadata);
-		createAndSendResponse(ResponseCode.CONTENT, "Device created successfully.", exchange);
+		metadata.put(META_EVENT_TYPE, DeviceRequest.Type.RegisterDevice.name());
+		forwardPayload(metadata, "Device created successfully.", exchange);
 		break;
 	    }
 	    default: {
@@ -151,12 +311,11 @@ public class SiteWhereMessageDeliverer implements MessageDeliverer {
      */
     protected void handleDeviceMeasurements(ITenant tenant, IDevice device, List<String> paths, Exchange exchange) {
 	Map<String, Object> metadata = new HashMap<String, Object>();
-	metadata.put(META_EVENT_TYPE, Type.DeviceMeasurements.name());
+	metadata.put(META_EVENT_TYPE, DeviceRequest.Type.DeviceMeasurements.name());
 	metadata.put(META_DEVICE_TOKEN, device.getToken());
 	switch (exchange.getRequest().getCode()) {
 	case POST: {
-	    getEventReceiver().onEventPayloadReceived(exchange.getRequest().getPayload(), metadata);
-	    createAndSendResponse(ResponseCode.CONTENT, "Device measurements created successfully.", exchange);
+	    forwardPayload(metadata, "Device measurements created successfully.", exchange);
 	    break;
 	}
 	default: {
@@ -175,12 +334,11 @@ public class SiteWhereMessageDeliverer implements MessageDeliverer {
      */
     protected void handleDeviceAlerts(ITenant tenant, IDevice device, List<String> paths, Exchange exchange) {
 	Map<String, Object> metadata = new HashMap<String, Object>();
-	metadata.put(META_EVENT_TYPE, Type.DeviceAlert.name());
+	metadata.put(META_EVENT_TYPE, DeviceRequest.Type.DeviceAlert.name());
 	metadata.put(META_DEVICE_TOKEN, device.getToken());
 	switch (exchange.getRequest().getCode()) {
 	case POST: {
-	    getEventReceiver().onEventPayloadReceived(exchange.getRequest().getPayload(), metadata);
-	    createAndSendResponse(ResponseCode.CONTENT, "Device alert created successfully.", exchange);
+	    forwardPayload(metadata, "Device alert created successfully.", exchange);
 	    break;
 	}
 	default: {
@@ -199,12 +357,11 @@ public class SiteWhereMessageDeliverer implements MessageDeliverer {
      */
     protected void handleDeviceLocations(ITenant tenant, IDevice device, List<String> paths, Exchange exchange) {
 	Map<String, Object> metadata = new HashMap<String, Object>();
-	metadata.put(META_EVENT_TYPE, Type.DeviceLocation.name());
+	metadata.put(META_EVENT_TYPE, DeviceRequest.Type.DeviceLocation.name());
 	metadata.put(META_DEVICE_TOKEN, device.getToken());
 	switch (exchange.getRequest().getCode()) {
 	case POST: {
-	    getEventReceiver().onEventPayloadReceived(exchange.getRequest().getPayload(), metadata);
-	    createAndSendResponse(ResponseCode.CONTENT, "Device location created successfully.", exchange);
+	    forwardPayload(metadata, "Device location created successfully.", exchange);
 	    break;
 	}
 	default: {
@@ -223,12 +380,11 @@ public class SiteWhereMessageDeliverer implements MessageDeliverer {
      */
     protected void handleDeviceAcks(ITenant tenant, IDevice device, List<String> paths, Exchange exchange) {
 	Map<String, Object> metadata = new HashMap<String, Object>();
-	metadata.put(META_EVENT_TYPE, Type.Acknowledge.name());
+	metadata.put(META_EVENT_TYPE, DeviceRequest.Type.Acknowledge.name());
 	metadata.put(META_DEVICE_TOKEN, device.getToken());
 	switch (exchange.getRequest().getCode()) {
 	case POST: {
-	    getEventReceiver().onEventPayloadReceived(exchange.getRequest().getPayload(), metadata);
-	    createAndSendResponse(ResponseCode.CONTENT, "Device acknowledgement created successfully.", exchange);
+	    forwardPayload(metadata, "Device acknowledgement created successfully.", exchange);
 	    break;
 	}
 	default: {
@@ -238,16 +394,72 @@ public class SiteWhereMessageDeliverer implements MessageDeliverer {
     }
 
     /**
-     * Send an error response on the given exchange.
+     * Pass the request payload to the event receiver and respond once the
+     * resulting events have been delivered to Kafka. If delivery fails, the
+     * client is told to retry.
+     * 
+     * @param metadata
+     * @param message
+     * @param exchange
+     */
+    protected void forwardPayload(Map<String, Object> metadata, String message, Exchange exchange) {
+	KafkaDeliveryTracker tracker = new KafkaDeliveryTracker();
+	tracker.bind();
+	try {
+	    getEventReceiver().onEventPayloadReceived(exchange.getRequest().getPayload(), metadata);
+	} finally {
+	    tracker.unbind();
+	}
+	try {
+	    tracker.await();
+	    createAndSendResponse(ResponseCode.CONTENT, message, exchange);
+	} catch (SiteWhereException e) {
+	    LOGGER.error("Unable to deliver events for CoAP request.", e);
+	    createAndSendResponse(ResponseCode.SERVICE_UNAVAILABLE, "Unable to deliver events.", exchange);
+	}
+    }
+
+    /**
+     * Send a response on the given exchange unless the request has already been
+     * answered because it waited too long for a processing thread.
      * 
      * @param code
      * @param message
      * @param exchange
      */
     protected void createAndSendResponse(ResponseCode code, String message, Exchange exchange) {
+	Response response = createResponse(code, message);
+	PendingRequest pending = pendingRequests.remove(exchange);
+	if (pending != null) {
+	    pending.respond(response);
+	} else {
+	    LOGGER.debug("Request already answered. Dropping response: " + code);
+	}
+    }
+
+    /**
+     * Create a response with a text payload.
+     * 
+     * @param code
+     * @param message
+     * @return
+     */
+    protected Response createResponse(ResponseCode code, String message) {
 	Response response = new Response(code);
 	response.setPayload(message);
-	exchange.sendResponse(response);
+	return response;
+    }
+
+    /**
+     * Copy a response so it can be sent for a retransmitted request.
+     * 
+     * @param response
+     * @return
+     */
+    protected Response copy(Response response) {
+	Response copy = new Response(response.getCode());
+	copy.setPayload(response.getPayload());
+	return copy;
     }
 
     /*
@@ -279,7 +491,166 @@ public class SiteWhereMessageDeliverer implements MessageDeliverer {
 	this.eventReceiver = eventReceiver;
     }
 
-    private IDeviceManagement getDeviceManagement(ITenant tenant) {
-	return null;
+    public int getProcessingThreads() {
+	return processingThreads;
+    }
+
+    public void setProcessingThreads(int processingThreads) {
+	this.processingThreads = processingThreads;
+    }
+
+    public int getMaxPendingRequests() {
+	return maxPendingRequests;
+    }
+
+    public void setMaxPendingRequests(int maxPendingRequests) {
+	this.maxPendingRequests = maxPendingRequests;
+    }
+
+    public long getAcceptDelayMs() {
+	return acceptDelayMs;
+    }
+
+    public void setAcceptDelayMs(long acceptDelayMs) {
+	this.acceptDelayMs = acceptDelayMs;
+    }
+
+    public long getQueueTimeoutMs() {
+	return queueTimeoutMs;
+    }
+
+    public void setQueueTimeoutMs(long queueTimeoutMs) {
+	this.queueTimeoutMs = queueTimeoutMs;
+    }
+
+    public CoapDuplicateFilter getDuplicateFilter() {
+	return duplicateFilter;
+    }
+
+    public void setDuplicateFilter(CoapDuplicateFilter duplicateFilter) {
+	this.duplicateFilter = duplicateFilter;
+    }
+
+    protected IDeviceManagement getDeviceManagement(ITenant tenant) {
+	return ((IEventSourcesMicroservice) getEventReceiver().getTenantEngine().getMicroservice())
+		.getDeviceManagementApiDemux().getApiChannel();
+    }
+
+    /**
+     * Request that has been accepted for processing but not responded to. The
+     * ACK and the response are sent under a lock so that a response sent before
+     * the ACK is piggybacked and an ACK is never sent after the response. A
+     * request either starts processing or expires, never both.
+     * 
+     * @author Derek
+     */
+    private class PendingRequest {
+
+	/** Exchange for request */
+	private Exchange exchange;
+
+	/** Indicates a response has been sent */
+	private boolean responded;
+
+	/** Indicates processing has started */
+	private boolean started;
+
+	/** Sends an empty ACK if processing is slow */
+	private ScheduledFuture<?> acceptFuture;
+
+	/** Sends an error if processing times out */
+	private ScheduledFuture<?> timeoutFuture;
+
+	public PendingRequest(Exchange exchange) {
+	    this.exchange = exchange;
+	}
+
+	/**
+	 * Mark request as being processed unless it has already expired.
+	 * 
+	 * @return true if the request should be processed
+	 */
+	public synchronized boolean start() {
+	    if (responded) {
+		return false;
+	    }
+	    started = true;
+	    return true;
+	}
+
+	/**
+	 * Respond with an error if processing has not started.
+	 * 
+	 * @param response
+	 * @return true if the request expired
+	 */
+	public synchronized boolean expire(Response response) {
+	    if (started || responded) {
+		return false;
+	    }
+	    respond(response);
+	    return true;
+	}
+
+	/**
+	 * Acknowledge request if no response has been sent.
+	 */
+	public synchronized void accept() {
+	    if (!responded) {
+		exchange.sendAccept();
+	    }
+	}
+
+	/**
+	 * Send response and cancel pending timers.
+	 * 
+	 * @param response
+	 */
+	public synchronized void respond(Response response) {
+	    if (responded) {
+		return;
+	    }
+	    responded = true;
+	    if (acceptFuture != null) {
+		acceptFuture.cancel(false);
+	    }
+	    if (timeoutFuture != null) {
+		timeoutFuture.cancel(false);
+	    }
+	    exchange.sendResponse(response);
+	    getDuplicateFilter().complete(exchange.getRequest(), response);
+	}
+
+	public synchronized void setAcceptFuture(ScheduledFuture<?> acceptFuture) {
+	    this.acceptFuture = responded ? null : acceptFuture;
+	    if (responded) {
+		acceptFuture.cancel(false);
+	    }
+	}
+
+	public synchronized void setTimeoutFuture(ScheduledFuture<?> timeoutFuture) {
+	    this.timeoutFuture = responded ? null : timeoutFuture;
+	    if (responded) {
+		timeoutFuture.cancel(false);
+	    }
+	}
+    }
+
+    /** Used for naming deliverer threads */
+    private class DelivererThreadFactory implements ThreadFactory {
+
+	/** Prefix for thread names */
+	private String prefix;
+
+	/** Counts threads */
+	private AtomicInteger counter = new AtomicInteger();
+
+	public DelivererThreadFactory(String prefix) {
+	    this.prefix = prefix;
+	}
+
+	public Thread newThread(Runnable r) {
+	    return new Thread(r, prefix + " " + counter.incrementAndGet());
+	}
     }
 }
\ No newline at end of file
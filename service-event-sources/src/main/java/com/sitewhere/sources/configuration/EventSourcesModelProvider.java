@@ -65,6 +65,7 @@ public class EventSourcesModelProvider extends ConfigurationModelProvider {
 	// WebSocket event source.
 	addElement(createWebSocketHeaderElement());
 	addElement(createWebSocketEventSourceElement());
+	addElement(createWebSocketServerEventSourceElement());
 
 	// Binary event decoders.
 	addElement(createProtobufEventDecoderElement());
@@ -164,6 +165,11 @@ public class EventSourcesModelProvider extends ConfigurationModelProvider {
 	builder.attribute(
 		(new AttributeNode.Builder("Consumer threads", "numConsumers", AttributeType.Integer).defaultValue("5")
 			.description("Number of thread used by consumers to pull data from the queue.").build()));
+	builder.attribute((new AttributeNode.Builder("Prefetch count", "prefetchCount", AttributeType.Integer)
+		.defaultValue("250").description("Number of unacknowledged messages delivered to each consumer.")
+		.build()));
+	builder.attribute((new AttributeNode.Builder("Acknowledgement batch size", "batchSize", AttributeType.Integer)
+		.defaultValue("100").description("Number of messages acknowledged together once delivered.").build()));
 
 	return builder.build();
     }
@@ -209,6 +215,19 @@ public class EventSourcesModelProvider extends ConfigurationModelProvider {
 		.description("Username for EventHub connection.").build()));
 	builder.attribute((new AttributeNode.Builder("Password", "password", AttributeType.String)
 		.description("Password for EventHub connection.").build()));
+	builder.attribute((new AttributeNode.Builder("Checkpoint interval (seconds)", "checkpointIntervalSeconds",
+		AttributeType.Integer).defaultValue("10")
+			.description("Number of seconds between writes of partition offsets to the state store.")
+			.build()));
+	builder.attribute((new AttributeNode.Builder("Checkpoint batch size", "checkpointBatchSize",
+		AttributeType.Integer).defaultValue("1000")
+			.description("Number of offset updates that triggers a write to the state store.").build()));
+	builder.attribute((new AttributeNode.Builder("Prefetch queue size", "prefetchQueueSize", AttributeType.Integer)
+		.defaultValue("1000").description("Number of events read ahead of processing for each partition.")
+		.build()));
+	builder.attribute((new AttributeNode.Builder("Dynamic partition ownership", "dynamicPartitionOwnership",
+		AttributeType.Boolean).defaultValue("true")
+			.description("Share partitions between instances using Zookeeper leader latches.").build()));
 
 	return builder.build();
     }
@@ -233,10 +252,18 @@ public class EventSourcesModelProvider extends ConfigurationModelProvider {
 	builder.attribute((new AttributeNode.Builder("Transport URI", "transportUri", AttributeType.String)
 		.description("URI used to configure the trasport for the embedded ActiveMQ broker.").makeRequired()
 		.build()));
+	builder.attribute((new AttributeNode.Builder("Persistent", "persistent", AttributeType.Boolean)
+		.defaultValue("true").description("Store messages in KahaDB so that they survive a restart.").build()));
+	builder.attribute((new AttributeNode.Builder("Data directory", "dataDirectory", AttributeType.String)
+		.description("Directory used to store persistent message queues.").build()));
 	builder.attribute((new AttributeNode.Builder("Queue name", "queueName", AttributeType.String)
 		.description("Name of JMS queue for consumers to pull messages from.").makeRequired().build()));
 	builder.attribute((new AttributeNode.Builder("Number of consumers", "numConsumers", AttributeType.Integer)
 		.description("Number of consumers used to read data from the queue into SiteWhere.").build()));
+	builder.attribute((new AttributeNode.Builder("Prefetch", "prefetch", AttributeType.Integer).defaultValue("250")
+		.description("Number of unacknowledged messages dispatched to each consumer.").build()));
+	builder.attribute((new AttributeNode.Builder("Acknowledgement batch size", "batchSize", AttributeType.Integer)
+		.defaultValue("100").description("Number of messages acknowledged together once delivered.").build()));
 
 	return builder.build();
     }
@@ -264,6 +291,10 @@ public class EventSourcesModelProvider extends ConfigurationModelProvider {
 		.description("Name of JMS queue for consumers to pull messages from.").makeRequired().build()));
 	builder.attribute((new AttributeNode.Builder("Number of consumers", "numConsumers", AttributeType.Integer)
 		.description("Number of consumers used to read data from the queue into SiteWhere.").build()));
+	builder.attribute((new AttributeNode.Builder("Prefetch", "prefetch", AttributeType.Integer).defaultValue("250")
+		.description("Number of unacknowledged messages dispatched to each consumer.").build()));
+	builder.attribute((new AttributeNode.Builder("Acknowledgement batch size", "batchSize", AttributeType.Integer)
+		.defaultValue("100").description("Number of messages acknowledged together once delivered.").build()));
 
 	return builder.build();
     }
@@ -387,6 +418,36 @@ public class EventSourcesModelProvider extends ConfigurationModelProvider {
 	return builder.build();
     }
 
+    /**
+     * Create element configuration for WebSocket server event source.
+     * 
+     * @return
+     */
+    protected ElementNode createWebSocketServerEventSourceElement() {
+	ElementNode.Builder builder = new ElementNode.Builder("WebSocket Server Event Source",
+		IEventSourcesParser.Elements.WebSocketServerEventSource.getLocalName(), "plug",
+		EventSourcesRoleKeys.EventSource, this);
+
+	builder.description("Event source that accepts web socket connections from devices. Each device "
+		+ "authenticates with its device token and sends text or binary frames that are decoded as events.");
+	addEventSourceAttributes(builder);
+
+	// Only accept binary event decoders.
+	builder.specializes(EventSourcesRoleKeys.EventDecoder, EventSourcesRoleKeys.BinaryEventDecoder);
+
+	builder.attribute((new AttributeNode.Builder("Hostname", "hostname", AttributeType.String)
+		.description("Host name used when binding server socket.").defaultValue("localhost").build()));
+	builder.attribute((new AttributeNode.Builder("Port", "port", AttributeType.Integer)
+		.description("Port used when binding server socket.").defaultValue("8585").build()));
+	builder.attribute((new AttributeNode.Builder("Path", "path", AttributeType.String)
+		.description("Path devices connect to.").defaultValue("/events").build()));
+	builder.attribute((new AttributeNode.Builder("Max queued payloads", "maxQueuedPayloads", AttributeType.Integer)
+		.description("Number of payloads queued before reads are suspended on device connections.")
+		.defaultValue("10000").build()));
+
+	return builder.build();
+    }
+
     /**
      * Create element configuration for CoAP server event source.
      * 
@@ -474,6 +535,9 @@ public class EventSourcesModelProvider extends ConfigurationModelProvider {
 
 	builder.description("Event decoder that takes binary messages from an underlying transport "
 		+ "and parses them as the JSON representation of a request from a device.");
+	builder.attribute((new AttributeNode.Builder("Maximum payload size", "maxPayloadSize", AttributeType.Integer)
+		.defaultValue("1048576").description("Payloads larger than this number of bytes are rejected.")
+		.build()));
 	return builder.build();
     }
 
@@ -489,6 +553,13 @@ public class EventSourcesModelProvider extends ConfigurationModelProvider {
 
 	builder.description("Event decoder that takes binary messages from an underlying transport "
 		+ "and parses them as the JSON representation of a batch of device events.");
+	builder.attribute((new AttributeNode.Builder("Maximum payload size", "maxPayloadSize", AttributeType.Integer)
+		.defaultValue("1048576").description("Payloads larger than this number of bytes are rejected.")
+		.build()));
+	builder.attribute(
+		(new AttributeNode.Builder("Maximum events per batch", "maxEventsPerBatch", AttributeType.Integer)
+			.defaultValue("10000").description("Batches with more events than this are rejected.")
+			.build()));
 	return builder.build();
     }
 
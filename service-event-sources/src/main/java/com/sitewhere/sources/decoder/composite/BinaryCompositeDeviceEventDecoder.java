@@ -9,14 +9,20 @@ package com.sitewhere.sources.decoder.composite;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.sitewhere.grpc.client.cache.CacheEntryInvalidator;
+import com.sitewhere.grpc.client.cache.DeviceManagementCacheProviders;
 import com.sitewhere.sources.spi.ICompositeDeviceEventDecoder;
+import com.sitewhere.sources.spi.microservice.IEventSourcesMicroservice;
 import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.IDevice;
 import com.sitewhere.spi.device.IDeviceManagement;
-import com.sitewhere.spi.tenant.ITenant;
+import com.sitewhere.spi.device.IDeviceType;
+import com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor;
 
 /**
  * Concrete implementation of {@link ICompositeDeviceEventDecoder} for binary
@@ -35,6 +41,21 @@ public class BinaryCompositeDeviceEventDecoder extends CompositeDeviceEventDecod
     /** List of decoder choices */
     private List<ICompositeDeviceEventDecoder.IDecoderChoice<byte[]>> decoderChoices = new ArrayList<ICompositeDeviceEventDecoder.IDecoderChoice<byte[]>>();
 
+    /** Cache of device and device type by device token */
+    private DeviceContextCache contextCache = new DeviceContextCache();
+
+    /** Shared cache of devices by token */
+    private DeviceManagementCacheProviders.DeviceCache deviceCache;
+
+    /** Shared cache of device types by id */
+    private DeviceManagementCacheProviders.DeviceTypeByIdCache deviceTypeCache;
+
+    /** Id of listener for device changes */
+    private String deviceListenerId;
+
+    /** Id of listener for device type changes */
+    private String deviceTypeListenerId;
+
     /*
      * (non-Javadoc)
      * 
@@ -44,21 +65,59 @@ public class BinaryCompositeDeviceEventDecoder extends CompositeDeviceEventDecod
      */
     @Override
     public IDeviceContext<byte[]> buildContext(IMessageMetadata<byte[]> metadata) throws SiteWhereException {
-	BinaryDeviceContext context = new BinaryDeviceContext();
-
-	IDeviceManagement devices = getDeviceManagement(getTenantEngine().getTenant());
-	context.setDevice(devices.getDeviceByToken(metadata.getDeviceToken()));
-	if (context.getDevice() == null) {
+	DeviceContextCache.CachedContext cached = getContextCache().get(metadata.getDeviceToken(),
+		new DeviceManagementContextLoader(getDeviceManagement()));
+	if (cached == null) {
 	    throw new SiteWhereException(
 		    "Unable to build device context. Device not found for token: " + metadata.getDeviceToken());
 	}
 
-	context.setDeviceType(devices.getDeviceType(context.getDevice().getDeviceTypeId()));
-
+	BinaryDeviceContext context = new BinaryDeviceContext();
+	context.setDevice(cached.getDevice());
+	context.setDeviceType(cached.getDeviceType());
 	context.setPayload(metadata.getPayload());
 	return context;
     }
 
+    /*
+     * @see com.sitewhere.sources.decoder.composite.CompositeDeviceEventDecoder#
+     * start(com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	super.start(monitor);
+
+	// Drop cached contexts when devices or device types change.
+	getContextCache().clear();
+	this.deviceCache = new DeviceManagementCacheProviders.DeviceCache(getTenantEngine().getMicroservice(), false);
+	this.deviceListenerId = deviceCache.addEntryListener(getTenantEngine().getTenant(), new DeviceInvalidator());
+	this.deviceTypeCache = new DeviceManagementCacheProviders.DeviceTypeByIdCache(
+		getTenantEngine().getMicroservice(), false);
+	this.deviceTypeListenerId = deviceTypeCache.addEntryListener(getTenantEngine().getTenant(),
+		new DeviceTypeInvalidator());
+	if ((deviceListenerId == null) || (deviceTypeListenerId == null)) {
+	    getLogger().warn("Device caches not available. Cached device contexts will only expire by age.");
+	}
+    }
+
+    /*
+     * @see com.sitewhere.sources.decoder.composite.CompositeDeviceEventDecoder#
+     * stop(com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	if (deviceCache != null) {
+	    deviceCache.removeEntryListener(getTenantEngine().getTenant(), deviceListenerId);
+	    deviceListenerId = null;
+	}
+	if (deviceTypeCache != null) {
+	    deviceTypeCache.removeEntryListener(getTenantEngine().getTenant(), deviceTypeListenerId);
+	    deviceTypeListenerId = null;
+	}
+	getContextCache().clear();
+	super.stop(monitor);
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -87,6 +146,14 @@ public class BinaryCompositeDeviceEventDecoder extends CompositeDeviceEventDecod
 	this.decoderChoices = decoderChoices;
     }
 
+    public DeviceContextCache getContextCache() {
+	return contextCache;
+    }
+
+    public void setContextCache(DeviceContextCache contextCache) {
+	this.contextCache = contextCache;
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -97,7 +164,75 @@ public class BinaryCompositeDeviceEventDecoder extends CompositeDeviceEventDecod
 	return LOGGER;
     }
 
-    private IDeviceManagement getDeviceManagement(ITenant tenant) {
-	return null;
+    private IDeviceManagement getDeviceManagement() {
+	return ((IEventSourcesMicroservice) getTenantEngine().getMicroservice()).getDeviceManagementApiDemux()
+		.getApiChannel();
+    }
+
+    /**
+     * Loads device context information via device management.
+     * 
+     * @author Derek
+     */
+    private static class DeviceManagementContextLoader implements DeviceContextCache.IContextLoader {
+
+	/** Device management implementation */
+	private IDeviceManagement devices;
+
+	public DeviceManagementContextLoader(IDeviceManagement devices) {
+	    this.devices = devices;
+	}
+
+	/*
+	 * @see com.sitewhere.sources.decoder.composite.DeviceContextCache.
+	 * IContextLoader#getDeviceByToken(java.lang.String)
+	 */
+	@Override
+	public IDevice getDeviceByToken(String token) throws SiteWhereException {
+	    return devices.getDeviceByToken(token);
+	}
+
+	/*
+	 * @see com.sitewhere.sources.decoder.composite.DeviceContextCache.
+	 * IContextLoader#getDeviceType(java.util.UUID)
+	 */
+	@Override
+	public IDeviceType getDeviceType(UUID id) throws SiteWhereException {
+	    return devices.getDeviceType(id);
+	}
+    }
+
+    /**
+     * Invalidates cached contexts when the shared device cache changes.
+     * 
+     * @author Derek
+     */
+    private class DeviceInvalidator extends CacheEntryInvalidator<String, IDevice> {
+
+	/*
+	 * @see com.sitewhere.grpc.client.cache.CacheEntryInvalidator#invalidate(java.
+	 * lang.Object, java.lang.Object)
+	 */
+	@Override
+	protected void invalidate(String key, IDevice value) {
+	    getContextCache().invalidateDevice(key);
+	}
+    }
+
+    /**
+     * Invalidates cached contexts when the shared device type cache changes.
+     * 
+     * @author Derek
+     */
+    private class DeviceTypeInvalidator extends CacheEntryInvalidator<UUID, IDeviceType> {
+
+	/*
+	 * @see com.sitewhere.grpc.client.cache.CacheEntryInvalidator#invalidate(java.
+	 * lang.Object, java.lang.Object)
+	 */
+	@Override
+	protected void invalidate(UUID key, IDeviceType value) {
+	    getContextCache().invalidateDeviceType(key);
+	}
     }
 }
\ No newline at end of file
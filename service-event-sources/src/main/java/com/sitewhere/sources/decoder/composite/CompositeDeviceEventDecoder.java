@@ -23,8 +23,9 @@ import com.sitewhere.spi.server.lifecycle.LifecycleComponentType;
 
 /**
  * Basic logic for a composite decoder. Extracts metadata from initial payload,
- * looks up device management data to build a context, then loops through a list
- * of potential decoders, returning the first one that applies to the context.
+ * looks up device management data to build a context, then uses the first of a
+ * list of potential decoders that applies to the context. Choices are indexed
+ * by device type token when the decoder is started.
  * 
  * @author Derek
  *
@@ -33,6 +34,9 @@ import com.sitewhere.spi.server.lifecycle.LifecycleComponentType;
 public abstract class CompositeDeviceEventDecoder<T> extends TenantEngineLifecycleComponent
 	implements ICompositeDeviceEventDecoder<T> {
 
+    /** Index of decoder choices */
+    private volatile DecoderChoiceIndex<T> choiceIndex;
+
     public CompositeDeviceEventDecoder() {
 	super(LifecycleComponentType.DeviceEventDecoder);
     }
@@ -59,13 +63,17 @@ public abstract class CompositeDeviceEventDecoder<T> extends TenantEngineLifecyc
 
 	// Parse metadata from payload.
 	IMessageMetadata<T> metadata = getMetadataExtractor().extractMetadata(payload, eventSourceMetadata);
-	getLogger().info("Extracted payload metadata: DeviceToken: " + metadata.getDeviceToken() + " Payload: "
-		+ metadata.getPayload().toString());
+	if (getLogger().isDebugEnabled()) {
+	    getLogger().debug("Extracted payload metadata: DeviceToken: " + metadata.getDeviceToken() + " Payload: "
+		    + metadata.getPayload().toString());
+	}
 
 	try {
 	    IDeviceContext<T> context = buildContext(metadata);
-	    getLogger().debug("Built context: Device: " + context.getDevice().getToken() + " Device type: "
-		    + context.getDeviceType().getToken());
+	    if (getLogger().isDebugEnabled()) {
+		getLogger().debug("Built context: Device: " + context.getDevice().getToken() + " Device type: "
+			+ context.getDeviceType().getToken());
+	    }
 
 	    // Add context metadata to event source metadata.
 	    Map<String, Object> combined = new HashMap<String, Object>();
@@ -75,12 +83,10 @@ public abstract class CompositeDeviceEventDecoder<T> extends TenantEngineLifecyc
 	    combined.put(IDeviceEventDecoder.META_DEVICE, context.getDevice());
 	    combined.put(IDeviceEventDecoder.META_DEVICE_TYPE, context.getDeviceType());
 
-	    // Loop through choices and use first one that applies.
-	    for (ICompositeDeviceEventDecoder.IDecoderChoice<T> choice : getDecoderChoices()) {
-
-		if (choice.appliesTo(context)) {
-		    return choice.getDeviceEventDecoder().decode(context.getPayload(), combined);
-		}
+	    // Use first choice that applies.
+	    ICompositeDeviceEventDecoder.IDecoderChoice<T> choice = getChoiceIndex().find(context);
+	    if (choice != null) {
+		return choice.getDeviceEventDecoder().decode(context.getPayload(), combined);
 	    }
 	} catch (SiteWhereException e) {
 	    throw new EventDecodeException("Exception in composite decoder.", e);
@@ -112,6 +118,7 @@ public abstract class CompositeDeviceEventDecoder<T> extends TenantEngineLifecyc
 	for (ICompositeDeviceEventDecoder.IDecoderChoice<T> choice : getDecoderChoices()) {
 	    startNestedComponent(choice, monitor, true);
 	}
+	this.choiceIndex = new DecoderChoiceIndex<T>(getDecoderChoices());
     }
 
     /*
@@ -130,4 +137,19 @@ public abstract class CompositeDeviceEventDecoder<T> extends TenantEngineLifecyc
 	    choice.lifecycleStop(monitor);
 	}
     }
+
+    /**
+     * Get index of decoder choices, building it if the decoder has not been
+     * started.
+     * 
+     * @return
+     */
+    protected DecoderChoiceIndex<T> getChoiceIndex() {
+	DecoderChoiceIndex<T> index = choiceIndex;
+	if (index == null) {
+	    index = new DecoderChoiceIndex<T>(getDecoderChoices());
+	    choiceIndex = index;
+	}
+	return index;
+    }
 }
\ No newline at end of file
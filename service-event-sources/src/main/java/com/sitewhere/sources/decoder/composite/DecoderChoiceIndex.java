@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.decoder.composite;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sitewhere.sources.spi.ICompositeDeviceEventDecoder.IDecoderChoice;
+import com.sitewhere.sources.spi.ICompositeDeviceEventDecoder.IDeviceContext;
+
+/**
+ * Index of decoder choices that finds the choice for a device type with a map
+ * lookup rather than testing every choice. Choices that do not match on device
+ * type are kept in an ordered fallback list. The result is the same as testing
+ * the choices in their configured order and using the first that applies.
+ *
+ * @author Derek
+ *
+ * @param <T>
+ */
+public class DecoderChoiceIndex<T> {
+
+    /** First device type choice for each device type token */
+    private Map<String, IndexedChoice<T>> choicesByDeviceTypeToken = new HashMap<String, IndexedChoice<T>>();
+
+    /** Choices that are not device type choices, in configured order */
+    private List<IndexedChoice<T>> fallbackChoices = new ArrayList<IndexedChoice<T>>();
+
+    public DecoderChoiceIndex(List<IDecoderChoice<T>> choices) {
+	for (int i = 0; i < choices.size(); i++) {
+	    IDecoderChoice<T> choice = choices.get(i);
+	    if (choice instanceof DeviceTypeDecoderChoice) {
+		String token = ((DeviceTypeDecoderChoice<T>) choice).getDeviceTypeToken();
+		choicesByDeviceTypeToken.putIfAbsent(token, new IndexedChoice<T>(choice, i));
+	    } else {
+		fallbackChoices.add(new IndexedChoice<T>(choice, i));
+	    }
+	}
+    }
+
+    /**
+     * Find the first choice that applies to the context or null if none apply.
+     *
+     * @param context
+     * @return
+     */
+    public IDecoderChoice<T> find(IDeviceContext<T> context) {
+	IndexedChoice<T> typeChoice = choicesByDeviceTypeToken.get(context.getDeviceType().getToken());
+	int typePosition = (typeChoice != null) ? typeChoice.position : Integer.MAX_VALUE;
+	for (IndexedChoice<T> fallback : fallbackChoices) {
+	    if (fallback.position > typePosition) {
+		break;
+	    }
+	    if (fallback.choice.appliesTo(context)) {
+		return fallback.choice;
+	    }
+	}
+	return (typeChoice != null) ? typeChoice.choice : null;
+    }
+
+    /**
+     * Choice with its position in the configured list.
+     *
+     * @param <T>
+     */
+    private static class IndexedChoice<T> {
+
+	/** Decoder choice */
+	private final IDecoderChoice<T> choice;
+
+	/** Position in configured list */
+	private final int position;
+
+	public IndexedChoice(IDecoderChoice<T> choice, int position) {
+	    this.choice = choice;
+	    this.position = position;
+	}
+    }
+}
\ No newline at end of file
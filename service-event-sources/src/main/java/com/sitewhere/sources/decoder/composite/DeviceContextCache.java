@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.decoder.composite;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.IDevice;
+import com.sitewhere.spi.device.IDeviceType;
+
+/**
+ * Caches the device and device type for a device token so that composite
+ * decoders do not look both up for every message. Entries expire after a fixed
+ * time and may be invalidated early when a device or device type changes. The
+ * number of entries is capped and the least recently used entry is evicted
+ * first. Lookups are loaded outside the lock, so a load that started before an
+ * invalidation is returned to its caller but not stored.
+ *
+ * @author Derek
+ */
+public class DeviceContextCache {
+
+    /** Default time an entry remains valid */
+    public static final long DEFAULT_TTL_MS = 60 * 1000;
+
+    /** Default maximum number of cached devices */
+    public static final int DEFAULT_MAX_SIZE = 100000;
+
+    /** Cached contexts by device token in least-recently-used order */
+    private Map<String, CachedContext> contextsByToken;
+
+    /** Incremented on each invalidation so loads started earlier are not stored */
+    private long generation;
+
+    /** Time an entry remains valid */
+    private long ttlMs;
+
+    /** Number of lookups served from the cache */
+    private AtomicLong hitCount = new AtomicLong();
+
+    /** Number of lookups that loaded the context */
+    private AtomicLong missCount = new AtomicLong();
+
+    public DeviceContextCache() {
+	this(DEFAULT_TTL_MS);
+    }
+
+    public DeviceContextCache(long ttlMs) {
+	this(ttlMs, DEFAULT_MAX_SIZE);
+    }
+
+    public DeviceContextCache(long ttlMs, final int maxSize) {
+	this.ttlMs = ttlMs;
+	this.contextsByToken = new LinkedHashMap<String, CachedContext>(16, 0.75f, true) {
+
+	    /** Serial version UID */
+	    private static final long serialVersionUID = 2783155476093470842L;
+
+	    /*
+	     * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+	     */
+	    @Override
+	    protected boolean removeEldestEntry(Map.Entry<String, CachedContext> eldest) {
+		return size() > maxSize;
+	    }
+	};
+    }
+
+    /**
+     * Get the device and device type for a token, loading them if not cached or
+     * expired. Returns null if the device does not exist.
+     *
+     * @param deviceToken
+     * @param loader
+     * @return
+     * @throws SiteWhereException
+     */
+    public CachedContext get(String deviceToken, IContextLoader loader) throws SiteWhereException {
+	long loadGeneration;
+	synchronized (this) {
+	    CachedContext cached = contextsByToken.get(deviceToken);
+	    if ((cached != null) && (cached.expires > System.currentTimeMillis())) {
+		hitCount.incrementAndGet();
+		return cached;
+	    }
+	    loadGeneration = generation;
+	}
+	missCount.incrementAndGet();
+	IDevice device = loader.getDeviceByToken(deviceToken);
+	if (device == null) {
+	    synchronized (this) {
+		contextsByToken.remove(deviceToken);
+	    }
+	    return null;
+	}
+	IDeviceType deviceType = loader.getDeviceType(device.getDeviceTypeId());
+	if (deviceType == null) {
+	    throw new SiteWhereException("Device type not found for device: " + deviceToken);
+	}
+	CachedContext cached = new CachedContext(device, deviceType, System.currentTimeMillis() + ttlMs);
+	synchronized (this) {
+	    if (generation == loadGeneration) {
+		contextsByToken.put(deviceToken, cached);
+	    }
+	}
+	return cached;
+    }
+
+    /**
+     * Remove a device from the cache.
+     *
+     * @param deviceToken
+     */
+    public synchronized void invalidateDevice(String deviceToken) {
+	generation++;
+	contextsByToken.remove(deviceToken);
+    }
+
+    /**
+     * Remove all devices of a device type from the cache.
+     *
+     * @param deviceTypeId
+     */
+    public synchronized void invalidateDeviceType(UUID deviceTypeId) {
+	generation++;
+	contextsByToken.values().removeIf(cached -> deviceTypeId.equals(cached.deviceType.getId()));
+    }
+
+    /**
+     * Remove all devices from the cache.
+     */
+    public synchronized void clear() {
+	generation++;
+	contextsByToken.clear();
+    }
+
+    public synchronized int size() {
+	return contextsByToken.size();
+    }
+
+    public long getHitCount() {
+	return hitCount.get();
+    }
+
+    public long getMissCount() {
+	return missCount.get();
+    }
+
+    public long getTtlMs() {
+	return ttlMs;
+    }
+
+    public void setTtlMs(long ttlMs) {
+	this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Loads devices and device types.
+     *
+     * @author Derek
+     */
+    public static interface IContextLoader {
+
+	/**
+	 * Get device by token or null if not found.
+	 *
+	 * @param token
+	 * @return
+	 * @throws SiteWhereException
+	 */
+	public IDevice getDeviceByToken(String token) throws SiteWhereException;
+
+	/**
+	 * Get device type by id or null if not found.
+	 *
+	 * @param id
+	 * @return
+	 * @throws SiteWhereException
+	 */
+	public IDeviceType getDeviceType(UUID id) throws SiteWhereException;
+    }
+
+    /**
+     * Device and device type with expiration time.
+     *
+     * @author Derek
+     */
+    public static class CachedContext {
+
+	/** Device */
+	private final IDevice device;
+
+	/** Device type */
+	private final IDeviceType deviceType;
+
+	/** Time entry expires */
+	private final long expires;
+
+	public CachedContext(IDevice device, IDeviceType deviceType, long expires) {
+	    this.device = device;
+	    this.deviceType = deviceType;
+	    this.expires = expires;
+	}
+
+	public IDevice getDevice() {
+	    return device;
+	}
+
+	public IDeviceType getDeviceType() {
+	    return deviceType;
+	}
+    }
+}
\ No newline at end of file
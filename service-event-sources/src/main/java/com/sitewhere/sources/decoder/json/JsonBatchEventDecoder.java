@@ -7,31 +7,24 @@
  */
 package com.sitewhere.sources.decoder.json;
 
-import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import com.fasterxml.jackson.core.JsonParseException;
-import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sitewhere.rest.model.device.event.DeviceEventBatch;
 import com.sitewhere.server.lifecycle.TenantEngineLifecycleComponent;
-import com.sitewhere.sources.DecodedDeviceRequest;
 import com.sitewhere.sources.spi.EventDecodeException;
 import com.sitewhere.sources.spi.IDecodedDeviceRequest;
 import com.sitewhere.sources.spi.IDeviceEventDecoder;
-import com.sitewhere.spi.device.event.request.IDeviceAlertCreateRequest;
-import com.sitewhere.spi.device.event.request.IDeviceLocationCreateRequest;
-import com.sitewhere.spi.device.event.request.IDeviceMeasurementsCreateRequest;
 import com.sitewhere.spi.server.lifecycle.LifecycleComponentType;
 
 /**
  * Event decoder that converts a binary payload into the default SiteWhere REST
- * implementations using Jackson to marshal them as JSON.
+ * implementations using Jackson to marshal them as JSON. Events are streamed
+ * from the payload and the batch is rejected as soon as it exceeds the
+ * configured number of events.
  * 
  * DEPRECATED: This only supports events that can be wrapped in a
  * {@link DeviceEventBatch} object and does not offer full-featured support. Use
@@ -44,8 +37,8 @@ public class JsonBatchEventDecoder extends TenantEngineLifecycleComponent implem
     /** Static logger instance */
     private static Log LOGGER = LogFactory.getLog(JsonBatchEventDecoder.class);
 
-    /** Used to map data into an object based on JSON parsing */
-    private ObjectMapper mapper = new ObjectMapper();
+    /** Streaming request parser */
+    private JsonDeviceRequestParser parser = new JsonDeviceRequestParser();
 
     public JsonBatchEventDecoder() {
 	super(LifecycleComponentType.DeviceEventDecoder);
@@ -60,35 +53,7 @@ public class JsonBatchEventDecoder extends TenantEngineLifecycleComponent implem
     @Override
     public List<IDecodedDeviceRequest<?>> decode(byte[] payload, Map<String, Object> metadata)
 	    throws EventDecodeException {
-	try {
-	    List<IDecodedDeviceRequest<?>> events = new ArrayList<IDecodedDeviceRequest<?>>();
-	    DeviceEventBatch batch = mapper.readValue(payload, DeviceEventBatch.class);
-	    for (IDeviceLocationCreateRequest lc : batch.getLocations()) {
-		DecodedDeviceRequest<IDeviceLocationCreateRequest> decoded = new DecodedDeviceRequest<IDeviceLocationCreateRequest>();
-		decoded.setDeviceToken(batch.getHardwareId());
-		decoded.setRequest(lc);
-		events.add(decoded);
-	    }
-	    for (IDeviceMeasurementsCreateRequest mc : batch.getMeasurements()) {
-		DecodedDeviceRequest<IDeviceMeasurementsCreateRequest> decoded = new DecodedDeviceRequest<IDeviceMeasurementsCreateRequest>();
-		decoded.setDeviceToken(batch.getHardwareId());
-		decoded.setRequest(mc);
-		events.add(decoded);
-	    }
-	    for (IDeviceAlertCreateRequest ac : batch.getAlerts()) {
-		DecodedDeviceRequest<IDeviceAlertCreateRequest> decoded = new DecodedDeviceRequest<IDeviceAlertCreateRequest>();
-		decoded.setDeviceToken(batch.getHardwareId());
-		decoded.setRequest(ac);
-		events.add(decoded);
-	    }
-	    return events;
-	} catch (JsonParseException e) {
-	    throw new EventDecodeException(e);
-	} catch (JsonMappingException e) {
-	    throw new EventDecodeException(e);
-	} catch (IOException e) {
-	    throw new EventDecodeException(e);
-	}
+	return parser.parseBatch(payload);
     }
 
     /*
@@ -100,4 +65,20 @@ public class JsonBatchEventDecoder extends TenantEngineLifecycleComponent implem
     public Log getLogger() {
 	return LOGGER;
     }
+
+    public int getMaxPayloadSize() {
+	return parser.getMaxPayloadSize();
+    }
+
+    public void setMaxPayloadSize(int maxPayloadSize) {
+	parser.setMaxPayloadSize(maxPayloadSize);
+    }
+
+    public int getMaxEventsPerBatch() {
+	return parser.getMaxEventsPerBatch();
+    }
+
+    public void setMaxEventsPerBatch(int maxEventsPerBatch) {
+	parser.setMaxEventsPerBatch(maxEventsPerBatch);
+    }
 }
\ No newline at end of file
@@ -7,7 +7,6 @@
  */
 package com.sitewhere.sources.decoder.json;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -15,8 +14,6 @@ import java.util.Map;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import com.fasterxml.jackson.core.JsonParseException;
-import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.sitewhere.server.lifecycle.TenantEngineLifecycleComponent;
@@ -28,7 +25,8 @@ import com.sitewhere.spi.server.lifecycle.LifecycleComponentType;
 
 /**
  * Decodes binary device messages in JSON format into device requests for
- * processing.
+ * processing. Payloads are read with a streaming parser directly into create
+ * requests and payloads over the configured size are rejected before parsing.
  * 
  * @author Derek
  */
@@ -40,6 +38,9 @@ public class JsonDeviceRequestDecoder extends TenantEngineLifecycleComponent imp
     /** Used to map data into an object based on JSON parsing */
     private static ObjectMapper MAPPER = getObjectMapper();
 
+    /** Streaming request parser */
+    private JsonDeviceRequestParser parser = new JsonDeviceRequestParser();
+
     public JsonDeviceRequestDecoder() {
 	super(LifecycleComponentType.DeviceEventDecoder);
     }
@@ -53,18 +54,9 @@ public class JsonDeviceRequestDecoder extends TenantEngineLifecycleComponent imp
     @Override
     public List<IDecodedDeviceRequest<?>> decode(byte[] payload, Map<String, Object> metadata)
 	    throws EventDecodeException {
-	try {
-	    List<IDecodedDeviceRequest<?>> events = new ArrayList<IDecodedDeviceRequest<?>>();
-	    DecodedDeviceRequest<?> decoded = MAPPER.readValue(payload, DecodedDeviceRequest.class);
-	    events.add(decoded);
-	    return events;
-	} catch (JsonParseException e) {
-	    throw new EventDecodeException(e);
-	} catch (JsonMappingException e) {
-	    throw new EventDecodeException(e);
-	} catch (IOException e) {
-	    throw new EventDecodeException(e);
-	}
+	List<IDecodedDeviceRequest<?>> events = new ArrayList<IDecodedDeviceRequest<?>>(1);
+	events.add(parser.parseRequest(payload));
+	return events;
     }
 
     /*
@@ -77,6 +69,14 @@ public class JsonDeviceRequestDecoder extends TenantEngineLifecycleComponent imp
 	return LOGGER;
     }
 
+    public int getMaxPayloadSize() {
+	return parser.getMaxPayloadSize();
+    }
+
+    public void setMaxPayloadSize(int maxPayloadSize) {
+	parser.setMaxPayloadSize(maxPayloadSize);
+    }
+
     /**
      * Get configured {@link ObjectMapper}.
      * 
@@ -0,0 +1,471 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.decoder.json;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.sitewhere.rest.model.device.communication.DeviceRequest.Type;
+import com.sitewhere.rest.model.device.event.request.DeviceAlertCreateRequest;
+import com.sitewhere.rest.model.device.event.request.DeviceCommandResponseCreateRequest;
+import com.sitewhere.rest.model.device.event.request.DeviceLocationCreateRequest;
+import com.sitewhere.rest.model.device.event.request.DeviceMeasurementsCreateRequest;
+import com.sitewhere.rest.model.device.event.request.DeviceRegistrationRequest;
+import com.sitewhere.rest.model.device.event.request.DeviceStreamDataCreateRequest;
+import com.sitewhere.rest.model.device.request.DeviceMappingCreateRequest;
+import com.sitewhere.rest.model.device.request.DeviceStreamCreateRequest;
+import com.sitewhere.sources.DecodedDeviceRequest;
+import com.sitewhere.sources.spi.EventDecodeException;
+import com.sitewhere.sources.spi.IDecodedDeviceRequest;
+import com.sitewhere.spi.device.event.DeviceEventType;
+
+/**
+ * Parses JSON device requests and event batches with a streaming
+ * {@link JsonParser}. Requests are read directly into create request objects
+ * using readers resolved once per type rather than binding the payload to an
+ * intermediate tree or POJO first. Instances are thread safe.
+ *
+ * @author Derek
+ */
+public class JsonDeviceRequestParser {
+
+    /** Default maximum payload size in bytes */
+    public static final int DEFAULT_MAX_PAYLOAD_SIZE = 1024 * 1024;
+
+    /** Default maximum number of events in a batch */
+    public static final int DEFAULT_MAX_EVENTS_PER_BATCH = 10000;
+
+    /** Mapper that supplies the factory and readers */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** Factory for streaming parsers */
+    private static final JsonFactory FACTORY = MAPPER.getFactory();
+
+    /** Readers for request types that bind directly to a create request */
+    private static final Map<Type, ObjectReader> READERS = new EnumMap<Type, ObjectReader>(Type.class);
+
+    /** Reader for measurements in a batch */
+    private static final ObjectReader MEASUREMENTS_READER = MAPPER.readerFor(DeviceMeasurementsCreateRequest.class);
+
+    /** Reader for locations in a batch */
+    private static final ObjectReader LOCATION_READER = MAPPER.readerFor(DeviceLocationCreateRequest.class);
+
+    /** Reader for alerts in a batch */
+    private static final ObjectReader ALERT_READER = MAPPER.readerFor(DeviceAlertCreateRequest.class);
+
+    /** Reader for event dates */
+    private static final ObjectReader DATE_READER = MAPPER.readerFor(Date.class);
+
+    /** Reader for event types */
+    private static final ObjectReader EVENT_TYPE_READER = MAPPER.readerFor(DeviceEventType.class);
+
+    /** Reader for event metadata */
+    private static final ObjectReader METADATA_READER = MAPPER.readerFor(new TypeReference<Map<String, String>>() {
+    });
+
+    /** Handlers for measurements request fields by field name */
+    private static final Map<String, IMeasurementsFieldHandler> MEASUREMENTS_FIELDS = new HashMap<String, IMeasurementsFieldHandler>();
+
+    static {
+	READERS.put(Type.RegisterDevice, MAPPER.readerFor(DeviceRegistrationRequest.class));
+	READERS.put(Type.DeviceLocation, LOCATION_READER);
+	READERS.put(Type.DeviceAlert, ALERT_READER);
+	READERS.put(Type.DeviceStream, MAPPER.readerFor(DeviceStreamCreateRequest.class));
+	READERS.put(Type.DeviceStreamData, MAPPER.readerFor(DeviceStreamDataCreateRequest.class));
+	READERS.put(Type.Acknowledge, MAPPER.readerFor(DeviceCommandResponseCreateRequest.class));
+	READERS.put(Type.MapDevice, MAPPER.readerFor(DeviceMappingCreateRequest.class));
+
+	MEASUREMENTS_FIELDS.put("measurements", (parser, mxs) -> parseMeasurementValues(parser, mxs));
+	MEASUREMENTS_FIELDS.put("alternateId", (parser, mxs) -> mxs.setAlternateId(parser.getValueAsString()));
+	MEASUREMENTS_FIELDS.put("eventType", (parser, mxs) -> mxs.setEventType(EVENT_TYPE_READER.readValue(parser)));
+	MEASUREMENTS_FIELDS.put("eventDate", (parser, mxs) -> mxs.setEventDate(DATE_READER.readValue(parser)));
+	MEASUREMENTS_FIELDS.put("updateState", (parser, mxs) -> mxs.setUpdateState(parser.getValueAsBoolean()));
+	MEASUREMENTS_FIELDS.put("metadata", (parser, mxs) -> {
+	    Map<String, String> metadata = METADATA_READER.readValue(parser);
+	    if (metadata != null) {
+		if (mxs.getMetadata() != null) {
+		    metadata.putAll(mxs.getMetadata());
+		}
+		mxs.setMetadata(metadata);
+	    }
+	});
+    }
+
+    /** Maximum payload size in bytes */
+    private int maxPayloadSize = DEFAULT_MAX_PAYLOAD_SIZE;
+
+    /** Maximum number of events in a batch */
+    private int maxEventsPerBatch = DEFAULT_MAX_EVENTS_PER_BATCH;
+
+    /**
+     * Parse a single device request.
+     *
+     * @param payload
+     * @return
+     * @throws EventDecodeException
+     */
+    public DecodedDeviceRequest<?> parseRequest(byte[] payload) throws EventDecodeException {
+	assertPayloadSize(payload);
+	try (JsonParser parser = FACTORY.createParser(payload)) {
+	    expect(parser, JsonToken.START_OBJECT);
+	    Type type = null;
+	    String deviceToken = null;
+	    String originator = null;
+	    Object request = null;
+	    JsonNode bufferedRequest = null;
+	    boolean hasDeviceToken = false;
+
+	    String field;
+	    while ((field = parser.nextFieldName()) != null) {
+		JsonToken value = parser.nextToken();
+		switch (field) {
+		case "type": {
+		    type = parseType(parser);
+		    break;
+		}
+		case "hardwareId": {
+		    deviceToken = parser.getValueAsString();
+		    hasDeviceToken = true;
+		    break;
+		}
+		case "originator": {
+		    originator = parser.getValueAsString();
+		    break;
+		}
+		case "request": {
+		    if (value == JsonToken.VALUE_NULL) {
+			break;
+		    }
+
+		    // Type usually precedes request. Buffer the request if not.
+		    if (type != null) {
+			request = parseRequestBody(type, parser);
+		    } else {
+			bufferedRequest = MAPPER.readTree(parser);
+		    }
+		    break;
+		}
+		default: {
+		    parser.skipChildren();
+		}
+		}
+	    }
+
+	    if (type == null) {
+		throw new EventDecodeException("Event type is required.");
+	    }
+	    if (bufferedRequest != null) {
+		try (JsonParser buffered = MAPPER.treeAsTokens(bufferedRequest)) {
+		    buffered.nextToken();
+		    request = parseRequestBody(type, buffered);
+		}
+	    }
+	    if (request == null) {
+		throw new EventDecodeException("Request is missing.");
+	    }
+	    if (!hasDeviceToken) {
+		throw new EventDecodeException("Hardware id is missing.");
+	    }
+	    return new DecodedDeviceRequest<Object>(deviceToken, originator, request);
+	} catch (IOException e) {
+	    throw new EventDecodeException(e);
+	}
+    }
+
+    /**
+     * Parse a batch of measurements, locations and alerts for a single device.
+     * Events are returned as locations, then measurements, then alerts. Unknown
+     * fields are rejected as they were when batches were bound to
+     * {@link com.sitewhere.rest.model.device.event.DeviceEventBatch}.
+     *
+     * @param payload
+     * @return
+     * @throws EventDecodeException
+     */
+    public List<IDecodedDeviceRequest<?>> parseBatch(byte[] payload) throws EventDecodeException {
+	assertPayloadSize(payload);
+	try (JsonParser parser = FACTORY.createParser(payload)) {
+	    expect(parser, JsonToken.START_OBJECT);
+	    String deviceToken = null;
+	    List<Object> measurements = new ArrayList<Object>();
+	    List<Object> locations = new ArrayList<Object>();
+	    List<Object> alerts = new ArrayList<Object>();
+	    int count = 0;
+
+	    String field;
+	    while ((field = parser.nextFieldName()) != null) {
+		parser.nextToken();
+		switch (field) {
+		case "hardwareId": {
+		    deviceToken = parser.getValueAsString();
+		    break;
+		}
+		case "measurements": {
+		    count = parseBatchEvents(parser, MEASUREMENTS_READER, measurements, count);
+		    break;
+		}
+		case "locations": {
+		    count = parseBatchEvents(parser, LOCATION_READER, locations, count);
+		    break;
+		}
+		case "alerts": {
+		    count = parseBatchEvents(parser, ALERT_READER, alerts, count);
+		    break;
+		}
+		default: {
+		    throw new EventDecodeException("Unknown field in event batch: " + field);
+		}
+		}
+	    }
+
+	    List<IDecodedDeviceRequest<?>> events = new ArrayList<IDecodedDeviceRequest<?>>(count);
+	    addDecoded(deviceToken, locations, events);
+	    addDecoded(deviceToken, measurements, events);
+	    addDecoded(deviceToken, alerts, events);
+	    return events;
+	} catch (IOException e) {
+	    throw new EventDecodeException(e);
+	}
+    }
+
+    /**
+     * Parse the request body for a request type.
+     *
+     * @param type
+     * @param parser
+     * @return
+     * @throws IOException
+     * @throws EventDecodeException
+     */
+    protected Object parseRequestBody(Type type, JsonParser parser) throws IOException, EventDecodeException {
+	if (type == Type.DeviceMeasurements) {
+	    return parseMeasurementsRequest(parser);
+	}
+	ObjectReader reader = READERS.get(type);
+	if (reader == null) {
+	    throw new EventDecodeException("Unhandled event type: " + type.name());
+	}
+	return reader.readValue(parser);
+    }
+
+    /**
+     * Parse a measurements request. Supports representations that do not
+     * necessarily conform to the object model. Boolean values are converted to
+     * 1.0 or 0.0. String values that are not numeric are added as metadata.
+     *
+     * @param parser
+     * @return
+     * @throws IOException
+     */
+    protected static DeviceMeasurementsCreateRequest parseMeasurementsRequest(JsonParser parser) throws IOException {
+	if (parser.currentToken() != JsonToken.START_OBJECT) {
+	    throw new JsonParseException(parser, "Measurements request must be an object.");
+	}
+	DeviceMeasurementsCreateRequest mxs = new DeviceMeasurementsCreateRequest();
+	String field;
+	while ((field = parser.nextFieldName()) != null) {
+	    parser.nextToken();
+	    IMeasurementsFieldHandler handler = MEASUREMENTS_FIELDS.get(field);
+	    if (handler != null) {
+		handler.handle(parser, mxs);
+	    } else {
+		parser.skipChildren();
+	    }
+	}
+	return mxs;
+    }
+
+    /**
+     * Parse measurement values into a measurements request.
+     *
+     * @param parser
+     * @param mxs
+     * @throws IOException
+     */
+    protected static void parseMeasurementValues(JsonParser parser, DeviceMeasurementsCreateRequest mxs)
+	    throws IOException {
+	if (parser.currentToken() == JsonToken.VALUE_NULL) {
+	    return;
+	}
+	if (parser.currentToken() != JsonToken.START_OBJECT) {
+	    throw new JsonParseException(parser, "Measurements must be an object.");
+	}
+	String name;
+	while ((name = parser.nextFieldName()) != null) {
+	    switch (parser.nextToken()) {
+	    case VALUE_NUMBER_INT:
+	    case VALUE_NUMBER_FLOAT: {
+		mxs.addOrReplaceMeasurement(name, parser.getDoubleValue());
+		break;
+	    }
+	    case VALUE_TRUE: {
+		mxs.addOrReplaceMeasurement(name, 1.0);
+		break;
+	    }
+	    case VALUE_FALSE: {
+		mxs.addOrReplaceMeasurement(name, 0.0);
+		break;
+	    }
+	    case VALUE_STRING: {
+		String text = parser.getText();
+		try {
+		    mxs.addOrReplaceMeasurement(name, Double.parseDouble(text));
+		} catch (NumberFormatException e) {
+		    if (mxs.getMetadata() == null) {
+			mxs.setMetadata(new HashMap<String, String>());
+		    }
+		    mxs.getMetadata().put(name, text);
+		}
+		break;
+	    }
+	    default: {
+		parser.skipChildren();
+	    }
+	    }
+	}
+    }
+
+    /**
+     * Parse an array of batch events, enforcing the batch size limit as events
+     * are read.
+     *
+     * @param parser
+     * @param reader
+     * @param events
+     * @param count
+     * @return updated count of events in batch
+     * @throws IOException
+     * @throws EventDecodeException
+     */
+    protected int parseBatchEvents(JsonParser parser, ObjectReader reader, List<Object> events, int count)
+	    throws IOException, EventDecodeException {
+	if (parser.currentToken() == JsonToken.VALUE_NULL) {
+	    return count;
+	}
+	if (parser.currentToken() != JsonToken.START_ARRAY) {
+	    throw new EventDecodeException("Expected array of events at '" + parser.getCurrentName() + "'.");
+	}
+	while (parser.nextToken() != JsonToken.END_ARRAY) {
+	    if (++count > getMaxEventsPerBatch()) {
+		throw new EventDecodeException("Batch exceeds maximum of " + getMaxEventsPerBatch() + " events.");
+	    }
+	    events.add(reader.readValue(parser));
+	}
+	return count;
+    }
+
+    /**
+     * Wrap parsed events in decoded requests for a device.
+     *
+     * @param deviceToken
+     * @param requests
+     * @param events
+     */
+    protected void addDecoded(String deviceToken, List<Object> requests, List<IDecodedDeviceRequest<?>> events) {
+	for (Object request : requests) {
+	    events.add(new DecodedDeviceRequest<Object>(deviceToken, null, request));
+	}
+    }
+
+    /**
+     * Parse request type and verify it is valid.
+     *
+     * @param parser
+     * @return
+     * @throws IOException
+     * @throws EventDecodeException
+     */
+    protected Type parseType(JsonParser parser) throws IOException, EventDecodeException {
+	String type = parser.getValueAsString();
+	if (type == null) {
+	    throw new EventDecodeException("Event type is required.");
+	}
+	try {
+	    return Type.valueOf(type);
+	} catch (IllegalArgumentException e) {
+	    throw new EventDecodeException("Event type is not valid.");
+	}
+    }
+
+    /**
+     * Reject payloads larger than the configured maximum before parsing.
+     *
+     * @param payload
+     * @throws EventDecodeException
+     */
+    protected void assertPayloadSize(byte[] payload) throws EventDecodeException {
+	if (payload == null) {
+	    throw new EventDecodeException("Payload is missing.");
+	}
+	if (payload.length > getMaxPayloadSize()) {
+	    throw new EventDecodeException(
+		    "Payload of " + payload.length + " bytes exceeds maximum of " + getMaxPayloadSize() + " bytes.");
+	}
+    }
+
+    /**
+     * Verify the next token is the expected type.
+     *
+     * @param parser
+     * @param expected
+     * @throws IOException
+     * @throws EventDecodeException
+     */
+    protected static void expect(JsonParser parser, JsonToken expected) throws IOException, EventDecodeException {
+	JsonToken token = parser.nextToken();
+	if (token != expected) {
+	    throw new EventDecodeException("Expected " + expected + " but found " + token + ".");
+	}
+    }
+
+    public int getMaxPayloadSize() {
+	return maxPayloadSize;
+    }
+
+    public void setMaxPayloadSize(int maxPayloadSize) {
+	this.maxPayloadSize = maxPayloadSize;
+    }
+
+    public int getMaxEventsPerBatch() {
+	return maxEventsPerBatch;
+    }
+
+    public void setMaxEventsPerBatch(int maxEventsPerBatch) {
+	this.maxEventsPerBatch = maxEventsPerBatch;
+    }
+
+    /**
+     * Handles a single field of a measurements request.
+     *
+     * @author Derek
+     */
+    private static interface IMeasurementsFieldHandler {
+
+	/**
+	 * Read the current field value into the request.
+	 *
+	 * @param parser
+	 * @param mxs
+	 * @throws IOException
+	 */
+	public void handle(JsonParser parser, DeviceMeasurementsCreateRequest mxs) throws IOException;
+    }
+}
\ No newline at end of file
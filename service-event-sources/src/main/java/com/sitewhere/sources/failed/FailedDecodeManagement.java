@@ -0,0 +1,531 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.failed;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.EntryView;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryEvictedListener;
+import com.hazelcast.map.listener.EntryRemovedListener;
+
+import com.sitewhere.rest.model.sources.FailedDecodeReplayStatus;
+import com.sitewhere.server.lifecycle.TenantEngineLifecycleComponent;
+import com.sitewhere.sources.kafka.FailedDecodeEventsConsumer;
+import com.sitewhere.sources.spi.IEventSourcesManager;
+import com.sitewhere.sources.spi.IInboundEventSource;
+import com.sitewhere.sources.spi.kafka.IFailedDecodeEventsConsumer;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.search.ISearchResults;
+import com.sitewhere.spi.search.sources.IFailedDecodeSearchCriteria;
+import com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor;
+import com.sitewhere.spi.sources.IFailedDecode;
+import com.sitewhere.spi.sources.IFailedDecodeManagement;
+import com.sitewhere.spi.sources.IFailedDecodeReplayStatus;
+import com.sitewhere.spi.sources.IFailedDecodeSummary;
+
+/**
+ * Indexes payloads from the failed decode topic and replays them through an
+ * event source once its decoder has been fixed.
+ * 
+ * Every instance indexes the full topic, so a replay may be started on any
+ * instance. Failures are claimed in a Hazelcast map shared by all instances
+ * before they are replayed, so each failure is replayed once even when replays
+ * overlap. Claims for payloads that still fail to decode are released. Replay
+ * status is kept in a shared map so that progress can be read from any
+ * instance. A running replay that stops updating its status is treated as
+ * abandoned.
+ *
+ * @author Derek
+ */
+public class FailedDecodeManagement extends TenantEngineLifecycleComponent implements IFailedDecodeManagement {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(FailedDecodeManagement.class);
+
+    /** Number of replayed payloads between status updates */
+    private static final int STATUS_UPDATE_INTERVAL = 1000;
+
+    /** Maximum time between status updates while a replay is running */
+    private static final long STATUS_REFRESH_MS = 5000;
+
+    /** Time without status updates after which a running replay is abandoned */
+    private static final long REPLAY_ABANDONED_MS = 30000;
+
+    /** Maximum time to wait for Hazelcast to become available */
+    private static final long HAZELCAST_WAIT_MS = 2 * 60 * 1000;
+
+    /** Prefix for name of map holding claimed failure ids */
+    private static final String REPLAYED_MAP_PREFIX = "sitewhere:failed-decodes-replayed:";
+
+    /** Prefix for name of map holding replay status */
+    private static final String STATUS_MAP_PREFIX = "sitewhere:failed-decode-replay:";
+
+    /** Key for replay status */
+    private static final String STATUS_KEY = "status";
+
+    /** Identifies this instance as owner of replay claims */
+    private static final String OWNER_ID = UUID.randomUUID().toString();
+
+    /** Event sources manager used to locate replay targets */
+    private IEventSourcesManager eventSourcesManager;
+
+    /** Store that indexes failures */
+    private FailedDecodeStore failedDecodeStore;
+
+    /** Kafka consumer for failed decode topic */
+    private IFailedDecodeEventsConsumer failedDecodeEventsConsumer;
+
+    /** Executor that runs replays */
+    private ExecutorService replayExecutor;
+
+    /** Status of most recent replay started on this instance */
+    private FailedDecodeReplayStatus replayStatus;
+
+    /** Ids of failures claimed for replay by any instance */
+    private IMap<String, String> replayedFailures;
+
+    /** Status of most recent replay started on any instance */
+    private IMap<String, FailedDecodeReplayStatus> replayStatuses;
+
+    /** Registration id for listener on claimed failures */
+    private String replayedListenerId;
+
+    public FailedDecodeManagement(IEventSourcesManager eventSourcesManager) {
+	this(eventSourcesManager, new FailedDecodeStore());
+    }
+
+    public FailedDecodeManagement(IEventSourcesManager eventSourcesManager, FailedDecodeStore failedDecodeStore) {
+	this.eventSourcesManager = eventSourcesManager;
+	this.failedDecodeStore = failedDecodeStore;
+    }
+
+    /*
+     * @see com.sitewhere.server.lifecycle.LifecycleComponent#initialize(com.
+     * sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void initialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	super.initialize(monitor);
+	this.failedDecodeEventsConsumer = new FailedDecodeEventsConsumer(getTenantEngine().getMicroservice(),
+		getTenantEngine(), getFailedDecodeStore());
+	initializeNestedComponent(getFailedDecodeEventsConsumer(), monitor, true);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.server.lifecycle.LifecycleComponent#start(com.sitewhere.spi.
+     * server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	super.start(monitor);
+	HazelcastInstance hazelcast = getHazelcastInstance();
+	String tenantId = getTenantEngine().getTenant().getId().toString();
+	this.replayedFailures = hazelcast.getMap(REPLAYED_MAP_PREFIX + tenantId);
+	this.replayStatuses = hazelcast.getMap(STATUS_MAP_PREFIX + tenantId);
+	this.replayedListenerId = replayedFailures.addEntryListener(new ReplayedFailuresListener(), false);
+	for (String id : replayedFailures.keySet()) {
+	    getFailedDecodeStore().setReplayed(id, true);
+	}
+	this.replayExecutor = Executors.newSingleThreadExecutor(new ReplayThreadFactory());
+	startNestedComponent(getFailedDecodeEventsConsumer(), monitor, true);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.server.lifecycle.LifecycleComponent#stop(com.sitewhere.spi.
+     * server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	super.stop(monitor);
+	stopNestedComponent(getFailedDecodeEventsConsumer(), monitor);
+	if (replayExecutor != null) {
+	    replayExecutor.shutdownNow();
+	}
+	if ((replayedFailures != null) && (replayedListenerId != null)) {
+	    replayedFailures.removeEntryListener(replayedListenerId);
+	    replayedListenerId = null;
+	}
+    }
+
+    /**
+     * Get Hazelcast instance, waiting for it to become available if necessary.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    protected HazelcastInstance getHazelcastInstance() throws SiteWhereException {
+	long deadline = System.currentTimeMillis() + HAZELCAST_WAIT_MS;
+	HazelcastInstance hazelcast = getTenantEngine().getMicroservice().getHazelcastManager()
+		.getHazelcastInstance();
+	while (hazelcast == null) {
+	    if (System.currentTimeMillis() > deadline) {
+		throw new SiteWhereException("Hazelcast not available. Unable to share failed decode replays.");
+	    }
+	    getLogger().info("Waiting for Hazelcast before indexing failed decodes...");
+	    try {
+		Thread.sleep(1000);
+	    } catch (InterruptedException e) {
+		throw new SiteWhereException("Interrupted while waiting for Hazelcast.", e);
+	    }
+	    hazelcast = getTenantEngine().getMicroservice().getHazelcastManager().getHazelcastInstance();
+	}
+	return hazelcast;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.sources.IFailedDecodeManagement#listFailedDecodes(com.
+     * sitewhere.spi.search.sources.IFailedDecodeSearchCriteria)
+     */
+    @Override
+    public ISearchResults<IFailedDecode> listFailedDecodes(IFailedDecodeSearchCriteria criteria)
+	    throws SiteWhereException {
+	return getFailedDecodeStore().list(criteria);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.sources.IFailedDecodeManagement#getFailedDecodeSummaries()
+     */
+    @Override
+    public List<IFailedDecodeSummary> getFailedDecodeSummaries() throws SiteWhereException {
+	return getFailedDecodeStore().getSummaries();
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.sources.IFailedDecodeManagement#sampleFailedDecodes(com.
+     * sitewhere.spi.search.sources.IFailedDecodeSearchCriteria, int)
+     */
+    @Override
+    public List<IFailedDecode> sampleFailedDecodes(IFailedDecodeSearchCriteria criteria, int count)
+	    throws SiteWhereException {
+	return getFailedDecodeStore().sample(criteria, count);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.sources.IFailedDecodeManagement#replayFailedDecodes(com.
+     * sitewhere.spi.search.sources.IFailedDecodeSearchCriteria, java.lang.String,
+     * int)
+     */
+    @Override
+    public synchronized IFailedDecodeReplayStatus replayFailedDecodes(IFailedDecodeSearchCriteria criteria,
+	    String targetSourceId, int maxPerSecond) throws SiteWhereException {
+	IFailedDecodeReplayStatus current = getFailedDecodeReplayStatus();
+	if ((current != null) && (!current.isComplete())) {
+	    throw new SiteWhereException("A replay of failed decodes is already running.");
+	}
+	if (maxPerSecond <= 0) {
+	    throw new SiteWhereException("Replay rate must be greater than zero.");
+	}
+	IInboundEventSource<?> source = getEventSourcesManager().getEventSource(targetSourceId);
+	if (source == null) {
+	    throw new SiteWhereException("Event source not found: " + targetSourceId);
+	}
+	List<FailedDecodeStore.Entry> entries = getFailedDecodeStore().select(criteria);
+	FailedDecodeReplayStatus status = new FailedDecodeReplayStatus();
+	status.setTargetSourceId(targetSourceId);
+	status.setMaxPerSecond(maxPerSecond);
+	status.setMatched(entries.size());
+	status.setStartDate(new Date());
+	if (!publishStart(status)) {
+	    throw new SiteWhereException("A replay of failed decodes is already running.");
+	}
+	this.replayStatus = status;
+	getLogger().info("Replaying " + entries.size() + " failed decodes through '" + targetSourceId + "'.");
+	replayExecutor.execute(new FailedDecodeReplayer(source, entries, status));
+	return copy(status);
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecodeManagement#
+     * getFailedDecodeReplayStatus()
+     */
+    @Override
+    public synchronized IFailedDecodeReplayStatus getFailedDecodeReplayStatus() throws SiteWhereException {
+	if (replayStatuses == null) {
+	    return (replayStatus != null) ? copy(replayStatus) : null;
+	}
+	EntryView<String, FailedDecodeReplayStatus> view = replayStatuses.getEntryView(STATUS_KEY);
+	if (view == null) {
+	    return null;
+	}
+	FailedDecodeReplayStatus status = view.getValue();
+	if ((!status.isComplete()) && (System.currentTimeMillis() - view.getLastUpdateTime() > REPLAY_ABANDONED_MS)) {
+	    status.setEndDate(new Date(view.getLastUpdateTime()));
+	    status.setComplete(true);
+	}
+	return status;
+    }
+
+    /**
+     * Record start of a replay in the shared status map unless another instance
+     * started one since the status was last read.
+     * 
+     * @param status
+     * @return true if the replay may start
+     */
+    protected boolean publishStart(FailedDecodeReplayStatus status) {
+	if (replayStatuses == null) {
+	    return true;
+	}
+	EntryView<String, FailedDecodeReplayStatus> view = replayStatuses.getEntryView(STATUS_KEY);
+	if (view == null) {
+	    return replayStatuses.putIfAbsent(STATUS_KEY, copy(status)) == null;
+	}
+	return replayStatuses.replace(STATUS_KEY, view.getValue(), copy(status));
+    }
+
+    /**
+     * Publish replay progress to the shared status map.
+     * 
+     * @param status
+     */
+    protected void publishStatus(FailedDecodeReplayStatus status) {
+	if (replayStatuses != null) {
+	    replayStatuses.set(STATUS_KEY, copy(status));
+	}
+    }
+
+    /**
+     * Claim a failure for replay.
+     * 
+     * @param id
+     * @return true if the failure was not claimed by any instance
+     */
+    protected boolean claimReplay(String id) {
+	if (replayedFailures == null) {
+	    return getFailedDecodeStore().claimReplay(id);
+	}
+	getFailedDecodeStore().setReplayed(id, true);
+	return replayedFailures.putIfAbsent(id, OWNER_ID, getFailedDecodeStore().getRetentionMs(),
+		TimeUnit.MILLISECONDS) == null;
+    }
+
+    /**
+     * Release claim on a failure that could not be replayed.
+     * 
+     * @param id
+     */
+    protected void releaseReplay(String id) {
+	if (replayedFailures != null) {
+	    replayedFailures.remove(id);
+	}
+	getFailedDecodeStore().setReplayed(id, false);
+    }
+
+    /**
+     * Copy replay status so callers do not see it change while it is returned.
+     *
+     * @param status
+     * @return
+     */
+    protected FailedDecodeReplayStatus copy(FailedDecodeReplayStatus status) {
+	synchronized (status) {
+	    FailedDecodeReplayStatus copy = new FailedDecodeReplayStatus();
+	    copy.setTargetSourceId(status.getTargetSourceId());
+	    copy.setMaxPerSecond(status.getMaxPerSecond());
+	    copy.setMatched(status.getMatched());
+	    copy.setReplayed(status.getReplayed());
+	    copy.setFailed(status.getFailed());
+	    copy.setStartDate(status.getStartDate());
+	    copy.setEndDate(status.getEndDate());
+	    copy.setComplete(status.isComplete());
+	    return copy;
+	}
+    }
+
+    /*
+     * @see com.sitewhere.spi.server.lifecycle.ILifecycleComponent#getLogger()
+     */
+    @Override
+    public Log getLogger() {
+	return LOGGER;
+    }
+
+    public IEventSourcesManager getEventSourcesManager() {
+	return eventSourcesManager;
+    }
+
+    public void setEventSourcesManager(IEventSourcesManager eventSourcesManager) {
+	this.eventSourcesManager = eventSourcesManager;
+    }
+
+    public FailedDecodeStore getFailedDecodeStore() {
+	return failedDecodeStore;
+    }
+
+    public void setFailedDecodeStore(FailedDecodeStore failedDecodeStore) {
+	this.failedDecodeStore = failedDecodeStore;
+    }
+
+    public IFailedDecodeEventsConsumer getFailedDecodeEventsConsumer() {
+	return failedDecodeEventsConsumer;
+    }
+
+    public void setFailedDecodeEventsConsumer(IFailedDecodeEventsConsumer failedDecodeEventsConsumer) {
+	this.failedDecodeEventsConsumer = failedDecodeEventsConsumer;
+    }
+
+    /**
+     * Replays stored payloads through an event source, spacing them evenly to
+     * stay within the requested rate.
+     *
+     * @author Derek
+     */
+    protected class FailedDecodeReplayer implements Runnable {
+
+	/** Event source that decodes payloads */
+	private IInboundEventSource<?> source;
+
+	/** Failures to replay */
+	private List<FailedDecodeStore.Entry> entries;
+
+	/** Status updated as replay progresses */
+	private FailedDecodeReplayStatus status;
+
+	public FailedDecodeReplayer(IInboundEventSource<?> source, List<FailedDecodeStore.Entry> entries,
+		FailedDecodeReplayStatus status) {
+	    this.source = source;
+	    this.entries = entries;
+	    this.status = status;
+	}
+
+	/*
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+	    long intervalNanos = TimeUnit.SECONDS.toNanos(1) / status.getMaxPerSecond();
+	    long next = System.nanoTime();
+	    long lastUpdate = System.currentTimeMillis();
+	    long replayed = 0;
+	    long failed = 0;
+	    try {
+		for (FailedDecodeStore.Entry entry : entries) {
+		    if (System.currentTimeMillis() - lastUpdate > STATUS_REFRESH_MS) {
+			update(replayed, failed, false);
+			lastUpdate = System.currentTimeMillis();
+		    }
+		    if (!claimReplay(entry.getId())) {
+			continue;
+		    }
+		    long wait = next - System.nanoTime();
+		    if (wait > 0) {
+			TimeUnit.NANOSECONDS.sleep(wait);
+		    }
+		    next = Math.max(next, System.nanoTime() - intervalNanos) + intervalNanos;
+		    try {
+			if (source.replayRawPayload(entry.getPayload(), new HashMap<String, Object>())) {
+			    replayed++;
+			} else {
+			    releaseReplay(entry.getId());
+			    failed++;
+			}
+		    } catch (SiteWhereException e) {
+			getLogger().warn("Unable to replay failed decode.", e);
+			releaseReplay(entry.getId());
+			failed++;
+		    }
+		    if (((replayed + failed) % STATUS_UPDATE_INTERVAL) == 0) {
+			update(replayed, failed, false);
+			lastUpdate = System.currentTimeMillis();
+		    }
+		}
+	    } catch (InterruptedException e) {
+		getLogger().warn("Replay of failed decodes interrupted.");
+	    } finally {
+		update(replayed, failed, true);
+		getLogger().info("Replay of failed decodes complete. Replayed: " + replayed + " Failed: " + failed);
+	    }
+	}
+
+	/**
+	 * Publish replay progress.
+	 *
+	 * @param replayed
+	 * @param failed
+	 * @param complete
+	 */
+	protected void update(long replayed, long failed, boolean complete) {
+	    synchronized (status) {
+		status.setReplayed(replayed);
+		status.setFailed(failed);
+		if (complete) {
+		    status.setEndDate(new Date());
+		    status.setComplete(true);
+		}
+	    }
+	    publishStatus(status);
+	}
+    }
+
+    /**
+     * Mirrors claims made by any instance into the local store so that listings
+     * and replay selection skip failures that have been replayed.
+     *
+     * @author Derek
+     */
+    private class ReplayedFailuresListener implements EntryAddedListener<String, String>,
+	    EntryRemovedListener<String, String>, EntryEvictedListener<String, String> {
+
+	/*
+	 * @see com.hazelcast.map.listener.EntryAddedListener#entryAdded(com.hazelcast.
+	 * core.EntryEvent)
+	 */
+	@Override
+	public void entryAdded(EntryEvent<String, String> event) {
+	    getFailedDecodeStore().setReplayed(event.getKey(), true);
+	}
+
+	/*
+	 * @see
+	 * com.hazelcast.map.listener.EntryRemovedListener#entryRemoved(com.hazelcast.
+	 * core.EntryEvent)
+	 */
+	@Override
+	public void entryRemoved(EntryEvent<String, String> event) {
+	    getFailedDecodeStore().setReplayed(event.getKey(), false);
+	}
+
+	/*
+	 * @see
+	 * com.hazelcast.map.listener.EntryEvictedListener#entryEvicted(com.hazelcast.
+	 * core.EntryEvent)
+	 */
+	@Override
+	public void entryEvicted(EntryEvent<String, String> event) {
+	    getFailedDecodeStore().setReplayed(event.getKey(), false);
+	}
+    }
+
+    /** Used for naming replay threads */
+    private class ReplayThreadFactory implements ThreadFactory {
+
+	public Thread newThread(Runnable r) {
+	    return new Thread(r, "Failed Decode Replay");
+	}
+    }
+}
\ No newline at end of file
@@ -0,0 +1,440 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.failed;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import com.sitewhere.rest.model.search.Pager;
+import com.sitewhere.rest.model.search.SearchResults;
+import com.sitewhere.rest.model.sources.FailedDecode;
+import com.sitewhere.rest.model.sources.FailedDecodeSummary;
+import com.sitewhere.spi.search.ISearchResults;
+import com.sitewhere.spi.search.sources.IFailedDecodeSearchCriteria;
+import com.sitewhere.spi.sources.IFailedDecode;
+import com.sitewhere.spi.sources.IFailedDecodeSummary;
+
+/**
+ * Local store for payloads that could not be decoded. Entries are held in
+ * arrival order and share a single key object for each combination of event
+ * source, decoder and error class. The oldest entries are evicted once they
+ * exceed the retention period or the store exceeds its entry or byte limits.
+ * Entries are identified by ids assigned by the caller. Ids of entries that
+ * have been replayed are tracked separately so that replays recorded by other
+ * instances may be applied before or after the entry itself arrives.
+ *
+ * @author Derek
+ */
+public class FailedDecodeStore {
+
+    /** Default time failures are retained */
+    public static final long DEFAULT_RETENTION_MS = 24 * 60 * 60 * 1000;
+
+    /** Default maximum number of failures retained */
+    public static final int DEFAULT_MAX_ENTRIES = 200000;
+
+    /** Default maximum number of payload bytes retained */
+    public static final long DEFAULT_MAX_BYTES = 256 * 1024 * 1024;
+
+    /** Maximum length of stored error messages */
+    public static final int MAX_ERROR_MESSAGE_LENGTH = 512;
+
+    /** Keys by value with count of entries referencing each key */
+    private Map<FailureKey, FailureKey> keys = new HashMap<FailureKey, FailureKey>();
+
+    /** Entries in arrival order */
+    private ArrayDeque<Entry> entries = new ArrayDeque<Entry>();
+
+    /** Ids of entries that have been replayed */
+    private Set<String> replayedIds = new HashSet<String>();
+
+    /** Next id assigned to an entry added without an id */
+    private long nextId = 1;
+
+    /** Total bytes of retained payloads */
+    private long totalBytes;
+
+    /** Time failures are retained */
+    private long retentionMs;
+
+    /** Maximum number of failures retained */
+    private int maxEntries;
+
+    /** Maximum number of payload bytes retained */
+    private long maxBytes;
+
+    /** Used for sampling */
+    private Random random = new Random();
+
+    public FailedDecodeStore() {
+	this(DEFAULT_RETENTION_MS, DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+    }
+
+    public FailedDecodeStore(long retentionMs, int maxEntries, long maxBytes) {
+	this.retentionMs = retentionMs;
+	this.maxEntries = maxEntries;
+	this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Add a failure to the store with a generated id.
+     *
+     * @param sourceId
+     * @param decoder
+     * @param errorClass
+     * @param errorMessage
+     * @param failedDate
+     * @param payload
+     */
+    public synchronized void add(String sourceId, String decoder, String errorClass, String errorMessage,
+	    long failedDate, byte[] payload) {
+	add(String.valueOf(nextId++), sourceId, decoder, errorClass, errorMessage, failedDate, payload);
+    }
+
+    /**
+     * Add a failure to the store.
+     *
+     * @param id
+     * @param sourceId
+     * @param decoder
+     * @param errorClass
+     * @param errorMessage
+     * @param failedDate
+     * @param payload
+     */
+    public synchronized void add(String id, String sourceId, String decoder, String errorClass,
+	    String errorMessage, long failedDate, byte[] payload) {
+	FailureKey key = new FailureKey(sourceId, decoder, errorClass);
+	FailureKey existing = keys.putIfAbsent(key, key);
+	key = (existing != null) ? existing : key;
+	key.count++;
+	if ((errorMessage != null) && (errorMessage.length() > MAX_ERROR_MESSAGE_LENGTH)) {
+	    errorMessage = errorMessage.substring(0, MAX_ERROR_MESSAGE_LENGTH);
+	}
+	entries.addLast(new Entry(id, key, errorMessage, failedDate, payload));
+	totalBytes += payload.length;
+	purge();
+    }
+
+    /**
+     * List failures matching the criteria, most recent first.
+     *
+     * @param criteria
+     * @return
+     */
+    public synchronized ISearchResults<IFailedDecode> list(IFailedDecodeSearchCriteria criteria) {
+	purge();
+	Pager<IFailedDecode> pager = new Pager<IFailedDecode>(criteria);
+	Iterator<Entry> it = entries.descendingIterator();
+	while (it.hasNext()) {
+	    Entry entry = it.next();
+	    boolean replayed = replayedIds.contains(entry.id);
+	    if (entry.matches(criteria, replayed)) {
+		pager.process(entry.asFailedDecode(replayed));
+	    }
+	}
+	return new SearchResults<IFailedDecode>(pager.getResults(), pager.getTotal());
+    }
+
+    /**
+     * Get a random sample of failures matching the criteria.
+     *
+     * @param criteria
+     * @param count
+     * @return
+     */
+    public synchronized List<IFailedDecode> sample(IFailedDecodeSearchCriteria criteria, int count) {
+	purge();
+	List<Entry> sample = new ArrayList<Entry>(count);
+	int seen = 0;
+	for (Entry entry : entries) {
+	    if (!entry.matches(criteria, replayedIds.contains(entry.id))) {
+		continue;
+	    }
+	    seen++;
+	    if (sample.size() < count) {
+		sample.add(entry);
+	    } else {
+		int index = random.nextInt(seen);
+		if (index < count) {
+		    sample.set(index, entry);
+		}
+	    }
+	}
+	List<IFailedDecode> results = new ArrayList<IFailedDecode>(sample.size());
+	for (Entry entry : sample) {
+	    results.add(entry.asFailedDecode(replayedIds.contains(entry.id)));
+	}
+	return results;
+    }
+
+    /**
+     * Get failure counts by event source, decoder and error class.
+     *
+     * @return
+     */
+    public synchronized List<IFailedDecodeSummary> getSummaries() {
+	purge();
+	Map<FailureKey, FailedDecodeSummary> summaries = new LinkedHashMap<FailureKey, FailedDecodeSummary>();
+	for (Entry entry : entries) {
+	    FailedDecodeSummary summary = summaries.get(entry.key);
+	    if (summary == null) {
+		summary = new FailedDecodeSummary();
+		summary.setSourceId(entry.key.sourceId);
+		summary.setDecoder(entry.key.decoder);
+		summary.setErrorClass(entry.key.errorClass);
+		summary.setFirstFailedDate(new Date(entry.failedDate));
+		summaries.put(entry.key, summary);
+	    }
+	    summary.setCount(summary.getCount() + 1);
+	    summary.setLastFailedDate(new Date(entry.failedDate));
+	}
+	return new ArrayList<IFailedDecodeSummary>(summaries.values());
+    }
+
+    /**
+     * Get failures matching the criteria in arrival order. Used to select
+     * failures for replay.
+     *
+     * @param criteria
+     * @return
+     */
+    public synchronized List<Entry> select(IFailedDecodeSearchCriteria criteria) {
+	purge();
+	List<Entry> matches = new ArrayList<Entry>();
+	for (Entry entry : entries) {
+	    if (entry.matches(criteria, replayedIds.contains(entry.id))) {
+		matches.add(entry);
+	    }
+	}
+	return matches;
+    }
+
+    /**
+     * Record that the entry with the given id is being or has been replayed.
+     *
+     * @param id
+     * @return true if the entry was not already marked as replayed
+     */
+    public synchronized boolean claimReplay(String id) {
+	return replayedIds.add(id);
+    }
+
+    /**
+     * Set whether the entry with the given id has been replayed.
+     *
+     * @param id
+     * @param replayed
+     */
+    public synchronized void setReplayed(String id, boolean replayed) {
+	if (replayed) {
+	    replayedIds.add(id);
+	} else {
+	    replayedIds.remove(id);
+	}
+    }
+
+    /**
+     * Indicates whether the entry with the given id has been replayed.
+     *
+     * @param id
+     * @return
+     */
+    public synchronized boolean isReplayed(String id) {
+	return replayedIds.contains(id);
+    }
+
+    /**
+     * Evict failures that have expired or exceed the store limits.
+     */
+    protected void purge() {
+	long oldest = System.currentTimeMillis() - getRetentionMs();
+	while (!entries.isEmpty()) {
+	    Entry entry = entries.peekFirst();
+	    if ((entry.failedDate >= oldest) && (entries.size() <= getMaxEntries()) && (totalBytes <= getMaxBytes())) {
+		break;
+	    }
+	    entries.removeFirst();
+	    replayedIds.remove(entry.id);
+	    totalBytes -= entry.payload.length;
+	    if (--entry.key.count == 0) {
+		keys.remove(entry.key);
+	    }
+	}
+    }
+
+    public synchronized int size() {
+	return entries.size();
+    }
+
+    public synchronized long getTotalBytes() {
+	return totalBytes;
+    }
+
+    public long getRetentionMs() {
+	return retentionMs;
+    }
+
+    public void setRetentionMs(long retentionMs) {
+	this.retentionMs = retentionMs;
+    }
+
+    public int getMaxEntries() {
+	return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+	this.maxEntries = maxEntries;
+    }
+
+    public long getMaxBytes() {
+	return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+	this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Combination of event source, decoder and error class shared by all entries
+     * with the same values.
+     */
+    private static class FailureKey {
+
+	/** Event source id */
+	private final String sourceId;
+
+	/** Decoder name */
+	private final String decoder;
+
+	/** Error class name */
+	private final String errorClass;
+
+	/** Number of entries referencing key */
+	private int count;
+
+	public FailureKey(String sourceId, String decoder, String errorClass) {
+	    this.sourceId = sourceId;
+	    this.decoder = decoder;
+	    this.errorClass = errorClass;
+	}
+
+	/*
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+	    return (31 * ((31 * sourceId.hashCode()) + decoder.hashCode())) + errorClass.hashCode();
+	}
+
+	/*
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+	    if (!(obj instanceof FailureKey)) {
+		return false;
+	    }
+	    FailureKey other = (FailureKey) obj;
+	    return sourceId.equals(other.sourceId) && decoder.equals(other.decoder)
+		    && errorClass.equals(other.errorClass);
+	}
+    }
+
+    /**
+     * Stored failure.
+     */
+    public static class Entry {
+
+	/** Unique id */
+	private final String id;
+
+	/** Shared key */
+	private final FailureKey key;
+
+	/** Error message */
+	private final String errorMessage;
+
+	/** Date decoding failed */
+	private final long failedDate;
+
+	/** Raw payload */
+	private final byte[] payload;
+
+	private Entry(String id, FailureKey key, String errorMessage, long failedDate, byte[] payload) {
+	    this.id = id;
+	    this.key = key;
+	    this.errorMessage = errorMessage;
+	    this.failedDate = failedDate;
+	    this.payload = payload;
+	}
+
+	/**
+	 * Indicates whether the entry matches search criteria.
+	 *
+	 * @param criteria
+	 * @param replayed
+	 * @return
+	 */
+	protected boolean matches(IFailedDecodeSearchCriteria criteria, boolean replayed) {
+	    if (replayed && !criteria.isIncludeReplayed()) {
+		return false;
+	    }
+	    if ((criteria.getSourceId() != null) && (!criteria.getSourceId().equals(key.sourceId))) {
+		return false;
+	    }
+	    if ((criteria.getDecoder() != null) && (!criteria.getDecoder().equals(key.decoder))) {
+		return false;
+	    }
+	    if ((criteria.getErrorClass() != null) && (!criteria.getErrorClass().equals(key.errorClass))) {
+		return false;
+	    }
+	    return true;
+	}
+
+	/**
+	 * Create model object for the entry.
+	 *
+	 * @param replayed
+	 * @return
+	 */
+	protected FailedDecode asFailedDecode(boolean replayed) {
+	    FailedDecode failed = new FailedDecode();
+	    failed.setId(id);
+	    failed.setSourceId(key.sourceId);
+	    failed.setDecoder(key.decoder);
+	    failed.setErrorClass(key.errorClass);
+	    failed.setErrorMessage(errorMessage);
+	    failed.setFailedDate(new Date(failedDate));
+	    failed.setReplayed(replayed);
+	    failed.setPayload(payload);
+	    return failed;
+	}
+
+	public String getId() {
+	    return id;
+	}
+
+	public String getSourceId() {
+	    return key.sourceId;
+	}
+
+	public byte[] getPayload() {
+	    return payload;
+	}
+    }
+}
\ No newline at end of file
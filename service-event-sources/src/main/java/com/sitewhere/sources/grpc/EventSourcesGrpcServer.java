@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.grpc;
+
+import com.sitewhere.microservice.grpc.MultitenantGrpcServer;
+import com.sitewhere.sources.spi.grpc.IEventSourcesGrpcServer;
+import com.sitewhere.sources.spi.microservice.IEventSourcesMicroservice;
+
+/**
+ * Hosts a GRPC server that handles event sources requests.
+ * 
+ * @author Derek
+ */
+public class EventSourcesGrpcServer extends MultitenantGrpcServer implements IEventSourcesGrpcServer {
+
+    public EventSourcesGrpcServer(IEventSourcesMicroservice microservice) {
+	super(microservice, new EventSourcesRouter(microservice));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.grpc;
+
+import java.util.List;
+
+import com.sitewhere.grpc.client.GrpcUtils;
+import com.sitewhere.grpc.model.sources.EventSourcesModelConverter;
+import com.sitewhere.grpc.service.EventSourcesGrpc;
+import com.sitewhere.grpc.service.GGetEventSourcesMetricsRequest;
+import com.sitewhere.grpc.service.GGetEventSourcesMetricsResponse;
+import com.sitewhere.grpc.service.GGetFailedDecodeReplayStatusRequest;
+import com.sitewhere.grpc.service.GGetFailedDecodeReplayStatusResponse;
+import com.sitewhere.grpc.service.GGetFailedDecodeSummariesRequest;
+import com.sitewhere.grpc.service.GGetFailedDecodeSummariesResponse;
+import com.sitewhere.grpc.service.GListFailedDecodesRequest;
+import com.sitewhere.grpc.service.GListFailedDecodesResponse;
+import com.sitewhere.grpc.service.GReplayFailedDecodesRequest;
+import com.sitewhere.grpc.service.GReplayFailedDecodesResponse;
+import com.sitewhere.grpc.service.GSampleFailedDecodesRequest;
+import com.sitewhere.grpc.service.GSampleFailedDecodesResponse;
+import com.sitewhere.spi.search.ISearchResults;
+import com.sitewhere.spi.sources.IEventSourcesMetrics;
+import com.sitewhere.spi.sources.IEventSourcesMonitoring;
+import com.sitewhere.spi.sources.IFailedDecode;
+import com.sitewhere.spi.sources.IFailedDecodeManagement;
+import com.sitewhere.spi.sources.IFailedDecodeReplayStatus;
+import com.sitewhere.spi.sources.IFailedDecodeSummary;
+
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Implements server logic for event sources GRPC requests.
+ *
+ * @author Derek
+ */
+public class EventSourcesImpl extends EventSourcesGrpc.EventSourcesImplBase {
+
+    /** Failed decode management */
+    private IFailedDecodeManagement failedDecodeManagement;
+
+    /** Event sources monitoring */
+    private IEventSourcesMonitoring eventSourcesMonitoring;
+
+    public EventSourcesImpl(IFailedDecodeManagement failedDecodeManagement,
+	    IEventSourcesMonitoring eventSourcesMonitoring) {
+	this.failedDecodeManagement = failedDecodeManagement;
+	this.eventSourcesMonitoring = eventSourcesMonitoring;
+    }
+
+    /*
+     * @see com.sitewhere.grpc.service.EventSourcesGrpc.EventSourcesImplBase#
+     * listFailedDecodes(com.sitewhere.grpc.service.GListFailedDecodesRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void listFailedDecodes(GListFailedDecodesRequest request,
+	    StreamObserver<GListFailedDecodesResponse> responseObserver) {
+	try {
+	    GrpcUtils.logServerMethodEntry(EventSourcesGrpc.METHOD_LIST_FAILED_DECODES);
+	    ISearchResults<IFailedDecode> apiResult = getFailedDecodeManagement().listFailedDecodes(
+		    EventSourcesModelConverter.asApiFailedDecodeSearchCriteria(request.getCriteria()));
+	    GListFailedDecodesResponse.Builder response = GListFailedDecodesResponse.newBuilder();
+	    response.setResults(EventSourcesModelConverter.asGrpcFailedDecodeSearchResults(apiResult));
+	    responseObserver.onNext(response.build());
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(EventSourcesGrpc.METHOD_LIST_FAILED_DECODES, e, responseObserver);
+	}
+    }
+
+    /*
+     * @see com.sitewhere.grpc.service.EventSourcesGrpc.EventSourcesImplBase#
+     * getFailedDecodeSummaries(com.sitewhere.grpc.service.
+     * GGetFailedDecodeSummariesRequest, io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void getFailedDecodeSummaries(GGetFailedDecodeSummariesRequest request,
+	    StreamObserver<GGetFailedDecodeSummariesResponse> responseObserver) {
+	try {
+	    GrpcUtils.logServerMethodEntry(EventSourcesGrpc.METHOD_GET_FAILED_DECODE_SUMMARIES);
+	    List<IFailedDecodeSummary> apiResult = getFailedDecodeManagement().getFailedDecodeSummaries();
+	    GGetFailedDecodeSummariesResponse.Builder response = GGetFailedDecodeSummariesResponse.newBuilder();
+	    response.addAllSummaries(EventSourcesModelConverter.asGrpcFailedDecodeSummaries(apiResult));
+	    responseObserver.onNext(response.build());
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(EventSourcesGrpc.METHOD_GET_FAILED_DECODE_SUMMARIES, e,
+		    responseObserver);
+	}
+    }
+
+    /*
+     * @see com.sitewhere.grpc.service.EventSourcesGrpc.EventSourcesImplBase#
+     * sampleFailedDecodes(com.sitewhere.grpc.service.GSampleFailedDecodesRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void sampleFailedDecodes(GSampleFailedDecodesRequest request,
+	    StreamObserver<GSampleFailedDecodesResponse> responseObserver) {
+	try {
+	    GrpcUtils.logServerMethodEntry(EventSourcesGrpc.METHOD_SAMPLE_FAILED_DECODES);
+	    List<IFailedDecode> apiResult = getFailedDecodeManagement().sampleFailedDecodes(
+		    EventSourcesModelConverter.asApiFailedDecodeSearchCriteria(request.getCriteria()),
+		    request.getCount());
+	    GSampleFailedDecodesResponse.Builder response = GSampleFailedDecodesResponse.newBuilder();
+	    response.addAllFailedDecodes(EventSourcesModelConverter.asGrpcFailedDecodes(apiResult));
+	    responseObserver.onNext(response.build());
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(EventSourcesGrpc.METHOD_SAMPLE_FAILED_DECODES, e, responseObserver);
+	}
+    }
+
+    /*
+     * @see com.sitewhere.grpc.service.EventSourcesGrpc.EventSourcesImplBase#
+     * replayFailedDecodes(com.sitewhere.grpc.service.GReplayFailedDecodesRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void replayFailedDecodes(GReplayFailedDecodesRequest request,
+	    StreamObserver<GReplayFailedDecodesResponse> responseObserver) {
+	try {
+	    GrpcUtils.logServerMethodEntry(EventSourcesGrpc.METHOD_REPLAY_FAILED_DECODES);
+	    IFailedDecodeReplayStatus apiResult = getFailedDecodeManagement().replayFailedDecodes(
+		    EventSourcesModelConverter.asApiFailedDecodeSearchCriteria(request.getCriteria()),
+		    request.getTargetSourceId(), request.getMaxPerSecond());
+	    GReplayFailedDecodesResponse.Builder response = GReplayFailedDecodesResponse.newBuilder();
+	    response.setStatus(EventSourcesModelConverter.asGrpcFailedDecodeReplayStatus(apiResult));
+	    responseObserver.onNext(response.build());
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(EventSourcesGrpc.METHOD_REPLAY_FAILED_DECODES, e, responseObserver);
+	}
+    }
+
+    /*
+     * @see com.sitewhere.grpc.service.EventSourcesGrpc.EventSourcesImplBase#
+     * getFailedDecodeReplayStatus(com.sitewhere.grpc.service.
+     * GGetFailedDecodeReplayStatusRequest, io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void getFailedDecodeReplayStatus(GGetFailedDecodeReplayStatusRequest request,
+	    StreamObserver<GGetFailedDecodeReplayStatusResponse> responseObserver) {
+	try {
+	    GrpcUtils.logServerMethodEntry(EventSourcesGrpc.METHOD_GET_FAILED_DECODE_REPLAY_STATUS);
+	    IFailedDecodeReplayStatus apiResult = getFailedDecodeManagement().getFailedDecodeReplayStatus();
+	    GGetFailedDecodeReplayStatusResponse.Builder response = GGetFailedDecodeReplayStatusResponse.newBuilder();
+	    if (apiResult != null) {
+		response.setStatus(EventSourcesModelConverter.asGrpcFailedDecodeReplayStatus(apiResult));
+	    }
+	    responseObserver.onNext(response.build());
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(EventSourcesGrpc.METHOD_GET_FAILED_DECODE_REPLAY_STATUS, e,
+		    responseObserver);
+	}
+    }
+
+    /*
+     * @see com.sitewhere.grpc.service.EventSourcesGrpc.EventSourcesImplBase#
+     * getEventSourcesMetrics(com.sitewhere.grpc.service.
+     * GGetEventSourcesMetricsRequest, io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void getEventSourcesMetrics(GGetEventSourcesMetricsRequest request,
+	    StreamObserver<GGetEventSourcesMetricsResponse> responseObserver) {
+	try {
+	    GrpcUtils.logServerMethodEntry(EventSourcesGrpc.METHOD_GET_EVENT_SOURCES_METRICS);
+	    IEventSourcesMetrics apiResult = getEventSourcesMonitoring().getEventSourcesMetrics();
+	    GGetEventSourcesMetricsResponse.Builder response = GGetEventSourcesMetricsResponse.newBuilder();
+	    response.setMetrics(EventSourcesModelConverter.asGrpcEventSourcesMetrics(apiResult));
+	    responseObserver.onNext(response.build());
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(EventSourcesGrpc.METHOD_GET_EVENT_SOURCES_METRICS, e,
+		    responseObserver);
+	}
+    }
+
+    public IFailedDecodeManagement getFailedDecodeManagement() {
+	return failedDecodeManagement;
+    }
+
+    public void setFailedDecodeManagement(IFailedDecodeManagement failedDecodeManagement) {
+	this.failedDecodeManagement = failedDecodeManagement;
+    }
+
+    public IEventSourcesMonitoring getEventSourcesMonitoring() {
+	return eventSourcesMonitoring;
+    }
+
+    public void setEventSourcesMonitoring(IEventSourcesMonitoring eventSourcesMonitoring) {
+	this.eventSourcesMonitoring = eventSourcesMonitoring;
+    }
+}
\ No newline at end of file
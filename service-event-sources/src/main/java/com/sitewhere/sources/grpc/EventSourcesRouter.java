@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.grpc;
+
+import java.util.UUID;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.sitewhere.grpc.service.EventSourcesGrpc;
+import com.sitewhere.grpc.service.EventSourcesGrpc.EventSourcesImplBase;
+import com.sitewhere.grpc.service.GGetEventSourcesMetricsRequest;
+import com.sitewhere.grpc.service.GGetEventSourcesMetricsResponse;
+import com.sitewhere.grpc.service.GGetFailedDecodeReplayStatusRequest;
+import com.sitewhere.grpc.service.GGetFailedDecodeReplayStatusResponse;
+import com.sitewhere.grpc.service.GGetFailedDecodeSummariesRequest;
+import com.sitewhere.grpc.service.GGetFailedDecodeSummariesResponse;
+import com.sitewhere.grpc.service.GListFailedDecodesRequest;
+import com.sitewhere.grpc.service.GListFailedDecodesResponse;
+import com.sitewhere.grpc.service.GReplayFailedDecodesRequest;
+import com.sitewhere.grpc.service.GReplayFailedDecodesResponse;
+import com.sitewhere.grpc.service.GSampleFailedDecodesRequest;
+import com.sitewhere.grpc.service.GSampleFailedDecodesResponse;
+import com.sitewhere.microservice.grpc.TenantTokenServerInterceptor;
+import com.sitewhere.security.UserContextManager;
+import com.sitewhere.sources.spi.microservice.IEventSourcesMicroservice;
+import com.sitewhere.sources.spi.microservice.IEventSourcesTenantEngine;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.grpc.IGrpcRouter;
+import com.sitewhere.spi.microservice.RuntimeServiceNotAvailableException;
+
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Routes GRPC calls to service implementations in tenants.
+ * 
+ * @author Derek
+ */
+public class EventSourcesRouter extends EventSourcesGrpc.EventSourcesImplBase
+	implements IGrpcRouter<EventSourcesGrpc.EventSourcesImplBase> {
+
+    /** Static logger instance */
+    @SuppressWarnings("unused")
+    private static Log LOGGER = LogFactory.getLog(EventSourcesRouter.class);
+
+    /** Parent microservice */
+    private IEventSourcesMicroservice microservice;
+
+    public EventSourcesRouter(IEventSourcesMicroservice microservice) {
+	this.microservice = microservice;
+    }
+
+    /*
+     * @see com.sitewhere.spi.grpc.IGrpcRouter#getTenantImplementation()
+     */
+    @Override
+    public EventSourcesImplBase getTenantImplementation() {
+	String tenantId = TenantTokenServerInterceptor.TENANT_ID_KEY.get();
+	if (tenantId == null) {
+	    throw new RuntimeException("Tenant id not found in event sources request.");
+	}
+	try {
+	    IEventSourcesTenantEngine engine = getMicroservice().getTenantEngineByTenantId(UUID.fromString(tenantId));
+	    if (engine != null) {
+		UserContextManager.setCurrentTenant(engine.getTenant());
+		return engine.getEventSourcesImpl();
+	    }
+	    throw new RuntimeServiceNotAvailableException("Tenant engine not found.");
+	} catch (SiteWhereException e) {
+	    throw new RuntimeServiceNotAvailableException("Error locating tenant engine.", e);
+	}
+    }
+
+    /*
+     * @see com.sitewhere.grpc.service.EventSourcesGrpc.EventSourcesImplBase#
+     * listFailedDecodes(com.sitewhere.grpc.service.GListFailedDecodesRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void listFailedDecodes(GListFailedDecodesRequest request,
+	    StreamObserver<GListFailedDecodesResponse> responseObserver) {
+	getTenantImplementation().listFailedDecodes(request, responseObserver);
+    }
+
+    /*
+     * @see com.sitewhere.grpc.service.EventSourcesGrpc.EventSourcesImplBase#
+     * getFailedDecodeSummaries(com.sitewhere.grpc.service.
+     * GGetFailedDecodeSummariesRequest, io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void getFailedDecodeSummaries(GGetFailedDecodeSummariesRequest request,
+	    StreamObserver<GGetFailedDecodeSummariesResponse> responseObserver) {
+	getTenantImplementation().getFailedDecodeSummaries(request, responseObserver);
+    }
+
+    /*
+     * @see com.sitewhere.grpc.service.EventSourcesGrpc.EventSourcesImplBase#
+     * sampleFailedDecodes(com.sitewhere.grpc.service.GSampleFailedDecodesRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void sampleFailedDecodes(GSampleFailedDecodesRequest request,
+	    StreamObserver<GSampleFailedDecodesResponse> responseObserver) {
+	getTenantImplementation().sampleFailedDecodes(request, responseObserver);
+    }
+
+    /*
+     * @see com.sitewhere.grpc.service.EventSourcesGrpc.EventSourcesImplBase#
+     * replayFailedDecodes(com.sitewhere.grpc.service.GReplayFailedDecodesRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void replayFailedDecodes(GReplayFailedDecodesRequest request,
+	    StreamObserver<GReplayFailedDecodesResponse> responseObserver) {
+	getTenantImplementation().replayFailedDecodes(request, responseObserver);
+    }
+
+    /*
+     * @see com.sitewhere.grpc.service.EventSourcesGrpc.EventSourcesImplBase#
+     * getFailedDecodeReplayStatus(com.sitewhere.grpc.service.
+     * GGetFailedDecodeReplayStatusRequest, io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void getFailedDecodeReplayStatus(GGetFailedDecodeReplayStatusRequest request,
+	    StreamObserver<GGetFailedDecodeReplayStatusResponse> responseObserver) {
+	getTenantImplementation().getFailedDecodeReplayStatus(request, responseObserver);
+    }
+
+    /*
+     * @see com.sitewhere.grpc.service.EventSourcesGrpc.EventSourcesImplBase#
+     * getEventSourcesMetrics(com.sitewhere.grpc.service.
+     * GGetEventSourcesMetricsRequest, io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void getEventSourcesMetrics(GGetEventSourcesMetricsRequest request,
+	    StreamObserver<GGetEventSourcesMetricsResponse> responseObserver) {
+	getTenantImplementation().getEventSourcesMetrics(request, responseObserver);
+    }
+
+    public IEventSourcesMicroservice getMicroservice() {
+	return microservice;
+    }
+
+    public void setMicroservice(IEventSourcesMicroservice microservice) {
+	this.microservice = microservice;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.kafka;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+
+import com.sitewhere.grpc.kafka.model.KafkaModel.GFailedDecodePayload;
+import com.sitewhere.grpc.model.marshaler.KafkaModelMarshaler;
+import com.sitewhere.microservice.kafka.MicroserviceKafkaConsumer;
+import com.sitewhere.sources.failed.FailedDecodeStore;
+import com.sitewhere.sources.spi.kafka.IFailedDecodeEventsConsumer;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.IMicroservice;
+import com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine;
+
+/**
+ * Listens on Kafka topic for payloads that could not be decoded and indexes
+ * them in a local {@link FailedDecodeStore}. Each instance is assigned every
+ * partition directly and reads from the start of the topic so that every
+ * instance holds the full set of retained failures. No offsets are committed,
+ * so no consumer group state is left behind when an instance goes away.
+ * Failures are identified by partition and offset, which is the same on every
+ * instance.
+ * 
+ * @author Derek
+ */
+public class FailedDecodeEventsConsumer extends MicroserviceKafkaConsumer implements IFailedDecodeEventsConsumer {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(FailedDecodeEventsConsumer.class);
+
+    /** Consumer id */
+    private static String CONSUMER_ID = UUID.randomUUID().toString();
+
+    /** Suffix for group id */
+    private static String GROUP_ID_SUFFIX = "failed-decode-consumers";
+
+    /** Time to wait before checking again for topic partitions */
+    private static final long PARTITION_RETRY_MS = 5000;
+
+    /** Decoder and error class used for payloads without failure details */
+    private static final String UNKNOWN = "unknown";
+
+    /** Store that indexes failures */
+    private FailedDecodeStore failedDecodeStore;
+
+    public FailedDecodeEventsConsumer(IMicroservice microservice, IMicroserviceTenantEngine tenantEngine,
+	    FailedDecodeStore failedDecodeStore) {
+	super(microservice, tenantEngine);
+	this.failedDecodeStore = failedDecodeStore;
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#
+     * getConsumerId()
+     */
+    @Override
+    public String getConsumerId() throws SiteWhereException {
+	return CONSUMER_ID;
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#
+     * getConsumerGroupId()
+     */
+    @Override
+    public String getConsumerGroupId() throws SiteWhereException {
+	return getMicroservice().getKafkaTopicNaming().getTenantPrefix(getTenantEngine().getTenant())
+		+ GROUP_ID_SUFFIX;
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#
+     * getSourceTopicNames()
+     */
+    @Override
+    public List<String> getSourceTopicNames() throws SiteWhereException {
+	List<String> topics = new ArrayList<String>();
+	topics.add(getMicroservice().getKafkaTopicNaming()
+		.getEventSourceFailedDecodeTopic(getTenantEngine().getTenant()));
+	return topics;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.kafka.MicroserviceKafkaConsumer#buildConfiguration
+     * ()
+     */
+    @Override
+    protected Properties buildConfiguration() throws SiteWhereException {
+	Properties config = super.buildConfiguration();
+	config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+	return config;
+    }
+
+    /*
+     * @see com.sitewhere.microservice.kafka.MicroserviceKafkaConsumer#subscribe()
+     */
+    @Override
+    protected void subscribe() throws SiteWhereException {
+	List<TopicPartition> partitions = new ArrayList<TopicPartition>();
+	for (String topic : getSourceTopicNames()) {
+	    List<PartitionInfo> infos = getConsumer().partitionsFor(topic);
+	    while ((infos == null) || (infos.isEmpty())) {
+		getLogger().info("Waiting for partitions of failed decode topic '" + topic + "'...");
+		try {
+		    Thread.sleep(PARTITION_RETRY_MS);
+		} catch (InterruptedException e) {
+		    throw new SiteWhereException("Interrupted while waiting for topic partitions.", e);
+		}
+		infos = getConsumer().partitionsFor(topic);
+	    }
+	    for (PartitionInfo info : infos) {
+		partitions.add(new TopicPartition(info.topic(), info.partition()));
+	    }
+	}
+	getConsumer().assign(partitions);
+	getConsumer().seekToBeginning(partitions);
+    }
+
+    /*
+     * @see com.sitewhere.microservice.kafka.MicroserviceKafkaConsumer#
+     * commitOffsets(java.util.Map)
+     */
+    @Override
+    protected void commitOffsets(Map<TopicPartition, OffsetAndMetadata> offsets) throws SiteWhereException {
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.kafka.MicroserviceKafkaConsumer#received(org.
+     * apache.kafka.clients.consumer.ConsumerRecord)
+     */
+    @Override
+    protected void received(ConsumerRecord<String, byte[]> record) throws SiteWhereException {
+	String id = record.partition() + "-" + record.offset();
+	GFailedDecodePayload failed = parseFailedDecodePayload(record.value());
+	if (failed != null) {
+	    getFailedDecodeStore().add(id, failed.getSourceId(), failed.getDecoder(), failed.getErrorClass(),
+		    failed.getErrorMessage(), failed.getFailedDate(), failed.getPayload().toByteArray());
+	} else {
+	    getFailedDecodeStore().add(id, (record.key() != null) ? record.key() : UNKNOWN, UNKNOWN, UNKNOWN, null,
+		    System.currentTimeMillis(), record.value());
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#received(
+     * java.lang.String, byte[])
+     */
+    @Override
+    public void received(String key, byte[] message) throws SiteWhereException {
+	throw new SiteWhereException("Failed decodes are indexed by partition and offset.");
+    }
+
+    /**
+     * Parse failure details from a message. Returns null for messages written
+     * before failure details were added, which contain only the raw payload.
+     * 
+     * @param message
+     * @return
+     */
+    protected GFailedDecodePayload parseFailedDecodePayload(byte[] message) {
+	try {
+	    GFailedDecodePayload failed = KafkaModelMarshaler.parseFailedDecodePayloadMessage(message);
+	    return (failed.getSourceId().isEmpty()) ? null : failed;
+	} catch (SiteWhereException e) {
+	    return null;
+	}
+    }
+
+    /*
+     * @see com.sitewhere.spi.server.lifecycle.ILifecycleComponent#getLogger()
+     */
+    @Override
+    public Log getLogger() {
+	return LOGGER;
+    }
+
+    public FailedDecodeStore getFailedDecodeStore() {
+	return failedDecodeStore;
+    }
+
+    public void setFailedDecodeStore(FailedDecodeStore failedDecodeStore) {
+	this.failedDecodeStore = failedDecodeStore;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.metrics;
+
+import com.sitewhere.rest.model.sources.EventSourceMetrics;
+
+/**
+ * Meters and latency recorders updated as an event source processes payloads.
+ * 
+ * @author Derek
+ */
+public class EventSourceMeters {
+
+    /** Payloads received */
+    private Meter received = new Meter();
+
+    /** Events decoded */
+    private Meter decoded = new Meter();
+
+    /** Payloads that could not be decoded */
+    private Meter decodeFailed = new Meter();
+
+    /** Events dropped as duplicates */
+    private Meter duplicates = new Meter();
+
+    /** Time spent decoding a payload */
+    private LatencyRecorder decodeLatency = new LatencyRecorder();
+
+    /** Time spent checking an event for duplicates */
+    private LatencyRecorder dedupeLatency = new LatencyRecorder();
+
+    /**
+     * Get snapshot of current values.
+     * 
+     * @param sourceId
+     * @param decoder
+     * @return
+     */
+    public EventSourceMetrics getMetrics(String sourceId, String decoder) {
+	EventSourceMetrics metrics = new EventSourceMetrics();
+	metrics.setSourceId(sourceId);
+	metrics.setDecoder(decoder);
+	metrics.setReceivedCount(getReceived().getCount());
+	metrics.setReceivedRate(getReceived().getRate());
+	metrics.setDecodedCount(getDecoded().getCount());
+	metrics.setDecodedRate(getDecoded().getRate());
+	metrics.setDecodeFailedCount(getDecodeFailed().getCount());
+	metrics.setDuplicateCount(getDuplicates().getCount());
+	metrics.setDecodeLatency(getDecodeLatency().getSummary());
+	metrics.setDedupeLatency(getDedupeLatency().getSummary());
+	return metrics;
+    }
+
+    public Meter getReceived() {
+	return received;
+    }
+
+    public Meter getDecoded() {
+	return decoded;
+    }
+
+    public Meter getDecodeFailed() {
+	return decodeFailed;
+    }
+
+    public Meter getDuplicates() {
+	return duplicates;
+    }
+
+    public LatencyRecorder getDecodeLatency() {
+	return decodeLatency;
+    }
+
+    public LatencyRecorder getDedupeLatency() {
+	return dedupeLatency;
+    }
+}
\ No newline at end of file
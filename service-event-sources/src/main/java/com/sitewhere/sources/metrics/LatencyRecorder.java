@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import com.sitewhere.rest.model.sources.LatencySummary;
+
+/**
+ * Records latencies for a processing stage in an HdrHistogram
+ * {@link Recorder}, which allows concurrent writers without locking. Samples
+ * are collected into fixed windows when read and summaries cover the current
+ * and previous windows, so percentiles reflect recent behavior rather than
+ * everything since startup.
+ * 
+ * @author Derek
+ */
+public class LatencyRecorder {
+
+    /** Default length of a recording window */
+    public static final long DEFAULT_WINDOW_MS = 60 * 1000;
+
+    /** Precision of recorded values */
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    /** Accepts samples from writer threads */
+    private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+
+    /** Length of a window */
+    private final long windowNanos;
+
+    /** Samples for current window */
+    private Histogram current = new Histogram(SIGNIFICANT_DIGITS);
+
+    /** Samples for previous window */
+    private Histogram previous = new Histogram(SIGNIFICANT_DIGITS);
+
+    /** Histogram reused when draining recorder */
+    private Histogram interval;
+
+    /** Start time of current window */
+    private long windowStart;
+
+    public LatencyRecorder() {
+	this(DEFAULT_WINDOW_MS);
+    }
+
+    public LatencyRecorder(long windowMs) {
+	this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+	this.windowStart = System.nanoTime();
+    }
+
+    /**
+     * Record time elapsed since a value returned by {@link System#nanoTime()}.
+     * 
+     * @param startNanos
+     */
+    public void recordSince(long startNanos) {
+	record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Record a latency in nanoseconds.
+     * 
+     * @param nanos
+     */
+    public void record(long nanos) {
+	recorder.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+
+    /**
+     * Get samples for the current and previous windows.
+     * 
+     * @return
+     */
+    public synchronized Histogram getHistogram() {
+	interval = recorder.getIntervalHistogram(interval);
+	current.add(interval);
+	long now = System.nanoTime();
+	if ((now - windowStart) >= windowNanos) {
+	    Histogram expired = previous;
+	    previous = current;
+	    expired.reset();
+	    current = expired;
+	    windowStart = now;
+	}
+	Histogram combined = previous.copy();
+	combined.add(current);
+	return combined;
+    }
+
+    /**
+     * Get summary of samples for the current and previous windows.
+     * 
+     * @return
+     */
+    public LatencySummary getSummary() {
+	return summarize(getHistogram());
+    }
+
+    /**
+     * Summarize a histogram of latencies in microseconds.
+     * 
+     * @param histogram
+     * @return
+     */
+    public static LatencySummary summarize(Histogram histogram) {
+	LatencySummary summary = new LatencySummary();
+	summary.setCount(histogram.getTotalCount());
+	if (histogram.getTotalCount() > 0) {
+	    summary.setMean(histogram.getMean());
+	    summary.setP50(histogram.getValueAtPercentile(50.0));
+	    summary.setP99(histogram.getValueAtPercentile(99.0));
+	    summary.setMax(histogram.getMaxValue());
+	}
+	return summary;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Counts occurrences of an event and reports the rate at which they happen.
+ * Counting uses a {@link LongAdder} so that threads marking the meter do not
+ * contend. The rate is an exponentially weighted moving average over the rate
+ * interval, updated in fixed ticks of a tenth of the interval. Ticks that are
+ * due are applied by whichever call to {@link #mark()} or {@link #getRate()}
+ * comes first, so occurrences are attributed to the tick in which they happened
+ * and the rate does not depend on how often it is read.
+ * 
+ * @author Derek
+ */
+public class Meter {
+
+    /** Default interval over which rate is calculated */
+    public static final long DEFAULT_RATE_INTERVAL_MS = 10 * 1000;
+
+    /** Number of ticks per rate interval */
+    private static final int TICKS_PER_INTERVAL = 10;
+
+    /** Number of occurrences */
+    private final LongAdder count = new LongAdder();
+
+    /** Source of time in nanoseconds */
+    private final LongSupplier clock;
+
+    /** Length of a tick */
+    private final long tickNanos;
+
+    /** Weight given to the most recent tick */
+    private final double alpha;
+
+    /** Time at start of current tick */
+    private final AtomicLong lastTick;
+
+    /** Count at start of current tick */
+    private long tickCount;
+
+    /** Indicates at least one tick has completed */
+    private boolean initialized;
+
+    /** Average occurrences per nanosecond */
+    private double rate;
+
+    public Meter() {
+	this(DEFAULT_RATE_INTERVAL_MS);
+    }
+
+    public Meter(long rateIntervalMs) {
+	this(rateIntervalMs, System::nanoTime);
+    }
+
+    Meter(long rateIntervalMs, LongSupplier clock) {
+	this.clock = clock;
+	this.tickNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(rateIntervalMs) / TICKS_PER_INTERVAL);
+	this.alpha = 1 - Math.exp(-1.0 / TICKS_PER_INTERVAL);
+	this.lastTick = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * Record a single occurrence.
+     */
+    public void mark() {
+	tickIfNecessary();
+	count.increment();
+    }
+
+    /**
+     * Record a number of occurrences.
+     * 
+     * @param n
+     */
+    public void mark(long n) {
+	tickIfNecessary();
+	count.add(n);
+    }
+
+    /**
+     * Get total number of occurrences.
+     * 
+     * @return
+     */
+    public long getCount() {
+	return count.sum();
+    }
+
+    /**
+     * Get moving average of occurrences per second.
+     * 
+     * @return
+     */
+    public double getRate() {
+	tickIfNecessary();
+	synchronized (this) {
+	    return rate * TimeUnit.SECONDS.toNanos(1);
+	}
+    }
+
+    /**
+     * Apply ticks that are due. Only the caller that advances the tick time
+     * updates the average, so other callers return immediately.
+     */
+    protected void tickIfNecessary() {
+	long previous = lastTick.get();
+	long age = clock.getAsLong() - previous;
+	if (age < tickNanos) {
+	    return;
+	}
+	long ticks = age / tickNanos;
+	if (lastTick.compareAndSet(previous, previous + (ticks * tickNanos))) {
+	    synchronized (this) {
+		long current = count.sum();
+		for (long i = 0; i < ticks; i++) {
+		    double tickRate = (i == 0) ? ((double) (current - tickCount) / tickNanos) : 0;
+		    if (initialized) {
+			rate += alpha * (tickRate - rate);
+		    } else {
+			rate = tickRate;
+			initialized = true;
+		    }
+
+		    // Average has decayed to nothing after a long idle period.
+		    if ((rate == 0) || (i > TICKS_PER_INTERVAL * 100)) {
+			rate = 0;
+			break;
+		    }
+		}
+		tickCount = current;
+	    }
+	}
+    }
+}
\ No newline at end of file
@@ -18,6 +18,8 @@ import com.sitewhere.grpc.client.spi.client.IDeviceManagementApiDemux;
 import com.sitewhere.microservice.multitenant.MultitenantMicroservice;
 import com.sitewhere.server.lifecycle.CompositeLifecycleStep;
 import com.sitewhere.sources.configuration.EventSourcesModelProvider;
+import com.sitewhere.sources.grpc.EventSourcesGrpcServer;
+import com.sitewhere.sources.spi.grpc.IEventSourcesGrpcServer;
 import com.sitewhere.sources.spi.microservice.IEventSourcesMicroservice;
 import com.sitewhere.sources.spi.microservice.IEventSourcesTenantEngine;
 import com.sitewhere.spi.SiteWhereException;
@@ -41,6 +43,9 @@ public class EventSourcesMicroservice extends MultitenantMicroservice<IEventSour
     /** Microservice name */
     public static final String NAME = "Event Sources";
 
+    /** Provides server for event sources GRPC requests */
+    private IEventSourcesGrpcServer eventSourcesGrpcServer;
+
     /** Device management API channel */
     private IDeviceManagementApiDemux deviceManagementApiDemux;
 
@@ -128,12 +133,18 @@ public class EventSourcesMicroservice extends MultitenantMicroservice<IEventSour
      */
     @Override
     public void microserviceInitialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	// Create event sources GRPC server.
+	this.eventSourcesGrpcServer = new EventSourcesGrpcServer(this);
+
 	// Create GRPC components.
 	createGrpcComponents();
 
 	// Composite step for initializing microservice.
 	ICompositeLifecycleStep init = new CompositeLifecycleStep("Initialize " + getName());
 
+	// Initialize event sources GRPC server.
+	init.addInitializeStep(this, getEventSourcesGrpcServer(), true);
+
 	// Initialize device management API demux.
 	init.addInitializeStep(this, getDeviceManagementApiDemux(), true);
 
@@ -154,6 +165,9 @@ public class EventSourcesMicroservice extends MultitenantMicroservice<IEventSour
 	// Composite step for starting microservice.
 	ICompositeLifecycleStep start = new CompositeLifecycleStep("Start " + getName());
 
+	// Start event sources GRPC server.
+	start.addStartStep(this, getEventSourcesGrpcServer(), true);
+
 	// Start device mangement API demux.
 	start.addStartStep(this, getDeviceManagementApiDemux(), true);
 
@@ -174,6 +188,9 @@ public class EventSourcesMicroservice extends MultitenantMicroservice<IEventSour
 	// Composite step for stopping microservice.
 	ICompositeLifecycleStep stop = new CompositeLifecycleStep("Stop " + getName());
 
+	// Stop event sources GRPC server.
+	stop.addStopStep(this, getEventSourcesGrpcServer());
+
 	// Stop device mangement API demux.
 	stop.addStopStep(this, getDeviceManagementApiDemux());
 
@@ -195,6 +212,19 @@ public class EventSourcesMicroservice extends MultitenantMicroservice<IEventSour
 	this.deviceEventManagementApiDemux = new DeviceEventManagementApiDemux(this);
     }
 
+    /*
+     * @see com.sitewhere.sources.spi.microservice.IEventSourcesMicroservice#
+     * getEventSourcesGrpcServer()
+     */
+    @Override
+    public IEventSourcesGrpcServer getEventSourcesGrpcServer() {
+	return eventSourcesGrpcServer;
+    }
+
+    public void setEventSourcesGrpcServer(IEventSourcesGrpcServer eventSourcesGrpcServer) {
+	this.eventSourcesGrpcServer = eventSourcesGrpcServer;
+    }
+
     /*
      * @see com.sitewhere.sources.spi.microservice.IEventSourcesMicroservice#
      * getDeviceManagementApiDemux()
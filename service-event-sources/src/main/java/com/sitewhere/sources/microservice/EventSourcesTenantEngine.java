@@ -7,13 +7,26 @@
  */
 package com.sitewhere.sources.microservice;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.sitewhere.grpc.service.EventSourcesGrpc;
 import com.sitewhere.microservice.multitenant.MicroserviceTenantEngine;
 import com.sitewhere.server.lifecycle.CompositeLifecycleStep;
+import com.sitewhere.sources.failed.FailedDecodeManagement;
+import com.sitewhere.sources.grpc.EventSourcesImpl;
+import com.sitewhere.sources.polling.PollingScheduler;
 import com.sitewhere.sources.spi.IEventSourcesManager;
 import com.sitewhere.sources.spi.microservice.IEventSourcesTenantEngine;
+import com.sitewhere.sources.spi.polling.IPollingScheduler;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine;
 import com.sitewhere.spi.microservice.multitenant.IMultitenantMicroservice;
@@ -21,6 +34,11 @@ import com.sitewhere.spi.microservice.multitenant.ITenantTemplate;
 import com.sitewhere.spi.microservice.spring.EventSourcesBeans;
 import com.sitewhere.spi.server.lifecycle.ICompositeLifecycleStep;
 import com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor;
+import com.sitewhere.spi.sources.IDecoderMetrics;
+import com.sitewhere.spi.sources.IEventSourceMetrics;
+import com.sitewhere.spi.sources.IEventSourcesMetrics;
+import com.sitewhere.spi.sources.IFailedDecodeManagement;
+import com.sitewhere.spi.sources.ILatencySummary;
 import com.sitewhere.spi.tenant.ITenant;
 
 /**
@@ -34,9 +52,24 @@ public class EventSourcesTenantEngine extends MicroserviceTenantEngine implement
     /** Static logger instance */
     private static Log LOGGER = LogFactory.getLog(EventSourcesTenantEngine.class);
 
+    /** Interval at which state with current metrics is published */
+    private static final long METRICS_PUBLISH_INTERVAL_SECS = 30;
+
     /** Event sources manager */
     private IEventSourcesManager eventSourcesManager;
 
+    /** Scheduler shared by polling receivers */
+    private IPollingScheduler pollingScheduler;
+
+    /** Indexes and replays payloads that could not be decoded */
+    private IFailedDecodeManagement failedDecodeManagement;
+
+    /** Responds to event sources GRPC requests */
+    private EventSourcesGrpc.EventSourcesImplBase eventSourcesImpl;
+
+    /** Publishes tenant engine state with current metrics */
+    private ScheduledExecutorService metricsPublisher;
+
     public EventSourcesTenantEngine(IMultitenantMicroservice<IEventSourcesTenantEngine> microservice, ITenant tenant) {
 	super(microservice, tenant);
     }
@@ -52,13 +85,22 @@ public class EventSourcesTenantEngine extends MicroserviceTenantEngine implement
     public void tenantInitialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	this.eventSourcesManager = (IEventSourcesManager) getModuleContext()
 		.getBean(EventSourcesBeans.BEAN_EVENT_SOURCES_MANAGER);
+	this.pollingScheduler = new PollingScheduler();
+	this.failedDecodeManagement = new FailedDecodeManagement(getEventSourcesManager());
+	this.eventSourcesImpl = new EventSourcesImpl(getFailedDecodeManagement(), getEventSourcesManager());
 
 	// Create step that will initialize components.
 	ICompositeLifecycleStep init = new CompositeLifecycleStep("Initialize " + getComponentName());
 
+	// Initialize polling scheduler.
+	init.addInitializeStep(this, getPollingScheduler(), true);
+
 	// Initialize event sources manager.
 	init.addInitializeStep(this, getEventSourcesManager(), true);
 
+	// Initialize failed decode management.
+	init.addInitializeStep(this, getFailedDecodeManagement(), true);
+
 	// Execute initialization steps.
 	init.execute(monitor);
     }
@@ -74,11 +116,20 @@ public class EventSourcesTenantEngine extends MicroserviceTenantEngine implement
 	// Create step that will start components.
 	ICompositeLifecycleStep start = new CompositeLifecycleStep("Start " + getComponentName());
 
+	// Start polling scheduler.
+	start.addStartStep(this, getPollingScheduler(), true);
+
 	// Start event sources manager.
 	start.addStartStep(this, getEventSourcesManager(), true);
 
+	// Start failed decode management.
+	start.addStartStep(this, getFailedDecodeManagement(), true);
+
 	// Execute startup steps.
 	start.execute(monitor);
+
+	// Periodically publish state so that topology includes current metrics.
+	startMetricsPublisher();
     }
 
     /*
@@ -100,16 +151,103 @@ public class EventSourcesTenantEngine extends MicroserviceTenantEngine implement
      */
     @Override
     public void tenantStop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	// Stop publishing metrics.
+	stopMetricsPublisher();
+
 	// Create step that will stop components.
 	ICompositeLifecycleStep start = new CompositeLifecycleStep("Stop " + getComponentName());
 
+	// Stop failed decode management.
+	start.addStopStep(this, getFailedDecodeManagement());
+
 	// Stop event sources manager.
 	start.addStopStep(this, getEventSourcesManager());
 
+	// Stop polling scheduler.
+	start.addStopStep(this, getPollingScheduler());
+
 	// Execute shutdown steps.
 	start.execute(monitor);
     }
 
+    /**
+     * Start publishing tenant engine state at a fixed interval.
+     */
+    protected void startMetricsPublisher() {
+	metricsPublisher = Executors.newSingleThreadScheduledExecutor(new MetricsPublisherThreadFactory());
+	metricsPublisher.scheduleAtFixedRate(new Runnable() {
+
+	    @Override
+	    public void run() {
+		try {
+		    getMicroservice().onTenantEngineStateChanged(getCurrentState());
+		} catch (Throwable e) {
+		    getLogger().warn("Unable to publish event sources metrics.", e);
+		}
+	    }
+	}, METRICS_PUBLISH_INTERVAL_SECS, METRICS_PUBLISH_INTERVAL_SECS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop publishing tenant engine state.
+     */
+    protected void stopMetricsPublisher() {
+	if (metricsPublisher != null) {
+	    metricsPublisher.shutdownNow();
+	    metricsPublisher = null;
+	}
+    }
+
+    /*
+     * @see com.sitewhere.microservice.multitenant.MicroserviceTenantEngine#
+     * getCurrentMetrics()
+     */
+    @Override
+    protected Map<String, Double> getCurrentMetrics() throws SiteWhereException {
+	if ((getEventSourcesManager() == null) || (getEventSourcesManager().getEventSources() == null)) {
+	    return null;
+	}
+	IEventSourcesMetrics current = getEventSourcesManager().getEventSourcesMetrics();
+	Map<String, Double> metrics = new LinkedHashMap<String, Double>();
+	for (IEventSourceMetrics source : current.getEventSources()) {
+	    String prefix = "sources." + source.getSourceId() + ".";
+	    metrics.put(prefix + "received.count", (double) source.getReceivedCount());
+	    metrics.put(prefix + "received.rate", source.getReceivedRate());
+	    metrics.put(prefix + "decoded.count", (double) source.getDecodedCount());
+	    metrics.put(prefix + "decoded.rate", source.getDecodedRate());
+	    metrics.put(prefix + "decodeFailed.count", (double) source.getDecodeFailedCount());
+	    metrics.put(prefix + "duplicates.count", (double) source.getDuplicateCount());
+	    addLatencyMetrics(metrics, prefix + "decodeLatency.", source.getDecodeLatency());
+	    addLatencyMetrics(metrics, prefix + "dedupeLatency.", source.getDedupeLatency());
+	}
+	for (IDecoderMetrics decoder : current.getDecoders()) {
+	    String prefix = "decoders." + decoder.getDecoder() + ".";
+	    metrics.put(prefix + "decoded.count", (double) decoder.getDecodedCount());
+	    metrics.put(prefix + "decoded.rate", decoder.getDecodedRate());
+	    metrics.put(prefix + "decodeFailed.count", (double) decoder.getDecodeFailedCount());
+	}
+	metrics.put("kafka.sent.count", (double) current.getSentCount());
+	metrics.put("kafka.sent.rate", current.getSentRate());
+	metrics.put("kafka.sendFailed.count", (double) current.getSendFailedCount());
+	addLatencyMetrics(metrics, "kafka.sendLatency.", current.getSendLatency());
+	return metrics;
+    }
+
+    /**
+     * Add percentiles for a latency summary to flattened metrics.
+     * 
+     * @param metrics
+     * @param prefix
+     * @param latency
+     */
+    protected void addLatencyMetrics(Map<String, Double> metrics, String prefix, ILatencySummary latency) {
+	if (latency != null) {
+	    metrics.put(prefix + "p50", (double) latency.getP50());
+	    metrics.put(prefix + "p99", (double) latency.getP99());
+	    metrics.put(prefix + "max", (double) latency.getMax());
+	}
+    }
+
     /*
      * @see com.sitewhere.sources.spi.microservice.IEventSourcesTenantEngine#
      * getEventSourcesManager()
@@ -123,6 +261,45 @@ public class EventSourcesTenantEngine extends MicroserviceTenantEngine implement
 	this.eventSourcesManager = eventSourcesManager;
     }
 
+    /*
+     * @see com.sitewhere.sources.spi.microservice.IEventSourcesTenantEngine#
+     * getPollingScheduler()
+     */
+    @Override
+    public IPollingScheduler getPollingScheduler() {
+	return pollingScheduler;
+    }
+
+    public void setPollingScheduler(IPollingScheduler pollingScheduler) {
+	this.pollingScheduler = pollingScheduler;
+    }
+
+    /*
+     * @see com.sitewhere.sources.spi.microservice.IEventSourcesTenantEngine#
+     * getFailedDecodeManagement()
+     */
+    @Override
+    public IFailedDecodeManagement getFailedDecodeManagement() {
+	return failedDecodeManagement;
+    }
+
+    public void setFailedDecodeManagement(IFailedDecodeManagement failedDecodeManagement) {
+	this.failedDecodeManagement = failedDecodeManagement;
+    }
+
+    /*
+     * @see com.sitewhere.sources.spi.microservice.IEventSourcesTenantEngine#
+     * getEventSourcesImpl()
+     */
+    @Override
+    public EventSourcesGrpc.EventSourcesImplBase getEventSourcesImpl() {
+	return eventSourcesImpl;
+    }
+
+    public void setEventSourcesImpl(EventSourcesGrpc.EventSourcesImplBase eventSourcesImpl) {
+	this.eventSourcesImpl = eventSourcesImpl;
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -132,4 +309,20 @@ public class EventSourcesTenantEngine extends MicroserviceTenantEngine implement
     public Log getLogger() {
 	return LOGGER;
     }
+
+    /**
+     * Used for naming metrics publisher thread.
+     */
+    private class MetricsPublisherThreadFactory implements ThreadFactory {
+
+	/** Counts threads */
+	private AtomicInteger counter = new AtomicInteger();
+
+	public Thread newThread(Runnable r) {
+	    Thread thread = new Thread(r,
+		    "SiteWhere Event Sources Metrics (" + getTenant().getToken() + ") " + counter.incrementAndGet());
+	    thread.setDaemon(true);
+	    return thread;
+	}
+    }
 }
\ No newline at end of file
@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.polling;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.sitewhere.server.lifecycle.TenantEngineLifecycleComponent;
+import com.sitewhere.sources.spi.polling.IPollable;
+import com.sitewhere.sources.spi.polling.IPollingScheduler;
+import com.sitewhere.sources.spi.polling.IScheduledPoll;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor;
+
+/**
+ * Shares one timer thread and a bounded pool of poller threads between all
+ * polling receivers in a tenant. The timer only marks a source as due and
+ * hands it to the pool, so polls that overrun their interval do not delay
+ * other sources and are never run concurrently with themselves.
+ *
+ * @author Derek
+ */
+public class PollingScheduler extends TenantEngineLifecycleComponent implements IPollingScheduler {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(PollingScheduler.class);
+
+    /** Default maximum number of polls that run at the same time */
+    private static final int DEFAULT_MAX_CONCURRENT_POLLS = 16;
+
+    /** Maximum number of polls that run at the same time */
+    private int maxConcurrentPolls = DEFAULT_MAX_CONCURRENT_POLLS;
+
+    /** Triggers polls at their scheduled times */
+    private ScheduledExecutorService timer;
+
+    /** Executes polls */
+    private ExecutorService pollers;
+
+    /*
+     * @see
+     * com.sitewhere.server.lifecycle.LifecycleComponent#start(com.sitewhere.spi.
+     * server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	this.timer = Executors.newSingleThreadScheduledExecutor(new PollerThreadFactory("Polling Scheduler"));
+	this.pollers = Executors.newFixedThreadPool(getMaxConcurrentPolls(), new PollerThreadFactory("Poller"));
+    }
+
+    /*
+     * @see
+     * com.sitewhere.server.lifecycle.LifecycleComponent#stop(com.sitewhere.spi.
+     * server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	if (timer != null) {
+	    timer.shutdownNow();
+	}
+	if (pollers != null) {
+	    pollers.shutdownNow();
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.sources.spi.polling.IPollingScheduler#schedule(java.lang.
+     * String, long, com.sitewhere.sources.spi.polling.IPollable)
+     */
+    @Override
+    public IScheduledPoll schedule(String name, long intervalMs, IPollable pollable) throws SiteWhereException {
+	if ((timer == null) || (timer.isShutdown())) {
+	    throw new SiteWhereException("Polling scheduler is not running.");
+	}
+	if (intervalMs <= 0) {
+	    throw new SiteWhereException("Polling interval must be greater than zero.");
+	}
+	ScheduledPoll poll = new ScheduledPoll(name, intervalMs, pollable);
+	long jitter = ThreadLocalRandom.current().nextLong(intervalMs);
+	poll.setFuture(timer.scheduleAtFixedRate(poll, jitter, intervalMs, TimeUnit.MILLISECONDS));
+	return poll;
+    }
+
+    /*
+     * @see com.sitewhere.spi.server.lifecycle.ILifecycleComponent#getLogger()
+     */
+    @Override
+    public Log getLogger() {
+	return LOGGER;
+    }
+
+    public int getMaxConcurrentPolls() {
+	return maxConcurrentPolls;
+    }
+
+    public void setMaxConcurrentPolls(int maxConcurrentPolls) {
+	this.maxConcurrentPolls = maxConcurrentPolls;
+    }
+
+    /**
+     * Polls a single source. Runs on the timer thread when due and on a poller
+     * thread when polling.
+     *
+     * @author Derek
+     */
+    private class ScheduledPoll implements IScheduledPoll, Runnable {
+
+	/** Name used when logging */
+	private String name;
+
+	/** Polling interval in milliseconds */
+	private long intervalMs;
+
+	/** Work done on each poll */
+	private IPollable pollable;
+
+	/** Indicates a poll is queued or running */
+	private AtomicBoolean running = new AtomicBoolean();
+
+	/** Indicates polling was canceled */
+	private volatile boolean canceled;
+
+	/** Thread running the current poll */
+	private Thread pollThread;
+
+	/** Number of completed polls */
+	private AtomicLong pollCount = new AtomicLong();
+
+	/** Number of polls that overran the interval */
+	private AtomicLong overrunCount = new AtomicLong();
+
+	/** Number of polls skipped */
+	private AtomicLong skippedCount = new AtomicLong();
+
+	/** Duration of most recent poll */
+	private volatile long lastPollDurationMs;
+
+	/** Future for the fixed rate schedule */
+	private ScheduledFuture<?> future;
+
+	public ScheduledPoll(String name, long intervalMs, IPollable pollable) {
+	    this.name = name;
+	    this.intervalMs = intervalMs;
+	    this.pollable = pollable;
+	}
+
+	/*
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+	    if (!running.compareAndSet(false, true)) {
+		skippedCount.incrementAndGet();
+		return;
+	    }
+	    try {
+		pollers.execute(new Runnable() {
+
+		    @Override
+		    public void run() {
+			poll();
+		    }
+		});
+	    } catch (RejectedExecutionException e) {
+		running.set(false);
+	    }
+	}
+
+	/**
+	 * Execute poll and record how long it took.
+	 */
+	protected void poll() {
+	    synchronized (this) {
+		if (canceled) {
+		    running.set(false);
+		    notifyAll();
+		    return;
+		}
+		pollThread = Thread.currentThread();
+	    }
+	    long start = System.nanoTime();
+	    try {
+		pollable.doPoll();
+	    } catch (SiteWhereException e) {
+		getLogger().error("Error executing polling logic for '" + name + "'.", e);
+	    } catch (Throwable e) {
+		getLogger().error("Unhandled exception polling '" + name + "'.", e);
+	    } finally {
+		long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		lastPollDurationMs = duration;
+		pollCount.incrementAndGet();
+		if (duration > intervalMs) {
+		    overrunCount.incrementAndGet();
+		    getLogger().warn("Poll of '" + name + "' took " + duration + "ms which exceeds its interval of "
+			    + intervalMs + "ms.");
+		}
+		synchronized (this) {
+		    pollThread = null;
+		    running.set(false);
+		    notifyAll();
+		}
+
+		// Do not leave an interrupt from cancelAndAwait() for the next poll.
+		Thread.interrupted();
+	    }
+	}
+
+	/*
+	 * @see com.sitewhere.sources.spi.polling.IScheduledPoll#cancel()
+	 */
+	@Override
+	public void cancel() {
+	    if (future != null) {
+		future.cancel(false);
+	    }
+	}
+
+	/*
+	 * @see com.sitewhere.sources.spi.polling.IScheduledPoll#cancelAndAwait(long)
+	 */
+	@Override
+	public synchronized boolean cancelAndAwait(long timeoutMs) throws InterruptedException {
+	    cancel();
+	    canceled = true;
+	    if (pollThread != null) {
+		pollThread.interrupt();
+	    }
+	    long deadline = System.currentTimeMillis() + timeoutMs;
+	    while (running.get()) {
+		long remaining = deadline - System.currentTimeMillis();
+		if (remaining <= 0) {
+		    return false;
+		}
+		wait(remaining);
+	    }
+	    return true;
+	}
+
+	/*
+	 * @see com.sitewhere.sources.spi.polling.IScheduledPoll#getName()
+	 */
+	@Override
+	public String getName() {
+	    return name;
+	}
+
+	/*
+	 * @see com.sitewhere.sources.spi.polling.IScheduledPoll#getIntervalMs()
+	 */
+	@Override
+	public long getIntervalMs() {
+	    return intervalMs;
+	}
+
+	/*
+	 * @see com.sitewhere.sources.spi.polling.IScheduledPoll#getPollCount()
+	 */
+	@Override
+	public long getPollCount() {
+	    return pollCount.get();
+	}
+
+	/*
+	 * @see com.sitewhere.sources.spi.polling.IScheduledPoll#getOverrunCount()
+	 */
+	@Override
+	public long getOverrunCount() {
+	    return overrunCount.get();
+	}
+
+	/*
+	 * @see com.sitewhere.sources.spi.polling.IScheduledPoll#getSkippedCount()
+	 */
+	@Override
+	public long getSkippedCount() {
+	    return skippedCount.get();
+	}
+
+	/*
+	 * @see
+	 * com.sitewhere.sources.spi.polling.IScheduledPoll#getLastPollDurationMs()
+	 */
+	@Override
+	public long getLastPollDurationMs() {
+	    return lastPollDurationMs;
+	}
+
+	public void setFuture(ScheduledFuture<?> future) {
+	    this.future = future;
+	}
+    }
+
+    /** Used for naming polling threads */
+    private class PollerThreadFactory implements ThreadFactory {
+
+	/** Prefix for thread names */
+	private String prefix;
+
+	/** Counts threads */
+	private AtomicInteger counter = new AtomicInteger();
+
+	public PollerThreadFactory(String prefix) {
+	    this.prefix = prefix;
+	}
+
+	public Thread newThread(Runnable r) {
+	    return new Thread(r, prefix + " " + counter.incrementAndGet());
+	}
+    }
+}
\ No newline at end of file
@@ -8,6 +8,8 @@
 package com.sitewhere.sources.rabbitmq;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -21,17 +23,21 @@ import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.ConnectionFactory;
-import com.rabbitmq.client.Consumer;
 import com.rabbitmq.client.DefaultConsumer;
 import com.rabbitmq.client.Envelope;
 import com.rabbitmq.client.ShutdownListener;
 import com.rabbitmq.client.ShutdownSignalException;
+import com.sitewhere.microservice.kafka.KafkaDeliveryTracker;
 import com.sitewhere.sources.InboundEventReceiver;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor;
 
 /**
  * Binary inbound event source that consumes messages from a RabbitMQ broker.
+ * Each consumer uses its own channel with a bounded prefetch. Messages are
+ * acknowledged in batches, using a single multiple ack, once the events
+ * decoded from them have been delivered to Kafka. If delivery fails the batch
+ * is rejected and requeued.
  * 
  * @author Derek
  */
@@ -52,6 +58,15 @@ public class RabbitMqInboundEventReceiver extends InboundEventReceiver<byte[]> {
     /** Default period in which to attempt connects/re-connects to RabbitMQ */
     private static final int DEFAULT_RECONNECT_INTERVAL = 10;
 
+    /** Default number of unacknowledged messages delivered to each consumer */
+    private static final int DEFAULT_PREFETCH_COUNT = 250;
+
+    /** Default number of messages acknowledged together */
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    /** Default maximum time a message waits to be acknowledged */
+    private static final long DEFAULT_ACK_INTERVAL_MS = 1000;
+
     /** Connection URI */
     private String connectionUri = DEFAULT_CONNECTION_URI;
 
@@ -67,14 +82,23 @@ public class RabbitMqInboundEventReceiver extends InboundEventReceiver<byte[]> {
     /** Indicates if queue should be durable */
     private boolean durable = false;
 
+    /** Number of unacknowledged messages delivered to each consumer */
+    private int prefetchCount = DEFAULT_PREFETCH_COUNT;
+
+    /** Number of messages acknowledged together */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /** Maximum time a message waits to be acknowledged */
+    private long ackIntervalMs = DEFAULT_ACK_INTERVAL_MS;
+
     /** RabbitMQ connection factory **/
     private ConnectionFactory factory;
 
     /** RabbitMQ connection */
     private Connection connection;
 
-    /** RabbitMQ channel */
-    private Channel channel;
+    /** Consumers, each with its own channel */
+    private List<AcknowledgingConsumer> consumers = new ArrayList<AcknowledgingConsumer>();
 
     /** Used for consumer thread pool */
     private ExecutorService executors;
@@ -85,6 +109,9 @@ public class RabbitMqInboundEventReceiver extends InboundEventReceiver<byte[]> {
     /** Shedules reconnection attempts */
     private ScheduledExecutorService connectionExecutor;
 
+    /** Holds reference to scheduled acknowledgement task */
+    private ScheduledFuture<?> ackFuture;
+
     /*
      * (non-Javadoc)
      * 
@@ -96,7 +123,7 @@ public class RabbitMqInboundEventReceiver extends InboundEventReceiver<byte[]> {
     public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	executors = Executors.newFixedThreadPool(getNumConsumers());
 	connectionExecutor = Executors.newScheduledThreadPool(1);
-	factory = new ConnectionFactory();
+	factory = createConnectionFactory();
 
 	try {
 	    factory.setUri(getConnectionUri());
@@ -105,6 +132,17 @@ public class RabbitMqInboundEventReceiver extends InboundEventReceiver<byte[]> {
 	}
 
 	connect();
+	ackFuture = connectionExecutor.scheduleWithFixedDelay(() -> acknowledgeIdleConsumers(), getAckIntervalMs(),
+		getAckIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Create factory for RabbitMQ connections.
+     * 
+     * @return
+     */
+    protected ConnectionFactory createConnectionFactory() {
+	return new ConnectionFactory();
     }
 
     /*
@@ -144,24 +182,28 @@ public class RabbitMqInboundEventReceiver extends InboundEventReceiver<byte[]> {
 		}
 	    });
 
-	    this.channel = connection.createChannel();
-
 	    LOGGER.info("RabbitMQ receiver connected to: " + getConnectionUri());
 
-	    channel.queueDeclare(getQueueName(), isDurable(), false, false, null);
-
-	    LOGGER.info("RabbitMQ receiver using " + (isDurable() ? "durable " : "") + "queue: " + getQueueName());
-
-	    // Add consumer callback for channel.
-	    Consumer consumer = new DefaultConsumer(channel) {
-		@Override
-		public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties properties,
-			byte[] body) throws IOException {
-		    onEventPayloadReceived(body, null);
+	    // Use a channel per consumer so deliveries are processed concurrently.
+	    List<AcknowledgingConsumer> created = new ArrayList<AcknowledgingConsumer>();
+	    for (int i = 0; i < getNumConsumers(); i++) {
+		Channel channel = connection.createChannel();
+		if (i == 0) {
+		    channel.queueDeclare(getQueueName(), isDurable(), false, false, null);
 		}
-	    };
+		channel.basicQos(getPrefetchCount());
+		AcknowledgingConsumer consumer = new AcknowledgingConsumer(channel);
+		channel.basicConsume(getQueueName(), false, consumer);
+		created.add(consumer);
+	    }
+	    this.consumers = created;
 
-	    channel.basicConsume(getQueueName(), true, consumer);
+	    LOGGER.info("RabbitMQ receiver using " + (isDurable() ? "durable " : "") + "queue: " + getQueueName()
+		    + " with " + getNumConsumers() + " consumers and prefetch of " + getPrefetchCount() + ".");
+	    if (getEffectiveBatchSize() < getBatchSize()) {
+		LOGGER.warn("Acknowledgement batch size " + getBatchSize() + " exceeds prefetch. Using "
+			+ getEffectiveBatchSize() + ".");
+	    }
 
 	} catch (Exception e) {
 	    LOGGER.error("Connection Error", e);
@@ -171,6 +213,16 @@ public class RabbitMqInboundEventReceiver extends InboundEventReceiver<byte[]> {
 
     }
 
+    /**
+     * Acknowledge partial batches that have waited longer than the acknowledgement
+     * interval.
+     */
+    protected void acknowledgeIdleConsumers() {
+	for (AcknowledgingConsumer consumer : consumers) {
+	    consumer.acknowledgeIfDue();
+	}
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -185,11 +237,18 @@ public class RabbitMqInboundEventReceiver extends InboundEventReceiver<byte[]> {
 	if (connectionFuture != null && !connectionFuture.isDone()) {
 	    connectionFuture.cancel(true);
 	}
+	if (ackFuture != null) {
+	    ackFuture.cancel(false);
+	}
 
 	try {
-	    if (channel != null) {
-		channel.close();
+	    for (AcknowledgingConsumer consumer : consumers) {
+		consumer.acknowledge();
+		if (consumer.getChannel().isOpen()) {
+		    consumer.getChannel().close();
+		}
 	    }
+	    consumers.clear();
 	    if (connection != null) {
 		connection.close();
 	    }
@@ -222,6 +281,89 @@ public class RabbitMqInboundEventReceiver extends InboundEventReceiver<byte[]> {
 	return "RabbitMQ uri=" + getConnectionUri() + " queue=" + getQueueName();
     }
 
+    /**
+     * Consumer that acknowledges processed messages in batches after the
+     * resulting events have been delivered.
+     * 
+     * @author Derek
+     */
+    private class AcknowledgingConsumer extends DefaultConsumer {
+
+	/** Number of processed messages not yet acknowledged */
+	private int pending;
+
+	/** Delivery tag of most recent processed message */
+	private long lastDeliveryTag;
+
+	/** Time first message in current batch was processed */
+	private long batchStarted;
+
+	/** Tracks delivery of events produced from current batch */
+	private KafkaDeliveryTracker tracker = new KafkaDeliveryTracker();
+
+	public AcknowledgingConsumer(Channel channel) {
+	    super(channel);
+	}
+
+	/*
+	 * @see com.rabbitmq.client.DefaultConsumer#handleDelivery(java.lang.String,
+	 * com.rabbitmq.client.Envelope, com.rabbitmq.client.AMQP.BasicProperties,
+	 * byte[])
+	 */
+	@Override
+	public synchronized void handleDelivery(String consumerTag, Envelope envelope,
+		AMQP.BasicProperties properties, byte[] body) throws IOException {
+	    tracker.bind();
+	    try {
+		onEventPayloadReceived(body, null);
+	    } finally {
+		tracker.unbind();
+	    }
+	    if (pending++ == 0) {
+		batchStarted = System.currentTimeMillis();
+	    }
+	    lastDeliveryTag = envelope.getDeliveryTag();
+	    if (pending >= getEffectiveBatchSize()) {
+		acknowledge();
+	    }
+	}
+
+	/**
+	 * Acknowledge the current batch if it has waited long enough.
+	 */
+	public synchronized void acknowledgeIfDue() {
+	    if ((pending > 0) && ((System.currentTimeMillis() - batchStarted) >= getAckIntervalMs())) {
+		acknowledge();
+	    }
+	}
+
+	/**
+	 * Acknowledge all processed messages once the events produced from this
+	 * batch are delivered. Messages are requeued if any of those events could
+	 * not be delivered.
+	 */
+	public synchronized void acknowledge() {
+	    if (pending == 0) {
+		return;
+	    }
+	    try {
+		tracker.await();
+		getChannel().basicAck(lastDeliveryTag, true);
+	    } catch (SiteWhereException e) {
+		LOGGER.error("Unable to deliver events. Requeueing " + pending + " RabbitMQ messages.", e);
+		try {
+		    getChannel().basicNack(lastDeliveryTag, true, true);
+		} catch (IOException e1) {
+		    LOGGER.error("Unable to requeue RabbitMQ messages.", e1);
+		}
+	    } catch (Exception e) {
+		LOGGER.error("Unable to acknowledge RabbitMQ messages.", e);
+	    } finally {
+		pending = 0;
+	    }
+	}
+    }
+
     public int getReconnectInterval() {
 	return this.reconnectInterval;
     }
@@ -261,4 +403,39 @@ public class RabbitMqInboundEventReceiver extends InboundEventReceiver<byte[]> {
     public void setDurable(boolean durable) {
 	this.durable = durable;
     }
+
+    public int getPrefetchCount() {
+	return prefetchCount;
+    }
+
+    public void setPrefetchCount(int prefetchCount) {
+	this.prefetchCount = prefetchCount;
+    }
+
+    public int getBatchSize() {
+	return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+	this.batchSize = batchSize;
+    }
+
+    /**
+     * Get number of messages acknowledged together. Limited to the prefetch
+     * count since the broker stops delivering once that many messages are
+     * unacknowledged. A prefetch count of zero is unlimited.
+     * 
+     * @return
+     */
+    public int getEffectiveBatchSize() {
+	return (getPrefetchCount() > 0) ? Math.min(getBatchSize(), getPrefetchCount()) : getBatchSize();
+    }
+
+    public long getAckIntervalMs() {
+	return ackIntervalMs;
+    }
+
+    public void setAckIntervalMs(long ackIntervalMs) {
+	this.ackIntervalMs = ackIntervalMs;
+    }
 }
\ No newline at end of file
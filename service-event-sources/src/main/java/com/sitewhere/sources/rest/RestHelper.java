@@ -8,7 +8,11 @@
 package com.sitewhere.sources.rest;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
@@ -20,10 +24,12 @@ import javax.net.ssl.X509TrustManager;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang.StringUtils;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
@@ -38,12 +44,38 @@ import com.sitewhere.spi.SiteWhereSystemException;
 
 /**
  * Helper class that simplifies use of Spring {@link RestTemplate} for
- * scripting.
+ * scripting. All helpers share pooled keep-alive connections, and GET requests
+ * send the ETag and Last-Modified values from the previous response for the
+ * same URL so unchanged resources come back as 304 responses without a body.
  * 
  * @author Derek
  */
 public class RestHelper {
 
+    /** Maximum number of pooled connections */
+    private static final int MAX_CONNECTIONS = 200;
+
+    /** Maximum number of pooled connections to a single host */
+    private static final int MAX_CONNECTIONS_PER_ROUTE = 50;
+
+    /** Time after which idle pooled connections are closed */
+    private static final long IDLE_CONNECTION_TIMEOUT_MS = 60 * 1000;
+
+    /** Timeout for establishing a connection */
+    private static final int CONNECT_TIMEOUT_MS = 10 * 1000;
+
+    /** Timeout waiting for response data */
+    private static final int SOCKET_TIMEOUT_MS = 30 * 1000;
+
+    /** Maximum number of URLs for which validators are kept */
+    private static final int MAX_CACHED_RESPONSES = 32;
+
+    /** Shared client that validates server certificates */
+    private static HttpClient pooledClient;
+
+    /** Shared client that ignores bad server certificates */
+    private static HttpClient trustingClient;
+
     /** Base URL used for REST calls */
     private String baseUrl;
 
@@ -59,12 +91,28 @@ public class RestHelper {
     /** Indicates whether to ignore a bad SSL certificate on the server */
     private boolean ignoreBadCertificate = true;
 
+    /** Most recent cacheable responses by type and URL */
+    private Map<String, CachedResponse> cachedResponses = Collections
+	    .synchronizedMap(new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+
+		/** Serial version UID */
+		private static final long serialVersionUID = -2418542357417442349L;
+
+		/*
+		 * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+		 */
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+		    return size() > MAX_CACHED_RESPONSES;
+		}
+	    });
+
     public RestHelper(String baseUrl, String username, String password) {
 	this.baseUrl = baseUrl;
 	this.username = username;
 	this.password = password;
 
-	this.client = isIgnoreBadCertificate() ? new RestTemplate(createSecureTransport()) : new RestTemplate();
+	this.client = new RestTemplate(isIgnoreBadCertificate() ? createSecureTransport() : createPooledTransport());
 	List<HttpMessageConverter<?>> converters = new ArrayList<HttpMessageConverter<?>>();
 	converters.add(new MappingJackson2HttpMessageConverter());
 	client.setMessageConverters(converters);
@@ -92,6 +140,30 @@ public class RestHelper {
 	return get(relativeUrl, String.class);
     }
 
+    /**
+     * Make REST call and return JsonNode response or null if the resource has
+     * not changed since the last call.
+     * 
+     * @param relativeUrl
+     * @return
+     * @throws SiteWhereException
+     */
+    public JsonNode getJsonNodeIfModified(String relativeUrl) throws SiteWhereException {
+	return get(relativeUrl, JsonNode.class, true);
+    }
+
+    /**
+     * Make REST call and return String response or null if the resource has not
+     * changed since the last call.
+     * 
+     * @param relativeUrl
+     * @return
+     * @throws SiteWhereException
+     */
+    public String getStringIfModified(String relativeUrl) throws SiteWhereException {
+	return get(relativeUrl, String.class, true);
+    }
+
     /**
      * Perform a GET request to the given relative URL.
      * 
@@ -101,14 +173,50 @@ public class RestHelper {
      * @throws SiteWhereSystemException
      */
     protected <T> T get(String relativeUrl, Class<T> responseType) throws SiteWhereException {
+	return get(relativeUrl, responseType, false);
+    }
+
+    /**
+     * Perform a conditional GET request to the given relative URL. If the server
+     * reports the resource as not modified, either the previous body or null is
+     * returned.
+     * 
+     * @param relativeUrl
+     * @param responseType
+     * @param onlyIfModified
+     * @return
+     * @throws SiteWhereException
+     */
+    protected <T> T get(String relativeUrl, Class<T> responseType, boolean onlyIfModified)
+	    throws SiteWhereException {
 	try {
 	    HttpHeaders headers = new HttpHeaders();
 	    if (!StringUtils.isEmpty(getUsername()) && !StringUtils.isEmpty(getPassword())) {
 		headers.add("Authorization", getAuthHeader());
 	    }
-	    HttpEntity<Void> entity = new HttpEntity<Void>(headers);
 	    String url = baseUrl + relativeUrl;
+	    String key = responseType.getName() + " " + url;
+	    CachedResponse cached = cachedResponses.get(key);
+	    if (cached != null) {
+		if (cached.eTag != null) {
+		    headers.setIfNoneMatch(cached.eTag);
+		}
+		if (cached.lastModified != -1) {
+		    headers.setIfModifiedSince(cached.lastModified);
+		}
+	    }
+	    HttpEntity<Void> entity = new HttpEntity<Void>(headers);
 	    ResponseEntity<T> response = client.exchange(url, HttpMethod.GET, entity, responseType);
+	    if ((response.getStatusCode() == HttpStatus.NOT_MODIFIED) && (cached != null)) {
+		return onlyIfModified ? null : responseType.cast(cached.body);
+	    }
+	    String eTag = response.getHeaders().getETag();
+	    long lastModified = response.getHeaders().getLastModified();
+	    if ((response.getBody() != null) && ((eTag != null) || (lastModified != -1))) {
+		cachedResponses.put(key, new CachedResponse(eTag, lastModified, response.getBody()));
+	    } else {
+		cachedResponses.remove(key);
+	    }
 	    return response.getBody();
 	} catch (ResourceAccessException e) {
 	    throw new SiteWhereException(e);
@@ -126,24 +234,53 @@ public class RestHelper {
 	return "Basic " + encoded;
     }
 
+    /**
+     * Uses shared pooled connections that require a valid certificate on server.
+     * 
+     * @return
+     */
+    protected ClientHttpRequestFactory createPooledTransport() {
+	synchronized (RestHelper.class) {
+	    if (pooledClient == null) {
+		pooledClient = buildPooledClient(HttpClientBuilder.create());
+	    }
+	    return new HttpComponentsClientHttpRequestFactory(pooledClient);
+	}
+    }
+
     /**
      * Removes requirement for valid certificate on server.
      * 
      * @return
      */
     protected ClientHttpRequestFactory createSecureTransport() {
-	HostnameVerifier nullHostnameVerifier = new HostnameVerifier() {
-	    public boolean verify(String hostname, SSLSession session) {
-		return true;
+	synchronized (RestHelper.class) {
+	    if (trustingClient == null) {
+		HostnameVerifier nullHostnameVerifier = new HostnameVerifier() {
+		    public boolean verify(String hostname, SSLSession session) {
+			return true;
+		    }
+		};
+		trustingClient = buildPooledClient(HttpClientBuilder.create()
+			.setSSLHostnameVerifier(nullHostnameVerifier).setSSLContext(createContext()));
 	    }
-	};
-
-	HttpClient client = HttpClientBuilder.create().setSSLHostnameVerifier(nullHostnameVerifier)
-		.setSSLContext(createContext()).build();
-
-	HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(client);
+	    return new HttpComponentsClientHttpRequestFactory(trustingClient);
+	}
+    }
 
-	return requestFactory;
+    /**
+     * Build client with connection pool limits, idle connection eviction and
+     * timeouts.
+     * 
+     * @param builder
+     * @return
+     */
+    protected static HttpClient buildPooledClient(HttpClientBuilder builder) {
+	RequestConfig config = RequestConfig.custom().setConnectTimeout(CONNECT_TIMEOUT_MS)
+		.setSocketTimeout(SOCKET_TIMEOUT_MS).build();
+	return builder.setMaxConnTotal(MAX_CONNECTIONS).setMaxConnPerRoute(MAX_CONNECTIONS_PER_ROUTE)
+		.evictIdleConnections(IDLE_CONNECTION_TIMEOUT_MS, TimeUnit.MILLISECONDS).evictExpiredConnections()
+		.setDefaultRequestConfig(config).build();
     }
 
     /**
@@ -212,4 +349,25 @@ public class RestHelper {
     public void setIgnoreBadCertificate(boolean ignoreBadCertificate) {
 	this.ignoreBadCertificate = ignoreBadCertificate;
     }
+
+    /**
+     * Validators and body from a previous response.
+     */
+    private static class CachedResponse {
+
+	/** Entity tag */
+	private final String eTag;
+
+	/** Last modified date or -1 if not known */
+	private final long lastModified;
+
+	/** Response body */
+	private final Object body;
+
+	public CachedResponse(String eTag, long lastModified, Object body) {
+	    this.eTag = eTag;
+	    this.lastModified = lastModified;
+	    this.body = body;
+	}
+    }
 }
\ No newline at end of file
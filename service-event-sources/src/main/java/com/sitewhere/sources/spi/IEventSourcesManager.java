@@ -12,13 +12,14 @@ import java.util.Map;
 
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.server.lifecycle.ITenantEngineLifecycleComponent;
+import com.sitewhere.spi.sources.IEventSourcesMonitoring;
 
 /**
  * Manages the list of event sources for a tenant.
  * 
  * @author Derek
  */
-public interface IEventSourcesManager extends ITenantEngineLifecycleComponent {
+public interface IEventSourcesManager extends ITenantEngineLifecycleComponent, IEventSourcesMonitoring {
 
     /**
      * Get list of inbound event sources.
@@ -27,6 +28,14 @@ public interface IEventSourcesManager extends ITenantEngineLifecycleComponent {
      */
     public List<IInboundEventSource<?>> getEventSources();
 
+    /**
+     * Get an inbound event source by id or null if not found.
+     * 
+     * @param sourceId
+     * @return
+     */
+    public IInboundEventSource<?> getEventSource(String sourceId);
+
     /**
      * Handle processing for a decoded event from an event source.
      * 
@@ -39,6 +48,19 @@ public interface IEventSourcesManager extends ITenantEngineLifecycleComponent {
     public void handleDecodedEvent(String sourceId, byte[] encoded, Map<String, Object> metadata,
 	    IDecodedDeviceRequest<?> decoded) throws SiteWhereException;
 
+    /**
+     * Handle processing for all events decoded from a single payload. Events for
+     * the same device are forwarded together, preserving their order.
+     * 
+     * @param sourceId
+     * @param encoded
+     * @param metadata
+     * @param decoded
+     * @throws SiteWhereException
+     */
+    public void handleDecodedEvents(String sourceId, byte[] encoded, Map<String, Object> metadata,
+	    List<IDecodedDeviceRequest<?>> decoded) throws SiteWhereException;
+
     /**
      * Handle failed decode from an event source.
      * 
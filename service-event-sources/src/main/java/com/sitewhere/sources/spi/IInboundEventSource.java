@@ -10,7 +10,9 @@ package com.sitewhere.sources.spi;
 import java.util.List;
 import java.util.Map;
 
+import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.server.lifecycle.ITenantEngineLifecycleComponent;
+import com.sitewhere.spi.sources.IEventSourceMetrics;
 
 /**
  * Entity that receives events from one or more {@link IInboundEventReceiver},
@@ -41,6 +43,13 @@ public interface IInboundEventSource<T> extends ITenantEngineLifecycleComponent
      */
     public void setDeviceEventDecoder(IDeviceEventDecoder<T> decoder);
 
+    /**
+     * Get the device event decoder.
+     * 
+     * @return
+     */
+    public IDeviceEventDecoder<T> getDeviceEventDecoder();
+
     /**
      * Set the device event deduplicator.
      * 
@@ -71,4 +80,24 @@ public interface IInboundEventSource<T> extends ITenantEngineLifecycleComponent
      * @param metadata
      */
     public void onEncodedEventReceived(IInboundEventReceiver<T> receiver, T encodedEvent, Map<String, Object> metadata);
+
+    /**
+     * Decode a raw payload that previously failed decoding and process the
+     * resulting events. Payloads that still fail are not added to the failed
+     * decode topic again.
+     * 
+     * @param payload
+     * @param metadata
+     * @return true if the payload was decoded
+     * @throws SiteWhereException
+     */
+    public boolean replayRawPayload(byte[] payload, Map<String, Object> metadata) throws SiteWhereException;
+
+    /**
+     * Get counters, rates and stage latencies for events processed by this
+     * source.
+     * 
+     * @return
+     */
+    public IEventSourceMetrics getMetrics();
 }
\ No newline at end of file
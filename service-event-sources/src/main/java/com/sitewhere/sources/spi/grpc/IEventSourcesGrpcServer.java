@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.spi.grpc;
+
+import com.sitewhere.spi.server.lifecycle.ITenantEngineLifecycleComponent;
+
+/**
+ * Binds to a port and listens for event sources GRPC requests.
+ * 
+ * @author Derek
+ */
+public interface IEventSourcesGrpcServer extends ITenantEngineLifecycleComponent {
+}
\ No newline at end of file
@@ -0,0 +1,18 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.spi.kafka;
+
+import com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer;
+
+/**
+ * Consumer for payloads that event sources were unable to decode.
+ * 
+ * @author Derek
+ */
+public interface IFailedDecodeEventsConsumer extends IMicroserviceKafkaConsumer {
+}
\ No newline at end of file
@@ -9,6 +9,7 @@ package com.sitewhere.sources.spi.microservice;
 
 import com.sitewhere.grpc.client.spi.client.IDeviceEventManagementApiDemux;
 import com.sitewhere.grpc.client.spi.client.IDeviceManagementApiDemux;
+import com.sitewhere.sources.spi.grpc.IEventSourcesGrpcServer;
 import com.sitewhere.spi.microservice.multitenant.IMultitenantMicroservice;
 
 /**
@@ -18,6 +19,13 @@ import com.sitewhere.spi.microservice.multitenant.IMultitenantMicroservice;
  */
 public interface IEventSourcesMicroservice extends IMultitenantMicroservice<IEventSourcesTenantEngine> {
 
+    /**
+     * Get event sources GRPC server.
+     * 
+     * @return
+     */
+    public IEventSourcesGrpcServer getEventSourcesGrpcServer();
+
     /**
      * Get device management API access via GRPC channel.
      * 
@@ -7,8 +7,11 @@
  */
 package com.sitewhere.sources.spi.microservice;
 
+import com.sitewhere.grpc.service.EventSourcesGrpc;
 import com.sitewhere.sources.spi.IEventSourcesManager;
+import com.sitewhere.sources.spi.polling.IPollingScheduler;
 import com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine;
+import com.sitewhere.spi.sources.IFailedDecodeManagement;
 
 /**
  * Extends {@link IMicroserviceTenantEngine} with features specific to device
@@ -24,4 +27,25 @@ public interface IEventSourcesTenantEngine extends IMicroserviceTenantEngine {
      * @return
      */
     public IEventSourcesManager getEventSourcesManager();
+
+    /**
+     * Get scheduler shared by polling event receivers.
+     * 
+     * @return
+     */
+    public IPollingScheduler getPollingScheduler();
+
+    /**
+     * Get management interface for payloads that could not be decoded.
+     * 
+     * @return
+     */
+    public IFailedDecodeManagement getFailedDecodeManagement();
+
+    /**
+     * Get implementation class that wraps event sources with GRPC conversions.
+     * 
+     * @return
+     */
+    public EventSourcesGrpc.EventSourcesImplBase getEventSourcesImpl();
 }
\ No newline at end of file
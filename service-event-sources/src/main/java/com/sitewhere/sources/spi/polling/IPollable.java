@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.spi.polling;
+
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Work executed each time a {@link IPollingScheduler} polls.
+ * 
+ * @author Derek
+ */
+public interface IPollable {
+
+    /**
+     * Poll the external source.
+     * 
+     * @throws SiteWhereException
+     */
+    public void doPoll() throws SiteWhereException;
+}
\ No newline at end of file
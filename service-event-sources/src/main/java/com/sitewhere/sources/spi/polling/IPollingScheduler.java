@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.spi.polling;
+
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.server.lifecycle.ITenantEngineLifecycleComponent;
+
+/**
+ * Runs polling for all polling receivers in a tenant on a shared pool of
+ * threads.
+ * 
+ * @author Derek
+ */
+public interface IPollingScheduler extends ITenantEngineLifecycleComponent {
+
+    /**
+     * Poll at a fixed rate. The first poll is delayed by a random fraction of the
+     * interval so that sources started together do not poll together. A poll is
+     * skipped if the previous poll for the same source has not finished.
+     * 
+     * @param name
+     * @param intervalMs
+     * @param pollable
+     * @return
+     * @throws SiteWhereException
+     */
+    public IScheduledPoll schedule(String name, long intervalMs, IPollable pollable) throws SiteWhereException;
+}
\ No newline at end of file
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.spi.polling;
+
+/**
+ * Handle for an {@link IPollable} registered with an {@link IPollingScheduler}.
+ * 
+ * @author Derek
+ */
+public interface IScheduledPoll {
+
+    /**
+     * Get name used when logging.
+     * 
+     * @return
+     */
+    public String getName();
+
+    /**
+     * Get polling interval in milliseconds.
+     * 
+     * @return
+     */
+    public long getIntervalMs();
+
+    /**
+     * Get number of polls that have completed.
+     * 
+     * @return
+     */
+    public long getPollCount();
+
+    /**
+     * Get number of polls that took longer than the polling interval.
+     * 
+     * @return
+     */
+    public long getOverrunCount();
+
+    /**
+     * Get number of polls skipped because the previous poll was still running.
+     * 
+     * @return
+     */
+    public long getSkippedCount();
+
+    /**
+     * Get duration of the most recent poll in milliseconds.
+     * 
+     * @return
+     */
+    public long getLastPollDurationMs();
+
+    /**
+     * Stop polling. A poll that is already running is allowed to finish.
+     */
+    public void cancel();
+
+    /**
+     * Stop polling, interrupt a poll that is already running and wait for it to
+     * finish.
+     * 
+     * @param timeoutMs
+     * @return true if no poll is running when the method returns
+     * @throws InterruptedException
+     */
+    public boolean cancelAndAwait(long timeoutMs) throws InterruptedException;
+}
\ No newline at end of file
@@ -61,6 +61,7 @@ import com.sitewhere.sources.spi.IInboundEventSource;
 import com.sitewhere.sources.spi.socket.ISocketInteractionHandlerFactory;
 import com.sitewhere.sources.websocket.BinaryWebSocketEventReceiver;
 import com.sitewhere.sources.websocket.StringWebSocketEventReceiver;
+import com.sitewhere.sources.websocket.WebSocketServerEventReceiver;
 import com.sitewhere.spi.microservice.spring.EventSourcesBeans;
 
 /**
@@ -134,6 +135,10 @@ public class EventSourcesParser extends AbstractBeanDefinitionParser {
 		sources.add(parseWebSocketEventSource(child, context));
 		break;
 	    }
+	    case WebSocketServerEventSource: {
+		sources.add(parseWebSocketServerEventSource(child, context));
+		break;
+	    }
 	    }
 	}
 
@@ -331,7 +336,7 @@ public class EventSourcesParser extends AbstractBeanDefinitionParser {
 	}
 
 	Attr queueName = element.getAttributeNode("queueName");
-	if (connectionUri != null) {
+	if (queueName != null) {
 	    mqtt.addPropertyValue("queueName", queueName.getValue());
 	}
 
@@ -341,10 +346,25 @@ public class EventSourcesParser extends AbstractBeanDefinitionParser {
 	}
 
 	Attr numConsumers = element.getAttributeNode("numConsumers");
-	if (connectionUri != null) {
+	if (numConsumers != null) {
 	    mqtt.addPropertyValue("numConsumers", numConsumers.getValue());
 	}
 
+	Attr prefetchCount = element.getAttributeNode("prefetchCount");
+	if (prefetchCount != null) {
+	    mqtt.addPropertyValue("prefetchCount", prefetchCount.getValue());
+	}
+
+	Attr batchSize = element.getAttributeNode("batchSize");
+	if (batchSize != null) {
+	    mqtt.addPropertyValue("batchSize", batchSize.getValue());
+	}
+
+	Attr ackIntervalMs = element.getAttributeNode("ackIntervalMs");
+	if (ackIntervalMs != null) {
+	    mqtt.addPropertyValue("ackIntervalMs", ackIntervalMs.getValue());
+	}
+
 	return mqtt.getBeanDefinition();
     }
 
@@ -435,6 +455,31 @@ public class EventSourcesParser extends AbstractBeanDefinitionParser {
 	}
 	eh.addPropertyValue("password", password.getValue());
 
+	Attr checkpointIntervalSeconds = element.getAttributeNode("checkpointIntervalSeconds");
+	if (checkpointIntervalSeconds != null) {
+	    eh.addPropertyValue("checkpointIntervalSeconds", checkpointIntervalSeconds.getValue());
+	}
+
+	Attr checkpointBatchSize = element.getAttributeNode("checkpointBatchSize");
+	if (checkpointBatchSize != null) {
+	    eh.addPropertyValue("checkpointBatchSize", checkpointBatchSize.getValue());
+	}
+
+	Attr prefetchQueueSize = element.getAttributeNode("prefetchQueueSize");
+	if (prefetchQueueSize != null) {
+	    eh.addPropertyValue("prefetchQueueSize", prefetchQueueSize.getValue());
+	}
+
+	Attr dynamicPartitionOwnership = element.getAttributeNode("dynamicPartitionOwnership");
+	if (dynamicPartitionOwnership != null) {
+	    eh.addPropertyValue("dynamicPartitionOwnership", dynamicPartitionOwnership.getValue());
+	}
+
+	Attr rebalanceIntervalMs = element.getAttributeNode("rebalanceIntervalMs");
+	if (rebalanceIntervalMs != null) {
+	    eh.addPropertyValue("rebalanceIntervalMs", rebalanceIntervalMs.getValue());
+	}
+
 	return eh.getBeanDefinition();
     }
 
@@ -511,6 +556,46 @@ public class EventSourcesParser extends AbstractBeanDefinitionParser {
 	    mq.addPropertyValue("numConsumers", numConsumers.getValue());
 	}
 
+	Attr prefetch = element.getAttributeNode("prefetch");
+	if (prefetch != null) {
+	    mq.addPropertyValue("prefetch", prefetch.getValue());
+	}
+
+	Attr batchSize = element.getAttributeNode("batchSize");
+	if (batchSize != null) {
+	    mq.addPropertyValue("batchSize", batchSize.getValue());
+	}
+
+	Attr ackIntervalMs = element.getAttributeNode("ackIntervalMs");
+	if (ackIntervalMs != null) {
+	    mq.addPropertyValue("ackIntervalMs", ackIntervalMs.getValue());
+	}
+
+	Attr persistent = element.getAttributeNode("persistent");
+	if (persistent != null) {
+	    mq.addPropertyValue("persistent", persistent.getValue());
+	}
+
+	Attr journalMaxFileLength = element.getAttributeNode("journalMaxFileLength");
+	if (journalMaxFileLength != null) {
+	    mq.addPropertyValue("journalMaxFileLength", journalMaxFileLength.getValue());
+	}
+
+	Attr indexWriteBatchSize = element.getAttributeNode("indexWriteBatchSize");
+	if (indexWriteBatchSize != null) {
+	    mq.addPropertyValue("indexWriteBatchSize", indexWriteBatchSize.getValue());
+	}
+
+	Attr indexCacheSize = element.getAttributeNode("indexCacheSize");
+	if (indexCacheSize != null) {
+	    mq.addPropertyValue("indexCacheSize", indexCacheSize.getValue());
+	}
+
+	Attr journalDiskSyncs = element.getAttributeNode("journalDiskSyncs");
+	if (journalDiskSyncs != null) {
+	    mq.addPropertyValue("journalDiskSyncs", journalDiskSyncs.getValue());
+	}
+
 	return mq.getBeanDefinition();
     }
 
@@ -588,6 +673,21 @@ public class EventSourcesParser extends AbstractBeanDefinitionParser {
 	    mq.addPropertyValue("numConsumers", numConsumers.getValue());
 	}
 
+	Attr prefetch = element.getAttributeNode("prefetch");
+	if (prefetch != null) {
+	    mq.addPropertyValue("prefetch", prefetch.getValue());
+	}
+
+	Attr batchSize = element.getAttributeNode("batchSize");
+	if (batchSize != null) {
+	    mq.addPropertyValue("batchSize", batchSize.getValue());
+	}
+
+	Attr ackIntervalMs = element.getAttributeNode("ackIntervalMs");
+	if (ackIntervalMs != null) {
+	    mq.addPropertyValue("ackIntervalMs", ackIntervalMs.getValue());
+	}
+
 	return mq.getBeanDefinition();
     }
 
@@ -956,6 +1056,111 @@ public class EventSourcesParser extends AbstractBeanDefinitionParser {
 	return receiver.getBeanDefinition();
     }
 
+    /**
+     * Configure components needed to realize a web socket server event source.
+     * 
+     * @param element
+     * @param context
+     * @return
+     */
+    protected AbstractBeanDefinition parseWebSocketServerEventSource(Element element, ParserContext context) {
+	BeanDefinitionBuilder source = BeanDefinitionBuilder.rootBeanDefinition(BinaryInboundEventSource.class);
+
+	// Verify that a sourceId was provided and set it on the bean.
+	parseEventSourceId(element, source);
+
+	// Create event receiver bean and register it.
+	AbstractBeanDefinition receiver = createWebSocketServerEventReceiver(element, context);
+	String receiverName = nameGenerator.generateBeanName(receiver, context.getRegistry());
+	context.getRegistry().registerBeanDefinition(receiverName, receiver);
+
+	// Create list with bean reference and add it as property.
+	ManagedList<Object> list = new ManagedList<Object>();
+	RuntimeBeanReference ref = new RuntimeBeanReference(receiverName);
+	list.add(ref);
+	source.addPropertyValue("inboundEventReceivers", list);
+
+	// Add decoder reference.
+	boolean hadDecoder = parseBinaryDecoder(element, context, source);
+	if (!hadDecoder) {
+	    throw new RuntimeException(
+		    "No event decoder specified for web socket server event source: " + element.toString());
+	}
+
+	// Parse deduplicator if configured.
+	parseDeduplicator(element, context, source);
+
+	return source.getBeanDefinition();
+    }
+
+    /**
+     * Create web socket server event receiver.
+     * 
+     * @param element
+     * @param context
+     * @return
+     */
+    protected AbstractBeanDefinition createWebSocketServerEventReceiver(Element element, ParserContext context) {
+	BeanDefinitionBuilder receiver = BeanDefinitionBuilder.rootBeanDefinition(WebSocketServerEventReceiver.class);
+
+	Attr hostname = element.getAttributeNode("hostname");
+	if (hostname != null) {
+	    receiver.addPropertyValue("hostname", hostname.getValue());
+	}
+
+	Attr port = element.getAttributeNode("port");
+	if (port != null) {
+	    receiver.addPropertyValue("port", port.getValue());
+	}
+
+	Attr path = element.getAttributeNode("path");
+	if (path != null) {
+	    receiver.addPropertyValue("path", path.getValue());
+	}
+
+	Attr ioThreads = element.getAttributeNode("ioThreads");
+	if (ioThreads != null) {
+	    receiver.addPropertyValue("ioThreads", ioThreads.getValue());
+	}
+
+	Attr dispatchThreads = element.getAttributeNode("dispatchThreads");
+	if (dispatchThreads != null) {
+	    receiver.addPropertyValue("dispatchThreads", dispatchThreads.getValue());
+	}
+
+	Attr authThreads = element.getAttributeNode("authThreads");
+	if (authThreads != null) {
+	    receiver.addPropertyValue("authThreads", authThreads.getValue());
+	}
+
+	Attr maxQueuedPayloads = element.getAttributeNode("maxQueuedPayloads");
+	if (maxQueuedPayloads != null) {
+	    receiver.addPropertyValue("maxQueuedPayloads", maxQueuedPayloads.getValue());
+	}
+
+	Attr batchSize = element.getAttributeNode("batchSize");
+	if (batchSize != null) {
+	    receiver.addPropertyValue("batchSize", batchSize.getValue());
+	}
+
+	Attr maxFrameSize = element.getAttributeNode("maxFrameSize");
+	if (maxFrameSize != null) {
+	    receiver.addPropertyValue("maxFrameSize", maxFrameSize.getValue());
+	}
+
+	Attr idleTimeoutSeconds = element.getAttributeNode("idleTimeoutSeconds");
+	if (idleTimeoutSeconds != null) {
+	    receiver.addPropertyValue("idleTimeoutSeconds", idleTimeoutSeconds.getValue());
+	}
+
+	Attr authCacheTtlMs = element.getAttributeNode("authCacheTtlMs");
+	if (authCacheTtlMs != null) {
+	    receiver.addPropertyValue("authCacheTtlMs", authCacheTtlMs.getValue());
+	}
+
+	return receiver.getBeanDefinition();
+    }
+
     /**
      * Configure components needed to realize a CoAP server event source.
      * 
@@ -1013,6 +1218,36 @@ public class EventSourcesParser extends AbstractBeanDefinitionParser {
 	    receiver.addPropertyValue("port", port.getValue());
 	}
 
+	Attr processingThreads = element.getAttributeNode("processingThreads");
+	if (processingThreads != null) {
+	    receiver.addPropertyValue("processingThreads", processingThreads.getValue());
+	}
+
+	Attr maxPendingRequests = element.getAttributeNode("maxPendingRequests");
+	if (maxPendingRequests != null) {
+	    receiver.addPropertyValue("maxPendingRequests", maxPendingRequests.getValue());
+	}
+
+	Attr queueTimeoutMs = element.getAttributeNode("queueTimeoutMs");
+	if (queueTimeoutMs != null) {
+	    receiver.addPropertyValue("queueTimeoutMs", queueTimeoutMs.getValue());
+	}
+
+	Attr duplicateWindowMs = element.getAttributeNode("duplicateWindowMs");
+	if (duplicateWindowMs != null) {
+	    receiver.addPropertyValue("duplicateWindowMs", duplicateWindowMs.getValue());
+	}
+
+	Attr protocolThreads = element.getAttributeNode("protocolThreads");
+	if (protocolThreads != null) {
+	    receiver.addPropertyValue("protocolThreads", protocolThreads.getValue());
+	}
+
+	Attr socketBufferSize = element.getAttributeNode("socketBufferSize");
+	if (socketBufferSize != null) {
+	    receiver.addPropertyValue("socketBufferSize", socketBufferSize.getValue());
+	}
+
 	return receiver.getBeanDefinition();
     }
 
@@ -1135,6 +1370,12 @@ public class EventSourcesParser extends AbstractBeanDefinitionParser {
     protected AbstractBeanDefinition parseJsonDeviceRequestDecoder(Element parent, Element decoder,
 	    ParserContext contex) {
 	BeanDefinitionBuilder builder = BeanDefinitionBuilder.rootBeanDefinition(JsonDeviceRequestDecoder.class);
+
+	Attr maxPayloadSize = decoder.getAttributeNode("maxPayloadSize");
+	if (maxPayloadSize != null) {
+	    builder.addPropertyValue("maxPayloadSize", maxPayloadSize.getValue());
+	}
+
 	return builder.getBeanDefinition();
     }
 
@@ -1148,6 +1389,17 @@ public class EventSourcesParser extends AbstractBeanDefinitionParser {
      */
     protected AbstractBeanDefinition parseJsonBatchDecoder(Element parent, Element decoder, ParserContext context) {
 	BeanDefinitionBuilder builder = BeanDefinitionBuilder.rootBeanDefinition(JsonBatchEventDecoder.class);
+
+	Attr maxPayloadSize = decoder.getAttributeNode("maxPayloadSize");
+	if (maxPayloadSize != null) {
+	    builder.addPropertyValue("maxPayloadSize", maxPayloadSize.getValue());
+	}
+
+	Attr maxEventsPerBatch = decoder.getAttributeNode("maxEventsPerBatch");
+	if (maxEventsPerBatch != null) {
+	    builder.addPropertyValue("maxEventsPerBatch", maxEventsPerBatch.getValue());
+	}
+
 	return builder.getBeanDefinition();
     }
 
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.websocket;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+
+/**
+ * Authenticates the device token passed with a web socket handshake request
+ * before the handshake is allowed to complete. The token may be passed as a
+ * 'token' query parameter, as a path segment following the web socket path or
+ * as a bearer token in the 'Authorization' header. Tokens that have not been
+ * seen recently are checked on a separate executor with reads suspended so
+ * that the event loop is never blocked.
+ *
+ * @author Derek
+ */
+public class DeviceTokenHandshakeHandler extends ChannelInboundHandlerAdapter {
+
+    /** Query parameter that holds the device token */
+    private static final String PARAM_TOKEN = "token";
+
+    /** Prefix for bearer tokens in the authorization header */
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    /** Receiver that owns the connection */
+    private WebSocketServerEventReceiver receiver;
+
+    public DeviceTokenHandshakeHandler(WebSocketServerEventReceiver receiver) {
+	this.receiver = receiver;
+    }
+
+    /*
+     * @see
+     * io.netty.channel.ChannelInboundHandlerAdapter#channelRead(io.netty.channel.
+     * ChannelHandlerContext, java.lang.Object)
+     */
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+	if (!(msg instanceof FullHttpRequest)) {
+	    ctx.fireChannelRead(msg);
+	    return;
+	}
+	FullHttpRequest request = (FullHttpRequest) msg;
+	String token = getDeviceToken(request);
+	if (token == null) {
+	    reject(ctx, request, HttpResponseStatus.UNAUTHORIZED);
+	    return;
+	}
+
+	// Route all requests for the path to the handshake regardless of token.
+	request.setUri(receiver.getPath());
+	if (receiver.isRecentlyAuthenticated(token)) {
+	    accept(ctx, request, token);
+	    return;
+	}
+
+	ctx.channel().config().setAutoRead(false);
+	try {
+	    receiver.getAuthExecutor().execute(new Runnable() {
+
+		@Override
+		public void run() {
+		    boolean authenticated;
+		    try {
+			authenticated = receiver.isAuthenticated(token);
+		    } catch (Throwable e) {
+			receiver.getLogger().warn("Unable to authenticate web socket device token '" + token + "'.", e);
+			authenticated = false;
+		    }
+		    final boolean result = authenticated;
+		    ctx.executor().execute(new Runnable() {
+
+			@Override
+			public void run() {
+			    if (result) {
+				accept(ctx, request, token);
+				ctx.channel().config().setAutoRead(true);
+			    } else {
+				reject(ctx, request, HttpResponseStatus.UNAUTHORIZED);
+			    }
+			}
+		    });
+		}
+	    });
+	} catch (RejectedExecutionException e) {
+	    reject(ctx, request, HttpResponseStatus.SERVICE_UNAVAILABLE);
+	}
+    }
+
+    /**
+     * Mark connection as belonging to the device and pass the request on to the
+     * handshake.
+     *
+     * @param ctx
+     * @param request
+     * @param token
+     */
+    protected void accept(ChannelHandlerContext ctx, FullHttpRequest request, String token) {
+	if (!ctx.channel().isActive()) {
+	    request.release();
+	    return;
+	}
+	receiver.onConnected(ctx.channel(), token);
+	ctx.pipeline().remove(this);
+	ctx.fireChannelRead(request);
+    }
+
+    /**
+     * Respond with an error status and close the connection.
+     *
+     * @param ctx
+     * @param request
+     * @param status
+     */
+    protected void reject(ChannelHandlerContext ctx, FullHttpRequest request, HttpResponseStatus status) {
+	request.release();
+	FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, Unpooled.EMPTY_BUFFER);
+	response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, 0);
+	ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+    }
+
+    /**
+     * Get device token from query parameter, path or authorization header.
+     *
+     * @param request
+     * @return
+     */
+    protected String getDeviceToken(FullHttpRequest request) {
+	QueryStringDecoder decoder = new QueryStringDecoder(request.uri());
+	List<String> tokens = decoder.parameters().get(PARAM_TOKEN);
+	if ((tokens != null) && (!tokens.isEmpty()) && (!tokens.get(0).isEmpty())) {
+	    return tokens.get(0);
+	}
+	String path = decoder.path();
+	String prefix = receiver.getPath().endsWith("/") ? receiver.getPath() : receiver.getPath() + "/";
+	if (path.startsWith(prefix) && (path.length() > prefix.length())) {
+	    String token = path.substring(prefix.length());
+	    if (token.indexOf('/') == -1) {
+		return token;
+	    }
+	}
+	String authorization = request.headers().get(HttpHeaderNames.AUTHORIZATION);
+	if ((authorization != null) && (authorization.startsWith(BEARER_PREFIX))) {
+	    String token = authorization.substring(BEARER_PREFIX.length()).trim();
+	    return token.isEmpty() ? null : token;
+	}
+	return null;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.websocket;
+
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * Queues the content of text and binary frames from an authenticated device
+ * connection for hand-off to the event source. Other frames are ignored.
+ *
+ * @author Derek
+ */
+public class WebSocketPayloadHandler extends ChannelInboundHandlerAdapter {
+
+    /** Receiver that owns the connection */
+    private WebSocketServerEventReceiver receiver;
+
+    public WebSocketPayloadHandler(WebSocketServerEventReceiver receiver) {
+	this.receiver = receiver;
+    }
+
+    /*
+     * @see
+     * io.netty.channel.ChannelInboundHandlerAdapter#channelRead(io.netty.channel.
+     * ChannelHandlerContext, java.lang.Object)
+     */
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+	try {
+	    if ((msg instanceof TextWebSocketFrame) || (msg instanceof BinaryWebSocketFrame)) {
+		String token = ctx.channel().attr(WebSocketServerEventReceiver.DEVICE_TOKEN).get();
+		byte[] payload = ByteBufUtil.getBytes(((WebSocketFrame) msg).content());
+		receiver.enqueue(token, payload);
+	    }
+	} finally {
+	    ReferenceCountUtil.release(msg);
+	}
+    }
+
+    /*
+     * @see
+     * io.netty.channel.ChannelInboundHandlerAdapter#userEventTriggered(io.netty.
+     * channel.ChannelHandlerContext, java.lang.Object)
+     */
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+	if (evt instanceof IdleStateEvent) {
+	    ctx.close();
+	    return;
+	}
+	super.userEventTriggered(ctx, evt);
+    }
+
+    /*
+     * @see
+     * io.netty.channel.ChannelInboundHandlerAdapter#channelInactive(io.netty.
+     * channel.ChannelHandlerContext)
+     */
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+	receiver.onDisconnected(ctx.channel());
+	super.channelInactive(ctx);
+    }
+
+    /*
+     * @see
+     * io.netty.channel.ChannelInboundHandlerAdapter#exceptionCaught(io.netty.
+     * channel.ChannelHandlerContext, java.lang.Throwable)
+     */
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+	receiver.getLogger().debug("Closing web socket connection after error.", cause);
+	ctx.close();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,657 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.websocket;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.sitewhere.sources.InboundEventReceiver;
+import com.sitewhere.sources.InboundEventSource;
+import com.sitewhere.sources.spi.IInboundEventReceiver;
+import com.sitewhere.sources.spi.microservice.IEventSourcesMicroservice;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.IDeviceManagement;
+import com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameAggregator;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.GlobalEventExecutor;
+
+/**
+ * Implementation of {@link IInboundEventReceiver} that accepts web socket
+ * connections from devices. Connections are served by a small number of Netty
+ * event loop threads so that tens of thousands of devices may stay connected.
+ * Each connection authenticates with a device token during the handshake.
+ * Text and binary frames are queued and handed to the event source in batches
+ * by dispatcher threads. When the queue reaches its limit, reads are suspended
+ * on all connections until the queue drains to half of the limit. Payloads are
+ * tagged with the authenticated token so that the event source rejects events
+ * decoded for other devices. Payloads still queued when the receiver is stopped
+ * are handed off before it returns.
+ *
+ * @author Derek
+ */
+public class WebSocketServerEventReceiver extends InboundEventReceiver<byte[]> {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(WebSocketServerEventReceiver.class);
+
+    /** Metadata field that holds the device token for a connection */
+    public static final String META_DEVICE_TOKEN = "token";
+
+    /** Channel attribute that holds the authenticated device token */
+    static final AttributeKey<String> DEVICE_TOKEN = AttributeKey.valueOf("sw.device.token");
+
+    /** Default hostname */
+    private static final String DEFAULT_HOSTNAME = "localhost";
+
+    /** Default port */
+    private static final int DEFAULT_PORT = 8585;
+
+    /** Default web socket path */
+    private static final String DEFAULT_PATH = "/events";
+
+    /** Default number of dispatcher threads */
+    private static final int DEFAULT_DISPATCH_THREADS = 4;
+
+    /** Default number of threads that authenticate device tokens */
+    private static final int DEFAULT_AUTH_THREADS = 4;
+
+    /** Default maximum number of payloads queued before reads are suspended */
+    private static final int DEFAULT_MAX_QUEUED_PAYLOADS = 10000;
+
+    /** Default maximum number of payloads handed off per batch */
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    /** Default maximum frame size in bytes */
+    private static final int DEFAULT_MAX_FRAME_SIZE = 64 * 1024;
+
+    /** Default time a connection may be idle before it is closed */
+    private static final int DEFAULT_IDLE_TIMEOUT_SECONDS = 300;
+
+    /** Default time an authenticated token is remembered */
+    private static final long DEFAULT_AUTH_CACHE_TTL_MS = 60 * 1000;
+
+    /** Maximum size of handshake request */
+    private static final int MAX_HANDSHAKE_SIZE = 8 * 1024;
+
+    /** Maximum number of authenticated tokens remembered */
+    private static final int MAX_CACHED_TOKENS = 100000;
+
+    /** Time dispatchers wait for payloads before checking suspended channels */
+    private static final long DISPATCH_POLL_MS = 100;
+
+    /** Time to wait for queued payloads to be handed off on stop */
+    private static final long DRAIN_TIMEOUT_SECONDS = 30;
+
+    /** Hostname for binding socket */
+    private String hostname = DEFAULT_HOSTNAME;
+
+    /** Port for binding socket */
+    private int port = DEFAULT_PORT;
+
+    /** Path devices connect to */
+    private String path = DEFAULT_PATH;
+
+    /** Number of event loop threads (0 uses Netty default) */
+    private int ioThreads = 0;
+
+    /** Number of dispatcher threads */
+    private int dispatchThreads = DEFAULT_DISPATCH_THREADS;
+
+    /** Number of threads that authenticate device tokens */
+    private int authThreads = DEFAULT_AUTH_THREADS;
+
+    /** Maximum number of payloads queued before reads are suspended */
+    private int maxQueuedPayloads = DEFAULT_MAX_QUEUED_PAYLOADS;
+
+    /** Maximum number of payloads handed off per batch */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /** Maximum frame size in bytes */
+    private int maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+
+    /** Time a connection may be idle before it is closed (0 never closes) */
+    private int idleTimeoutSeconds = DEFAULT_IDLE_TIMEOUT_SECONDS;
+
+    /** Time an authenticated token is remembered */
+    private long authCacheTtlMs = DEFAULT_AUTH_CACHE_TTL_MS;
+
+    /** Accepts connections */
+    private EventLoopGroup bossGroup;
+
+    /** Handles connection I/O */
+    private EventLoopGroup workerGroup;
+
+    /** Server channel */
+    private Channel serverChannel;
+
+    /** Authenticates device tokens off the event loop */
+    private ExecutorService authExecutor;
+
+    /** Hands payloads to the event source */
+    private ExecutorService dispatchers;
+
+    /** Payloads waiting to be handed off */
+    private BlockingQueue<QueuedPayload> queue = new LinkedBlockingQueue<QueuedPayload>();
+
+    /** Number of payloads waiting to be handed off */
+    private AtomicInteger queuedCount = new AtomicInteger();
+
+    /** Authenticated device connections */
+    private ChannelGroup connections = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+
+    /** Indicates reads are suspended on all connections */
+    private AtomicBoolean paused = new AtomicBoolean();
+
+    /** Expiration time of authenticated tokens */
+    private Map<String, Long> authenticatedTokens = new ConcurrentHashMap<String, Long>();
+
+    /** Number of open device connections */
+    private AtomicInteger connectionCount = new AtomicInteger();
+
+    /** Number of payloads received */
+    private AtomicLong receivedCount = new AtomicLong();
+
+    /** Number of times reads were suspended on a connection */
+    private AtomicLong suspendCount = new AtomicLong();
+
+    /** Indicates whether dispatchers should keep running */
+    private volatile boolean running;
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.sitewhere.server.lifecycle.LifecycleComponent#start(com.sitewhere.spi
+     * .server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	running = true;
+	authExecutor = Executors.newFixedThreadPool(getAuthThreads(), new ServerThreadFactory("WebSocket Auth"));
+	dispatchers = Executors.newFixedThreadPool(getDispatchThreads(), new ServerThreadFactory("WebSocket Dispatch"));
+	for (int i = 0; i < getDispatchThreads(); i++) {
+	    dispatchers.execute(new Dispatcher());
+	}
+	bossGroup = new NioEventLoopGroup(1, new ServerThreadFactory("WebSocket Accept"));
+	workerGroup = new NioEventLoopGroup(getIoThreads(), new ServerThreadFactory("WebSocket IO"));
+
+	ServerBootstrap bootstrap = new ServerBootstrap();
+	bootstrap.group(bossGroup, workerGroup).channel(NioServerSocketChannel.class)
+		.option(ChannelOption.SO_BACKLOG, 1024).childOption(ChannelOption.TCP_NODELAY, true)
+		.childOption(ChannelOption.SO_KEEPALIVE, true)
+		.childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+		.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(8 * 1024, 32 * 1024))
+		.childHandler(new ServerInitializer());
+	try {
+	    serverChannel = bootstrap.bind(getHostname(), getPort()).sync().channel();
+	} catch (Exception e) {
+	    stop(monitor);
+	    throw new SiteWhereException("Unable to bind web socket server to " + getHostname() + ":" + getPort() + ".",
+		    e);
+	}
+	getLogger().info("Web socket server listening on " + serverChannel.localAddress() + getPath() + ".");
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.sitewhere.server.lifecycle.LifecycleComponent#stop(com.sitewhere.spi.
+     * server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	if (serverChannel != null) {
+	    serverChannel.close().awaitUninterruptibly();
+	    serverChannel = null;
+	}
+	if (bossGroup != null) {
+	    bossGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS).awaitUninterruptibly();
+	}
+	if (workerGroup != null) {
+	    workerGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS).awaitUninterruptibly();
+	}
+	if (authExecutor != null) {
+	    authExecutor.shutdownNow();
+	}
+
+	// No more payloads arrive once connections are closed. Hand off the rest.
+	running = false;
+	if (dispatchers != null) {
+	    dispatchers.shutdown();
+	    try {
+		if (!dispatchers.awaitTermination(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+		    getLogger().warn("Web socket payloads not handed off before stopping: " + getQueuedCount());
+		    dispatchers.shutdownNow();
+		}
+	    } catch (InterruptedException e) {
+		Thread.currentThread().interrupt();
+	    }
+	}
+	queue.clear();
+	queuedCount.set(0);
+	paused.set(false);
+	authenticatedTokens.clear();
+    }
+
+    /**
+     * Indicates whether a token was authenticated recently.
+     *
+     * @param token
+     * @return
+     */
+    boolean isRecentlyAuthenticated(String token) {
+	Long expires = authenticatedTokens.get(token);
+	return (expires != null) && (expires > System.currentTimeMillis());
+    }
+
+    /**
+     * Authenticate a device token, remembering tokens that are valid. Called from
+     * the authentication executor since it may block on device management.
+     *
+     * @param token
+     * @return
+     * @throws SiteWhereException
+     */
+    boolean isAuthenticated(String token) throws SiteWhereException {
+	if (isRecentlyAuthenticated(token)) {
+	    return true;
+	}
+	if (!authenticate(token)) {
+	    return false;
+	}
+	long now = System.currentTimeMillis();
+	if (authenticatedTokens.size() >= MAX_CACHED_TOKENS) {
+	    authenticatedTokens.values().removeIf(expires -> expires <= now);
+	}
+	authenticatedTokens.put(token, now + getAuthCacheTtlMs());
+	return true;
+    }
+
+    /**
+     * Verify that a device exists for the given token.
+     *
+     * @param token
+     * @return
+     * @throws SiteWhereException
+     */
+    protected boolean authenticate(String token) throws SiteWhereException {
+	return getDeviceManagement().getDeviceByToken(token) != null;
+    }
+
+    /**
+     * Called on the event loop when a device connection is authenticated.
+     *
+     * @param channel
+     * @param token
+     */
+    void onConnected(Channel channel, String token) {
+	channel.attr(DEVICE_TOKEN).set(token);
+	connectionCount.incrementAndGet();
+	connections.add(channel);
+
+	// Resume may have run between the check and suspending reads.
+	if (paused.get()) {
+	    channel.config().setAutoRead(false);
+	    if (!paused.get()) {
+		channel.config().setAutoRead(true);
+	    }
+	}
+    }
+
+    /**
+     * Called on the event loop when a connection is closed.
+     *
+     * @param channel
+     */
+    void onDisconnected(Channel channel) {
+	if (channel.attr(DEVICE_TOKEN).get() != null) {
+	    connectionCount.decrementAndGet();
+	}
+    }
+
+    /**
+     * Queue a payload for hand-off. Called on the event loop of the connection
+     * that delivered it. Reads are suspended on all connections if the queue is
+     * full, so the queue only exceeds its limit by frames already read.
+     *
+     * @param token
+     * @param payload
+     */
+    void enqueue(String token, byte[] payload) {
+	queue.offer(new QueuedPayload(token, payload));
+	receivedCount.incrementAndGet();
+	if ((queuedCount.incrementAndGet() >= getMaxQueuedPayloads()) && (paused.compareAndSet(false, true))) {
+	    suspendCount.incrementAndGet();
+	    for (Channel connection : connections) {
+		connection.config().setAutoRead(false);
+	    }
+	}
+    }
+
+    /**
+     * Resume reads on all connections once the queue has drained to half of its
+     * limit.
+     */
+    protected void resumeIfDrained() {
+	if ((!paused.get()) || (queuedCount.get() > (getMaxQueuedPayloads() / 2))) {
+	    return;
+	}
+	if (paused.compareAndSet(true, false)) {
+	    for (Channel connection : connections) {
+		connection.config().setAutoRead(true);
+	    }
+	}
+    }
+
+    /**
+     * Hand a batch of payloads to the event source.
+     *
+     * @param batch
+     */
+    protected void deliver(List<QueuedPayload> batch) {
+	for (QueuedPayload queued : batch) {
+	    Map<String, Object> metadata = new HashMap<String, Object>();
+	    metadata.put(META_DEVICE_TOKEN, queued.getToken());
+	    metadata.put(InboundEventSource.META_AUTHENTICATED_DEVICE_TOKEN, queued.getToken());
+	    try {
+		getEventSource().onEncodedEventReceived(this, queued.getPayload(), metadata);
+	    } catch (Throwable e) {
+		getLogger().error("Unhandled exception processing web socket payload from '" + queued.getToken() + "'.",
+			e);
+	    }
+	}
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.sitewhere.spi.server.lifecycle.ILifecycleComponent#getLogger()
+     */
+    @Override
+    public Log getLogger() {
+	return LOGGER;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.sitewhere.spi.device.communication.IInboundEventReceiver#
+     * getDisplayName()
+     */
+    @Override
+    public String getDisplayName() {
+	return "ws://" + getHostname() + ":" + getPort() + getPath();
+    }
+
+    /**
+     * Get port the server is bound to or the configured port if not running.
+     *
+     * @return
+     */
+    public int getBoundPort() {
+	if (serverChannel != null) {
+	    return ((InetSocketAddress) serverChannel.localAddress()).getPort();
+	}
+	return getPort();
+    }
+
+    public int getConnectionCount() {
+	return connectionCount.get();
+    }
+
+    public long getReceivedCount() {
+	return receivedCount.get();
+    }
+
+    public int getQueuedCount() {
+	return queuedCount.get();
+    }
+
+    public int getSuspendedCount() {
+	return paused.get() ? connections.size() : 0;
+    }
+
+    public long getSuspendCount() {
+	return suspendCount.get();
+    }
+
+    ExecutorService getAuthExecutor() {
+	return authExecutor;
+    }
+
+    private IDeviceManagement getDeviceManagement() {
+	return ((IEventSourcesMicroservice) getTenantEngine().getMicroservice()).getDeviceManagementApiDemux()
+		.getApiChannel();
+    }
+
+    public String getHostname() {
+	return hostname;
+    }
+
+    public void setHostname(String hostname) {
+	this.hostname = hostname;
+    }
+
+    public int getPort() {
+	return port;
+    }
+
+    public void setPort(int port) {
+	this.port = port;
+    }
+
+    public String getPath() {
+	return path;
+    }
+
+    public void setPath(String path) {
+	this.path = path;
+    }
+
+    public int getIoThreads() {
+	return ioThreads;
+    }
+
+    public void setIoThreads(int ioThreads) {
+	this.ioThreads = ioThreads;
+    }
+
+    public int getDispatchThreads() {
+	return dispatchThreads;
+    }
+
+    public void setDispatchThreads(int dispatchThreads) {
+	this.dispatchThreads = dispatchThreads;
+    }
+
+    public int getAuthThreads() {
+	return authThreads;
+    }
+
+    public void setAuthThreads(int authThreads) {
+	this.authThreads = authThreads;
+    }
+
+    public int getMaxQueuedPayloads() {
+	return maxQueuedPayloads;
+    }
+
+    public void setMaxQueuedPayloads(int maxQueuedPayloads) {
+	this.maxQueuedPayloads = maxQueuedPayloads;
+    }
+
+    public int getBatchSize() {
+	return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+	this.batchSize = batchSize;
+    }
+
+    public int getMaxFrameSize() {
+	return maxFrameSize;
+    }
+
+    public void setMaxFrameSize(int maxFrameSize) {
+	this.maxFrameSize = maxFrameSize;
+    }
+
+    public int getIdleTimeoutSeconds() {
+	return idleTimeoutSeconds;
+    }
+
+    public void setIdleTimeoutSeconds(int idleTimeoutSeconds) {
+	this.idleTimeoutSeconds = idleTimeoutSeconds;
+    }
+
+    public long getAuthCacheTtlMs() {
+	return authCacheTtlMs;
+    }
+
+    public void setAuthCacheTtlMs(long authCacheTtlMs) {
+	this.authCacheTtlMs = authCacheTtlMs;
+    }
+
+    /**
+     * Builds the pipeline for each device connection.
+     *
+     * @author Derek
+     */
+    private class ServerInitializer extends ChannelInitializer<SocketChannel> {
+
+	/*
+	 * @see
+	 * io.netty.channel.ChannelInitializer#initChannel(io.netty.channel.Channel)
+	 */
+	@Override
+	protected void initChannel(SocketChannel channel) throws Exception {
+	    ChannelPipeline pipeline = channel.pipeline();
+	    if (getIdleTimeoutSeconds() > 0) {
+		pipeline.addLast(new IdleStateHandler(getIdleTimeoutSeconds(), 0, 0));
+	    }
+	    pipeline.addLast(new HttpServerCodec());
+	    pipeline.addLast(new HttpObjectAggregator(MAX_HANDSHAKE_SIZE));
+	    pipeline.addLast(new DeviceTokenHandshakeHandler(WebSocketServerEventReceiver.this));
+	    pipeline.addLast(new WebSocketServerProtocolHandler(getPath(), null, true, getMaxFrameSize()));
+	    pipeline.addLast(new WebSocketFrameAggregator(getMaxFrameSize()));
+	    pipeline.addLast(new WebSocketPayloadHandler(WebSocketServerEventReceiver.this));
+	}
+    }
+
+    /**
+     * Drains queued payloads in batches.
+     *
+     * @author Derek
+     */
+    private class Dispatcher implements Runnable {
+
+	/*
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+	    List<QueuedPayload> batch = new ArrayList<QueuedPayload>(getBatchSize());
+	    while (running || (!queue.isEmpty())) {
+		try {
+		    QueuedPayload first = queue.poll(DISPATCH_POLL_MS, TimeUnit.MILLISECONDS);
+		    if (first != null) {
+			batch.add(first);
+			queue.drainTo(batch, getBatchSize() - 1);
+			queuedCount.addAndGet(-batch.size());
+			deliver(batch);
+			batch.clear();
+		    }
+		    resumeIfDrained();
+		} catch (InterruptedException e) {
+		    return;
+		}
+	    }
+	}
+    }
+
+    /**
+     * Payload waiting to be handed off.
+     *
+     * @author Derek
+     */
+    protected static class QueuedPayload {
+
+	/** Token of device that sent payload */
+	private final String token;
+
+	/** Payload */
+	private final byte[] payload;
+
+	public QueuedPayload(String token, byte[] payload) {
+	    this.token = token;
+	    this.payload = payload;
+	}
+
+	public String getToken() {
+	    return token;
+	}
+
+	public byte[] getPayload() {
+	    return payload;
+	}
+    }
+
+    /** Used for naming web socket server threads */
+    private class ServerThreadFactory implements ThreadFactory {
+
+	/** Prefix for thread names */
+	private String prefix;
+
+	/** Counts threads */
+	private AtomicInteger counter = new AtomicInteger();
+
+	public ServerThreadFactory(String prefix) {
+	    this.prefix = prefix;
+	}
+
+	public Thread newThread(Runnable r) {
+	    return new Thread(r, prefix + " " + counter.incrementAndGet());
+	}
+    }
+}
\ No newline at end of file
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.sitewhere.rest.model.device.event.request.DeviceMeasurementsCreateRequest;
+import com.sitewhere.sources.spi.IDecodedDeviceRequest;
+import com.sitewhere.sources.spi.IDeviceEventDecoder;
+import com.sitewhere.sources.spi.IEventSourcesManager;
+
+/**
+ * Verifies that events decoded from a connection authenticated as one device
+ * are not forwarded for other devices.
+ *
+ * @author Derek
+ */
+public class InboundEventSourceTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEventsForOtherDevicesRejected() {
+	List<IDecodedDeviceRequest<?>> decoded = new ArrayList<IDecodedDeviceRequest<?>>();
+	decoded.add(createRequest("device-1"));
+	decoded.add(createRequest("device-2"));
+	decoded.add(createRequest("device-1"));
+
+	List<String> forwarded = new ArrayList<String>();
+	BinaryInboundEventSource source = new BinaryInboundEventSource();
+	source.setDeviceEventDecoder((IDeviceEventDecoder<byte[]>) Proxy.newProxyInstance(
+		getClass().getClassLoader(), new Class<?>[] { IDeviceEventDecoder.class },
+		(proxy, method, args) -> "decode".equals(method.getName()) ? decoded : null));
+	source.setEventSourcesManager((IEventSourcesManager) Proxy.newProxyInstance(getClass().getClassLoader(),
+		new Class<?>[] { IEventSourcesManager.class }, (proxy, method, args) -> {
+		    if ("handleDecodedEvent".equals(method.getName())) {
+			forwarded.add(((IDecodedDeviceRequest<?>) args[3]).getDeviceToken());
+		    } else if ("handleDecodedEvents".equals(method.getName())) {
+			for (IDecodedDeviceRequest<?> request : (List<IDecodedDeviceRequest<?>>) args[3]) {
+			    forwarded.add(request.getDeviceToken());
+			}
+		    }
+		    return null;
+		}));
+
+	Map<String, Object> metadata = new HashMap<String, Object>();
+	metadata.put(InboundEventSource.META_AUTHENTICATED_DEVICE_TOKEN, "device-1");
+	source.onEncodedEventReceived(null, new byte[0], metadata);
+	assertEquals(2, forwarded.size());
+	assertEquals("device-1", forwarded.get(0));
+	assertEquals("device-1", forwarded.get(1));
+
+	// Sources without an authenticated token forward everything.
+	forwarded.clear();
+	source.onEncodedEventReceived(null, new byte[0], new HashMap<String, Object>());
+	assertEquals(3, forwarded.size());
+    }
+
+    /**
+     * Create a decoded measurements request for a device.
+     *
+     * @param deviceToken
+     * @return
+     */
+    protected IDecodedDeviceRequest<?> createRequest(String deviceToken) {
+	return new DecodedDeviceRequest<DeviceMeasurementsCreateRequest>(deviceToken, null,
+		new DeviceMeasurementsCreateRequest());
+    }
+}
\ No newline at end of file
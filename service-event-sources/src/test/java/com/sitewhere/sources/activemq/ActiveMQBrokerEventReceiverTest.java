@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.activemq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.jms.Connection;
+import javax.jms.DeliveryMode;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.Test;
+
+import com.sitewhere.microservice.kafka.MicroserviceKafkaProducer;
+import com.sitewhere.sources.spi.IInboundEventSource;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Runs the embedded broker receiver against real ActiveMQ brokers to verify
+ * that messages are only acknowledged after delivery and to compare throughput
+ * for different prefetch sizes.
+ *
+ * @author Derek
+ */
+public class ActiveMQBrokerEventReceiverTest {
+
+    /** Queue used for tests */
+    private static final String QUEUE = "sitewhere.input";
+
+    @Test
+    public void testNoLossOnRestart() throws Exception {
+	File data = Files.createTempDirectory("sw-activemq").toFile();
+	int count = 500;
+	Map<String, AtomicLong> received = new ConcurrentHashMap<String, AtomicLong>();
+	AtomicBoolean failDelivery = new AtomicBoolean(true);
+
+	// Process messages while delivery fails so that none are acknowledged.
+	ActiveMQBrokerEventReceiver receiver = createReceiver("restart", data, 100, received, failDelivery);
+	receiver.start(null);
+	send("restart", count);
+	waitFor(received, count, 30000);
+	receiver.stop(null);
+
+	// Restart broker from disk and process again with delivery succeeding.
+	received.clear();
+	failDelivery.set(false);
+	receiver = createReceiver("restart", data, 100, received, failDelivery);
+	receiver.start(null);
+	waitFor(received, count, 30000);
+	Thread.sleep(receiver.getAckIntervalMs() * 2);
+	receiver.stop(null);
+
+	// Nothing should remain after acknowledged restart.
+	received.clear();
+	receiver = createReceiver("restart", data, 100, received, failDelivery);
+	receiver.start(null);
+	Thread.sleep(2000);
+	receiver.stop(null);
+	assertEquals(0, received.size());
+    }
+
+    @Test
+    public void testBatchSizeLimitedByPrefetch() {
+	ActiveMQBrokerEventReceiver receiver = new ActiveMQBrokerEventReceiver();
+	receiver.setPrefetch(10);
+	receiver.setBatchSize(100);
+	assertEquals(10, receiver.getEffectiveBatchSize());
+	receiver.setBatchSize(5);
+	assertEquals(5, receiver.getEffectiveBatchSize());
+    }
+
+    @Test
+    public void testDeliveryAtEachPrefetch() throws Exception {
+	int count = 5000;
+	for (int prefetch : new int[] { 1, 10, 100, 1000 }) {
+	    Map<String, AtomicLong> received = new ConcurrentHashMap<String, AtomicLong>();
+	    ActiveMQBrokerEventReceiver receiver = createReceiver("prefetch" + prefetch, null, prefetch, received,
+		    new AtomicBoolean(false));
+	    receiver.setPersistent(false);
+	    receiver.start(null);
+	    try {
+		send("prefetch" + prefetch, count);
+		waitFor(received, count, 60000);
+	    } finally {
+		receiver.stop(null);
+	    }
+	}
+    }
+
+    /**
+     * Create receiver with an event source that counts payloads and sends them
+     * to a mock Kafka producer. Sends fail while delivery is set to fail.
+     *
+     * @param brokerName
+     * @param data
+     * @param prefetch
+     * @param received
+     * @param failDelivery
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    protected ActiveMQBrokerEventReceiver createReceiver(String brokerName, File data, int prefetch,
+	    Map<String, AtomicLong> received, AtomicBoolean failDelivery) {
+	MockProducer<String, byte[]> mock = new MockProducer<String, byte[]>(false, new StringSerializer(),
+		new ByteArraySerializer());
+	TestProducer producer = new TestProducer(mock);
+	ActiveMQBrokerEventReceiver receiver = new ActiveMQBrokerEventReceiver();
+	receiver.setBrokerName(brokerName);
+	receiver.setTransportUri("tcp://localhost:0");
+	receiver.setQueueName(QUEUE);
+	receiver.setNumConsumers(2);
+	receiver.setPrefetch(prefetch);
+	receiver.setBatchSize(50);
+	receiver.setAckIntervalMs(200);
+	if (data != null) {
+	    receiver.setDataDirectory(data.getAbsolutePath());
+	}
+	receiver.setEventSource((IInboundEventSource<byte[]>) Proxy.newProxyInstance(getClass().getClassLoader(),
+		new Class<?>[] { IInboundEventSource.class }, new InvocationHandler() {
+
+		    @Override
+		    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if ("onEncodedEventReceived".equals(method.getName())) {
+			    String payload = new String((byte[]) args[1], StandardCharsets.UTF_8);
+			    received.computeIfAbsent(payload, key -> new AtomicLong()).incrementAndGet();
+			    synchronized (mock) {
+				producer.send("device", (byte[]) args[1]);
+				if (failDelivery.get()) {
+				    mock.errorNext(new KafkaException("Delivery failed."));
+				} else {
+				    mock.completeNext();
+				}
+			    }
+			    return null;
+			}
+			throw new UnsupportedOperationException(method.getName());
+		    }
+		}));
+	return receiver;
+    }
+
+    /**
+     * Producer that sends to a mock Kafka producer.
+     */
+    private static class TestProducer extends MicroserviceKafkaProducer {
+
+	public TestProducer(MockProducer<String, byte[]> mock) {
+	    super(null);
+	    setProducer(mock);
+	}
+
+	/*
+	 * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaProducer#
+	 * getTargetTopicName()
+	 */
+	@Override
+	public String getTargetTopicName() throws SiteWhereException {
+	    return "decoded-events";
+	}
+    }
+
+    /**
+     * Send persistent text messages to the broker queue.
+     *
+     * @param brokerName
+     * @param count
+     * @throws Exception
+     */
+    protected void send(String brokerName, int count) throws Exception {
+	ActiveMQConnectionFactory factory = new ActiveMQConnectionFactory("vm://" + brokerName + "?create=false");
+	Connection connection = factory.createConnection();
+	try {
+	    connection.start();
+	    Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+	    MessageProducer producer = session.createProducer(session.createQueue(QUEUE));
+	    producer.setDeliveryMode(DeliveryMode.PERSISTENT);
+	    for (int i = 0; i < count; i++) {
+		producer.send(session.createTextMessage("message-" + i));
+	    }
+	} finally {
+	    connection.close();
+	}
+    }
+
+    /**
+     * Wait until the given number of distinct payloads have been received.
+     *
+     * @param received
+     * @param count
+     * @param timeoutMs
+     * @throws InterruptedException
+     */
+    protected void waitFor(Map<String, AtomicLong> received, int count, long timeoutMs) throws InterruptedException {
+	long deadline = System.currentTimeMillis() + timeoutMs;
+	while (received.size() < count) {
+	    assertTrue("Timed out waiting for messages.", System.currentTimeMillis() < deadline);
+	    Thread.sleep(20);
+	}
+    }
+}
\ No newline at end of file
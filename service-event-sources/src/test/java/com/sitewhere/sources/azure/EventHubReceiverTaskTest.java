@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.azure;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.curator.test.TestingServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sitewhere.sources.azure.client.Constants;
+import com.sitewhere.sources.azure.client.EventData;
+import com.sitewhere.sources.azure.client.EventHubException;
+import com.sitewhere.sources.azure.client.EventHubReceiverTask;
+import com.sitewhere.sources.azure.client.EventHubReceiverTaskConfig;
+import com.sitewhere.sources.azure.client.IEventHubReceiver;
+import com.sitewhere.sources.azure.client.IEventHubReceiverFactory;
+import com.sitewhere.sources.azure.client.IEventHubReceiverFilter;
+import com.sitewhere.sources.azure.client.IStateStore;
+import com.sitewhere.sources.azure.client.LeaderLatchPartitionCoordinator;
+import com.sitewhere.sources.azure.client.MessageId;
+import com.sitewhere.sources.azure.client.ZookeeperStateStore;
+
+/**
+ * Tests checkpoint batching, prefetch limits and dynamic partition ownership
+ * for the EventHub receiver task using mocked partition receivers and an
+ * in-process Zookeeper.
+ *
+ * @author Derek
+ */
+public class EventHubReceiverTaskTest {
+
+    /** Partitions in mocked EventHub */
+    private static final int PARTITIONS = 4;
+
+    /** In-process Zookeeper */
+    private TestingServer zookeeper;
+
+    /** Events produced by mocked receivers indexed by partition */
+    private Map<String, AtomicLong> produced = new ConcurrentHashMap<String, AtomicLong>();
+
+    @Before
+    public void setup() throws Exception {
+	zookeeper = new TestingServer();
+    }
+
+    @After
+    public void teardown() throws Exception {
+	zookeeper.close();
+    }
+
+    @Test
+    public void testCheckpointBatching() throws Exception {
+	EventHubReceiverTaskConfig config = createConfig("batching");
+	config.setCheckpointBatchSize(100);
+	CountingStateStore store = new CountingStateStore(new ZookeeperStateStore(zookeeper.getConnectString()));
+	EventHubReceiverTask task = new EventHubReceiverTask(config, store, null, new MockReceiverFactory());
+	task.open(createStaticContext());
+
+	int count = 1000;
+	for (int i = 0; i < count; i++) {
+	    EventData data = task.receive();
+	    task.ack(data.getMessageId());
+	}
+
+	// One write per partition per batch rather than one per event.
+	assertTrue("Too many checkpoint writes: " + store.saves.get(), store.saves.get() <= (count / 100) * PARTITIONS);
+
+	task.deactivate();
+	task.close();
+
+	ZookeeperStateStore reader = new ZookeeperStateStore(zookeeper.getConnectString());
+	reader.open();
+	try {
+	    for (int i = 0; i < PARTITIONS; i++) {
+		String offset = reader.readData("/eventhub-state/test/batching/partitions/" + i);
+		assertEquals(String.valueOf(count / PARTITIONS), offset);
+	    }
+	} finally {
+	    reader.close();
+	}
+    }
+
+    @Test
+    public void testPrefetchIsBounded() throws Exception {
+	EventHubReceiverTaskConfig config = createConfig("prefetch");
+	config.setPrefetchQueueSize(10);
+	EventHubReceiverTask task = new EventHubReceiverTask(config,
+		new ZookeeperStateStore(zookeeper.getConnectString()), null, new MockReceiverFactory());
+	task.open(createStaticContext());
+	try {
+	    Thread.sleep(500);
+	    for (AtomicLong count : produced.values()) {
+		// Queue plus the event waiting to be queued.
+		assertTrue("Read too far ahead: " + count.get(), count.get() <= 11);
+	    }
+	    EventData data = task.receive();
+	    task.ack(data.getMessageId());
+	} finally {
+	    task.close();
+	}
+    }
+
+    @Test
+    public void testDynamicOwnershipRebalances() throws Exception {
+	EventHubReceiverTask first = createDynamicTask("ownership");
+	EventHubReceiverTask second = null;
+	try {
+	    awaitOwnership(PARTITIONS, first);
+
+	    // Partitions spread across replicas as they are added.
+	    second = createDynamicTask("ownership");
+	    awaitOwnership(PARTITIONS / 2, first, second);
+
+	    // Partitions of a stopped replica move to the remaining one.
+	    second.close();
+	    second = null;
+	    awaitOwnership(PARTITIONS, first);
+	} finally {
+	    first.close();
+	    if (second != null) {
+		second.close();
+	    }
+	}
+    }
+
+    /**
+     * Create task that uses leader latches for partition ownership.
+     *
+     * @param entityPath
+     * @return
+     */
+    protected EventHubReceiverTask createDynamicTask(String entityPath) {
+	EventHubReceiverTaskConfig config = createConfig(entityPath);
+	config.setDynamicPartitionOwnership(true);
+	config.setRebalanceIntervalMs(200);
+	config.setPrefetchQueueSize(10);
+	EventHubReceiverTask task = new EventHubReceiverTask(config,
+		new ZookeeperStateStore(zookeeper.getConnectString()), null, new MockReceiverFactory());
+	task.open(null);
+	return task;
+    }
+
+    /**
+     * Drive tasks until each owns the expected number of partitions.
+     *
+     * @param expected
+     * @param tasks
+     * @throws Exception
+     */
+    protected void awaitOwnership(int expected, EventHubReceiverTask... tasks) throws Exception {
+	long deadline = System.currentTimeMillis() + 30000;
+	while (true) {
+	    boolean balanced = true;
+	    for (EventHubReceiverTask task : tasks) {
+		EventData data = task.receive();
+		if (data != null) {
+		    task.ack(data.getMessageId());
+		}
+		LeaderLatchPartitionCoordinator coordinator = (LeaderLatchPartitionCoordinator) task
+			.getPartitionCoordinator();
+		balanced &= (coordinator.getOwnedPartitionIds().size() == expected);
+	    }
+	    if (balanced) {
+		return;
+	    }
+	    assertTrue("Partitions were not rebalanced.", System.currentTimeMillis() < deadline);
+	}
+    }
+
+    protected EventHubReceiverTaskConfig createConfig(String entityPath) {
+	EventHubReceiverTaskConfig config = new EventHubReceiverTaskConfig("user", "password", "test", entityPath,
+		PARTITIONS, zookeeper.getConnectString(), 60, 1024, 1024, 0);
+	config.setReceiveTimeoutMs(100);
+	return config;
+    }
+
+    protected Map<String, Integer> createStaticContext() {
+	Map<String, Integer> context = new HashMap<String, Integer>();
+	context.put(Constants.TotalTaskKey, 1);
+	context.put(Constants.TaskIndexKey, 0);
+	return context;
+    }
+
+    /**
+     * Creates mocked receivers that produce an endless stream of events.
+     */
+    @SuppressWarnings("serial")
+    private class MockReceiverFactory implements IEventHubReceiverFactory {
+
+	@Override
+	public IEventHubReceiver create(EventHubReceiverTaskConfig config, String partitionId) {
+	    produced.putIfAbsent(partitionId, new AtomicLong());
+	    return new MockReceiver(partitionId, produced.get(partitionId));
+	}
+    }
+
+    /**
+     * Mocked receiver for a single partition.
+     */
+    private static class MockReceiver implements IEventHubReceiver {
+
+	private final String partitionId;
+	private final AtomicLong sequence;
+	private volatile boolean open;
+
+	public MockReceiver(String partitionId, AtomicLong sequence) {
+	    this.partitionId = partitionId;
+	    this.sequence = sequence;
+	}
+
+	@Override
+	public void open(IEventHubReceiverFilter filter) throws EventHubException {
+	    open = true;
+	}
+
+	@Override
+	public void close() {
+	    open = false;
+	}
+
+	@Override
+	public boolean isOpen() {
+	    return open;
+	}
+
+	@Override
+	public EventData receive(long timeoutInMilliseconds) {
+	    long next = sequence.incrementAndGet();
+	    return EventData.create(null, MessageId.create(partitionId, String.valueOf(next), next));
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public Map getMetricsData() {
+	    return new HashMap();
+	}
+    }
+
+    /**
+     * Counts writes to the wrapped state store.
+     */
+    @SuppressWarnings("serial")
+    private static class CountingStateStore implements IStateStore {
+
+	private final IStateStore delegate;
+	private final AtomicInteger saves = new AtomicInteger();
+
+	public CountingStateStore(IStateStore delegate) {
+	    this.delegate = delegate;
+	}
+
+	@Override
+	public void open() {
+	    delegate.open();
+	}
+
+	@Override
+	public void close() {
+	    delegate.close();
+	}
+
+	@Override
+	public void saveData(String path, String data) {
+	    saves.incrementAndGet();
+	    delegate.saveData(path, data);
+	}
+
+	@Override
+	public String readData(String path) {
+	    return delegate.readData(path);
+	}
+
+	@Override
+	public void flush() {
+	    delegate.flush();
+	}
+    }
+}
\ No newline at end of file
@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.coap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.CoAP.Type;
+import org.eclipse.californium.core.coap.MessageObserverAdapter;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.network.CoapEndpoint;
+import org.eclipse.californium.core.network.config.NetworkConfig;
+import org.junit.Test;
+
+import com.sitewhere.grpc.client.spi.client.IDeviceManagementApiChannel;
+import com.sitewhere.grpc.client.spi.client.IDeviceManagementApiDemux;
+import com.sitewhere.rest.model.device.Device;
+import com.sitewhere.sources.spi.IInboundEventReceiver;
+import com.sitewhere.sources.spi.microservice.IEventSourcesMicroservice;
+import com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine;
+
+/**
+ * Drives the CoAP server with many local clients and verifies that every
+ * request is answered and processed exactly once. The number of requests may
+ * be raised with the 'coap.load.requests' system property for longer runs.
+ *
+ * @author Derek
+ */
+public class CoapServerLoadTest {
+
+    /** Number of requests sent per load test */
+    private static final int REQUESTS = Integer.getInteger("coap.load.requests", 2000);
+
+    /** Number of client endpoints requests are spread across */
+    private static final int CLIENT_ENDPOINTS = 20;
+
+    /** Maximum number of requests in flight */
+    private static final int MAX_IN_FLIGHT = 200;
+
+    /** Number of distinct devices addressed by per-device requests */
+    private static final int DEVICES = 100;
+
+    /** Time allowed for a load test to complete */
+    private static final long DEADLINE_SECONDS = 60;
+
+    @Test
+    public void testManyClients() throws Exception {
+	runLoad(new UriFactory() {
+
+	    @Override
+	    public String getPath(int index) {
+		return "/devices";
+	    }
+	});
+    }
+
+    @Test
+    public void testPerDeviceRequests() throws Exception {
+	runLoad(new UriFactory() {
+
+	    @Override
+	    public String getPath(int index) {
+		return "/devices/device-" + (index % DEVICES) + "/measurements";
+	    }
+	});
+    }
+
+    @Test
+    public void testSlowProcessing() throws Exception {
+	Map<String, AtomicInteger> received = new ConcurrentHashMap<String, AtomicInteger>();
+	SiteWhereMessageDeliverer deliverer = new SiteWhereMessageDeliverer(createReceiver(received, new PayloadHandler() {
+
+	    @Override
+	    public void handle(String payload) throws Exception {
+		Thread.sleep(500);
+	    }
+	}));
+	deliverer.setQueueTimeoutMs(200);
+	SiteWhereCoapServer server = new SiteWhereCoapServer(deliverer, "localhost", 0, new NetworkConfig());
+	server.start();
+	List<CoapEndpoint> clients = createClients(1);
+	try {
+	    Request request = createRequest(server, "/devices", "slow");
+	    clients.get(0).sendRequest(request);
+	    Response response = request.waitForResponse(5000);
+
+	    // Processing started before the queue timeout, so it runs to completion.
+	    assertNotNull(response);
+	    assertEquals(ResponseCode.CONTENT, response.getCode());
+	    assertEquals(Type.CON, response.getType());
+	    assertTrue(request.isAcknowledged());
+	    assertEquals(1, received.get("slow").get());
+	} finally {
+	    clients.get(0).destroy();
+	    server.destroy();
+	}
+    }
+
+    @Test
+    public void testQueuedRequestExpires() throws Exception {
+	Map<String, AtomicInteger> received = new ConcurrentHashMap<String, AtomicInteger>();
+	CountDownLatch started = new CountDownLatch(1);
+	CountDownLatch release = new CountDownLatch(1);
+	SiteWhereMessageDeliverer deliverer = new SiteWhereMessageDeliverer(createReceiver(received, new PayloadHandler() {
+
+	    @Override
+	    public void handle(String payload) throws Exception {
+		started.countDown();
+		release.await(10, TimeUnit.SECONDS);
+	    }
+	}));
+	deliverer.setProcessingThreads(1);
+	deliverer.setQueueTimeoutMs(200);
+	SiteWhereCoapServer server = new SiteWhereCoapServer(deliverer, "localhost", 0, new NetworkConfig());
+	server.start();
+	List<CoapEndpoint> clients = createClients(1);
+	try {
+	    Request blocker = createRequest(server, "/devices", "blocker");
+	    clients.get(0).sendRequest(blocker);
+	    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+	    // Only processing thread is busy, so the second request expires in the queue.
+	    Request queued = createRequest(server, "/devices", "queued");
+	    clients.get(0).sendRequest(queued);
+	    Response expired = queued.waitForResponse(5000);
+	    assertNotNull(expired);
+	    assertEquals(ResponseCode.SERVICE_UNAVAILABLE, expired.getCode());
+
+	    release.countDown();
+	    Response response = blocker.waitForResponse(5000);
+	    assertNotNull(response);
+	    assertEquals(ResponseCode.CONTENT, response.getCode());
+
+	    // Send another request through the same thread so the expired one would
+	    // have been processed by now if it were still queued.
+	    Request after = createRequest(server, "/devices", "after");
+	    clients.get(0).sendRequest(after);
+	    assertNotNull(after.waitForResponse(5000));
+	    assertEquals(1, received.get("after").get());
+	    assertFalse(received.containsKey("queued"));
+	} finally {
+	    release.countDown();
+	    clients.get(0).destroy();
+	    server.destroy();
+	}
+    }
+
+    /**
+     * Send requests from many clients and verify each is answered and
+     * processed exactly once.
+     *
+     * @param uris
+     * @throws Exception
+     */
+    protected void runLoad(UriFactory uris) throws Exception {
+	Map<String, AtomicInteger> received = new ConcurrentHashMap<String, AtomicInteger>();
+	SiteWhereMessageDeliverer deliverer = new SiteWhereMessageDeliverer(createReceiver(received, null));
+	deliverer.setProcessingThreads(16);
+	SiteWhereCoapServer server = new SiteWhereCoapServer(deliverer, "localhost", 0, new NetworkConfig());
+	server.start();
+	List<CoapEndpoint> clients = createClients(CLIENT_ENDPOINTS);
+	try {
+	    CountDownLatch done = new CountDownLatch(REQUESTS);
+	    Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+	    AtomicInteger created = new AtomicInteger();
+	    AtomicInteger failed = new AtomicInteger();
+
+	    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(DEADLINE_SECONDS);
+	    for (int i = 0; i < REQUESTS; i++) {
+		assertTrue(inFlight.tryAcquire(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS));
+		Request request = createRequest(server, uris.getPath(i), "client-" + i);
+		request.addMessageObserver(new MessageObserverAdapter() {
+
+		    @Override
+		    public void onResponse(Response response) {
+			if (response.getCode() == ResponseCode.CONTENT) {
+			    created.incrementAndGet();
+			} else {
+			    failed.incrementAndGet();
+			}
+			inFlight.release();
+			done.countDown();
+		    }
+
+		    @Override
+		    public void onTimeout() {
+			failed.incrementAndGet();
+			inFlight.release();
+			done.countDown();
+		    }
+
+		    @Override
+		    public void onReject() {
+			onTimeout();
+		    }
+		});
+		clients.get(i % CLIENT_ENDPOINTS).sendRequest(request);
+	    }
+	    assertTrue(done.await(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS));
+
+	    assertEquals(0, failed.get());
+	    assertEquals(REQUESTS, created.get());
+	    assertEquals(REQUESTS, received.size());
+	    for (AtomicInteger count : received.values()) {
+		assertEquals(1, count.get());
+	    }
+	} finally {
+	    for (CoapEndpoint client : clients) {
+		client.destroy();
+	    }
+	    server.destroy();
+	}
+    }
+
+    /**
+     * Create a confirmable POST addressed to the given server.
+     *
+     * @param server
+     * @param path
+     * @param payload
+     * @return
+     */
+    protected Request createRequest(SiteWhereCoapServer server, String path, String payload) {
+	Request request = Request.newPost();
+	request.setURI("coap://localhost:" + server.getEndpoints().get(0).getAddress().getPort() + path);
+	request.setPayload(payload);
+	return request;
+    }
+
+    /**
+     * Create started client endpoints on ephemeral ports.
+     *
+     * @param count
+     * @return
+     * @throws Exception
+     */
+    protected List<CoapEndpoint> createClients(int count) throws Exception {
+	List<CoapEndpoint> clients = new ArrayList<CoapEndpoint>();
+	for (int i = 0; i < count; i++) {
+	    CoapEndpoint client = new CoapEndpoint(new InetSocketAddress("localhost", 0));
+	    client.start();
+	    clients.add(client);
+	}
+	return clients;
+    }
+
+    /**
+     * Create receiver that counts payloads and passes each to an optional
+     * handler. Devices are resolved for any token through a stubbed device
+     * management API channel.
+     *
+     * @param received
+     * @param payloadHandler
+     * @return
+     */
+    protected IInboundEventReceiver<byte[]> createReceiver(Map<String, AtomicInteger> received,
+	    PayloadHandler payloadHandler) {
+	IDeviceManagementApiChannel channel = proxy(IDeviceManagementApiChannel.class, new InvocationHandler() {
+
+	    @Override
+	    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		if ("getDeviceByToken".equals(method.getName())) {
+		    Device device = new Device();
+		    device.setToken((String) args[0]);
+		    return device;
+		}
+		return null;
+	    }
+	});
+	IDeviceManagementApiDemux demux = proxy(IDeviceManagementApiDemux.class, new InvocationHandler() {
+
+	    @Override
+	    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		return "getApiChannel".equals(method.getName()) ? channel : null;
+	    }
+	});
+	IEventSourcesMicroservice microservice = proxy(IEventSourcesMicroservice.class, new InvocationHandler() {
+
+	    @Override
+	    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		return "getDeviceManagementApiDemux".equals(method.getName()) ? demux : null;
+	    }
+	});
+	IMicroserviceTenantEngine engine = proxy(IMicroserviceTenantEngine.class, new InvocationHandler() {
+
+	    @Override
+	    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		return "getMicroservice".equals(method.getName()) ? microservice : null;
+	    }
+	});
+	return proxy(IInboundEventReceiver.class, new InvocationHandler() {
+
+	    @Override
+	    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		if ("getTenantEngine".equals(method.getName())) {
+		    return engine;
+		} else if ("onEventPayloadReceived".equals(method.getName())) {
+		    String payload = new String((byte[]) args[0], StandardCharsets.UTF_8);
+		    received.computeIfAbsent(payload, key -> new AtomicInteger()).incrementAndGet();
+		    if (payloadHandler != null) {
+			payloadHandler.handle(payload);
+		    }
+		    return null;
+		}
+		throw new UnsupportedOperationException(method.getName());
+	    }
+	});
+    }
+
+    /**
+     * Create a proxy for the given interface.
+     *
+     * @param type
+     * @param handler
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> T proxy(Class<?> type, InvocationHandler handler) {
+	return (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+    /**
+     * Builds the request path for the given request index.
+     */
+    private static interface UriFactory {
+	public String getPath(int index);
+    }
+
+    /**
+     * Called on the processing thread for each payload received.
+     */
+    private static interface PayloadHandler {
+	public void handle(String payload) throws Exception;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.decoder.composite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Test;
+
+import com.sitewhere.rest.model.device.Device;
+import com.sitewhere.rest.model.device.DeviceType;
+import com.sitewhere.server.lifecycle.TenantEngineLifecycleComponent;
+import com.sitewhere.sources.spi.ICompositeDeviceEventDecoder.IDecoderChoice;
+import com.sitewhere.sources.spi.ICompositeDeviceEventDecoder.IDeviceContext;
+import com.sitewhere.sources.spi.IDeviceEventDecoder;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.IDevice;
+import com.sitewhere.spi.device.IDeviceType;
+
+/**
+ * Compares cached context lookup and indexed decoder choice against a device
+ * management lookup and linear scan for every message.
+ * 
+ * @author Derek
+ */
+public class CompositeDecoderLookupTest {
+
+    /** Number of decoder choices */
+    private static final int CHOICES = 200;
+
+    /** Number of devices sending messages */
+    private static final int DEVICES = 2000;
+
+    /** Number of messages decoded */
+    private static final int MESSAGES = 500000;
+
+    /** Devices by token */
+    private Map<String, IDevice> devices = new HashMap<String, IDevice>();
+
+    /** Device types by id */
+    private Map<UUID, IDeviceType> deviceTypes = new HashMap<UUID, IDeviceType>();
+
+    /** Number of device management calls */
+    private int loads;
+
+    @Test
+    public void testIndexedLookupMatchesLinearScan() throws SiteWhereException {
+	List<IDecoderChoice<byte[]>> choices = createChoices();
+	createDevices();
+	DecoderChoiceIndex<byte[]> index = new DecoderChoiceIndex<byte[]>(choices);
+	DeviceContextCache cache = new DeviceContextCache();
+
+	// Uncached context and linear scan.
+	for (int i = 0; i < MESSAGES; i++) {
+	    BinaryDeviceContext context = createContext(load("device-" + (i % DEVICES)));
+	    assertEquals(context.getDeviceType().getToken(),
+		    ((DeviceTypeDecoderChoice<byte[]>) linearScan(choices, context)).getDeviceTypeToken());
+	}
+	assertEquals(MESSAGES * 2, loads);
+
+	// Cached context and indexed choice.
+	loads = 0;
+	StubLoader loader = new StubLoader();
+	for (int i = 0; i < MESSAGES; i++) {
+	    DeviceContextCache.CachedContext cached = cache.get("device-" + (i % DEVICES), loader);
+	    if (index.find(createContext(cached)) == null) {
+		throw new SiteWhereException("No choice found.");
+	    }
+	}
+	assertEquals(DEVICES * 2, loads);
+	assertEquals(MESSAGES - DEVICES, cache.getHitCount());
+	assertEquals(DEVICES, cache.size());
+
+	// Indexed choice matches first choice that applies.
+	for (int i = 0; i < DEVICES; i++) {
+	    BinaryDeviceContext context = createContext(cache.get("device-" + i, loader));
+	    assertSame(linearScan(choices, context), index.find(context));
+	}
+    }
+
+    @Test
+    public void testFallbackChoiceOrderPreserved() throws SiteWhereException {
+	createDevices();
+	List<IDecoderChoice<byte[]>> choices = createChoices();
+	DeviceTypeDecoderChoice<byte[]> early = (DeviceTypeDecoderChoice<byte[]>) choices.get(5);
+
+	// Catch-all choice after type choice 10 only wins for later types.
+	IDecoderChoice<byte[]> catchAll = new CatchAllChoice();
+	choices.add(10, catchAll);
+	DecoderChoiceIndex<byte[]> index = new DecoderChoiceIndex<byte[]>(choices);
+
+	BinaryDeviceContext context = createContext(new DeviceContextCache().get("device-5", new StubLoader()));
+	assertSame(early, index.find(context));
+	context = createContext(new DeviceContextCache().get("device-50", new StubLoader()));
+	assertSame(catchAll, index.find(context));
+    }
+
+    @Test
+    public void testDeviceTypeInvalidation() throws SiteWhereException {
+	createDevices();
+	DeviceContextCache cache = new DeviceContextCache();
+	for (int i = 0; i < DEVICES; i++) {
+	    cache.get("device-" + i, new StubLoader());
+	}
+	UUID typeId = devices.get("device-0").getDeviceTypeId();
+	cache.invalidateDeviceType(typeId);
+	assertEquals(DEVICES - (DEVICES / CHOICES), cache.size());
+	cache.invalidateDevice("device-1");
+	assertEquals(DEVICES - (DEVICES / CHOICES) - 1, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() throws SiteWhereException {
+	createDevices();
+	StubLoader loader = new StubLoader();
+	DeviceContextCache cache = new DeviceContextCache(DeviceContextCache.DEFAULT_TTL_MS, 2);
+	cache.get("device-0", loader);
+	cache.get("device-1", loader);
+	cache.get("device-0", loader);
+	cache.get("device-2", loader);
+	assertEquals(2, cache.size());
+
+	// Device 1 was least recently used and must be loaded again.
+	loads = 0;
+	cache.get("device-0", loader);
+	cache.get("device-2", loader);
+	assertEquals(0, loads);
+	cache.get("device-1", loader);
+	assertEquals(2, loads);
+    }
+
+    @Test
+    public void testLoadStartedBeforeInvalidationNotStored() throws SiteWhereException {
+	createDevices();
+	DeviceContextCache cache = new DeviceContextCache();
+	DeviceContextCache.CachedContext stale = cache.get("device-0", new StubLoader() {
+
+	    @Override
+	    public IDevice getDeviceByToken(String token) throws SiteWhereException {
+		IDevice device = super.getDeviceByToken(token);
+		cache.invalidateDevice(token);
+		return device;
+	    }
+	});
+	assertEquals("device-0", stale.getDevice().getToken());
+	assertEquals(0, cache.size());
+    }
+
+    /**
+     * Create one device type choice for each device type.
+     * 
+     * @return
+     */
+    protected List<IDecoderChoice<byte[]>> createChoices() {
+	List<IDecoderChoice<byte[]>> choices = new ArrayList<IDecoderChoice<byte[]>>();
+	for (int i = 0; i < CHOICES; i++) {
+	    DeviceTypeDecoderChoice<byte[]> choice = new DeviceTypeDecoderChoice<byte[]>();
+	    choice.setDeviceTypeToken(("type-" + i).intern());
+	    choices.add(choice);
+	}
+	return choices;
+    }
+
+    /**
+     * Create devices spread evenly across device types.
+     */
+    protected void createDevices() {
+	List<DeviceType> types = new ArrayList<DeviceType>();
+	for (int i = 0; i < CHOICES; i++) {
+	    DeviceType type = new DeviceType();
+	    type.setId(UUID.randomUUID());
+	    type.setToken(("type-" + i).intern());
+	    deviceTypes.put(type.getId(), type);
+	    types.add(type);
+	}
+	for (int i = 0; i < DEVICES; i++) {
+	    Device device = new Device();
+	    device.setId(UUID.randomUUID());
+	    device.setToken("device-" + i);
+	    device.setDeviceTypeId(types.get(i % CHOICES).getId());
+	    devices.put(device.getToken(), device);
+	}
+    }
+
+    /**
+     * Load context without caching.
+     * 
+     * @param token
+     * @return
+     * @throws SiteWhereException
+     */
+    protected DeviceContextCache.CachedContext load(String token) throws SiteWhereException {
+	StubLoader loader = new StubLoader();
+	IDevice device = loader.getDeviceByToken(token);
+	return new DeviceContextCache.CachedContext(device, loader.getDeviceType(device.getDeviceTypeId()), 0);
+    }
+
+    protected BinaryDeviceContext createContext(DeviceContextCache.CachedContext cached) {
+	BinaryDeviceContext context = new BinaryDeviceContext();
+	context.setDevice(cached.getDevice());
+	context.setDeviceType(cached.getDeviceType());
+	context.setPayload(new byte[0]);
+	return context;
+    }
+
+    protected IDecoderChoice<byte[]> linearScan(List<IDecoderChoice<byte[]>> choices, BinaryDeviceContext context) {
+	for (IDecoderChoice<byte[]> choice : choices) {
+	    if (choice.appliesTo(context)) {
+		return choice;
+	    }
+	}
+	return null;
+    }
+
+    /**
+     * Stubbed device management lookups.
+     */
+    private class StubLoader implements DeviceContextCache.IContextLoader {
+
+	@Override
+	public IDevice getDeviceByToken(String token) throws SiteWhereException {
+	    loads++;
+	    return devices.get(token);
+	}
+
+	@Override
+	public IDeviceType getDeviceType(UUID id) throws SiteWhereException {
+	    loads++;
+	    return deviceTypes.get(id);
+	}
+    }
+
+    /**
+     * Choice that applies to every device.
+     */
+    private static class CatchAllChoice extends TenantEngineLifecycleComponent implements IDecoderChoice<byte[]> {
+
+	@Override
+	public boolean appliesTo(IDeviceContext<byte[]> criteria) {
+	    return true;
+	}
+
+	@Override
+	public IDeviceEventDecoder<byte[]> getDeviceEventDecoder() {
+	    return null;
+	}
+
+	@Override
+	public Log getLogger() {
+	    return LogFactory.getLog(CatchAllChoice.class);
+	}
+    }
+}
\ No newline at end of file
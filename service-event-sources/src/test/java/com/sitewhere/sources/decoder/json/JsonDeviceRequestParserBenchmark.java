@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.decoder.json;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sitewhere.rest.model.device.event.DeviceEventBatch;
+import com.sitewhere.sources.DecodedDeviceRequest;
+import com.sitewhere.sources.spi.IDecodedDeviceRequest;
+
+/**
+ * Compares streaming JSON decoding with binding the payload through
+ * {@link ObjectMapper#readValue(byte[], Class)} for batches and measurements
+ * requests with 1 and 1,000 events. The GC profiler reports allocation per
+ * operation along with the time. Run with the test classpath:
+ * 
+ * <pre>
+ * java -cp ... com.sitewhere.sources.decoder.json.JsonDeviceRequestParserBenchmark
+ * </pre>
+ * 
+ * or through the JMH runner with <code>-prof gc</code>.
+ * 
+ * @author Derek
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonDeviceRequestParserBenchmark {
+
+    /** Number of events in each payload */
+    @Param({ "1", "1000" })
+    private int events;
+
+    /** Mapper used by the data binding decoder */
+    private ObjectMapper mapper;
+
+    /** Streaming parser under test */
+    private JsonDeviceRequestParser parser;
+
+    /** Batch payload */
+    private byte[] batch;
+
+    /** Measurements request payload */
+    private byte[] request;
+
+    @Setup
+    public void setup() {
+	mapper = JsonDeviceRequestDecoder.getObjectMapper();
+	parser = new JsonDeviceRequestParser();
+	JsonDeviceRequestParserTest payloads = new JsonDeviceRequestParserTest();
+	batch = payloads.bytes(payloads.createBatch(events));
+	request = payloads.bytes(payloads.createMeasurementsRequest(events));
+    }
+
+    @Benchmark
+    public DeviceEventBatch bindBatch() throws Exception {
+	return mapper.readValue(batch, DeviceEventBatch.class);
+    }
+
+    @Benchmark
+    public List<IDecodedDeviceRequest<?>> streamBatch() throws Exception {
+	return parser.parseBatch(batch);
+    }
+
+    @Benchmark
+    public DecodedDeviceRequest<?> bindRequest() throws Exception {
+	return mapper.readValue(request, DecodedDeviceRequest.class);
+    }
+
+    @Benchmark
+    public DecodedDeviceRequest<?> streamRequest() throws Exception {
+	return parser.parseRequest(request);
+    }
+
+    public static void main(String[] args) throws Exception {
+	Options options = new OptionsBuilder().include(JsonDeviceRequestParserBenchmark.class.getSimpleName())
+		.addProfiler(GCProfiler.class).build();
+	new Runner(options).run();
+    }
+}
\ No newline at end of file
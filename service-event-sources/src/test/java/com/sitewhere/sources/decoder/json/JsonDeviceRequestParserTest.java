@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.decoder.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sitewhere.rest.model.device.event.DeviceEventBatch;
+import com.sitewhere.sources.DecodedDeviceRequest;
+import com.sitewhere.sources.spi.EventDecodeException;
+import com.sitewhere.sources.spi.IDecodedDeviceRequest;
+import com.sitewhere.spi.device.event.request.IDeviceLocationCreateRequest;
+import com.sitewhere.spi.device.event.request.IDeviceMeasurementsCreateRequest;
+
+/**
+ * Verifies streaming JSON decoding and compares its results with binding the
+ * payload through {@link ObjectMapper#readValue(byte[], Class)}. Timing is
+ * covered by {@link JsonDeviceRequestParserBenchmark}.
+ *
+ * @author Derek
+ */
+public class JsonDeviceRequestParserTest {
+
+    @Test
+    public void testMeasurementsRequest() throws EventDecodeException {
+	String json = "{\"hardwareId\":\"device-1\",\"type\":\"DeviceMeasurements\",\"originator\":\"cmd-1\","
+		+ "\"request\":{\"eventDate\":1500000000000,\"updateState\":true,\"metadata\":{\"a\":\"b\"},"
+		+ "\"measurements\":{\"temp\":21.5,\"count\":3,\"on\":true,\"off\":false,\"text\":\"hello\"},"
+		+ "\"unknown\":{\"x\":[1,2]}}}";
+	DecodedDeviceRequest<?> decoded = new JsonDeviceRequestParser().parseRequest(bytes(json));
+	assertEquals("device-1", decoded.getDeviceToken());
+	assertEquals("cmd-1", decoded.getOriginator());
+	IDeviceMeasurementsCreateRequest mxs = (IDeviceMeasurementsCreateRequest) decoded.getRequest();
+	assertEquals(21.5, mxs.getMeasurement("temp"), 0.0);
+	assertEquals(3.0, mxs.getMeasurement("count"), 0.0);
+	assertEquals(1.0, mxs.getMeasurement("on"), 0.0);
+	assertEquals(0.0, mxs.getMeasurement("off"), 0.0);
+	assertNull(mxs.getMeasurement("text"));
+	assertEquals("hello", mxs.getMetadata().get("text"));
+	assertEquals("b", mxs.getMetadata().get("a"));
+	assertEquals(1500000000000L, mxs.getEventDate().getTime());
+	assertTrue(mxs.isUpdateState());
+    }
+
+    @Test
+    public void testRequestBeforeType() throws EventDecodeException {
+	String json = "{\"request\":{\"latitude\":33.7,\"longitude\":-84.4},\"hardwareId\":\"device-1\","
+		+ "\"type\":\"DeviceLocation\"}";
+	DecodedDeviceRequest<?> decoded = new JsonDeviceRequestParser().parseRequest(bytes(json));
+	IDeviceLocationCreateRequest location = (IDeviceLocationCreateRequest) decoded.getRequest();
+	assertEquals(33.7, location.getLatitude(), 0.0);
+	assertEquals(-84.4, location.getLongitude(), 0.0);
+    }
+
+    @Test
+    public void testInvalidRequests() {
+	JsonDeviceRequestParser parser = new JsonDeviceRequestParser();
+	assertRejected(parser, "{\"hardwareId\":\"device-1\",\"request\":{}}");
+	assertRejected(parser, "{\"hardwareId\":\"device-1\",\"type\":\"Bogus\",\"request\":{}}");
+	assertRejected(parser, "{\"hardwareId\":\"device-1\",\"type\":\"DeviceLocation\"}");
+	assertRejected(parser, "{\"type\":\"DeviceLocation\",\"request\":{}}");
+	assertRejected(parser, "[]");
+    }
+
+    @Test
+    public void testOversizedPayloadsRejected() throws EventDecodeException {
+	JsonDeviceRequestParser parser = new JsonDeviceRequestParser();
+	parser.setMaxPayloadSize(64);
+	assertRejected(parser, createMeasurementsRequest(10));
+
+	parser = new JsonDeviceRequestParser();
+	parser.setMaxEventsPerBatch(999);
+	try {
+	    parser.parseBatch(bytes(createBatch(1000)));
+	    fail("Batch over event limit was not rejected.");
+	} catch (EventDecodeException e) {
+	    // Expected.
+	}
+	parser.setMaxEventsPerBatch(1000);
+	assertEquals(1000, parser.parseBatch(bytes(createBatch(1000))).size());
+    }
+
+    @Test
+    public void testUnknownBatchFieldRejected() {
+	try {
+	    new JsonDeviceRequestParser().parseBatch(bytes("{\"hardwareId\":\"device-1\",\"bogus\":[]}"));
+	    fail("Batch with unknown field was not rejected.");
+	} catch (EventDecodeException e) {
+	    // Expected.
+	}
+    }
+
+    @Test
+    public void testStreamingMatchesDataBinding() throws Exception {
+	ObjectMapper mapper = JsonDeviceRequestDecoder.getObjectMapper();
+	JsonDeviceRequestParser parser = new JsonDeviceRequestParser();
+
+	for (int events : new int[] { 1, 1000 }) {
+	    byte[] batch = bytes(createBatch(events));
+	    List<IDecodedDeviceRequest<?>> streamed = parser.parseBatch(batch);
+	    DeviceEventBatch bound = mapper.readValue(batch, DeviceEventBatch.class);
+	    assertEquals(bound.getLocations().size() + bound.getMeasurements().size(), streamed.size());
+	    for (int i = 0; i < bound.getLocations().size(); i++) {
+		IDeviceLocationCreateRequest location = (IDeviceLocationCreateRequest) streamed.get(i).getRequest();
+		assertEquals("device-1", streamed.get(i).getDeviceToken());
+		assertEquals(bound.getLocations().get(i).getLatitude(), location.getLatitude());
+	    }
+
+	    byte[] request = bytes(createMeasurementsRequest(events));
+	    IDeviceMeasurementsCreateRequest mxs = (IDeviceMeasurementsCreateRequest) parser.parseRequest(request)
+		    .getRequest();
+	    DecodedDeviceRequest<?> legacy = mapper.readValue(request, DecodedDeviceRequest.class);
+	    assertEquals(((IDeviceMeasurementsCreateRequest) legacy.getRequest()).getMeasurements(),
+		    mxs.getMeasurements());
+	}
+    }
+
+    /**
+     * Verify a payload is rejected.
+     *
+     * @param parser
+     * @param json
+     */
+    protected void assertRejected(JsonDeviceRequestParser parser, String json) {
+	try {
+	    parser.parseRequest(bytes(json));
+	    fail("Payload was not rejected: " + json);
+	} catch (EventDecodeException e) {
+	    // Expected.
+	}
+    }
+
+    /**
+     * Create a measurements request with the given number of measurements.
+     *
+     * @param count
+     * @return
+     */
+    protected String createMeasurementsRequest(int count) {
+	StringBuilder json = new StringBuilder(
+		"{\"hardwareId\":\"device-1\",\"type\":\"DeviceMeasurements\",\"request\":{\"measurements\":{");
+	for (int i = 0; i < count; i++) {
+	    json.append((i > 0) ? "," : "").append("\"mx").append(i).append("\":").append(i * 1.5);
+	}
+	return json.append("}}}").toString();
+    }
+
+    /**
+     * Create a batch with the given number of events.
+     *
+     * @param count
+     * @return
+     */
+    protected String createBatch(int count) {
+	StringBuilder locations = new StringBuilder();
+	StringBuilder measurements = new StringBuilder();
+	for (int i = 0; i < count; i++) {
+	    if (i % 2 == 0) {
+		locations.append((locations.length() > 0) ? "," : "").append("{\"latitude\":").append(i)
+			.append(",\"longitude\":").append(-i).append(",\"eventDate\":1500000000000}");
+	    } else {
+		measurements.append((measurements.length() > 0) ? "," : "").append("{\"measurements\":{\"temp\":")
+			.append(i).append("},\"eventDate\":1500000000000}");
+	    }
+	}
+	return "{\"hardwareId\":\"device-1\",\"locations\":[" + locations + "],\"measurements\":[" + measurements
+		+ "]}";
+    }
+
+    /**
+     * Get UTF-8 bytes for a string.
+     *
+     * @param json
+     * @return
+     */
+    protected byte[] bytes(String json) {
+	return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file
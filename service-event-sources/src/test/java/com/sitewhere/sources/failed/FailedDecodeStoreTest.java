@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.failed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.sitewhere.rest.model.search.sources.FailedDecodeSearchCriteria;
+import com.sitewhere.rest.model.sources.FailedDecodeReplayStatus;
+import com.sitewhere.sources.spi.IInboundEventSource;
+import com.sitewhere.spi.search.ISearchResults;
+import com.sitewhere.spi.sources.IFailedDecode;
+import com.sitewhere.spi.sources.IFailedDecodeSummary;
+
+/**
+ * Verifies indexing of failed decodes and rate limited replay.
+ *
+ * @author Derek
+ */
+public class FailedDecodeStoreTest {
+
+    @Test
+    public void testLimits() {
+	FailedDecodeStore store = new FailedDecodeStore(60000, 100, 1000);
+	long now = System.currentTimeMillis();
+	store.add("mqtt", "json", "java.io.IOException", "bad", now - 120000, new byte[10]);
+	assertEquals(0, store.size());
+
+	for (int i = 0; i < 150; i++) {
+	    store.add("mqtt", "json", "java.io.IOException", "bad", now, new byte[5]);
+	}
+	assertEquals(100, store.size());
+	assertEquals(500, store.getTotalBytes());
+
+	store.add("mqtt", "json", "java.io.IOException", "bad", now, new byte[800]);
+	assertTrue(store.getTotalBytes() <= 1000);
+    }
+
+    @Test
+    public void testQueries() {
+	FailedDecodeStore store = new FailedDecodeStore();
+	long now = System.currentTimeMillis();
+	for (int i = 0; i < 30; i++) {
+	    store.add((i % 3 == 0) ? "coap" : "mqtt", "json", "java.io.IOException", "bad " + i, now + i,
+		    new byte[] { (byte) i });
+	}
+
+	List<IFailedDecodeSummary> summaries = store.getSummaries();
+	assertEquals(2, summaries.size());
+	assertEquals("coap", summaries.get(0).getSourceId());
+	assertEquals(10, summaries.get(0).getCount());
+	assertEquals(20, summaries.get(1).getCount());
+
+	FailedDecodeSearchCriteria criteria = new FailedDecodeSearchCriteria(2, 5);
+	criteria.setSourceId("mqtt");
+	ISearchResults<IFailedDecode> results = store.list(criteria);
+	assertEquals(20, results.getNumResults());
+	assertEquals(5, results.getResults().size());
+	assertEquals("bad 22", results.getResults().get(0).getErrorMessage());
+
+	assertEquals(7, store.sample(criteria, 7).size());
+	assertEquals(20, store.sample(criteria, 50).size());
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+	FailedDecodeStore store = new FailedDecodeStore();
+	long now = System.currentTimeMillis();
+	int total = 2000;
+	for (int i = 0; i < total; i++) {
+	    store.add("mqtt", "json", "java.io.IOException", "bad", now, new byte[] { (byte) (i % 2) });
+	}
+	AtomicInteger decoded = new AtomicInteger();
+	IInboundEventSource<?> source = createSource(decoded);
+
+	FailedDecodeSearchCriteria criteria = new FailedDecodeSearchCriteria(1, 0);
+	List<FailedDecodeStore.Entry> entries = store.select(criteria);
+	FailedDecodeReplayStatus status = new FailedDecodeReplayStatus();
+	status.setMaxPerSecond(4000);
+	status.setMatched(entries.size());
+
+	FailedDecodeManagement management = new FailedDecodeManagement(null, store);
+	long start = System.nanoTime();
+	management.new FailedDecodeReplayer(source, entries, status).run();
+	long elapsedMs = (System.nanoTime() - start) / 1000000;
+
+	assertTrue(status.isComplete());
+	assertEquals(total / 2, status.getReplayed());
+	assertEquals(total / 2, status.getFailed());
+	assertEquals(total, decoded.get());
+	assertTrue("Replay exceeded rate limit: " + elapsedMs + "ms", elapsedMs >= 400);
+	assertEquals(total / 2, store.select(criteria).size());
+    }
+
+    @Test
+    public void testReplaySkipsClaimedFailures() throws Exception {
+	FailedDecodeStore store = new FailedDecodeStore();
+	long now = System.currentTimeMillis();
+	for (int i = 0; i < 10; i++) {
+	    store.add("mqtt-" + i, "mqtt", "json", "java.io.IOException", "bad", now, new byte[] { 1 });
+	}
+
+	// Failures claimed by another instance after they were selected.
+	FailedDecodeSearchCriteria criteria = new FailedDecodeSearchCriteria(1, 0);
+	List<FailedDecodeStore.Entry> entries = store.select(criteria);
+	store.setReplayed("mqtt-2", true);
+	store.setReplayed("mqtt-7", true);
+
+	AtomicInteger decoded = new AtomicInteger();
+	FailedDecodeReplayStatus status = new FailedDecodeReplayStatus();
+	status.setMaxPerSecond(1000);
+	FailedDecodeManagement management = new FailedDecodeManagement(null, store);
+	management.new FailedDecodeReplayer(createSource(decoded), entries, status).run();
+
+	assertEquals(8, decoded.get());
+	assertEquals(8, status.getReplayed());
+	assertEquals(0, store.select(criteria).size());
+	criteria.setIncludeReplayed(true);
+	assertEquals("mqtt-9", store.list(criteria).getResults().get(0).getId());
+    }
+
+    /**
+     * Create an event source that accepts payloads starting with a non-zero byte.
+     *
+     * @param decoded
+     * @return
+     */
+    protected IInboundEventSource<?> createSource(AtomicInteger decoded) {
+	InvocationHandler handler = new InvocationHandler() {
+
+	    @Override
+	    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		if ("replayRawPayload".equals(method.getName())) {
+		    decoded.incrementAndGet();
+		    return ((byte[]) args[0])[0] != 0;
+		}
+		throw new UnsupportedOperationException(method.getName());
+	    }
+	};
+	return (IInboundEventSource<?>) Proxy.newProxyInstance(getClass().getClassLoader(),
+		new Class<?>[] { IInboundEventSource.class }, handler);
+    }
+}
\ No newline at end of file
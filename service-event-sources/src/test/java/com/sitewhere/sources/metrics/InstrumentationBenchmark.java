@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the per-event cost of ingest instrumentation when many receiver
+ * threads update the same event source. Compares the shared
+ * {@link AtomicInteger} previously used for counting with {@link Meter} and
+ * {@link LatencyRecorder}, including the full set of updates made for each
+ * decoded payload. Run with the test classpath:
+ * 
+ * <pre>
+ * java -cp ... com.sitewhere.sources.metrics.InstrumentationBenchmark
+ * </pre>
+ * 
+ * @author Derek
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class InstrumentationBenchmark {
+
+    /** Counter used before meters were introduced */
+    private AtomicInteger atomicCounter = new AtomicInteger();
+
+    /** Meter under test */
+    private Meter meter = new Meter();
+
+    /** Latency recorder under test */
+    private LatencyRecorder recorder = new LatencyRecorder();
+
+    /** Meters for a single event source */
+    private EventSourceMeters meters = new EventSourceMeters();
+
+    @Benchmark
+    public int atomicIncrement() {
+	return atomicCounter.incrementAndGet();
+    }
+
+    @Benchmark
+    public void meterMark() {
+	meter.mark();
+    }
+
+    @Benchmark
+    public void latencyRecord() {
+	recorder.recordSince(System.nanoTime());
+    }
+
+    @Benchmark
+    public void decodedPayload() {
+	long start = System.nanoTime();
+	meters.getReceived().mark();
+	meters.getDecodeLatency().recordSince(start);
+	meters.getDecoded().mark();
+    }
+
+    public static void main(String[] args) throws Exception {
+	Options options = new OptionsBuilder().include(InstrumentationBenchmark.class.getSimpleName()).build();
+	new Runner(options).run();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Verifies the moving average reported by {@link Meter} against a manual
+ * clock.
+ *
+ * @author Derek
+ */
+public class MeterTest {
+
+    /** Rate interval used by tests */
+    private static final long INTERVAL_MS = 10000;
+
+    /** Time covered by one tick */
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(INTERVAL_MS) / 10;
+
+    /** Current time in nanoseconds */
+    private long now;
+
+    @Test
+    public void testSteadyRate() {
+	Meter meter = new Meter(INTERVAL_MS, () -> now);
+	for (int i = 0; i < 100; i++) {
+	    meter.mark(50);
+	    now += TICK_NANOS;
+	}
+	assertEquals(50, meter.getRate(), 0.000001);
+    }
+
+    @Test
+    public void testRateIndependentOfReads() {
+	Meter read = new Meter(INTERVAL_MS, () -> now);
+	Meter unread = new Meter(INTERVAL_MS, () -> now);
+	for (int i = 0; i < 100; i++) {
+	    read.mark(i);
+	    unread.mark(i);
+	    now += TICK_NANOS / 2;
+	    read.getRate();
+	    now += TICK_NANOS / 2;
+	    read.getRate();
+	}
+	assertEquals(read.getRate(), unread.getRate(), 0.000001);
+    }
+
+    @Test
+    public void testRateDecaysWhenIdle() {
+	Meter meter = new Meter(INTERVAL_MS, () -> now);
+	meter.mark(50);
+	now += TICK_NANOS;
+	assertEquals(50, meter.getRate(), 0.000001);
+
+	// One full interval without occurrences decays the rate by a factor of e.
+	now += 10 * TICK_NANOS;
+	assertEquals(50 * Math.exp(-1), meter.getRate(), 0.000001);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.polling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.sitewhere.sources.rest.RestHelper;
+import com.sitewhere.sources.spi.polling.IPollable;
+import com.sitewhere.sources.spi.polling.IScheduledPoll;
+import com.sitewhere.spi.SiteWhereException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Verifies shared polling against a local HTTP stub.
+ *
+ * @author Derek
+ */
+public class PollingSchedulerTest {
+
+    /** Number of polling sources */
+    private static final int SOURCES = 1000;
+
+    /** Maximum number of concurrent polls */
+    private static final int MAX_CONCURRENT_POLLS = 16;
+
+    /** ETag returned by stub */
+    private static final String ETAG = "\"v1\"";
+
+    /** Time to wait for expected counts */
+    private static final long TIMEOUT_MS = 30000;
+
+    @Test
+    public void testManySources() throws Exception {
+	AtomicInteger full = new AtomicInteger();
+	AtomicInteger notModified = new AtomicInteger();
+	ExecutorService serverThreads = Executors.newFixedThreadPool(MAX_CONCURRENT_POLLS);
+	HttpServer server = createServer(full, notModified, serverThreads);
+	PollingScheduler scheduler = new PollingScheduler();
+	scheduler.setMaxConcurrentPolls(MAX_CONCURRENT_POLLS);
+	scheduler.start(null);
+	try {
+	    String baseUrl = "http://localhost:" + server.getAddress().getPort();
+	    List<IScheduledPoll> polls = new ArrayList<IScheduledPoll>();
+	    List<AtomicInteger> changes = new ArrayList<AtomicInteger>();
+	    for (int i = 0; i < SOURCES; i++) {
+		RestHelper rest = new RestHelper(baseUrl, null, null);
+		AtomicInteger changed = new AtomicInteger();
+		changes.add(changed);
+		polls.add(scheduler.schedule("source-" + i, 500, new IPollable() {
+
+		    @Override
+		    public void doPoll() throws SiteWhereException {
+			if (rest.getJsonNodeIfModified("/data") != null) {
+			    changed.incrementAndGet();
+			}
+		    }
+		}));
+	    }
+	    waitFor(() -> {
+		for (IScheduledPoll poll : polls) {
+		    if (poll.getPollCount() < 3) {
+			return false;
+		    }
+		}
+		return true;
+	    }, TIMEOUT_MS);
+
+	    int pollers = 0;
+	    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+		if (thread.getName().startsWith("Poller ")) {
+		    pollers++;
+		}
+	    }
+	    assertTrue(pollers <= MAX_CONCURRENT_POLLS);
+	    for (int i = 0; i < SOURCES; i++) {
+		assertEquals(1, changes.get(i).get());
+	    }
+	    assertEquals(SOURCES, full.get());
+	    assertTrue(notModified.get() >= 2 * SOURCES);
+	} finally {
+	    scheduler.stop(null);
+	    server.stop(0);
+	    serverThreads.shutdownNow();
+	}
+    }
+
+    @Test
+    public void testOverrunsSkipped() throws Exception {
+	PollingScheduler scheduler = new PollingScheduler();
+	scheduler.start(null);
+	try {
+	    AtomicInteger active = new AtomicInteger();
+	    AtomicInteger maxActive = new AtomicInteger();
+	    Semaphore finish = new Semaphore(0);
+	    IScheduledPoll poll = scheduler.schedule("slow", 50, new IPollable() {
+
+		@Override
+		public void doPoll() throws SiteWhereException {
+		    int current = active.incrementAndGet();
+		    if (current > maxActive.get()) {
+			maxActive.set(current);
+		    }
+		    try {
+			finish.acquire();
+		    } catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		    } finally {
+			active.decrementAndGet();
+		    }
+		}
+	    });
+
+	    // Each poll is held until two more intervals have been skipped.
+	    for (int i = 1; i <= 3; i++) {
+		long polled = i;
+		waitFor(() -> active.get() == 1, TIMEOUT_MS);
+		long skipped = poll.getSkippedCount() + 2;
+		waitFor(() -> poll.getSkippedCount() >= skipped, TIMEOUT_MS);
+		finish.release();
+		waitFor(() -> poll.getPollCount() >= polled, TIMEOUT_MS);
+	    }
+	    poll.cancel();
+	    finish.release(Integer.MAX_VALUE / 2);
+	    assertEquals(1, maxActive.get());
+	    assertTrue(poll.getOverrunCount() >= 3);
+	} finally {
+	    scheduler.stop(null);
+	}
+    }
+
+    @Test
+    public void testCancelInterruptsRunningPoll() throws Exception {
+	PollingScheduler scheduler = new PollingScheduler();
+	scheduler.start(null);
+	try {
+	    AtomicBoolean started = new AtomicBoolean();
+	    AtomicBoolean interrupted = new AtomicBoolean();
+	    IScheduledPoll poll = scheduler.schedule("blocked", 10, new IPollable() {
+
+		@Override
+		public void doPoll() throws SiteWhereException {
+		    started.set(true);
+		    try {
+			new Semaphore(0).acquire();
+		    } catch (InterruptedException e) {
+			interrupted.set(true);
+		    }
+		}
+	    });
+	    waitFor(() -> started.get(), TIMEOUT_MS);
+	    assertTrue(poll.cancelAndAwait(TIMEOUT_MS));
+	    assertTrue(interrupted.get());
+	    assertEquals(1, poll.getPollCount());
+	} finally {
+	    scheduler.stop(null);
+	}
+    }
+
+    /**
+     * Wait for a condition to become true.
+     *
+     * @param condition
+     * @param timeoutMs
+     * @throws InterruptedException
+     */
+    protected void waitFor(Condition condition, long timeoutMs) throws InterruptedException {
+	long deadline = System.currentTimeMillis() + timeoutMs;
+	while (!condition.isMet()) {
+	    assertTrue("Timed out waiting for condition.", System.currentTimeMillis() < deadline);
+	    Thread.sleep(20);
+	}
+    }
+
+    /**
+     * Condition to wait for.
+     */
+    private static interface Condition {
+	public boolean isMet();
+    }
+
+    /**
+     * Create stub that returns a fixed body with an ETag and answers conditional
+     * requests with 304.
+     *
+     * @param full
+     * @param notModified
+     * @param executor
+     * @return
+     * @throws IOException
+     */
+    protected HttpServer createServer(AtomicInteger full, AtomicInteger notModified, ExecutorService executor)
+	    throws IOException {
+	HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 1000);
+	server.createContext("/data", new HttpHandler() {
+
+	    @Override
+	    public void handle(HttpExchange exchange) throws IOException {
+		if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+		    notModified.incrementAndGet();
+		    exchange.sendResponseHeaders(304, -1);
+		} else {
+		    full.incrementAndGet();
+		    byte[] body = "{\"value\":1}".getBytes(StandardCharsets.UTF_8);
+		    exchange.getResponseHeaders().add("ETag", ETAG);
+		    exchange.getResponseHeaders().add("Content-Type", "application/json");
+		    exchange.sendResponseHeaders(200, body.length);
+		    OutputStream output = exchange.getResponseBody();
+		    output.write(body);
+		}
+		exchange.close();
+	    }
+	});
+	server.setExecutor(executor);
+	server.start();
+	return server;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.rabbitmq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.Test;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.client.Consumer;
+import com.rabbitmq.client.Envelope;
+import com.sitewhere.microservice.kafka.MicroserviceKafkaProducer;
+import com.sitewhere.sources.spi.IInboundEventSource;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Drives the RabbitMQ receiver through an in-memory stand-in for the AMQP
+ * client to verify prefetch, consumer concurrency and batched manual acks.
+ *
+ * @author Derek
+ */
+public class RabbitMqInboundEventReceiverTest {
+
+    @Test
+    public void testBatchedAcks() throws Exception {
+	AtomicLong received = new AtomicLong();
+	StandInBroker broker = new StandInBroker();
+	RabbitMqInboundEventReceiver receiver = createReceiver(broker, received, new AtomicBoolean(false));
+	receiver.start(null);
+	try {
+	    assertEquals(2, broker.channels.size());
+	    for (StandInChannel channel : broker.channels) {
+		assertEquals(20, channel.prefetch);
+		assertFalse(channel.autoAck);
+		channel.deliver(25);
+	    }
+	    assertEquals(50, received.get());
+
+	    // Full batches are acknowledged immediately with a multiple ack.
+	    for (StandInChannel channel : broker.channels) {
+		assertEquals(2, channel.acks.size());
+		assertEquals(Long.valueOf(10), channel.acks.get(0));
+		assertEquals(Long.valueOf(20), channel.acks.get(1));
+		assertTrue(channel.multiple);
+	    }
+
+	    // Partial batches are acknowledged after the interval.
+	    Thread.sleep(receiver.getAckIntervalMs() * 3);
+	    for (StandInChannel channel : broker.channels) {
+		assertEquals(Long.valueOf(25), channel.acks.get(channel.acks.size() - 1));
+		assertEquals(0, channel.nacks.size());
+	    }
+	} finally {
+	    receiver.stop(null);
+	}
+    }
+
+    @Test
+    public void testRequeueOnFailedDelivery() throws Exception {
+	AtomicLong received = new AtomicLong();
+	StandInBroker broker = new StandInBroker();
+	RabbitMqInboundEventReceiver receiver = createReceiver(broker, received, new AtomicBoolean(true));
+	receiver.start(null);
+	try {
+	    StandInChannel channel = broker.channels.get(0);
+	    channel.deliver(10);
+	    assertEquals(0, channel.acks.size());
+	    assertEquals(1, channel.nacks.size());
+	    assertEquals(Long.valueOf(10), channel.nacks.get(0));
+	} finally {
+	    receiver.stop(null);
+	}
+    }
+
+    @Test
+    public void testFailureOnlyRequeuesOwnBatch() throws Exception {
+	AtomicLong received = new AtomicLong();
+	AtomicBoolean failDelivery = new AtomicBoolean(false);
+	StandInBroker broker = new StandInBroker();
+	RabbitMqInboundEventReceiver receiver = createReceiver(broker, received, failDelivery);
+	receiver.start(null);
+	try {
+	    // Send fails on first channel before its batch is flushed.
+	    StandInChannel failing = broker.channels.get(0);
+	    StandInChannel healthy = broker.channels.get(1);
+	    failing.deliver(5);
+	    failDelivery.set(true);
+	    failing.deliver(1);
+	    failDelivery.set(false);
+	    healthy.deliver(10);
+	    failing.deliver(4);
+
+	    // Only the batch containing the failed send is requeued.
+	    assertEquals(Long.valueOf(10), healthy.acks.get(0));
+	    assertEquals(0, healthy.nacks.size());
+	    assertEquals(0, failing.acks.size());
+	    assertEquals(Long.valueOf(10), failing.nacks.get(0));
+	} finally {
+	    receiver.stop(null);
+	}
+    }
+
+    /**
+     * Create receiver connected to the stand-in broker. Each payload is sent to
+     * a mock Kafka producer and the send fails while delivery is set to fail.
+     *
+     * @param broker
+     * @param received
+     * @param failDelivery
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    protected RabbitMqInboundEventReceiver createReceiver(StandInBroker broker, AtomicLong received,
+	    AtomicBoolean failDelivery) {
+	MockProducer<String, byte[]> mock = new MockProducer<String, byte[]>(false, new StringSerializer(),
+		new ByteArraySerializer());
+	TestProducer producer = new TestProducer(mock);
+	RabbitMqInboundEventReceiver receiver = new RabbitMqInboundEventReceiver() {
+
+	    @Override
+	    protected ConnectionFactory createConnectionFactory() {
+		return broker;
+	    }
+	};
+	receiver.setNumConsumers(2);
+	receiver.setPrefetchCount(20);
+	receiver.setBatchSize(10);
+	receiver.setAckIntervalMs(100);
+	receiver.setEventSource((IInboundEventSource<byte[]>) Proxy.newProxyInstance(getClass().getClassLoader(),
+		new Class<?>[] { IInboundEventSource.class }, new InvocationHandler() {
+
+		    @Override
+		    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if ("onEncodedEventReceived".equals(method.getName())) {
+			    received.incrementAndGet();
+			    producer.send("device", (byte[]) args[1]);
+			    if (failDelivery.get()) {
+				mock.errorNext(new KafkaException("Delivery failed."));
+			    } else {
+				mock.completeNext();
+			    }
+			    return null;
+			}
+			throw new UnsupportedOperationException(method.getName());
+		    }
+		}));
+	return receiver;
+    }
+
+    /**
+     * Producer that sends to a mock Kafka producer.
+     */
+    private static class TestProducer extends MicroserviceKafkaProducer {
+
+	public TestProducer(MockProducer<String, byte[]> mock) {
+	    super(null);
+	    setProducer(mock);
+	}
+
+	/*
+	 * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaProducer#
+	 * getTargetTopicName()
+	 */
+	@Override
+	public String getTargetTopicName() throws SiteWhereException {
+	    return "decoded-events";
+	}
+    }
+
+    /**
+     * In-memory stand-in for an AMQP broker connection.
+     */
+    private static class StandInBroker extends ConnectionFactory {
+
+	/** Channels created by the receiver */
+	private List<StandInChannel> channels = new CopyOnWriteArrayList<StandInChannel>();
+
+	/*
+	 * @see
+	 * com.rabbitmq.client.ConnectionFactory#newConnection(java.util.concurrent.
+	 * ExecutorService)
+	 */
+	@Override
+	public Connection newConnection(ExecutorService executor) {
+	    return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+		    new InvocationHandler() {
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			    if ("createChannel".equals(method.getName())) {
+				StandInChannel channel = new StandInChannel();
+				channels.add(channel);
+				return channel.proxy;
+			    } else if ("isOpen".equals(method.getName())) {
+				return true;
+			    }
+			    return null;
+			}
+		    });
+	}
+    }
+
+    /**
+     * In-memory stand-in for an AMQP channel that records acknowledgements.
+     */
+    private static class StandInChannel implements InvocationHandler {
+
+	/** Proxy passed to receiver */
+	private Channel proxy = (Channel) Proxy.newProxyInstance(getClass().getClassLoader(),
+		new Class<?>[] { Channel.class }, this);
+
+	/** Prefetch requested by consumer */
+	private int prefetch;
+
+	/** Indicates whether consumer requested automatic acks */
+	private boolean autoAck = true;
+
+	/** Consumer registered on channel */
+	private Consumer consumer;
+
+	/** Delivery tag of last message delivered */
+	private long deliveryTag;
+
+	/** Acknowledged delivery tags */
+	private List<Long> acks = new CopyOnWriteArrayList<Long>();
+
+	/** Rejected delivery tags */
+	private List<Long> nacks = new CopyOnWriteArrayList<Long>();
+
+	/** Indicates whether last ack covered multiple messages */
+	private volatile boolean multiple;
+
+	/*
+	 * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object,
+	 * java.lang.reflect.Method, java.lang.Object[])
+	 */
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+	    switch (method.getName()) {
+	    case "basicQos":
+		prefetch = (Integer) args[0];
+		return null;
+	    case "basicConsume":
+		autoAck = (Boolean) args[1];
+		consumer = (Consumer) args[2];
+		return "consumer";
+	    case "basicAck":
+		acks.add((Long) args[0]);
+		multiple = (Boolean) args[1];
+		return null;
+	    case "basicNack":
+		nacks.add((Long) args[0]);
+		return null;
+	    case "isOpen":
+		return true;
+	    default:
+		return null;
+	    }
+	}
+
+	/**
+	 * Deliver messages to the registered consumer.
+	 *
+	 * @param count
+	 * @throws Exception
+	 */
+	public void deliver(int count) throws Exception {
+	    for (int i = 0; i < count; i++) {
+		deliveryTag++;
+		consumer.handleDelivery("consumer", new Envelope(deliveryTag, false, "", "sitewhere.input"), null,
+			("message-" + deliveryTag).getBytes());
+	    }
+	}
+    }
+}
\ No newline at end of file
@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.sources.websocket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.sitewhere.sources.spi.IInboundEventSource;
+import com.sitewhere.spi.SiteWhereException;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketClientHandshaker;
+import io.netty.handler.codec.http.websocketx.WebSocketClientHandshakerFactory;
+import io.netty.handler.codec.http.websocketx.WebSocketVersion;
+
+/**
+ * Opens many device connections to the web socket server on localhost and
+ * verifies that every connection is served and every event is handed off. The
+ * number of connections may be raised with the 'ws.connections' system property
+ * if the open file limit allows it.
+ *
+ * @author Derek
+ */
+public class WebSocketServerLoadTest {
+
+    /** Number of device connections */
+    private static final int CONNECTIONS = Integer.getInteger("ws.connections", 5000);
+
+    /** Number of messages sent on each connection */
+    private static final int MESSAGES_PER_CONNECTION = 20;
+
+    /** Prefix for tokens accepted by the test server */
+    private static final String VALID_PREFIX = "device-";
+
+    @Test
+    public void testManyConnections() throws Exception {
+	AtomicLong received = new AtomicLong();
+	WebSocketServerEventReceiver receiver = createReceiver(received, 0);
+	receiver.start(null);
+	EventLoopGroup group = new NioEventLoopGroup(4);
+	try {
+	    List<Channel> channels = new ArrayList<Channel>();
+	    for (int i = 0; i < CONNECTIONS; i++) {
+		channels.add(connect(group, receiver, "?token=" + VALID_PREFIX + i));
+	    }
+	    waitFor(() -> receiver.getConnectionCount() == CONNECTIONS, 60000);
+
+	    long expected = (long) CONNECTIONS * MESSAGES_PER_CONNECTION;
+	    for (int m = 0; m < MESSAGES_PER_CONNECTION; m++) {
+		for (Channel channel : channels) {
+		    if ((m % 2) == 0) {
+			channel.write(new TextWebSocketFrame("measurement " + m));
+		    } else {
+			channel.write(new BinaryWebSocketFrame(Unpooled.wrappedBuffer(new byte[] { 1, 2, 3, 4 })));
+		    }
+		}
+		for (Channel channel : channels) {
+		    channel.flush();
+		}
+	    }
+	    waitFor(() -> received.get() == expected, 120000);
+
+	    assertEquals(CONNECTIONS, receiver.getConnectionCount());
+	    assertEquals(expected, receiver.getReceivedCount());
+
+	    for (Channel channel : channels) {
+		channel.close();
+	    }
+	    waitFor(() -> receiver.getConnectionCount() == 0, 30000);
+	} finally {
+	    group.shutdownGracefully(0, 5, TimeUnit.SECONDS).awaitUninterruptibly();
+	    receiver.stop(null);
+	}
+    }
+
+    @Test
+    public void testAuthentication() throws Exception {
+	AtomicLong received = new AtomicLong();
+	WebSocketServerEventReceiver receiver = createReceiver(received, 0);
+	receiver.start(null);
+	EventLoopGroup group = new NioEventLoopGroup(1);
+	try {
+	    assertTrue(tryConnect(group, receiver, "/" + VALID_PREFIX + "path"));
+	    assertTrue(tryConnect(group, receiver, "?token=" + VALID_PREFIX + "query"));
+	    assertFalse(tryConnect(group, receiver, "?token=unknown"));
+	    assertFalse(tryConnect(group, receiver, ""));
+	    waitFor(() -> receiver.getConnectionCount() == 2, 5000);
+	} finally {
+	    group.shutdownGracefully(0, 5, TimeUnit.SECONDS).awaitUninterruptibly();
+	    receiver.stop(null);
+	}
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+	AtomicLong received = new AtomicLong();
+	WebSocketServerEventReceiver receiver = createReceiver(received, 1);
+	receiver.setMaxQueuedPayloads(100);
+	receiver.setDispatchThreads(1);
+	receiver.start(null);
+	EventLoopGroup group = new NioEventLoopGroup(1);
+	try {
+	    Channel channel = connect(group, receiver, "?token=" + VALID_PREFIX + "fast");
+	    waitFor(() -> receiver.getConnectionCount() == 1, 5000);
+	    int count = 2000;
+	    for (int i = 0; i < count; i++) {
+		channel.write(new TextWebSocketFrame("payload " + i));
+	    }
+	    channel.flush();
+	    waitFor(() -> received.get() == count, 60000);
+	    assertTrue(receiver.getSuspendCount() > 0);
+	    waitFor(() -> receiver.getSuspendedCount() == 0, 5000);
+	} finally {
+	    group.shutdownGracefully(0, 5, TimeUnit.SECONDS).awaitUninterruptibly();
+	    receiver.stop(null);
+	}
+    }
+
+    @Test
+    public void testStopDrainsQueue() throws Exception {
+	AtomicLong received = new AtomicLong();
+	WebSocketServerEventReceiver receiver = createReceiver(received, 1);
+	receiver.setDispatchThreads(1);
+	receiver.start(null);
+	EventLoopGroup group = new NioEventLoopGroup(1);
+	try {
+	    Channel channel = connect(group, receiver, "?token=" + VALID_PREFIX + "drain");
+	    waitFor(() -> receiver.getConnectionCount() == 1, 5000);
+	    int count = 500;
+	    for (int i = 0; i < count; i++) {
+		channel.write(new TextWebSocketFrame("payload " + i));
+	    }
+	    channel.flush();
+	    waitFor(() -> receiver.getReceivedCount() == count, 30000);
+	} finally {
+	    group.shutdownGracefully(0, 5, TimeUnit.SECONDS).awaitUninterruptibly();
+	    receiver.stop(null);
+	}
+	assertEquals(500, received.get());
+    }
+
+    /**
+     * Create receiver bound to an ephemeral port that accepts tokens with the
+     * valid prefix and counts payloads.
+     *
+     * @param received
+     * @param delayMs
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    protected WebSocketServerEventReceiver createReceiver(AtomicLong received, long delayMs) {
+	WebSocketServerEventReceiver receiver = new WebSocketServerEventReceiver() {
+
+	    @Override
+	    protected boolean authenticate(String token) throws SiteWhereException {
+		return token.startsWith(VALID_PREFIX);
+	    }
+	};
+	receiver.setPort(0);
+	receiver.setEventSource((IInboundEventSource<byte[]>) Proxy.newProxyInstance(getClass().getClassLoader(),
+		new Class<?>[] { IInboundEventSource.class }, new InvocationHandler() {
+
+		    @Override
+		    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if ("onEncodedEventReceived".equals(method.getName())) {
+			    if (delayMs > 0) {
+				Thread.sleep(delayMs);
+			    }
+			    received.incrementAndGet();
+			    return null;
+			}
+			throw new UnsupportedOperationException(method.getName());
+		    }
+		}));
+	return receiver;
+    }
+
+    /**
+     * Connect to the server and wait for the handshake to complete.
+     *
+     * @param group
+     * @param receiver
+     * @param suffix
+     * @return
+     * @throws Exception
+     */
+    protected Channel connect(EventLoopGroup group, WebSocketServerEventReceiver receiver, String suffix)
+	    throws Exception {
+	ClientHandler handler = createClient(group, receiver, suffix);
+	handler.getHandshakeFuture().sync();
+	return handler.getHandshakeFuture().channel();
+    }
+
+    /**
+     * Attempt to connect and indicate whether the handshake succeeded.
+     *
+     * @param group
+     * @param receiver
+     * @param suffix
+     * @return
+     * @throws Exception
+     */
+    protected boolean tryConnect(EventLoopGroup group, WebSocketServerEventReceiver receiver, String suffix)
+	    throws Exception {
+	ClientHandler handler = createClient(group, receiver, suffix);
+	handler.getHandshakeFuture().await(5000);
+	return handler.getHandshakeFuture().isSuccess();
+    }
+
+    /**
+     * Open a client connection and start the handshake.
+     *
+     * @param group
+     * @param receiver
+     * @param suffix
+     * @return
+     * @throws Exception
+     */
+    protected ClientHandler createClient(EventLoopGroup group, WebSocketServerEventReceiver receiver, String suffix)
+	    throws Exception {
+	URI uri = new URI("ws://localhost:" + receiver.getBoundPort() + receiver.getPath() + suffix);
+	ClientHandler handler = new ClientHandler(WebSocketClientHandshakerFactory.newHandshaker(uri,
+		WebSocketVersion.V13, null, false, new DefaultHttpHeaders()));
+	Bootstrap bootstrap = new Bootstrap();
+	bootstrap.group(group).channel(NioSocketChannel.class).handler(new ChannelInitializer<SocketChannel>() {
+
+	    @Override
+	    protected void initChannel(SocketChannel channel) throws Exception {
+		channel.pipeline().addLast(new HttpClientCodec(), new HttpObjectAggregator(8192), handler);
+	    }
+	});
+	bootstrap.connect(uri.getHost(), uri.getPort()).sync();
+	return handler;
+    }
+
+    /**
+     * Wait for a condition to become true.
+     *
+     * @param condition
+     * @param timeoutMs
+     * @throws InterruptedException
+     */
+    protected void waitFor(Condition condition, long timeoutMs) throws InterruptedException {
+	long deadline = System.currentTimeMillis() + timeoutMs;
+	while (!condition.isMet()) {
+	    assertTrue("Timed out waiting for condition.", System.currentTimeMillis() < deadline);
+	    Thread.sleep(20);
+	}
+    }
+
+    /**
+     * Condition to wait for.
+     */
+    private static interface Condition {
+	public boolean isMet();
+    }
+
+    /**
+     * Completes the client side of the handshake. Messages sent by the server
+     * after the handshake are ignored.
+     *
+     * @author Derek
+     */
+    private static class ClientHandler extends SimpleChannelInboundHandler<Object> {
+
+	/** Handshaker */
+	private WebSocketClientHandshaker handshaker;
+
+	/** Completed when handshake succeeds or fails */
+	private ChannelPromise handshakeFuture;
+
+	public ClientHandler(WebSocketClientHandshaker handshaker) {
+	    this.handshaker = handshaker;
+	}
+
+	@Override
+	public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+	    handshakeFuture = ctx.newPromise();
+	}
+
+	@Override
+	public void channelActive(ChannelHandlerContext ctx) throws Exception {
+	    handshaker.handshake(ctx.channel());
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+	    handshakeFuture.tryFailure(new IllegalStateException("Connection closed."));
+	}
+
+	@Override
+	protected void channelRead0(ChannelHandlerContext ctx, Object msg) throws Exception {
+	    if (!handshaker.isHandshakeComplete()) {
+		try {
+		    handshaker.finishHandshake(ctx.channel(), (FullHttpResponse) msg);
+		    handshakeFuture.trySuccess();
+		} catch (Exception e) {
+		    handshakeFuture.tryFailure(e);
+		}
+	    }
+	}
+
+	@Override
+	public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+	    handshakeFuture.tryFailure(cause);
+	    ctx.close();
+	}
+
+	public ChannelPromise getHandshakeFuture() {
+	    return handshakeFuture;
+	}
+    }
+}
\ No newline at end of file
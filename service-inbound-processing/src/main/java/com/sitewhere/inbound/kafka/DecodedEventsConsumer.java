@@ -18,9 +18,11 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 
 import com.sitewhere.common.MarshalUtils;
 import com.sitewhere.grpc.kafka.model.KafkaModel.GInboundEventPayload;
+import com.sitewhere.grpc.kafka.model.KafkaModel.GInboundEventPayloadBatch;
 import com.sitewhere.grpc.model.converter.KafkaModelConverter;
 import com.sitewhere.grpc.model.marshaler.KafkaModelMarshaler;
 import com.sitewhere.inbound.processing.InboundPayloadProcessingLogic;
@@ -137,7 +139,18 @@ public class DecodedEventsConsumer extends MicroserviceKafkaConsumer implements
      */
     @Override
     public void received(String key, byte[] message) throws SiteWhereException {
-	executor.execute(new InboundEventPayloadProcessor(getTenantEngine(), message));
+	executor.execute(new InboundEventPayloadProcessor(getTenantEngine(), message, false));
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.kafka.MicroserviceKafkaConsumer#received(org.
+     * apache.kafka.clients.consumer.ConsumerRecord)
+     */
+    @Override
+    protected void received(ConsumerRecord<String, byte[]> record) throws SiteWhereException {
+	executor.execute(new InboundEventPayloadProcessor(getTenantEngine(), record.value(),
+		KafkaModelMarshaler.isInboundEventPayloadBatchMessage(record.headers())));
     }
 
     /*
@@ -167,9 +180,13 @@ public class DecodedEventsConsumer extends MicroserviceKafkaConsumer implements
 	/** Encoded payload */
 	private byte[] encoded;
 
-	public InboundEventPayloadProcessor(IMicroserviceTenantEngine tenantEngine, byte[] encoded) {
+	/** Indicates whether payload is a batch */
+	private boolean batch;
+
+	public InboundEventPayloadProcessor(IMicroserviceTenantEngine tenantEngine, byte[] encoded, boolean batch) {
 	    super(tenantEngine.getMicroservice(), tenantEngine.getTenant());
 	    this.encoded = encoded;
+	    this.batch = batch;
 	}
 
 	/*
@@ -179,17 +196,33 @@ public class DecodedEventsConsumer extends MicroserviceKafkaConsumer implements
 	@Override
 	public void runAsSystemUser() throws SiteWhereException {
 	    try {
-		GInboundEventPayload grpc = KafkaModelMarshaler.parseInboundEventPayloadMessage(encoded);
-		if (getLogger().isDebugEnabled()) {
-		    InboundEventPayload payload = KafkaModelConverter.asApiInboundEventPayload(grpc);
-		    getLogger().debug(
-			    "Received decoded event payload:\n\n" + MarshalUtils.marshalJsonAsPrettyString(payload));
+		if (batch) {
+		    GInboundEventPayloadBatch grpcs = KafkaModelMarshaler.parseInboundEventPayloadBatchMessage(encoded);
+		    for (GInboundEventPayload grpc : KafkaModelConverter.asGrpcInboundEventPayloads(grpcs)) {
+			process(grpc);
+		    }
+		} else {
+		    process(KafkaModelMarshaler.parseInboundEventPayloadMessage(encoded));
 		}
-		getInboundPayloadProcessingLogic().process(grpc);
 	    } catch (SiteWhereException e) {
 		getLogger().error("Unable to parse inbound event payload.", e);
 	    }
 	}
+
+	/**
+	 * Process a single inbound event payload.
+	 * 
+	 * @param grpc
+	 * @throws SiteWhereException
+	 */
+	protected void process(GInboundEventPayload grpc) throws SiteWhereException {
+	    if (getLogger().isDebugEnabled()) {
+		InboundEventPayload payload = KafkaModelConverter.asApiInboundEventPayload(grpc);
+		getLogger().debug(
+			"Received decoded event payload:\n\n" + MarshalUtils.marshalJsonAsPrettyString(payload));
+	    }
+	    getInboundPayloadProcessingLogic().process(grpc);
+	}
     }
 
     /** Used for naming inbound event processing threads */
@@ -50,6 +50,9 @@ public class InboundPayloadProcessingLogic {
     /** Handle to inbound processing tenant engine */
     private IInboundProcessingTenantEngine tenantEngine;
 
+    /** Tokens recently found to be unregistered */
+    private UnregisteredDeviceCache unregisteredDeviceCache = new UnregisteredDeviceCache();
+
     public InboundPayloadProcessingLogic(IInboundProcessingTenantEngine tenantEngine) {
 	this.tenantEngine = tenantEngine;
     }
@@ -61,12 +64,24 @@ public class InboundPayloadProcessingLogic {
      * @throws SiteWhereException
      */
     public void process(GInboundEventPayload payload) throws SiteWhereException {
+	// Skip lookup for tokens recently found to be unregistered. Replayed events
+	// always look up the device since it was registered in the meantime.
+	if ((!payload.getReprocessed())
+		&& (getUnregisteredDeviceCache().isUnregistered(payload.getDeviceToken()))) {
+	    handleUnregisteredDevice(payload);
+	    return;
+	}
+
 	// Verify that device is registered.
 	IDevice device = getDeviceManagement().getDeviceByToken(payload.getDeviceToken());
 	if (device == null) {
+	    getUnregisteredDeviceCache().markUnregistered(payload.getDeviceToken());
 	    handleUnregisteredDevice(payload);
 	    return;
 	}
+	if (payload.getReprocessed()) {
+	    getUnregisteredDeviceCache().invalidate(payload.getDeviceToken());
+	}
 
 	// Verify that device is assigned.
 	if (device.getDeviceAssignmentId() == null) {
@@ -136,9 +151,10 @@ public class InboundPayloadProcessingLogic {
      * @throws SiteWhereException
      */
     protected void handleUnregisteredDevice(GInboundEventPayload payload) throws SiteWhereException {
-	getLogger().info("Device '" + payload.getDeviceToken()
+	getLogger().debug("Device '" + payload.getDeviceToken()
 		+ "' is not registered. Forwarding to unregistered devices topic.");
-	byte[] marshaled = KafkaModelMarshaler.buildInboundEventPayloadMessage(payload);
+	byte[] marshaled = KafkaModelMarshaler
+		.buildInboundEventPayloadMessage(payload.toBuilder().setReprocessed(false).build());
 	getTenantEngine().getUnregisteredDeviceEventsProducer().send(payload.getDeviceToken(), marshaled);
 	return;
     }
@@ -189,4 +205,12 @@ public class InboundPayloadProcessingLogic {
     public void setTenantEngine(IInboundProcessingTenantEngine tenantEngine) {
 	this.tenantEngine = tenantEngine;
     }
+
+    public UnregisteredDeviceCache getUnregisteredDeviceCache() {
+	return unregisteredDeviceCache;
+    }
+
+    public void setUnregisteredDeviceCache(UnregisteredDeviceCache unregisteredDeviceCache) {
+	this.unregisteredDeviceCache = unregisteredDeviceCache;
+    }
 }
\ No newline at end of file
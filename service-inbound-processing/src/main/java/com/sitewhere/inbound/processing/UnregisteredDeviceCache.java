@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.inbound.processing;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers device tokens that were recently found to be unregistered so that
+ * repeated events from unknown devices do not result in a device management
+ * lookup for every event. Entries expire after a short time so that newly
+ * registered devices are picked up without explicit invalidation.
+ *
+ * @author Derek
+ */
+public class UnregisteredDeviceCache {
+
+    /** Default time a token is remembered as unregistered */
+    public static final long DEFAULT_TTL_MS = 5 * 1000;
+
+    /** Default maximum number of tokens remembered */
+    public static final int DEFAULT_MAX_ENTRIES = 100000;
+
+    /** Expiration times by device token */
+    private Map<String, Long> expiresByToken = new ConcurrentHashMap<String, Long>();
+
+    /** Time a token is remembered as unregistered */
+    private long ttlMs;
+
+    /** Maximum number of tokens remembered */
+    private int maxEntries;
+
+    /** Number of lookups avoided */
+    private AtomicLong hitCount = new AtomicLong();
+
+    public UnregisteredDeviceCache() {
+	this(DEFAULT_TTL_MS, DEFAULT_MAX_ENTRIES);
+    }
+
+    public UnregisteredDeviceCache(long ttlMs, int maxEntries) {
+	this.ttlMs = ttlMs;
+	this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Indicates whether a device token was recently found to be unregistered.
+     *
+     * @param deviceToken
+     * @return
+     */
+    public boolean isUnregistered(String deviceToken) {
+	Long expires = expiresByToken.get(deviceToken);
+	if (expires == null) {
+	    return false;
+	}
+	if (expires <= System.currentTimeMillis()) {
+	    expiresByToken.remove(deviceToken, expires);
+	    return false;
+	}
+	hitCount.incrementAndGet();
+	return true;
+    }
+
+    /**
+     * Remember that a device token is unregistered.
+     *
+     * @param deviceToken
+     */
+    public void markUnregistered(String deviceToken) {
+	long now = System.currentTimeMillis();
+	if (expiresByToken.size() >= getMaxEntries()) {
+	    expiresByToken.values().removeIf(expires -> expires <= now);
+	    if (expiresByToken.size() >= getMaxEntries()) {
+		return;
+	    }
+	}
+	expiresByToken.put(deviceToken, now + getTtlMs());
+    }
+
+    /**
+     * Forget a device token, typically because the device is now registered.
+     *
+     * @param deviceToken
+     */
+    public void invalidate(String deviceToken) {
+	expiresByToken.remove(deviceToken);
+    }
+
+    public int size() {
+	return expiresByToken.size();
+    }
+
+    public long getHitCount() {
+	return hitCount.get();
+    }
+
+    public long getTtlMs() {
+	return ttlMs;
+    }
+
+    public void setTtlMs(long ttlMs) {
+	this.ttlMs = ttlMs;
+    }
+
+    public int getMaxEntries() {
+	return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+	this.maxEntries = maxEntries;
+    }
+}
\ No newline at end of file
@@ -119,6 +119,14 @@ public class LabelGenerationModelProvider extends ConfigurationModelProvider {
 	builder.attribute((new AttributeNode.Builder("Foreground color", "foregroundColor", AttributeType.String)
 		.description("Foreground color of QR-Code image in AARRGGBB format.").defaultValue("FF333333")
 		.build()));
+	builder.attribute((new AttributeNode.Builder("In-memory cache size", "cacheSize", AttributeType.Integer)
+		.description("Number of rendered images kept in memory.").defaultValue("1000").build()));
+	builder.attribute((new AttributeNode.Builder("Disk cache directory", "diskCacheDirectory",
+		AttributeType.String).description("Directory used to cache rendered images on disk. "
+			+ "Disk caching is disabled if not set.").build()));
+	builder.attribute((new AttributeNode.Builder("Disk cache size (bytes)", "diskCacheMaxBytes",
+		AttributeType.Integer).description("Maximum size of the on-disk image cache in bytes.")
+			.defaultValue("104857600").build()));
 	return builder.build();
     }
 }
\ No newline at end of file
@@ -7,6 +7,12 @@
  */
 package com.sitewhere.labels.grpc;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
 import com.sitewhere.grpc.client.GrpcUtils;
 import com.sitewhere.grpc.model.converter.CommonModelConverter;
 import com.sitewhere.grpc.model.label.LabelGenerationModelConverter;
@@ -24,6 +30,8 @@ import com.sitewhere.grpc.service.GGetDeviceGroupLabelRequest;
 import com.sitewhere.grpc.service.GGetDeviceGroupLabelResponse;
 import com.sitewhere.grpc.service.GGetDeviceLabelRequest;
 import com.sitewhere.grpc.service.GGetDeviceLabelResponse;
+import com.sitewhere.grpc.service.GGetDeviceLabelSheetRequest;
+import com.sitewhere.grpc.service.GGetDeviceLabelSheetResponse;
 import com.sitewhere.grpc.service.GGetDeviceTypeLabelRequest;
 import com.sitewhere.grpc.service.GGetDeviceTypeLabelResponse;
 import com.sitewhere.grpc.service.LabelGenerationGrpc;
@@ -173,6 +181,48 @@ public class LabelGenerationImpl extends LabelGenerationGrpc.LabelGenerationImpl
 	}
     }
 
+    /*
+     * @see com.sitewhere.grpc.service.LabelGenerationGrpc.LabelGenerationImplBase#
+     * getDeviceLabelSheet(com.sitewhere.grpc.service.GGetDeviceLabelSheetRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void getDeviceLabelSheet(GGetDeviceLabelSheetRequest request,
+	    StreamObserver<GGetDeviceLabelSheetResponse> responseObserver) {
+	try {
+	    GrpcUtils.logServerMethodEntry(LabelGenerationGrpc.METHOD_GET_DEVICE_LABEL_SHEET);
+
+	    ILabelGenerator generator = getLabelGeneratorById(request.getGeneratorId());
+	    List<UUID> deviceIds = CommonModelConverter.asApiUuids(request.getDeviceIdsList());
+	    Map<UUID, IDevice> devicesById = new HashMap<>();
+	    for (IDevice device : getDeviceManagement().getDevices(deviceIds)) {
+		devicesById.put(device.getId(), device);
+	    }
+
+	    // Keep labels in the order the devices were requested.
+	    List<IDevice> devices = new ArrayList<>();
+	    for (UUID deviceId : deviceIds) {
+		IDevice device = devicesById.get(deviceId);
+		if (device == null) {
+		    throw new SiteWhereSystemException(ErrorCode.InvalidDeviceId, ErrorLevel.ERROR);
+		}
+		devices.add(device);
+	    }
+	    byte[] content = getLabelGenerationTenantEngine().getLabelGeneratorManager().getDeviceLabelSheet(generator,
+		    devices, getEntityUriProvider(), request.getColumns());
+	    Label label = new Label();
+	    label.setContent(content);
+
+	    GGetDeviceLabelSheetResponse.Builder response = GGetDeviceLabelSheetResponse.newBuilder();
+	    response.setLabel(LabelGenerationModelConverter.asGrpcLabel(label));
+	    responseObserver.onNext(response.build());
+	    responseObserver.onCompleted();
+	} catch (Throwable e) {
+	    GrpcUtils.handleServerMethodException(LabelGenerationGrpc.METHOD_GET_DEVICE_LABEL_SHEET, e,
+		    responseObserver);
+	}
+    }
+
     /*
      * @see com.sitewhere.grpc.service.LabelGenerationGrpc.LabelGenerationImplBase#
      * getDeviceGroupLabel(com.sitewhere.grpc.service.GGetDeviceGroupLabelRequest,
@@ -26,6 +26,8 @@ import com.sitewhere.grpc.service.GGetDeviceGroupLabelRequest;
 import com.sitewhere.grpc.service.GGetDeviceGroupLabelResponse;
 import com.sitewhere.grpc.service.GGetDeviceLabelRequest;
 import com.sitewhere.grpc.service.GGetDeviceLabelResponse;
+import com.sitewhere.grpc.service.GGetDeviceLabelSheetRequest;
+import com.sitewhere.grpc.service.GGetDeviceLabelSheetResponse;
 import com.sitewhere.grpc.service.GGetDeviceTypeLabelRequest;
 import com.sitewhere.grpc.service.GGetDeviceTypeLabelResponse;
 import com.sitewhere.grpc.service.LabelGenerationGrpc;
@@ -124,6 +126,17 @@ public class LabelGenerationRouter extends LabelGenerationGrpc.LabelGenerationIm
 	getTenantImplementation().getDeviceLabel(request, responseObserver);
     }
 
+    /*
+     * @see com.sitewhere.grpc.service.LabelGenerationGrpc.LabelGenerationImplBase#
+     * getDeviceLabelSheet(com.sitewhere.grpc.service.GGetDeviceLabelSheetRequest,
+     * io.grpc.stub.StreamObserver)
+     */
+    @Override
+    public void getDeviceLabelSheet(GGetDeviceLabelSheetRequest request,
+	    StreamObserver<GGetDeviceLabelSheetResponse> responseObserver) {
+	getTenantImplementation().getDeviceLabelSheet(request, responseObserver);
+    }
+
     /*
      * @see com.sitewhere.grpc.service.LabelGenerationGrpc.LabelGenerationImplBase#
      * getDeviceGroupLabel(com.sitewhere.grpc.service.GGetDeviceGroupLabelRequest,
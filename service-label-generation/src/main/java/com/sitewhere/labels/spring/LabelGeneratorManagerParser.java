@@ -104,6 +104,21 @@ public class LabelGeneratorManagerParser extends AbstractBeanDefinitionParser {
 	    generator.addPropertyValue("foregroundColor", foregroundColor.getValue());
 	}
 
+	Attr cacheSize = element.getAttributeNode("cacheSize");
+	if (cacheSize != null) {
+	    generator.addPropertyValue("cacheSize", cacheSize.getValue());
+	}
+
+	Attr diskCacheDirectory = element.getAttributeNode("diskCacheDirectory");
+	if (diskCacheDirectory != null) {
+	    generator.addPropertyValue("diskCacheDirectory", diskCacheDirectory.getValue());
+	}
+
+	Attr diskCacheMaxBytes = element.getAttributeNode("diskCacheMaxBytes");
+	if (diskCacheMaxBytes != null) {
+	    generator.addPropertyValue("diskCacheMaxBytes", diskCacheMaxBytes.getValue());
+	}
+
 	return generator.getBeanDefinition();
     }
 }
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.labels.symbology;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Two-tier cache for rendered label images. Recently used images are held in an
+ * on-heap LRU map and all images are optionally written to a directory whose
+ * total size is capped. Entries are addressed by a digest of the content that
+ * determines the image, so a cached entry never needs to be invalidated.
+ *
+ * @author Derek
+ */
+public class LabelCache {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(LabelCache.class);
+
+    /** Extension used for files in disk tier */
+    private static final String FILE_EXTENSION = ".png";
+
+    /** On-heap tier */
+    private Map<String, byte[]> memory;
+
+    /** Disk tier directory (null if disabled) */
+    private File directory;
+
+    /** Maximum number of bytes stored in disk tier */
+    private long maxDiskBytes;
+
+    /** Sizes of files in disk tier in least-recently-used order */
+    private LinkedHashMap<String, Long> diskEntries = new LinkedHashMap<String, Long>(16, 0.75f, true);
+
+    /** Total bytes currently stored in disk tier */
+    private long diskBytes = 0;
+
+    public LabelCache(final int maxMemoryEntries, File directory, long maxDiskBytes) {
+	this.memory = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+
+	    /** Serial version UID */
+	    private static final long serialVersionUID = -4146385062283361544L;
+
+	    /*
+	     * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+	     */
+	    @Override
+	    protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+		return size() > maxMemoryEntries;
+	    }
+	};
+	this.directory = directory;
+	this.maxDiskBytes = maxDiskBytes;
+	if (directory != null) {
+	    loadDiskEntries();
+	}
+    }
+
+    /**
+     * Compute the cache key for the given rendering inputs.
+     *
+     * @param parts
+     * @return
+     */
+    public static String key(Object... parts) {
+	try {
+	    MessageDigest digest = MessageDigest.getInstance("SHA-256");
+	    for (Object part : parts) {
+		digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+	    }
+	    StringBuilder hex = new StringBuilder();
+	    for (byte b : digest.digest()) {
+		hex.append(String.format("%02x", b));
+	    }
+	    return hex.toString();
+	} catch (NoSuchAlgorithmException e) {
+	    throw new RuntimeException("SHA-256 digest not available.", e);
+	}
+    }
+
+    /**
+     * Get a cached image or null if not found in either tier.
+     *
+     * @param key
+     * @return
+     */
+    public byte[] get(String key) {
+	synchronized (memory) {
+	    byte[] content = memory.get(key);
+	    if (content != null) {
+		return content;
+	    }
+	}
+	byte[] content = readFromDisk(key);
+	if (content != null) {
+	    synchronized (memory) {
+		memory.put(key, content);
+	    }
+	}
+	return content;
+    }
+
+    /**
+     * Add an image to the cache.
+     *
+     * @param key
+     * @param content
+     */
+    public void put(String key, byte[] content) {
+	synchronized (memory) {
+	    memory.put(key, content);
+	}
+	writeToDisk(key, content);
+    }
+
+    /**
+     * Index files left in the disk tier by a previous run, oldest first.
+     */
+    protected void loadDiskEntries() {
+	if (!directory.exists() && !directory.mkdirs()) {
+	    LOGGER.warn("Unable to create label cache directory: " + directory.getAbsolutePath());
+	    directory = null;
+	    return;
+	}
+	File[] files = directory.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+	if (files == null) {
+	    return;
+	}
+	Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+	synchronized (diskEntries) {
+	    for (File file : files) {
+		String name = file.getName();
+		diskEntries.put(name.substring(0, name.length() - FILE_EXTENSION.length()), file.length());
+		diskBytes += file.length();
+	    }
+	    evictFromDisk();
+	}
+    }
+
+    /**
+     * Read an image from the disk tier.
+     *
+     * @param key
+     * @return
+     */
+    protected byte[] readFromDisk(String key) {
+	if (directory == null) {
+	    return null;
+	}
+	synchronized (diskEntries) {
+	    if (diskEntries.get(key) == null) {
+		return null;
+	    }
+	}
+	try {
+	    return Files.readAllBytes(getFile(key).toPath());
+	} catch (IOException e) {
+	    LOGGER.warn("Unable to read cached label.", e);
+	    synchronized (diskEntries) {
+		Long size = diskEntries.remove(key);
+		if (size != null) {
+		    diskBytes -= size;
+		}
+	    }
+	    return null;
+	}
+    }
+
+    /**
+     * Write an image to the disk tier, evicting the least recently used files if
+     * the size cap is exceeded.
+     *
+     * @param key
+     * @param content
+     */
+    protected void writeToDisk(String key, byte[] content) {
+	if ((directory == null) || (content.length > maxDiskBytes)) {
+	    return;
+	}
+	synchronized (diskEntries) {
+	    if (diskEntries.containsKey(key)) {
+		return;
+	    }
+	}
+	try {
+	    File temp = File.createTempFile(key, ".tmp", directory);
+	    Files.write(temp.toPath(), content);
+	    Files.move(temp.toPath(), getFile(key).toPath(), StandardCopyOption.REPLACE_EXISTING,
+		    StandardCopyOption.ATOMIC_MOVE);
+	} catch (IOException e) {
+	    LOGGER.warn("Unable to write cached label.", e);
+	    return;
+	}
+	synchronized (diskEntries) {
+	    if (diskEntries.put(key, (long) content.length) == null) {
+		diskBytes += content.length;
+	    }
+	    evictFromDisk();
+	}
+    }
+
+    /**
+     * Delete least recently used files until the disk tier fits in its cap. Caller
+     * must hold the lock on disk entries.
+     */
+    protected void evictFromDisk() {
+	Iterator<Map.Entry<String, Long>> it = diskEntries.entrySet().iterator();
+	while ((diskBytes > maxDiskBytes) && it.hasNext()) {
+	    Map.Entry<String, Long> eldest = it.next();
+	    it.remove();
+	    diskBytes -= eldest.getValue();
+	    if (!getFile(eldest.getKey()).delete()) {
+		LOGGER.warn("Unable to delete cached label: " + eldest.getKey());
+	    }
+	}
+    }
+
+    /**
+     * Get file used to store an image in the disk tier.
+     *
+     * @param key
+     * @return
+     */
+    protected File getFile(String key) {
+	return new File(directory, key + FILE_EXTENSION);
+    }
+}
\ No newline at end of file
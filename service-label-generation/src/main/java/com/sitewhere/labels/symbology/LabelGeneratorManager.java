@@ -7,16 +7,32 @@
  */
 package com.sitewhere.labels.symbology;
 
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.sitewhere.server.lifecycle.TenantEngineLifecycleComponent;
 import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.IDevice;
+import com.sitewhere.spi.label.IEntityUriProvider;
 import com.sitewhere.spi.label.ILabelGenerator;
 import com.sitewhere.spi.label.ILabelGeneratorManager;
 import com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor;
@@ -32,12 +48,21 @@ public class LabelGeneratorManager extends TenantEngineLifecycleComponent implem
     /** Static logger instance */
     private static Log LOGGER = LogFactory.getLog(LabelGeneratorManager.class);
 
+    /** Maximum number of labels rendered into a single sheet */
+    private static final int MAX_SHEET_LABELS = 1000;
+
     /** List of label generators */
     private List<ILabelGenerator> labelGenerators = new ArrayList<ILabelGenerator>();
 
     /** Map of label generators by unique id */
     private Map<String, ILabelGenerator> generatorsById = new HashMap<String, ILabelGenerator>();
 
+    /** Number of threads used to render label sheets */
+    private int renderThreadCount = Runtime.getRuntime().availableProcessors();
+
+    /** Pool used to render labels in parallel */
+    private ExecutorService renderPool;
+
     public LabelGeneratorManager() {
 	super(LifecycleComponentType.LabelGeneratorManager);
     }
@@ -50,6 +75,7 @@ public class LabelGeneratorManager extends TenantEngineLifecycleComponent implem
     @Override
     public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	getGeneratorsById().clear();
+	renderPool = Executors.newFixedThreadPool(getRenderThreadCount(), new RenderThreadFactory());
 
 	// Start configured generators.
 	for (ILabelGenerator generator : getLabelGenerators()) {
@@ -68,6 +94,9 @@ public class LabelGeneratorManager extends TenantEngineLifecycleComponent implem
 	for (ILabelGenerator generator : getLabelGenerators()) {
 	    generator.lifecycleStop(monitor);
 	}
+	if (renderPool != null) {
+	    renderPool.shutdownNow();
+	}
     }
 
     /*
@@ -92,6 +121,77 @@ public class LabelGeneratorManager extends TenantEngineLifecycleComponent implem
 	return getGeneratorsById().get(id);
     }
 
+    /*
+     * @see
+     * com.sitewhere.spi.label.ILabelGeneratorManager#getDeviceLabelSheet(com.
+     * sitewhere.spi.label.ILabelGenerator, java.util.List,
+     * com.sitewhere.spi.label.IEntityUriProvider, int)
+     */
+    @Override
+    public byte[] getDeviceLabelSheet(ILabelGenerator generator, List<IDevice> devices, IEntityUriProvider provider,
+	    int columns) throws SiteWhereException {
+	if (devices.size() > MAX_SHEET_LABELS) {
+	    throw new SiteWhereException("Label sheet is limited to " + MAX_SHEET_LABELS + " labels.");
+	}
+	List<Future<byte[]>> pending = new ArrayList<>();
+	for (IDevice device : devices) {
+	    pending.add(renderPool.submit(() -> generator.getDeviceLabel(device, provider)));
+	}
+	List<BufferedImage> images = new ArrayList<>();
+	try {
+	    for (Future<byte[]> future : pending) {
+		images.add(ImageIO.read(new ByteArrayInputStream(future.get())));
+	    }
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new SiteWhereException("Interrupted while rendering label sheet.", e);
+	} catch (ExecutionException | IOException e) {
+	    throw new SiteWhereException("Unable to render label sheet.", e);
+	} finally {
+	    for (Future<byte[]> future : pending) {
+		future.cancel(true);
+	    }
+	}
+	return composeSheet(images, columns);
+    }
+
+    /**
+     * Arrange rendered labels in a grid and encode the result as a PNG.
+     * 
+     * @param images
+     * @param columns
+     * @return
+     * @throws SiteWhereException
+     */
+    protected byte[] composeSheet(List<BufferedImage> images, int columns) throws SiteWhereException {
+	int cellWidth = 1;
+	int cellHeight = 1;
+	for (BufferedImage image : images) {
+	    cellWidth = Math.max(cellWidth, image.getWidth());
+	    cellHeight = Math.max(cellHeight, image.getHeight());
+	}
+	int cols = Math.max(1, Math.min(columns, images.size()));
+	int rows = Math.max(1, (images.size() + cols - 1) / cols);
+	BufferedImage sheet = new BufferedImage(cols * cellWidth, rows * cellHeight, BufferedImage.TYPE_INT_ARGB);
+	Graphics2D graphics = sheet.createGraphics();
+	try {
+	    graphics.setColor(Color.WHITE);
+	    graphics.fillRect(0, 0, sheet.getWidth(), sheet.getHeight());
+	    for (int i = 0; i < images.size(); i++) {
+		graphics.drawImage(images.get(i), (i % cols) * cellWidth, (i / cols) * cellHeight, null);
+	    }
+	} finally {
+	    graphics.dispose();
+	}
+	try {
+	    ByteArrayOutputStream output = new ByteArrayOutputStream();
+	    ImageIO.write(sheet, "png", output);
+	    return output.toByteArray();
+	} catch (IOException e) {
+	    throw new SiteWhereException("Unable to encode label sheet.", e);
+	}
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -109,4 +209,23 @@ public class LabelGeneratorManager extends TenantEngineLifecycleComponent implem
     public void setGeneratorsById(Map<String, ILabelGenerator> generatorsById) {
 	this.generatorsById = generatorsById;
     }
+
+    public int getRenderThreadCount() {
+	return renderThreadCount;
+    }
+
+    public void setRenderThreadCount(int renderThreadCount) {
+	this.renderThreadCount = renderThreadCount;
+    }
+
+    /** Used for naming label rendering threads */
+    private class RenderThreadFactory implements ThreadFactory {
+
+	/** Counts threads */
+	private AtomicInteger counter = new AtomicInteger();
+
+	public Thread newThread(Runnable r) {
+	    return new Thread(r, "Label Renderer " + counter.incrementAndGet());
+	}
+    }
 }
\ No newline at end of file
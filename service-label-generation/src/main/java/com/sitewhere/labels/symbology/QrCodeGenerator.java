@@ -7,6 +7,7 @@
  */
 package com.sitewhere.labels.symbology;
 
+import java.io.File;
 import java.net.URI;
 
 import org.apache.commons.logging.Log;
@@ -24,6 +25,7 @@ import com.sitewhere.spi.device.IDeviceType;
 import com.sitewhere.spi.device.group.IDeviceGroup;
 import com.sitewhere.spi.label.IEntityUriProvider;
 import com.sitewhere.spi.label.ILabelGenerator;
+import com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor;
 import com.sitewhere.spi.server.lifecycle.LifecycleComponentType;
 
 import net.glxn.qrgen.core.image.ImageType;
@@ -58,10 +60,54 @@ public class QrCodeGenerator extends TenantEngineLifecycleComponent implements I
     /** Background color */
     private int backgroundColor = 0xffffffff;
 
+    /** Number of rendered images held in memory */
+    private int cacheSize = 1000;
+
+    /** Directory for on-disk image cache (disabled if not set) */
+    private String diskCacheDirectory;
+
+    /** Maximum size of on-disk image cache in bytes */
+    private long diskCacheMaxBytes = 100 * 1024 * 1024;
+
+    /** Cache of rendered images */
+    private LabelCache labelCache;
+
     public QrCodeGenerator() {
 	super(LifecycleComponentType.LabelGenerator);
     }
 
+    /*
+     * @see
+     * com.sitewhere.server.lifecycle.LifecycleComponent#start(com.sitewhere.spi.
+     * server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	File directory = (getDiskCacheDirectory() != null) ? new File(getDiskCacheDirectory()) : null;
+	this.labelCache = new LabelCache(getCacheSize(), directory, getDiskCacheMaxBytes());
+    }
+
+    /**
+     * Render the QR-Code image for a URI. Images only depend on the URI and the
+     * rendering settings, so results are served from the cache when possible.
+     * 
+     * @param uri
+     * @return
+     */
+    protected byte[] render(URI uri) {
+	String key = LabelCache.key(getId(), getWidth(), getHeight(), getForegroundColor(), getBackgroundColor(),
+		uri);
+	byte[] content = (labelCache != null) ? labelCache.get(key) : null;
+	if (content == null) {
+	    content = QRCode.from(uri.toString()).withSize(getWidth(), getHeight())
+		    .withColor(getForegroundColor(), getBackgroundColor()).to(ImageType.PNG).stream().toByteArray();
+	    if (labelCache != null) {
+		labelCache.put(key, content);
+	    }
+	}
+	return content;
+    }
+
     /*
      * @see
      * com.sitewhere.spi.label.ILabelGenerator#getAreaTypeLabel(com.sitewhere.spi.
@@ -70,8 +116,7 @@ public class QrCodeGenerator extends TenantEngineLifecycleComponent implements I
     @Override
     public byte[] getAreaTypeLabel(IAreaType areaType, IEntityUriProvider provider) throws SiteWhereException {
 	URI uri = provider.getAreaTypeIdentifier(areaType);
-	return QRCode.from(uri.toString()).withSize(getWidth(), getHeight())
-		.withColor(getForegroundColor(), getBackgroundColor()).to(ImageType.PNG).stream().toByteArray();
+	return render(uri);
     }
 
     /*
@@ -82,8 +127,7 @@ public class QrCodeGenerator extends TenantEngineLifecycleComponent implements I
     @Override
     public byte[] getAreaLabel(IArea area, IEntityUriProvider provider) throws SiteWhereException {
 	URI uri = provider.getAreaIdentifier(area);
-	return QRCode.from(uri.toString()).withSize(getWidth(), getHeight())
-		.withColor(getForegroundColor(), getBackgroundColor()).to(ImageType.PNG).stream().toByteArray();
+	return render(uri);
     }
 
     /*
@@ -94,8 +138,7 @@ public class QrCodeGenerator extends TenantEngineLifecycleComponent implements I
     @Override
     public byte[] getDeviceTypeLabel(IDeviceType deviceType, IEntityUriProvider provider) throws SiteWhereException {
 	URI uri = provider.getDeviceTypeIdentifier(deviceType);
-	return QRCode.from(uri.toString()).withSize(getWidth(), getHeight())
-		.withColor(getForegroundColor(), getBackgroundColor()).to(ImageType.PNG).stream().toByteArray();
+	return render(uri);
     }
 
     /*
@@ -106,8 +149,7 @@ public class QrCodeGenerator extends TenantEngineLifecycleComponent implements I
     @Override
     public byte[] getDeviceLabel(IDevice device, IEntityUriProvider provider) throws SiteWhereException {
 	URI uri = provider.getDeviceIdentifier(device);
-	return QRCode.from(uri.toString()).withSize(getWidth(), getHeight())
-		.withColor(getForegroundColor(), getBackgroundColor()).to(ImageType.PNG).stream().toByteArray();
+	return render(uri);
     }
 
     /*
@@ -118,8 +160,7 @@ public class QrCodeGenerator extends TenantEngineLifecycleComponent implements I
     @Override
     public byte[] getDeviceGroupLabel(IDeviceGroup group, IEntityUriProvider provider) throws SiteWhereException {
 	URI uri = provider.getDeviceGroupIdentifier(group);
-	return QRCode.from(uri.toString()).withSize(getWidth(), getHeight())
-		.withColor(getForegroundColor(), getBackgroundColor()).to(ImageType.PNG).stream().toByteArray();
+	return render(uri);
     }
 
     /*
@@ -131,8 +172,7 @@ public class QrCodeGenerator extends TenantEngineLifecycleComponent implements I
     public byte[] getDeviceAssignmentLabel(IDeviceAssignment assignment, IEntityUriProvider provider)
 	    throws SiteWhereException {
 	URI uri = provider.getDeviceAssignmentIdentifier(assignment);
-	return QRCode.from(uri.toString()).withSize(getWidth(), getHeight())
-		.withColor(getForegroundColor(), getBackgroundColor()).to(ImageType.PNG).stream().toByteArray();
+	return render(uri);
     }
 
     /*
@@ -143,8 +183,7 @@ public class QrCodeGenerator extends TenantEngineLifecycleComponent implements I
     @Override
     public byte[] getAssetTypeLabel(IAssetType assetType, IEntityUriProvider provider) throws SiteWhereException {
 	URI uri = provider.getAssetTypeIdentifier(assetType);
-	return QRCode.from(uri.toString()).withSize(getWidth(), getHeight())
-		.withColor(getForegroundColor(), getBackgroundColor()).to(ImageType.PNG).stream().toByteArray();
+	return render(uri);
     }
 
     /*
@@ -155,8 +194,7 @@ public class QrCodeGenerator extends TenantEngineLifecycleComponent implements I
     @Override
     public byte[] getAssetLabel(IAsset asset, IEntityUriProvider provider) throws SiteWhereException {
 	URI uri = provider.getAssetIdentifier(asset);
-	return QRCode.from(uri.toString()).withSize(getWidth(), getHeight())
-		.withColor(getForegroundColor(), getBackgroundColor()).to(ImageType.PNG).stream().toByteArray();
+	return render(uri);
     }
 
     /*
@@ -211,6 +249,30 @@ public class QrCodeGenerator extends TenantEngineLifecycleComponent implements I
 	this.height = height;
     }
 
+    public int getCacheSize() {
+	return cacheSize;
+    }
+
+    public void setCacheSize(int cacheSize) {
+	this.cacheSize = cacheSize;
+    }
+
+    public String getDiskCacheDirectory() {
+	return diskCacheDirectory;
+    }
+
+    public void setDiskCacheDirectory(String diskCacheDirectory) {
+	this.diskCacheDirectory = diskCacheDirectory;
+    }
+
+    public long getDiskCacheMaxBytes() {
+	return diskCacheMaxBytes;
+    }
+
+    public void setDiskCacheMaxBytes(long diskCacheMaxBytes) {
+	this.diskCacheMaxBytes = diskCacheMaxBytes;
+    }
+
     public int getForegroundColor() {
 	return foregroundColor;
     }
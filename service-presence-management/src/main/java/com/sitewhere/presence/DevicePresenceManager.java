@@ -7,30 +7,63 @@
  */
 package com.sitewhere.presence;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.joda.time.Period;
 import org.joda.time.format.ISOPeriodFormat;
 import org.joda.time.format.PeriodFormatter;
 import org.joda.time.format.PeriodFormatterBuilder;
 
+import com.sitewhere.microservice.security.SystemUserRunnable;
+import com.sitewhere.presence.kafka.PresenceInteractionConsumer;
 import com.sitewhere.presence.spi.IDevicePresenceManager;
 import com.sitewhere.presence.spi.IPresenceNotificationStrategy;
-import com.sitewhere.rest.model.search.area.AreaSearchCriteria;
+import com.sitewhere.presence.spi.microservice.IPresenceManagementMicroservice;
+import com.sitewhere.presence.wheel.HierarchicalTimingWheel;
+import com.sitewhere.presence.wheel.PresenceSnapshotFile;
+import com.sitewhere.rest.model.device.event.request.DeviceStateChangeCreateRequest;
 import com.sitewhere.server.lifecycle.TenantEngineLifecycleComponent;
 import com.sitewhere.spi.SiteWhereException;
-import com.sitewhere.spi.area.IArea;
+import com.sitewhere.spi.device.DeviceAssignmentStatus;
+import com.sitewhere.spi.device.IDeviceAssignment;
 import com.sitewhere.spi.device.IDeviceManagement;
+import com.sitewhere.spi.device.event.IDeviceEventManagement;
+import com.sitewhere.spi.device.event.IDeviceStateChange;
+import com.sitewhere.spi.device.event.state.PresenceState;
+import com.sitewhere.spi.device.event.state.StateChangeCategory;
+import com.sitewhere.spi.device.event.state.StateChangeType;
 import com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor;
 import com.sitewhere.spi.server.lifecycle.LifecycleComponentType;
-import com.sitewhere.spi.tenant.ITenant;
 
 /**
- * Monitors assignment state to detect device presence information.
+ * Monitors assignment state to detect device presence information. Each
+ * assignment has a deadline in a {@link HierarchicalTimingWheel} that is pushed
+ * back whenever an event arrives for the assignment. The wheel is advanced
+ * once per check interval and only assignments whose deadline has passed are
+ * loaded and sent a presence state change. The wheel is saved to a snapshot
+ * periodically and on shutdown so deadlines survive a restart. Consumer offsets
+ * are only committed once the interactions before them are in a saved snapshot.
+ * 
+ * There is one wheel and one snapshot for each partition of the interactions
+ * topic assigned to this instance. Wheels are loaded and saved as partitions
+ * are assigned and revoked, so each assignment is only checked by the replica
+ * that consumes its events. A newly loaded partition is not checked until the
+ * consumer has caught up with the records that existed when it was assigned.
  * 
  * @author Derek
  */
@@ -42,9 +75,18 @@ public class DevicePresenceManager extends TenantEngineLifecycleComponent implem
     /** Default presence check interval (10 min) */
     private static final String DEFAULT_PRESENCE_CHECK_INTERVAL = "10m";
 
-    /** Default presence missing interval (1 hour) */
+    /** Default presence missing interval (8 hours) */
     private static final String DEFAULT_PRESENCE_MISSING_INTERVAL = "8h";
 
+    /** Default interval between snapshots */
+    private static final String DEFAULT_SNAPSHOT_INTERVAL = "5m";
+
+    /** Default folder for snapshot files */
+    private static final String DEFAULT_SNAPSHOT_FOLDER = "/var/lib/sitewhere/presence";
+
+    /** Default number of missing assignments handled per batch */
+    private static final int DEFAULT_NOTIFICATION_BATCH_SIZE = 500;
+
     /** Used to format durations for output */
     private static final PeriodFormatter PERIOD_FORMATTER = new PeriodFormatterBuilder().appendWeeks().appendSuffix("w")
 	    .appendSeparator(" ").appendDays().appendSuffix("d").appendSeparator(" ").appendHours().appendSuffix("h")
@@ -57,21 +99,51 @@ public class DevicePresenceManager extends TenantEngineLifecycleComponent implem
     /** Presence missing interval */
     private String presenceMissingInterval = DEFAULT_PRESENCE_MISSING_INTERVAL;
 
+    /** Interval between snapshots */
+    private String snapshotInterval = DEFAULT_SNAPSHOT_INTERVAL;
+
+    /** Folder that holds snapshot files */
+    private String snapshotFolder = DEFAULT_SNAPSHOT_FOLDER;
+
+    /** Number of missing assignments handled per batch */
+    private int notificationBatchSize = DEFAULT_NOTIFICATION_BATCH_SIZE;
+
     /**
      * Chooses how presence state is stored and how often notifications are sent
      */
     private IPresenceNotificationStrategy presenceNotificationStrategy = new PresenceNotificationStrategies.SendOnceNotificationStrategy();
 
-    /** Executor service for threading */
-    private ExecutorService executor;
+    /** Consumes enriched events to record interactions */
+    private PresenceInteractionConsumer interactionConsumer;
+
+    /** Deadlines for each assigned partition */
+    private Map<Integer, PartitionDeadlines> partitions = new ConcurrentHashMap<Integer, PartitionDeadlines>();
+
+    /** Presence check interval in milliseconds */
+    private long checkIntervalMs;
+
+    /** Presence missing interval in milliseconds */
+    private long missingIntervalMs;
 
-    /** Device management implementation */
-    private IDeviceManagement devices;
+    /** Executor for presence checks and snapshots */
+    private ScheduledExecutorService executor;
 
     public DevicePresenceManager() {
 	super(LifecycleComponentType.DevicePresenceManager);
     }
 
+    /*
+     * @see
+     * com.sitewhere.server.lifecycle.LifecycleComponent#initialize(com.sitewhere.
+     * spi.server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void initialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	this.interactionConsumer = new PresenceInteractionConsumer(getTenantEngine().getMicroservice(),
+		getTenantEngine(), this);
+	initializeNestedComponent(getInteractionConsumer(), monitor, true);
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -80,10 +152,24 @@ public class DevicePresenceManager extends TenantEngineLifecycleComponent implem
      */
     @Override
     public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
-	this.devices = getDeviceManagement(getTenantEngine().getTenant());
-
-	this.executor = Executors.newSingleThreadExecutor();
-	executor.execute(new PresenceChecker());
+	Period missingInterval = parsePeriod(getPresenceMissingInterval());
+	Period checkInterval = parsePeriod(getPresenceCheckInterval());
+	this.checkIntervalMs = checkInterval.toStandardSeconds().getSeconds() * 1000L;
+	long snapshotIntervalMs = parsePeriod(getSnapshotInterval()).toStandardSeconds().getSeconds() * 1000L;
+	this.missingIntervalMs = missingInterval.toStandardSeconds().getSeconds() * 1000L;
+
+	LOGGER.info("Presence manager checking every " + PERIOD_FORMATTER.print(checkInterval)
+		+ " for devices with last interaction date of more than " + PERIOD_FORMATTER.print(missingInterval)
+		+ ".");
+
+	// Deadlines are restored per partition as partitions are assigned.
+	startNestedComponent(getInteractionConsumer(), monitor, true);
+
+	this.executor = Executors.newSingleThreadScheduledExecutor(new PresenceThreadFactory());
+	executor.scheduleWithFixedDelay(new PresenceChecker(), checkIntervalMs, checkIntervalMs,
+		TimeUnit.MILLISECONDS);
+	executor.scheduleWithFixedDelay(new SnapshotWriter(), snapshotIntervalMs, snapshotIntervalMs,
+		TimeUnit.MILLISECONDS);
     }
 
     /*
@@ -95,8 +181,181 @@ public class DevicePresenceManager extends TenantEngineLifecycleComponent implem
      */
     @Override
     public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	stopNestedComponent(getInteractionConsumer(), monitor);
 	if (executor != null) {
-	    executor.shutdownNow();
+	    executor.shutdown();
+	    try {
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+	    } catch (InterruptedException e) {
+		LOGGER.warn("Presence checks did not stop within timeout period.");
+	    }
+	}
+	Map<TopicPartition, OffsetAndMetadata> offsets = getInteractionConsumer().getProcessedOffsets();
+	int written = 0;
+	for (PartitionDeadlines deadlines : partitions.values()) {
+	    OffsetAndMetadata processed = offsets.get(deadlines.getTopicPartition());
+	    written += deadlines.save((processed != null) ? processed.offset() : -1);
+	}
+	partitions.clear();
+	LOGGER.info("Saved presence deadlines for " + written + " assignments.");
+    }
+
+    /**
+     * Save a snapshot of each partition's timing wheel and allow the consumer to
+     * commit offsets for the interactions they contain. Offsets are captured
+     * before the wheels are copied so that every record before them is in the
+     * snapshot.
+     * 
+     * @return number of assignments written
+     * @throws SiteWhereException
+     */
+    protected int saveSnapshot() throws SiteWhereException {
+	Map<TopicPartition, OffsetAndMetadata> offsets = getInteractionConsumer().getProcessedOffsets();
+	int written = 0;
+	for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : offsets.entrySet()) {
+	    PartitionDeadlines deadlines = partitions.get(entry.getKey().partition());
+	    if (deadlines != null) {
+		written += deadlines.save(entry.getValue().offset());
+	    }
+	}
+	getInteractionConsumer().snapshotSaved(offsets);
+	return written;
+    }
+
+    /*
+     * @see com.sitewhere.presence.spi.IDevicePresenceManager#loadPartition(int,
+     * long)
+     */
+    @Override
+    public long loadPartition(int partition, long endOffset) throws SiteWhereException {
+	long now = System.currentTimeMillis();
+	PresenceSnapshotFile file = new PresenceSnapshotFile(
+		new File(getSnapshotFolder(), getTenantEngine().getTenant().getId() + "-" + partition + ".snapshot"));
+	HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(checkIntervalMs, missingIntervalMs, now);
+	long resume = -1;
+	try {
+	    int restored = file.read(wheel);
+	    if ((file.getOffset() >= 0) && (now - file.getSavedDate() < missingIntervalMs)) {
+		resume = file.getOffset();
+		LOGGER.info("Restored presence deadlines for " + restored + " assignments in partition " + partition
+			+ ".");
+	    } else if (file.getOffset() >= 0) {
+		LOGGER.info("Presence snapshot for partition " + partition + " is too old. Rebuilding deadlines.");
+		wheel = new HierarchicalTimingWheel(checkIntervalMs, missingIntervalMs, now);
+	    }
+	} catch (SiteWhereException e) {
+	    LOGGER.warn("Unable to restore presence snapshot for partition " + partition + ". Rebuilding deadlines.",
+		    e);
+	    wheel = new HierarchicalTimingWheel(checkIntervalMs, missingIntervalMs, now);
+	}
+	TopicPartition topicPartition = new TopicPartition(getMicroservice().getKafkaTopicNaming()
+		.getInboundEnrichedEventsTopic(getTenantEngine().getTenant()), partition);
+	partitions.put(partition, new PartitionDeadlines(topicPartition, wheel, file, resume, endOffset));
+	return resume;
+    }
+
+    /*
+     * @see com.sitewhere.presence.spi.IDevicePresenceManager#unloadPartition(int,
+     * long)
+     */
+    @Override
+    public void unloadPartition(int partition, long nextOffset) throws SiteWhereException {
+	PartitionDeadlines deadlines = partitions.remove(partition);
+	if (deadlines != null) {
+	    int written = deadlines.save(nextOffset);
+	    LOGGER.info("Saved presence deadlines for " + written + " assignments in revoked partition " + partition
+		    + ".");
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.presence.spi.IDevicePresenceManager#partitionProcessed(int,
+     * long)
+     */
+    @Override
+    public void partitionProcessed(int partition, long nextOffset) {
+	PartitionDeadlines deadlines = partitions.get(partition);
+	if ((deadlines != null) && (nextOffset >= deadlines.getCatchUpOffset())) {
+	    deadlines.setReady(true);
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.presence.spi.IDevicePresenceManager#recordInteraction(int,
+     * java.util.UUID, java.util.Date)
+     */
+    @Override
+    public void recordInteraction(int partition, UUID deviceAssignmentId, Date interactionDate)
+	    throws SiteWhereException {
+	PartitionDeadlines deadlines = partitions.get(partition);
+	if (deadlines != null) {
+	    deadlines.getWheel().extend(deviceAssignmentId, interactionDate.getTime() + missingIntervalMs);
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.presence.spi.IDevicePresenceManager#removeAssignment(int,
+     * java.util.UUID)
+     */
+    @Override
+    public void removeAssignment(int partition, UUID deviceAssignmentId) throws SiteWhereException {
+	PartitionDeadlines deadlines = partitions.get(partition);
+	if (deadlines != null) {
+	    deadlines.getWheel().cancel(deviceAssignmentId);
+	}
+    }
+
+    /**
+     * Send presence state changes for a batch of assignments whose deadline has
+     * passed. Assignments are loaded with a single call and the state changes are
+     * created with a single call.
+     * 
+     * @param assignmentIds
+     * @return number of events sent
+     * @throws SiteWhereException
+     */
+    protected int sendPresenceMissing(List<UUID> assignmentIds) throws SiteWhereException {
+	try {
+	    DeviceStateChangeCreateRequest create = new DeviceStateChangeCreateRequest(StateChangeCategory.Presence,
+		    StateChangeType.Presence_Updated, PresenceState.PRESENT.name(), PresenceState.NOT_PRESENT.name());
+	    create.setEventDate(new Date());
+	    create.setUpdateState(true);
+
+	    // Only send an event if the strategy permits it.
+	    List<IDeviceAssignment> missing = new ArrayList<IDeviceAssignment>();
+	    for (IDeviceAssignment assignment : getDeviceManagement().getDeviceAssignments(assignmentIds)) {
+		if (assignment.getStatus() == DeviceAssignmentStatus.Released) {
+		    continue;
+		}
+		if (getPresenceNotificationStrategy().shouldGenerateEvent(assignment, create)) {
+		    missing.add(assignment);
+		}
+	    }
+	    if (missing.isEmpty()) {
+		return 0;
+	    }
+	    List<IDeviceStateChange> sent = getDeviceEventManagement().addDeviceStateChanges(missing, create);
+	    return sent.size();
+	} catch (SiteWhereException e) {
+	    LOGGER.error("Unable to send presence updates for " + assignmentIds.size() + " assignments.", e);
+	    return 0;
+	}
+    }
+
+    /**
+     * Parse a duration in ISO8601 or "1h 10m 30s" format.
+     * 
+     * @param value
+     * @return
+     */
+    protected static Period parsePeriod(String value) {
+	try {
+	    return Period.parse(value, ISOPeriodFormat.standard());
+	} catch (IllegalArgumentException e) {
+	    return PERIOD_FORMATTER.parsePeriod(value);
 	}
     }
 
@@ -111,88 +370,146 @@ public class DevicePresenceManager extends TenantEngineLifecycleComponent implem
     }
 
     /**
-     * Thread that checks for device presence.
+     * Advances the timing wheel and sends presence updates for expired
+     * assignments in batches.
      * 
      * @author Derek
      */
-    private class PresenceChecker implements Runnable {
+    private class PresenceChecker extends SystemUserRunnable {
 
-	@Override
-	public void run() {
+	public PresenceChecker() {
+	    super(getTenantEngine().getMicroservice(), getTenantEngine().getTenant());
+	}
 
-	    Period missingInterval;
-	    try {
-		missingInterval = Period.parse(getPresenceMissingInterval(), ISOPeriodFormat.standard());
-	    } catch (IllegalArgumentException e) {
-		missingInterval = PERIOD_FORMATTER.parsePeriod(getPresenceMissingInterval());
+	/*
+	 * @see com.sitewhere.microservice.security.SystemUserRunnable#runAsSystemUser()
+	 */
+	@Override
+	public void runAsSystemUser() throws SiteWhereException {
+	    long now = System.currentTimeMillis();
+	    List<UUID> expired = new ArrayList<UUID>(getNotificationBatchSize());
+	    int missing = 0;
+	    int sent = 0;
+	    int tracked = 0;
+	    for (PartitionDeadlines deadlines : partitions.values()) {
+		if (!deadlines.isReady()) {
+		    continue;
+		}
+		while (deadlines.getWheel().advance(now, expired, getNotificationBatchSize()) > 0) {
+		    missing += expired.size();
+		    sent += sendPresenceMissing(expired);
+		    expired.clear();
+		}
+		tracked += deadlines.getWheel().size();
 	    }
-	    int missingIntervalSecs = missingInterval.toStandardSeconds().getSeconds();
+	    if (missing > 0) {
+		LOGGER.info("Presence check found " + missing + " missing assignments and sent " + sent
+			+ " presence updates. Tracking " + tracked + " assignments.");
+	    }
+	}
+    }
 
-	    Period checkInterval;
+    /**
+     * Saves a snapshot of the timing wheel.
+     * 
+     * @author Derek
+     */
+    private class SnapshotWriter implements Runnable {
+
+	@Override
+	public void run() {
 	    try {
-		checkInterval = Period.parse(getPresenceCheckInterval(), ISOPeriodFormat.standard());
-	    } catch (IllegalArgumentException e) {
-		checkInterval = PERIOD_FORMATTER.parsePeriod(getPresenceCheckInterval());
+		int written = saveSnapshot();
+		LOGGER.debug("Saved presence deadlines for " + written + " assignments.");
+	    } catch (Throwable e) {
+		LOGGER.error("Unable to save presence snapshot.", e);
 	    }
-	    int checkIntervalSecs = checkInterval.toStandardSeconds().getSeconds();
-
-	    LOGGER.info("Presence manager checking every " + PERIOD_FORMATTER.print(checkInterval) + " ("
-		    + checkIntervalSecs + " seconds) " + "for devices with last interaction date of more than "
-		    + PERIOD_FORMATTER.print(missingInterval) + " (" + missingIntervalSecs + " seconds) " + ".");
-
-	    while (true) {
-
-		try {
-		    // Loop through all sites and detect presence changes.
-		    List<IArea> areas = devices.listAreas(new AreaSearchCriteria(1, 0)).getResults();
-		    for (@SuppressWarnings("unused")
-		    IArea area : areas) {
-			// // Calculate time window for presence calculation.
-			// Date endDate = new Date(System.currentTimeMillis() -
-			// (missingIntervalSecs * 1000));
-			// DateRangeSearchCriteria criteria = new
-			// DateRangeSearchCriteria(1, 0, null, endDate);
-			// ISearchResults<IDeviceAssignment> missing = devices
-			// .getDeviceAssignmentsWithLastInteraction(site.getToken(),
-			// criteria);
-			// if (missing.getNumResults() > 0) {
-			// LOGGER.debug("Presence manager for '" +
-			// site.getName() + "' creating "
-			// + missing.getNumResults() + " events for non-present
-			// devices.");
-			// }
-			// for (IDeviceAssignment assignment :
-			// missing.getResults()) {
-			// DeviceStateChangeCreateRequest create = new
-			// DeviceStateChangeCreateRequest(
-			// StateChangeCategory.Presence,
-			// StateChangeType.Presence_Updated,
-			// PresenceState.PRESENT.name(),
-			// PresenceState.NOT_PRESENT.name());
-			// create.setUpdateState(true);
-			//
-			// // Only send an event if the strategy permits it.
-			// if
-			// (getPresenceNotificationStrategy().shouldGenerateEvent(assignment,
-			// create)) {
-			// IDecodedDeviceRequest<IDeviceStateChangeCreateRequest>
-			// decoded = new
-			// DecodedDeviceRequest<IDeviceStateChangeCreateRequest>(
-			// assignment.getDeviceHardwareId(), null, create);
-			// inbound.processDeviceStateChange(decoded);
-			// }
-			// }
-		    }
-		} catch (SiteWhereException e) {
-		    LOGGER.error("Error processing presence query.", e);
-		}
+	}
+    }
 
-		try {
-		    Thread.sleep(checkIntervalSecs * 1000);
-		} catch (InterruptedException e) {
-		    LOGGER.info("Presence check thread shut down.");
-		}
+    /**
+     * Deadlines and snapshot for a single partition of the interactions topic.
+     * 
+     * @author Derek
+     */
+    private static class PartitionDeadlines {
+
+	/** Partition the deadlines were built from */
+	private final TopicPartition topicPartition;
+
+	/** Deadlines by assignment id */
+	private final HierarchicalTimingWheel wheel;
+
+	/** Stores wheel contents across restarts and reassignments */
+	private final PresenceSnapshotFile snapshotFile;
+
+	/** Offset reflected by the wheel when loaded or last saved */
+	private long savedOffset;
+
+	/** Offset that must be processed before the partition is checked */
+	private final long catchUpOffset;
+
+	/** Indicates the consumer has caught up with the partition */
+	private volatile boolean ready;
+
+	public PartitionDeadlines(TopicPartition topicPartition, HierarchicalTimingWheel wheel,
+		PresenceSnapshotFile snapshotFile, long savedOffset, long catchUpOffset) {
+	    this.topicPartition = topicPartition;
+	    this.wheel = wheel;
+	    this.snapshotFile = snapshotFile;
+	    this.savedOffset = savedOffset;
+	    this.catchUpOffset = catchUpOffset;
+	}
+
+	/**
+	 * Save the wheel to the snapshot file. Snapshots are serialized since they
+	 * may be saved from the snapshot thread and the consumer thread.
+	 * 
+	 * @param nextOffset
+	 *            offset of the first record not in the wheel or -1 to keep the
+	 *            offset of the last save
+	 * @return number of assignments written
+	 * @throws SiteWhereException
+	 */
+	public synchronized int save(long nextOffset) throws SiteWhereException {
+	    if (nextOffset >= 0) {
+		savedOffset = nextOffset;
+	    }
+	    if (savedOffset < 0) {
+		return 0;
 	    }
+	    return snapshotFile.write(wheel, savedOffset);
+	}
+
+	public TopicPartition getTopicPartition() {
+	    return topicPartition;
+	}
+
+	public HierarchicalTimingWheel getWheel() {
+	    return wheel;
+	}
+
+	public long getCatchUpOffset() {
+	    return catchUpOffset;
+	}
+
+	public boolean isReady() {
+	    return ready;
+	}
+
+	public void setReady(boolean ready) {
+	    this.ready = ready;
+	}
+    }
+
+    /** Used for naming presence threads */
+    private class PresenceThreadFactory implements ThreadFactory {
+
+	/** Counts threads */
+	private AtomicInteger counter = new AtomicInteger();
+
+	public Thread newThread(Runnable r) {
+	    return new Thread(r, "Presence Manager " + counter.incrementAndGet());
 	}
     }
 
@@ -226,7 +543,52 @@ public class DevicePresenceManager extends TenantEngineLifecycleComponent implem
 	this.presenceMissingInterval = presenceMissingInterval;
     }
 
-    private IDeviceManagement getDeviceManagement(ITenant tenant) {
-	return null;
+    public String getSnapshotInterval() {
+	return snapshotInterval;
+    }
+
+    public void setSnapshotInterval(String snapshotInterval) {
+	this.snapshotInterval = snapshotInterval;
+    }
+
+    public String getSnapshotFolder() {
+	return snapshotFolder;
+    }
+
+    public void setSnapshotFolder(String snapshotFolder) {
+	this.snapshotFolder = snapshotFolder;
+    }
+
+    public int getNotificationBatchSize() {
+	return notificationBatchSize;
+    }
+
+    public void setNotificationBatchSize(int notificationBatchSize) {
+	this.notificationBatchSize = notificationBatchSize;
+    }
+
+    public PresenceInteractionConsumer getInteractionConsumer() {
+	return interactionConsumer;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.presence.spi.IDevicePresenceManager#getMissingIntervalMs()
+     */
+    @Override
+    public long getMissingIntervalMs() {
+	return missingIntervalMs;
+    }
+
+    protected IPresenceManagementMicroservice getMicroservice() {
+	return (IPresenceManagementMicroservice) getTenantEngine().getMicroservice();
+    }
+
+    protected IDeviceManagement getDeviceManagement() {
+	return getMicroservice().getDeviceManagementApiDemux().getApiChannel();
+    }
+
+    protected IDeviceEventManagement getDeviceEventManagement() {
+	return getMicroservice().getDeviceEventManagementApiDemux().getApiChannel();
     }
 }
\ No newline at end of file
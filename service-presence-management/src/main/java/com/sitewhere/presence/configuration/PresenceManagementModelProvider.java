@@ -97,6 +97,17 @@ public class PresenceManagementModelProvider extends ConfigurationModelProvider
 			.description("Time duration (ISO8601 or \"2d 5h 10m\" format) that indicates amount of time to "
 				+ "since last interaction with a device to consider it non-present.")
 			.defaultValue("8h").build()));
+	builder.attribute((new AttributeNode.Builder("Snapshot interval", "snapshotInterval", AttributeType.String)
+		.description("Time duration (ISO8601 or \"1h 10m 30s\" format) between snapshots of presence "
+			+ "deadlines written to local storage.")
+		.defaultValue("5m").build()));
+	builder.attribute((new AttributeNode.Builder("Snapshot folder", "snapshotFolder", AttributeType.String)
+		.description("Local folder where presence deadline snapshots are stored.")
+		.defaultValue("/var/lib/sitewhere/presence").build()));
+	builder.attribute(
+		(new AttributeNode.Builder("Notification batch size", "notificationBatchSize", AttributeType.Integer)
+			.description("Maximum number of presence missing events sent per batch.").defaultValue("500")
+			.build()));
 	return builder.build();
     }
 }
\ No newline at end of file
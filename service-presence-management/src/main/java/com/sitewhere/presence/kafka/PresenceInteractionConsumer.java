@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.presence.kafka;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.TopicPartition;
+
+import com.sitewhere.grpc.kafka.model.KafkaModel.GEnrichedEventPayload;
+import com.sitewhere.grpc.model.converter.KafkaModelConverter;
+import com.sitewhere.grpc.model.marshaler.KafkaModelMarshaler;
+import com.sitewhere.microservice.kafka.MicroserviceKafkaConsumer;
+import com.sitewhere.presence.spi.IDevicePresenceManager;
+import com.sitewhere.rest.model.microservice.kafka.payload.EnrichedEventPayload;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.DeviceAssignmentStatus;
+import com.sitewhere.spi.device.event.DeviceEventType;
+import com.sitewhere.spi.device.event.IDeviceEvent;
+import com.sitewhere.spi.device.event.IDeviceEventContext;
+import com.sitewhere.spi.device.event.IDeviceStateChange;
+import com.sitewhere.spi.device.event.state.StateChangeCategory;
+import com.sitewhere.spi.microservice.IMicroservice;
+import com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine;
+
+/**
+ * Reads from the enriched events topic and records an interaction with the
+ * presence manager for each event. Presence state changes are skipped so that
+ * events generated by the presence manager do not mark devices as present.
+ * Interactions only live in memory until the presence manager saves a
+ * snapshot, so offsets are not committed as records are processed. They are
+ * committed once a snapshot containing the records has been saved, and records
+ * after the last snapshot are read again after a restart.
+ * 
+ * Deadlines are tracked per partition so that replicas sharing the topic only
+ * check assignments for the partitions they own. When a partition is revoked,
+ * its deadlines are saved and its offset committed before it is dropped. When
+ * a partition is assigned, saved deadlines are restored and reading resumes
+ * from the offset stored with them. Without saved deadlines, reading starts at
+ * the first record within the presence missing interval so that deadlines are
+ * rebuilt from recent events.
+ *
+ * @author Derek
+ */
+public class PresenceInteractionConsumer extends MicroserviceKafkaConsumer {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(PresenceInteractionConsumer.class);
+
+    /** Consumer id */
+    private static String CONSUMER_ID = UUID.randomUUID().toString();
+
+    /** Presence manager updated with interactions */
+    private IDevicePresenceManager presenceManager;
+
+    /** Offsets of records that have been applied to the presence manager */
+    private Map<TopicPartition, OffsetAndMetadata> processedOffsets = new ConcurrentHashMap<>();
+
+    /** Offsets covered by a saved snapshot and waiting to be committed */
+    private AtomicReference<Map<TopicPartition, OffsetAndMetadata>> savedOffsets = new AtomicReference<>();
+
+    public PresenceInteractionConsumer(IMicroservice microservice, IMicroserviceTenantEngine tenantEngine,
+	    IDevicePresenceManager presenceManager) {
+	super(microservice, tenantEngine);
+	this.presenceManager = presenceManager;
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#
+     * getConsumerId()
+     */
+    @Override
+    public String getConsumerId() throws SiteWhereException {
+	return CONSUMER_ID;
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#
+     * getConsumerGroupId()
+     */
+    @Override
+    public String getConsumerGroupId() throws SiteWhereException {
+	return getMicroservice().getKafkaTopicNaming().getTenantPrefix(getTenantEngine().getTenant())
+		+ "presence-manager";
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#
+     * getSourceTopicNames()
+     */
+    @Override
+    public List<String> getSourceTopicNames() throws SiteWhereException {
+	List<String> topics = new ArrayList<String>();
+	topics.add(
+		getMicroservice().getKafkaTopicNaming().getInboundEnrichedEventsTopic(getTenantEngine().getTenant()));
+	return topics;
+    }
+
+    /*
+     * @see com.sitewhere.microservice.kafka.MicroserviceKafkaConsumer#subscribe()
+     */
+    @Override
+    protected void subscribe() throws SiteWhereException {
+	getConsumer().subscribe(getSourceTopicNames(), new PartitionDeadlinesListener());
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.kafka.MicroserviceKafkaConsumer#received(org.
+     * apache.kafka.clients.consumer.ConsumerRecord)
+     */
+    @Override
+    protected void received(ConsumerRecord<String, byte[]> record) throws SiteWhereException {
+	received(record.partition(), record.value());
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#received(
+     * java.lang.String, byte[])
+     */
+    @Override
+    public void received(String key, byte[] message) throws SiteWhereException {
+	throw new SiteWhereException("Interactions must be received with their partition.");
+    }
+
+    /**
+     * Record the interaction for an enriched event read from a partition.
+     * 
+     * @param partition
+     * @param message
+     */
+    protected void received(int partition, byte[] message) {
+	try {
+	    GEnrichedEventPayload grpc = KafkaModelMarshaler.parseEnrichedEventPayloadMessage(message);
+	    EnrichedEventPayload payload = KafkaModelConverter.asApiEnrichedEventPayload(grpc);
+	    IDeviceEventContext context = payload.getEventContext();
+	    IDeviceEvent event = payload.getEvent();
+	    if (event.getDeviceAssignmentId() == null) {
+		return;
+	    }
+	    if ((context != null) && (context.getAssignmentStatus() == DeviceAssignmentStatus.Released)) {
+		getPresenceManager().removeAssignment(partition, event.getDeviceAssignmentId());
+		return;
+	    }
+	    if (isPresenceStateChange(event)) {
+		return;
+	    }
+	    Date interaction = (event.getReceivedDate() != null) ? event.getReceivedDate() : event.getEventDate();
+	    getPresenceManager().recordInteraction(partition, event.getDeviceAssignmentId(), interaction);
+	} catch (SiteWhereException e) {
+	    getLogger().error("Unable to process presence event payload.", e);
+	} catch (Throwable e) {
+	    getLogger().error("Unhandled exception processing presence event payload.", e);
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.microservice.kafka.MicroserviceKafkaConsumer#commitOffsets(
+     * java.util.Map)
+     */
+    @Override
+    protected void commitOffsets(Map<TopicPartition, OffsetAndMetadata> offsets) throws SiteWhereException {
+	processedOffsets.putAll(offsets);
+	for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : offsets.entrySet()) {
+	    getPresenceManager().partitionProcessed(entry.getKey().partition(), entry.getValue().offset());
+	}
+	commitSavedOffsets();
+    }
+
+    /**
+     * Commit offsets covered by a saved snapshot for partitions that are still
+     * assigned to this consumer.
+     * 
+     * @throws SiteWhereException
+     */
+    protected void commitSavedOffsets() throws SiteWhereException {
+	Map<TopicPartition, OffsetAndMetadata> saved = savedOffsets.getAndSet(null);
+	if (saved != null) {
+	    saved.keySet().retainAll(getConsumer().assignment());
+	    if (!saved.isEmpty()) {
+		super.commitOffsets(saved);
+	    }
+	}
+    }
+
+    /**
+     * Get offsets of all records applied to the presence manager so far. Must be
+     * called before the snapshot is taken so the snapshot contains every record
+     * before these offsets.
+     * 
+     * @return
+     */
+    public Map<TopicPartition, OffsetAndMetadata> getProcessedOffsets() {
+	return new HashMap<TopicPartition, OffsetAndMetadata>(processedOffsets);
+    }
+
+    /**
+     * Indicates that a snapshot containing all records before the given offsets
+     * has been saved. The offsets are committed from the consumer thread after
+     * the next batch of records.
+     * 
+     * @param offsets
+     */
+    public void snapshotSaved(Map<TopicPartition, OffsetAndMetadata> offsets) {
+	if (!offsets.isEmpty()) {
+	    savedOffsets.set(offsets);
+	}
+    }
+
+    /**
+     * Saves and drops deadlines for revoked partitions and loads deadlines for
+     * assigned partitions. Called on the consumer thread during a rebalance.
+     *
+     * @author Derek
+     */
+    private class PartitionDeadlinesListener implements ConsumerRebalanceListener {
+
+	/*
+	 * @see org.apache.kafka.clients.consumer.ConsumerRebalanceListener#
+	 * onPartitionsRevoked(java.util.Collection)
+	 */
+	@Override
+	public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+	    Map<TopicPartition, OffsetAndMetadata> commit = new HashMap<TopicPartition, OffsetAndMetadata>();
+	    for (TopicPartition partition : partitions) {
+		OffsetAndMetadata processed = processedOffsets.remove(partition);
+		try {
+		    getPresenceManager().unloadPartition(partition.partition(),
+			    (processed != null) ? processed.offset() : -1);
+		    if (processed != null) {
+			commit.put(partition, processed);
+		    }
+		} catch (SiteWhereException e) {
+		    getLogger().error("Unable to save presence deadlines for partition " + partition + ".", e);
+		}
+	    }
+	    try {
+		commitSavedOffsets();
+		if (!commit.isEmpty()) {
+		    PresenceInteractionConsumer.super.commitOffsets(commit);
+		}
+	    } catch (Throwable e) {
+		getLogger().error("Unable to commit offsets for revoked partitions.", e);
+	    }
+	}
+
+	/*
+	 * @see org.apache.kafka.clients.consumer.ConsumerRebalanceListener#
+	 * onPartitionsAssigned(java.util.Collection)
+	 */
+	@Override
+	public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+	    Map<TopicPartition, Long> endOffsets = getConsumer().endOffsets(partitions);
+	    for (TopicPartition partition : partitions) {
+		long end = endOffsets.get(partition);
+		try {
+		    long resume = getPresenceManager().loadPartition(partition.partition(), end);
+		    if (resume >= 0) {
+			getConsumer().seek(partition, resume);
+		    } else {
+			seekToMissingInterval(partition);
+		    }
+		    getPresenceManager().partitionProcessed(partition.partition(), getConsumer().position(partition));
+		} catch (SiteWhereException e) {
+		    getLogger().error("Unable to load presence deadlines for partition " + partition + ".", e);
+		}
+	    }
+	}
+
+	/**
+	 * Move to the first record within the presence missing interval so that
+	 * deadlines for the partition are rebuilt from recent events.
+	 * 
+	 * @param partition
+	 */
+	protected void seekToMissingInterval(TopicPartition partition) {
+	    long start = System.currentTimeMillis() - getPresenceManager().getMissingIntervalMs();
+	    OffsetAndTimestamp found = getConsumer().offsetsForTimes(Collections.singletonMap(partition, start))
+		    .get(partition);
+	    if (found != null) {
+		getConsumer().seek(partition, found.offset());
+	    } else {
+		getConsumer().seekToEnd(Collections.singleton(partition));
+	    }
+	}
+    }
+
+    /**
+     * Indicates whether an event is a presence state change.
+     *
+     * @param event
+     * @return
+     */
+    protected boolean isPresenceStateChange(IDeviceEvent event) {
+	return (event.getEventType() == DeviceEventType.StateChange)
+		&& (((IDeviceStateChange) event).getCategory() == StateChangeCategory.Presence);
+    }
+
+    /*
+     * @see com.sitewhere.spi.server.lifecycle.ILifecycleComponent#getLogger()
+     */
+    @Override
+    public Log getLogger() {
+	return LOGGER;
+    }
+
+    public IDevicePresenceManager getPresenceManager() {
+	return presenceManager;
+    }
+
+    public void setPresenceManager(IDevicePresenceManager presenceManager) {
+	this.presenceManager = presenceManager;
+    }
+}
\ No newline at end of file
@@ -11,11 +11,15 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.sitewhere.microservice.multitenant.MicroserviceTenantEngine;
+import com.sitewhere.presence.DevicePresenceManager;
+import com.sitewhere.presence.spi.IDevicePresenceManager;
 import com.sitewhere.presence.spi.microservice.IPresenceManagementTenantEngine;
+import com.sitewhere.server.lifecycle.CompositeLifecycleStep;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine;
 import com.sitewhere.spi.microservice.multitenant.IMultitenantMicroservice;
 import com.sitewhere.spi.microservice.multitenant.ITenantTemplate;
+import com.sitewhere.spi.server.lifecycle.ICompositeLifecycleStep;
 import com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor;
 import com.sitewhere.spi.tenant.ITenant;
 
@@ -31,6 +35,9 @@ public class PresenceManagementTenantEngine extends MicroserviceTenantEngine
     /** Static logger instance */
     private static Log LOGGER = LogFactory.getLog(PresenceManagementTenantEngine.class);
 
+    /** Device presence manager */
+    private IDevicePresenceManager devicePresenceManager;
+
     public PresenceManagementTenantEngine(IMultitenantMicroservice<?> microservice, ITenant tenant) {
 	super(microservice, tenant);
     }
@@ -42,6 +49,17 @@ public class PresenceManagementTenantEngine extends MicroserviceTenantEngine
      */
     @Override
     public void tenantInitialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	// Create device presence manager.
+	this.devicePresenceManager = new DevicePresenceManager();
+
+	// Create step that will initialize components.
+	ICompositeLifecycleStep init = new CompositeLifecycleStep("Initialize " + getComponentName());
+
+	// Initialize device presence manager.
+	init.addInitializeStep(this, getDevicePresenceManager(), true);
+
+	// Execute initialization steps.
+	init.execute(monitor);
     }
 
     /*
@@ -50,6 +68,14 @@ public class PresenceManagementTenantEngine extends MicroserviceTenantEngine
      */
     @Override
     public void tenantStart(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	// Create step that will start components.
+	ICompositeLifecycleStep start = new CompositeLifecycleStep("Start " + getComponentName());
+
+	// Start device presence manager.
+	start.addStartStep(this, getDevicePresenceManager(), true);
+
+	// Execute startup steps.
+	start.execute(monitor);
     }
 
     /*
@@ -67,6 +93,27 @@ public class PresenceManagementTenantEngine extends MicroserviceTenantEngine
      */
     @Override
     public void tenantStop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	// Create step that will stop components.
+	ICompositeLifecycleStep stop = new CompositeLifecycleStep("Stop " + getComponentName());
+
+	// Stop device presence manager.
+	stop.addStopStep(this, getDevicePresenceManager());
+
+	// Execute shutdown steps.
+	stop.execute(monitor);
+    }
+
+    /*
+     * @see com.sitewhere.presence.spi.microservice.IPresenceManagementTenantEngine#
+     * getDevicePresenceManager()
+     */
+    @Override
+    public IDevicePresenceManager getDevicePresenceManager() {
+	return devicePresenceManager;
+    }
+
+    public void setDevicePresenceManager(IDevicePresenceManager devicePresenceManager) {
+	this.devicePresenceManager = devicePresenceManager;
     }
 
     /*
@@ -7,6 +7,10 @@
  */
 package com.sitewhere.presence.spi;
 
+import java.util.Date;
+import java.util.UUID;
+
+import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.server.lifecycle.ITenantEngineLifecycleComponent;
 
 /**
@@ -24,4 +28,66 @@ public interface IDevicePresenceManager extends ITenantEngineLifecycleComponent
      * @return
      */
     public IPresenceNotificationStrategy getPresenceNotificationStrategy();
+
+    /**
+     * Get time without interactions after which an assignment is considered
+     * missing.
+     * 
+     * @return
+     */
+    public long getMissingIntervalMs();
+
+    /**
+     * Start tracking deadlines for a partition of the interactions topic. Saved
+     * deadlines are restored if available. Presence checks for the partition do
+     * not start until records up to the given end offset have been processed.
+     * 
+     * @param partition
+     * @param endOffset
+     * @return offset to resume reading from or -1 if no deadlines were restored
+     * @throws SiteWhereException
+     */
+    public long loadPartition(int partition, long endOffset) throws SiteWhereException;
+
+    /**
+     * Save deadlines for a partition of the interactions topic and stop tracking
+     * them.
+     * 
+     * @param partition
+     * @param nextOffset
+     *            offset of the first record not yet processed or -1 if none
+     *            were processed since the partition was loaded
+     * @throws SiteWhereException
+     */
+    public void unloadPartition(int partition, long nextOffset) throws SiteWhereException;
+
+    /**
+     * Indicates that records before the given offset have been processed for a
+     * partition.
+     * 
+     * @param partition
+     * @param nextOffset
+     */
+    public void partitionProcessed(int partition, long nextOffset);
+
+    /**
+     * Record an interaction for a device assignment, pushing back the time at
+     * which it will be considered missing.
+     * 
+     * @param partition
+     * @param deviceAssignmentId
+     * @param interactionDate
+     * @throws SiteWhereException
+     */
+    public void recordInteraction(int partition, UUID deviceAssignmentId, Date interactionDate)
+	    throws SiteWhereException;
+
+    /**
+     * Stop tracking presence for a device assignment.
+     * 
+     * @param partition
+     * @param deviceAssignmentId
+     * @throws SiteWhereException
+     */
+    public void removeAssignment(int partition, UUID deviceAssignmentId) throws SiteWhereException;
 }
\ No newline at end of file
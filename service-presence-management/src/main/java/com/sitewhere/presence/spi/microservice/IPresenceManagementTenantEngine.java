@@ -7,6 +7,7 @@
  */
 package com.sitewhere.presence.spi.microservice;
 
+import com.sitewhere.presence.spi.IDevicePresenceManager;
 import com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine;
 
 /**
@@ -16,4 +17,11 @@ import com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine;
  * @author Derek
  */
 public interface IPresenceManagementTenantEngine extends IMicroserviceTenantEngine {
+
+    /**
+     * Get device presence manager.
+     * 
+     * @return
+     */
+    public IDevicePresenceManager getDevicePresenceManager();
 }
\ No newline at end of file
@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.presence.wheel;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Hierarchical timing wheel that tracks a deadline for each key. Each level
+ * has 64 slots and each slot on a level spans all 64 slots of the level below.
+ * Scheduling, rescheduling and cancelling are constant time and advancing the
+ * wheel only touches entries whose deadline has passed, plus an occasional
+ * cascade of far-off entries into finer levels.
+ *
+ * Deadlines are rounded up to the tick size so entries never expire early.
+ *
+ * @author Derek
+ */
+public class HierarchicalTimingWheel {
+
+    /** Bits used to select a slot within a level */
+    private static final int SLOT_BITS = 6;
+
+    /** Number of slots per level */
+    private static final int SLOTS = 1 << SLOT_BITS;
+
+    /** Mask used to select a slot */
+    private static final long SLOT_MASK = SLOTS - 1;
+
+    /** Maximum number of levels */
+    private static final int MAX_LEVELS = 10;
+
+    /** Milliseconds per tick */
+    private final long tickMillis;
+
+    /** Number of levels */
+    private final int levels;
+
+    /** Head of the entry list for each slot on each level */
+    private final Entry[][] buckets;
+
+    /** Entries indexed by key */
+    private final Map<UUID, Entry> entries = new HashMap<UUID, Entry>();
+
+    /** Next tick to be processed */
+    private long currentTick;
+
+    /** Indicates whether higher levels were cascaded for the current tick */
+    private boolean cascaded;
+
+    public HierarchicalTimingWheel(long tickMillis, long maxDelayMillis, long startMillis) {
+	if (tickMillis <= 0) {
+	    throw new IllegalArgumentException("Tick size must be greater than zero.");
+	}
+	this.tickMillis = tickMillis;
+	long maxTicks = Math.max(1, maxDelayMillis / tickMillis);
+
+	// At least two levels so entries beyond the range are cascaded, not fired.
+	int required = 2;
+	while ((required < MAX_LEVELS) && ((1L << (SLOT_BITS * required)) <= maxTicks)) {
+	    required++;
+	}
+	this.levels = required;
+	this.buckets = new Entry[levels][SLOTS];
+	this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Set the deadline for a key, replacing any existing deadline.
+     *
+     * @param key
+     * @param deadlineMillis
+     */
+    public synchronized void schedule(UUID key, long deadlineMillis) {
+	long tick = toTick(deadlineMillis);
+	Entry entry = entries.get(key);
+	if (entry == null) {
+	    entry = new Entry(key);
+	    entries.put(key, entry);
+	} else if (entry.tick == tick) {
+	    entry.deadline = deadlineMillis;
+	    return;
+	} else {
+	    unlink(entry);
+	}
+	entry.deadline = deadlineMillis;
+	entry.tick = tick;
+	link(entry);
+    }
+
+    /**
+     * Move the deadline for a key later. If the key already has a deadline at or
+     * after the one given, nothing changes.
+     *
+     * @param key
+     * @param deadlineMillis
+     * @return true if the deadline was added or moved
+     */
+    public synchronized boolean extend(UUID key, long deadlineMillis) {
+	Entry entry = entries.get(key);
+	if ((entry != null) && (entry.deadline >= deadlineMillis)) {
+	    return false;
+	}
+	schedule(key, deadlineMillis);
+	return true;
+    }
+
+    /**
+     * Remove the deadline for a key.
+     *
+     * @param key
+     * @return true if the key was present
+     */
+    public synchronized boolean cancel(UUID key) {
+	Entry entry = entries.remove(key);
+	if (entry == null) {
+	    return false;
+	}
+	unlink(entry);
+	return true;
+    }
+
+    /**
+     * Get the deadline for a key or -1 if the key is not scheduled.
+     *
+     * @param key
+     * @return
+     */
+    public synchronized long getDeadline(UUID key) {
+	Entry entry = entries.get(key);
+	return (entry != null) ? entry.deadline : -1;
+    }
+
+    /**
+     * Get the number of scheduled keys.
+     *
+     * @return
+     */
+    public synchronized int size() {
+	return entries.size();
+    }
+
+    /**
+     * Advance the wheel to the given time, removing expired keys and adding them
+     * to the list. At most <code>max</code> keys are removed per call so callers
+     * can process expirations in bounded batches. If the limit is reached, the
+     * wheel stops at the current tick and resumes there on the next call.
+     *
+     * @param nowMillis
+     * @param expired
+     * @param max
+     * @return number of keys added to the list
+     */
+    public synchronized int advance(long nowMillis, List<UUID> expired, int max) {
+	long target = nowMillis / tickMillis;
+	int count = 0;
+	while (currentTick <= target) {
+	    if (!cascaded) {
+		cascade();
+		cascaded = true;
+	    }
+	    int slot = (int) (currentTick & SLOT_MASK);
+	    Entry entry;
+	    while ((entry = buckets[0][slot]) != null) {
+		if (count >= max) {
+		    return count;
+		}
+		unlink(entry);
+		entries.remove(entry.key);
+		expired.add(entry.key);
+		count++;
+	    }
+	    currentTick++;
+	    cascaded = false;
+	}
+	return count;
+    }
+
+    /**
+     * Copy every scheduled key and its deadline. Each entry takes three values:
+     * the most and least significant bits of the key followed by the deadline.
+     * The wheel is only locked while copying, so callers may do slow work such as
+     * file output with the result.
+     *
+     * @return
+     */
+    public synchronized long[] copyEntries() {
+	long[] copy = new long[entries.size() * 3];
+	int index = 0;
+	for (Entry entry : entries.values()) {
+	    copy[index++] = entry.key.getMostSignificantBits();
+	    copy[index++] = entry.key.getLeastSignificantBits();
+	    copy[index++] = entry.deadline;
+	}
+	return copy;
+    }
+
+    /**
+     * Move entries from higher levels into finer levels when the lower levels
+     * wrap around.
+     */
+    protected void cascade() {
+	for (int level = 1; level < levels; level++) {
+	    int shift = SLOT_BITS * level;
+	    if ((currentTick & ((1L << shift) - 1)) != 0) {
+		return;
+	    }
+	    int slot = (int) ((currentTick >>> shift) & SLOT_MASK);
+	    Entry entry = buckets[level][slot];
+	    buckets[level][slot] = null;
+	    while (entry != null) {
+		Entry next = entry.next;
+		entry.prev = null;
+		entry.next = null;
+		link(entry);
+		entry = next;
+	    }
+	}
+    }
+
+    /**
+     * Add an entry to the slot that covers its tick.
+     *
+     * @param entry
+     */
+    protected void link(Entry entry) {
+	long delta = entry.tick - currentTick;
+	int level;
+	long slotTick;
+	if (delta < SLOTS) {
+	    level = 0;
+	    slotTick = (delta < 0) ? currentTick : entry.tick;
+	} else {
+	    level = levels - 1;
+	    slotTick = currentTick + (1L << (SLOT_BITS * levels)) - 1;
+	    for (int i = 1; i < levels; i++) {
+		if (delta < (1L << (SLOT_BITS * (i + 1)))) {
+		    level = i;
+		    slotTick = entry.tick;
+		    break;
+		}
+	    }
+	}
+	int slot = (int) ((slotTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+	entry.level = level;
+	entry.slot = slot;
+	entry.prev = null;
+	entry.next = buckets[level][slot];
+	if (entry.next != null) {
+	    entry.next.prev = entry;
+	}
+	buckets[level][slot] = entry;
+    }
+
+    /**
+     * Remove an entry from its slot.
+     *
+     * @param entry
+     */
+    protected void unlink(Entry entry) {
+	if (entry.prev != null) {
+	    entry.prev.next = entry.next;
+	} else {
+	    buckets[entry.level][entry.slot] = entry.next;
+	}
+	if (entry.next != null) {
+	    entry.next.prev = entry.prev;
+	}
+	entry.prev = null;
+	entry.next = null;
+    }
+
+    /**
+     * Convert a deadline to the first tick at or after it.
+     *
+     * @param deadlineMillis
+     * @return
+     */
+    protected long toTick(long deadlineMillis) {
+	return (deadlineMillis + tickMillis - 1) / tickMillis;
+    }
+
+    public long getTickMillis() {
+	return tickMillis;
+    }
+
+    public int getLevels() {
+	return levels;
+    }
+
+    /**
+     * Scheduled key linked into a slot.
+     *
+     * @author Derek
+     */
+    private static class Entry {
+
+	/** Key */
+	private final UUID key;
+
+	/** Deadline in milliseconds */
+	private long deadline;
+
+	/** Deadline in ticks */
+	private long tick;
+
+	/** Level holding the entry */
+	private int level;
+
+	/** Slot holding the entry */
+	private int slot;
+
+	/** Previous entry in slot */
+	private Entry prev;
+
+	/** Next entry in slot */
+	private Entry next;
+
+	public Entry(UUID key) {
+	    this.key = key;
+	}
+    }
+}
\ No newline at end of file
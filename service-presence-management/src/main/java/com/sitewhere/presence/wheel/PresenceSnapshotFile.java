@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.presence.wheel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Stores the contents of a {@link HierarchicalTimingWheel} in a local file so
+ * that presence deadlines survive a restart. The header holds the time the
+ * snapshot was saved and the Kafka offset of the first record not included in
+ * it. Each record holds the key and its deadline. Entries are copied from the
+ * wheel before the file is written so the wheel is not locked during file
+ * output. Snapshots are written to a temporary file and moved into place so a
+ * crash never leaves a partial snapshot behind.
+ *
+ * @author Derek
+ */
+public class PresenceSnapshotFile {
+
+    /** Identifies snapshot files */
+    private static final int MAGIC = 0x53575053;
+
+    /** Snapshot format version */
+    private static final int VERSION = 2;
+
+    /** Snapshot file */
+    private File file;
+
+    /** Offset stored in the snapshot last read or -1 if none was found */
+    private long offset = -1;
+
+    /** Time the snapshot last read was saved */
+    private long savedDate;
+
+    public PresenceSnapshotFile(File file) {
+	this.file = file;
+    }
+
+    /**
+     * Write all entries in the wheel to the snapshot file.
+     *
+     * @param wheel
+     * @param offset
+     *            offset of the first record not reflected in the wheel
+     * @return number of entries written
+     * @throws SiteWhereException
+     */
+    public int write(HierarchicalTimingWheel wheel, long offset) throws SiteWhereException {
+	long[] entries = wheel.copyEntries();
+	File parent = getFile().getAbsoluteFile().getParentFile();
+	if ((parent != null) && (!parent.exists()) && (!parent.mkdirs())) {
+	    throw new SiteWhereException("Unable to create presence snapshot folder: " + parent.getAbsolutePath());
+	}
+	File temp = new File(getFile().getPath() + ".tmp");
+	try (DataOutputStream out = new DataOutputStream(
+		new BufferedOutputStream(new FileOutputStream(temp), 64 * 1024))) {
+	    out.writeInt(MAGIC);
+	    out.writeInt(VERSION);
+	    out.writeLong(System.currentTimeMillis());
+	    out.writeLong(offset);
+	    for (long value : entries) {
+		out.writeLong(value);
+	    }
+	} catch (IOException e) {
+	    throw new SiteWhereException("Unable to write presence snapshot.", e);
+	}
+	try {
+	    Files.move(temp.toPath(), getFile().toPath(), StandardCopyOption.REPLACE_EXISTING,
+		    StandardCopyOption.ATOMIC_MOVE);
+	} catch (IOException e) {
+	    throw new SiteWhereException("Unable to replace presence snapshot.", e);
+	}
+	return entries.length / 3;
+    }
+
+    /**
+     * Load entries from the snapshot file into the wheel. Missing snapshots are
+     * ignored and leave the offset at -1. The offset and save time of a snapshot
+     * that is found are available after the call.
+     *
+     * @param wheel
+     * @return number of entries loaded
+     * @throws SiteWhereException
+     */
+    public int read(HierarchicalTimingWheel wheel) throws SiteWhereException {
+	this.offset = -1;
+	this.savedDate = 0;
+	if (!getFile().exists()) {
+	    return 0;
+	}
+	int count = 0;
+	try (DataInputStream in = new DataInputStream(
+		new BufferedInputStream(new FileInputStream(getFile()), 64 * 1024))) {
+	    if ((in.readInt() != MAGIC) || (in.readInt() != VERSION)) {
+		throw new SiteWhereException("Presence snapshot has an unknown format: " + getFile().getAbsolutePath());
+	    }
+	    long saved = in.readLong();
+	    long stored = in.readLong();
+	    while (true) {
+		long msb;
+		try {
+		    msb = in.readLong();
+		} catch (EOFException e) {
+		    break;
+		}
+		long lsb = in.readLong();
+		long deadline = in.readLong();
+		wheel.extend(new UUID(msb, lsb), deadline);
+		count++;
+	    }
+	    this.savedDate = saved;
+	    this.offset = stored;
+	} catch (IOException e) {
+	    throw new SiteWhereException("Unable to read presence snapshot.", e);
+	}
+	return count;
+    }
+
+    public File getFile() {
+	return file;
+    }
+
+    public void setFile(File file) {
+	this.file = file;
+    }
+
+    public long getOffset() {
+	return offset;
+    }
+
+    public long getSavedDate() {
+	return savedDate;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.presence.wheel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Test;
+
+public class HierarchicalTimingWheelTest {
+
+    @Test
+    public void testExpiresAtDeadline() {
+	HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1000, 8 * 3600 * 1000L, 0);
+	UUID key = UUID.randomUUID();
+	wheel.schedule(key, 5 * 3600 * 1000L);
+
+	List<UUID> expired = new ArrayList<UUID>();
+	wheel.advance(5 * 3600 * 1000L - 1, expired, Integer.MAX_VALUE);
+	assertTrue(expired.isEmpty());
+	wheel.advance(5 * 3600 * 1000L, expired, Integer.MAX_VALUE);
+	assertEquals(1, expired.size());
+	assertEquals(key, expired.get(0));
+	assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testExtendAndCancel() {
+	HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1000, 3600 * 1000L, 0);
+	UUID extended = UUID.randomUUID();
+	UUID cancelled = UUID.randomUUID();
+	wheel.schedule(extended, 10000);
+	wheel.schedule(cancelled, 10000);
+	assertTrue(wheel.extend(extended, 20000));
+	assertEquals(false, wheel.extend(extended, 15000));
+	assertTrue(wheel.cancel(cancelled));
+
+	List<UUID> expired = new ArrayList<UUID>();
+	wheel.advance(19000, expired, Integer.MAX_VALUE);
+	assertTrue(expired.isEmpty());
+	wheel.advance(20000, expired, Integer.MAX_VALUE);
+	assertEquals(1, expired.size());
+	assertEquals(extended, expired.get(0));
+    }
+
+    @Test
+    public void testAdvanceInBatches() {
+	HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1000, 3600 * 1000L, 0);
+	for (int i = 0; i < 25; i++) {
+	    wheel.schedule(UUID.randomUUID(), 5000 + (i % 3) * 1000);
+	}
+	List<UUID> expired = new ArrayList<UUID>();
+	assertEquals(10, wheel.advance(10000, expired, 10));
+	assertEquals(10, wheel.advance(10000, expired, 10));
+	assertEquals(5, wheel.advance(10000, expired, 10));
+	assertEquals(25, expired.size());
+	assertEquals(0, wheel.size());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.presence.wheel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Test;
+
+public class PresenceSnapshotFileTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+	File folder = Files.createTempDirectory("presence").toFile();
+	PresenceSnapshotFile file = new PresenceSnapshotFile(new File(folder, "tenant-3.snapshot"));
+	HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1000, 3600 * 1000L, 0);
+	List<UUID> keys = new ArrayList<UUID>();
+	for (int i = 0; i < 1000; i++) {
+	    UUID key = UUID.randomUUID();
+	    keys.add(key);
+	    wheel.schedule(key, (i + 1) * 1000L);
+	}
+
+	long before = System.currentTimeMillis();
+	assertEquals(1000, file.write(wheel, 4242));
+
+	HierarchicalTimingWheel restored = new HierarchicalTimingWheel(1000, 3600 * 1000L, 0);
+	assertEquals(1000, file.read(restored));
+	assertEquals(4242, file.getOffset());
+	assertTrue(file.getSavedDate() >= before);
+	for (int i = 0; i < keys.size(); i++) {
+	    assertEquals((i + 1) * 1000L, restored.getDeadline(keys.get(i)));
+	}
+    }
+
+    @Test
+    public void testMissingSnapshot() throws Exception {
+	File folder = Files.createTempDirectory("presence").toFile();
+	PresenceSnapshotFile file = new PresenceSnapshotFile(new File(folder, "missing.snapshot"));
+	HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1000, 3600 * 1000L, 0);
+	assertEquals(0, file.read(wheel));
+	assertEquals(-1, file.getOffset());
+	assertEquals(0, wheel.size());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.schedule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import com.hazelcast.core.Message;
+import com.hazelcast.core.MessageListener;
+import com.sitewhere.rest.model.scheduling.Schedule;
+import com.sitewhere.rest.model.scheduling.ScheduledJob;
+import com.sitewhere.schedule.spi.IScheduleManager;
+import com.sitewhere.server.lifecycle.TenantEngineLifecycleComponent;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.scheduling.ISchedule;
+import com.sitewhere.spi.scheduling.IScheduleManagement;
+import com.sitewhere.spi.scheduling.IScheduledJob;
+import com.sitewhere.spi.server.lifecycle.ILifecycleProgressMonitor;
+import com.sitewhere.spi.server.lifecycle.LifecycleComponentType;
+
+/**
+ * Implementation of {@link IScheduleManager} that keeps the schedulers of all
+ * replicas for a tenant in sync. Schedule and job changes made through any
+ * replica are published on a Hazelcast topic. Every replica, including the one
+ * that published the change, applies it to its local scheduler by reading the
+ * current state of the entity from persistence. Applying the persisted state
+ * rather than the change itself keeps replicas consistent when changes to the
+ * same entity are delivered out of order.
+ * 
+ * @author Derek
+ */
+public class ClusteredScheduleManager extends TenantEngineLifecycleComponent
+	implements IScheduleManager, MessageListener<ScheduleUpdate> {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(ClusteredScheduleManager.class);
+
+    /** Prefix for name of per-tenant topic */
+    private static final String TOPIC_PREFIX = "sitewhere:schedule-updates:";
+
+    /** Maximum time to wait for Hazelcast to become available */
+    private static final long HAZELCAST_WAIT_MS = 2 * 60 * 1000;
+
+    /** Scheduler for this replica */
+    private IScheduleManager delegate;
+
+    /** Schedule management persistence */
+    private IScheduleManagement scheduleManagement;
+
+    /** Topic shared by all replicas for the tenant */
+    private ITopic<ScheduleUpdate> topic;
+
+    /** Listener registration id */
+    private String registrationId;
+
+    /** Updates received before the local scheduler started */
+    private List<ScheduleUpdate> pending = new ArrayList<ScheduleUpdate>();
+
+    /** Indicates whether updates are applied as they arrive */
+    private boolean ready = false;
+
+    public ClusteredScheduleManager(IScheduleManager delegate, IScheduleManagement scheduleManagement) {
+	super(LifecycleComponentType.ScheduleManager);
+	this.delegate = delegate;
+	this.scheduleManagement = scheduleManagement;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.server.lifecycle.LifecycleComponent#initialize(com.sitewhere.
+     * spi.server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void initialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	initializeNestedComponent(getDelegate(), monitor, true);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.server.lifecycle.LifecycleComponent#start(com.sitewhere.spi.
+     * server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	// Subscribe first so no change made while jobs are loading is missed.
+	subscribe(getTenantTopic());
+	startNestedComponent(getDelegate(), monitor, true);
+	applyPending();
+    }
+
+    /*
+     * @see
+     * com.sitewhere.server.lifecycle.LifecycleComponent#stop(com.sitewhere.spi.
+     * server.lifecycle.ILifecycleProgressMonitor)
+     */
+    @Override
+    public void stop(ILifecycleProgressMonitor monitor) throws SiteWhereException {
+	unsubscribe();
+	stopNestedComponent(getDelegate(), monitor);
+    }
+
+    /**
+     * Start receiving updates. Updates are held until {@link #applyPending()} is
+     * called.
+     * 
+     * @param topic
+     */
+    protected void subscribe(ITopic<ScheduleUpdate> topic) {
+	synchronized (pending) {
+	    this.ready = false;
+	    this.topic = topic;
+	}
+	this.registrationId = topic.addMessageListener(this);
+    }
+
+    /**
+     * Stop receiving updates.
+     */
+    protected void unsubscribe() {
+	if ((getTopic() != null) && (registrationId != null)) {
+	    getTopic().removeMessageListener(registrationId);
+	}
+	synchronized (pending) {
+	    this.ready = false;
+	    this.registrationId = null;
+	    pending.clear();
+	}
+    }
+
+    /**
+     * Apply updates held while the local scheduler was starting, then apply
+     * later updates as they arrive.
+     */
+    protected void applyPending() {
+	synchronized (pending) {
+	    for (ScheduleUpdate update : pending) {
+		apply(update);
+	    }
+	    pending.clear();
+	    this.ready = true;
+	}
+    }
+
+    /*
+     * @see com.hazelcast.core.MessageListener#onMessage(com.hazelcast.core.Message)
+     */
+    @Override
+    public void onMessage(Message<ScheduleUpdate> message) {
+	synchronized (pending) {
+	    if (ready) {
+		apply(message.getMessageObject());
+	    } else {
+		pending.add(message.getMessageObject());
+	    }
+	}
+    }
+
+    /**
+     * Apply the persisted state of a schedule or job to the local scheduler.
+     * 
+     * @param update
+     */
+    protected void apply(ScheduleUpdate update) {
+	try {
+	    switch (update.getType()) {
+	    case Schedule: {
+		ISchedule schedule = getScheduleManagement().getScheduleByToken(update.getToken());
+		if ((schedule != null) && (!schedule.isDeleted())) {
+		    getDelegate().scheduleAdded(schedule);
+		} else {
+		    Schedule removed = new Schedule();
+		    removed.setToken(update.getToken());
+		    getDelegate().scheduleRemoved(removed);
+		}
+		break;
+	    }
+	    case ScheduledJob: {
+		IScheduledJob job = getScheduleManagement().getScheduledJobByToken(update.getToken());
+		if ((job != null) && (!job.isDeleted())) {
+		    getDelegate().scheduleJob(job);
+		} else {
+		    ScheduledJob removed = new ScheduledJob();
+		    removed.setToken(update.getToken());
+		    getDelegate().unscheduleJob(removed);
+		}
+		break;
+	    }
+	    }
+	} catch (SiteWhereException e) {
+	    LOGGER.error("Unable to apply update for " + update.getType() + " '" + update.getToken() + "'.", e);
+	}
+    }
+
+    /**
+     * Publish an update to all replicas.
+     * 
+     * @param type
+     * @param token
+     * @throws SiteWhereException
+     */
+    protected void publish(ScheduleUpdate.Type type, String token) throws SiteWhereException {
+	if (getTopic() == null) {
+	    throw new SiteWhereException("Schedule manager not started. Unable to publish update.");
+	}
+	getTopic().publish(new ScheduleUpdate(type, token));
+    }
+
+    /**
+     * Get the topic shared by replicas for this tenant, waiting for Hazelcast to
+     * become available if necessary.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    protected ITopic<ScheduleUpdate> getTenantTopic() throws SiteWhereException {
+	long deadline = System.currentTimeMillis() + HAZELCAST_WAIT_MS;
+	HazelcastInstance hazelcast = getTenantEngine().getMicroservice().getHazelcastManager()
+		.getHazelcastInstance();
+	while (hazelcast == null) {
+	    if (System.currentTimeMillis() > deadline) {
+		throw new SiteWhereException("Hazelcast not available. Unable to share schedule updates.");
+	    }
+	    getLogger().info("Waiting for Hazelcast before loading schedules...");
+	    try {
+		Thread.sleep(1000);
+	    } catch (InterruptedException e) {
+		throw new SiteWhereException("Interrupted while waiting for Hazelcast.", e);
+	    }
+	    hazelcast = getTenantEngine().getMicroservice().getHazelcastManager().getHazelcastInstance();
+	}
+	return hazelcast.getTopic(TOPIC_PREFIX + getTenantEngine().getTenant().getId());
+    }
+
+    /*
+     * @see
+     * com.sitewhere.schedule.spi.IScheduleManager#scheduleAdded(com.sitewhere.spi.
+     * scheduling.ISchedule)
+     */
+    @Override
+    public void scheduleAdded(ISchedule schedule) throws SiteWhereException {
+	publish(ScheduleUpdate.Type.Schedule, schedule.getToken());
+    }
+
+    /*
+     * @see
+     * com.sitewhere.schedule.spi.IScheduleManager#scheduleRemoved(com.sitewhere.
+     * spi.scheduling.ISchedule)
+     */
+    @Override
+    public void scheduleRemoved(ISchedule schedule) throws SiteWhereException {
+	publish(ScheduleUpdate.Type.Schedule, schedule.getToken());
+    }
+
+    /*
+     * @see
+     * com.sitewhere.schedule.spi.IScheduleManager#scheduleJob(com.sitewhere.spi.
+     * scheduling.IScheduledJob)
+     */
+    @Override
+    public void scheduleJob(IScheduledJob job) throws SiteWhereException {
+	publish(ScheduleUpdate.Type.ScheduledJob, job.getToken());
+    }
+
+    /*
+     * @see
+     * com.sitewhere.schedule.spi.IScheduleManager#unscheduleJob(com.sitewhere.spi.
+     * scheduling.IScheduledJob)
+     */
+    @Override
+    public void unscheduleJob(IScheduledJob job) throws SiteWhereException {
+	publish(ScheduleUpdate.Type.ScheduledJob, job.getToken());
+    }
+
+    /*
+     * @see com.sitewhere.spi.server.lifecycle.ILifecycleComponent#getLogger()
+     */
+    @Override
+    public Log getLogger() {
+	return LOGGER;
+    }
+
+    public IScheduleManager getDelegate() {
+	return delegate;
+    }
+
+    public void setDelegate(IScheduleManager delegate) {
+	this.delegate = delegate;
+    }
+
+    public IScheduleManagement getScheduleManagement() {
+	return scheduleManagement;
+    }
+
+    public void setScheduleManagement(IScheduleManagement scheduleManagement) {
+	this.scheduleManagement = scheduleManagement;
+    }
+
+    public ITopic<ScheduleUpdate> getTopic() {
+	return topic;
+    }
+}
\ No newline at end of file
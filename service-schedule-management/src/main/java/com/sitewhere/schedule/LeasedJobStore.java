@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.schedule;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.JobPersistenceException;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+import org.quartz.simpl.RAMJobStore;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.TriggerFiredBundle;
+import org.quartz.spi.TriggerFiredResult;
+
+import com.sitewhere.schedule.spi.ITriggerLeaseManager;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Quartz job store that lets several replicas load the same schedules while
+ * each firing is executed only once. Jobs and triggers are rebuilt from
+ * schedule management persistence on startup and held in memory. Before an
+ * acquired trigger is handed to the scheduler, a lease is claimed for its fire
+ * time. Triggers claimed by another replica are advanced to their next fire
+ * time without executing the job.
+ * 
+ * Leases expire if the owner neither completes nor releases them, for
+ * instance because the replica stopped between acquiring and firing the
+ * trigger. Replicas that skipped a firing keep watching its lease and, once it
+ * has expired without completing, claim it and run the job late rather than
+ * losing the firing. A replica that stops after running a job but before
+ * completing the lease may cause the job to run twice.
+ * 
+ * @author Derek
+ */
+public class LeasedJobStore extends RAMJobStore {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(LeasedJobStore.class);
+
+    /** Trigger group for one-off triggers that run recovered firings */
+    public static final String RECOVERY_GROUP = "sitewhere-recovered";
+
+    /** Grants leases on trigger firings */
+    private ITriggerLeaseManager leaseManager;
+
+    /** Unique id of this replica */
+    private String owner;
+
+    /** Time a lease is held after its fire time before others may claim it */
+    private long leaseTimeoutMs;
+
+    /** Firings skipped because another replica held the lease */
+    private Map<String, Firing> contested = new ConcurrentHashMap<String, Firing>();
+
+    /** Firings being run by recovery triggers */
+    private Map<TriggerKey, Firing> recovering = new ConcurrentHashMap<TriggerKey, Firing>();
+
+    public LeasedJobStore(ITriggerLeaseManager leaseManager, String owner, long leaseTimeoutMs) {
+	this.leaseManager = leaseManager;
+	this.owner = owner;
+	this.leaseTimeoutMs = leaseTimeoutMs;
+    }
+
+    /*
+     * @see org.quartz.simpl.RAMJobStore#acquireNextTriggers(long, int, long)
+     */
+    @Override
+    public List<OperableTrigger> acquireNextTriggers(long noLaterThan, int maxCount, long timeWindow) {
+	recoverAbandonedFirings();
+	List<OperableTrigger> acquired = super.acquireNextTriggers(noLaterThan, maxCount, timeWindow);
+	List<OperableTrigger> claimed = new ArrayList<OperableTrigger>();
+	List<OperableTrigger> skipped = new ArrayList<OperableTrigger>();
+	for (OperableTrigger trigger : acquired) {
+	    if (RECOVERY_GROUP.equals(trigger.getKey().getGroup())) {
+		claimed.add(trigger);
+		continue;
+	    }
+	    Date fireTime = trigger.getNextFireTime();
+	    try {
+		if (getLeaseManager().claim(trigger.getKey().toString(), fireTime, getOwner(),
+			getLeaseExpiration(fireTime))) {
+		    claimed.add(trigger);
+		} else {
+		    skipped.add(trigger);
+		    Firing firing = new Firing(trigger.getKey(), trigger.getJobKey(), trigger.getJobDataMap(), fireTime);
+		    getContested().put(firing.getId(), firing);
+		}
+	    } catch (SiteWhereException e) {
+		LOGGER.warn("Unable to claim lease for trigger " + trigger.getKey() + ". Will retry.", e);
+		super.releaseAcquiredTrigger(trigger);
+	    }
+	}
+	if (skipped.size() > 0) {
+	    skipFirings(skipped);
+	}
+	return claimed;
+    }
+
+    /*
+     * @see
+     * org.quartz.simpl.RAMJobStore#releaseAcquiredTrigger(org.quartz.spi.
+     * OperableTrigger)
+     */
+    @Override
+    public void releaseAcquiredTrigger(OperableTrigger trigger) {
+	super.releaseAcquiredTrigger(trigger);
+	if (!RECOVERY_GROUP.equals(trigger.getKey().getGroup())) {
+	    try {
+		getLeaseManager().release(trigger.getKey().toString(), trigger.getNextFireTime(), getOwner());
+	    } catch (SiteWhereException e) {
+		LOGGER.warn("Unable to release lease for trigger " + trigger.getKey() + ". It will expire.", e);
+	    }
+	}
+    }
+
+    /*
+     * @see
+     * org.quartz.simpl.RAMJobStore#triggeredJobComplete(org.quartz.spi.
+     * OperableTrigger, org.quartz.JobDetail,
+     * org.quartz.Trigger.CompletedExecutionInstruction)
+     */
+    @Override
+    public void triggeredJobComplete(OperableTrigger trigger, JobDetail jobDetail,
+	    CompletedExecutionInstruction triggerInstCode) {
+	super.triggeredJobComplete(trigger, jobDetail, triggerInstCode);
+	Firing recovered = getRecovering().remove(trigger.getKey());
+	String triggerKey = (recovered != null) ? recovered.getTriggerKey().toString() : trigger.getKey().toString();
+	Date fireTime = (recovered != null) ? recovered.getFireTime() : trigger.getPreviousFireTime();
+	try {
+	    getLeaseManager().complete(triggerKey, fireTime);
+	} catch (SiteWhereException e) {
+	    LOGGER.warn("Unable to complete lease for trigger " + triggerKey + ".", e);
+	}
+    }
+
+    /**
+     * Advance triggers that were fired by another replica without executing the
+     * associated jobs.
+     * 
+     * @param triggers
+     */
+    protected void skipFirings(List<OperableTrigger> triggers) {
+	try {
+	    for (TriggerFiredResult result : triggersFired(triggers)) {
+		TriggerFiredBundle bundle = result.getTriggerFiredBundle();
+		if (bundle != null) {
+		    LOGGER.debug("Trigger " + bundle.getTrigger().getKey() + " fired by another replica.");
+		    super.triggeredJobComplete(bundle.getTrigger(), bundle.getJobDetail(),
+			    CompletedExecutionInstruction.NOOP);
+		}
+	    }
+	} catch (Exception e) {
+	    LOGGER.error("Unable to skip triggers fired by another replica.", e);
+	}
+    }
+
+    /**
+     * Check firings skipped because another replica held the lease. Once such a
+     * lease has expired without being completed, claim it and store a one-off
+     * trigger that runs the job immediately.
+     */
+    protected void recoverAbandonedFirings() {
+	long now = System.currentTimeMillis();
+	Iterator<Firing> it = getContested().values().iterator();
+	while (it.hasNext()) {
+	    Firing firing = it.next();
+	    if (firing.getCheckAfter() > now) {
+		continue;
+	    }
+	    if (retrieveTrigger(firing.getTriggerKey()) == null) {
+		it.remove();
+		continue;
+	    }
+	    String triggerKey = firing.getTriggerKey().toString();
+	    try {
+		if (getLeaseManager().isComplete(triggerKey, firing.getFireTime())) {
+		    it.remove();
+		} else if (getLeaseManager().claim(triggerKey, firing.getFireTime(), getOwner(),
+			new Date(now + getLeaseTimeoutMs()))) {
+		    it.remove();
+		    scheduleRecovery(firing);
+		} else {
+		    // Another replica recovered the firing first. Check again once its lease expires.
+		    firing.setCheckAfter(now + getLeaseTimeoutMs());
+		}
+	    } catch (SiteWhereException e) {
+		LOGGER.warn("Unable to check lease for trigger " + triggerKey + ". Will retry.", e);
+	    }
+	}
+    }
+
+    /**
+     * Store a one-off trigger that runs a firing abandoned by another replica.
+     * 
+     * @param firing
+     */
+    protected void scheduleRecovery(Firing firing) {
+	OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+		.withIdentity(firing.getId(), RECOVERY_GROUP).forJob(firing.getJobKey())
+		.usingJobData(firing.getJobData()).startNow().build();
+	trigger.computeFirstFireTime(null);
+	getRecovering().put(trigger.getKey(), firing);
+	try {
+	    storeTrigger(trigger, true);
+	    LOGGER.warn("Recovering firing of " + firing.getTriggerKey() + " scheduled for " + firing.getFireTime()
+		    + " after its lease expired.");
+	} catch (JobPersistenceException e) {
+	    getRecovering().remove(trigger.getKey());
+	    LOGGER.error("Unable to schedule recovery of trigger " + firing.getTriggerKey() + ".", e);
+	}
+    }
+
+    /**
+     * Get time at which the lease on a firing may be claimed by another replica.
+     * 
+     * @param fireTime
+     * @return
+     */
+    protected Date getLeaseExpiration(Date fireTime) {
+	return new Date(Math.max(System.currentTimeMillis(), fireTime.getTime()) + getLeaseTimeoutMs());
+    }
+
+    public ITriggerLeaseManager getLeaseManager() {
+	return leaseManager;
+    }
+
+    public String getOwner() {
+	return owner;
+    }
+
+    public long getLeaseTimeoutMs() {
+	return leaseTimeoutMs;
+    }
+
+    protected Map<String, Firing> getContested() {
+	return contested;
+    }
+
+    protected Map<TriggerKey, Firing> getRecovering() {
+	return recovering;
+    }
+
+    /**
+     * A single firing of a trigger that is leased by another replica.
+     */
+    protected class Firing {
+
+	/** Key for trigger */
+	private TriggerKey triggerKey;
+
+	/** Key for job fired by trigger */
+	private JobKey jobKey;
+
+	/** Data passed to job by trigger */
+	private JobDataMap jobData;
+
+	/** Scheduled fire time */
+	private Date fireTime;
+
+	/** Earliest time the lease is checked */
+	private long checkAfter;
+
+	public Firing(TriggerKey triggerKey, JobKey jobKey, JobDataMap jobData, Date fireTime) {
+	    this.triggerKey = triggerKey;
+	    this.jobKey = jobKey;
+	    this.jobData = jobData;
+	    this.fireTime = fireTime;
+	    this.checkAfter = fireTime.getTime() + getLeaseTimeoutMs();
+	}
+
+	public String getId() {
+	    return triggerKey.toString() + "@" + fireTime.getTime();
+	}
+
+	public TriggerKey getTriggerKey() {
+	    return triggerKey;
+	}
+
+	public JobKey getJobKey() {
+	    return jobKey;
+	}
+
+	public JobDataMap getJobData() {
+	    return jobData;
+	}
+
+	public Date getFireTime() {
+	    return fireTime;
+	}
+
+	public long getCheckAfter() {
+	    return checkAfter;
+	}
+
+	public void setCheckAfter(long checkAfter) {
+	    this.checkAfter = checkAfter;
+	}
+    }
+}
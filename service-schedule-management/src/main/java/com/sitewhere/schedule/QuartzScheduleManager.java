@@ -7,6 +7,7 @@
  */
 package com.sitewhere.schedule;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,9 +25,9 @@ import org.quartz.simpl.SimpleThreadPool;
 import com.sitewhere.rest.model.search.SearchCriteria;
 import com.sitewhere.schedule.jobs.QuartzBuilder;
 import com.sitewhere.schedule.spi.IScheduleManager;
+import com.sitewhere.schedule.spi.ITriggerLeaseManager;
 import com.sitewhere.server.lifecycle.TenantEngineLifecycleComponent;
 import com.sitewhere.spi.SiteWhereException;
-import com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine;
 import com.sitewhere.spi.scheduling.ISchedule;
 import com.sitewhere.spi.scheduling.IScheduleManagement;
 import com.sitewhere.spi.scheduling.IScheduledJob;
@@ -36,7 +37,8 @@ import com.sitewhere.spi.server.lifecycle.LifecycleComponentType;
 
 /**
  * Implementation of {@link IScheduleManager} that uses Quartz to handle
- * schedule management.
+ * schedule management. If a {@link ITriggerLeaseManager} is provided, replicas
+ * share the work so that each trigger firing is executed by a single replica.
  * 
  * @author Derek
  */
@@ -45,40 +47,73 @@ public class QuartzScheduleManager extends TenantEngineLifecycleComponent implem
     /** Static logger instance */
     private static Log LOGGER = LogFactory.getLog(QuartzScheduleManager.class);
 
-    /** Instance id common to all schedulers */
-    private static final String INSTANCE_ID = "sitewhere";
+    /** Instance id used when not running in a microservice */
+    private static final String DEFAULT_INSTANCE_ID = "sitewhere";
 
     /** Default number of threads used to process scheduled tasks */
     private static final int DEFAULT_THREAD_COUNT = 5;
 
+    /** Default time a trigger may be late before it is considered misfired */
+    private static final long DEFAULT_MISFIRE_THRESHOLD_MS = 60 * 1000;
+
+    /** Default time a firing is leased before another replica may claim it */
+    private static final long DEFAULT_LEASE_TIMEOUT_MS = 60 * 1000;
+
     /** Schedule management implementation */
     private IScheduleManagement scheduleManagement;
 
+    /** Grants leases on trigger firings (null if not clustered) */
+    private ITriggerLeaseManager leaseManager;
+
     /** Number of threads used for processing */
     private int numProcessingThreads = DEFAULT_THREAD_COUNT;
 
+    /** Time a trigger may be late before it is considered misfired */
+    private long misfireThresholdMs = DEFAULT_MISFIRE_THRESHOLD_MS;
+
+    /** Time a firing is leased before another replica may claim it */
+    private long leaseTimeoutMs = DEFAULT_LEASE_TIMEOUT_MS;
+
     /** Cache schedules by token */
-    private Map<String, ISchedule> schedulesByToken = new HashMap<String, ISchedule>();
+    private volatile Map<String, ISchedule> schedulesByToken = new HashMap<String, ISchedule>();
 
     public QuartzScheduleManager(IScheduleManagement scheduleManagement) {
+	this(scheduleManagement, null);
+    }
+
+    public QuartzScheduleManager(IScheduleManagement scheduleManagement, ITriggerLeaseManager leaseManager) {
 	super(LifecycleComponentType.ScheduleManager);
 	this.scheduleManagement = scheduleManagement;
+	this.leaseManager = leaseManager;
     }
 
-    /*
-     * @see
-     * com.sitewhere.server.lifecycle.TenantEngineLifecycleComponent#setTenantEngine
-     * (com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine)
+    /**
+     * Create Quartz scheduler for the tenant.
+     * 
+     * @throws SchedulerException
      */
-    @Override
-    public void setTenantEngine(IMicroserviceTenantEngine tenantEngine) {
-	super.setTenantEngine(tenantEngine);
-	try {
-	    DirectSchedulerFactory.getInstance().createScheduler(tenantEngine.getTenant().getToken(), INSTANCE_ID,
-		    new SimpleThreadPool(getNumProcessingThreads(), Thread.NORM_PRIORITY), new RAMJobStore());
-	} catch (SchedulerException e) {
-	    throw new RuntimeException("Unable to create Quartz scheduler for schedule manager.", e);
+    protected void createScheduler() throws SchedulerException {
+	String instanceId = getInstanceId();
+	SimpleThreadPool threadPool = new SimpleThreadPool(getNumProcessingThreads(), Thread.NORM_PRIORITY);
+	threadPool.setThreadNamePrefix("Schedule " + getTenantEngine().getTenant().getToken());
+	RAMJobStore jobStore = (getLeaseManager() != null)
+		? new LeasedJobStore(getLeaseManager(), instanceId, getLeaseTimeoutMs())
+		: new RAMJobStore();
+	jobStore.setMisfireThreshold(getMisfireThresholdMs());
+	DirectSchedulerFactory.getInstance().createScheduler(getTenantEngine().getTenant().getToken(), instanceId,
+		threadPool, jobStore);
+    }
+
+    /**
+     * Get id that uniquely identifies this replica.
+     * 
+     * @return
+     */
+    protected String getInstanceId() {
+	if ((getTenantEngine() != null) && (getTenantEngine().getMicroservice() != null)) {
+	    return getTenantEngine().getMicroservice().getHostname();
 	}
+	return DEFAULT_INSTANCE_ID;
     }
 
     /*
@@ -91,6 +126,7 @@ public class QuartzScheduleManager extends TenantEngineLifecycleComponent implem
     @Override
     public void start(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	try {
+	    createScheduler();
 	    getScheduler().start();
 	    cacheSchedules();
 	    scheduleJobs();
@@ -100,7 +136,8 @@ public class QuartzScheduleManager extends TenantEngineLifecycleComponent implem
     }
 
     /**
-     * Cache the list of schedules by unique token.
+     * Cache the list of schedules by unique token. Only called on startup since
+     * later changes are applied incrementally.
      * 
      * @throws SiteWhereException
      */
@@ -151,7 +188,9 @@ public class QuartzScheduleManager extends TenantEngineLifecycleComponent implem
      */
     @Override
     public void scheduleAdded(ISchedule schedule) throws SiteWhereException {
-	cacheSchedules();
+	Map<String, ISchedule> updated = new HashMap<String, ISchedule>(getSchedulesByToken());
+	updated.put(schedule.getToken(), schedule);
+	this.schedulesByToken = updated;
     }
 
     /*
@@ -162,7 +201,9 @@ public class QuartzScheduleManager extends TenantEngineLifecycleComponent implem
      */
     @Override
     public void scheduleRemoved(ISchedule schedule) throws SiteWhereException {
-	cacheSchedules();
+	Map<String, ISchedule> updated = new HashMap<String, ISchedule>(getSchedulesByToken());
+	updated.remove(schedule.getToken());
+	this.schedulesByToken = updated;
     }
 
     /*
@@ -175,6 +216,12 @@ public class QuartzScheduleManager extends TenantEngineLifecycleComponent implem
     public void scheduleJob(IScheduledJob job) throws SiteWhereException {
 	JobDetail detail = QuartzBuilder.buildJobDetail(job);
 	ISchedule schedule = getSchedulesByToken().get(job.getScheduleToken());
+	if (schedule == null) {
+	    schedule = getScheduleManagement().getScheduleByToken(job.getScheduleToken());
+	    if (schedule != null) {
+		scheduleAdded(schedule);
+	    }
+	}
 	if (schedule == null) {
 	    throw new SiteWhereException("Job references unknown schedule: " + job.getScheduleToken());
 	}
@@ -182,7 +229,7 @@ public class QuartzScheduleManager extends TenantEngineLifecycleComponent implem
 	LOGGER.info("Scheduling job " + job.getToken() + " for '" + schedule.getName() + "'.");
 	Trigger trigger = QuartzBuilder.buildTrigger(job, schedule);
 	try {
-	    getScheduler().scheduleJob(detail, trigger);
+	    getScheduler().scheduleJob(detail, Collections.singleton(trigger), true);
 	} catch (SchedulerException e) {
 	    throw new SiteWhereException("Unable to schedule job.", e);
 	}
@@ -236,6 +283,30 @@ public class QuartzScheduleManager extends TenantEngineLifecycleComponent implem
 	this.scheduleManagement = scheduleManagement;
     }
 
+    public ITriggerLeaseManager getLeaseManager() {
+	return leaseManager;
+    }
+
+    public void setLeaseManager(ITriggerLeaseManager leaseManager) {
+	this.leaseManager = leaseManager;
+    }
+
+    public long getMisfireThresholdMs() {
+	return misfireThresholdMs;
+    }
+
+    public void setMisfireThresholdMs(long misfireThresholdMs) {
+	this.misfireThresholdMs = misfireThresholdMs;
+    }
+
+    public long getLeaseTimeoutMs() {
+	return leaseTimeoutMs;
+    }
+
+    public void setLeaseTimeoutMs(long leaseTimeoutMs) {
+	this.leaseTimeoutMs = leaseTimeoutMs;
+    }
+
     public int getNumProcessingThreads() {
 	return numProcessingThreads;
     }
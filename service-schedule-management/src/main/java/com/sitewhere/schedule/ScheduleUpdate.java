@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.schedule;
+
+import java.io.Serializable;
+
+/**
+ * Notice that a schedule or scheduled job was created or deleted. It is
+ * broadcast to every replica of the schedule management microservice for a
+ * tenant, which then applies the persisted state of the entity.
+ * 
+ * @author Derek
+ */
+public class ScheduleUpdate implements Serializable {
+
+    /** Serial version UID */
+    private static final long serialVersionUID = 4297503318812453530L;
+
+    /**
+     * Types of entity that changed.
+     */
+    public static enum Type {
+	Schedule, ScheduledJob;
+    }
+
+    /** Type of entity that changed */
+    private Type type;
+
+    /** Token of schedule or scheduled job */
+    private String token;
+
+    public ScheduleUpdate() {
+    }
+
+    public ScheduleUpdate(Type type, String token) {
+	this.type = type;
+	this.token = token;
+    }
+
+    public Type getType() {
+	return type;
+    }
+
+    public void setType(Type type) {
+	this.type = type;
+    }
+
+    public String getToken() {
+	return token;
+    }
+
+    public void setToken(String token) {
+	this.token = token;
+    }
+}
\ No newline at end of file
@@ -10,7 +10,9 @@ package com.sitewhere.schedule.configuration;
 import com.sitewhere.configuration.model.CommonDatastoreProvider;
 import com.sitewhere.configuration.model.ConfigurationModelProvider;
 import com.sitewhere.configuration.parser.IScheduleManagementParser;
+import com.sitewhere.rest.model.configuration.AttributeNode;
 import com.sitewhere.rest.model.configuration.ElementNode;
+import com.sitewhere.spi.microservice.configuration.model.AttributeType;
 import com.sitewhere.spi.microservice.configuration.model.IConfigurationRoleProvider;
 
 /**
@@ -77,6 +79,16 @@ public class ScheduleManagementModelProvider extends ConfigurationModelProvider
 		"calendar", ScheduleManagementRoleKeys.ScheduleManagement, this);
 
 	builder.description("Handles schedule persistence and processing.");
+	builder.attribute((new AttributeNode.Builder("Processing threads", "numProcessingThreads", AttributeType.Integer)
+		.description("Number of threads used to execute scheduled jobs.").defaultValue("5").build()));
+	builder.attribute((new AttributeNode.Builder("Misfire threshold (ms)", "misfireThresholdMs",
+		AttributeType.Integer)
+			.description("Time a trigger may be late before it is considered misfired.")
+			.defaultValue("60000").build()));
+	builder.attribute((new AttributeNode.Builder("Lease timeout (ms)", "leaseTimeoutMs", AttributeType.Integer)
+		.description("Time after its fire time that a replica holds a trigger firing before another "
+			+ "replica may run it.")
+		.defaultValue("60000").build()));
 
 	return builder.build();
     }
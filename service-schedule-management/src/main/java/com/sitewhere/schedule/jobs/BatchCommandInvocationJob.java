@@ -8,7 +8,6 @@
 package com.sitewhere.schedule.jobs;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.logging.Log;
@@ -19,14 +18,10 @@ import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.quartz.SchedulerException;
 
-import com.sitewhere.batch.BatchUtils;
 import com.sitewhere.rest.model.batch.request.BatchCommandForCriteriaRequest;
-import com.sitewhere.rest.model.batch.request.BatchCommandInvocationRequest;
 import com.sitewhere.schedule.BatchCommandInvocationJobParser;
 import com.sitewhere.spi.SiteWhereException;
-import com.sitewhere.spi.asset.IAssetManagement;
 import com.sitewhere.spi.batch.IBatchManagement;
-import com.sitewhere.spi.device.IDeviceManagement;
 import com.sitewhere.spi.tenant.ITenant;
 import com.sitewhere.spi.tenant.ITenantManagement;
 
@@ -64,17 +59,8 @@ public class BatchCommandInvocationJob implements Job {
 	try {
 	    ITenant tenant = getTenantManagement().getTenantByToken(context.getScheduler().getSchedulerName());
 
-	    // Resolve tokens for devices matching criteria.
-	    List<String> deviceTokens = BatchUtils.resolveDeviceTokensForCriteria(criteria, getDeviceManagement(),
-		    getAssetManagement());
-
-	    // Create batch command invocation.
-	    BatchCommandInvocationRequest invoke = new BatchCommandInvocationRequest();
-	    invoke.setCommandToken(criteria.getCommandToken());
-	    invoke.setParameterValues(criteria.getParameterValues());
-	    invoke.setDeviceTokens(deviceTokens);
-
-	    getBatchManagement(tenant).createBatchCommandInvocation(invoke);
+	    // Matching devices are resolved by batch operations as elements are created.
+	    getBatchManagement(tenant).createBatchCommandInvocationFromCriteria(criteria);
 
 	    LOGGER.info("Executed batch command invocation job.");
 	} catch (SiteWhereException e) {
@@ -84,14 +70,6 @@ public class BatchCommandInvocationJob implements Job {
 	}
     }
 
-    private IDeviceManagement getDeviceManagement() {
-	return null;
-    }
-
-    private IAssetManagement getAssetManagement() {
-	return null;
-    }
-
     private ITenantManagement getTenantManagement() {
 	return null;
     }
@@ -111,6 +111,9 @@ public class QuartzBuilder {
 		throw new SiteWhereException("Non-numeric value used for repeat interval.", e);
 	    }
 	}
+
+	// Skip missed firings so every replica computes the same fire times.
+	simple.withMisfireHandlingInstructionNextWithRemainingCount();
 	TriggerBuilder<?> builder = TriggerBuilder.newTrigger().withIdentity(job.getToken()).withSchedule(simple);
 	addCommonFields(job, schedule, builder);
 	return builder.build();
@@ -132,7 +135,8 @@ public class QuartzBuilder {
 	if (!CronExpression.isValidExpression(expression)) {
 	    throw new SiteWhereException("Cron expression is invalid.");
 	}
-	CronScheduleBuilder cron = CronScheduleBuilder.cronSchedule(expression);
+	CronScheduleBuilder cron = CronScheduleBuilder.cronSchedule(expression)
+		.withMisfireHandlingInstructionDoNothing();
 	TriggerBuilder<?> builder = TriggerBuilder.newTrigger().withIdentity(job.getToken()).withSchedule(cron);
 	addCommonFields(job, schedule, builder);
 	return builder.build();
@@ -150,6 +154,9 @@ public class QuartzBuilder {
 	    throws SiteWhereException {
 	if (schedule.getStartDate() != null) {
 	    builder.startAt(schedule.getStartDate());
+	} else if (job.getCreatedDate() != null) {
+	    // Anchor to a fixed time rather than the time the job is loaded.
+	    builder.startAt(job.getCreatedDate());
 	}
 	if (schedule.getEndDate() != null) {
 	    builder.endAt(schedule.getEndDate());
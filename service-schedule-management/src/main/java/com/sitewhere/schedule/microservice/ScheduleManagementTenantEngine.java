@@ -17,8 +17,11 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import com.sitewhere.grpc.service.ScheduleManagementGrpc;
 import com.sitewhere.microservice.groovy.GroovyConfiguration;
 import com.sitewhere.microservice.multitenant.MicroserviceTenantEngine;
+import com.sitewhere.schedule.ClusteredScheduleManager;
+import com.sitewhere.schedule.ScheduleManagementTriggers;
 import com.sitewhere.schedule.grpc.ScheduleManagementImpl;
 import com.sitewhere.schedule.initializer.GroovyScheduleModelInitializer;
+import com.sitewhere.schedule.spi.IScheduleManager;
 import com.sitewhere.schedule.spi.microservice.IScheduleManagementTenantEngine;
 import com.sitewhere.server.lifecycle.CompositeLifecycleStep;
 import com.sitewhere.server.lifecycle.LifecycleProgressContext;
@@ -48,6 +51,9 @@ public class ScheduleManagementTenantEngine extends MicroserviceTenantEngine
     /** Schedule management persistence API */
     private IScheduleManagement scheduleManagement;
 
+    /** Executes scheduled jobs */
+    private IScheduleManager scheduleManager;
+
     /** Responds to schedule management GRPC requests */
     private ScheduleManagementGrpc.ScheduleManagementImplBase scheduleManagementImpl;
 
@@ -63,8 +69,12 @@ public class ScheduleManagementTenantEngine extends MicroserviceTenantEngine
     @Override
     public void tenantInitialize(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	// Create management interfaces.
-	this.scheduleManagement = (IScheduleManagement) getModuleContext()
+	IScheduleManagement persistence = (IScheduleManagement) getModuleContext()
 		.getBean(ScheduleManagementBeans.BEAN_SCHEDULE_MANAGEMENT);
+	IScheduleManager scheduler = (IScheduleManager) getModuleContext()
+		.getBean(ScheduleManagementBeans.BEAN_SCHEDULE_MANAGER);
+	this.scheduleManager = new ClusteredScheduleManager(scheduler, persistence);
+	this.scheduleManagement = new ScheduleManagementTriggers(persistence, getScheduleManager());
 	this.scheduleManagementImpl = new ScheduleManagementImpl(getScheduleManagement());
 
 	// Create step that will initialize components.
@@ -76,6 +86,9 @@ public class ScheduleManagementTenantEngine extends MicroserviceTenantEngine
 	// Initialize schedule management persistence.
 	init.addInitializeStep(this, getScheduleManagement(), true);
 
+	// Initialize schedule manager.
+	init.addInitializeStep(this, getScheduleManager(), true);
+
 	// Execute initialization steps.
 	init.execute(monitor);
     }
@@ -95,6 +108,9 @@ public class ScheduleManagementTenantEngine extends MicroserviceTenantEngine
 	// Start schedule management persistence.
 	start.addStartStep(this, getScheduleManagement(), true);
 
+	// Start schedule manager.
+	start.addStartStep(this, getScheduleManager(), true);
+
 	// Execute startup steps.
 	start.execute(monitor);
     }
@@ -137,6 +153,9 @@ public class ScheduleManagementTenantEngine extends MicroserviceTenantEngine
 	// Create step that will stop components.
 	ICompositeLifecycleStep stop = new CompositeLifecycleStep("Stop " + getComponentName());
 
+	// Stop schedule manager.
+	stop.addStopStep(this, getScheduleManager());
+
 	// Stop schedule management persistence.
 	stop.addStopStep(this, getScheduleManagement());
 
@@ -160,6 +179,19 @@ public class ScheduleManagementTenantEngine extends MicroserviceTenantEngine
 	this.scheduleManagement = scheduleManagement;
     }
 
+    /*
+     * @see com.sitewhere.schedule.spi.microservice.IScheduleManagementTenantEngine#
+     * getScheduleManager()
+     */
+    @Override
+    public IScheduleManager getScheduleManager() {
+	return scheduleManager;
+    }
+
+    protected void setScheduleManager(IScheduleManager scheduleManager) {
+	this.scheduleManager = scheduleManager;
+    }
+
     /*
      * @see com.sitewhere.schedule.spi.microservice.IScheduleManagementTenantEngine#
      * getScheduleManagementImpl()
@@ -25,6 +25,9 @@ public interface IScheduleManagementMongoClient {
     /** Default collection name for SiteWhere scheduled jobs */
     public static final String DEFAULT_SCHEDULED_JOBS_COLLECTION_NAME = "scheduledjobs";
 
+    /** Default collection name for trigger leases */
+    public static final String DEFAULT_TRIGGER_LEASES_COLLECTION_NAME = "triggerleases";
+
     /**
      * Get collection for schedules.
      * 
@@ -40,4 +43,12 @@ public interface IScheduleManagementMongoClient {
      * @throws SiteWhereException
      */
     public MongoCollection<Document> getScheduledJobsCollection() throws SiteWhereException;
+
+    /**
+     * Get collection for trigger leases.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    public MongoCollection<Document> getTriggerLeasesCollection() throws SiteWhereException;
 }
\ No newline at end of file
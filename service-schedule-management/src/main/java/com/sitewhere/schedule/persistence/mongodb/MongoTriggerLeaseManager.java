@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.schedule.persistence.mongodb;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoClientException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.result.UpdateResult;
+import com.sitewhere.mongodb.MongoPersistence;
+import com.sitewhere.schedule.spi.ITriggerLeaseManager;
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Implementation of {@link ITriggerLeaseManager} that records each claimed
+ * firing as a document keyed by trigger and fire time. The unique primary key
+ * guarantees a single winner. An expired lease that was not completed is taken
+ * over with a conditional update. A TTL index removes expired leases.
+ * 
+ * @author Derek
+ */
+public class MongoTriggerLeaseManager implements ITriggerLeaseManager {
+
+    /** Property for lease owner */
+    public static final String PROP_OWNER = "ownr";
+
+    /** Property for fire time */
+    public static final String PROP_FIRE_TIME = "frtm";
+
+    /** Property for lease expiration */
+    public static final String PROP_EXPIRES = "expr";
+
+    /** Property indicating the firing was executed */
+    public static final String PROP_COMPLETE = "cmpl";
+
+    /** Default time a completed lease is retained after its fire time */
+    private static final long DEFAULT_LEASE_RETENTION_MS = TimeUnit.HOURS.toMillis(1);
+
+    /** Mongo client */
+    private IScheduleManagementMongoClient mongoClient;
+
+    /** Time a completed lease is retained after its fire time */
+    private long leaseRetentionMs = DEFAULT_LEASE_RETENTION_MS;
+
+    /** Indicates whether indexes have been created */
+    private volatile boolean indexesCreated = false;
+
+    public MongoTriggerLeaseManager(IScheduleManagementMongoClient mongoClient) {
+	this.mongoClient = mongoClient;
+    }
+
+    /*
+     * @see com.sitewhere.schedule.spi.ITriggerLeaseManager#claim(java.lang.String,
+     * java.util.Date, java.lang.String, java.util.Date)
+     */
+    @Override
+    public boolean claim(String triggerKey, Date fireTime, String owner, Date expires) throws SiteWhereException {
+	ensureIndexes();
+	Document lease = new Document(MongoScheduledJob.PROP_ID, getLeaseId(triggerKey, fireTime));
+	lease.append(PROP_OWNER, owner);
+	lease.append(PROP_FIRE_TIME, fireTime);
+	lease.append(PROP_EXPIRES, expires);
+	lease.append(PROP_COMPLETE, false);
+	try {
+	    getMongoClient().getTriggerLeasesCollection().insertOne(lease);
+	    return true;
+	} catch (MongoWriteException e) {
+	    if (ErrorCategory.DUPLICATE_KEY != e.getError().getCategory()) {
+		throw new SiteWhereException("Unable to claim trigger lease.", e);
+	    }
+	} catch (MongoClientException e) {
+	    throw MongoPersistence.handleClientException(e);
+	}
+
+	// Take over a lease that is already ours or that expired before completion.
+	try {
+	    List<Document> claimable = new ArrayList<Document>();
+	    claimable.add(new Document(PROP_OWNER, owner));
+	    claimable.add(new Document(PROP_EXPIRES, new Document("$lt", new Date())));
+	    Document query = new Document(MongoScheduledJob.PROP_ID, getLeaseId(triggerKey, fireTime))
+		    .append(PROP_COMPLETE, false).append("$or", claimable);
+	    Document update = new Document("$set", new Document(PROP_OWNER, owner).append(PROP_EXPIRES, expires));
+	    UpdateResult result = getMongoClient().getTriggerLeasesCollection().updateOne(query, update);
+	    return result.getMatchedCount() > 0;
+	} catch (MongoClientException e) {
+	    throw MongoPersistence.handleClientException(e);
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.schedule.spi.ITriggerLeaseManager#release(java.lang.String,
+     * java.util.Date, java.lang.String)
+     */
+    @Override
+    public void release(String triggerKey, Date fireTime, String owner) throws SiteWhereException {
+	try {
+	    Document query = new Document(MongoScheduledJob.PROP_ID, getLeaseId(triggerKey, fireTime))
+		    .append(PROP_OWNER, owner).append(PROP_COMPLETE, false);
+	    getMongoClient().getTriggerLeasesCollection().deleteOne(query);
+	} catch (MongoClientException e) {
+	    throw MongoPersistence.handleClientException(e);
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.schedule.spi.ITriggerLeaseManager#complete(java.lang.String,
+     * java.util.Date)
+     */
+    @Override
+    public void complete(String triggerKey, Date fireTime) throws SiteWhereException {
+	try {
+	    Document query = new Document(MongoScheduledJob.PROP_ID, getLeaseId(triggerKey, fireTime));
+	    Document update = new Document("$set", new Document(PROP_COMPLETE, true).append(PROP_EXPIRES,
+		    new Date(fireTime.getTime() + getLeaseRetentionMs())));
+	    getMongoClient().getTriggerLeasesCollection().updateOne(query, update);
+	} catch (MongoClientException e) {
+	    throw MongoPersistence.handleClientException(e);
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.schedule.spi.ITriggerLeaseManager#isComplete(java.lang.String,
+     * java.util.Date)
+     */
+    @Override
+    public boolean isComplete(String triggerKey, Date fireTime) throws SiteWhereException {
+	try {
+	    Document query = new Document(MongoScheduledJob.PROP_ID, getLeaseId(triggerKey, fireTime))
+		    .append(PROP_COMPLETE, true);
+	    return getMongoClient().getTriggerLeasesCollection().find(query).first() != null;
+	} catch (MongoClientException e) {
+	    throw MongoPersistence.handleClientException(e);
+	}
+    }
+
+    /**
+     * Get unique id for the lease on a trigger firing.
+     * 
+     * @param triggerKey
+     * @param fireTime
+     * @return
+     */
+    protected String getLeaseId(String triggerKey, Date fireTime) {
+	return triggerKey + "@" + fireTime.getTime();
+    }
+
+    /**
+     * Create TTL index so expired leases are removed automatically.
+     * 
+     * @throws SiteWhereException
+     */
+    protected void ensureIndexes() throws SiteWhereException {
+	if (indexesCreated) {
+	    return;
+	}
+	MongoCollection<Document> leases = getMongoClient().getTriggerLeasesCollection();
+	leases.createIndex(new Document(PROP_EXPIRES, 1), new IndexOptions().expireAfter(0L, TimeUnit.SECONDS));
+	indexesCreated = true;
+    }
+
+    public IScheduleManagementMongoClient getMongoClient() {
+	return mongoClient;
+    }
+
+    public void setMongoClient(IScheduleManagementMongoClient mongoClient) {
+	this.mongoClient = mongoClient;
+    }
+
+    public long getLeaseRetentionMs() {
+	return leaseRetentionMs;
+    }
+
+    public void setLeaseRetentionMs(long leaseRetentionMs) {
+	this.leaseRetentionMs = leaseRetentionMs;
+    }
+}
\ No newline at end of file
@@ -32,6 +32,9 @@ public class ScheduleManagementMongoClient extends MongoDbClient implements ISch
     /** Injected name used for scheduled jobs collection */
     private String scheduledJobsCollectionName = IScheduleManagementMongoClient.DEFAULT_SCHEDULED_JOBS_COLLECTION_NAME;
 
+    /** Injected name used for trigger leases collection */
+    private String triggerLeasesCollectionName = IScheduleManagementMongoClient.DEFAULT_TRIGGER_LEASES_COLLECTION_NAME;
+
     public ScheduleManagementMongoClient(MongoConfiguration configuration) {
 	super(configuration);
     }
@@ -56,6 +59,16 @@ public class ScheduleManagementMongoClient extends MongoDbClient implements ISch
 	return getDatabase().getCollection(getScheduledJobsCollectionName());
     }
 
+    /*
+     * @see
+     * com.sitewhere.schedule.persistence.mongodb.IScheduleManagementMongoClient#
+     * getTriggerLeasesCollection()
+     */
+    @Override
+    public MongoCollection<Document> getTriggerLeasesCollection() throws SiteWhereException {
+	return getDatabase().getCollection(getTriggerLeasesCollectionName());
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -81,4 +94,12 @@ public class ScheduleManagementMongoClient extends MongoDbClient implements ISch
     public void setScheduledJobsCollectionName(String scheduledJobsCollectionName) {
 	this.scheduledJobsCollectionName = scheduledJobsCollectionName;
     }
+
+    public String getTriggerLeasesCollectionName() {
+	return triggerLeasesCollectionName;
+    }
+
+    public void setTriggerLeasesCollectionName(String triggerLeasesCollectionName) {
+	this.triggerLeasesCollectionName = triggerLeasesCollectionName;
+    }
 }
\ No newline at end of file
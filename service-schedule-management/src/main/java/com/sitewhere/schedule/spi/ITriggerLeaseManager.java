@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.schedule.spi;
+
+import java.util.Date;
+
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Grants leases on individual trigger firings so that when several replicas
+ * load the same schedules, each firing is executed by one of them. A lease
+ * that is neither completed nor released before it expires may be claimed by
+ * another replica so that a firing is not lost if its owner goes away.
+ * 
+ * @author Derek
+ */
+public interface ITriggerLeaseManager {
+
+    /**
+     * Attempt to claim the firing of a trigger at the given time. Succeeds if no
+     * lease exists, if the lease is already held by the caller, or if the lease
+     * expired without being completed.
+     * 
+     * @param triggerKey
+     * @param fireTime
+     * @param owner
+     * @param expires
+     * @return true if the caller should fire the trigger
+     * @throws SiteWhereException
+     */
+    public boolean claim(String triggerKey, Date fireTime, String owner, Date expires) throws SiteWhereException;
+
+    /**
+     * Give up a lease that has not been completed so that another replica may
+     * claim the firing.
+     * 
+     * @param triggerKey
+     * @param fireTime
+     * @param owner
+     * @throws SiteWhereException
+     */
+    public void release(String triggerKey, Date fireTime, String owner) throws SiteWhereException;
+
+    /**
+     * Mark a firing as executed so that it is not claimed again.
+     * 
+     * @param triggerKey
+     * @param fireTime
+     * @throws SiteWhereException
+     */
+    public void complete(String triggerKey, Date fireTime) throws SiteWhereException;
+
+    /**
+     * Indicates whether a firing has been executed.
+     * 
+     * @param triggerKey
+     * @param fireTime
+     * @return
+     * @throws SiteWhereException
+     */
+    public boolean isComplete(String triggerKey, Date fireTime) throws SiteWhereException;
+}
\ No newline at end of file
@@ -16,12 +16,15 @@ import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.xml.AbstractBeanDefinitionParser;
 import org.springframework.beans.factory.xml.ParserContext;
 import org.springframework.util.xml.DomUtils;
+import org.w3c.dom.Attr;
 import org.w3c.dom.Element;
 
 import com.sitewhere.configuration.datastore.DatastoreConfiguration;
 import com.sitewhere.configuration.datastore.DatastoreConfigurationParser;
 import com.sitewhere.configuration.parser.IScheduleManagementParser.Elements;
+import com.sitewhere.schedule.QuartzScheduleManager;
 import com.sitewhere.schedule.persistence.mongodb.MongoScheduleManagement;
+import com.sitewhere.schedule.persistence.mongodb.MongoTriggerLeaseManager;
 import com.sitewhere.schedule.persistence.mongodb.ScheduleManagementMongoClient;
 import com.sitewhere.spi.microservice.spring.ScheduleManagementBeans;
 
@@ -58,9 +61,40 @@ public class ScheduleManagementParser extends AbstractBeanDefinitionParser {
 	    }
 	    }
 	}
+	parseScheduleManager(element, context);
 	return null;
     }
 
+    /**
+     * Parse schedule manager settings from the root element.
+     * 
+     * @param element
+     * @param context
+     */
+    protected void parseScheduleManager(Element element, ParserContext context) {
+	BeanDefinitionBuilder manager = BeanDefinitionBuilder.rootBeanDefinition(QuartzScheduleManager.class);
+	manager.addConstructorArgReference(ScheduleManagementBeans.BEAN_SCHEDULE_MANAGEMENT);
+	manager.addConstructorArgReference(ScheduleManagementBeans.BEAN_TRIGGER_LEASE_MANAGER);
+
+	Attr numProcessingThreads = element.getAttributeNode("numProcessingThreads");
+	if (numProcessingThreads != null) {
+	    manager.addPropertyValue("numProcessingThreads", numProcessingThreads.getValue());
+	}
+
+	Attr misfireThresholdMs = element.getAttributeNode("misfireThresholdMs");
+	if (misfireThresholdMs != null) {
+	    manager.addPropertyValue("misfireThresholdMs", misfireThresholdMs.getValue());
+	}
+
+	Attr leaseTimeoutMs = element.getAttributeNode("leaseTimeoutMs");
+	if (leaseTimeoutMs != null) {
+	    manager.addPropertyValue("leaseTimeoutMs", leaseTimeoutMs.getValue());
+	}
+
+	context.getRegistry().registerBeanDefinition(ScheduleManagementBeans.BEAN_SCHEDULE_MANAGER,
+		manager.getBeanDefinition());
+    }
+
     /**
      * Parse device management datastore element.
      * 
@@ -97,5 +131,11 @@ public class ScheduleManagementParser extends AbstractBeanDefinitionParser {
 
 	context.getRegistry().registerBeanDefinition(ScheduleManagementBeans.BEAN_SCHEDULE_MANAGEMENT,
 		management.getBeanDefinition());
+
+	// Build lease manager so replicas share trigger firings.
+	BeanDefinitionBuilder leases = BeanDefinitionBuilder.rootBeanDefinition(MongoTriggerLeaseManager.class);
+	leases.addConstructorArgReference(ScheduleManagementBeans.BEAN_MONGODB_CLIENT);
+	context.getRegistry().registerBeanDefinition(ScheduleManagementBeans.BEAN_TRIGGER_LEASE_MANAGER,
+		leases.getBeanDefinition());
     }
 }
\ No newline at end of file
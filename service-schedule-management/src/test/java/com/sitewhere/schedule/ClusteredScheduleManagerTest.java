@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.schedule;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import com.sitewhere.rest.model.scheduling.ScheduledJob;
+import com.sitewhere.rest.model.scheduling.request.ScheduledJobCreateRequest;
+import com.sitewhere.schedule.spi.IScheduleManager;
+import com.sitewhere.server.lifecycle.TenantEngineLifecycleComponent;
+import com.sitewhere.spi.scheduling.ISchedule;
+import com.sitewhere.spi.scheduling.IScheduleManagement;
+import com.sitewhere.spi.scheduling.IScheduledJob;
+import com.sitewhere.spi.scheduling.request.IScheduledJobCreateRequest;
+
+/**
+ * Verifies that schedule changes made through one replica are applied to the
+ * schedulers of all replicas.
+ * 
+ * @author Derek
+ */
+public class ClusteredScheduleManagerTest {
+
+    /** Maximum time to wait for an update to reach a replica */
+    private static final long TIMEOUT_SECONDS = 10;
+
+    /** Hazelcast member shared by both replicas */
+    private HazelcastInstance hazelcast;
+
+    /** Scheduled jobs shared by both replicas */
+    private Map<String, ScheduledJob> jobs = new ConcurrentHashMap<>();
+
+    /** Local scheduler of first replica */
+    private RecordingScheduleManager scheduler1 = new RecordingScheduleManager();
+
+    /** Local scheduler of second replica */
+    private RecordingScheduleManager scheduler2 = new RecordingScheduleManager();
+
+    /** API of first replica */
+    private IScheduleManagement api1;
+
+    /** API of second replica */
+    private IScheduleManagement api2;
+
+    @Before
+    public void setup() throws Exception {
+	Config config = new Config();
+	config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+	config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(false);
+	hazelcast = Hazelcast.newHazelcastInstance(config);
+	ITopic<ScheduleUpdate> topic = hazelcast.getTopic("schedule-updates");
+
+	IScheduleManagement persistence = (IScheduleManagement) Proxy.newProxyInstance(
+		IScheduleManagement.class.getClassLoader(), new Class<?>[] { IScheduleManagement.class },
+		new PersistenceHandler());
+	api1 = new ScheduleManagementTriggers(persistence, createReplica(scheduler1, persistence, topic));
+	api2 = new ScheduleManagementTriggers(persistence, createReplica(scheduler2, persistence, topic));
+    }
+
+    @After
+    public void teardown() {
+	hazelcast.shutdown();
+    }
+
+    @Test
+    public void testDeleteOnOneReplicaUnschedulesOnAll() throws Exception {
+	ScheduledJobCreateRequest request = new ScheduledJobCreateRequest();
+	request.setToken("job1");
+	api1.createScheduledJob(request);
+	awaitUpdates(1);
+	assertTrue(scheduler1.getJobs().contains("job1"));
+	assertTrue(scheduler2.getJobs().contains("job1"));
+
+	api2.deleteScheduledJob("job1", false);
+	awaitUpdates(1);
+	assertFalse(scheduler1.getJobs().contains("job1"));
+	assertFalse(scheduler2.getJobs().contains("job1"));
+    }
+
+    @Test
+    public void testLateCreateDoesNotResurrectDeletedJob() throws Exception {
+	ScheduledJobCreateRequest request = new ScheduledJobCreateRequest();
+	request.setToken("job2");
+	api1.createScheduledJob(request);
+	api2.deleteScheduledJob("job2", false);
+	awaitUpdates(2);
+	assertFalse(scheduler1.getJobs().contains("job2"));
+	assertFalse(scheduler2.getJobs().contains("job2"));
+    }
+
+    /**
+     * Wait until both replicas have applied the given number of updates.
+     * 
+     * @param count
+     * @throws InterruptedException
+     */
+    protected void awaitUpdates(int count) throws InterruptedException {
+	assertTrue(scheduler1.getApplied().tryAcquire(count, TIMEOUT_SECONDS, TimeUnit.SECONDS));
+	assertTrue(scheduler2.getApplied().tryAcquire(count, TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    protected IScheduleManager createReplica(RecordingScheduleManager scheduler, IScheduleManagement persistence,
+	    ITopic<ScheduleUpdate> topic) {
+	ClusteredScheduleManager manager = new ClusteredScheduleManager(scheduler, persistence);
+	manager.subscribe(topic);
+	manager.applyPending();
+	return manager;
+    }
+
+    /**
+     * Handles schedule management persistence calls with an in-memory map of
+     * jobs shared by both replicas.
+     */
+    private class PersistenceHandler implements InvocationHandler {
+
+	/*
+	 * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object,
+	 * java.lang.reflect.Method, java.lang.Object[])
+	 */
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+	    switch (method.getName()) {
+	    case "createScheduledJob": {
+		ScheduledJob job = new ScheduledJob();
+		job.setToken(((IScheduledJobCreateRequest) args[0]).getToken());
+		jobs.put(job.getToken(), job);
+		return job;
+	    }
+	    case "getScheduledJobByToken": {
+		return jobs.get(args[0]);
+	    }
+	    case "deleteScheduledJob": {
+		ScheduledJob job = jobs.get(args[0]);
+		job.setDeleted(true);
+		return job;
+	    }
+	    default: {
+		return null;
+	    }
+	    }
+	}
+    }
+
+    /**
+     * Local scheduler that records scheduled jobs.
+     */
+    private static class RecordingScheduleManager extends TenantEngineLifecycleComponent
+	    implements IScheduleManager {
+
+	/** Static logger instance */
+	private static Log LOGGER = LogFactory.getLog(RecordingScheduleManager.class);
+
+	/** Tokens of scheduled jobs */
+	private Set<String> jobs = ConcurrentHashMap.newKeySet();
+
+	/** Released for each update applied */
+	private Semaphore applied = new Semaphore(0);
+
+	@Override
+	public void scheduleAdded(ISchedule schedule) {
+	    applied.release();
+	}
+
+	@Override
+	public void scheduleRemoved(ISchedule schedule) {
+	    applied.release();
+	}
+
+	@Override
+	public void scheduleJob(IScheduledJob job) {
+	    jobs.add(job.getToken());
+	    applied.release();
+	}
+
+	@Override
+	public void unscheduleJob(IScheduledJob job) {
+	    jobs.remove(job.getToken());
+	    applied.release();
+	}
+
+	@Override
+	public Log getLogger() {
+	    return LOGGER;
+	}
+
+	public Set<String> getJobs() {
+	    return jobs;
+	}
+
+	public Semaphore getApplied() {
+	    return applied;
+	}
+    }
+}
\ No newline at end of file
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.schedule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.impl.DirectSchedulerFactory;
+import org.quartz.simpl.SimpleThreadPool;
+
+import com.sitewhere.schedule.spi.ITriggerLeaseManager;
+
+public class LeasedJobStoreTest {
+
+    /** Time a firing is leased before another replica may claim it */
+    private static final long LEASE_TIMEOUT_MS = 500;
+
+    /** Time scheduler waits between checks when no triggers are due */
+    private static final long IDLE_WAIT_MS = 1000;
+
+    /** Number of times the trigger fires */
+    private static final int FIRE_COUNT = 20;
+
+    /** Interval between firings */
+    private static final long INTERVAL_MS = 100;
+
+    /** Executions recorded by scheduled fire time */
+    private static final Map<Long, AtomicInteger> EXECUTIONS = new ConcurrentHashMap<>();
+
+    /** Counts down on each execution */
+    private static volatile CountDownLatch EXECUTED = new CountDownLatch(0);
+
+    /** Leases shared by both replicas */
+    private InMemoryLeaseManager leaseManager = new InMemoryLeaseManager();
+
+    /** First replica */
+    private Scheduler replica1;
+
+    /** Second replica */
+    private Scheduler replica2;
+
+    @Before
+    public void setup() throws Exception {
+	EXECUTIONS.clear();
+	replica1 = createReplica("replica1", leaseManager);
+	replica2 = createReplica("replica2", leaseManager);
+    }
+
+    @After
+    public void teardown() throws Exception {
+	replica1.shutdown(true);
+	replica2.shutdown(true);
+    }
+
+    @Test
+    public void testEachFiringExecutesOnce() throws Exception {
+	Date start = new Date(System.currentTimeMillis() + 500);
+	replica1.scheduleJob(createJob(), createTrigger(start));
+	replica2.scheduleJob(createJob(), createTrigger(start));
+	replica1.start();
+	replica2.start();
+
+	Thread.sleep(500 + (FIRE_COUNT * INTERVAL_MS) + 1000);
+
+	assertEquals(FIRE_COUNT, EXECUTIONS.size());
+	for (AtomicInteger count : EXECUTIONS.values()) {
+	    assertEquals(1, count.get());
+	}
+    }
+
+    @Test
+    public void testAbandonedFiringIsRecovered() throws Exception {
+	EXECUTED = new CountDownLatch(1);
+	Date start = new Date(System.currentTimeMillis() + 500);
+	Trigger trigger = TriggerBuilder.newTrigger().withIdentity("campaign").startAt(start).build();
+
+	// Simulate a replica that claimed the firing and stopped before running it.
+	String triggerKey = trigger.getKey().toString();
+	assertTrue(leaseManager.claim(triggerKey, start, "stopped", new Date(start.getTime() + LEASE_TIMEOUT_MS)));
+
+	replica1.scheduleJob(createJob(), trigger);
+	replica1.start();
+
+	assertTrue(EXECUTED.await(10, TimeUnit.SECONDS));
+	assertTrue(leaseManager.isComplete(triggerKey, start));
+	assertEquals(1, EXECUTIONS.size());
+    }
+
+    protected Scheduler createReplica(String name, ITriggerLeaseManager leaseManager) throws Exception {
+	DirectSchedulerFactory.getInstance().createScheduler(name, name, new SimpleThreadPool(5, Thread.NORM_PRIORITY),
+		new LeasedJobStore(leaseManager, name, LEASE_TIMEOUT_MS), null, null, 0, IDLE_WAIT_MS, -1, false, null);
+	return DirectSchedulerFactory.getInstance().getScheduler(name);
+    }
+
+    protected JobDetail createJob() {
+	return JobBuilder.newJob(RecordingJob.class).withIdentity("campaign").build();
+    }
+
+    protected Trigger createTrigger(Date start) {
+	SimpleScheduleBuilder simple = SimpleScheduleBuilder.simpleSchedule().withIntervalInMilliseconds(INTERVAL_MS)
+		.withRepeatCount(FIRE_COUNT - 1).withMisfireHandlingInstructionNextWithRemainingCount();
+	return TriggerBuilder.newTrigger().withIdentity("campaign").startAt(start).withSchedule(simple).build();
+    }
+
+    /**
+     * Records each execution by scheduled fire time.
+     */
+    public static class RecordingJob implements Job {
+
+	@Override
+	public void execute(JobExecutionContext context) {
+	    EXECUTIONS.computeIfAbsent(context.getScheduledFireTime().getTime(), key -> new AtomicInteger())
+		    .incrementAndGet();
+	    EXECUTED.countDown();
+	}
+    }
+
+    /**
+     * Lease manager shared by replicas running in the same process.
+     */
+    private static class InMemoryLeaseManager implements ITriggerLeaseManager {
+
+	/** Leases by trigger key and fire time */
+	private Map<String, Lease> leases = new HashMap<>();
+
+	@Override
+	public synchronized boolean claim(String triggerKey, Date fireTime, String owner, Date expires) {
+	    String id = triggerKey + "@" + fireTime.getTime();
+	    Lease lease = leases.get(id);
+	    if ((lease == null) || (!lease.complete
+		    && (lease.owner.equals(owner) || (lease.expires < System.currentTimeMillis())))) {
+		leases.put(id, new Lease(owner, expires.getTime()));
+		return true;
+	    }
+	    return false;
+	}
+
+	@Override
+	public synchronized void release(String triggerKey, Date fireTime, String owner) {
+	    String id = triggerKey + "@" + fireTime.getTime();
+	    Lease lease = leases.get(id);
+	    if ((lease != null) && (!lease.complete) && (lease.owner.equals(owner))) {
+		leases.remove(id);
+	    }
+	}
+
+	@Override
+	public synchronized void complete(String triggerKey, Date fireTime) {
+	    Lease lease = leases.get(triggerKey + "@" + fireTime.getTime());
+	    if (lease != null) {
+		lease.complete = true;
+	    }
+	}
+
+	@Override
+	public synchronized boolean isComplete(String triggerKey, Date fireTime) {
+	    Lease lease = leases.get(triggerKey + "@" + fireTime.getTime());
+	    return (lease != null) && (lease.complete);
+	}
+    }
+
+    /**
+     * Lease on a single firing.
+     */
+    private static class Lease {
+
+	/** Replica holding the lease */
+	private String owner;
+
+	/** Time lease expires */
+	private long expires;
+
+	/** Indicates firing was executed */
+	private boolean complete;
+
+	public Lease(String owner, long expires) {
+	    this.owner = owner;
+	    this.expires = expires;
+	}
+    }
+}
\ No newline at end of file
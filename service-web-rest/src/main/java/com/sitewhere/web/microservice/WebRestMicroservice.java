@@ -14,6 +14,7 @@ import com.sitewhere.grpc.client.asset.AssetManagementApiDemux;
 import com.sitewhere.grpc.client.batch.BatchManagementApiDemux;
 import com.sitewhere.grpc.client.device.DeviceManagementApiDemux;
 import com.sitewhere.grpc.client.event.DeviceEventManagementApiDemux;
+import com.sitewhere.grpc.client.sources.EventSourcesApiDemux;
 import com.sitewhere.grpc.client.label.LabelGenerationApiDemux;
 import com.sitewhere.grpc.client.schedule.ScheduleManagementApiDemux;
 import com.sitewhere.grpc.client.spi.ApiNotAvailableException;
@@ -21,6 +22,7 @@ import com.sitewhere.grpc.client.spi.client.IAssetManagementApiDemux;
 import com.sitewhere.grpc.client.spi.client.IBatchManagementApiDemux;
 import com.sitewhere.grpc.client.spi.client.IDeviceEventManagementApiDemux;
 import com.sitewhere.grpc.client.spi.client.IDeviceManagementApiDemux;
+import com.sitewhere.grpc.client.spi.client.IEventSourcesApiDemux;
 import com.sitewhere.grpc.client.spi.client.ILabelGenerationApiDemux;
 import com.sitewhere.grpc.client.spi.client.IScheduleManagementApiDemux;
 import com.sitewhere.grpc.client.spi.client.ITenantManagementApiDemux;
@@ -79,6 +81,9 @@ public class WebRestMicroservice extends GlobalMicroservice implements IWebRestM
     /** Label generation API demux */
     private ILabelGenerationApiDemux labelGenerationApiDemux;
 
+    /** Event sources API demux */
+    private IEventSourcesApiDemux eventSourcesApiDemux;
+
     /** Microservice management coordinator */
     private IMicroserviceManagementCoordinator microserviceManagementCoordinator;
 
@@ -227,6 +232,9 @@ public class WebRestMicroservice extends GlobalMicroservice implements IWebRestM
 	// Label generation.
 	this.labelGenerationApiDemux = new LabelGenerationApiDemux(this);
 
+	// Event sources.
+	this.eventSourcesApiDemux = new EventSourcesApiDemux(this);
+
 	// Microservice management coordinator.
 	this.microserviceManagementCoordinator = new MicroserviceManagementCoordinator(this);
     }
@@ -267,6 +275,9 @@ public class WebRestMicroservice extends GlobalMicroservice implements IWebRestM
 	// Start label generation API demux.
 	start.addStartStep(this, getLabelGenerationApiDemux(), true);
 
+	// Start event sources API demux.
+	start.addStartStep(this, getEventSourcesApiDemux(), true);
+
 	// Start microservice management coordinator.
 	start.addStartStep(this, getMicroserviceManagementCoordinator(), true);
 
@@ -309,6 +320,9 @@ public class WebRestMicroservice extends GlobalMicroservice implements IWebRestM
 	// Stop label generation API demux.
 	stop.addStopStep(this, getLabelGenerationApiDemux());
 
+	// Stop event sources API demux.
+	stop.addStopStep(this, getEventSourcesApiDemux());
+
 	// Stop microservice management coordinator.
 	stop.addStopStep(this, getMicroserviceManagementCoordinator());
 
@@ -420,6 +434,19 @@ public class WebRestMicroservice extends GlobalMicroservice implements IWebRestM
 	this.labelGenerationApiDemux = labelGenerationApiDemux;
     }
 
+    /*
+     * @see com.sitewhere.web.spi.microservice.IWebRestMicroservice#
+     * getEventSourcesApiDemux()
+     */
+    @Override
+    public IEventSourcesApiDemux getEventSourcesApiDemux() {
+	return eventSourcesApiDemux;
+    }
+
+    public void setEventSourcesApiDemux(IEventSourcesApiDemux eventSourcesApiDemux) {
+	this.eventSourcesApiDemux = eventSourcesApiDemux;
+    }
+
     /*
      * @see com.sitewhere.web.spi.microservice.IWebRestMicroservice#
      * getMicroserviceManagementCoordinator()
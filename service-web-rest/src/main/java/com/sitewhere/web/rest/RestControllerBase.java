@@ -7,17 +7,24 @@
  */
 package com.sitewhere.web.rest;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 
 import com.sitewhere.security.UserContextManager;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.SiteWhereSystemException;
 import com.sitewhere.spi.error.ErrorCode;
 import com.sitewhere.spi.error.ErrorLevel;
+import com.sitewhere.spi.label.ILabel;
 import com.sitewhere.spi.user.IUser;
 import com.sitewhere.spi.user.SiteWhereAuthority;
 import com.sitewhere.web.spi.microservice.IWebRestMicroservice;
@@ -78,6 +85,39 @@ public class RestControllerBase {
 	return true;
     }
 
+    /**
+     * Build response for a generated label image. Label content is deterministic,
+     * so an entity tag derived from the content is returned and requests with a
+     * matching "If-None-Match" header receive a "Not Modified" response with no
+     * body.
+     * 
+     * @param label
+     * @param servletRequest
+     * @return
+     */
+    public static ResponseEntity<byte[]> labelResponse(ILabel label, HttpServletRequest servletRequest) {
+	if (label == null) {
+	    return ResponseEntity.notFound().build();
+	}
+	String etag = "\"" + DigestUtils.md5DigestAsHex(label.getContent()) + "\"";
+	String ifNoneMatch = servletRequest.getHeader(HttpHeaders.IF_NONE_MATCH);
+	if (ifNoneMatch != null) {
+	    for (String candidate : ifNoneMatch.split(",")) {
+		String trimmed = candidate.trim();
+		if (trimmed.startsWith("W/")) {
+		    trimmed = trimmed.substring(2);
+		}
+		if (trimmed.equals("*") || trimmed.equals(etag)) {
+		    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+		}
+	    }
+	}
+	final HttpHeaders headers = new HttpHeaders();
+	headers.setContentType(MediaType.IMAGE_PNG);
+	headers.setETag(etag);
+	return new ResponseEntity<byte[]>(label.getContent(), headers, HttpStatus.OK);
+    }
+
     /**
      * Throw exception indicating operation is not permitted.
      * 
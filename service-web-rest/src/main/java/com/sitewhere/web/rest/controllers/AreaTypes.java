@@ -13,9 +13,6 @@ import java.util.List;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -123,10 +120,7 @@ public class AreaTypes extends RestControllerBase {
 	    HttpServletRequest servletRequest, HttpServletResponse response) throws SiteWhereException {
 	IAreaType existing = assertAreaType(areaTypeToken);
 	ILabel label = getLabelGeneration().getAreaTypeLabel(generatorId, existing.getId());
-
-	final HttpHeaders headers = new HttpHeaders();
-	headers.setContentType(MediaType.IMAGE_PNG);
-	return new ResponseEntity<byte[]>(label.getContent(), headers, HttpStatus.OK);
+	return labelResponse(label, servletRequest);
     }
 
     /**
@@ -20,9 +20,6 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.format.annotation.DateTimeFormat;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -33,6 +30,7 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.sitewhere.asset.PrefetchedAssetManagement;
 import com.sitewhere.device.marshaling.AreaMarshalHelper;
 import com.sitewhere.device.marshaling.DeviceAssignmentMarshalHelper;
 import com.sitewhere.rest.model.area.Zone;
@@ -62,6 +60,7 @@ import com.sitewhere.spi.device.IDeviceManagement;
 import com.sitewhere.spi.device.event.IDeviceAlert;
 import com.sitewhere.spi.device.event.IDeviceCommandInvocation;
 import com.sitewhere.spi.device.event.IDeviceCommandResponse;
+import com.sitewhere.spi.device.event.IDeviceEvent;
 import com.sitewhere.spi.device.event.IDeviceEventManagement;
 import com.sitewhere.spi.device.event.IDeviceLocation;
 import com.sitewhere.spi.device.event.IDeviceMeasurements;
@@ -164,12 +163,7 @@ public class Areas extends RestControllerBase {
 	    HttpServletRequest servletRequest, HttpServletResponse response) throws SiteWhereException {
 	IArea existing = assertArea(areaToken);
 	ILabel label = getLabelGeneration().getAreaLabel(generatorId, existing.getId());
-	if (label == null) {
-	    return ResponseEntity.notFound().build();
-	}
-	final HttpHeaders headers = new HttpHeaders();
-	headers.setContentType(MediaType.IMAGE_PNG);
-	return new ResponseEntity<byte[]>(label.getContent(), headers, HttpStatus.OK);
+	return labelResponse(label, servletRequest);
     }
 
     /**
@@ -287,9 +281,10 @@ public class Areas extends RestControllerBase {
 		criteria);
 
 	// Marshal with asset info since multiple assignments might match.
+	IAssetManagement assets = prefetchAssets(results.getResults());
 	List<IDeviceMeasurements> wrapped = new ArrayList<IDeviceMeasurements>();
 	for (IDeviceMeasurements result : results.getResults()) {
-	    wrapped.add(new DeviceMeasurementsWithAsset(result, getAssetManagement()));
+	    wrapped.add(new DeviceMeasurementsWithAsset(result, assets));
 	}
 	return new SearchResults<IDeviceMeasurements>(wrapped, results.getNumResults());
     }
@@ -318,9 +313,10 @@ public class Areas extends RestControllerBase {
 		criteria);
 
 	// Marshal with asset info since multiple assignments might match.
+	IAssetManagement assets = prefetchAssets(results.getResults());
 	List<IDeviceLocation> wrapped = new ArrayList<IDeviceLocation>();
 	for (IDeviceLocation result : results.getResults()) {
-	    wrapped.add(new DeviceLocationWithAsset(result, getAssetManagement()));
+	    wrapped.add(new DeviceLocationWithAsset(result, assets));
 	}
 	return new SearchResults<IDeviceLocation>(wrapped, results.getNumResults());
     }
@@ -348,9 +344,10 @@ public class Areas extends RestControllerBase {
 	ISearchResults<IDeviceAlert> results = getDeviceEventManagement().listDeviceAlertsForAreas(areas, criteria);
 
 	// Marshal with asset info since multiple assignments might match.
+	IAssetManagement assets = prefetchAssets(results.getResults());
 	List<IDeviceAlert> wrapped = new ArrayList<IDeviceAlert>();
 	for (IDeviceAlert result : results.getResults()) {
-	    wrapped.add(new DeviceAlertWithAsset(result, getAssetManagement()));
+	    wrapped.add(new DeviceAlertWithAsset(result, assets));
 	}
 	return new SearchResults<IDeviceAlert>(wrapped, results.getNumResults());
     }
@@ -379,9 +376,10 @@ public class Areas extends RestControllerBase {
 		.listDeviceCommandInvocationsForAreas(areas, criteria);
 
 	// Marshal with asset info since multiple assignments might match.
+	IAssetManagement assets = prefetchAssets(results.getResults());
 	List<IDeviceCommandInvocation> wrapped = new ArrayList<IDeviceCommandInvocation>();
 	for (IDeviceCommandInvocation result : results.getResults()) {
-	    wrapped.add(new DeviceCommandInvocationWithAsset(result, getAssetManagement()));
+	    wrapped.add(new DeviceCommandInvocationWithAsset(result, assets));
 	}
 	return new SearchResults<IDeviceCommandInvocation>(wrapped, results.getNumResults());
     }
@@ -410,9 +408,10 @@ public class Areas extends RestControllerBase {
 		.listDeviceCommandResponsesForAreas(areas, criteria);
 
 	// Marshal with asset info since multiple assignments might match.
+	IAssetManagement assets = prefetchAssets(results.getResults());
 	List<IDeviceCommandResponse> wrapped = new ArrayList<IDeviceCommandResponse>();
 	for (IDeviceCommandResponse result : results.getResults()) {
-	    wrapped.add(new DeviceCommandResponseWithAsset(result, getAssetManagement()));
+	    wrapped.add(new DeviceCommandResponseWithAsset(result, assets));
 	}
 	return new SearchResults<IDeviceCommandResponse>(wrapped, results.getNumResults());
     }
@@ -441,9 +440,10 @@ public class Areas extends RestControllerBase {
 		criteria);
 
 	// Marshal with asset info since multiple assignments might match.
+	IAssetManagement assets = prefetchAssets(results.getResults());
 	List<IDeviceStateChange> wrapped = new ArrayList<IDeviceStateChange>();
 	for (IDeviceStateChange result : results.getResults()) {
-	    wrapped.add(new DeviceStateChangeWithAsset(result, getAssetManagement()));
+	    wrapped.add(new DeviceStateChangeWithAsset(result, assets));
 	}
 	return new SearchResults<IDeviceStateChange>(wrapped, results.getNumResults());
     }
@@ -478,10 +478,8 @@ public class Areas extends RestControllerBase {
 	DeviceAssignmentMarshalHelper helper = new DeviceAssignmentMarshalHelper(getDeviceManagement());
 	helper.setIncludeAsset(includeAsset);
 	helper.setIncludeDevice(includeDevice);
-	List<DeviceAssignment> converted = new ArrayList<DeviceAssignment>();
-	for (IDeviceAssignment assignment : matches.getResults()) {
-	    converted.add(helper.convert(assignment, getAssetManagement()));
-	}
+	List<DeviceAssignment> converted = new ArrayList<DeviceAssignment>(
+		helper.convert(matches.getResults(), getAssetManagement()));
 	return new SearchResults<DeviceAssignment>(converted, matches.getNumResults());
     }
 
@@ -632,10 +630,26 @@ public class Areas extends RestControllerBase {
      */
     public static List<UUID> resolveAreaIds(String areaToken, boolean recursive, IDeviceManagement deviceManagement)
 	    throws SiteWhereException {
-	List<IArea> areas = resolveAreas(areaToken, recursive, deviceManagement);
+	IArea existing = deviceManagement.getAreaByToken(areaToken);
+	if (existing == null) {
+	    return new ArrayList<UUID>();
+	}
 	List<UUID> ids = new ArrayList<>();
-	for (IArea area : areas) {
-	    ids.add(area.getId());
+	ids.add(existing.getId());
+	if (recursive) {
+	    try {
+		ids.addAll(deviceManagement.getAreaDescendantIds(existing.getId()));
+	    } catch (SiteWhereSystemException e) {
+		// Fall back to walking the hierarchy if no index is available.
+		if (e.getCode() != ErrorCode.OperationNotSupported) {
+		    throw e;
+		}
+		List<IArea> areas = resolveAreas(areaToken, recursive, deviceManagement);
+		ids.clear();
+		for (IArea area : areas) {
+		    ids.add(area.getId());
+		}
+	    }
 	}
 	return ids;
     }
@@ -680,6 +694,23 @@ public class Areas extends RestControllerBase {
 	}
     }
 
+    /**
+     * Load assets referenced by a page of events with a single bulk call.
+     * 
+     * @param events
+     * @return
+     * @throws SiteWhereException
+     */
+    protected IAssetManagement prefetchAssets(List<? extends IDeviceEvent> events) throws SiteWhereException {
+	List<UUID> assetIds = new ArrayList<>();
+	for (IDeviceEvent event : events) {
+	    assetIds.add(event.getAssetId());
+	}
+	PrefetchedAssetManagement assets = new PrefetchedAssetManagement(getAssetManagement());
+	assets.prefetch(assetIds);
+	return assets;
+    }
+
     private IDeviceManagement getDeviceManagement() {
 	return getMicroservice().getDeviceManagementApiDemux().getApiChannel();
     }
@@ -25,9 +25,6 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -216,12 +213,7 @@ public class Assignments extends RestControllerBase {
 	    HttpServletRequest servletRequest, HttpServletResponse response) throws SiteWhereException {
 	IDeviceAssignment existing = assertDeviceAssignment(token);
 	ILabel label = getLabelGeneration().getDeviceAssignmentLabel(generatorId, existing.getId());
-	if (label == null) {
-	    return ResponseEntity.notFound().build();
-	}
-	final HttpHeaders headers = new HttpHeaders();
-	headers.setContentType(MediaType.IMAGE_PNG);
-	return new ResponseEntity<byte[]>(label.getContent(), headers, HttpStatus.OK);
+	return labelResponse(label, servletRequest);
     }
 
     /**
@@ -283,10 +275,7 @@ public class Assignments extends RestControllerBase {
 	helper.setIncludeArea(includeArea);
 	helper.setIncludeAsset(includeAsset);
 
-	List<IDeviceAssignment> results = new ArrayList<>();
-	for (IDeviceAssignment assn : matches.getResults()) {
-	    results.add(helper.convert(assn, getAssetManagement()));
-	}
+	List<IDeviceAssignment> results = new ArrayList<>(helper.convert(matches.getResults(), getAssetManagement()));
 	return new SearchResults<IDeviceAssignment>(results, matches.getNumResults());
     }
 
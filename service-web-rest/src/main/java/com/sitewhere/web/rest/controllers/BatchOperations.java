@@ -24,7 +24,6 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.sitewhere.batch.BatchUtils;
 import com.sitewhere.batch.marshaling.BatchElementMarshalHelper;
 import com.sitewhere.batch.marshaling.BatchOperationMarshalHelper;
 import com.sitewhere.rest.model.batch.request.BatchCommandForCriteriaRequest;
@@ -35,7 +34,6 @@ import com.sitewhere.rest.model.search.device.BatchElementSearchCriteria;
 import com.sitewhere.schedule.ScheduledJobHelper;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.SiteWhereSystemException;
-import com.sitewhere.spi.asset.IAssetManagement;
 import com.sitewhere.spi.batch.IBatchElement;
 import com.sitewhere.spi.batch.IBatchManagement;
 import com.sitewhere.spi.batch.IBatchOperation;
@@ -154,18 +152,7 @@ public class BatchOperations extends RestControllerBase {
 		    .createBatchCommandInvocationJobByCriteria(UUID.randomUUID().toString(), request, scheduleToken);
 	    return getScheduleManagement().createScheduledJob(job);
 	} else {
-	    // Resolve tokens for devices matching criteria.
-	    List<String> deviceTokens = BatchUtils.resolveDeviceTokensForCriteria(request, getDeviceManagement(),
-		    getAssetManagement());
-
-	    // Create batch command invocation.
-	    BatchCommandInvocationRequest invoke = new BatchCommandInvocationRequest();
-	    invoke.setToken(request.getToken());
-	    invoke.setCommandToken(request.getCommandToken());
-	    invoke.setParameterValues(request.getParameterValues());
-	    invoke.setDeviceTokens(deviceTokens);
-
-	    IBatchOperation result = getBatchManagement().createBatchCommandInvocation(invoke);
+	    IBatchOperation result = getBatchManagement().createBatchCommandInvocationFromCriteria(request);
 	    BatchOperationMarshalHelper helper = new BatchOperationMarshalHelper();
 	    return helper.convert(result);
 	}
@@ -205,10 +192,6 @@ public class BatchOperations extends RestControllerBase {
 	return getMicroservice().getDeviceManagementApiDemux().getApiChannel();
     }
 
-    private IAssetManagement getAssetManagement() {
-	return getMicroservice().getAssetManagementApiDemux().getApiChannel();
-    }
-
     protected IBatchManagement getBatchManagement() {
 	return getMicroservice().getBatchManagementApiDemux().getApiChannel();
     }
@@ -10,7 +10,9 @@ package com.sitewhere.web.rest.controllers;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.servlet.http.HttpServletRequest;
@@ -19,9 +21,6 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.format.annotation.DateTimeFormat;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -164,12 +163,40 @@ public class Devices extends RestControllerBase {
 	    HttpServletRequest servletRequest, HttpServletResponse response) throws SiteWhereException {
 	IDevice existing = assertDeviceByToken(deviceToken);
 	ILabel label = getLabelGeneration().getDeviceLabel(generatorId, existing.getId());
-	if (label == null) {
-	    return ResponseEntity.notFound().build();
+	return labelResponse(label, servletRequest);
+    }
+
+    /**
+     * Get a single image containing labels for a list of devices.
+     * 
+     * @param generatorId
+     * @param deviceTokens
+     * @param columns
+     * @param servletRequest
+     * @return
+     * @throws SiteWhereException
+     */
+    @RequestMapping(value = "/labels/{generatorId}", method = RequestMethod.POST)
+    @ApiOperation(value = "Get label sheet for list of devices")
+    public ResponseEntity<byte[]> getDeviceLabelSheet(
+	    @ApiParam(value = "Generator id", required = true) @PathVariable String generatorId,
+	    @RequestBody List<String> deviceTokens,
+	    @ApiParam(value = "Number of labels per row", required = false) @RequestParam(defaultValue = "4") int columns,
+	    HttpServletRequest servletRequest) throws SiteWhereException {
+	Map<String, IDevice> devicesByToken = new HashMap<>();
+	for (IDevice device : getDeviceManagement().getDevicesByToken(deviceTokens)) {
+	    devicesByToken.put(device.getToken(), device);
+	}
+	List<UUID> deviceIds = new ArrayList<>();
+	for (String deviceToken : deviceTokens) {
+	    IDevice device = devicesByToken.get(deviceToken);
+	    if (device == null) {
+		throw new SiteWhereSystemException(ErrorCode.InvalidDeviceToken, ErrorLevel.ERROR);
+	    }
+	    deviceIds.add(device.getId());
 	}
-	final HttpHeaders headers = new HttpHeaders();
-	headers.setContentType(MediaType.IMAGE_PNG);
-	return new ResponseEntity<byte[]>(label.getContent(), headers, HttpStatus.OK);
+	ILabel label = getLabelGeneration().getDeviceLabelSheet(generatorId, deviceIds, columns);
+	return labelResponse(label, servletRequest);
     }
 
     /**
@@ -244,10 +271,8 @@ public class Devices extends RestControllerBase {
 	DeviceAssignmentMarshalHelper helper = new DeviceAssignmentMarshalHelper(getDeviceManagement());
 	helper.setIncludeAsset(includeAsset);
 	helper.setIncludeDevice(includeDevice);
-	List<IDeviceAssignment> converted = new ArrayList<IDeviceAssignment>();
-	for (IDeviceAssignment assignment : history.getResults()) {
-	    converted.add(helper.convert(assignment, getAssetManagement()));
-	}
+	List<IDeviceAssignment> converted = new ArrayList<IDeviceAssignment>(
+		helper.convert(history.getResults(), getAssetManagement()));
 	return new SearchResults<IDeviceAssignment>(converted, history.getNumResults());
     }
 
@@ -342,10 +367,7 @@ public class Devices extends RestControllerBase {
 	DeviceMarshalHelper helper = new DeviceMarshalHelper(getDeviceManagement());
 	helper.setIncludeDeviceType(includeDeviceType);
 	helper.setIncludeAssignment(includeAssignment);
-	List<IDevice> devicesConv = new ArrayList<IDevice>();
-	for (IDevice device : results.getResults()) {
-	    devicesConv.add(helper.convert(device, getAssetManagement()));
-	}
+	List<IDevice> devicesConv = new ArrayList<IDevice>(helper.convert(results.getResults(), getAssetManagement()));
 	return new SearchResults<IDevice>(devicesConv, results.getNumResults());
     }
 
@@ -372,10 +394,8 @@ public class Devices extends RestControllerBase {
 	DeviceMarshalHelper helper = new DeviceMarshalHelper(getDeviceManagement());
 	helper.setIncludeDeviceType(includeDeviceType);
 	helper.setIncludeAssignment(includeAssignment);
-	List<IDevice> devicesConv = new ArrayList<IDevice>();
-	for (IDevice device : matches) {
-	    devicesConv.add(helper.convert(device, getAssetManagement()));
-	}
+	List<IDevice> devicesConv = new ArrayList<IDevice>(
+		helper.convert(new ArrayList<IDevice>(matches), getAssetManagement()));
 	return new SearchResults<IDevice>(devicesConv, matches.size());
     }
 
@@ -401,10 +421,8 @@ public class Devices extends RestControllerBase {
 	DeviceMarshalHelper helper = new DeviceMarshalHelper(getDeviceManagement());
 	helper.setIncludeDeviceType(includeDeviceType);
 	helper.setIncludeAssignment(includeAssignment);
-	List<IDevice> devicesConv = new ArrayList<IDevice>();
-	for (IDevice device : matches) {
-	    devicesConv.add(helper.convert(device, getAssetManagement()));
-	}
+	List<IDevice> devicesConv = new ArrayList<IDevice>(
+		helper.convert(new ArrayList<IDevice>(matches), getAssetManagement()));
 	return new SearchResults<IDevice>(devicesConv, matches.size());
     }
 
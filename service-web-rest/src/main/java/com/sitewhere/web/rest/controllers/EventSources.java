@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.web.rest.controllers;
+
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.sitewhere.rest.model.search.sources.FailedDecodeSearchCriteria;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.search.ISearchResults;
+import com.sitewhere.spi.sources.IEventSourcesMetrics;
+import com.sitewhere.spi.sources.IEventSourcesMonitoring;
+import com.sitewhere.spi.sources.IFailedDecode;
+import com.sitewhere.spi.sources.IFailedDecodeManagement;
+import com.sitewhere.spi.sources.IFailedDecodeReplayStatus;
+import com.sitewhere.spi.sources.IFailedDecodeSummary;
+import com.sitewhere.spi.user.SiteWhereRoles;
+import com.sitewhere.web.rest.RestControllerBase;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+
+/**
+ * Controller for event source ingest metrics and for inspecting and replaying
+ * payloads that event sources were unable to decode.
+ *
+ * @author Derek
+ */
+@RestController
+@CrossOrigin(exposedHeaders = { "X-SiteWhere-Error", "X-SiteWhere-Error-Code" })
+@RequestMapping(value = "/sources")
+@Api(value = "sources")
+public class EventSources extends RestControllerBase {
+
+    /** Static logger instance */
+    @SuppressWarnings("unused")
+    private static Log LOGGER = LogFactory.getLog(EventSources.class);
+
+    @RequestMapping(value = "/failed", method = RequestMethod.GET)
+    @ApiOperation(value = "List payloads that failed to decode")
+    @Secured({ SiteWhereRoles.REST })
+    public ISearchResults<IFailedDecode> listFailedDecodes(
+	    @ApiParam(value = "Event source id", required = false) @RequestParam(required = false) String sourceId,
+	    @ApiParam(value = "Decoder name", required = false) @RequestParam(required = false) String decoder,
+	    @ApiParam(value = "Error class", required = false) @RequestParam(required = false) String errorClass,
+	    @ApiParam(value = "Include replayed", required = false) @RequestParam(defaultValue = "false") boolean includeReplayed,
+	    @ApiParam(value = "Page number", required = false) @RequestParam(required = false, defaultValue = "1") int page,
+	    @ApiParam(value = "Page size", required = false) @RequestParam(required = false, defaultValue = "100") int pageSize,
+	    HttpServletRequest servletRequest) throws SiteWhereException {
+	FailedDecodeSearchCriteria criteria = buildCriteria(sourceId, decoder, errorClass, includeReplayed, page,
+		pageSize);
+	return getFailedDecodeManagement().listFailedDecodes(criteria);
+    }
+
+    @RequestMapping(value = "/failed/summary", method = RequestMethod.GET)
+    @ApiOperation(value = "Get failure counts by event source, decoder and error class")
+    @Secured({ SiteWhereRoles.REST })
+    public List<IFailedDecodeSummary> getFailedDecodeSummaries(HttpServletRequest servletRequest)
+	    throws SiteWhereException {
+	return getFailedDecodeManagement().getFailedDecodeSummaries();
+    }
+
+    @RequestMapping(value = "/failed/sample", method = RequestMethod.GET)
+    @ApiOperation(value = "Get a random sample of payloads that failed to decode")
+    @Secured({ SiteWhereRoles.REST })
+    public List<IFailedDecode> sampleFailedDecodes(
+	    @ApiParam(value = "Event source id", required = false) @RequestParam(required = false) String sourceId,
+	    @ApiParam(value = "Decoder name", required = false) @RequestParam(required = false) String decoder,
+	    @ApiParam(value = "Error class", required = false) @RequestParam(required = false) String errorClass,
+	    @ApiParam(value = "Include replayed", required = false) @RequestParam(defaultValue = "false") boolean includeReplayed,
+	    @ApiParam(value = "Sample size", required = false) @RequestParam(required = false, defaultValue = "10") int count,
+	    HttpServletRequest servletRequest) throws SiteWhereException {
+	FailedDecodeSearchCriteria criteria = buildCriteria(sourceId, decoder, errorClass, includeReplayed, 1, 0);
+	return getFailedDecodeManagement().sampleFailedDecodes(criteria, count);
+    }
+
+    @RequestMapping(value = "/failed/replay", method = RequestMethod.POST)
+    @ApiOperation(value = "Replay matching payloads through an event source")
+    @Secured({ SiteWhereRoles.REST })
+    public IFailedDecodeReplayStatus replayFailedDecodes(
+	    @ApiParam(value = "Event source id", required = false) @RequestParam(required = false) String sourceId,
+	    @ApiParam(value = "Decoder name", required = false) @RequestParam(required = false) String decoder,
+	    @ApiParam(value = "Error class", required = false) @RequestParam(required = false) String errorClass,
+	    @ApiParam(value = "Id of event source used to decode payloads", required = true) @RequestParam(required = true) String targetSourceId,
+	    @ApiParam(value = "Maximum payloads replayed per second", required = false) @RequestParam(required = false, defaultValue = "100") int maxPerSecond,
+	    HttpServletRequest servletRequest) throws SiteWhereException {
+	FailedDecodeSearchCriteria criteria = buildCriteria(sourceId, decoder, errorClass, false, 1, 0);
+	return getFailedDecodeManagement().replayFailedDecodes(criteria, targetSourceId, maxPerSecond);
+    }
+
+    @RequestMapping(value = "/failed/replay", method = RequestMethod.GET)
+    @ApiOperation(value = "Get status of most recent replay")
+    @Secured({ SiteWhereRoles.REST })
+    public IFailedDecodeReplayStatus getFailedDecodeReplayStatus(HttpServletRequest servletRequest)
+	    throws SiteWhereException {
+	return getFailedDecodeManagement().getFailedDecodeReplayStatus();
+    }
+
+    @RequestMapping(value = "/metrics", method = RequestMethod.GET)
+    @ApiOperation(value = "Get ingest counters, rates and latencies for event sources")
+    @Secured({ SiteWhereRoles.REST })
+    public IEventSourcesMetrics getEventSourcesMetrics(HttpServletRequest servletRequest) throws SiteWhereException {
+	return getEventSourcesMonitoring().getEventSourcesMetrics();
+    }
+
+    /**
+     * Build criteria for failed decode queries.
+     *
+     * @param sourceId
+     * @param decoder
+     * @param errorClass
+     * @param includeReplayed
+     * @param page
+     * @param pageSize
+     * @return
+     */
+    protected FailedDecodeSearchCriteria buildCriteria(String sourceId, String decoder, String errorClass,
+	    boolean includeReplayed, int page, int pageSize) {
+	FailedDecodeSearchCriteria criteria = new FailedDecodeSearchCriteria(page, pageSize);
+	criteria.setSourceId(sourceId);
+	criteria.setDecoder(decoder);
+	criteria.setErrorClass(errorClass);
+	criteria.setIncludeReplayed(includeReplayed);
+	return criteria;
+    }
+
+    private IFailedDecodeManagement getFailedDecodeManagement() {
+	return getMicroservice().getEventSourcesApiDemux().getApiChannel();
+    }
+
+    private IEventSourcesMonitoring getEventSourcesMonitoring() {
+	return getMicroservice().getEventSourcesApiDemux().getApiChannel();
+    }
+}
\ No newline at end of file
@@ -11,6 +11,7 @@ import com.sitewhere.grpc.client.spi.client.IAssetManagementApiDemux;
 import com.sitewhere.grpc.client.spi.client.IBatchManagementApiDemux;
 import com.sitewhere.grpc.client.spi.client.IDeviceEventManagementApiDemux;
 import com.sitewhere.grpc.client.spi.client.IDeviceManagementApiDemux;
+import com.sitewhere.grpc.client.spi.client.IEventSourcesApiDemux;
 import com.sitewhere.grpc.client.spi.client.ILabelGenerationApiDemux;
 import com.sitewhere.grpc.client.spi.client.IScheduleManagementApiDemux;
 import com.sitewhere.grpc.client.spi.client.ITenantManagementApiDemux;
@@ -81,6 +82,13 @@ public interface IWebRestMicroservice extends IGlobalMicroservice {
      */
     public ILabelGenerationApiDemux getLabelGenerationApiDemux();
 
+    /**
+     * Event sources API access via GRPC channel.
+     * 
+     * @return
+     */
+    public IEventSourcesApiDemux getEventSourcesApiDemux();
+
     /**
      * Get microservice management coordinator.
      * 
@@ -8,6 +8,7 @@
 package com.sitewhere.web.ws.components.topology;
 
 import java.util.List;
+import java.util.Map;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
@@ -39,12 +40,16 @@ public class TenantTopologyEvent implements ITenantEngineState {
     /** Lifecycle error message stack */
     private List<String> lifecycleErrorStack;
 
+    /** Runtime metrics indexed by name */
+    private Map<String, Double> metrics;
+
     public TenantTopologyEvent(TopologyEventType type, ITenantEngineState state) {
 	this.type = type;
 	this.microservice = state.getMicroservice();
 	this.tenantToken = state.getTenantToken();
 	this.lifecycleStatus = state.getLifecycleStatus();
 	this.lifecycleErrorStack = state.getLifecycleErrorStack();
+	this.metrics = state.getMetrics();
     }
 
     public TopologyEventType getType() {
@@ -105,4 +110,16 @@ public class TenantTopologyEvent implements ITenantEngineState {
     public void setLifecycleErrorStack(List<String> lifecycleErrorStack) {
 	this.lifecycleErrorStack = lifecycleErrorStack;
     }
+
+    /*
+     * @see com.sitewhere.spi.microservice.state.ITenantEngineState#getMetrics()
+     */
+    @Override
+    public Map<String, Double> getMetrics() {
+	return metrics;
+    }
+
+    public void setMetrics(Map<String, Double> metrics) {
+	this.metrics = metrics;
+    }
 }
\ No newline at end of file
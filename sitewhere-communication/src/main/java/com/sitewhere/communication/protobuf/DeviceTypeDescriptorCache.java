@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.communication.protobuf;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.Descriptors;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.IDeviceType;
+import com.sitewhere.spi.device.command.IDeviceCommand;
+import com.sitewhere.spi.tenant.ITenant;
+
+/**
+ * Caches compiled protobuf descriptors for device types so that encoding a
+ * command does not rebuild and validate the descriptor for every invocation.
+ * Entries are rebuilt when the device type or the command being encoded has
+ * changed since the entry was compiled, when they expire, or when they are
+ * invalidated explicitly.
+ *
+ * @author Derek
+ */
+public class DeviceTypeDescriptorCache {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(DeviceTypeDescriptorCache.class);
+
+    /** Default time an entry remains valid */
+    public static final long DEFAULT_TTL_MS = 5 * 60 * 1000;
+
+    /** Compiled descriptors by device type id */
+    private Map<UUID, CompiledDeviceType> compiledById = new ConcurrentHashMap<UUID, CompiledDeviceType>();
+
+    /** Time an entry remains valid */
+    private long ttlMs;
+
+    public DeviceTypeDescriptorCache() {
+	this(DEFAULT_TTL_MS);
+    }
+
+    public DeviceTypeDescriptorCache(long ttlMs) {
+	this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Get compiled descriptors for a device type that include the given command.
+     *
+     * @param deviceType
+     * @param command
+     * @param tenant
+     * @return
+     * @throws SiteWhereException
+     */
+    public CompiledDeviceType get(IDeviceType deviceType, IDeviceCommand command, ITenant tenant)
+	    throws SiteWhereException {
+	CompiledDeviceType compiled = compiledById.get(deviceType.getId());
+	if ((compiled != null) && (compiled.isCurrent(deviceType, command))) {
+	    return compiled;
+	}
+	compiled = compile(deviceType, tenant, System.currentTimeMillis() + ttlMs);
+	compiledById.put(deviceType.getId(), compiled);
+	LOGGER.debug("Compiled protobuf descriptors for device type '" + deviceType.getToken() + "'.");
+	return compiled;
+    }
+
+    /**
+     * Remove compiled descriptors for a device type.
+     *
+     * @param deviceTypeId
+     */
+    public void invalidate(UUID deviceTypeId) {
+	compiledById.remove(deviceTypeId);
+    }
+
+    /**
+     * Remove all compiled descriptors.
+     */
+    public void clear() {
+	compiledById.clear();
+    }
+
+    public long getTtlMs() {
+	return ttlMs;
+    }
+
+    public void setTtlMs(long ttlMs) {
+	this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Compile descriptors for a device type.
+     *
+     * @param deviceType
+     * @param tenant
+     * @param expires
+     * @return
+     * @throws SiteWhereException
+     */
+    public static CompiledDeviceType compile(IDeviceType deviceType, ITenant tenant, long expires)
+	    throws SiteWhereException {
+	List<IDeviceCommand> commands = ProtobufSpecificationBuilder.getDeviceCommands(deviceType, tenant);
+	DescriptorProtos.FileDescriptorProto fdproto = ProtobufSpecificationBuilder.createFileDescriptor(deviceType,
+		commands);
+	if (LOGGER.isDebugEnabled()) {
+	    LOGGER.debug("Using the following device type proto:\n" + fdproto.toString());
+	}
+	try {
+	    Descriptors.FileDescriptor filedesc = Descriptors.FileDescriptor.buildFrom(fdproto,
+		    new Descriptors.FileDescriptor[0]);
+	    return new CompiledDeviceType(deviceType, commands, filedesc, expires);
+	} catch (Descriptors.DescriptorValidationException e) {
+	    throw new SiteWhereException("Unable to create protobuf message.", e);
+	}
+    }
+
+    /**
+     * Descriptors compiled for a single device type.
+     *
+     * @author Derek
+     */
+    public static class CompiledDeviceType {
+
+	/** Device type updated date when compiled */
+	private final Date deviceTypeUpdated;
+
+	/** Command updated dates by command id when compiled */
+	private final Map<UUID, Date> commandsUpdated = new HashMap<UUID, Date>();
+
+	/** Time entry expires */
+	private final long expires;
+
+	/** Header message descriptor */
+	private final Descriptors.Descriptor header;
+
+	/** Header command field */
+	private final Descriptors.FieldDescriptor headerCommand;
+
+	/** Header originator field */
+	private final Descriptors.FieldDescriptor headerOriginator;
+
+	/** Header nested path field */
+	private final Descriptors.FieldDescriptor headerNestedPath;
+
+	/** Header nested type field */
+	private final Descriptors.FieldDescriptor headerNestedType;
+
+	/** Descriptors for each command by name */
+	private final Map<String, CompiledCommand> commandsByName = new HashMap<String, CompiledCommand>();
+
+	public CompiledDeviceType(IDeviceType deviceType, List<IDeviceCommand> commands,
+		Descriptors.FileDescriptor filedesc, long expires) {
+	    this.deviceTypeUpdated = deviceType.getUpdatedDate();
+	    this.expires = expires;
+
+	    Descriptors.Descriptor mdesc = filedesc
+		    .findMessageTypeByName(ProtobufNaming.getDeviceTypeIdentifier(deviceType));
+	    this.header = mdesc.findNestedTypeByName(ProtobufNaming.HEADER_MSG_NAME);
+	    this.headerCommand = header.findFieldByName(ProtobufNaming.HEADER_COMMAND_FIELD_NAME);
+	    this.headerOriginator = header.findFieldByName(ProtobufNaming.HEADER_ORIGINATOR_FIELD_NAME);
+	    this.headerNestedPath = header.findFieldByName(ProtobufNaming.HEADER_NESTED_PATH_FIELD_NAME);
+	    this.headerNestedType = header.findFieldByName(ProtobufNaming.HEADER_NESTED_TYPE_FIELD_NAME);
+
+	    Descriptors.EnumDescriptor enumDesc = mdesc.findEnumTypeByName(ProtobufNaming.COMMAND_TYPES_ENUM);
+	    for (IDeviceCommand command : commands) {
+		commandsUpdated.put(command.getId(), command.getUpdatedDate());
+		Descriptors.Descriptor message = mdesc.findNestedTypeByName(command.getName());
+		Descriptors.EnumValueDescriptor enumValue = enumDesc
+			.findValueByName(ProtobufNaming.getCommandEnumName(command));
+		if ((message != null) && (enumValue != null)) {
+		    commandsByName.put(command.getName(), new CompiledCommand(message, enumValue));
+		}
+	    }
+	}
+
+	/**
+	 * Indicates whether the entry was compiled from the current device type and
+	 * command and has not expired.
+	 *
+	 * @param deviceType
+	 * @param command
+	 * @return
+	 */
+	public boolean isCurrent(IDeviceType deviceType, IDeviceCommand command) {
+	    if (System.currentTimeMillis() >= expires) {
+		return false;
+	    }
+	    if (!Objects.equals(deviceTypeUpdated, deviceType.getUpdatedDate())) {
+		return false;
+	    }
+	    if (!commandsUpdated.containsKey(command.getId())) {
+		return false;
+	    }
+	    return Objects.equals(commandsUpdated.get(command.getId()), command.getUpdatedDate());
+	}
+
+	/**
+	 * Get descriptors for a command by name or null if not found.
+	 *
+	 * @param name
+	 * @return
+	 */
+	public CompiledCommand getCommand(String name) {
+	    return commandsByName.get(name);
+	}
+
+	public Descriptors.Descriptor getHeader() {
+	    return header;
+	}
+
+	public Descriptors.FieldDescriptor getHeaderCommand() {
+	    return headerCommand;
+	}
+
+	public Descriptors.FieldDescriptor getHeaderOriginator() {
+	    return headerOriginator;
+	}
+
+	public Descriptors.FieldDescriptor getHeaderNestedPath() {
+	    return headerNestedPath;
+	}
+
+	public Descriptors.FieldDescriptor getHeaderNestedType() {
+	    return headerNestedType;
+	}
+    }
+
+    /**
+     * Descriptors compiled for a single command.
+     *
+     * @author Derek
+     */
+    public static class CompiledCommand {
+
+	/** Command message descriptor */
+	private final Descriptors.Descriptor message;
+
+	/** Enum value that identifies the command in the header */
+	private final Descriptors.EnumValueDescriptor enumValue;
+
+	/** Fields by parameter name */
+	private final Map<String, Descriptors.FieldDescriptor> fields = new HashMap<String, Descriptors.FieldDescriptor>();
+
+	public CompiledCommand(Descriptors.Descriptor message, Descriptors.EnumValueDescriptor enumValue) {
+	    this.message = message;
+	    this.enumValue = enumValue;
+	    for (Descriptors.FieldDescriptor field : message.getFields()) {
+		fields.put(field.getName(), field);
+	    }
+	}
+
+	/**
+	 * Get field for a parameter name or null if not found.
+	 *
+	 * @param name
+	 * @return
+	 */
+	public Descriptors.FieldDescriptor getField(String name) {
+	    return fields.get(name);
+	}
+
+	public Descriptors.Descriptor getMessage() {
+	    return message;
+	}
+
+	public Descriptors.EnumValueDescriptor getEnumValue() {
+	    return enumValue;
+	}
+    }
+}
\ No newline at end of file
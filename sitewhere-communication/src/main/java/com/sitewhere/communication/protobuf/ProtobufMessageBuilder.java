@@ -48,54 +48,63 @@ public class ProtobufMessageBuilder {
      */
     public static byte[] createMessage(IDeviceCommandExecution execution, IDeviceNestingContext nested,
 	    IDeviceAssignment assignment, ITenant tenant) throws SiteWhereException {
+	return createMessage(execution, nested, assignment, tenant, null);
+    }
+
+    /**
+     * Create a protobuf message for an {@link IDeviceCommandExecution}, using
+     * compiled descriptors from the cache when available. If no cache is passed,
+     * descriptors are compiled for this message only.
+     * 
+     * @param execution
+     * @param nested
+     * @param assignment
+     * @param tenant
+     * @param cache
+     * @return
+     * @throws SiteWhereException
+     */
+    public static byte[] createMessage(IDeviceCommandExecution execution, IDeviceNestingContext nested,
+	    IDeviceAssignment assignment, ITenant tenant, DeviceTypeDescriptorCache cache) throws SiteWhereException {
 	IDeviceType deviceType = getDeviceManagement(tenant).getDeviceType(execution.getCommand().getDeviceTypeId());
-	DescriptorProtos.FileDescriptorProto fdproto = getFileDescriptor(deviceType, tenant);
-	LOGGER.debug("Using the following device type proto:\n" + fdproto.toString());
-	Descriptors.FileDescriptor[] fdescs = new Descriptors.FileDescriptor[0];
+	DeviceTypeDescriptorCache.CompiledDeviceType compiled = (cache != null)
+		? cache.get(deviceType, execution.getCommand(), tenant)
+		: DeviceTypeDescriptorCache.compile(deviceType, tenant, 0);
 	ByteArrayOutputStream out = new ByteArrayOutputStream();
 	try {
-	    Descriptors.FileDescriptor filedesc = Descriptors.FileDescriptor.buildFrom(fdproto, fdescs);
-	    Descriptors.Descriptor mdesc = filedesc
-		    .findMessageTypeByName(ProtobufNaming.getDeviceTypeIdentifier(deviceType));
-
 	    // Create the header message.
-	    Descriptors.Descriptor header = mdesc.findNestedTypeByName(ProtobufNaming.HEADER_MSG_NAME);
-	    DynamicMessage.Builder headBuilder = DynamicMessage.newBuilder(header);
+	    DynamicMessage.Builder headBuilder = DynamicMessage.newBuilder(compiled.getHeader());
 
 	    // Set enum value based on command.
-	    Descriptors.EnumDescriptor enumDesc = mdesc.findEnumTypeByName(ProtobufNaming.COMMAND_TYPES_ENUM);
-	    Descriptors.EnumValueDescriptor enumValue = enumDesc
-		    .findValueByName(ProtobufNaming.getCommandEnumName(execution.getCommand()));
-	    if (enumValue == null) {
+	    DeviceTypeDescriptorCache.CompiledCommand command = compiled.getCommand(execution.getCommand().getName());
+	    if (command == null) {
 		throw new SiteWhereException("No enum value found for command: " + execution.getCommand().getName());
 	    }
-	    headBuilder.setField(header.findFieldByName(ProtobufNaming.HEADER_COMMAND_FIELD_NAME), enumValue);
-	    headBuilder.setField(header.findFieldByName(ProtobufNaming.HEADER_ORIGINATOR_FIELD_NAME),
-		    execution.getInvocation().getId());
+	    headBuilder.setField(compiled.getHeaderCommand(), command.getEnumValue());
+	    headBuilder.setField(compiled.getHeaderOriginator(), execution.getInvocation().getId());
 
 	    if (nested.getNested() != null) {
 		IDeviceType nestedType = getDeviceManagement(tenant)
 			.getDeviceType(nested.getNested().getDeviceTypeId());
 		LOGGER.debug(
 			"Targeting nested device with type: " + nestedType.getName() + " at path " + nested.getPath());
-		headBuilder.setField(header.findFieldByName(ProtobufNaming.HEADER_NESTED_PATH_FIELD_NAME),
-			nested.getPath());
-		headBuilder.setField(header.findFieldByName(ProtobufNaming.HEADER_NESTED_TYPE_FIELD_NAME),
-			nestedType.getToken());
+		headBuilder.setField(compiled.getHeaderNestedPath(), nested.getPath());
+		headBuilder.setField(compiled.getHeaderNestedType(), nestedType.getToken());
 	    }
 
 	    DynamicMessage hmessage = headBuilder.build();
-	    LOGGER.debug("Header:\n" + hmessage.toString());
+	    if (LOGGER.isDebugEnabled()) {
+		LOGGER.debug("Header:\n" + hmessage.toString());
+	    }
 	    hmessage.writeDelimitedTo(out);
 
-	    // Find nested type for command and create/populate an instance.
-	    Descriptors.Descriptor command = mdesc.findNestedTypeByName(execution.getCommand().getName());
-	    DynamicMessage.Builder cbuilder = DynamicMessage.newBuilder(command);
+	    // Create and populate an instance of the command message.
+	    DynamicMessage.Builder cbuilder = DynamicMessage.newBuilder(command.getMessage());
 
 	    // Set each field in the command message.
 	    for (String name : execution.getParameters().keySet()) {
 		Object value = execution.getParameters().get(name);
-		Descriptors.FieldDescriptor field = command.findFieldByName(name);
+		Descriptors.FieldDescriptor field = command.getField(name);
 		if (field == null) {
 		    throw new SiteWhereException("Command parameter '" + name + "' not found in device type: ");
 		}
@@ -108,12 +117,12 @@ public class ProtobufMessageBuilder {
 		}
 	    }
 	    DynamicMessage cmessage = cbuilder.build();
-	    LOGGER.debug("Message:\n" + cmessage.toString());
+	    if (LOGGER.isDebugEnabled()) {
+		LOGGER.debug("Message:\n" + cmessage.toString());
+	    }
 	    cmessage.writeDelimitedTo(out);
 
 	    return out.toByteArray();
-	} catch (Descriptors.DescriptorValidationException e) {
-	    throw new SiteWhereException("Unable to create protobuf message.", e);
 	} catch (IOException e) {
 	    throw new SiteWhereException("Unable to encode protobuf message.", e);
 	}
@@ -38,11 +38,38 @@ public class ProtobufSpecificationBuilder {
      */
     public static DescriptorProtos.FileDescriptorProto createFileDescriptor(IDeviceType deviceType, ITenant tenant)
 	    throws SiteWhereException {
+	return createFileDescriptor(deviceType, getDeviceCommands(deviceType, tenant));
+    }
+
+    /**
+     * Creates a {@link FileDescriptorProto} based on an {@link IDeviceType} and
+     * its commands.
+     * 
+     * @param deviceType
+     * @param commands
+     * @return
+     * @throws SiteWhereException
+     */
+    public static DescriptorProtos.FileDescriptorProto createFileDescriptor(IDeviceType deviceType,
+	    List<IDeviceCommand> commands) throws SiteWhereException {
 	DescriptorProtos.FileDescriptorProto.Builder builder = DescriptorProtos.FileDescriptorProto.newBuilder();
-	builder.addMessageType(createDeviceTypeMessage(deviceType, tenant));
+	builder.addMessageType(createDeviceTypeMessage(deviceType, commands));
 	return builder.build();
     }
 
+    /**
+     * Get the commands for a device type.
+     * 
+     * @param deviceType
+     * @param tenant
+     * @return
+     * @throws SiteWhereException
+     */
+    public static List<IDeviceCommand> getDeviceCommands(IDeviceType deviceType, ITenant tenant)
+	    throws SiteWhereException {
+	return getDeviceManagement(tenant).listDeviceCommands(deviceType.getId(), false);
+    }
+
     /**
      * Create the message for a device type.
      * 
@@ -53,7 +80,19 @@ public class ProtobufSpecificationBuilder {
      */
     public static DescriptorProtos.DescriptorProto createDeviceTypeMessage(IDeviceType deviceType, ITenant tenant)
 	    throws SiteWhereException {
-	List<IDeviceCommand> commands = getDeviceManagement(tenant).listDeviceCommands(deviceType.getId(), false);
+	return createDeviceTypeMessage(deviceType, getDeviceCommands(deviceType, tenant));
+    }
+
+    /**
+     * Create the message for a device type with the given commands.
+     * 
+     * @param deviceType
+     * @param commands
+     * @return
+     * @throws SiteWhereException
+     */
+    public static DescriptorProtos.DescriptorProto createDeviceTypeMessage(IDeviceType deviceType,
+	    List<IDeviceCommand> commands) throws SiteWhereException {
 	DescriptorProtos.DescriptorProto.Builder builder = DescriptorProtos.DescriptorProto.newBuilder();
 	builder.setName(ProtobufNaming.getDeviceTypeIdentifier(deviceType));
 	builder.addEnumType(createCommandsEnum(commands));
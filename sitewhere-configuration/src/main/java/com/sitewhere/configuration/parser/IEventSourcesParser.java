@@ -52,7 +52,10 @@ public interface IEventSourcesParser {
 	SocketEventSource("socket-event-source"),
 
 	/** Web socket event source */
-	WebSocketEventSource("web-socket-event-source");
+	WebSocketEventSource("web-socket-event-source"),
+
+	/** Web socket server event source */
+	WebSocketServerEventSource("web-socket-server-event-source");
 
 	/** Event code */
 	private String localName;
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.rest.model.microservice.kafka.payload;
+
+import com.sitewhere.spi.device.command.ISystemCommand;
+import com.sitewhere.spi.microservice.kafka.payload.ISystemCommandPayload;
+
+/**
+ * Payload for a system command that should be delivered to a device.
+ * 
+ * @author Derek
+ */
+public class SystemCommandPayload implements ISystemCommandPayload {
+
+    /** Token for target device */
+    private String deviceToken;
+
+    /** System command */
+    private ISystemCommand command;
+
+    public SystemCommandPayload() {
+    }
+
+    public SystemCommandPayload(String deviceToken, ISystemCommand command) {
+	this.deviceToken = deviceToken;
+	this.command = command;
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.payload.ISystemCommandPayload#
+     * getDeviceToken()
+     */
+    @Override
+    public String getDeviceToken() {
+	return deviceToken;
+    }
+
+    public void setDeviceToken(String deviceToken) {
+	this.deviceToken = deviceToken;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.kafka.payload.ISystemCommandPayload#getCommand()
+     */
+    @Override
+    public ISystemCommand getCommand() {
+	return command;
+    }
+
+    public void setCommand(ISystemCommand command) {
+	this.command = command;
+    }
+}
\ No newline at end of file
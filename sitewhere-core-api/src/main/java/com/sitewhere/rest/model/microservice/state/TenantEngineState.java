@@ -8,6 +8,7 @@
 package com.sitewhere.rest.model.microservice.state;
 
 import java.util.List;
+import java.util.Map;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
@@ -35,6 +36,9 @@ public class TenantEngineState implements ITenantEngineState {
     /** Lifecycle error message stack */
     private List<String> lifecycleErrorStack;
 
+    /** Runtime metrics indexed by name */
+    private Map<String, Double> metrics;
+
     /*
      * @see
      * com.sitewhere.spi.microservice.state.ITenantEngineState#getMicroservice()
@@ -85,4 +89,16 @@ public class TenantEngineState implements ITenantEngineState {
     public void setLifecycleErrorStack(List<String> lifecycleErrorStack) {
 	this.lifecycleErrorStack = lifecycleErrorStack;
     }
+
+    /*
+     * @see com.sitewhere.spi.microservice.state.ITenantEngineState#getMetrics()
+     */
+    @Override
+    public Map<String, Double> getMetrics() {
+	return metrics;
+    }
+
+    public void setMetrics(Map<String, Double> metrics) {
+	this.metrics = metrics;
+    }
 }
\ No newline at end of file
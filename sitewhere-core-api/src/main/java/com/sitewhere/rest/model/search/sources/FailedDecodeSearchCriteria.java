@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.rest.model.search.sources;
+
+import com.sitewhere.rest.model.search.SearchCriteria;
+import com.sitewhere.spi.search.sources.IFailedDecodeSearchCriteria;
+
+/**
+ * Adds options specific to searching payloads that could not be decoded.
+ * 
+ * @author Derek
+ */
+public class FailedDecodeSearchCriteria extends SearchCriteria implements IFailedDecodeSearchCriteria {
+
+    /** Event source id to match */
+    private String sourceId;
+
+    /** Decoder name to match */
+    private String decoder;
+
+    /** Error class to match */
+    private String errorClass;
+
+    /** Indicates if replayed failures are included */
+    private boolean includeReplayed = false;
+
+    public FailedDecodeSearchCriteria(int pageNumber, int pageSize) {
+	super(pageNumber, pageSize);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.search.sources.IFailedDecodeSearchCriteria#getSourceId()
+     */
+    @Override
+    public String getSourceId() {
+	return sourceId;
+    }
+
+    public void setSourceId(String sourceId) {
+	this.sourceId = sourceId;
+    }
+
+    /*
+     * @see com.sitewhere.spi.search.sources.IFailedDecodeSearchCriteria#getDecoder()
+     */
+    @Override
+    public String getDecoder() {
+	return decoder;
+    }
+
+    public void setDecoder(String decoder) {
+	this.decoder = decoder;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.search.sources.IFailedDecodeSearchCriteria#getErrorClass()
+     */
+    @Override
+    public String getErrorClass() {
+	return errorClass;
+    }
+
+    public void setErrorClass(String errorClass) {
+	this.errorClass = errorClass;
+    }
+
+    /*
+     * @see com.sitewhere.spi.search.sources.IFailedDecodeSearchCriteria#
+     * isIncludeReplayed()
+     */
+    @Override
+    public boolean isIncludeReplayed() {
+	return includeReplayed;
+    }
+
+    public void setIncludeReplayed(boolean includeReplayed) {
+	this.includeReplayed = includeReplayed;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.rest.model.sources;
+
+import com.sitewhere.spi.sources.IDecoderMetrics;
+
+/**
+ * Model object for metrics of event sources grouped by decoder.
+ * 
+ * @author Derek
+ */
+public class DecoderMetrics implements IDecoderMetrics {
+
+    /** Decoder name */
+    private String decoder;
+
+    /** Number of event sources */
+    private int sourceCount;
+
+    /** Number of events decoded */
+    private long decodedCount;
+
+    /** Events decoded per second */
+    private double decodedRate;
+
+    /** Number of failed decodes */
+    private long decodeFailedCount;
+
+    /*
+     * @see com.sitewhere.spi.sources.IDecoderMetrics#getDecoder()
+     */
+    @Override
+    public String getDecoder() {
+	return decoder;
+    }
+
+    public void setDecoder(String decoder) {
+	this.decoder = decoder;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IDecoderMetrics#getSourceCount()
+     */
+    @Override
+    public int getSourceCount() {
+	return sourceCount;
+    }
+
+    public void setSourceCount(int sourceCount) {
+	this.sourceCount = sourceCount;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IDecoderMetrics#getDecodedCount()
+     */
+    @Override
+    public long getDecodedCount() {
+	return decodedCount;
+    }
+
+    public void setDecodedCount(long decodedCount) {
+	this.decodedCount = decodedCount;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IDecoderMetrics#getDecodedRate()
+     */
+    @Override
+    public double getDecodedRate() {
+	return decodedRate;
+    }
+
+    public void setDecodedRate(double decodedRate) {
+	this.decodedRate = decodedRate;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IDecoderMetrics#getDecodeFailedCount()
+     */
+    @Override
+    public long getDecodeFailedCount() {
+	return decodeFailedCount;
+    }
+
+    public void setDecodeFailedCount(long decodeFailedCount) {
+	this.decodeFailedCount = decodeFailedCount;
+    }
+}
\ No newline at end of file
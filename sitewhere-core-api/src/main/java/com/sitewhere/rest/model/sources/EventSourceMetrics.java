@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.rest.model.sources;
+
+import com.sitewhere.spi.sources.IEventSourceMetrics;
+
+/**
+ * Model object for metrics of a single event source.
+ * 
+ * @author Derek
+ */
+public class EventSourceMetrics implements IEventSourceMetrics {
+
+    /** Event source id */
+    private String sourceId;
+
+    /** Decoder name */
+    private String decoder;
+
+    /** Number of payloads received */
+    private long receivedCount;
+
+    /** Payloads received per second */
+    private double receivedRate;
+
+    /** Number of events decoded */
+    private long decodedCount;
+
+    /** Events decoded per second */
+    private double decodedRate;
+
+    /** Number of failed decodes */
+    private long decodeFailedCount;
+
+    /** Number of duplicates dropped */
+    private long duplicateCount;
+
+    /** Decode latency */
+    private LatencySummary decodeLatency;
+
+    /** Dedupe latency */
+    private LatencySummary dedupeLatency;
+
+    /*
+     * @see com.sitewhere.spi.sources.IEventSourceMetrics#getSourceId()
+     */
+    @Override
+    public String getSourceId() {
+	return sourceId;
+    }
+
+    public void setSourceId(String sourceId) {
+	this.sourceId = sourceId;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IEventSourceMetrics#getDecoder()
+     */
+    @Override
+    public String getDecoder() {
+	return decoder;
+    }
+
+    public void setDecoder(String decoder) {
+	this.decoder = decoder;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IEventSourceMetrics#getReceivedCount()
+     */
+    @Override
+    public long getReceivedCount() {
+	return receivedCount;
+    }
+
+    public void setReceivedCount(long receivedCount) {
+	this.receivedCount = receivedCount;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IEventSourceMetrics#getReceivedRate()
+     */
+    @Override
+    public double getReceivedRate() {
+	return receivedRate;
+    }
+
+    public void setReceivedRate(double receivedRate) {
+	this.receivedRate = receivedRate;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IEventSourceMetrics#getDecodedCount()
+     */
+    @Override
+    public long getDecodedCount() {
+	return decodedCount;
+    }
+
+    public void setDecodedCount(long decodedCount) {
+	this.decodedCount = decodedCount;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IEventSourceMetrics#getDecodedRate()
+     */
+    @Override
+    public double getDecodedRate() {
+	return decodedRate;
+    }
+
+    public void setDecodedRate(double decodedRate) {
+	this.decodedRate = decodedRate;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IEventSourceMetrics#getDecodeFailedCount()
+     */
+    @Override
+    public long getDecodeFailedCount() {
+	return decodeFailedCount;
+    }
+
+    public void setDecodeFailedCount(long decodeFailedCount) {
+	this.decodeFailedCount = decodeFailedCount;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IEventSourceMetrics#getDuplicateCount()
+     */
+    @Override
+    public long getDuplicateCount() {
+	return duplicateCount;
+    }
+
+    public void setDuplicateCount(long duplicateCount) {
+	this.duplicateCount = duplicateCount;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IEventSourceMetrics#getDecodeLatency()
+     */
+    @Override
+    public ILatencySummary getDecodeLatency() {
+	return decodeLatency;
+    }
+
+    public void setDecodeLatency(LatencySummary decodeLatency) {
+	this.decodeLatency = decodeLatency;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IEventSourceMetrics#getDedupeLatency()
+     */
+    @Override
+    public ILatencySummary getDedupeLatency() {
+	return dedupeLatency;
+    }
+
+    public void setDedupeLatency(LatencySummary dedupeLatency) {
+	this.dedupeLatency = dedupeLatency;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.rest.model.sources;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sitewhere.spi.sources.IDecoderMetrics;
+import com.sitewhere.spi.sources.IEventSourceMetrics;
+import com.sitewhere.spi.sources.IEventSourcesMetrics;
+
+/**
+ * Model object for ingest metrics of the event sources in a tenant.
+ * 
+ * @author Derek
+ */
+public class EventSourcesMetrics implements IEventSourcesMetrics {
+
+    /** Metrics for each event source */
+    private List<IEventSourceMetrics> eventSources = new ArrayList<IEventSourceMetrics>();
+
+    /** Metrics for each decoder */
+    private List<IDecoderMetrics> decoders = new ArrayList<IDecoderMetrics>();
+
+    /** Number of messages sent */
+    private long sentCount;
+
+    /** Messages sent per second */
+    private double sentRate;
+
+    /** Number of failed sends */
+    private long sendFailedCount;
+
+    /** Send latency */
+    private LatencySummary sendLatency;
+
+    /*
+     * @see com.sitewhere.spi.sources.IEventSourcesMetrics#getEventSources()
+     */
+    @Override
+    public List<IEventSourceMetrics> getEventSources() {
+	return eventSources;
+    }
+
+    public void setEventSources(List<IEventSourceMetrics> eventSources) {
+	this.eventSources = eventSources;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IEventSourcesMetrics#getDecoders()
+     */
+    @Override
+    public List<IDecoderMetrics> getDecoders() {
+	return decoders;
+    }
+
+    public void setDecoders(List<IDecoderMetrics> decoders) {
+	this.decoders = decoders;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IEventSourcesMetrics#getSentCount()
+     */
+    @Override
+    public long getSentCount() {
+	return sentCount;
+    }
+
+    public void setSentCount(long sentCount) {
+	this.sentCount = sentCount;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IEventSourcesMetrics#getSentRate()
+     */
+    @Override
+    public double getSentRate() {
+	return sentRate;
+    }
+
+    public void setSentRate(double sentRate) {
+	this.sentRate = sentRate;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IEventSourcesMetrics#getSendFailedCount()
+     */
+    @Override
+    public long getSendFailedCount() {
+	return sendFailedCount;
+    }
+
+    public void setSendFailedCount(long sendFailedCount) {
+	this.sendFailedCount = sendFailedCount;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IEventSourcesMetrics#getSendLatency()
+     */
+    @Override
+    public ILatencySummary getSendLatency() {
+	return sendLatency;
+    }
+
+    public void setSendLatency(LatencySummary sendLatency) {
+	this.sendLatency = sendLatency;
+    }
+}
\ No newline at end of file
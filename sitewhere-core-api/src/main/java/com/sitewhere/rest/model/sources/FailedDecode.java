@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.rest.model.sources;
+
+import java.util.Date;
+
+import com.sitewhere.spi.sources.IFailedDecode;
+
+/**
+ * Model object for a payload that could not be decoded.
+ * 
+ * @author Derek
+ */
+public class FailedDecode implements IFailedDecode {
+
+    /** Unique id */
+    private String id;
+
+    /** Event source id */
+    private String sourceId;
+
+    /** Decoder name */
+    private String decoder;
+
+    /** Error class name */
+    private String errorClass;
+
+    /** Error message */
+    private String errorMessage;
+
+    /** Date decoding failed */
+    private Date failedDate;
+
+    /** Indicates if payload was replayed successfully */
+    private boolean replayed;
+
+    /** Raw payload */
+    private byte[] payload;
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecode#getId()
+     */
+    @Override
+    public String getId() {
+	return id;
+    }
+
+    public void setId(String id) {
+	this.id = id;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecode#getSourceId()
+     */
+    @Override
+    public String getSourceId() {
+	return sourceId;
+    }
+
+    public void setSourceId(String sourceId) {
+	this.sourceId = sourceId;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecode#getDecoder()
+     */
+    @Override
+    public String getDecoder() {
+	return decoder;
+    }
+
+    public void setDecoder(String decoder) {
+	this.decoder = decoder;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecode#getErrorClass()
+     */
+    @Override
+    public String getErrorClass() {
+	return errorClass;
+    }
+
+    public void setErrorClass(String errorClass) {
+	this.errorClass = errorClass;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecode#getErrorMessage()
+     */
+    @Override
+    public String getErrorMessage() {
+	return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+	this.errorMessage = errorMessage;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecode#getFailedDate()
+     */
+    @Override
+    public Date getFailedDate() {
+	return failedDate;
+    }
+
+    public void setFailedDate(Date failedDate) {
+	this.failedDate = failedDate;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecode#isReplayed()
+     */
+    @Override
+    public boolean isReplayed() {
+	return replayed;
+    }
+
+    public void setReplayed(boolean replayed) {
+	this.replayed = replayed;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecode#getPayload()
+     */
+    @Override
+    public byte[] getPayload() {
+	return payload;
+    }
+
+    public void setPayload(byte[] payload) {
+	this.payload = payload;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.rest.model.sources;
+
+import java.io.Serializable;
+import java.util.Date;
+
+import com.sitewhere.spi.sources.IFailedDecodeReplayStatus;
+
+/**
+ * Model object for progress of a failed decode replay.
+ * 
+ * @author Derek
+ */
+public class FailedDecodeReplayStatus implements IFailedDecodeReplayStatus, Serializable {
+
+    /** Serialization version identifier */
+    private static final long serialVersionUID = 4417263305164923858L;
+
+    /** Event source used to decode payloads */
+    private String targetSourceId;
+
+    /** Maximum payloads replayed per second */
+    private int maxPerSecond;
+
+    /** Number of failures matched */
+    private long matched;
+
+    /** Number of payloads decoded */
+    private long replayed;
+
+    /** Number of payloads that still failed */
+    private long failed;
+
+    /** Date replay started */
+    private Date startDate;
+
+    /** Date replay finished */
+    private Date endDate;
+
+    /** Indicates if replay has finished */
+    private boolean complete;
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecodeReplayStatus#getTargetSourceId()
+     */
+    @Override
+    public String getTargetSourceId() {
+	return targetSourceId;
+    }
+
+    public void setTargetSourceId(String targetSourceId) {
+	this.targetSourceId = targetSourceId;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecodeReplayStatus#getMaxPerSecond()
+     */
+    @Override
+    public int getMaxPerSecond() {
+	return maxPerSecond;
+    }
+
+    public void setMaxPerSecond(int maxPerSecond) {
+	this.maxPerSecond = maxPerSecond;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecodeReplayStatus#getMatched()
+     */
+    @Override
+    public long getMatched() {
+	return matched;
+    }
+
+    public void setMatched(long matched) {
+	this.matched = matched;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecodeReplayStatus#getReplayed()
+     */
+    @Override
+    public long getReplayed() {
+	return replayed;
+    }
+
+    public void setReplayed(long replayed) {
+	this.replayed = replayed;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecodeReplayStatus#getFailed()
+     */
+    @Override
+    public long getFailed() {
+	return failed;
+    }
+
+    public void setFailed(long failed) {
+	this.failed = failed;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecodeReplayStatus#getStartDate()
+     */
+    @Override
+    public Date getStartDate() {
+	return startDate;
+    }
+
+    public void setStartDate(Date startDate) {
+	this.startDate = startDate;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecodeReplayStatus#getEndDate()
+     */
+    @Override
+    public Date getEndDate() {
+	return endDate;
+    }
+
+    public void setEndDate(Date endDate) {
+	this.endDate = endDate;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecodeReplayStatus#isComplete()
+     */
+    @Override
+    public boolean isComplete() {
+	return complete;
+    }
+
+    public void setComplete(boolean complete) {
+	this.complete = complete;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.rest.model.sources;
+
+import java.util.Date;
+
+import com.sitewhere.spi.sources.IFailedDecodeSummary;
+
+/**
+ * Model object for failure counts by event source, decoder and error class.
+ * 
+ * @author Derek
+ */
+public class FailedDecodeSummary implements IFailedDecodeSummary {
+
+    /** Event source id */
+    private String sourceId;
+
+    /** Decoder name */
+    private String decoder;
+
+    /** Error class name */
+    private String errorClass;
+
+    /** Number of failures retained */
+    private long count;
+
+    /** Date of oldest retained failure */
+    private Date firstFailedDate;
+
+    /** Date of most recent failure */
+    private Date lastFailedDate;
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecodeSummary#getSourceId()
+     */
+    @Override
+    public String getSourceId() {
+	return sourceId;
+    }
+
+    public void setSourceId(String sourceId) {
+	this.sourceId = sourceId;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecodeSummary#getDecoder()
+     */
+    @Override
+    public String getDecoder() {
+	return decoder;
+    }
+
+    public void setDecoder(String decoder) {
+	this.decoder = decoder;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecodeSummary#getErrorClass()
+     */
+    @Override
+    public String getErrorClass() {
+	return errorClass;
+    }
+
+    public void setErrorClass(String errorClass) {
+	this.errorClass = errorClass;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecodeSummary#getCount()
+     */
+    @Override
+    public long getCount() {
+	return count;
+    }
+
+    public void setCount(long count) {
+	this.count = count;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecodeSummary#getFirstFailedDate()
+     */
+    @Override
+    public Date getFirstFailedDate() {
+	return firstFailedDate;
+    }
+
+    public void setFirstFailedDate(Date firstFailedDate) {
+	this.firstFailedDate = firstFailedDate;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecodeSummary#getLastFailedDate()
+     */
+    @Override
+    public Date getLastFailedDate() {
+	return lastFailedDate;
+    }
+
+    public void setLastFailedDate(Date lastFailedDate) {
+	this.lastFailedDate = lastFailedDate;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.rest.model.sources;
+
+import com.sitewhere.spi.sources.ILatencySummary;
+
+/**
+ * Model object for latency distribution of a processing stage.
+ * 
+ * @author Derek
+ */
+public class LatencySummary implements ILatencySummary {
+
+    /** Number of samples */
+    private long count;
+
+    /** Mean latency */
+    private double mean;
+
+    /** Median latency */
+    private long p50;
+
+    /** 99th percentile latency */
+    private long p99;
+
+    /** Maximum latency */
+    private long max;
+
+    /*
+     * @see com.sitewhere.spi.sources.ILatencySummary#getCount()
+     */
+    @Override
+    public long getCount() {
+	return count;
+    }
+
+    public void setCount(long count) {
+	this.count = count;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.ILatencySummary#getMean()
+     */
+    @Override
+    public double getMean() {
+	return mean;
+    }
+
+    public void setMean(double mean) {
+	this.mean = mean;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.ILatencySummary#getP50()
+     */
+    @Override
+    public long getP50() {
+	return p50;
+    }
+
+    public void setP50(long p50) {
+	this.p50 = p50;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.ILatencySummary#getP99()
+     */
+    @Override
+    public long getP99() {
+	return p99;
+    }
+
+    public void setP99(long p99) {
+	this.p99 = p99;
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.ILatencySummary#getMax()
+     */
+    @Override
+    public long getMax() {
+	return max;
+    }
+
+    public void setMax(long max) {
+	this.max = max;
+    }
+}
\ No newline at end of file
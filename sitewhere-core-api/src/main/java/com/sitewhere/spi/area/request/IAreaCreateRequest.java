@@ -34,7 +34,8 @@ public interface IAreaCreateRequest extends Serializable {
     public String getAreaTypeToken();
 
     /**
-     * Get token for parent id (null if none).
+     * Get token for parent id (null if none). On update, null leaves the parent
+     * unchanged and an empty token moves the area to the root of the hierarchy.
      * 
      * @return
      */
@@ -7,9 +7,12 @@
  */
 package com.sitewhere.spi.batch;
 
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.batch.request.IBatchCommandForCriteriaRequest;
 import com.sitewhere.spi.batch.request.IBatchCommandInvocationRequest;
 import com.sitewhere.spi.batch.request.IBatchElementUpdateRequest;
 import com.sitewhere.spi.batch.request.IBatchOperationCreateRequest;
@@ -107,6 +110,26 @@ public interface IBatchManagement extends ITenantEngineLifecycleComponent {
     public IBatchElement updateBatchElement(UUID elementId, IBatchElementUpdateRequest request)
 	    throws SiteWhereException;
 
+    /**
+     * Applies updates to many batch operation elements in a single call.
+     * 
+     * @param requestsByElementId
+     * @throws SiteWhereException
+     */
+    public void bulkUpdateBatchElements(Map<UUID, IBatchElementUpdateRequest> requestsByElementId)
+	    throws SiteWhereException;
+
+    /**
+     * Adds unprocessed elements for the given devices to an existing batch
+     * operation. Devices that already have an element in the operation are
+     * skipped, so the same devices may safely be added more than once.
+     * 
+     * @param batchOperationId
+     * @param deviceIds
+     * @throws SiteWhereException
+     */
+    public void addBatchElements(UUID batchOperationId, List<UUID> deviceIds) throws SiteWhereException;
+
     /**
      * Creates an {@link ISearchResults} that will invoke a command on multiple
      * devices.
@@ -117,4 +140,17 @@ public interface IBatchManagement extends ITenantEngineLifecycleComponent {
      */
     public IBatchOperation createBatchCommandInvocation(IBatchCommandInvocationRequest request)
 	    throws SiteWhereException;
+
+    /**
+     * Creates an {@link IBatchOperation} that will invoke a command on all devices
+     * matching the given criteria. The criteria are stored with the operation and
+     * matching devices are added as elements by the batch operation manager when
+     * the operation is processed.
+     * 
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public IBatchOperation createBatchCommandInvocationFromCriteria(IBatchCommandForCriteriaRequest request)
+	    throws SiteWhereException;
 }
\ No newline at end of file
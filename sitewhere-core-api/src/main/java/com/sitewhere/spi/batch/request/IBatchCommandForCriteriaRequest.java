@@ -18,6 +18,24 @@ import java.util.Map;
  */
 public interface IBatchCommandForCriteriaRequest {
 
+    /** Batch operation parameter name for device type token */
+    public static final String PARAM_DEVICE_TYPE_TOKEN = "deviceTypeToken";
+
+    /** Batch operation parameter name for group token */
+    public static final String PARAM_GROUP_TOKEN = "groupToken";
+
+    /** Batch operation parameter name for group role */
+    public static final String PARAM_GROUPS_WITH_ROLE = "groupsWithRole";
+
+    /** Batch operation parameter name for area token */
+    public static final String PARAM_AREA_TOKEN = "areaToken";
+
+    /** Batch operation parameter name for date range start */
+    public static final String PARAM_START_DATE = "startDate";
+
+    /** Batch operation parameter name for date range end */
+    public static final String PARAM_END_DATE = "endDate";
+
     /**
      * Get unique token for batch request.
      * 
@@ -233,6 +233,30 @@ public interface IDeviceManagement extends ITenantEngineLifecycleComponent {
      */
     public IDevice createDevice(IDeviceCreateRequest device) throws SiteWhereException;
 
+    /**
+     * Create multiple devices in a single call. Devices are returned in the same
+     * order as the requests. Requests for tokens that already exist return the
+     * existing device rather than failing the whole call.
+     * 
+     * @param devices
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<IDevice> createDevices(List<IDeviceCreateRequest> devices) throws SiteWhereException;
+
+    /**
+     * Create a device and an active assignment for it. The call is idempotent: if
+     * the device already exists it is used as-is and if it already has an active
+     * assignment, that assignment is returned.
+     * 
+     * @param device
+     * @param assignment
+     * @return
+     * @throws SiteWhereException
+     */
+    public IDeviceAssignment createDeviceWithAssignment(IDeviceCreateRequest device,
+	    IDeviceAssignmentCreateRequest assignment) throws SiteWhereException;
+
     /**
      * Get device by unique id.
      * 
@@ -242,6 +266,26 @@ public interface IDeviceManagement extends ITenantEngineLifecycleComponent {
      */
     public IDevice getDevice(UUID deviceId) throws SiteWhereException;
 
+    /**
+     * Get all devices matching a list of unique ids in a single call. Ids that do
+     * not match a device are skipped. Order of results is not guaranteed.
+     * 
+     * @param deviceIds
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<IDevice> getDevices(List<UUID> deviceIds) throws SiteWhereException;
+
+    /**
+     * Get all devices matching a list of reference tokens in a single call. Tokens
+     * that do not match a device are skipped. Order of results is not guaranteed.
+     * 
+     * @param tokens
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<IDevice> getDevicesByToken(List<String> tokens) throws SiteWhereException;
+
     /**
      * Gets a device by reference token.
      * 
@@ -320,6 +364,17 @@ public interface IDeviceManagement extends ITenantEngineLifecycleComponent {
      */
     public IDeviceAssignment getDeviceAssignment(UUID id) throws SiteWhereException;
 
+    /**
+     * Get all device assignments matching a list of unique ids in a single call.
+     * Ids that do not match an assignment are skipped. Order of results is not
+     * guaranteed.
+     * 
+     * @param ids
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<IDeviceAssignment> getDeviceAssignments(List<UUID> ids) throws SiteWhereException;
+
     /**
      * Get a device assignment by unique token.
      * 
@@ -487,6 +542,16 @@ public interface IDeviceManagement extends ITenantEngineLifecycleComponent {
      */
     public IArea getArea(UUID id) throws SiteWhereException;
 
+    /**
+     * Get all areas matching a list of unique ids in a single call. Ids that do
+     * not match an area are skipped. Order of results is not guaranteed.
+     * 
+     * @param ids
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<IArea> getAreas(List<UUID> ids) throws SiteWhereException;
+
     /**
      * Get a area by alias token.
      * 
@@ -505,6 +570,20 @@ public interface IDeviceManagement extends ITenantEngineLifecycleComponent {
      */
     public List<IArea> getAreaChildren(String token) throws SiteWhereException;
 
+    /**
+     * Get unique ids for all areas nested below the given area at any depth. The
+     * id of the area itself is not included. Throws a
+     * {@link com.sitewhere.spi.SiteWhereSystemException} with
+     * {@link com.sitewhere.spi.error.ErrorCode#InvalidAreaId} if the area does not
+     * exist or {@link com.sitewhere.spi.error.ErrorCode#OperationNotSupported} if
+     * the implementation can not answer the query directly.
+     * 
+     * @param id
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<UUID> getAreaDescendantIds(UUID id) throws SiteWhereException;
+
     /**
      * Update information for an area.
      * 
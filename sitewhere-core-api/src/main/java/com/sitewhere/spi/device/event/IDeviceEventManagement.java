@@ -295,6 +295,18 @@ public interface IDeviceEventManagement extends ITenantEngineLifecycleComponent
     public IDeviceStateChange addDeviceStateChange(IDeviceAssignment assignment,
 	    IDeviceStateChangeCreateRequest request) throws SiteWhereException;
 
+    /**
+     * Adds the same device state change event for each of a list of assignments.
+     * Results are returned in the same order as the assignments.
+     * 
+     * @param assignments
+     * @param request
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<IDeviceStateChange> addDeviceStateChanges(List<IDeviceAssignment> assignments,
+	    IDeviceStateChangeCreateRequest request) throws SiteWhereException;
+
     /**
      * Gets the most recent device state change entries for an assignment.
      * 
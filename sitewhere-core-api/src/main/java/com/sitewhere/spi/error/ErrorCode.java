@@ -28,6 +28,9 @@ public enum ErrorCode {
     /** Operation was not permitted */
     OperationNotPermitted(5, "User does not have permission for this operation."),
 
+    /** Operation is not supported by the implementation */
+    OperationNotSupported(7, "Operation is not supported by the configured implementation."),
+
     /** Bad username */
     InvalidMetadataFieldName(10, "Metadata field name contains invalid characters."),
 
@@ -131,6 +134,9 @@ public enum ErrorCode {
     /** Invalid area token */
     InvalidAreaToken(4130, "Area not found."),
 
+    /** Invalid area id */
+    InvalidAreaId(4135, "Area not found."),
+
     /** Invalid area type token */
     InvalidAreaTypeToken(4140, "Area type not found."),
 
@@ -7,6 +7,7 @@
  */
 package com.sitewhere.spi.label;
 
+import java.util.List;
 import java.util.UUID;
 
 import com.sitewhere.spi.SiteWhereException;
@@ -59,6 +60,19 @@ public interface ILabelGeneration extends ITenantEngineLifecycleComponent {
      */
     public ILabel getDeviceLabel(String labelGeneratorId, UUID deviceId) throws SiteWhereException;
 
+    /**
+     * For a given generator, get a single image containing labels for all of the
+     * given devices arranged in a grid.
+     * 
+     * @param labelGeneratorId
+     * @param deviceIds
+     * @param columns
+     * @return
+     * @throws SiteWhereException
+     */
+    public ILabel getDeviceLabelSheet(String labelGeneratorId, List<UUID> deviceIds, int columns)
+	    throws SiteWhereException;
+
     /**
      * For a given generator, get the device group label.
      * 
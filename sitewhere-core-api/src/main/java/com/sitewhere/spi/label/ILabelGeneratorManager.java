@@ -10,6 +10,7 @@ package com.sitewhere.spi.label;
 import java.util.List;
 
 import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.IDevice;
 import com.sitewhere.spi.server.lifecycle.ITenantEngineLifecycleComponent;
 
 /**
@@ -35,4 +36,18 @@ public interface ILabelGeneratorManager extends ITenantEngineLifecycleComponent
      * @throws SiteWhereException
      */
     public ILabelGenerator getLabelGenerator(String id) throws SiteWhereException;
+
+    /**
+     * Render labels for a list of devices with the given generator and combine
+     * them into a single PNG image with the given number of columns.
+     * 
+     * @param generator
+     * @param devices
+     * @param provider
+     * @param columns
+     * @return
+     * @throws SiteWhereException
+     */
+    public byte[] getDeviceLabelSheet(ILabelGenerator generator, List<IDevice> devices, IEntityUriProvider provider,
+	    int columns) throws SiteWhereException;
 }
\ No newline at end of file
@@ -76,4 +76,11 @@ public interface IInstanceSettings {
      * @return
      */
     public String getTracerServer();
+
+    /**
+     * Get maximum number of tenant engine operations executed concurrently.
+     * 
+     * @return
+     */
+    public int getTenantOperationsParallelism();
 }
\ No newline at end of file
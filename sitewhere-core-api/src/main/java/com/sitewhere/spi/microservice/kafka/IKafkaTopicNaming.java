@@ -120,4 +120,13 @@ public interface IKafkaTopicNaming {
      * @return
      */
     public String getInboundEnrichedCommandInvocationsTopic(ITenant tenant);
+
+    /**
+     * Get topic for system commands (registration acks, mapping acks, etc.) that
+     * should be delivered to devices.
+     * 
+     * @param tenant
+     * @return
+     */
+    public String getOutboundSystemCommandsTopic(ITenant tenant);
 }
\ No newline at end of file
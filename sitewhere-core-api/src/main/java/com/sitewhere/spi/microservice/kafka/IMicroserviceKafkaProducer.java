@@ -7,6 +7,8 @@
  */
 package com.sitewhere.spi.microservice.kafka;
 
+import org.apache.kafka.common.header.Headers;
+
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.microservice.IMicroservice;
 import com.sitewhere.spi.server.lifecycle.ILifecycleComponent;
@@ -41,4 +43,23 @@ public interface IMicroserviceKafkaProducer extends ILifecycleComponent {
      * @throws SiteWhereException
      */
     public void send(String key, byte[] message) throws SiteWhereException;
+
+    /**
+     * Send a message to the topic with record headers that describe its content.
+     * 
+     * @param key
+     * @param message
+     * @param headers
+     * @throws SiteWhereException
+     */
+    public void send(String key, byte[] message, Headers headers) throws SiteWhereException;
+
+    /**
+     * Block until all messages sent so far have completed, whether or not they
+     * were delivered. Use a delivery tracker to find out whether the messages
+     * for a given batch were delivered.
+     * 
+     * @throws SiteWhereException
+     */
+    public void flush() throws SiteWhereException;
 }
\ No newline at end of file
@@ -7,6 +7,8 @@
  */
 package com.sitewhere.spi.microservice.multitenant;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.springframework.context.ApplicationContext;
@@ -171,6 +173,27 @@ public interface IMicroserviceTenantEngine extends ITenantEngineLifecycleCompone
      */
     public void waitForModuleBootstrapped(String identifier, long time, TimeUnit unit) throws SiteWhereException;
 
+    /**
+     * Get a future that completes when another module has been bootstrapped or
+     * completes exceptionally once the time limit is reached.
+     * 
+     * @param identifier
+     * @param time
+     * @param unit
+     * @return
+     * @throws SiteWhereException
+     */
+    public CompletableFuture<Void> watchForModuleBootstrapped(String identifier, long time, TimeUnit unit)
+	    throws SiteWhereException;
+
+    /**
+     * Get identifiers for modules that must be bootstrapped before this module
+     * can be bootstrapped.
+     * 
+     * @return
+     */
+    public List<String> getModuleBootstrapDependencies();
+
     /**
      * Executes tenant initialization code. Called after Spring context has been
      * loaded.
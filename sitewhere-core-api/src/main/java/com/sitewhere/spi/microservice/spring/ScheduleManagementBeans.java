@@ -19,4 +19,10 @@ public class ScheduleManagementBeans {
 
     /** Bean id for schedule management in server configuration */
     public static final String BEAN_SCHEDULE_MANAGEMENT = "scheduleManagement";
+
+    /** Bean id for trigger lease manager shared by schedule manager replicas */
+    public static final String BEAN_TRIGGER_LEASE_MANAGER = "triggerLeaseManager";
+
+    /** Bean id for schedule manager that executes scheduled jobs */
+    public static final String BEAN_SCHEDULE_MANAGER = "scheduleManager";
 }
\ No newline at end of file
@@ -8,6 +8,7 @@
 package com.sitewhere.spi.microservice.state;
 
 import java.util.List;
+import java.util.Map;
 
 import com.sitewhere.spi.server.lifecycle.LifecycleStatus;
 
@@ -45,4 +46,12 @@ public interface ITenantEngineState {
      * @return
      */
     public List<String> getLifecycleErrorStack();
+
+    /**
+     * Get runtime metrics reported by the tenant engine indexed by name. Returns
+     * null if the tenant engine does not report metrics.
+     * 
+     * @return
+     */
+    public Map<String, Double> getMetrics();
 }
\ No newline at end of file
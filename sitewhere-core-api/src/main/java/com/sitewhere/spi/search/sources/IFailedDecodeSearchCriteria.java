@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.spi.search.sources;
+
+import com.sitewhere.spi.search.ISearchCriteria;
+
+/**
+ * Search criteria for payloads that could not be decoded. Null values match
+ * all failures.
+ * 
+ * @author Derek
+ */
+public interface IFailedDecodeSearchCriteria extends ISearchCriteria {
+
+    /**
+     * Get event source id to match.
+     * 
+     * @return
+     */
+    public String getSourceId();
+
+    /**
+     * Get decoder name to match.
+     * 
+     * @return
+     */
+    public String getDecoder();
+
+    /**
+     * Get error class to match.
+     * 
+     * @return
+     */
+    public String getErrorClass();
+
+    /**
+     * Indicates whether failures that were already replayed are included.
+     * 
+     * @return
+     */
+    public boolean isIncludeReplayed();
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.spi.sources;
+
+/**
+ * Counters and rates for all event sources that use the same decoder.
+ * 
+ * @author Derek
+ */
+public interface IDecoderMetrics {
+
+    /**
+     * Get name of decoder.
+     * 
+     * @return
+     */
+    public String getDecoder();
+
+    /**
+     * Get number of event sources using the decoder.
+     * 
+     * @return
+     */
+    public int getSourceCount();
+
+    /**
+     * Get number of events decoded.
+     * 
+     * @return
+     */
+    public long getDecodedCount();
+
+    /**
+     * Get rate at which events are decoded.
+     * 
+     * @return
+     */
+    public double getDecodedRate();
+
+    /**
+     * Get number of payloads that could not be decoded.
+     * 
+     * @return
+     */
+    public long getDecodeFailedCount();
+}
\ No newline at end of file
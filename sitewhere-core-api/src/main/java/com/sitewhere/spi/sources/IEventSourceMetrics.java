@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.spi.sources;
+
+/**
+ * Counters, rates and stage latencies for a single event source. Counts are
+ * totals since the source was created and rates are events per second.
+ * 
+ * @author Derek
+ */
+public interface IEventSourceMetrics {
+
+    /**
+     * Get id of event source.
+     * 
+     * @return
+     */
+    public String getSourceId();
+
+    /**
+     * Get name of decoder.
+     * 
+     * @return
+     */
+    public String getDecoder();
+
+    /**
+     * Get number of payloads received.
+     * 
+     * @return
+     */
+    public long getReceivedCount();
+
+    /**
+     * Get rate at which payloads are received.
+     * 
+     * @return
+     */
+    public double getReceivedRate();
+
+    /**
+     * Get number of events decoded.
+     * 
+     * @return
+     */
+    public long getDecodedCount();
+
+    /**
+     * Get rate at which events are decoded.
+     * 
+     * @return
+     */
+    public double getDecodedRate();
+
+    /**
+     * Get number of payloads that could not be decoded.
+     * 
+     * @return
+     */
+    public long getDecodeFailedCount();
+
+    /**
+     * Get number of events dropped as duplicates.
+     * 
+     * @return
+     */
+    public long getDuplicateCount();
+
+    /**
+     * Get latency of decoding a payload.
+     * 
+     * @return
+     */
+    public ILatencySummary getDecodeLatency();
+
+    /**
+     * Get latency of duplicate checks for an event.
+     * 
+     * @return
+     */
+    public ILatencySummary getDedupeLatency();
+}
\ No newline at end of file
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.spi.sources;
+
+import java.util.List;
+
+/**
+ * Ingest metrics for all event sources in a tenant along with the latency of
+ * forwarding decoded events to Kafka.
+ * 
+ * @author Derek
+ */
+public interface IEventSourcesMetrics {
+
+    /**
+     * Get metrics for each event source.
+     * 
+     * @return
+     */
+    public List<IEventSourceMetrics> getEventSources();
+
+    /**
+     * Get metrics for each decoder.
+     * 
+     * @return
+     */
+    public List<IDecoderMetrics> getDecoders();
+
+    /**
+     * Get number of messages sent to the decoded events topic.
+     * 
+     * @return
+     */
+    public long getSentCount();
+
+    /**
+     * Get rate at which messages are sent to the decoded events topic.
+     * 
+     * @return
+     */
+    public double getSentRate();
+
+    /**
+     * Get number of messages that Kafka failed to deliver.
+     * 
+     * @return
+     */
+    public long getSendFailedCount();
+
+    /**
+     * Get latency of handing a message to the Kafka producer.
+     * 
+     * @return
+     */
+    public ILatencySummary getSendLatency();
+}
\ No newline at end of file
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.spi.sources;
+
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Provides access to ingest metrics for the event sources in a tenant.
+ * 
+ * @author Derek
+ */
+public interface IEventSourcesMonitoring {
+
+    /**
+     * Get current counters, rates and latencies for event sources.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    public IEventSourcesMetrics getEventSourcesMetrics() throws SiteWhereException;
+}
\ No newline at end of file
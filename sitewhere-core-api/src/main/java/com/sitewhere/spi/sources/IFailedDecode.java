@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.spi.sources;
+
+import java.util.Date;
+
+/**
+ * Raw payload that an event source was unable to decode.
+ * 
+ * @author Derek
+ */
+public interface IFailedDecode {
+
+    /**
+     * Get unique id assigned when the failure was indexed.
+     * 
+     * @return
+     */
+    public String getId();
+
+    /**
+     * Get id of event source that received the payload.
+     * 
+     * @return
+     */
+    public String getSourceId();
+
+    /**
+     * Get name of decoder that failed.
+     * 
+     * @return
+     */
+    public String getDecoder();
+
+    /**
+     * Get class name of error thrown by the decoder.
+     * 
+     * @return
+     */
+    public String getErrorClass();
+
+    /**
+     * Get error message.
+     * 
+     * @return
+     */
+    public String getErrorMessage();
+
+    /**
+     * Get date decoding failed.
+     * 
+     * @return
+     */
+    public Date getFailedDate();
+
+    /**
+     * Indicates whether the payload has been replayed successfully.
+     * 
+     * @return
+     */
+    public boolean isReplayed();
+
+    /**
+     * Get raw payload.
+     * 
+     * @return
+     */
+    public byte[] getPayload();
+}
\ No newline at end of file
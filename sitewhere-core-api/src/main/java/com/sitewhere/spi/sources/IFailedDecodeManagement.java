@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.spi.sources;
+
+import java.util.List;
+
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.search.ISearchResults;
+import com.sitewhere.spi.search.sources.IFailedDecodeSearchCriteria;
+import com.sitewhere.spi.server.lifecycle.ITenantEngineLifecycleComponent;
+
+/**
+ * Management interface for inspecting and replaying payloads that event
+ * sources were unable to decode.
+ * 
+ * @author Derek
+ */
+public interface IFailedDecodeManagement extends ITenantEngineLifecycleComponent {
+
+    /**
+     * List failed decodes that match the criteria, most recent first.
+     * 
+     * @param criteria
+     * @return
+     * @throws SiteWhereException
+     */
+    public ISearchResults<IFailedDecode> listFailedDecodes(IFailedDecodeSearchCriteria criteria)
+	    throws SiteWhereException;
+
+    /**
+     * Get failure counts grouped by event source, decoder and error class.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<IFailedDecodeSummary> getFailedDecodeSummaries() throws SiteWhereException;
+
+    /**
+     * Get a random sample of failed decodes that match the criteria.
+     * 
+     * @param criteria
+     * @param count
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<IFailedDecode> sampleFailedDecodes(IFailedDecodeSearchCriteria criteria, int count)
+	    throws SiteWhereException;
+
+    /**
+     * Start replaying failed decodes that match the criteria through the decoder
+     * of an event source. Only one replay may run at a time.
+     * 
+     * @param criteria
+     * @param targetSourceId
+     * @param maxPerSecond
+     * @return
+     * @throws SiteWhereException
+     */
+    public IFailedDecodeReplayStatus replayFailedDecodes(IFailedDecodeSearchCriteria criteria,
+	    String targetSourceId, int maxPerSecond) throws SiteWhereException;
+
+    /**
+     * Get status of the most recent replay or null if none has run.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    public IFailedDecodeReplayStatus getFailedDecodeReplayStatus() throws SiteWhereException;
+}
\ No newline at end of file
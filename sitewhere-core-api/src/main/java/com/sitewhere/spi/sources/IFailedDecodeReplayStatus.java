@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.spi.sources;
+
+import java.util.Date;
+
+/**
+ * Progress of replaying failed decodes through an event source.
+ * 
+ * @author Derek
+ */
+public interface IFailedDecodeReplayStatus {
+
+    /**
+     * Get id of event source used to decode payloads.
+     * 
+     * @return
+     */
+    public String getTargetSourceId();
+
+    /**
+     * Get maximum number of payloads replayed per second.
+     * 
+     * @return
+     */
+    public int getMaxPerSecond();
+
+    /**
+     * Get number of failures matched for replay.
+     * 
+     * @return
+     */
+    public long getMatched();
+
+    /**
+     * Get number of payloads decoded successfully.
+     * 
+     * @return
+     */
+    public long getReplayed();
+
+    /**
+     * Get number of payloads that still could not be decoded.
+     * 
+     * @return
+     */
+    public long getFailed();
+
+    /**
+     * Get date replay started.
+     * 
+     * @return
+     */
+    public Date getStartDate();
+
+    /**
+     * Get date replay finished or null if still running.
+     * 
+     * @return
+     */
+    public Date getEndDate();
+
+    /**
+     * Indicates whether replay has finished.
+     * 
+     * @return
+     */
+    public boolean isComplete();
+}
\ No newline at end of file
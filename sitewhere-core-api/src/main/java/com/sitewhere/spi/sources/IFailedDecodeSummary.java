@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.spi.sources;
+
+import java.util.Date;
+
+/**
+ * Number of decode failures for a combination of event source, decoder and
+ * error class.
+ * 
+ * @author Derek
+ */
+public interface IFailedDecodeSummary {
+
+    /**
+     * Get id of event source.
+     * 
+     * @return
+     */
+    public String getSourceId();
+
+    /**
+     * Get name of decoder.
+     * 
+     * @return
+     */
+    public String getDecoder();
+
+    /**
+     * Get class name of error.
+     * 
+     * @return
+     */
+    public String getErrorClass();
+
+    /**
+     * Get number of failures currently retained.
+     * 
+     * @return
+     */
+    public long getCount();
+
+    /**
+     * Get date of oldest retained failure.
+     * 
+     * @return
+     */
+    public Date getFirstFailedDate();
+
+    /**
+     * Get date of most recent failure.
+     * 
+     * @return
+     */
+    public Date getLastFailedDate();
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.spi.sources;
+
+/**
+ * Distribution of latencies recorded for a processing stage over the most
+ * recent reporting window. Values are in microseconds.
+ * 
+ * @author Derek
+ */
+public interface ILatencySummary {
+
+    /**
+     * Get number of samples in window.
+     * 
+     * @return
+     */
+    public long getCount();
+
+    /**
+     * Get mean latency.
+     * 
+     * @return
+     */
+    public double getMean();
+
+    /**
+     * Get median latency.
+     * 
+     * @return
+     */
+    public long getP50();
+
+    /**
+     * Get 99th percentile latency.
+     * 
+     * @return
+     */
+    public long getP99();
+
+    /**
+     * Get maximum latency.
+     * 
+     * @return
+     */
+    public long getMax();
+}
\ No newline at end of file
@@ -7,6 +7,7 @@
  */
 package com.sitewhere.asset;
 
+import java.util.List;
 import java.util.UUID;
 
 import com.sitewhere.server.lifecycle.LifecycleComponentDecorator;
@@ -61,6 +62,15 @@ public class AssetManagementDecorator extends LifecycleComponentDecorator<IAsset
 	return getDelegate().getAsset(assetId);
     }
 
+    /*
+     * @see
+     * com.sitewhere.spi.asset.IAssetManagement#getAssetsByIds(java.util.List)
+     */
+    @Override
+    public List<IAsset> getAssetsByIds(List<UUID> assetIds) throws SiteWhereException {
+	return getDelegate().getAssetsByIds(assetIds);
+    }
+
     /*
      * @see
      * com.sitewhere.spi.asset.IAssetManagement#getAssetByToken(java.lang.String)
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.asset;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.asset.IAsset;
+import com.sitewhere.spi.asset.IAssetManagement;
+
+/**
+ * Wraps an asset management implementation for the duration of a single
+ * request. Assets referenced by a page of results are loaded with one bulk call
+ * and later lookups by id are answered from memory.
+ *
+ * @author Derek
+ */
+public class PrefetchedAssetManagement extends AssetManagementDecorator {
+
+    /** Assets loaded so far (null values record ids with no match) */
+    private Map<UUID, IAsset> assetsById = new HashMap<>();
+
+    public PrefetchedAssetManagement(IAssetManagement delegate) {
+	super(delegate);
+    }
+
+    /**
+     * Load all assets for the given ids that have not already been loaded.
+     *
+     * @param assetIds
+     * @throws SiteWhereException
+     */
+    public void prefetch(Collection<UUID> assetIds) throws SiteWhereException {
+	Set<UUID> missing = new LinkedHashSet<>();
+	for (UUID assetId : assetIds) {
+	    if ((assetId != null) && (!assetsById.containsKey(assetId))) {
+		missing.add(assetId);
+	    }
+	}
+	if (missing.size() == 0) {
+	    return;
+	}
+	for (IAsset asset : getDelegate().getAssetsByIds(new ArrayList<UUID>(missing))) {
+	    assetsById.put(asset.getId(), asset);
+	}
+	for (UUID assetId : missing) {
+	    if (!assetsById.containsKey(assetId)) {
+		assetsById.put(assetId, null);
+	    }
+	}
+    }
+
+    /*
+     * @see com.sitewhere.asset.AssetManagementDecorator#getAsset(java.util.UUID)
+     */
+    @Override
+    public IAsset getAsset(UUID assetId) throws SiteWhereException {
+	if (assetsById.containsKey(assetId)) {
+	    return assetsById.get(assetId);
+	}
+	IAsset asset = super.getAsset(assetId);
+	assetsById.put(assetId, asset);
+	return asset;
+    }
+}
@@ -7,6 +7,8 @@
  */
 package com.sitewhere.batch;
 
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import com.sitewhere.server.lifecycle.LifecycleComponentDecorator;
@@ -14,6 +16,7 @@ import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.batch.IBatchElement;
 import com.sitewhere.spi.batch.IBatchManagement;
 import com.sitewhere.spi.batch.IBatchOperation;
+import com.sitewhere.spi.batch.request.IBatchCommandForCriteriaRequest;
 import com.sitewhere.spi.batch.request.IBatchCommandInvocationRequest;
 import com.sitewhere.spi.batch.request.IBatchElementUpdateRequest;
 import com.sitewhere.spi.batch.request.IBatchOperationCreateRequest;
@@ -119,6 +122,26 @@ public class BatchManagementDecorator extends LifecycleComponentDecorator<IBatch
 	return getDelegate().updateBatchElement(elementId, request);
     }
 
+    /*
+     * @see
+     * com.sitewhere.spi.batch.IBatchManagement#bulkUpdateBatchElements(java.util.
+     * Map)
+     */
+    @Override
+    public void bulkUpdateBatchElements(Map<UUID, IBatchElementUpdateRequest> requestsByElementId)
+	    throws SiteWhereException {
+	getDelegate().bulkUpdateBatchElements(requestsByElementId);
+    }
+
+    /*
+     * @see com.sitewhere.spi.batch.IBatchManagement#addBatchElements(java.util.UUID,
+     * java.util.List)
+     */
+    @Override
+    public void addBatchElements(UUID batchOperationId, List<UUID> deviceIds) throws SiteWhereException {
+	getDelegate().addBatchElements(batchOperationId, deviceIds);
+    }
+
     /*
      * @see
      * com.sitewhere.spi.batch.IBatchManagement#createBatchCommandInvocation(com.
@@ -130,6 +153,17 @@ public class BatchManagementDecorator extends LifecycleComponentDecorator<IBatch
 	return getDelegate().createBatchCommandInvocation(request);
     }
 
+    /*
+     * @see com.sitewhere.spi.batch.IBatchManagement#
+     * createBatchCommandInvocationFromCriteria(com.sitewhere.spi.batch.request.
+     * IBatchCommandForCriteriaRequest)
+     */
+    @Override
+    public IBatchOperation createBatchCommandInvocationFromCriteria(IBatchCommandForCriteriaRequest request)
+	    throws SiteWhereException {
+	return getDelegate().createBatchCommandInvocationFromCriteria(request);
+    }
+
     /*
      * @see com.sitewhere.spi.server.lifecycle.ITenantEngineLifecycleComponent#
      * setTenantEngine(com.sitewhere.spi.microservice.multitenant.
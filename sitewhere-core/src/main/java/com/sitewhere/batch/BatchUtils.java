@@ -8,10 +8,11 @@
 package com.sitewhere.batch;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 
+import com.sitewhere.device.group.DeviceGroupExpander;
 import com.sitewhere.device.group.DeviceGroupUtils;
+import com.sitewhere.rest.model.search.SearchCriteria;
 import com.sitewhere.rest.model.search.device.DeviceSearchCriteria;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.SiteWhereSystemException;
@@ -22,7 +23,7 @@ import com.sitewhere.spi.device.IDeviceManagement;
 import com.sitewhere.spi.device.group.IDeviceGroup;
 import com.sitewhere.spi.error.ErrorCode;
 import com.sitewhere.spi.error.ErrorLevel;
-import com.sitewhere.spi.search.device.IDeviceSearchCriteria;
+import com.sitewhere.spi.search.ISearchResults;
 
 /**
  * Utility methods for batch operations.
@@ -31,8 +32,15 @@ import com.sitewhere.spi.search.device.IDeviceSearchCriteria;
  */
 public class BatchUtils {
 
+    /** Number of devices loaded per page when resolving criteria */
+    private static final int DEVICE_PAGE_SIZE = 1000;
+
+    /** Number of device groups loaded per page when resolving group roles */
+    private static final int GROUP_PAGE_SIZE = 100;
+
     /**
-     * Get device tokens based on the given criteria.
+     * Get device tokens based on the given criteria. Devices are streamed a page
+     * at a time so that only their tokens are retained.
      * 
      * @param criteria
      * @return
@@ -40,6 +48,23 @@ public class BatchUtils {
      */
     public static List<String> resolveDeviceTokensForCriteria(IBatchCommandForCriteriaRequest criteria,
 	    IDeviceManagement deviceManagement, IAssetManagement assetManagement) throws SiteWhereException {
+	List<String> deviceTokens = new ArrayList<String>();
+	visitDevicesForCriteria(criteria, deviceManagement, device -> deviceTokens.add(device.getToken()));
+	return deviceTokens;
+    }
+
+    /**
+     * Pass each device that matches the given criteria to a visitor. Devices are
+     * loaded a page at a time and are not retained once visited, so callers can
+     * process arbitrarily large result sets in constant memory.
+     * 
+     * @param criteria
+     * @param deviceManagement
+     * @param visitor
+     * @throws SiteWhereException
+     */
+    public static void visitDevicesForCriteria(IBatchCommandForCriteriaRequest criteria,
+	    IDeviceManagement deviceManagement, IDeviceVisitor visitor) throws SiteWhereException {
 	if (criteria.getDeviceTypeToken() == null) {
 	    throw new SiteWhereSystemException(ErrorCode.InvalidDeviceTypeToken, ErrorLevel.ERROR);
 	}
@@ -56,23 +81,96 @@ public class BatchUtils {
 	    throw new SiteWhereException("Only one of groupToken or groupsWithRole may be specified.");
 	}
 
-	IDeviceSearchCriteria deviceSearch = new DeviceSearchCriteria(criteria.getDeviceTypeToken(), false, 1, 0,
-		criteria.getStartDate(), criteria.getEndDate());
+	DeviceSearchCriteria deviceSearch = new DeviceSearchCriteria(criteria.getDeviceTypeToken(), false, 1,
+		DEVICE_PAGE_SIZE, criteria.getStartDate(), criteria.getEndDate());
 
-	Collection<IDevice> matches;
+	DeviceGroupExpander expander = null;
 	if (hasGroup) {
 	    IDeviceGroup group = deviceManagement.getDeviceGroupByToken(criteria.getGroupToken());
-	    matches = DeviceGroupUtils.getDevicesInGroup(group, deviceSearch, deviceManagement, assetManagement);
+	    if (group == null) {
+		throw new SiteWhereSystemException(ErrorCode.InvalidDeviceGroupToken, ErrorLevel.ERROR);
+	    }
+	    expander = new DeviceGroupExpander(deviceManagement, deviceSearch).addGroup(group.getId());
 	} else if (hasGroupsWithRole) {
-	    matches = DeviceGroupUtils.getDevicesInGroupsWithRole(criteria.getGroupsWithRole(), deviceSearch,
-		    deviceManagement, assetManagement);
-	} else {
-	    matches = deviceManagement.listDevices(false, deviceSearch).getResults();
+	    expander = DeviceGroupUtils.createExpanderForGroupsWithRole(criteria.getGroupsWithRole(), deviceSearch,
+		    deviceManagement);
 	}
-	List<String> deviceTokens = new ArrayList<String>();
-	for (IDevice match : matches) {
-	    deviceTokens.add(match.getToken());
+
+	if (expander != null) {
+	    IDevice device;
+	    while ((device = expander.next()) != null) {
+		visitor.visit(device);
+	    }
+	    return;
 	}
-	return deviceTokens;
+
+	// Device type and date filters are applied by the device query.
+	while (true) {
+	    ISearchResults<IDevice> page = deviceManagement.listDevices(false, deviceSearch);
+	    for (IDevice match : page.getResults()) {
+		visitor.visit(match);
+	    }
+	    if (page.getResults().size() < DEVICE_PAGE_SIZE) {
+		return;
+	    }
+	    deviceSearch.setPageNumber(deviceSearch.getPageNumber() + 1);
+	}
+    }
+
+    /**
+     * Pass each device group with the given role to a visitor. Groups are loaded
+     * a page at a time rather than all at once.
+     * 
+     * @param groupRole
+     * @param deviceManagement
+     * @param visitor
+     * @throws SiteWhereException
+     */
+    public static void visitDeviceGroupsWithRole(String groupRole, IDeviceManagement deviceManagement,
+	    IDeviceGroupVisitor visitor) throws SiteWhereException {
+	SearchCriteria groupSearch = new SearchCriteria(1, GROUP_PAGE_SIZE);
+	while (true) {
+	    ISearchResults<IDeviceGroup> page = deviceManagement.listDeviceGroupsWithRole(groupRole, false,
+		    groupSearch);
+	    for (IDeviceGroup group : page.getResults()) {
+		visitor.visit(group);
+	    }
+	    if (page.getResults().size() < GROUP_PAGE_SIZE) {
+		return;
+	    }
+	    groupSearch.setPageNumber(groupSearch.getPageNumber() + 1);
+	}
+    }
+
+    /**
+     * Receives devices resolved from batch criteria.
+     * 
+     * @author Derek
+     */
+    public static interface IDeviceVisitor {
+
+	/**
+	 * Called for each matching device.
+	 * 
+	 * @param device
+	 * @throws SiteWhereException
+	 */
+	public void visit(IDevice device) throws SiteWhereException;
+    }
+
+    /**
+     * Receives device groups resolved by role.
+     * 
+     * @author Derek
+     */
+    public static interface IDeviceGroupVisitor {
+
+	/**
+	 * Called for each matching device group.
+	 * 
+	 * @param group
+	 * @throws SiteWhereException
+	 */
+	public void visit(IDeviceGroup group) throws SiteWhereException;
     }
 }
\ No newline at end of file
@@ -257,6 +257,25 @@ public class DeviceManagementDecorator extends LifecycleComponentDecorator<IDevi
 	return getDelegate().createDevice(device);
     }
 
+    /*
+     * @see com.sitewhere.spi.device.IDeviceManagement#createDevices(java.util.List)
+     */
+    @Override
+    public List<IDevice> createDevices(List<IDeviceCreateRequest> devices) throws SiteWhereException {
+	return getDelegate().createDevices(devices);
+    }
+
+    /*
+     * @see com.sitewhere.spi.device.IDeviceManagement#createDeviceWithAssignment(
+     * com.sitewhere.spi.device.request.IDeviceCreateRequest,
+     * com.sitewhere.spi.device.request.IDeviceAssignmentCreateRequest)
+     */
+    @Override
+    public IDeviceAssignment createDeviceWithAssignment(IDeviceCreateRequest device,
+	    IDeviceAssignmentCreateRequest assignment) throws SiteWhereException {
+	return getDelegate().createDeviceWithAssignment(device, assignment);
+    }
+
     /*
      * @see com.sitewhere.spi.device.IDeviceManagement#getDevice(java.util.UUID)
      */
@@ -265,6 +284,33 @@ public class DeviceManagementDecorator extends LifecycleComponentDecorator<IDevi
 	return getDelegate().getDevice(deviceId);
     }
 
+    /*
+     * @see com.sitewhere.spi.device.IDeviceManagement#getDevices(java.util.List)
+     */
+    @Override
+    public List<IDevice> getDevices(List<UUID> deviceIds) throws SiteWhereException {
+	return getDelegate().getDevices(deviceIds);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.device.IDeviceManagement#getDevicesByToken(java.util.List)
+     */
+    @Override
+    public List<IDevice> getDevicesByToken(List<String> tokens) throws SiteWhereException {
+	return getDelegate().getDevicesByToken(tokens);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.device.IDeviceManagement#getDeviceAssignments(java.util.
+     * List)
+     */
+    @Override
+    public List<IDeviceAssignment> getDeviceAssignments(List<UUID> ids) throws SiteWhereException {
+	return getDelegate().getDeviceAssignments(ids);
+    }
+
     /*
      * @see
      * com.sitewhere.spi.device.IDeviceManagement#getDeviceByToken(java.lang.String)
@@ -509,6 +555,14 @@ public class DeviceManagementDecorator extends LifecycleComponentDecorator<IDevi
 	return getDelegate().getArea(id);
     }
 
+    /*
+     * @see com.sitewhere.spi.device.IDeviceManagement#getAreas(java.util.List)
+     */
+    @Override
+    public List<IArea> getAreas(List<UUID> ids) throws SiteWhereException {
+	return getDelegate().getAreas(ids);
+    }
+
     /*
      * @see
      * com.sitewhere.spi.device.IDeviceManagement#getAreaByToken(java.lang.String)
@@ -527,6 +581,16 @@ public class DeviceManagementDecorator extends LifecycleComponentDecorator<IDevi
 	return getDelegate().getAreaChildren(token);
     }
 
+    /*
+     * @see
+     * com.sitewhere.spi.device.IDeviceManagement#getAreaDescendantIds(java.util.
+     * UUID)
+     */
+    @Override
+    public List<UUID> getAreaDescendantIds(UUID id) throws SiteWhereException {
+	return getDelegate().getAreaDescendantIds(id);
+    }
+
     /*
      * @see com.sitewhere.spi.device.IDeviceManagement#updateArea(java.util.UUID,
      * com.sitewhere.spi.area.request.IAreaCreateRequest)
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.device.group;
+
+import java.util.UUID;
+
+/**
+ * Set of {@link UUID} values stored as pairs of primitive longs in an open
+ * addressing table. Uses a fraction of the memory of a HashSet when tracking
+ * hundreds of thousands of device ids.
+ *
+ * @author Derek
+ */
+public class CompactUuidSet {
+
+    /** Maximum ratio of entries to table slots */
+    private static final double LOAD_FACTOR = 0.5;
+
+    /** Most significant bits for each slot */
+    private long[] high;
+
+    /** Least significant bits for each slot */
+    private long[] low;
+
+    /** Indicates whether the all-zero id (used to mark empty slots) is present */
+    private boolean hasZero;
+
+    /** Number of entries */
+    private int size;
+
+    public CompactUuidSet() {
+	this(1024);
+    }
+
+    public CompactUuidSet(int expected) {
+	int capacity = 16;
+	while (capacity * LOAD_FACTOR < expected) {
+	    capacity <<= 1;
+	}
+	this.high = new long[capacity];
+	this.low = new long[capacity];
+    }
+
+    /**
+     * Add an id to the set.
+     *
+     * @param id
+     * @return true if the id was not already present
+     */
+    public boolean add(UUID id) {
+	long msb = id.getMostSignificantBits();
+	long lsb = id.getLeastSignificantBits();
+	if ((msb == 0) && (lsb == 0)) {
+	    if (hasZero) {
+		return false;
+	    }
+	    hasZero = true;
+	    size++;
+	    return true;
+	}
+	if ((size + 1) > (high.length * LOAD_FACTOR)) {
+	    resize();
+	}
+	if (insert(high, low, msb, lsb)) {
+	    size++;
+	    return true;
+	}
+	return false;
+    }
+
+    /**
+     * Indicates whether the set contains an id.
+     *
+     * @param id
+     * @return
+     */
+    public boolean contains(UUID id) {
+	long msb = id.getMostSignificantBits();
+	long lsb = id.getLeastSignificantBits();
+	if ((msb == 0) && (lsb == 0)) {
+	    return hasZero;
+	}
+	int mask = high.length - 1;
+	int slot = hash(msb, lsb) & mask;
+	while ((high[slot] != 0) || (low[slot] != 0)) {
+	    if ((high[slot] == msb) && (low[slot] == lsb)) {
+		return true;
+	    }
+	    slot = (slot + 1) & mask;
+	}
+	return false;
+    }
+
+    /**
+     * Get number of ids in the set.
+     *
+     * @return
+     */
+    public int size() {
+	return size;
+    }
+
+    /**
+     * Insert a non-zero id into the given table.
+     *
+     * @param highs
+     * @param lows
+     * @param msb
+     * @param lsb
+     * @return
+     */
+    protected static boolean insert(long[] highs, long[] lows, long msb, long lsb) {
+	int mask = highs.length - 1;
+	int slot = hash(msb, lsb) & mask;
+	while ((highs[slot] != 0) || (lows[slot] != 0)) {
+	    if ((highs[slot] == msb) && (lows[slot] == lsb)) {
+		return false;
+	    }
+	    slot = (slot + 1) & mask;
+	}
+	highs[slot] = msb;
+	lows[slot] = lsb;
+	return true;
+    }
+
+    /**
+     * Double the table size and rehash existing entries.
+     */
+    protected void resize() {
+	long[] highs = new long[high.length << 1];
+	long[] lows = new long[low.length << 1];
+	for (int i = 0; i < high.length; i++) {
+	    if ((high[i] != 0) || (low[i] != 0)) {
+		insert(highs, lows, high[i], low[i]);
+	    }
+	}
+	this.high = highs;
+	this.low = lows;
+    }
+
+    /**
+     * Spread bits of an id across a slot index.
+     *
+     * @param msb
+     * @param lsb
+     * @return
+     */
+    protected static int hash(long msb, long lsb) {
+	long h = (msb * 0x9E3779B97F4A7C15L) ^ lsb;
+	h ^= (h >>> 32);
+	h *= 0xC2B2AE3D27D4EB4FL;
+	return (int) (h ^ (h >>> 29));
+    }
+}
\ No newline at end of file
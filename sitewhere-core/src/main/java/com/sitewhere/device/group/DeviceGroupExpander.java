@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.device.group;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.sitewhere.rest.model.search.SearchCriteria;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.SiteWhereSystemException;
+import com.sitewhere.spi.device.IDevice;
+import com.sitewhere.spi.device.IDeviceManagement;
+import com.sitewhere.spi.device.IDeviceType;
+import com.sitewhere.spi.device.group.IDeviceGroupElement;
+import com.sitewhere.spi.error.ErrorCode;
+import com.sitewhere.spi.error.ErrorLevel;
+import com.sitewhere.spi.search.ISearchResults;
+import com.sitewhere.spi.search.device.IDeviceSearchCriteria;
+
+/**
+ * Lazily expands one or more device groups into the devices they contain.
+ * Group elements are loaded a page at a time and nested groups are queued as
+ * they are encountered, so only the current page is held in memory. Each device
+ * is returned at most once and each group is expanded at most once, which also
+ * breaks cycles in the group hierarchy. Devices referenced by a page of
+ * elements are resolved with a single bulk lookup and device types referenced by
+ * the filter criteria are resolved once per expansion rather than once per
+ * device.
+ *
+ * @author Derek
+ */
+public class DeviceGroupExpander {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(DeviceGroupExpander.class);
+
+    /** Default number of group elements loaded per page */
+    private static final int DEFAULT_PAGE_SIZE = 500;
+
+    /** Device management implementation */
+    private IDeviceManagement deviceManagement;
+
+    /** Criteria used to filter devices (null for all devices) */
+    private IDeviceSearchCriteria criteria;
+
+    /** Number of group elements loaded per page */
+    private int pageSize = DEFAULT_PAGE_SIZE;
+
+    /** Groups waiting to be expanded */
+    private Deque<UUID> pendingGroups = new ArrayDeque<UUID>();
+
+    /** Groups already queued for expansion */
+    private CompactUuidSet visitedGroups = new CompactUuidSet(64);
+
+    /** Devices already returned */
+    private CompactUuidSet visitedDevices = new CompactUuidSet();
+
+    /** Device types resolved during this expansion */
+    private Map<String, IDeviceType> deviceTypesByToken = new HashMap<String, IDeviceType>();
+
+    /** Group currently being expanded */
+    private UUID currentGroupId;
+
+    /** Next page of current group to load */
+    private int nextPage;
+
+    /** Elements from current page not yet processed */
+    private Iterator<IDeviceGroupElement> currentPage;
+
+    /** Matching devices resolved from the last page but not yet returned */
+    private Deque<IDevice> resolvedDevices = new ArrayDeque<IDevice>();
+
+    public DeviceGroupExpander(IDeviceManagement deviceManagement, IDeviceSearchCriteria criteria) {
+	this.deviceManagement = deviceManagement;
+	this.criteria = criteria;
+    }
+
+    /**
+     * Queue a group for expansion. Groups that have already been queued are
+     * ignored.
+     *
+     * @param groupId
+     * @return
+     */
+    public DeviceGroupExpander addGroup(UUID groupId) {
+	if (visitedGroups.add(groupId)) {
+	    pendingGroups.add(groupId);
+	} else {
+	    LOGGER.debug("Skipping group already expanded: " + groupId);
+	}
+	return this;
+    }
+
+    /**
+     * Get the next matching device or null if all groups have been expanded.
+     *
+     * @return
+     * @throws SiteWhereException
+     */
+    public IDevice next() throws SiteWhereException {
+	while (resolvedDevices.isEmpty()) {
+	    if (!resolveNextPage()) {
+		return null;
+	    }
+	}
+	return resolvedDevices.poll();
+    }
+
+    /**
+     * Process the remaining elements of the current page, queueing nested groups
+     * and resolving all referenced devices with a single bulk lookup. Matching
+     * devices are queued in element order. Returns false if all groups have been
+     * expanded.
+     *
+     * @return
+     * @throws SiteWhereException
+     */
+    protected boolean resolveNextPage() throws SiteWhereException {
+	IDeviceGroupElement element = nextElement();
+	if (element == null) {
+	    return false;
+	}
+	List<UUID> deviceIds = new ArrayList<UUID>();
+	while (true) {
+	    if (element.getNestedGroupId() != null) {
+		addGroup(element.getNestedGroupId());
+	    } else if ((element.getDeviceId() != null) && (visitedDevices.add(element.getDeviceId()))) {
+		deviceIds.add(element.getDeviceId());
+	    }
+	    if (!currentPage.hasNext()) {
+		break;
+	    }
+	    element = currentPage.next();
+	}
+	if (deviceIds.isEmpty()) {
+	    return true;
+	}
+	Map<UUID, IDevice> devicesById = new HashMap<UUID, IDevice>();
+	for (IDevice device : getDeviceManagement().getDevices(deviceIds)) {
+	    devicesById.put(device.getId(), device);
+	}
+	for (UUID deviceId : deviceIds) {
+	    IDevice device = devicesById.get(deviceId);
+	    if (device == null) {
+		LOGGER.warn("Group references invalid device: " + deviceId);
+	    } else if (matches(device)) {
+		resolvedDevices.add(device);
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Get the next group element, loading pages and moving to queued groups as
+     * needed.
+     *
+     * @return
+     * @throws SiteWhereException
+     */
+    protected IDeviceGroupElement nextElement() throws SiteWhereException {
+	while (true) {
+	    if ((currentPage != null) && (currentPage.hasNext())) {
+		return currentPage.next();
+	    }
+	    if ((currentGroupId != null) && (nextPage > 0)) {
+		ISearchResults<IDeviceGroupElement> page = getDeviceManagement()
+			.listDeviceGroupElements(currentGroupId, new SearchCriteria(nextPage, getPageSize()));
+		currentPage = page.getResults().iterator();
+		nextPage = (page.getResults().size() < getPageSize()) ? 0 : nextPage + 1;
+		continue;
+	    }
+	    currentPage = null;
+	    currentGroupId = pendingGroups.poll();
+	    if (currentGroupId == null) {
+		return null;
+	    }
+	    nextPage = 1;
+	}
+    }
+
+    /**
+     * Indicates whether a device meets the filter criteria.
+     *
+     * @param device
+     * @return
+     * @throws SiteWhereException
+     */
+    protected boolean matches(IDevice device) throws SiteWhereException {
+	if (getCriteria() == null) {
+	    return true;
+	}
+	if (getCriteria().getDeviceTypeToken() != null) {
+	    IDeviceType deviceType = getDeviceType(getCriteria().getDeviceTypeToken());
+	    if (!device.getDeviceTypeId().equals(deviceType.getId())) {
+		return false;
+	    }
+	}
+	if (getCriteria().isExcludeAssigned() && (device.getDeviceAssignmentId() != null)) {
+	    return false;
+	}
+	if ((getCriteria().getStartDate() != null) && (device.getCreatedDate().before(getCriteria().getStartDate()))) {
+	    return false;
+	}
+	if ((getCriteria().getEndDate() != null) && (device.getCreatedDate().after(getCriteria().getEndDate()))) {
+	    return false;
+	}
+	return true;
+    }
+
+    /**
+     * Resolve a device type by token, caching the result for the duration of the
+     * expansion.
+     *
+     * @param token
+     * @return
+     * @throws SiteWhereException
+     */
+    protected IDeviceType getDeviceType(String token) throws SiteWhereException {
+	IDeviceType deviceType = deviceTypesByToken.get(token);
+	if (deviceType == null) {
+	    deviceType = getDeviceManagement().getDeviceTypeByToken(token);
+	    if (deviceType == null) {
+		throw new SiteWhereSystemException(ErrorCode.InvalidDeviceTypeToken, ErrorLevel.ERROR);
+	    }
+	    deviceTypesByToken.put(token, deviceType);
+	}
+	return deviceType;
+    }
+
+    public IDeviceManagement getDeviceManagement() {
+	return deviceManagement;
+    }
+
+    public IDeviceSearchCriteria getCriteria() {
+	return criteria;
+    }
+
+    public int getPageSize() {
+	return pageSize;
+    }
+
+    public DeviceGroupExpander setPageSize(int pageSize) {
+	this.pageSize = pageSize;
+	return this;
+    }
+}
\ No newline at end of file
@@ -10,23 +10,15 @@ package com.sitewhere.device.group;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 
-import com.sitewhere.device.marshaling.DeviceGroupElementMarshalHelper;
-import com.sitewhere.rest.model.device.marshaling.MarshaledDeviceGroupElement;
-import com.sitewhere.rest.model.search.SearchCriteria;
+import com.sitewhere.batch.BatchUtils;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.asset.IAssetManagement;
 import com.sitewhere.spi.device.IDevice;
 import com.sitewhere.spi.device.IDeviceManagement;
-import com.sitewhere.spi.device.IDeviceType;
 import com.sitewhere.spi.device.group.IDeviceGroup;
-import com.sitewhere.spi.device.group.IDeviceGroupElement;
-import com.sitewhere.spi.search.ISearchCriteria;
-import com.sitewhere.spi.search.ISearchResults;
 import com.sitewhere.spi.search.device.IDeviceSearchCriteria;
 
 /**
@@ -36,6 +28,15 @@ import com.sitewhere.spi.search.device.IDeviceSearchCriteria;
  */
 public class DeviceGroupUtils {
 
+    /** Orders devices by creation date */
+    private static final Comparator<IDevice> CREATED_DATE_ORDER = new Comparator<IDevice>() {
+
+	@Override
+	public int compare(IDevice o1, IDevice o2) {
+	    return o1.getCreatedDate().compareTo(o2.getCreatedDate());
+	}
+    };
+
     /**
      * Get devices in a group that match the given criteria.
      * 
@@ -48,31 +49,9 @@ public class DeviceGroupUtils {
      */
     public static List<IDevice> getDevicesInGroup(IDeviceGroup group, IDeviceSearchCriteria criteria,
 	    IDeviceManagement deviceManagement, IAssetManagement assetManagement) throws SiteWhereException {
-	Collection<IDevice> devices = getDevicesInGroup(group.getId(), deviceManagement, assetManagement);
-	List<IDevice> matches = new ArrayList<IDevice>();
-	for (IDevice device : devices) {
-
-	    // Handle filter by device type.
-	    if (criteria.getDeviceTypeToken() != null) {
-		IDeviceType deviceType = deviceManagement.getDeviceTypeByToken(criteria.getDeviceTypeToken());
-		if (!device.getDeviceTypeId().equals(deviceType.getId())) {
-		    continue;
-		}
-	    }
-
-	    // Handle exclude assigned.
-	    if (criteria.isExcludeAssigned() && (device.getDeviceAssignmentId() != null)) {
-		continue;
-	    }
-	    if ((criteria.getStartDate() != null) && (device.getCreatedDate().before(criteria.getStartDate()))) {
-		continue;
-	    }
-	    if ((criteria.getEndDate() != null) && (device.getCreatedDate().after(criteria.getEndDate()))) {
-		continue;
-	    }
-	    matches.add(device);
-	}
-	return matches;
+	DeviceGroupExpander expander = new DeviceGroupExpander(deviceManagement, criteria);
+	expander.addGroup(group.getId());
+	return collectSorted(expander);
     }
 
     /**
@@ -87,75 +66,58 @@ public class DeviceGroupUtils {
      */
     public static List<IDevice> getDevicesInGroup(UUID groupId, IDeviceManagement deviceManagement,
 	    IAssetManagement assetManagement) throws SiteWhereException {
-	Map<String, IDevice> devices = new HashMap<>();
-	Map<String, IDeviceGroup> groups = new HashMap<>();
-	getDevicesInGroup(groupId, deviceManagement, assetManagement, devices, groups);
-	List<IDevice> sorted = new ArrayList<>();
-	sorted.addAll(devices.values());
-	sorted.sort(new Comparator<IDevice>() {
-
-	    @Override
-	    public int compare(IDevice o1, IDevice o2) {
-		return o1.getCreatedDate().compareTo(o2.getCreatedDate());
-	    }
-	});
-	return sorted;
+	DeviceGroupExpander expander = new DeviceGroupExpander(deviceManagement, null);
+	expander.addGroup(groupId);
+	return collectSorted(expander);
     }
 
     /**
-     * Get the list of unique devices in a group. (Recurses into subgroups and
-     * removes duplicates). Also prevents loops in group references.
+     * Gets devices in all groups that have the given role. Duplicates are removed.
      * 
-     * @param groupId
+     * @param groupRole
+     * @param criteria
      * @param deviceManagement
      * @param assetManagement
-     * @param devices
-     * @param groups
+     * @return
      * @throws SiteWhereException
      */
-    protected static void getDevicesInGroup(UUID groupId, IDeviceManagement deviceManagement,
-	    IAssetManagement assetManagement, Map<String, IDevice> devices, Map<String, IDeviceGroup> groups)
-	    throws SiteWhereException {
-	ISearchResults<IDeviceGroupElement> elements = deviceManagement.listDeviceGroupElements(groupId,
-		SearchCriteria.ALL);
-	DeviceGroupElementMarshalHelper helper = new DeviceGroupElementMarshalHelper(deviceManagement);
-	for (IDeviceGroupElement element : elements.getResults()) {
-	    MarshaledDeviceGroupElement inflated = helper.convert(element, assetManagement);
-	    if (inflated.getDevice() != null) {
-		IDevice device = inflated.getDevice();
-		devices.put(device.getToken(), device);
-	    } else if (inflated.getDeviceGroup() != null) {
-		IDeviceGroup nested = inflated.getDeviceGroup();
-
-		// Prevent loops.
-		if (groups.get(nested.getToken()) != null) {
-		}
-	    }
-	}
+    public static Collection<IDevice> getDevicesInGroupsWithRole(String groupRole, IDeviceSearchCriteria criteria,
+	    IDeviceManagement deviceManagement, IAssetManagement assetManagement) throws SiteWhereException {
+	return collectSorted(createExpanderForGroupsWithRole(groupRole, criteria, deviceManagement));
     }
 
     /**
-     * Gets devices in all groups that have the given role. Duplicates are removed.
+     * Create an expander that streams devices from all groups that have the given
+     * role. Groups are listed a page at a time and only their ids are retained.
+     * Devices shared between groups are only returned once.
      * 
      * @param groupRole
      * @param criteria
      * @param deviceManagement
-     * @param assetManagement
      * @return
      * @throws SiteWhereException
      */
-    public static Collection<IDevice> getDevicesInGroupsWithRole(String groupRole, IDeviceSearchCriteria criteria,
-	    IDeviceManagement deviceManagement, IAssetManagement assetManagement) throws SiteWhereException {
-	Map<String, IDevice> devices = new HashMap<String, IDevice>();
-	ISearchCriteria groupCriteria = new SearchCriteria(1, 0);
-	ISearchResults<IDeviceGroup> groups = deviceManagement.listDeviceGroupsWithRole(groupRole, false,
-		groupCriteria);
-	for (IDeviceGroup group : groups.getResults()) {
-	    List<IDevice> groupDevices = getDevicesInGroup(group, criteria, deviceManagement, assetManagement);
-	    for (IDevice groupDevice : groupDevices) {
-		devices.put(groupDevice.getToken(), groupDevice);
-	    }
+    public static DeviceGroupExpander createExpanderForGroupsWithRole(String groupRole,
+	    IDeviceSearchCriteria criteria, IDeviceManagement deviceManagement) throws SiteWhereException {
+	DeviceGroupExpander expander = new DeviceGroupExpander(deviceManagement, criteria);
+	BatchUtils.visitDeviceGroupsWithRole(groupRole, deviceManagement, group -> expander.addGroup(group.getId()));
+	return expander;
+    }
+
+    /**
+     * Collect all devices from an expander ordered by creation date.
+     * 
+     * @param expander
+     * @return
+     * @throws SiteWhereException
+     */
+    protected static List<IDevice> collectSorted(DeviceGroupExpander expander) throws SiteWhereException {
+	List<IDevice> devices = new ArrayList<IDevice>();
+	IDevice device;
+	while ((device = expander.next()) != null) {
+	    devices.add(device);
 	}
-	return devices.values();
+	devices.sort(CREATED_DATE_ORDER);
+	return devices;
     }
 }
\ No newline at end of file
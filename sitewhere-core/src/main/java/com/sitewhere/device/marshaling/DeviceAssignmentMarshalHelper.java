@@ -7,11 +7,21 @@
  */
 package com.sitewhere.device.marshaling;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.sitewhere.asset.InvalidAsset;
+import com.sitewhere.asset.PrefetchedAssetManagement;
 import com.sitewhere.rest.model.common.MetadataProviderEntity;
+import com.sitewhere.rest.model.device.marshaling.MarshaledDevice;
 import com.sitewhere.rest.model.device.marshaling.MarshaledDeviceAssignment;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.area.IArea;
@@ -64,6 +74,88 @@ public class DeviceAssignmentMarshalHelper {
      */
     public MarshaledDeviceAssignment convert(IDeviceAssignment source, IAssetManagement assetManagement)
 	    throws SiteWhereException {
+	IAsset asset = (source.getAssetId() != null) ? assetManagement.getAsset(source.getAssetId()) : null;
+	IArea area = ((isIncludeArea()) && (source.getAreaId() != null))
+		? getDeviceManagement().getArea(source.getAreaId())
+		: null;
+	MarshaledDevice device = null;
+	if (isIncludeDevice()) {
+	    IDevice found = getDeviceManagement().getDevice(source.getDeviceId());
+	    if (found != null) {
+		device = getDeviceHelper().convert(found, assetManagement);
+	    }
+	}
+	return assemble(source, asset, area, device);
+    }
+
+    /**
+     * Convert a page of SPI objects into model objects for marshaling. Referenced
+     * assets, areas and devices are each loaded with a single bulk call for the
+     * whole page rather than once per assignment.
+     * 
+     * @param sources
+     * @param assetManagement
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<MarshaledDeviceAssignment> convert(List<? extends IDeviceAssignment> sources,
+	    IAssetManagement assetManagement) throws SiteWhereException {
+	// Load all referenced assets with a single bulk call.
+	List<UUID> assetIds = new ArrayList<>();
+	for (IDeviceAssignment source : sources) {
+	    assetIds.add(source.getAssetId());
+	}
+	PrefetchedAssetManagement assets = new PrefetchedAssetManagement(assetManagement);
+	assets.prefetch(assetIds);
+
+	// Load distinct referenced areas and devices with one call each.
+	Set<UUID> areaIds = new HashSet<>();
+	Set<UUID> deviceIds = new HashSet<>();
+	for (IDeviceAssignment source : sources) {
+	    if ((isIncludeArea()) && (source.getAreaId() != null)) {
+		areaIds.add(source.getAreaId());
+	    }
+	    if ((isIncludeDevice()) && (source.getDeviceId() != null)) {
+		deviceIds.add(source.getDeviceId());
+	    }
+	}
+	Map<UUID, IArea> areas = new HashMap<>();
+	if (!areaIds.isEmpty()) {
+	    for (IArea area : getDeviceManagement().getAreas(new ArrayList<>(areaIds))) {
+		areas.put(area.getId(), area);
+	    }
+	}
+
+	// Marshal distinct devices as a single batch.
+	Map<UUID, MarshaledDevice> marshaledDevices = new HashMap<>();
+	if (!deviceIds.isEmpty()) {
+	    List<IDevice> found = getDeviceManagement().getDevices(new ArrayList<>(deviceIds));
+	    for (MarshaledDevice device : getDeviceHelper().convert(found, assets)) {
+		marshaledDevices.put(device.getId(), device);
+	    }
+	}
+
+	List<MarshaledDeviceAssignment> results = new ArrayList<>();
+	for (IDeviceAssignment source : sources) {
+	    IAsset asset = (source.getAssetId() != null) ? assets.getAsset(source.getAssetId()) : null;
+	    results.add(assemble(source, asset, areas.get(source.getAreaId()),
+		    marshaledDevices.get(source.getDeviceId())));
+	}
+	return results;
+    }
+
+    /**
+     * Build the marshaled assignment from the source and its already-resolved
+     * references.
+     * 
+     * @param source
+     * @param asset
+     * @param area
+     * @param device
+     * @return
+     */
+    protected MarshaledDeviceAssignment assemble(IDeviceAssignment source, IAsset asset, IArea area,
+	    MarshaledDevice device) {
 	MarshaledDeviceAssignment result = new MarshaledDeviceAssignment();
 	result.setId(source.getId());
 	result.setToken(source.getToken());
@@ -72,10 +164,9 @@ public class DeviceAssignmentMarshalHelper {
 	result.setStatus(source.getStatus());
 	MetadataProviderEntity.copy(source, result);
 
-	// If asset is assigned, look it up.
+	// If asset is assigned, add asset information.
 	result.setAssetId(source.getAssetId());
 	if (source.getAssetId() != null) {
-	    IAsset asset = assetManagement.getAsset(source.getAssetId());
 	    if (asset == null) {
 		LOGGER.warn("Device assignment has reference to non-existent asset.");
 		asset = new InvalidAsset();
@@ -87,19 +178,17 @@ public class DeviceAssignmentMarshalHelper {
 	    }
 	}
 
-	// If area is assigned, look it up.
+	// If area is assigned, add area information.
 	result.setAreaId(source.getAreaId());
 	if ((isIncludeArea()) && (source.getAreaId() != null)) {
-	    IArea area = getDeviceManagement().getArea(source.getAreaId());
 	    result.setArea(area);
 	}
 
 	// Add device information.
 	result.setDeviceId(source.getDeviceId());
 	if (isIncludeDevice()) {
-	    IDevice device = getDeviceManagement().getDevice(source.getDeviceId());
 	    if (device != null) {
-		result.setDevice(getDeviceHelper().convert(device, assetManagement));
+		result.setDevice(device);
 	    } else {
 		LOGGER.error("Assignment references invalid hardware id.");
 	    }
@@ -7,6 +7,12 @@
  */
 package com.sitewhere.device.marshaling;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -14,6 +20,7 @@ import com.sitewhere.rest.model.common.MetadataProviderEntity;
 import com.sitewhere.rest.model.device.Device;
 import com.sitewhere.rest.model.device.DeviceElementMapping;
 import com.sitewhere.rest.model.device.marshaling.MarshaledDevice;
+import com.sitewhere.rest.model.device.marshaling.MarshaledDeviceAssignment;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.asset.IAssetManagement;
 import com.sitewhere.spi.device.IDevice;
@@ -69,6 +76,85 @@ public class DeviceMarshalHelper {
      * @throws SiteWhereException
      */
     public MarshaledDevice convert(IDevice source, IAssetManagement assetManagement) throws SiteWhereException {
+	IDeviceType deviceType = ((source.getDeviceTypeId() != null) && (isIncludeDeviceType()))
+		? getDeviceManagement().getDeviceType(source.getDeviceTypeId())
+		: null;
+	MarshaledDeviceAssignment assignment = null;
+	if ((source.getDeviceAssignmentId() != null) && (isIncludeAssignment())) {
+	    try {
+		IDeviceAssignment found = getDeviceManagement().getDeviceAssignment(source.getDeviceAssignmentId());
+		if (found != null) {
+		    assignment = getAssignmentHelper().convert(found, assetManagement);
+		}
+	    } catch (SiteWhereException e) {
+		LOGGER.warn("Unable to load assignment for device.", e);
+	    }
+	}
+	return assemble(source, deviceType, assignment, assetManagement);
+    }
+
+    /**
+     * Convert a page of IDevice SPI objects into model objects for marshaling.
+     * Each referenced device type is resolved once for the whole page rather
+     * than once per device. Assignments are loaded with a single bulk call and
+     * marshaled as a batch.
+     * 
+     * @param sources
+     * @param assetManagement
+     * @return
+     * @throws SiteWhereException
+     */
+    public List<MarshaledDevice> convert(List<? extends IDevice> sources, IAssetManagement assetManagement)
+	    throws SiteWhereException {
+	Map<UUID, IDeviceType> deviceTypes = new HashMap<>();
+	if (isIncludeDeviceType()) {
+	    for (IDevice source : sources) {
+		if ((source.getDeviceTypeId() != null) && (!deviceTypes.containsKey(source.getDeviceTypeId()))) {
+		    deviceTypes.put(source.getDeviceTypeId(),
+			    getDeviceManagement().getDeviceType(source.getDeviceTypeId()));
+		}
+	    }
+	}
+	Map<UUID, MarshaledDeviceAssignment> assignments = new HashMap<>();
+	if (isIncludeAssignment()) {
+	    List<UUID> assignmentIds = new ArrayList<>();
+	    for (IDevice source : sources) {
+		if (source.getDeviceAssignmentId() != null) {
+		    assignmentIds.add(source.getDeviceAssignmentId());
+		}
+	    }
+	    if (!assignmentIds.isEmpty()) {
+		try {
+		    List<IDeviceAssignment> found = getDeviceManagement().getDeviceAssignments(assignmentIds);
+		    for (MarshaledDeviceAssignment assignment : getAssignmentHelper().convert(found, assetManagement)) {
+			assignments.put(assignment.getId(), assignment);
+		    }
+		} catch (SiteWhereException e) {
+		    LOGGER.warn("Unable to load assignments for devices.", e);
+		}
+	    }
+	}
+	List<MarshaledDevice> results = new ArrayList<>();
+	for (IDevice source : sources) {
+	    results.add(assemble(source, deviceTypes.get(source.getDeviceTypeId()),
+		    assignments.get(source.getDeviceAssignmentId()), assetManagement));
+	}
+	return results;
+    }
+
+    /**
+     * Build the marshaled device from the source and its already-resolved device
+     * type and assignment.
+     * 
+     * @param source
+     * @param deviceType
+     * @param assignment
+     * @param assetManagement
+     * @return
+     * @throws SiteWhereException
+     */
+    protected MarshaledDevice assemble(IDevice source, IDeviceType deviceType, MarshaledDeviceAssignment assignment,
+	    IAssetManagement assetManagement) throws SiteWhereException {
 	MarshaledDevice result = new MarshaledDevice();
 	result.setId(source.getId());
 	result.setToken(source.getToken());
@@ -88,26 +174,18 @@ public class DeviceMarshalHelper {
 	    result.getDeviceElementMappings().add(cnvMapping);
 	}
 
-	// Look up device type information.
+	// Add device type information.
 	if ((source.getDeviceTypeId() != null) && (isIncludeDeviceType())) {
-	    IDeviceType deviceType = getDeviceManagement().getDeviceType(source.getDeviceTypeId());
 	    if (deviceType == null) {
 		throw new SiteWhereException("Device references non-existent device type.");
 	    }
-	    if (isIncludeDeviceType()) {
-		result.setDeviceType(getDeviceTypeHelper().convert(deviceType));
-	    }
+	    result.setDeviceType(getDeviceTypeHelper().convert(deviceType));
 	}
 	if ((source.getDeviceAssignmentId() != null) && (isIncludeAssignment())) {
-	    try {
-		IDeviceAssignment assignment = getDeviceManagement()
-			.getDeviceAssignment(source.getDeviceAssignmentId());
-		if (assignment == null) {
-		    throw new SiteWhereException("Device contains an invalid assignment reference.");
-		}
-		result.setAssignment(getAssignmentHelper().convert(assignment, assetManagement));
-	    } catch (SiteWhereException e) {
+	    if (assignment == null) {
 		LOGGER.warn("Device has token for non-existent assignment.");
+	    } else {
+		result.setAssignment(assignment);
 	    }
 	}
 	return result;
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.device.marshaling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.sitewhere.rest.model.area.Area;
+import com.sitewhere.rest.model.device.Device;
+import com.sitewhere.rest.model.device.DeviceAssignment;
+import com.sitewhere.rest.model.device.DeviceType;
+import com.sitewhere.rest.model.device.marshaling.MarshaledDeviceAssignment;
+import com.sitewhere.spi.area.IArea;
+import com.sitewhere.spi.asset.IAssetManagement;
+import com.sitewhere.spi.device.IDevice;
+import com.sitewhere.spi.device.IDeviceManagement;
+
+/**
+ * Verifies that marshaling a page of assignments resolves referenced areas and
+ * devices with one bulk call each rather than once per assignment.
+ *
+ * @author Derek
+ */
+public class DeviceAssignmentMarshalHelperTest {
+
+    /** Number of assignments in page */
+    private static final int PAGE_SIZE = 50;
+
+    /** Number of distinct areas referenced by page */
+    private static final int AREAS = 5;
+
+    @Test
+    public void testPageResolvesReferencesOnce() throws Exception {
+	CountingHandler handler = new CountingHandler();
+	DeviceType deviceType = new DeviceType();
+	deviceType.setId(UUID.randomUUID());
+	handler.deviceType = deviceType;
+
+	List<UUID> areaIds = new ArrayList<UUID>();
+	for (int i = 0; i < AREAS; i++) {
+	    Area area = new Area();
+	    area.setId(UUID.randomUUID());
+	    handler.areas.put(area.getId(), area);
+	    areaIds.add(area.getId());
+	}
+
+	List<DeviceAssignment> assignments = new ArrayList<DeviceAssignment>();
+	for (int i = 0; i < PAGE_SIZE; i++) {
+	    Device device = new Device();
+	    device.setId(UUID.randomUUID());
+	    device.setDeviceTypeId(deviceType.getId());
+	    handler.devices.put(device.getId(), device);
+
+	    DeviceAssignment assignment = new DeviceAssignment();
+	    assignment.setId(UUID.randomUUID());
+	    assignment.setDeviceId(device.getId());
+	    assignment.setAreaId(areaIds.get(i % AREAS));
+	    assignments.add(assignment);
+	}
+
+	// Reference an area and a device that no longer exist.
+	assignments.get(0).setAreaId(UUID.randomUUID());
+	assignments.get(0).setDeviceId(UUID.randomUUID());
+
+	DeviceAssignmentMarshalHelper helper = new DeviceAssignmentMarshalHelper(
+		handler.proxy(IDeviceManagement.class));
+	helper.setIncludeDevice(true);
+	helper.setIncludeArea(true);
+	List<MarshaledDeviceAssignment> results = helper.convert(assignments,
+		new CountingHandler().proxy(IAssetManagement.class));
+
+	assertEquals(PAGE_SIZE, results.size());
+	assertEquals(1, handler.count("getAreas"));
+	assertEquals(0, handler.count("getArea"));
+	assertEquals(1, handler.count("getDevices"));
+	assertEquals(0, handler.count("getDevice"));
+	assertEquals(1, handler.count("getDeviceType"));
+	assertNull(results.get(0).getArea());
+	assertNull(results.get(0).getDevice());
+	for (int i = 1; i < PAGE_SIZE; i++) {
+	    MarshaledDeviceAssignment result = results.get(i);
+	    assertEquals(assignments.get(i).getId(), result.getId());
+	    assertEquals(assignments.get(i).getAreaId(), result.getArea().getId());
+	    assertEquals(assignments.get(i).getDeviceId(), result.getDevice().getId());
+	}
+    }
+
+    /**
+     * Handler for proxied management interfaces that counts calls by method name
+     * and answers lookups from in-memory data.
+     */
+    private static class CountingHandler implements InvocationHandler {
+
+	/** Device type returned for any id */
+	private DeviceType deviceType;
+
+	/** Areas by id */
+	private Map<UUID, IArea> areas = new HashMap<UUID, IArea>();
+
+	/** Devices by id */
+	private Map<UUID, IDevice> devices = new HashMap<UUID, IDevice>();
+
+	/** Number of calls by method name */
+	private Map<String, Integer> counts = new HashMap<String, Integer>();
+
+	@SuppressWarnings("unchecked")
+	public <T> T proxy(Class<T> type) {
+	    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, this);
+	}
+
+	public int count(String method) {
+	    Integer count = counts.get(method);
+	    return (count != null) ? count : 0;
+	}
+
+	/*
+	 * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object,
+	 * java.lang.reflect.Method, java.lang.Object[])
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+	    counts.put(method.getName(), count(method.getName()) + 1);
+	    switch (method.getName()) {
+	    case "getDeviceType": {
+		return deviceType;
+	    }
+	    case "getArea": {
+		return areas.get(args[0]);
+	    }
+	    case "getAreas": {
+		return lookup(areas, (List<UUID>) args[0]);
+	    }
+	    case "getDevice": {
+		return devices.get(args[0]);
+	    }
+	    case "getDevices": {
+		return lookup(devices, (List<UUID>) args[0]);
+	    }
+	    case "getAssetsByIds": {
+		return new ArrayList<Object>();
+	    }
+	    default: {
+		return null;
+	    }
+	    }
+	}
+
+	/**
+	 * Return entries matching ids, skipping those that do not exist.
+	 * 
+	 * @param entries
+	 * @param ids
+	 * @return
+	 */
+	protected <T> List<T> lookup(Map<UUID, T> entries, List<UUID> ids) {
+	    List<T> found = new ArrayList<T>();
+	    for (UUID id : ids) {
+		if (entries.containsKey(id)) {
+		    found.add(entries.get(id));
+		}
+	    }
+	    return found;
+	}
+    }
+}
\ No newline at end of file
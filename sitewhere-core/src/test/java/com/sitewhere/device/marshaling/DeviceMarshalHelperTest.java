@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.device.marshaling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.sitewhere.rest.model.device.Device;
+import com.sitewhere.rest.model.device.DeviceAssignment;
+import com.sitewhere.rest.model.device.DeviceType;
+import com.sitewhere.rest.model.device.marshaling.MarshaledDevice;
+import com.sitewhere.spi.asset.IAssetManagement;
+import com.sitewhere.spi.device.IDeviceAssignment;
+import com.sitewhere.spi.device.IDeviceManagement;
+
+/**
+ * Verifies that marshaling a page of devices resolves referenced device types
+ * and assignments once per page rather than once per device.
+ *
+ * @author Derek
+ */
+public class DeviceMarshalHelperTest {
+
+    /** Number of devices in page */
+    private static final int PAGE_SIZE = 50;
+
+    @Test
+    public void testPageResolvesAssignmentsOnce() throws Exception {
+	CountingHandler handler = new CountingHandler();
+	DeviceType deviceType = new DeviceType();
+	deviceType.setId(UUID.randomUUID());
+	handler.deviceType = deviceType;
+
+	List<Device> devices = new ArrayList<Device>();
+	for (int i = 0; i < PAGE_SIZE; i++) {
+	    Device device = new Device();
+	    device.setId(UUID.randomUUID());
+	    device.setToken("device-" + i);
+	    device.setDeviceTypeId(deviceType.getId());
+
+	    // Leave every fifth device unassigned.
+	    if (i % 5 != 0) {
+		DeviceAssignment assignment = new DeviceAssignment();
+		assignment.setId(UUID.randomUUID());
+		assignment.setDeviceId(device.getId());
+		handler.assignments.put(assignment.getId(), assignment);
+		device.setDeviceAssignmentId(assignment.getId());
+	    }
+	    devices.add(device);
+	}
+
+	// Reference an assignment that no longer exists.
+	devices.get(0).setDeviceAssignmentId(UUID.randomUUID());
+
+	DeviceMarshalHelper helper = new DeviceMarshalHelper(handler.proxy(IDeviceManagement.class));
+	helper.setIncludeAssignment(true);
+	List<MarshaledDevice> results = helper.convert(devices, new CountingHandler().proxy(IAssetManagement.class));
+
+	assertEquals(PAGE_SIZE, results.size());
+	assertEquals(1, handler.count("getDeviceType"));
+	assertEquals(1, handler.count("getDeviceAssignments"));
+	assertEquals(0, handler.count("getDeviceAssignment"));
+	assertNull(results.get(0).getAssignment());
+	for (int i = 1; i < PAGE_SIZE; i++) {
+	    MarshaledDevice result = results.get(i);
+	    assertEquals(devices.get(i).getId(), result.getId());
+	    assertNotNull(result.getDeviceType());
+	    if (i % 5 == 0) {
+		assertNull(result.getAssignment());
+	    } else {
+		assertEquals(devices.get(i).getDeviceAssignmentId(), result.getAssignment().getId());
+	    }
+	}
+    }
+
+    /**
+     * Handler for proxied management interfaces that counts calls by method name
+     * and answers lookups from in-memory data.
+     */
+    private static class CountingHandler implements InvocationHandler {
+
+	/** Device type returned for any id */
+	private DeviceType deviceType;
+
+	/** Assignments by id */
+	private Map<UUID, IDeviceAssignment> assignments = new HashMap<UUID, IDeviceAssignment>();
+
+	/** Number of calls by method name */
+	private Map<String, Integer> counts = new HashMap<String, Integer>();
+
+	@SuppressWarnings("unchecked")
+	public <T> T proxy(Class<T> type) {
+	    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, this);
+	}
+
+	public int count(String method) {
+	    Integer count = counts.get(method);
+	    return (count != null) ? count : 0;
+	}
+
+	/*
+	 * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object,
+	 * java.lang.reflect.Method, java.lang.Object[])
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+	    counts.put(method.getName(), count(method.getName()) + 1);
+	    switch (method.getName()) {
+	    case "getDeviceType": {
+		return deviceType;
+	    }
+	    case "getDeviceAssignment": {
+		return assignments.get(args[0]);
+	    }
+	    case "getDeviceAssignments": {
+		List<IDeviceAssignment> found = new ArrayList<IDeviceAssignment>();
+		for (UUID id : (List<UUID>) args[0]) {
+		    if (assignments.containsKey(id)) {
+			found.add(assignments.get(id));
+		    }
+		}
+		return found;
+	    }
+	    case "getAssetsByIds": {
+		return new ArrayList<Object>();
+	    }
+	    default: {
+		return null;
+	    }
+	    }
+	}
+    }
+}
\ No newline at end of file
@@ -7,6 +7,7 @@
  */
 package com.sitewhere.grpc.client.asset;
 
+import java.util.List;
 import java.util.UUID;
 
 import org.apache.commons.logging.Log;
@@ -30,6 +31,8 @@ import com.sitewhere.grpc.service.GDeleteAssetTypeRequest;
 import com.sitewhere.grpc.service.GDeleteAssetTypeResponse;
 import com.sitewhere.grpc.service.GGetAssetByIdRequest;
 import com.sitewhere.grpc.service.GGetAssetByIdResponse;
+import com.sitewhere.grpc.service.GGetAssetsByIdsRequest;
+import com.sitewhere.grpc.service.GGetAssetsByIdsResponse;
 import com.sitewhere.grpc.service.GGetAssetByTokenRequest;
 import com.sitewhere.grpc.service.GGetAssetByTokenResponse;
 import com.sitewhere.grpc.service.GGetAssetTypeByIdRequest;
@@ -268,6 +271,25 @@ public class AssetManagementApiChannel extends ApiChannel<AssetManagementGrpcCha
 	}
     }
 
+    /*
+     * @see
+     * com.sitewhere.spi.asset.IAssetManagement#getAssetsByIds(java.util.List)
+     */
+    @Override
+    public List<IAsset> getAssetsByIds(List<UUID> assetIds) throws SiteWhereException {
+	try {
+	    GrpcUtils.logClientMethodEntry(this, AssetManagementGrpc.METHOD_GET_ASSETS_BY_IDS);
+	    GGetAssetsByIdsRequest.Builder grequest = GGetAssetsByIdsRequest.newBuilder();
+	    grequest.addAllAssetIds(CommonModelConverter.asGrpcUuids(assetIds));
+	    GGetAssetsByIdsResponse gresponse = getGrpcChannel().getBlockingStub().getAssetsByIds(grequest.build());
+	    List<IAsset> response = AssetModelConverter.asApiAssets(gresponse.getAssetsList());
+	    GrpcUtils.logClientMethodResponse(AssetManagementGrpc.METHOD_GET_ASSETS_BY_IDS, response);
+	    return response;
+	} catch (Throwable t) {
+	    throw GrpcUtils.handleClientMethodException(AssetManagementGrpc.METHOD_GET_ASSETS_BY_IDS, t);
+	}
+    }
+
     /*
      * @see
      * com.sitewhere.spi.asset.IAssetManagement#getAssetByToken(java.lang.String)
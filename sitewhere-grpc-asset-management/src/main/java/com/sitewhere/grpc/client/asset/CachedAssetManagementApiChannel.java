@@ -7,6 +7,8 @@
  */
 package com.sitewhere.grpc.client.asset;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 import com.sitewhere.grpc.client.cache.AssetManagementCacheProviders;
@@ -65,6 +67,32 @@ public class CachedAssetManagementApiChannel extends AssetManagementApiChannel {
 	return super.getAsset(assetId);
     }
 
+    /*
+     * @see
+     * com.sitewhere.grpc.client.asset.AssetManagementApiChannel#getAssetsByIds(java
+     * .util.List)
+     */
+    @Override
+    public List<IAsset> getAssetsByIds(List<UUID> assetIds) throws SiteWhereException {
+	ITenant tenant = UserContextManager.getCurrentTenant(true);
+	List<IAsset> results = new ArrayList<>();
+	List<UUID> missing = new ArrayList<>();
+	for (UUID assetId : assetIds) {
+	    IAsset asset = getAssetByIdCache().getCacheEntry(tenant, assetId);
+	    if (asset != null) {
+		CacheUtils.logCacheHit(asset);
+		results.add(asset);
+	    } else {
+		missing.add(assetId);
+	    }
+	}
+	if (missing.size() > 0) {
+	    getLogger().debug("No cached information for " + missing.size() + " asset ids.");
+	    results.addAll(super.getAssetsByIds(missing));
+	}
+	return results;
+    }
+
     /*
      * @see
      * com.sitewhere.spi.asset.IAssetManagement#getAssetByToken(java.lang.String)
@@ -279,6 +279,36 @@ public class AssetModelConverter {
 	return grpc.build();
     }
 
+    /**
+     * Convert a list of assets from GRPC to API.
+     * 
+     * @param grpcs
+     * @return
+     * @throws SiteWhereException
+     */
+    public static List<IAsset> asApiAssets(List<GAsset> grpcs) throws SiteWhereException {
+	List<IAsset> api = new ArrayList<IAsset>();
+	for (GAsset grpc : grpcs) {
+	    api.add(AssetModelConverter.asApiAsset(grpc));
+	}
+	return api;
+    }
+
+    /**
+     * Convert a list of assets from API to GRPC.
+     * 
+     * @param apis
+     * @return
+     * @throws SiteWhereException
+     */
+    public static List<GAsset> asGrpcAssets(List<IAsset> apis) throws SiteWhereException {
+	List<GAsset> grpcs = new ArrayList<GAsset>();
+	for (IAsset api : apis) {
+	    grpcs.add(AssetModelConverter.asGrpcAsset(api));
+	}
+	return grpcs;
+    }
+
     /**
      * Convert asset search results from GRPC to API.
      * 
@@ -7,6 +7,8 @@
  */
 package com.sitewhere.grpc.client.batch;
 
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.apache.commons.logging.Log;
@@ -20,6 +22,10 @@ import com.sitewhere.grpc.client.spi.client.IBatchManagementApiChannel;
 import com.sitewhere.grpc.model.batch.BatchModelConverter;
 import com.sitewhere.grpc.model.converter.CommonModelConverter;
 import com.sitewhere.grpc.service.BatchManagementGrpc;
+import com.sitewhere.grpc.service.GAddBatchOperationElementsRequest;
+import com.sitewhere.grpc.service.GBulkUpdateBatchOperationElementsRequest;
+import com.sitewhere.grpc.service.GCreateBatchCommandInvocationFromCriteriaRequest;
+import com.sitewhere.grpc.service.GCreateBatchCommandInvocationFromCriteriaResponse;
 import com.sitewhere.grpc.service.GCreateBatchCommandInvocationRequest;
 import com.sitewhere.grpc.service.GCreateBatchCommandInvocationResponse;
 import com.sitewhere.grpc.service.GCreateBatchOperationRequest;
@@ -41,6 +47,7 @@ import com.sitewhere.grpc.service.GUpdateBatchOperationResponse;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.batch.IBatchElement;
 import com.sitewhere.spi.batch.IBatchOperation;
+import com.sitewhere.spi.batch.request.IBatchCommandForCriteriaRequest;
 import com.sitewhere.spi.batch.request.IBatchCommandInvocationRequest;
 import com.sitewhere.spi.batch.request.IBatchElementUpdateRequest;
 import com.sitewhere.spi.batch.request.IBatchOperationCreateRequest;
@@ -125,6 +132,34 @@ public class BatchManagementApiChannel extends ApiChannel<BatchManagementGrpcCha
 	}
     }
 
+    /*
+     * @see com.sitewhere.spi.batch.IBatchManagement#
+     * createBatchCommandInvocationFromCriteria(com.sitewhere.spi.batch.request.
+     * IBatchCommandForCriteriaRequest)
+     */
+    @Override
+    public IBatchOperation createBatchCommandInvocationFromCriteria(IBatchCommandForCriteriaRequest request)
+	    throws SiteWhereException {
+	try {
+	    GrpcUtils.logClientMethodEntry(this,
+		    BatchManagementGrpc.METHOD_CREATE_BATCH_COMMAND_INVOCATION_FROM_CRITERIA);
+	    GCreateBatchCommandInvocationFromCriteriaRequest.Builder grequest = GCreateBatchCommandInvocationFromCriteriaRequest
+		    .newBuilder();
+	    grequest.setRequest(BatchModelConverter.asGrpcBatchCommandForCriteriaRequest(request));
+	    GCreateBatchCommandInvocationFromCriteriaResponse gresponse = getGrpcChannel().getBlockingStub()
+		    .createBatchCommandInvocationFromCriteria(grequest.build());
+	    IBatchOperation response = (gresponse.hasBatchOperation())
+		    ? BatchModelConverter.asApiBatchOperation(gresponse.getBatchOperation())
+		    : null;
+	    GrpcUtils.logClientMethodResponse(BatchManagementGrpc.METHOD_CREATE_BATCH_COMMAND_INVOCATION_FROM_CRITERIA,
+		    response);
+	    return response;
+	} catch (Throwable t) {
+	    throw GrpcUtils.handleClientMethodException(
+		    BatchManagementGrpc.METHOD_CREATE_BATCH_COMMAND_INVOCATION_FROM_CRITERIA, t);
+	}
+    }
+
     /*
      * @see
      * com.sitewhere.spi.batch.IBatchManagement#updateBatchOperation(java.util.UUID,
@@ -291,6 +326,52 @@ public class BatchManagementApiChannel extends ApiChannel<BatchManagementGrpcCha
 	}
     }
 
+    /*
+     * @see
+     * com.sitewhere.spi.batch.IBatchManagement#bulkUpdateBatchElements(java.util.
+     * Map)
+     */
+    @Override
+    public void bulkUpdateBatchElements(Map<UUID, IBatchElementUpdateRequest> requestsByElementId)
+	    throws SiteWhereException {
+	try {
+	    GrpcUtils.logClientMethodEntry(this, BatchManagementGrpc.METHOD_BULK_UPDATE_BATCH_OPERATION_ELEMENTS);
+	    GBulkUpdateBatchOperationElementsRequest.Builder grequest = GBulkUpdateBatchOperationElementsRequest
+		    .newBuilder();
+	    for (Map.Entry<UUID, IBatchElementUpdateRequest> entry : requestsByElementId.entrySet()) {
+		GUpdateBatchOperationElementRequest.Builder gupdate = GUpdateBatchOperationElementRequest.newBuilder();
+		gupdate.setElementId(CommonModelConverter.asGrpcUuid(entry.getKey()));
+		gupdate.setRequest(BatchModelConverter.asGrpcBatchElementUpdateRequest(entry.getValue()));
+		grequest.addUpdates(gupdate.build());
+	    }
+	    getGrpcChannel().getBlockingStub().bulkUpdateBatchOperationElements(grequest.build());
+	    return;
+	} catch (Throwable t) {
+	    throw GrpcUtils.handleClientMethodException(BatchManagementGrpc.METHOD_BULK_UPDATE_BATCH_OPERATION_ELEMENTS,
+		    t);
+	}
+    }
+
+    /*
+     * @see com.sitewhere.spi.batch.IBatchManagement#addBatchElements(java.util.UUID,
+     * java.util.List)
+     */
+    @Override
+    public void addBatchElements(UUID batchOperationId, List<UUID> deviceIds) throws SiteWhereException {
+	try {
+	    GrpcUtils.logClientMethodEntry(this, BatchManagementGrpc.METHOD_ADD_BATCH_OPERATION_ELEMENTS);
+	    GAddBatchOperationElementsRequest.Builder grequest = GAddBatchOperationElementsRequest.newBuilder();
+	    grequest.setBatchOperationId(CommonModelConverter.asGrpcUuid(batchOperationId));
+	    for (UUID deviceId : deviceIds) {
+		grequest.addDeviceIds(CommonModelConverter.asGrpcUuid(deviceId));
+	    }
+	    getGrpcChannel().getBlockingStub().addBatchOperationElements(grequest.build());
+	    return;
+	} catch (Throwable t) {
+	    throw GrpcUtils.handleClientMethodException(BatchManagementGrpc.METHOD_ADD_BATCH_OPERATION_ELEMENTS, t);
+	}
+    }
+
     /*
      * (non-Javadoc)
      * 
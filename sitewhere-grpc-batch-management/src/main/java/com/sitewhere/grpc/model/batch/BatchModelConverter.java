@@ -10,6 +10,7 @@ package com.sitewhere.grpc.model.batch;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.sitewhere.grpc.model.BatchModel.GBatchCommandForCriteriaRequest;
 import com.sitewhere.grpc.model.BatchModel.GBatchCommandInvocationCreateRequest;
 import com.sitewhere.grpc.model.BatchModel.GBatchOperation;
 import com.sitewhere.grpc.model.BatchModel.GBatchOperationCreateRequest;
@@ -27,6 +28,7 @@ import com.sitewhere.grpc.model.CommonModel.GOptionalString;
 import com.sitewhere.grpc.model.converter.CommonModelConverter;
 import com.sitewhere.rest.model.batch.BatchElement;
 import com.sitewhere.rest.model.batch.BatchOperation;
+import com.sitewhere.rest.model.batch.request.BatchCommandForCriteriaRequest;
 import com.sitewhere.rest.model.batch.request.BatchCommandInvocationRequest;
 import com.sitewhere.rest.model.batch.request.BatchElementUpdateRequest;
 import com.sitewhere.rest.model.batch.request.BatchOperationCreateRequest;
@@ -39,6 +41,7 @@ import com.sitewhere.spi.batch.BatchOperationStatus;
 import com.sitewhere.spi.batch.ElementProcessingStatus;
 import com.sitewhere.spi.batch.IBatchElement;
 import com.sitewhere.spi.batch.IBatchOperation;
+import com.sitewhere.spi.batch.request.IBatchCommandForCriteriaRequest;
 import com.sitewhere.spi.batch.request.IBatchCommandInvocationRequest;
 import com.sitewhere.spi.batch.request.IBatchElementUpdateRequest;
 import com.sitewhere.spi.batch.request.IBatchOperationCreateRequest;
@@ -172,6 +175,66 @@ public class BatchModelConverter {
 	return grpc.build();
     }
 
+    /**
+     * Convert batch command for criteria request from GRPC to API.
+     * 
+     * @param grpc
+     * @return
+     * @throws SiteWhereException
+     */
+    public static BatchCommandForCriteriaRequest asApiBatchCommandForCriteriaRequest(
+	    GBatchCommandForCriteriaRequest grpc) throws SiteWhereException {
+	BatchCommandForCriteriaRequest api = new BatchCommandForCriteriaRequest();
+	api.setToken(grpc.hasToken() ? grpc.getToken().getValue() : null);
+	api.setCommandToken(grpc.getCommandToken());
+	api.setParameterValues(grpc.getParametersMap());
+	api.setDeviceTypeToken(grpc.hasDeviceTypeToken() ? grpc.getDeviceTypeToken().getValue() : null);
+	api.setGroupToken(grpc.hasGroupToken() ? grpc.getGroupToken().getValue() : null);
+	api.setGroupsWithRole(grpc.hasGroupsWithRole() ? grpc.getGroupsWithRole().getValue() : null);
+	api.setAreaToken(grpc.hasAreaToken() ? grpc.getAreaToken().getValue() : null);
+	api.setStartDate(grpc.hasStartDate() ? CommonModelConverter.asDate(grpc.getStartDate()) : null);
+	api.setEndDate(grpc.hasEndDate() ? CommonModelConverter.asDate(grpc.getEndDate()) : null);
+	return api;
+    }
+
+    /**
+     * Convert batch command for criteria request from API to GRPC.
+     * 
+     * @param api
+     * @return
+     * @throws SiteWhereException
+     */
+    public static GBatchCommandForCriteriaRequest asGrpcBatchCommandForCriteriaRequest(
+	    IBatchCommandForCriteriaRequest api) throws SiteWhereException {
+	GBatchCommandForCriteriaRequest.Builder grpc = GBatchCommandForCriteriaRequest.newBuilder();
+	if (api.getToken() != null) {
+	    grpc.setToken(GOptionalString.newBuilder().setValue(api.getToken()));
+	}
+	grpc.setCommandToken(api.getCommandToken());
+	if (api.getParameterValues() != null) {
+	    grpc.putAllParameters(api.getParameterValues());
+	}
+	if (api.getDeviceTypeToken() != null) {
+	    grpc.setDeviceTypeToken(GOptionalString.newBuilder().setValue(api.getDeviceTypeToken()));
+	}
+	if (api.getGroupToken() != null) {
+	    grpc.setGroupToken(GOptionalString.newBuilder().setValue(api.getGroupToken()));
+	}
+	if (api.getGroupsWithRole() != null) {
+	    grpc.setGroupsWithRole(GOptionalString.newBuilder().setValue(api.getGroupsWithRole()));
+	}
+	if (api.getAreaToken() != null) {
+	    grpc.setAreaToken(GOptionalString.newBuilder().setValue(api.getAreaToken()));
+	}
+	if (api.getStartDate() != null) {
+	    grpc.setStartDate(CommonModelConverter.asGrpcTimestamp(api.getStartDate()));
+	}
+	if (api.getEndDate() != null) {
+	    grpc.setEndDate(CommonModelConverter.asGrpcTimestamp(api.getEndDate()));
+	}
+	return grpc.build();
+    }
+
     /**
      * Convert batch operation update request from GRPC to API.
      * 
@@ -142,7 +142,14 @@ public class GrpcUtils {
      */
     public static void handleServerMethodException(MethodDescriptor<?, ?> method, Throwable t,
 	    StreamObserver<?> observer) {
-	LOGGER.error("Server exception in call to " + method.getFullMethodName() + ".", t);
+	// Unsupported operations are expected for some implementations and handled
+	// by the caller.
+	if ((t instanceof SiteWhereSystemException)
+		&& (((SiteWhereSystemException) t).getCode() == ErrorCode.OperationNotSupported)) {
+	    LOGGER.debug("Operation not supported in call to " + method.getFullMethodName() + ".");
+	} else {
+	    LOGGER.error("Server exception in call to " + method.getFullMethodName() + ".", t);
+	}
 
 	Throwable thrown = t;
 	if (t instanceof SiteWhereSystemException) {
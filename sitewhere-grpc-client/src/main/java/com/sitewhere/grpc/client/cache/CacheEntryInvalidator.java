@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.grpc.client.cache;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryEvictedListener;
+import com.hazelcast.map.listener.EntryRemovedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+
+/**
+ * Base class for listeners that invalidate locally derived data when entries in
+ * a shared cache change. An entry that was dropped from the shared cache comes
+ * back as an added entry, so additions invalidate as well. Evictions only
+ * invalidate if requested, since they do not indicate that the entry changed.
+ * 
+ * @author Derek
+ *
+ * @param <K>
+ * @param <V>
+ */
+public abstract class CacheEntryInvalidator<K, V> implements EntryAddedListener<K, V>, EntryUpdatedListener<K, V>,
+	EntryRemovedListener<K, V>, EntryEvictedListener<K, V> {
+
+    /** Indicates whether evicted entries are invalidated */
+    private boolean invalidateOnEviction;
+
+    public CacheEntryInvalidator() {
+	this(true);
+    }
+
+    public CacheEntryInvalidator(boolean invalidateOnEviction) {
+	this.invalidateOnEviction = invalidateOnEviction;
+    }
+
+    /**
+     * Invalidate data derived from a cache entry.
+     * 
+     * @param key
+     *            entry key
+     * @param value
+     *            new value for added or updated entries, old value for removed
+     *            or evicted entries (null unless the listener was registered to
+     *            include values)
+     */
+    protected abstract void invalidate(K key, V value);
+
+    /*
+     * @see com.hazelcast.map.listener.EntryAddedListener#entryAdded(com.hazelcast.
+     * core.EntryEvent)
+     */
+    @Override
+    public void entryAdded(EntryEvent<K, V> event) {
+	invalidate(event.getKey(), event.getValue());
+    }
+
+    /*
+     * @see com.hazelcast.map.listener.EntryUpdatedListener#entryUpdated(com.
+     * hazelcast.core.EntryEvent)
+     */
+    @Override
+    public void entryUpdated(EntryEvent<K, V> event) {
+	invalidate(event.getKey(), event.getValue());
+    }
+
+    /*
+     * @see com.hazelcast.map.listener.EntryRemovedListener#entryRemoved(com.
+     * hazelcast.core.EntryEvent)
+     */
+    @Override
+    public void entryRemoved(EntryEvent<K, V> event) {
+	invalidate(event.getKey(), event.getOldValue());
+    }
+
+    /*
+     * @see com.hazelcast.map.listener.EntryEvictedListener#entryEvicted(com.
+     * hazelcast.core.EntryEvent)
+     */
+    @Override
+    public void entryEvicted(EntryEvent<K, V> event) {
+	if (isInvalidateOnEviction()) {
+	    invalidate(event.getKey(), event.getOldValue());
+	}
+    }
+
+    public boolean isInvalidateOnEviction() {
+	return invalidateOnEviction;
+    }
+}
\ No newline at end of file
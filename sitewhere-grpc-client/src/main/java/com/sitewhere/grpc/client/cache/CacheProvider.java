@@ -11,6 +11,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import com.hazelcast.core.IMap;
+import com.hazelcast.map.listener.MapListener;
 import com.sitewhere.spi.SiteWhereException;
 import com.sitewhere.spi.cache.ICacheProvider;
 import com.sitewhere.spi.microservice.IMicroservice;
@@ -91,6 +92,49 @@ public abstract class CacheProvider<K, V> implements ICacheProvider<K, V> {
 	}
     }
 
+    /**
+     * Add a listener notified of changes to cache entries. Returns null if the
+     * cache is not available yet.
+     * 
+     * @param tenant
+     * @param listener
+     * @return registration id used to remove the listener
+     * @throws SiteWhereException
+     */
+    public String addEntryListener(ITenant tenant, MapListener listener) throws SiteWhereException {
+	return addEntryListener(tenant, listener, false);
+    }
+
+    /**
+     * Add a listener notified of changes to cache entries, optionally including
+     * entry values in events. Returns null if the cache is not available yet.
+     * 
+     * @param tenant
+     * @param listener
+     * @param includeValue
+     * @return registration id used to remove the listener
+     * @throws SiteWhereException
+     */
+    public String addEntryListener(ITenant tenant, MapListener listener, boolean includeValue)
+	    throws SiteWhereException {
+	IMap<K, V> cache = getCache(tenant);
+	return (cache != null) ? cache.addEntryListener(listener, includeValue) : null;
+    }
+
+    /**
+     * Remove a listener added with {@link #addEntryListener(ITenant, MapListener)}.
+     * 
+     * @param tenant
+     * @param registrationId
+     * @throws SiteWhereException
+     */
+    public void removeEntryListener(ITenant tenant, String registrationId) throws SiteWhereException {
+	IMap<K, V> cache = getCache(tenant);
+	if ((cache != null) && (registrationId != null)) {
+	    cache.removeEntryListener(registrationId);
+	}
+    }
+
     /**
      * Get cache (create if not found).
      * 
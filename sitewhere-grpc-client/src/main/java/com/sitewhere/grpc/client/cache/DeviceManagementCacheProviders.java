@@ -16,6 +16,7 @@ import com.sitewhere.spi.area.IArea;
 import com.sitewhere.spi.device.IDevice;
 import com.sitewhere.spi.device.IDeviceAssignment;
 import com.sitewhere.spi.device.IDeviceType;
+import com.sitewhere.spi.device.command.IDeviceCommand;
 import com.sitewhere.spi.microservice.IMicroservice;
 
 /**
@@ -37,6 +38,9 @@ public class DeviceManagementCacheProviders {
     /** Cache id for device type by id cache */
     public static final String ID_DEVICE_TYPE_ID_CACHE = "device_type_by_id";
 
+    /** Cache id for device command cache */
+    public static final String ID_DEVICE_COMMAND_CACHE = "device_command_by_token";
+
     /** Cache id for device cache */
     public static final String ID_DEVICE_CACHE = "device_by_token";
 
@@ -232,4 +236,27 @@ public class DeviceManagementCacheProviders {
 	    return LOGGER;
 	}
     }
+
+    /**
+     * Cache for device commands.
+     * 
+     * @author Derek
+     */
+    public static class DeviceCommandCache extends CacheProvider<String, IDeviceCommand> {
+
+	/** Static logger instance */
+	private static Log LOGGER = LogFactory.getLog(DeviceCommandCache.class);
+
+	public DeviceCommandCache(IMicroservice microservice, boolean createOnStartup) {
+	    super(microservice, ID_DEVICE_COMMAND_CACHE, createOnStartup);
+	}
+
+	/*
+	 * @see com.sitewhere.spi.server.lifecycle.ILifecycleComponent#getLogger()
+	 */
+	@Override
+	public Log getLogger() {
+	    return LOGGER;
+	}
+    }
 }
@@ -0,0 +1,22 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.grpc.client.spi.client;
+
+import com.sitewhere.grpc.client.spi.IApiChannel;
+import com.sitewhere.spi.sources.IEventSourcesMonitoring;
+import com.sitewhere.spi.sources.IFailedDecodeManagement;
+
+/**
+ * Provides an {@link IApiChannel} that supplies the
+ * {@link IFailedDecodeManagement} and {@link IEventSourcesMonitoring} APIs.
+ * 
+ * @author Derek
+ */
+@SuppressWarnings("rawtypes")
+public interface IEventSourcesApiChannel extends IFailedDecodeManagement, IEventSourcesMonitoring, IApiChannel {
+}
\ No newline at end of file
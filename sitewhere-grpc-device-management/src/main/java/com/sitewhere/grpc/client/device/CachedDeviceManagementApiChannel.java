@@ -7,6 +7,8 @@
  */
 package com.sitewhere.grpc.client.device;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 import com.sitewhere.grpc.client.cache.CacheUtils;
@@ -19,6 +21,7 @@ import com.sitewhere.spi.cache.ICacheProvider;
 import com.sitewhere.spi.device.IDevice;
 import com.sitewhere.spi.device.IDeviceAssignment;
 import com.sitewhere.spi.device.IDeviceType;
+import com.sitewhere.spi.device.command.IDeviceCommand;
 import com.sitewhere.spi.microservice.IMicroservice;
 import com.sitewhere.spi.tenant.ITenant;
 
@@ -41,6 +44,9 @@ public class CachedDeviceManagementApiChannel extends DeviceManagementApiChannel
     /** Device type by id cache */
     private ICacheProvider<UUID, IDeviceType> deviceTypeByIdCache;
 
+    /** Device command cache */
+    private ICacheProvider<String, IDeviceCommand> deviceCommandCache;
+
     /** Device cache */
     private ICacheProvider<String, IDevice> deviceCache;
 
@@ -59,6 +65,7 @@ public class CachedDeviceManagementApiChannel extends DeviceManagementApiChannel
 	this.areaByIdCache = new DeviceManagementCacheProviders.AreaByIdCache(microservice, false);
 	this.deviceTypeCache = new DeviceManagementCacheProviders.DeviceTypeCache(microservice, false);
 	this.deviceTypeByIdCache = new DeviceManagementCacheProviders.DeviceTypeByIdCache(microservice, false);
+	this.deviceCommandCache = new DeviceManagementCacheProviders.DeviceCommandCache(microservice, false);
 	this.deviceCache = new DeviceManagementCacheProviders.DeviceCache(microservice, false);
 	this.deviceByIdCache = new DeviceManagementCacheProviders.DeviceByIdCache(microservice, false);
 	this.deviceAssignmentCache = new DeviceManagementCacheProviders.DeviceAssignmentCache(microservice, false);
@@ -101,6 +108,31 @@ public class CachedDeviceManagementApiChannel extends DeviceManagementApiChannel
 	return super.getArea(id);
     }
 
+    /*
+     * @see
+     * com.sitewhere.grpc.client.device.DeviceManagementApiChannel#getAreas(java.
+     * util.List)
+     */
+    @Override
+    public List<IArea> getAreas(List<UUID> ids) throws SiteWhereException {
+	ITenant tenant = UserContextManager.getCurrentTenant(true);
+	List<IArea> areas = new ArrayList<>();
+	List<UUID> missing = new ArrayList<>();
+	for (UUID id : ids) {
+	    IArea area = getAreaByIdCache().getCacheEntry(tenant, id);
+	    if (area != null) {
+		CacheUtils.logCacheHit(area);
+		areas.add(area);
+	    } else {
+		missing.add(id);
+	    }
+	}
+	if (!missing.isEmpty()) {
+	    areas.addAll(super.getAreas(missing));
+	}
+	return areas;
+    }
+
     /*
      * @see com.sitewhere.grpc.client.device.DeviceManagementApiChannel#
      * getDeviceTypeByToken(java.lang.String)
@@ -154,6 +186,23 @@ public class CachedDeviceManagementApiChannel extends DeviceManagementApiChannel
 	return super.getDeviceByToken(token);
     }
 
+    /*
+     * @see com.sitewhere.grpc.client.device.DeviceManagementApiChannel#
+     * getDeviceCommandByToken(java.lang.String)
+     */
+    @Override
+    public IDeviceCommand getDeviceCommandByToken(String token) throws SiteWhereException {
+	ITenant tenant = UserContextManager.getCurrentTenant(true);
+	IDeviceCommand command = getDeviceCommandCache().getCacheEntry(tenant, token);
+	if (command != null) {
+	    CacheUtils.logCacheHit(command);
+	    return command;
+	} else {
+	    getLogger().trace("No cached information for device command '" + token + "'.");
+	}
+	return super.getDeviceCommandByToken(token);
+    }
+
     /*
      * @see
      * com.sitewhere.grpc.client.device.DeviceManagementApiChannel#getDevice(java.
@@ -172,6 +221,55 @@ public class CachedDeviceManagementApiChannel extends DeviceManagementApiChannel
 	return super.getDevice(deviceId);
     }
 
+    /*
+     * @see
+     * com.sitewhere.grpc.client.device.DeviceManagementApiChannel#getDevices(java.
+     * util.List)
+     */
+    @Override
+    public List<IDevice> getDevices(List<UUID> deviceIds) throws SiteWhereException {
+	ITenant tenant = UserContextManager.getCurrentTenant(true);
+	List<IDevice> devices = new ArrayList<>();
+	List<UUID> missing = new ArrayList<>();
+	for (UUID deviceId : deviceIds) {
+	    IDevice device = getDeviceByIdCache().getCacheEntry(tenant, deviceId);
+	    if (device != null) {
+		CacheUtils.logCacheHit(device);
+		devices.add(device);
+	    } else {
+		missing.add(deviceId);
+	    }
+	}
+	if (!missing.isEmpty()) {
+	    devices.addAll(super.getDevices(missing));
+	}
+	return devices;
+    }
+
+    /*
+     * @see com.sitewhere.grpc.client.device.DeviceManagementApiChannel#
+     * getDevicesByToken(java.util.List)
+     */
+    @Override
+    public List<IDevice> getDevicesByToken(List<String> tokens) throws SiteWhereException {
+	ITenant tenant = UserContextManager.getCurrentTenant(true);
+	List<IDevice> devices = new ArrayList<>();
+	List<String> missing = new ArrayList<>();
+	for (String token : tokens) {
+	    IDevice device = getDeviceCache().getCacheEntry(tenant, token);
+	    if (device != null) {
+		CacheUtils.logCacheHit(device);
+		devices.add(device);
+	    } else {
+		missing.add(token);
+	    }
+	}
+	if (!missing.isEmpty()) {
+	    devices.addAll(super.getDevicesByToken(missing));
+	}
+	return devices;
+    }
+
     /*
      * @see com.sitewhere.grpc.model.client.DeviceManagementApiChannel#
      * getDeviceAssignmentByToken(java.lang.String)
@@ -206,6 +304,30 @@ public class CachedDeviceManagementApiChannel extends DeviceManagementApiChannel
 	return super.getDeviceAssignment(id);
     }
 
+    /*
+     * @see com.sitewhere.grpc.client.device.DeviceManagementApiChannel#
+     * getDeviceAssignments(java.util.List)
+     */
+    @Override
+    public List<IDeviceAssignment> getDeviceAssignments(List<UUID> ids) throws SiteWhereException {
+	ITenant tenant = UserContextManager.getCurrentTenant(true);
+	List<IDeviceAssignment> assignments = new ArrayList<>();
+	List<UUID> missing = new ArrayList<>();
+	for (UUID id : ids) {
+	    IDeviceAssignment assignment = getDeviceAssignmentByIdCache().getCacheEntry(tenant, id);
+	    if (assignment != null) {
+		CacheUtils.logCacheHit(assignment);
+		assignments.add(assignment);
+	    } else {
+		missing.add(id);
+	    }
+	}
+	if (!missing.isEmpty()) {
+	    assignments.addAll(super.getDeviceAssignments(missing));
+	}
+	return assignments;
+    }
+
     public ICacheProvider<String, IArea> getAreaCache() {
 	return areaCache;
     }
@@ -238,6 +360,14 @@ public class CachedDeviceManagementApiChannel extends DeviceManagementApiChannel
 	this.deviceTypeByIdCache = deviceTypeByIdCache;
     }
 
+    public ICacheProvider<String, IDeviceCommand> getDeviceCommandCache() {
+	return deviceCommandCache;
+    }
+
+    public void setDeviceCommandCache(ICacheProvider<String, IDeviceCommand> deviceCommandCache) {
+	this.deviceCommandCache = deviceCommandCache;
+    }
+
     protected ICacheProvider<String, IDevice> getDeviceCache() {
 	return deviceCache;
     }
@@ -7,6 +7,7 @@
  */
 package com.sitewhere.grpc.client.device;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -18,6 +19,7 @@ import com.sitewhere.grpc.client.GrpcChannel;
 import com.sitewhere.grpc.client.GrpcUtils;
 import com.sitewhere.grpc.client.spi.IApiDemux;
 import com.sitewhere.grpc.client.spi.client.IDeviceManagementApiChannel;
+import com.sitewhere.grpc.model.DeviceModel.GDevice;
 import com.sitewhere.grpc.model.converter.CommonModelConverter;
 import com.sitewhere.grpc.model.converter.DeviceModelConverter;
 import com.sitewhere.grpc.service.*;
@@ -496,6 +498,54 @@ public class DeviceManagementApiChannel extends ApiChannel<DeviceManagementGrpcC
 	}
     }
 
+    /*
+     * @see com.sitewhere.spi.device.IDeviceManagement#createDevices(java.util.List)
+     */
+    @Override
+    public List<IDevice> createDevices(List<IDeviceCreateRequest> devices) throws SiteWhereException {
+	try {
+	    GrpcUtils.logClientMethodEntry(this, DeviceManagementGrpc.METHOD_CREATE_DEVICES);
+	    GCreateDevicesRequest.Builder grequest = GCreateDevicesRequest.newBuilder();
+	    for (IDeviceCreateRequest device : devices) {
+		grequest.addRequests(DeviceModelConverter.asGrpcDeviceCreateRequest(device));
+	    }
+	    GCreateDevicesResponse gresponse = getGrpcChannel().getBlockingStub().createDevices(grequest.build());
+	    List<IDevice> results = new ArrayList<IDevice>();
+	    for (GDevice gdevice : gresponse.getDevicesList()) {
+		results.add(DeviceModelConverter.asApiDevice(gdevice));
+	    }
+	    GrpcUtils.logClientMethodResponse(DeviceManagementGrpc.METHOD_CREATE_DEVICES, results);
+	    return results;
+	} catch (Throwable t) {
+	    throw GrpcUtils.handleClientMethodException(DeviceManagementGrpc.METHOD_CREATE_DEVICES, t);
+	}
+    }
+
+    /*
+     * @see com.sitewhere.spi.device.IDeviceManagement#createDeviceWithAssignment(
+     * com.sitewhere.spi.device.request.IDeviceCreateRequest,
+     * com.sitewhere.spi.device.request.IDeviceAssignmentCreateRequest)
+     */
+    @Override
+    public IDeviceAssignment createDeviceWithAssignment(IDeviceCreateRequest device,
+	    IDeviceAssignmentCreateRequest assignment) throws SiteWhereException {
+	try {
+	    GrpcUtils.logClientMethodEntry(this, DeviceManagementGrpc.METHOD_CREATE_DEVICE_WITH_ASSIGNMENT);
+	    GCreateDeviceWithAssignmentRequest.Builder grequest = GCreateDeviceWithAssignmentRequest.newBuilder();
+	    grequest.setDevice(DeviceModelConverter.asGrpcDeviceCreateRequest(device));
+	    grequest.setAssignment(DeviceModelConverter.asGrpcDeviceAssignmentCreateRequest(assignment));
+	    GCreateDeviceWithAssignmentResponse gresponse = getGrpcChannel().getBlockingStub()
+		    .createDeviceWithAssignment(grequest.build());
+	    IDeviceAssignment response = (gresponse.hasAssignment())
+		    ? DeviceModelConverter.asApiDeviceAssignment(gresponse.getAssignment())
+		    : null;
+	    GrpcUtils.logClientMethodResponse(DeviceManagementGrpc.METHOD_CREATE_DEVICE_WITH_ASSIGNMENT, response);
+	    return response;
+	} catch (Throwable t) {
+	    throw GrpcUtils.handleClientMethodException(DeviceManagementGrpc.METHOD_CREATE_DEVICE_WITH_ASSIGNMENT, t);
+	}
+    }
+
     /*
      * @see com.sitewhere.spi.device.IDeviceManagement#getDevice(java.util.UUID)
      */
@@ -514,6 +564,66 @@ public class DeviceManagementApiChannel extends ApiChannel<DeviceManagementGrpcC
 	}
     }
 
+    /*
+     * @see com.sitewhere.spi.device.IDeviceManagement#getDevices(java.util.List)
+     */
+    @Override
+    public List<IDevice> getDevices(List<UUID> deviceIds) throws SiteWhereException {
+	try {
+	    GrpcUtils.logClientMethodEntry(this, DeviceManagementGrpc.METHOD_GET_DEVICES);
+	    GGetDevicesRequest.Builder grequest = GGetDevicesRequest.newBuilder();
+	    grequest.addAllIds(CommonModelConverter.asGrpcUuids(deviceIds));
+	    GGetDevicesResponse gresponse = getGrpcChannel().getBlockingStub().getDevices(grequest.build());
+	    List<IDevice> response = DeviceModelConverter.asApiDevices(gresponse.getDevicesList());
+	    GrpcUtils.logClientMethodResponse(DeviceManagementGrpc.METHOD_GET_DEVICES, response);
+	    return response;
+	} catch (Throwable t) {
+	    throw GrpcUtils.handleClientMethodException(DeviceManagementGrpc.METHOD_GET_DEVICES, t);
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.device.IDeviceManagement#getDevicesByToken(java.util.List)
+     */
+    @Override
+    public List<IDevice> getDevicesByToken(List<String> tokens) throws SiteWhereException {
+	try {
+	    GrpcUtils.logClientMethodEntry(this, DeviceManagementGrpc.METHOD_GET_DEVICES_BY_TOKEN);
+	    GGetDevicesByTokenRequest.Builder grequest = GGetDevicesByTokenRequest.newBuilder();
+	    grequest.addAllTokens(tokens);
+	    GGetDevicesByTokenResponse gresponse = getGrpcChannel().getBlockingStub()
+		    .getDevicesByToken(grequest.build());
+	    List<IDevice> response = DeviceModelConverter.asApiDevices(gresponse.getDevicesList());
+	    GrpcUtils.logClientMethodResponse(DeviceManagementGrpc.METHOD_GET_DEVICES_BY_TOKEN, response);
+	    return response;
+	} catch (Throwable t) {
+	    throw GrpcUtils.handleClientMethodException(DeviceManagementGrpc.METHOD_GET_DEVICES_BY_TOKEN, t);
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.device.IDeviceManagement#getDeviceAssignments(java.util.
+     * List)
+     */
+    @Override
+    public List<IDeviceAssignment> getDeviceAssignments(List<UUID> ids) throws SiteWhereException {
+	try {
+	    GrpcUtils.logClientMethodEntry(this, DeviceManagementGrpc.METHOD_GET_DEVICE_ASSIGNMENTS);
+	    GGetDeviceAssignmentsRequest.Builder grequest = GGetDeviceAssignmentsRequest.newBuilder();
+	    grequest.addAllIds(CommonModelConverter.asGrpcUuids(ids));
+	    GGetDeviceAssignmentsResponse gresponse = getGrpcChannel().getBlockingStub()
+		    .getDeviceAssignments(grequest.build());
+	    List<IDeviceAssignment> response = DeviceModelConverter
+		    .asApiDeviceAssignments(gresponse.getAssignmentsList());
+	    GrpcUtils.logClientMethodResponse(DeviceManagementGrpc.METHOD_GET_DEVICE_ASSIGNMENTS, response);
+	    return response;
+	} catch (Throwable t) {
+	    throw GrpcUtils.handleClientMethodException(DeviceManagementGrpc.METHOD_GET_DEVICE_ASSIGNMENTS, t);
+	}
+    }
+
     /*
      * @see
      * com.sitewhere.spi.device.IDeviceManagement#getDeviceByToken(java.lang.String)
@@ -1064,6 +1174,24 @@ public class DeviceManagementApiChannel extends ApiChannel<DeviceManagementGrpcC
 	}
     }
 
+    /*
+     * @see com.sitewhere.spi.device.IDeviceManagement#getAreas(java.util.List)
+     */
+    @Override
+    public List<IArea> getAreas(List<UUID> ids) throws SiteWhereException {
+	try {
+	    GrpcUtils.logClientMethodEntry(this, DeviceManagementGrpc.METHOD_GET_AREAS);
+	    GGetAreasRequest.Builder grequest = GGetAreasRequest.newBuilder();
+	    grequest.addAllIds(CommonModelConverter.asGrpcUuids(ids));
+	    GGetAreasResponse gresponse = getGrpcChannel().getBlockingStub().getAreas(grequest.build());
+	    List<IArea> response = DeviceModelConverter.asApiAreas(gresponse.getAreasList());
+	    GrpcUtils.logClientMethodResponse(DeviceManagementGrpc.METHOD_GET_AREAS, response);
+	    return response;
+	} catch (Throwable t) {
+	    throw GrpcUtils.handleClientMethodException(DeviceManagementGrpc.METHOD_GET_AREAS, t);
+	}
+    }
+
     /*
      * @see
      * com.sitewhere.spi.device.IDeviceManagement#getAreaByToken(java.lang.String)
@@ -1102,6 +1230,27 @@ public class DeviceManagementApiChannel extends ApiChannel<DeviceManagementGrpcC
 	}
     }
 
+    /*
+     * @see
+     * com.sitewhere.spi.device.IDeviceManagement#getAreaDescendantIds(java.util.
+     * UUID)
+     */
+    @Override
+    public List<UUID> getAreaDescendantIds(UUID id) throws SiteWhereException {
+	try {
+	    GrpcUtils.logClientMethodEntry(this, DeviceManagementGrpc.METHOD_GET_AREA_DESCENDANT_IDS);
+	    GGetAreaDescendantIdsRequest.Builder grequest = GGetAreaDescendantIdsRequest.newBuilder();
+	    grequest.setId(CommonModelConverter.asGrpcUuid(id));
+	    GGetAreaDescendantIdsResponse gresponse = getGrpcChannel().getBlockingStub()
+		    .getAreaDescendantIds(grequest.build());
+	    List<UUID> response = CommonModelConverter.asApiUuids(gresponse.getIdsList());
+	    GrpcUtils.logClientMethodResponse(DeviceManagementGrpc.METHOD_GET_AREA_DESCENDANT_IDS, response);
+	    return response;
+	} catch (Throwable t) {
+	    throw GrpcUtils.handleClientMethodException(DeviceManagementGrpc.METHOD_GET_AREA_DESCENDANT_IDS, t);
+	}
+    }
+
     /*
      * @see com.sitewhere.spi.device.IDeviceManagement#updateArea(java.util.UUID,
      * com.sitewhere.spi.area.request.IAreaCreateRequest)
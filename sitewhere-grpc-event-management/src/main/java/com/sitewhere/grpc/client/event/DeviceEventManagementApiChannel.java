@@ -7,6 +7,7 @@
  */
 package com.sitewhere.grpc.client.event;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -37,6 +38,8 @@ import com.sitewhere.grpc.service.GAddMeasurementsForAssignmentRequest;
 import com.sitewhere.grpc.service.GAddMeasurementsForAssignmentResponse;
 import com.sitewhere.grpc.service.GAddStateChangeForAssignmentRequest;
 import com.sitewhere.grpc.service.GAddStateChangeForAssignmentResponse;
+import com.sitewhere.grpc.service.GAddStateChangesForAssignmentsRequest;
+import com.sitewhere.grpc.service.GAddStateChangesForAssignmentsResponse;
 import com.sitewhere.grpc.service.GAddStreamDataForAssignmentRequest;
 import com.sitewhere.grpc.service.GAddStreamDataForAssignmentResponse;
 import com.sitewhere.grpc.service.GGetDeviceEventByAlternateIdRequest;
@@ -826,6 +829,34 @@ public class DeviceEventManagementApiChannel extends ApiChannel<DeviceEventManag
 	}
     }
 
+    /*
+     * @see com.sitewhere.spi.device.event.IDeviceEventManagement#
+     * addDeviceStateChanges(java.util.List,
+     * com.sitewhere.spi.device.event.request.IDeviceStateChangeCreateRequest)
+     */
+    @Override
+    public List<IDeviceStateChange> addDeviceStateChanges(List<IDeviceAssignment> assignments,
+	    IDeviceStateChangeCreateRequest request) throws SiteWhereException {
+	try {
+	    GrpcUtils.logClientMethodEntry(this, DeviceEventManagementGrpc.METHOD_ADD_STATE_CHANGES_FOR_ASSIGNMENTS,
+		    DebugParameter.create("Assignments", assignments), DebugParameter.create("Request", request));
+	    GAddStateChangesForAssignmentsRequest.Builder grequest = GAddStateChangesForAssignmentsRequest.newBuilder();
+	    grequest.addAllAssignments(DeviceModelConverter.asGrpcDeviceAssignments(assignments));
+	    grequest.setRequest(EventModelConverter.asGrpcDeviceStateChangeCreateRequest(request));
+	    GAddStateChangesForAssignmentsResponse gresponse = getGrpcChannel().getBlockingStub()
+		    .addStateChangesForAssignments(GrpcUtils.logGrpcClientRequest(
+			    DeviceEventManagementGrpc.METHOD_ADD_STATE_CHANGES_FOR_ASSIGNMENTS, grequest.build()));
+	    List<IDeviceStateChange> response = new ArrayList<IDeviceStateChange>(
+		    EventModelConverter.asApiDeviceStateChanges(gresponse.getStateChangesList()));
+	    GrpcUtils.logClientMethodResponse(DeviceEventManagementGrpc.METHOD_ADD_STATE_CHANGES_FOR_ASSIGNMENTS,
+		    response);
+	    return response;
+	} catch (Throwable t) {
+	    throw GrpcUtils.handleClientMethodException(
+		    DeviceEventManagementGrpc.METHOD_ADD_STATE_CHANGES_FOR_ASSIGNMENTS, t);
+	}
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.grpc.client.sources;
+
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.sitewhere.grpc.client.ApiChannel;
+import com.sitewhere.grpc.client.GrpcChannel;
+import com.sitewhere.grpc.client.GrpcUtils;
+import com.sitewhere.grpc.client.spi.IApiDemux;
+import com.sitewhere.grpc.client.spi.client.IEventSourcesApiChannel;
+import com.sitewhere.grpc.model.sources.EventSourcesModelConverter;
+import com.sitewhere.grpc.service.EventSourcesGrpc;
+import com.sitewhere.grpc.service.GGetEventSourcesMetricsRequest;
+import com.sitewhere.grpc.service.GGetEventSourcesMetricsResponse;
+import com.sitewhere.grpc.service.GGetFailedDecodeReplayStatusRequest;
+import com.sitewhere.grpc.service.GGetFailedDecodeReplayStatusResponse;
+import com.sitewhere.grpc.service.GGetFailedDecodeSummariesRequest;
+import com.sitewhere.grpc.service.GGetFailedDecodeSummariesResponse;
+import com.sitewhere.grpc.service.GListFailedDecodesRequest;
+import com.sitewhere.grpc.service.GListFailedDecodesResponse;
+import com.sitewhere.grpc.service.GReplayFailedDecodesRequest;
+import com.sitewhere.grpc.service.GReplayFailedDecodesResponse;
+import com.sitewhere.grpc.service.GSampleFailedDecodesRequest;
+import com.sitewhere.grpc.service.GSampleFailedDecodesResponse;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.IMicroservice;
+import com.sitewhere.spi.search.ISearchResults;
+import com.sitewhere.spi.search.sources.IFailedDecodeSearchCriteria;
+import com.sitewhere.spi.sources.IEventSourcesMetrics;
+import com.sitewhere.spi.sources.IFailedDecode;
+import com.sitewhere.spi.sources.IFailedDecodeReplayStatus;
+import com.sitewhere.spi.sources.IFailedDecodeSummary;
+import com.sitewhere.spi.tracing.ITracerProvider;
+
+/**
+ * Supports SiteWhere event sources APIs on top of a
+ * {@link EventSourcesGrpcChannel}.
+ * 
+ * @author Derek
+ */
+public class EventSourcesApiChannel extends ApiChannel<EventSourcesGrpcChannel> implements IEventSourcesApiChannel {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(EventSourcesApiChannel.class);
+
+    public EventSourcesApiChannel(IApiDemux<?> demux, IMicroservice microservice, String host) {
+	super(demux, microservice, host);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.grpc.client.spi.IApiChannel#createGrpcChannel(com.sitewhere.spi
+     * .tracing.ITracerProvider, java.lang.String, int)
+     */
+    @Override
+    @SuppressWarnings("rawtypes")
+    public GrpcChannel createGrpcChannel(ITracerProvider tracerProvider, String host, int port) {
+	return new EventSourcesGrpcChannel(tracerProvider, host, port);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.sources.IFailedDecodeManagement#listFailedDecodes(com.
+     * sitewhere.spi.search.sources.IFailedDecodeSearchCriteria)
+     */
+    @Override
+    public ISearchResults<IFailedDecode> listFailedDecodes(IFailedDecodeSearchCriteria criteria)
+	    throws SiteWhereException {
+	try {
+	    GrpcUtils.logClientMethodEntry(this, EventSourcesGrpc.METHOD_LIST_FAILED_DECODES);
+	    GListFailedDecodesRequest.Builder grequest = GListFailedDecodesRequest.newBuilder();
+	    grequest.setCriteria(EventSourcesModelConverter.asGrpcFailedDecodeSearchCriteria(criteria));
+	    GListFailedDecodesResponse gresponse = getGrpcChannel().getBlockingStub()
+		    .listFailedDecodes(grequest.build());
+	    ISearchResults<IFailedDecode> results = EventSourcesModelConverter
+		    .asApiFailedDecodeSearchResults(gresponse.getResults());
+	    GrpcUtils.logClientMethodResponse(EventSourcesGrpc.METHOD_LIST_FAILED_DECODES, results);
+	    return results;
+	} catch (Throwable t) {
+	    throw GrpcUtils.handleClientMethodException(EventSourcesGrpc.METHOD_LIST_FAILED_DECODES, t);
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.sources.IFailedDecodeManagement#getFailedDecodeSummaries()
+     */
+    @Override
+    public List<IFailedDecodeSummary> getFailedDecodeSummaries() throws SiteWhereException {
+	try {
+	    GrpcUtils.logClientMethodEntry(this, EventSourcesGrpc.METHOD_GET_FAILED_DECODE_SUMMARIES);
+	    GGetFailedDecodeSummariesRequest.Builder grequest = GGetFailedDecodeSummariesRequest.newBuilder();
+	    GGetFailedDecodeSummariesResponse gresponse = getGrpcChannel().getBlockingStub()
+		    .getFailedDecodeSummaries(grequest.build());
+	    List<IFailedDecodeSummary> results = EventSourcesModelConverter
+		    .asApiFailedDecodeSummaries(gresponse.getSummariesList());
+	    GrpcUtils.logClientMethodResponse(EventSourcesGrpc.METHOD_GET_FAILED_DECODE_SUMMARIES, results);
+	    return results;
+	} catch (Throwable t) {
+	    throw GrpcUtils.handleClientMethodException(EventSourcesGrpc.METHOD_GET_FAILED_DECODE_SUMMARIES, t);
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.sources.IFailedDecodeManagement#sampleFailedDecodes(com.
+     * sitewhere.spi.search.sources.IFailedDecodeSearchCriteria, int)
+     */
+    @Override
+    public List<IFailedDecode> sampleFailedDecodes(IFailedDecodeSearchCriteria criteria, int count)
+	    throws SiteWhereException {
+	try {
+	    GrpcUtils.logClientMethodEntry(this, EventSourcesGrpc.METHOD_SAMPLE_FAILED_DECODES);
+	    GSampleFailedDecodesRequest.Builder grequest = GSampleFailedDecodesRequest.newBuilder();
+	    grequest.setCriteria(EventSourcesModelConverter.asGrpcFailedDecodeSearchCriteria(criteria));
+	    grequest.setCount(count);
+	    GSampleFailedDecodesResponse gresponse = getGrpcChannel().getBlockingStub()
+		    .sampleFailedDecodes(grequest.build());
+	    List<IFailedDecode> results = EventSourcesModelConverter
+		    .asApiFailedDecodes(gresponse.getFailedDecodesList());
+	    GrpcUtils.logClientMethodResponse(EventSourcesGrpc.METHOD_SAMPLE_FAILED_DECODES, results);
+	    return results;
+	} catch (Throwable t) {
+	    throw GrpcUtils.handleClientMethodException(EventSourcesGrpc.METHOD_SAMPLE_FAILED_DECODES, t);
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.sources.IFailedDecodeManagement#replayFailedDecodes(com.
+     * sitewhere.spi.search.sources.IFailedDecodeSearchCriteria, java.lang.String,
+     * int)
+     */
+    @Override
+    public IFailedDecodeReplayStatus replayFailedDecodes(IFailedDecodeSearchCriteria criteria,
+	    String targetSourceId, int maxPerSecond) throws SiteWhereException {
+	try {
+	    GrpcUtils.logClientMethodEntry(this, EventSourcesGrpc.METHOD_REPLAY_FAILED_DECODES);
+	    GReplayFailedDecodesRequest.Builder grequest = GReplayFailedDecodesRequest.newBuilder();
+	    grequest.setCriteria(EventSourcesModelConverter.asGrpcFailedDecodeSearchCriteria(criteria));
+	    grequest.setTargetSourceId(targetSourceId);
+	    grequest.setMaxPerSecond(maxPerSecond);
+	    GReplayFailedDecodesResponse gresponse = getGrpcChannel().getBlockingStub()
+		    .replayFailedDecodes(grequest.build());
+	    IFailedDecodeReplayStatus response = EventSourcesModelConverter
+		    .asApiFailedDecodeReplayStatus(gresponse.getStatus());
+	    GrpcUtils.logClientMethodResponse(EventSourcesGrpc.METHOD_REPLAY_FAILED_DECODES, response);
+	    return response;
+	} catch (Throwable t) {
+	    throw GrpcUtils.handleClientMethodException(EventSourcesGrpc.METHOD_REPLAY_FAILED_DECODES, t);
+	}
+    }
+
+    /*
+     * @see com.sitewhere.spi.sources.IFailedDecodeManagement#
+     * getFailedDecodeReplayStatus()
+     */
+    @Override
+    public IFailedDecodeReplayStatus getFailedDecodeReplayStatus() throws SiteWhereException {
+	try {
+	    GrpcUtils.logClientMethodEntry(this, EventSourcesGrpc.METHOD_GET_FAILED_DECODE_REPLAY_STATUS);
+	    GGetFailedDecodeReplayStatusRequest.Builder grequest = GGetFailedDecodeReplayStatusRequest.newBuilder();
+	    GGetFailedDecodeReplayStatusResponse gresponse = getGrpcChannel().getBlockingStub()
+		    .getFailedDecodeReplayStatus(grequest.build());
+	    IFailedDecodeReplayStatus response = (gresponse.hasStatus())
+		    ? EventSourcesModelConverter.asApiFailedDecodeReplayStatus(gresponse.getStatus())
+		    : null;
+	    GrpcUtils.logClientMethodResponse(EventSourcesGrpc.METHOD_GET_FAILED_DECODE_REPLAY_STATUS, response);
+	    return response;
+	} catch (Throwable t) {
+	    throw GrpcUtils.handleClientMethodException(EventSourcesGrpc.METHOD_GET_FAILED_DECODE_REPLAY_STATUS, t);
+	}
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.sources.IEventSourcesMonitoring#getEventSourcesMetrics()
+     */
+    @Override
+    public IEventSourcesMetrics getEventSourcesMetrics() throws SiteWhereException {
+	try {
+	    GrpcUtils.logClientMethodEntry(this, EventSourcesGrpc.METHOD_GET_EVENT_SOURCES_METRICS);
+	    GGetEventSourcesMetricsRequest.Builder grequest = GGetEventSourcesMetricsRequest.newBuilder();
+	    GGetEventSourcesMetricsResponse gresponse = getGrpcChannel().getBlockingStub()
+		    .getEventSourcesMetrics(grequest.build());
+	    IEventSourcesMetrics response = EventSourcesModelConverter
+		    .asApiEventSourcesMetrics(gresponse.getMetrics());
+	    GrpcUtils.logClientMethodResponse(EventSourcesGrpc.METHOD_GET_EVENT_SOURCES_METRICS, response);
+	    return response;
+	} catch (Throwable t) {
+	    throw GrpcUtils.handleClientMethodException(EventSourcesGrpc.METHOD_GET_EVENT_SOURCES_METRICS, t);
+	}
+    }
+
+    /*
+     * @see com.sitewhere.spi.server.lifecycle.ILifecycleComponent#getLogger()
+     */
+    @Override
+    public Log getLogger() {
+	return LOGGER;
+    }
+}
\ No newline at end of file
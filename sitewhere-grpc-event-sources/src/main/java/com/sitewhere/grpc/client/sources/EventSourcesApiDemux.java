@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.grpc.client.sources;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.sitewhere.grpc.client.ApiDemux;
+import com.sitewhere.grpc.client.spi.client.IEventSourcesApiChannel;
+import com.sitewhere.grpc.client.spi.client.IEventSourcesApiDemux;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.microservice.IMicroservice;
+import com.sitewhere.spi.microservice.IMicroserviceIdentifiers;
+
+/**
+ * Demultiplexes event sources requests across one or more API channels.
+ * 
+ * @author Derek
+ *
+ * @param <IEventSourcesApiChannel>
+ */
+public class EventSourcesApiDemux extends ApiDemux<IEventSourcesApiChannel> implements IEventSourcesApiDemux {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(EventSourcesApiDemux.class);
+
+    public EventSourcesApiDemux(IMicroservice microservice) {
+	super(microservice);
+    }
+
+    /*
+     * @see com.sitewhere.grpc.model.spi.IApiDemux#getTargetIdentifier()
+     */
+    @Override
+    public String getTargetIdentifier() {
+	return IMicroserviceIdentifiers.EVENT_SOURCES;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.grpc.model.spi.IApiDemux#createApiChannel(java.lang.String)
+     */
+    @Override
+    public IEventSourcesApiChannel createApiChannel(String host) throws SiteWhereException {
+	return new EventSourcesApiChannel(this, getMicroservice(), host);
+    }
+
+    /*
+     * @see com.sitewhere.spi.server.lifecycle.ILifecycleComponent#getLogger()
+     */
+    @Override
+    public Log getLogger() {
+	return LOGGER;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.grpc.client.sources;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.sitewhere.grpc.client.MultitenantGrpcChannel;
+import com.sitewhere.grpc.service.EventSourcesGrpc;
+import com.sitewhere.grpc.service.EventSourcesGrpc.EventSourcesBlockingStub;
+import com.sitewhere.grpc.service.EventSourcesGrpc.EventSourcesStub;
+import com.sitewhere.spi.tracing.ITracerProvider;
+
+/**
+ * Channel that allows for communication with a remote event sources GRPC
+ * server.
+ * 
+ * @author Derek
+ */
+public class EventSourcesGrpcChannel extends MultitenantGrpcChannel<EventSourcesBlockingStub, EventSourcesStub> {
+
+    /** Static logger instance */
+    private static Log LOGGER = LogFactory.getLog(EventSourcesGrpcChannel.class);
+
+    public EventSourcesGrpcChannel(ITracerProvider tracerProvider, String host, int port) {
+	super(tracerProvider, host, port);
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.sitewhere.grpc.model.client.GrpcChannel#createBlockingStub()
+     */
+    @Override
+    public EventSourcesBlockingStub createBlockingStub() {
+	return EventSourcesGrpc.newBlockingStub(getChannel());
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.sitewhere.grpc.model.client.GrpcChannel#createAsyncStub()
+     */
+    @Override
+    public EventSourcesStub createAsyncStub() {
+	return EventSourcesGrpc.newStub(getChannel());
+    }
+
+    /*
+     * (non-Javadoc)
+     * 
+     * @see com.sitewhere.spi.server.lifecycle.ILifecycleComponent#getLogger()
+     */
+    @Override
+    public Log getLogger() {
+	return LOGGER;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,476 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.grpc.model.sources;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.protobuf.ByteString;
+import com.sitewhere.grpc.model.CommonModel.GOptionalString;
+import com.sitewhere.grpc.model.EventSourcesModel.GDecoderMetrics;
+import com.sitewhere.grpc.model.EventSourcesModel.GEventSourceMetrics;
+import com.sitewhere.grpc.model.EventSourcesModel.GEventSourcesMetrics;
+import com.sitewhere.grpc.model.EventSourcesModel.GFailedDecode;
+import com.sitewhere.grpc.model.EventSourcesModel.GFailedDecodeReplayStatus;
+import com.sitewhere.grpc.model.EventSourcesModel.GFailedDecodeSearchCriteria;
+import com.sitewhere.grpc.model.EventSourcesModel.GFailedDecodeSearchResults;
+import com.sitewhere.grpc.model.EventSourcesModel.GFailedDecodeSummary;
+import com.sitewhere.grpc.model.EventSourcesModel.GLatencySummary;
+import com.sitewhere.grpc.model.converter.CommonModelConverter;
+import com.sitewhere.rest.model.search.SearchResults;
+import com.sitewhere.rest.model.search.sources.FailedDecodeSearchCriteria;
+import com.sitewhere.rest.model.sources.DecoderMetrics;
+import com.sitewhere.rest.model.sources.EventSourceMetrics;
+import com.sitewhere.rest.model.sources.EventSourcesMetrics;
+import com.sitewhere.rest.model.sources.FailedDecode;
+import com.sitewhere.rest.model.sources.FailedDecodeReplayStatus;
+import com.sitewhere.rest.model.sources.FailedDecodeSummary;
+import com.sitewhere.rest.model.sources.LatencySummary;
+import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.search.ISearchResults;
+import com.sitewhere.spi.search.sources.IFailedDecodeSearchCriteria;
+import com.sitewhere.spi.sources.IDecoderMetrics;
+import com.sitewhere.spi.sources.IEventSourceMetrics;
+import com.sitewhere.spi.sources.IEventSourcesMetrics;
+import com.sitewhere.spi.sources.IFailedDecode;
+import com.sitewhere.spi.sources.IFailedDecodeReplayStatus;
+import com.sitewhere.spi.sources.IFailedDecodeSummary;
+import com.sitewhere.spi.sources.ILatencySummary;
+
+/**
+ * Convert event sources entities between SiteWhere API model and GRPC model.
+ *
+ * @author Derek
+ */
+public class EventSourcesModelConverter {
+
+    /**
+     * Convert failed decode from GRPC to API.
+     *
+     * @param grpc
+     * @return
+     * @throws SiteWhereException
+     */
+    public static FailedDecode asApiFailedDecode(GFailedDecode grpc) throws SiteWhereException {
+	FailedDecode api = new FailedDecode();
+	api.setId(grpc.getId());
+	api.setSourceId(grpc.getSourceId());
+	api.setDecoder(grpc.getDecoder());
+	api.setErrorClass(grpc.getErrorClass());
+	api.setErrorMessage(grpc.hasErrorMessage() ? grpc.getErrorMessage().getValue() : null);
+	api.setFailedDate(grpc.hasFailedDate() ? CommonModelConverter.asDate(grpc.getFailedDate()) : null);
+	api.setReplayed(grpc.getReplayed());
+	api.setPayload(grpc.getPayload().toByteArray());
+	return api;
+    }
+
+    /**
+     * Convert failed decode from API to GRPC.
+     *
+     * @param api
+     * @return
+     * @throws SiteWhereException
+     */
+    public static GFailedDecode asGrpcFailedDecode(IFailedDecode api) throws SiteWhereException {
+	GFailedDecode.Builder grpc = GFailedDecode.newBuilder();
+	grpc.setId(api.getId());
+	grpc.setSourceId(api.getSourceId());
+	grpc.setDecoder(api.getDecoder());
+	grpc.setErrorClass(api.getErrorClass());
+	if (api.getErrorMessage() != null) {
+	    grpc.setErrorMessage(GOptionalString.newBuilder().setValue(api.getErrorMessage()));
+	}
+	if (api.getFailedDate() != null) {
+	    grpc.setFailedDate(CommonModelConverter.asGrpcTimestamp(api.getFailedDate()));
+	}
+	grpc.setReplayed(api.isReplayed());
+	grpc.setPayload(ByteString.copyFrom(api.getPayload()));
+	return grpc.build();
+    }
+
+    /**
+     * Convert list of failed decodes from GRPC to API.
+     *
+     * @param grpcs
+     * @return
+     * @throws SiteWhereException
+     */
+    public static List<IFailedDecode> asApiFailedDecodes(List<GFailedDecode> grpcs) throws SiteWhereException {
+	List<IFailedDecode> api = new ArrayList<IFailedDecode>();
+	for (GFailedDecode grpc : grpcs) {
+	    api.add(EventSourcesModelConverter.asApiFailedDecode(grpc));
+	}
+	return api;
+    }
+
+    /**
+     * Convert list of failed decodes from API to GRPC.
+     *
+     * @param apis
+     * @return
+     * @throws SiteWhereException
+     */
+    public static List<GFailedDecode> asGrpcFailedDecodes(List<IFailedDecode> apis) throws SiteWhereException {
+	List<GFailedDecode> grpcs = new ArrayList<GFailedDecode>();
+	for (IFailedDecode api : apis) {
+	    grpcs.add(EventSourcesModelConverter.asGrpcFailedDecode(api));
+	}
+	return grpcs;
+    }
+
+    /**
+     * Convert failed decode search criteria from GRPC to API.
+     *
+     * @param grpc
+     * @return
+     * @throws SiteWhereException
+     */
+    public static FailedDecodeSearchCriteria asApiFailedDecodeSearchCriteria(GFailedDecodeSearchCriteria grpc)
+	    throws SiteWhereException {
+	FailedDecodeSearchCriteria api = new FailedDecodeSearchCriteria(grpc.getPaging().getPageNumber(),
+		grpc.getPaging().getPageSize());
+	api.setSourceId(grpc.hasSourceId() ? grpc.getSourceId().getValue() : null);
+	api.setDecoder(grpc.hasDecoder() ? grpc.getDecoder().getValue() : null);
+	api.setErrorClass(grpc.hasErrorClass() ? grpc.getErrorClass().getValue() : null);
+	api.setIncludeReplayed(grpc.getIncludeReplayed());
+	return api;
+    }
+
+    /**
+     * Convert failed decode search criteria from API to GRPC.
+     *
+     * @param api
+     * @return
+     * @throws SiteWhereException
+     */
+    public static GFailedDecodeSearchCriteria asGrpcFailedDecodeSearchCriteria(IFailedDecodeSearchCriteria api)
+	    throws SiteWhereException {
+	GFailedDecodeSearchCriteria.Builder grpc = GFailedDecodeSearchCriteria.newBuilder();
+	if (api.getSourceId() != null) {
+	    grpc.setSourceId(GOptionalString.newBuilder().setValue(api.getSourceId()));
+	}
+	if (api.getDecoder() != null) {
+	    grpc.setDecoder(GOptionalString.newBuilder().setValue(api.getDecoder()));
+	}
+	if (api.getErrorClass() != null) {
+	    grpc.setErrorClass(GOptionalString.newBuilder().setValue(api.getErrorClass()));
+	}
+	grpc.setIncludeReplayed(api.isIncludeReplayed());
+	grpc.setPaging(CommonModelConverter.asGrpcPaging(api));
+	return grpc.build();
+    }
+
+    /**
+     * Convert failed decode search results from GRPC to API.
+     *
+     * @param grpc
+     * @return
+     * @throws SiteWhereException
+     */
+    public static ISearchResults<IFailedDecode> asApiFailedDecodeSearchResults(GFailedDecodeSearchResults grpc)
+	    throws SiteWhereException {
+	List<IFailedDecode> api = EventSourcesModelConverter.asApiFailedDecodes(grpc.getFailedDecodesList());
+	return new SearchResults<IFailedDecode>(api, grpc.getCount());
+    }
+
+    /**
+     * Convert failed decode search results from API to GRPC.
+     *
+     * @param api
+     * @return
+     * @throws SiteWhereException
+     */
+    public static GFailedDecodeSearchResults asGrpcFailedDecodeSearchResults(ISearchResults<IFailedDecode> api)
+	    throws SiteWhereException {
+	GFailedDecodeSearchResults.Builder grpc = GFailedDecodeSearchResults.newBuilder();
+	grpc.setCount(api.getNumResults());
+	grpc.addAllFailedDecodes(EventSourcesModelConverter.asGrpcFailedDecodes(api.getResults()));
+	return grpc.build();
+    }
+
+    /**
+     * Convert failed decode summary from GRPC to API.
+     *
+     * @param grpc
+     * @return
+     * @throws SiteWhereException
+     */
+    public static FailedDecodeSummary asApiFailedDecodeSummary(GFailedDecodeSummary grpc) throws SiteWhereException {
+	FailedDecodeSummary api = new FailedDecodeSummary();
+	api.setSourceId(grpc.getSourceId());
+	api.setDecoder(grpc.getDecoder());
+	api.setErrorClass(grpc.getErrorClass());
+	api.setCount(grpc.getCount());
+	api.setFirstFailedDate(
+		grpc.hasFirstFailedDate() ? CommonModelConverter.asDate(grpc.getFirstFailedDate()) : null);
+	api.setLastFailedDate(grpc.hasLastFailedDate() ? CommonModelConverter.asDate(grpc.getLastFailedDate()) : null);
+	return api;
+    }
+
+    /**
+     * Convert failed decode summary from API to GRPC.
+     *
+     * @param api
+     * @return
+     * @throws SiteWhereException
+     */
+    public static GFailedDecodeSummary asGrpcFailedDecodeSummary(IFailedDecodeSummary api) throws SiteWhereException {
+	GFailedDecodeSummary.Builder grpc = GFailedDecodeSummary.newBuilder();
+	grpc.setSourceId(api.getSourceId());
+	grpc.setDecoder(api.getDecoder());
+	grpc.setErrorClass(api.getErrorClass());
+	grpc.setCount(api.getCount());
+	if (api.getFirstFailedDate() != null) {
+	    grpc.setFirstFailedDate(CommonModelConverter.asGrpcTimestamp(api.getFirstFailedDate()));
+	}
+	if (api.getLastFailedDate() != null) {
+	    grpc.setLastFailedDate(CommonModelConverter.asGrpcTimestamp(api.getLastFailedDate()));
+	}
+	return grpc.build();
+    }
+
+    /**
+     * Convert list of failed decode summaries from GRPC to API.
+     *
+     * @param grpcs
+     * @return
+     * @throws SiteWhereException
+     */
+    public static List<IFailedDecodeSummary> asApiFailedDecodeSummaries(List<GFailedDecodeSummary> grpcs)
+	    throws SiteWhereException {
+	List<IFailedDecodeSummary> api = new ArrayList<IFailedDecodeSummary>();
+	for (GFailedDecodeSummary grpc : grpcs) {
+	    api.add(EventSourcesModelConverter.asApiFailedDecodeSummary(grpc));
+	}
+	return api;
+    }
+
+    /**
+     * Convert list of failed decode summaries from API to GRPC.
+     *
+     * @param apis
+     * @return
+     * @throws SiteWhereException
+     */
+    public static List<GFailedDecodeSummary> asGrpcFailedDecodeSummaries(List<IFailedDecodeSummary> apis)
+	    throws SiteWhereException {
+	List<GFailedDecodeSummary> grpcs = new ArrayList<GFailedDecodeSummary>();
+	for (IFailedDecodeSummary api : apis) {
+	    grpcs.add(EventSourcesModelConverter.asGrpcFailedDecodeSummary(api));
+	}
+	return grpcs;
+    }
+
+    /**
+     * Convert replay status from GRPC to API.
+     *
+     * @param grpc
+     * @return
+     * @throws SiteWhereException
+     */
+    public static FailedDecodeReplayStatus asApiFailedDecodeReplayStatus(GFailedDecodeReplayStatus grpc)
+	    throws SiteWhereException {
+	FailedDecodeReplayStatus api = new FailedDecodeReplayStatus();
+	api.setTargetSourceId(grpc.getTargetSourceId());
+	api.setMaxPerSecond(grpc.getMaxPerSecond());
+	api.setMatched(grpc.getMatched());
+	api.setReplayed(grpc.getReplayed());
+	api.setFailed(grpc.getFailed());
+	api.setStartDate(grpc.hasStartDate() ? CommonModelConverter.asDate(grpc.getStartDate()) : null);
+	api.setEndDate(grpc.hasEndDate() ? CommonModelConverter.asDate(grpc.getEndDate()) : null);
+	api.setComplete(grpc.getComplete());
+	return api;
+    }
+
+    /**
+     * Convert replay status from API to GRPC.
+     *
+     * @param api
+     * @return
+     * @throws SiteWhereException
+     */
+    public static GFailedDecodeReplayStatus asGrpcFailedDecodeReplayStatus(IFailedDecodeReplayStatus api)
+	    throws SiteWhereException {
+	GFailedDecodeReplayStatus.Builder grpc = GFailedDecodeReplayStatus.newBuilder();
+	grpc.setTargetSourceId(api.getTargetSourceId());
+	grpc.setMaxPerSecond(api.getMaxPerSecond());
+	grpc.setMatched(api.getMatched());
+	grpc.setReplayed(api.getReplayed());
+	grpc.setFailed(api.getFailed());
+	if (api.getStartDate() != null) {
+	    grpc.setStartDate(CommonModelConverter.asGrpcTimestamp(api.getStartDate()));
+	}
+	if (api.getEndDate() != null) {
+	    grpc.setEndDate(CommonModelConverter.asGrpcTimestamp(api.getEndDate()));
+	}
+	grpc.setComplete(api.isComplete());
+	return grpc.build();
+    }
+
+    /**
+     * Convert latency summary from GRPC to API.
+     *
+     * @param grpc
+     * @return
+     * @throws SiteWhereException
+     */
+    public static LatencySummary asApiLatencySummary(GLatencySummary grpc) throws SiteWhereException {
+	LatencySummary api = new LatencySummary();
+	api.setCount(grpc.getCount());
+	api.setMean(grpc.getMean());
+	api.setP50(grpc.getP50());
+	api.setP99(grpc.getP99());
+	api.setMax(grpc.getMax());
+	return api;
+    }
+
+    /**
+     * Convert latency summary from API to GRPC.
+     *
+     * @param api
+     * @return
+     * @throws SiteWhereException
+     */
+    public static GLatencySummary asGrpcLatencySummary(ILatencySummary api) throws SiteWhereException {
+	GLatencySummary.Builder grpc = GLatencySummary.newBuilder();
+	grpc.setCount(api.getCount());
+	grpc.setMean(api.getMean());
+	grpc.setP50(api.getP50());
+	grpc.setP99(api.getP99());
+	grpc.setMax(api.getMax());
+	return grpc.build();
+    }
+
+    /**
+     * Convert event source metrics from GRPC to API.
+     *
+     * @param grpc
+     * @return
+     * @throws SiteWhereException
+     */
+    public static EventSourceMetrics asApiEventSourceMetrics(GEventSourceMetrics grpc) throws SiteWhereException {
+	EventSourceMetrics api = new EventSourceMetrics();
+	api.setSourceId(grpc.getSourceId());
+	api.setDecoder(grpc.getDecoder());
+	api.setReceivedCount(grpc.getReceivedCount());
+	api.setReceivedRate(grpc.getReceivedRate());
+	api.setDecodedCount(grpc.getDecodedCount());
+	api.setDecodedRate(grpc.getDecodedRate());
+	api.setDecodeFailedCount(grpc.getDecodeFailedCount());
+	api.setDuplicateCount(grpc.getDuplicateCount());
+	api.setDecodeLatency(grpc.hasDecodeLatency() ? asApiLatencySummary(grpc.getDecodeLatency()) : null);
+	api.setDedupeLatency(grpc.hasDedupeLatency() ? asApiLatencySummary(grpc.getDedupeLatency()) : null);
+	return api;
+    }
+
+    /**
+     * Convert event source metrics from API to GRPC.
+     *
+     * @param api
+     * @return
+     * @throws SiteWhereException
+     */
+    public static GEventSourceMetrics asGrpcEventSourceMetrics(IEventSourceMetrics api) throws SiteWhereException {
+	GEventSourceMetrics.Builder grpc = GEventSourceMetrics.newBuilder();
+	grpc.setSourceId(api.getSourceId());
+	grpc.setDecoder(api.getDecoder());
+	grpc.setReceivedCount(api.getReceivedCount());
+	grpc.setReceivedRate(api.getReceivedRate());
+	grpc.setDecodedCount(api.getDecodedCount());
+	grpc.setDecodedRate(api.getDecodedRate());
+	grpc.setDecodeFailedCount(api.getDecodeFailedCount());
+	grpc.setDuplicateCount(api.getDuplicateCount());
+	if (api.getDecodeLatency() != null) {
+	    grpc.setDecodeLatency(asGrpcLatencySummary(api.getDecodeLatency()));
+	}
+	if (api.getDedupeLatency() != null) {
+	    grpc.setDedupeLatency(asGrpcLatencySummary(api.getDedupeLatency()));
+	}
+	return grpc.build();
+    }
+
+    /**
+     * Convert decoder metrics from GRPC to API.
+     *
+     * @param grpc
+     * @return
+     * @throws SiteWhereException
+     */
+    public static DecoderMetrics asApiDecoderMetrics(GDecoderMetrics grpc) throws SiteWhereException {
+	DecoderMetrics api = new DecoderMetrics();
+	api.setDecoder(grpc.getDecoder());
+	api.setSourceCount(grpc.getSourceCount());
+	api.setDecodedCount(grpc.getDecodedCount());
+	api.setDecodedRate(grpc.getDecodedRate());
+	api.setDecodeFailedCount(grpc.getDecodeFailedCount());
+	return api;
+    }
+
+    /**
+     * Convert decoder metrics from API to GRPC.
+     *
+     * @param api
+     * @return
+     * @throws SiteWhereException
+     */
+    public static GDecoderMetrics asGrpcDecoderMetrics(IDecoderMetrics api) throws SiteWhereException {
+	GDecoderMetrics.Builder grpc = GDecoderMetrics.newBuilder();
+	grpc.setDecoder(api.getDecoder());
+	grpc.setSourceCount(api.getSourceCount());
+	grpc.setDecodedCount(api.getDecodedCount());
+	grpc.setDecodedRate(api.getDecodedRate());
+	grpc.setDecodeFailedCount(api.getDecodeFailedCount());
+	return grpc.build();
+    }
+
+    /**
+     * Convert event sources metrics from GRPC to API.
+     *
+     * @param grpc
+     * @return
+     * @throws SiteWhereException
+     */
+    public static EventSourcesMetrics asApiEventSourcesMetrics(GEventSourcesMetrics grpc) throws SiteWhereException {
+	EventSourcesMetrics api = new EventSourcesMetrics();
+	for (GEventSourceMetrics source : grpc.getEventSourcesList()) {
+	    api.getEventSources().add(asApiEventSourceMetrics(source));
+	}
+	for (GDecoderMetrics decoder : grpc.getDecodersList()) {
+	    api.getDecoders().add(asApiDecoderMetrics(decoder));
+	}
+	api.setSentCount(grpc.getSentCount());
+	api.setSentRate(grpc.getSentRate());
+	api.setSendFailedCount(grpc.getSendFailedCount());
+	api.setSendLatency(grpc.hasSendLatency() ? asApiLatencySummary(grpc.getSendLatency()) : null);
+	return api;
+    }
+
+    /**
+     * Convert event sources metrics from API to GRPC.
+     *
+     * @param api
+     * @return
+     * @throws SiteWhereException
+     */
+    public static GEventSourcesMetrics asGrpcEventSourcesMetrics(IEventSourcesMetrics api) throws SiteWhereException {
+	GEventSourcesMetrics.Builder grpc = GEventSourcesMetrics.newBuilder();
+	for (IEventSourceMetrics source : api.getEventSources()) {
+	    grpc.addEventSources(asGrpcEventSourceMetrics(source));
+	}
+	for (IDecoderMetrics decoder : api.getDecoders()) {
+	    grpc.addDecoders(asGrpcDecoderMetrics(decoder));
+	}
+	grpc.setSentCount(api.getSentCount());
+	grpc.setSentRate(api.getSentRate());
+	grpc.setSendFailedCount(api.getSendFailedCount());
+	if (api.getSendLatency() != null) {
+	    grpc.setSendLatency(asGrpcLatencySummary(api.getSendLatency()));
+	}
+	return grpc.build();
+    }
+}
\ No newline at end of file
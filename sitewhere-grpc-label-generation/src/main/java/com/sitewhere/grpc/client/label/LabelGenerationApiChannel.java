@@ -7,6 +7,7 @@
  */
 package com.sitewhere.grpc.client.label;
 
+import java.util.List;
 import java.util.UUID;
 
 import org.apache.commons.logging.Log;
@@ -33,6 +34,8 @@ import com.sitewhere.grpc.service.GGetDeviceGroupLabelRequest;
 import com.sitewhere.grpc.service.GGetDeviceGroupLabelResponse;
 import com.sitewhere.grpc.service.GGetDeviceLabelRequest;
 import com.sitewhere.grpc.service.GGetDeviceLabelResponse;
+import com.sitewhere.grpc.service.GGetDeviceLabelSheetRequest;
+import com.sitewhere.grpc.service.GGetDeviceLabelSheetResponse;
 import com.sitewhere.grpc.service.GGetDeviceTypeLabelRequest;
 import com.sitewhere.grpc.service.GGetDeviceTypeLabelResponse;
 import com.sitewhere.grpc.service.LabelGenerationGrpc;
@@ -156,6 +159,31 @@ public class LabelGenerationApiChannel extends ApiChannel<LabelGenerationGrpcCha
 	}
     }
 
+    /*
+     * @see
+     * com.sitewhere.spi.label.ILabelGeneration#getDeviceLabelSheet(java.lang.
+     * String, java.util.List, int)
+     */
+    @Override
+    public ILabel getDeviceLabelSheet(String labelGeneratorId, List<UUID> deviceIds, int columns)
+	    throws SiteWhereException {
+	try {
+	    GrpcUtils.logClientMethodEntry(this, LabelGenerationGrpc.METHOD_GET_DEVICE_LABEL_SHEET);
+	    GGetDeviceLabelSheetRequest.Builder grequest = GGetDeviceLabelSheetRequest.newBuilder();
+	    grequest.setGeneratorId(labelGeneratorId);
+	    grequest.addAllDeviceIds(CommonModelConverter.asGrpcUuids(deviceIds));
+	    grequest.setColumns(columns);
+	    GGetDeviceLabelSheetResponse gresponse = getGrpcChannel().getBlockingStub()
+		    .getDeviceLabelSheet(grequest.build());
+	    ILabel response = (gresponse.hasLabel()) ? LabelGenerationModelConverter.asApiLabel(gresponse.getLabel())
+		    : null;
+	    GrpcUtils.logClientMethodResponse(LabelGenerationGrpc.METHOD_GET_DEVICE_LABEL_SHEET, response);
+	    return response;
+	} catch (Throwable t) {
+	    throw GrpcUtils.handleClientMethodException(LabelGenerationGrpc.METHOD_GET_DEVICE_LABEL_SHEET, t);
+	}
+    }
+
     /*
      * @see com.sitewhere.spi.label.ILabelGeneration#getDeviceGroupLabel(java.lang.
      * String, java.util.UUID)
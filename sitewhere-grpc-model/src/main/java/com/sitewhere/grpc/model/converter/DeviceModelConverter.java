@@ -1044,6 +1044,36 @@ public class DeviceModelConverter {
 	return grpc.build();
     }
 
+    /**
+     * Convert list of devices from GRPC to API.
+     * 
+     * @param grpcs
+     * @return
+     * @throws SiteWhereException
+     */
+    public static List<IDevice> asApiDevices(List<GDevice> grpcs) throws SiteWhereException {
+	List<IDevice> api = new ArrayList<IDevice>();
+	for (GDevice gdevice : grpcs) {
+	    api.add(DeviceModelConverter.asApiDevice(gdevice));
+	}
+	return api;
+    }
+
+    /**
+     * Convert list of devices from API to GRPC.
+     * 
+     * @param apis
+     * @return
+     * @throws SiteWhereException
+     */
+    public static List<GDevice> asGrpcDevices(List<IDevice> apis) throws SiteWhereException {
+	List<GDevice> grpcs = new ArrayList<GDevice>();
+	for (IDevice api : apis) {
+	    grpcs.add(DeviceModelConverter.asGrpcDevice(api));
+	}
+	return grpcs;
+    }
+
     /**
      * Convert device search criteria from GRPC to API.
      * 
@@ -1589,6 +1619,38 @@ public class DeviceModelConverter {
 	return grpc.build();
     }
 
+    /**
+     * Convert list of device assignments from GRPC to API.
+     * 
+     * @param grpcs
+     * @return
+     * @throws SiteWhereException
+     */
+    public static List<IDeviceAssignment> asApiDeviceAssignments(List<GDeviceAssignment> grpcs)
+	    throws SiteWhereException {
+	List<IDeviceAssignment> api = new ArrayList<IDeviceAssignment>();
+	for (GDeviceAssignment gassignment : grpcs) {
+	    api.add(DeviceModelConverter.asApiDeviceAssignment(gassignment));
+	}
+	return api;
+    }
+
+    /**
+     * Convert list of device assignments from API to GRPC.
+     * 
+     * @param apis
+     * @return
+     * @throws SiteWhereException
+     */
+    public static List<GDeviceAssignment> asGrpcDeviceAssignments(List<IDeviceAssignment> apis)
+	    throws SiteWhereException {
+	List<GDeviceAssignment> grpcs = new ArrayList<GDeviceAssignment>();
+	for (IDeviceAssignment api : apis) {
+	    grpcs.add(DeviceModelConverter.asGrpcDeviceAssignment(api));
+	}
+	return grpcs;
+    }
+
     /**
      * Convert a device stream create request from GRPC to API.
      * 
@@ -1516,6 +1516,7 @@ public class EventModelConverter {
 	DeviceStateChangeCreateRequest api = new DeviceStateChangeCreateRequest(
 		EventModelConverter.asApiStateChangeCategory(grpc.getCategory()),
 		EventModelConverter.asApiStateChangeType(grpc.getType()), grpc.getPreviousState(), grpc.getNewState());
+	api.getData().putAll(grpc.getDataMap());
 	EventModelConverter.copyApiDeviceEventCreateRequest(grpc.getEvent(), api);
 	return api;
     }
@@ -1534,6 +1535,9 @@ public class EventModelConverter {
 	grpc.setType(EventModelConverter.asGrpcStateChangeType(api.getType()));
 	grpc.setPreviousState(api.getPreviousState());
 	grpc.setNewState(api.getNewState());
+	if (api.getData() != null) {
+	    grpc.putAllData(api.getData());
+	}
 	grpc.setEvent(EventModelConverter.createGrpcDeviceEventCreateRequest(api));
 	return grpc.build();
     }
@@ -8,24 +8,39 @@
 package com.sitewhere.grpc.model.converter;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 
+import com.google.protobuf.ByteString;
+import com.sitewhere.common.MarshalUtils;
 import com.sitewhere.grpc.kafka.model.KafkaModel.GEnrichedEventPayload;
 import com.sitewhere.grpc.kafka.model.KafkaModel.GInboundEventPayload;
+import com.sitewhere.grpc.kafka.model.KafkaModel.GInboundEventPayloadBatch;
 import com.sitewhere.grpc.kafka.model.KafkaModel.GLifecycleStatus;
 import com.sitewhere.grpc.kafka.model.KafkaModel.GMicroserviceState;
 import com.sitewhere.grpc.kafka.model.KafkaModel.GPersistedEventPayload;
 import com.sitewhere.grpc.kafka.model.KafkaModel.GStateUpdate;
+import com.sitewhere.grpc.kafka.model.KafkaModel.GSystemCommandPayload;
 import com.sitewhere.grpc.kafka.model.KafkaModel.GTenantEngineState;
 import com.sitewhere.grpc.model.CommonModel.GOptionalString;
+import com.sitewhere.rest.model.device.command.DeviceMappingAckCommand;
+import com.sitewhere.rest.model.device.command.DeviceStreamAckCommand;
+import com.sitewhere.rest.model.device.command.RegistrationAckCommand;
+import com.sitewhere.rest.model.device.command.RegistrationFailureCommand;
+import com.sitewhere.rest.model.device.command.SendDeviceStreamDataCommand;
 import com.sitewhere.rest.model.microservice.kafka.payload.EnrichedEventPayload;
 import com.sitewhere.rest.model.microservice.kafka.payload.InboundEventPayload;
 import com.sitewhere.rest.model.microservice.kafka.payload.PersistedEventPayload;
+import com.sitewhere.rest.model.microservice.kafka.payload.SystemCommandPayload;
 import com.sitewhere.rest.model.microservice.state.MicroserviceState;
 import com.sitewhere.rest.model.microservice.state.TenantEngineState;
 import com.sitewhere.spi.SiteWhereException;
+import com.sitewhere.spi.device.command.ISystemCommand;
+import com.sitewhere.spi.device.command.SystemCommandType;
 import com.sitewhere.spi.microservice.kafka.payload.IEnrichedEventPayload;
 import com.sitewhere.spi.microservice.kafka.payload.IInboundEventPayload;
 import com.sitewhere.spi.microservice.kafka.payload.IPersistedEventPayload;
+import com.sitewhere.spi.microservice.kafka.payload.ISystemCommandPayload;
 import com.sitewhere.spi.microservice.state.IMicroserviceState;
 import com.sitewhere.spi.microservice.state.ITenantEngineState;
 import com.sitewhere.spi.server.lifecycle.LifecycleStatus;
@@ -71,6 +86,52 @@ public class KafkaModelConverter {
 	return grpc.build();
     }
 
+    /**
+     * Convert inbound event payloads for a single device from API to a GRPC
+     * batch. Source id and device token are taken from the first payload.
+     * 
+     * @param api
+     * @return
+     * @throws SiteWhereException
+     */
+    public static GInboundEventPayloadBatch asGrpcInboundEventPayloadBatch(List<IInboundEventPayload> api)
+	    throws SiteWhereException {
+	GInboundEventPayloadBatch.Builder grpc = GInboundEventPayloadBatch.newBuilder();
+	if (api.isEmpty()) {
+	    return grpc.build();
+	}
+	grpc.setSourceId(api.get(0).getSourceId());
+	grpc.setDeviceToken(api.get(0).getDeviceToken());
+	for (IInboundEventPayload payload : api) {
+	    if (!payload.getDeviceToken().equals(grpc.getDeviceToken())) {
+		throw new SiteWhereException("All payloads in a batch must be for the same device.");
+	    }
+	    GInboundEventPayload.Builder single = GInboundEventPayload.newBuilder();
+	    if (payload.getOriginator() != null) {
+		single.setOriginator(GOptionalString.newBuilder().setValue(payload.getOriginator()));
+	    }
+	    single.setEvent(EventModelConverter.asGrpcDeviceEventCreateRequest(payload.getEventCreateRequest()));
+	    grpc.addPayloads(single);
+	}
+	return grpc.build();
+    }
+
+    /**
+     * Get the individual payloads from a GRPC batch with source id and device
+     * token restored.
+     * 
+     * @param grpc
+     * @return
+     */
+    public static List<GInboundEventPayload> asGrpcInboundEventPayloads(GInboundEventPayloadBatch grpc) {
+	List<GInboundEventPayload> payloads = new ArrayList<GInboundEventPayload>(grpc.getPayloadsCount());
+	for (GInboundEventPayload payload : grpc.getPayloadsList()) {
+	    payloads.add(payload.toBuilder().setSourceId(grpc.getSourceId()).setDeviceToken(grpc.getDeviceToken())
+		    .build());
+	}
+	return payloads;
+    }
+
     /**
      * Convert persisted event payload from GRPC to API.
      * 
@@ -130,6 +191,61 @@ public class KafkaModelConverter {
 	return grpc.build();
     }
 
+    /**
+     * Convert system command payload from GRPC to API.
+     * 
+     * @param grpc
+     * @return
+     * @throws SiteWhereException
+     */
+    public static SystemCommandPayload asApiSystemCommandPayload(GSystemCommandPayload grpc)
+	    throws SiteWhereException {
+	SystemCommandPayload api = new SystemCommandPayload();
+	api.setDeviceToken(grpc.getDeviceToken());
+	byte[] json = grpc.getCommand().toByteArray();
+	SystemCommandType type;
+	try {
+	    type = SystemCommandType.valueOf(grpc.getType());
+	} catch (IllegalArgumentException e) {
+	    throw new SiteWhereException("Unknown system command type: " + grpc.getType());
+	}
+	switch (type) {
+	case RegistrationAck:
+	    api.setCommand(MarshalUtils.unmarshalJson(json, RegistrationAckCommand.class));
+	    break;
+	case RegistrationFailure:
+	    api.setCommand(MarshalUtils.unmarshalJson(json, RegistrationFailureCommand.class));
+	    break;
+	case DeviceStreamAck:
+	    api.setCommand(MarshalUtils.unmarshalJson(json, DeviceStreamAckCommand.class));
+	    break;
+	case SendDeviceStreamData:
+	    api.setCommand(MarshalUtils.unmarshalJson(json, SendDeviceStreamDataCommand.class));
+	    break;
+	case DeviceMappingAck:
+	    api.setCommand(MarshalUtils.unmarshalJson(json, DeviceMappingAckCommand.class));
+	    break;
+	}
+	return api;
+    }
+
+    /**
+     * Convert system command payload from API to GRPC.
+     * 
+     * @param api
+     * @return
+     * @throws SiteWhereException
+     */
+    public static GSystemCommandPayload asGrpcSystemCommandPayload(ISystemCommandPayload api)
+	    throws SiteWhereException {
+	ISystemCommand command = api.getCommand();
+	GSystemCommandPayload.Builder grpc = GSystemCommandPayload.newBuilder();
+	grpc.setDeviceToken(api.getDeviceToken());
+	grpc.setType(command.getType().name());
+	grpc.setCommand(ByteString.copyFrom(MarshalUtils.marshalJson(command)));
+	return grpc.build();
+    }
+
     /**
      * Convert lifecycle status from API to GRPC.
      * 
@@ -248,6 +364,9 @@ public class KafkaModelConverter {
 		api.getLifecycleErrorStack().add(error);
 	    }
 	}
+	if (grpc.getMetricsCount() > 0) {
+	    api.setMetrics(new HashMap<String, Double>(grpc.getMetricsMap()));
+	}
 	return api;
     }
 
@@ -268,6 +387,9 @@ public class KafkaModelConverter {
 		grpc.addError(error);
 	    }
 	}
+	if (api.getMetrics() != null) {
+	    grpc.putAllMetrics(api.getMetrics());
+	}
 	return grpc.build();
     }
 
@@ -10,15 +10,23 @@ package com.sitewhere.grpc.model.marshaler;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
 
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.sitewhere.grpc.kafka.model.KafkaModel.GEnrichedEventPayload;
+import com.sitewhere.grpc.kafka.model.KafkaModel.GFailedDecodePayload;
 import com.sitewhere.grpc.kafka.model.KafkaModel.GInboundEventPayload;
+import com.sitewhere.grpc.kafka.model.KafkaModel.GInboundEventPayloadBatch;
 import com.sitewhere.grpc.kafka.model.KafkaModel.GPersistedEventPayload;
 import com.sitewhere.grpc.kafka.model.KafkaModel.GStateUpdate;
+import com.sitewhere.grpc.kafka.model.KafkaModel.GSystemCommandPayload;
 import com.sitewhere.grpc.kafka.model.KafkaModel.GTenantModelUpdate;
 import com.sitewhere.grpc.kafka.model.KafkaModel.GTenantModelUpdateType;
 import com.sitewhere.grpc.model.converter.KafkaModelConverter;
@@ -37,6 +45,13 @@ public class KafkaModelMarshaler {
     /** Static logger instance */
     private static Log LOGGER = LogFactory.getLog(KafkaModelMarshaler.class);
 
+    /** Record header that identifies the type of payload in a message */
+    public static final String PAYLOAD_TYPE_HEADER = "sw-payload-type";
+
+    /** Payload type for a message that contains an inbound event payload batch */
+    private static final byte[] PAYLOAD_TYPE_INBOUND_EVENT_BATCH = "inbound-event-batch"
+	    .getBytes(StandardCharsets.UTF_8);
+
     /**
      * Build message that reflects a tenant model update.
      * 
@@ -122,6 +137,98 @@ public class KafkaModelMarshaler {
 	}
     }
 
+    /**
+     * Build binary message for GRPC inbound event payload batch.
+     * 
+     * @param grpc
+     * @return
+     * @throws SiteWhereException
+     */
+    public static byte[] buildInboundEventPayloadBatchMessage(GInboundEventPayloadBatch grpc)
+	    throws SiteWhereException {
+	ByteArrayOutputStream output = new ByteArrayOutputStream();
+	try {
+	    grpc.writeTo(output);
+	    return output.toByteArray();
+	} catch (IOException e) {
+	    throw new SiteWhereException("Unable to build inbound event payload batch message.", e);
+	} finally {
+	    closeQuietly(output);
+	}
+    }
+
+    /**
+     * Parse message that contains an inbound event payload batch.
+     * 
+     * @param payload
+     * @return
+     * @throws SiteWhereException
+     */
+    public static GInboundEventPayloadBatch parseInboundEventPayloadBatchMessage(byte[] payload)
+	    throws SiteWhereException {
+	try {
+	    return GInboundEventPayloadBatch.parseFrom(payload);
+	} catch (InvalidProtocolBufferException e) {
+	    throw new SiteWhereException("Unable to parse inbound event payload batch message.", e);
+	}
+    }
+
+    /**
+     * Build record headers that mark a message as an inbound event payload batch.
+     * 
+     * @return
+     */
+    public static Headers buildInboundEventPayloadBatchHeaders() {
+	return new RecordHeaders().add(PAYLOAD_TYPE_HEADER, PAYLOAD_TYPE_INBOUND_EVENT_BATCH);
+    }
+
+    /**
+     * Indicates whether a message on an inbound events topic contains a batch
+     * rather than a single payload based on its record headers. Messages without
+     * a payload type header contain a single payload.
+     * 
+     * @param headers
+     * @return
+     */
+    public static boolean isInboundEventPayloadBatchMessage(Headers headers) {
+	Header type = (headers != null) ? headers.lastHeader(PAYLOAD_TYPE_HEADER) : null;
+	return (type != null) && (Arrays.equals(PAYLOAD_TYPE_INBOUND_EVENT_BATCH, type.value()));
+    }
+
+    /**
+     * Build binary message for a payload that could not be decoded.
+     * 
+     * @param grpc
+     * @return
+     * @throws SiteWhereException
+     */
+    public static byte[] buildFailedDecodePayloadMessage(GFailedDecodePayload grpc) throws SiteWhereException {
+	ByteArrayOutputStream output = new ByteArrayOutputStream();
+	try {
+	    grpc.writeTo(output);
+	    return output.toByteArray();
+	} catch (IOException e) {
+	    throw new SiteWhereException("Unable to build failed decode payload message.", e);
+	} finally {
+	    closeQuietly(output);
+	}
+    }
+
+    /**
+     * Parse message that contains a payload that could not be decoded.
+     * 
+     * @param payload
+     * @return
+     * @throws SiteWhereException
+     */
+    public static GFailedDecodePayload parseFailedDecodePayloadMessage(byte[] payload) throws SiteWhereException {
+	try {
+	    return GFailedDecodePayload.parseFrom(payload);
+	} catch (InvalidProtocolBufferException e) {
+	    throw new SiteWhereException("Unable to parse failed decode payload message.", e);
+	}
+    }
+
     /**
      * Build binary message for GRPC persisted event payload.
      * 
@@ -190,6 +297,40 @@ public class KafkaModelMarshaler {
 	}
     }
 
+    /**
+     * Build binary message for GRPC system command payload.
+     * 
+     * @param grpc
+     * @return
+     * @throws SiteWhereException
+     */
+    public static byte[] buildSystemCommandPayloadMessage(GSystemCommandPayload grpc) throws SiteWhereException {
+	ByteArrayOutputStream output = new ByteArrayOutputStream();
+	try {
+	    grpc.writeTo(output);
+	    return output.toByteArray();
+	} catch (IOException e) {
+	    throw new SiteWhereException("Unable to build system command payload message.", e);
+	} finally {
+	    closeQuietly(output);
+	}
+    }
+
+    /**
+     * Parse message that contains a system command payload.
+     * 
+     * @param payload
+     * @return
+     * @throws SiteWhereException
+     */
+    public static GSystemCommandPayload parseSystemCommandPayloadMessage(byte[] payload) throws SiteWhereException {
+	try {
+	    return GSystemCommandPayload.parseFrom(payload);
+	} catch (InvalidProtocolBufferException e) {
+	    throw new SiteWhereException("Unable to parse system command payload message.", e);
+	}
+    }
+
     /**
      * Build binary message for GRPC state update.
      * 
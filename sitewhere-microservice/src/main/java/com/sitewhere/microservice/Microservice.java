@@ -13,6 +13,7 @@ import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,6 +22,7 @@ import com.sitewhere.Version;
 import com.sitewhere.microservice.management.MicroserviceManagementGrpcServer;
 import com.sitewhere.microservice.state.MicroserviceStateUpdatesKafkaProducer;
 import com.sitewhere.microservice.state.TopologyStateAggregator;
+import com.sitewhere.microservice.zookeeper.ZkUtils;
 import com.sitewhere.rest.model.configuration.ConfigurationModel;
 import com.sitewhere.rest.model.microservice.state.MicroserviceDetails;
 import com.sitewhere.rest.model.microservice.state.MicroserviceState;
@@ -71,6 +73,9 @@ public abstract class Microservice extends LifecycleComponent implements IMicros
     /** Heartbeat interval in seconds */
     private static final int HEARTBEAT_INTERVAL_SECS = 20;
 
+    /** Interval at which to log while waiting for instance bootstrap */
+    private static final int INSTANCE_BOOTSTRAP_LOG_INTERVAL_SECS = 10;
+
     /** Instance settings */
     @Autowired
     private IInstanceSettings instanceSettings;
@@ -254,12 +259,9 @@ public abstract class Microservice extends LifecycleComponent implements IMicros
 	try {
 	    span = getTracer().buildSpan("Wait for instance to be bootstrapped").startActive();
 	    getLogger().info("Verifying that instance has been bootstrapped...");
-	    while (true) {
-		if (getZookeeperManager().getCurator().checkExists().forPath(getInstanceBootstrappedMarker()) != null) {
-		    break;
-		}
+	    while (!ZkUtils.waitForPath(getZookeeperManager().getCurator(), getInstanceBootstrappedMarker(),
+		    INSTANCE_BOOTSTRAP_LOG_INTERVAL_SECS, TimeUnit.SECONDS)) {
 		getLogger().info("Bootstrap marker not found at '" + getInstanceBootstrappedMarker() + "'. Waiting...");
-		Thread.sleep(1000);
 	    }
 	    getLogger().info("Confirmed that instance was bootstrapped.");
 	} catch (Exception e) {
@@ -72,7 +72,10 @@ public abstract class ConfigurableMicroservice extends Microservice
     private IScriptManagement scriptManagement;
 
     /** Configuration state */
-    private ConfigurationState configurationState = ConfigurationState.NotStarted;
+    private volatile ConfigurationState configurationState = ConfigurationState.NotStarted;
+
+    /** Used to signal threads waiting on configuration state changes */
+    private final Object configurationStateLock = new Object();
 
     /** Indicates if configuration cache is ready to use */
     private boolean configurationCacheReady = false;
@@ -432,18 +435,21 @@ public abstract class ConfigurableMicroservice extends Microservice
     @Override
     public void waitForConfigurationReady() throws SiteWhereException {
 	getLogger().info("Waiting for configuration to be loaded...");
-	while (true) {
-	    if (getConfigurationState() == ConfigurationState.Failed) {
-		throw new SiteWhereException("Microservice configuration failed.");
-	    }
-	    if (getConfigurationState() == ConfigurationState.Succeeded) {
-		getLogger().info("Configuration loaded successfully.");
-		return;
-	    }
-	    try {
-		Thread.sleep(1000);
-	    } catch (InterruptedException e) {
-		return;
+	synchronized (configurationStateLock) {
+	    while (true) {
+		if (getConfigurationState() == ConfigurationState.Failed) {
+		    throw new SiteWhereException("Microservice configuration failed.");
+		}
+		if (getConfigurationState() == ConfigurationState.Succeeded) {
+		    getLogger().info("Configuration loaded successfully.");
+		    return;
+		}
+		try {
+		    configurationStateLock.wait();
+		} catch (InterruptedException e) {
+		    Thread.currentThread().interrupt();
+		    return;
+		}
 	    }
 	}
     }
@@ -487,7 +493,10 @@ public abstract class ConfigurableMicroservice extends Microservice
     }
 
     protected void setConfigurationState(ConfigurationState configurationState) {
-	this.configurationState = configurationState;
+	synchronized (configurationStateLock) {
+	    this.configurationState = configurationState;
+	    configurationStateLock.notifyAll();
+	}
     }
 
     /*
@@ -7,6 +7,7 @@
  */
 package com.sitewhere.microservice.hazelcast.cache;
 
+import java.util.List;
 import java.util.UUID;
 
 import com.sitewhere.asset.AssetManagementDecorator;
@@ -94,6 +95,24 @@ public class CacheAwareAssetManagement extends AssetManagementDecorator {
 	return result;
     }
 
+    /*
+     * @see
+     * com.sitewhere.asset.AssetManagementDecorator#getAssetsByIds(java.util.List)
+     */
+    @Override
+    public List<IAsset> getAssetsByIds(List<UUID> assetIds) throws SiteWhereException {
+	ITenant tenant = UserContextManager.getCurrentTenant(true);
+	List<IAsset> results = super.getAssetsByIds(assetIds);
+	for (IAsset result : results) {
+	    if (getAssetByIdCache().getCacheEntry(tenant, result.getId()) == null) {
+		getAssetCache().setCacheEntry(tenant, result.getToken(), result);
+		getAssetByIdCache().setCacheEntry(tenant, result.getId(), result);
+		CacheUtils.logCacheUpdated(result);
+	    }
+	}
+	return results;
+    }
+
     /*
      * @see com.sitewhere.asset.AssetManagementDecorator#getAssetByToken(java.lang.
      * String)
@@ -7,6 +7,7 @@
  */
 package com.sitewhere.microservice.hazelcast.cache;
 
+import java.util.List;
 import java.util.UUID;
 
 import com.sitewhere.device.DeviceManagementDecorator;
@@ -21,7 +22,9 @@ import com.sitewhere.spi.device.IDevice;
 import com.sitewhere.spi.device.IDeviceAssignment;
 import com.sitewhere.spi.device.IDeviceManagement;
 import com.sitewhere.spi.device.IDeviceType;
+import com.sitewhere.spi.device.command.IDeviceCommand;
 import com.sitewhere.spi.device.request.IDeviceAssignmentCreateRequest;
+import com.sitewhere.spi.device.request.IDeviceCommandCreateRequest;
 import com.sitewhere.spi.device.request.IDeviceCreateRequest;
 import com.sitewhere.spi.device.request.IDeviceTypeCreateRequest;
 import com.sitewhere.spi.microservice.IMicroservice;
@@ -46,6 +49,9 @@ public class CacheAwareDeviceManagement extends DeviceManagementDecorator {
     /** Device type by id cache */
     private ICacheProvider<UUID, IDeviceType> deviceTypeByIdCache;
 
+    /** Device command cache */
+    private ICacheProvider<String, IDeviceCommand> deviceCommandCache;
+
     /** Device cache */
     private ICacheProvider<String, IDevice> deviceCache;
 
@@ -64,6 +70,7 @@ public class CacheAwareDeviceManagement extends DeviceManagementDecorator {
 	this.areaByIdCache = new DeviceManagementCacheProviders.AreaByIdCache(microservice, true);
 	this.deviceTypeCache = new DeviceManagementCacheProviders.DeviceTypeCache(microservice, true);
 	this.deviceTypeByIdCache = new DeviceManagementCacheProviders.DeviceTypeByIdCache(microservice, true);
+	this.deviceCommandCache = new DeviceManagementCacheProviders.DeviceCommandCache(microservice, true);
 	this.deviceCache = new DeviceManagementCacheProviders.DeviceCache(microservice, true);
 	this.deviceByIdCache = new DeviceManagementCacheProviders.DeviceByIdCache(microservice, true);
 	this.deviceAssignmentCache = new DeviceManagementCacheProviders.DeviceAssignmentCache(microservice, true);
@@ -117,6 +124,24 @@ public class CacheAwareDeviceManagement extends DeviceManagementDecorator {
 	return result;
     }
 
+    /*
+     * @see
+     * com.sitewhere.device.DeviceManagementDecorator#getAreas(java.util.List)
+     */
+    @Override
+    public List<IArea> getAreas(List<UUID> ids) throws SiteWhereException {
+	ITenant tenant = UserContextManager.getCurrentTenant(true);
+	List<IArea> results = super.getAreas(ids);
+	for (IArea result : results) {
+	    if (getAreaByIdCache().getCacheEntry(tenant, result.getId()) == null) {
+		getAreaCache().setCacheEntry(tenant, result.getToken(), result);
+		getAreaByIdCache().setCacheEntry(tenant, result.getId(), result);
+		CacheUtils.logCacheUpdated(result);
+	    }
+	}
+	return results;
+    }
+
     /*
      * @see
      * com.sitewhere.device.DeviceManagementDecorator#updateArea(java.util.UUID,
@@ -162,6 +187,40 @@ public class CacheAwareDeviceManagement extends DeviceManagementDecorator {
 	return result;
     }
 
+    /*
+     * @see
+     * com.sitewhere.device.DeviceManagementDecorator#createDevices(java.util.List)
+     */
+    @Override
+    public List<IDevice> createDevices(List<IDeviceCreateRequest> devices) throws SiteWhereException {
+	ITenant tenant = UserContextManager.getCurrentTenant(true);
+	List<IDevice> results = super.createDevices(devices);
+	for (IDevice result : results) {
+	    getDeviceCache().setCacheEntry(tenant, result.getToken(), result);
+	    getDeviceByIdCache().setCacheEntry(tenant, result.getId(), result);
+	}
+	return results;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.device.DeviceManagementDecorator#createDeviceWithAssignment(
+     * com.sitewhere.spi.device.request.IDeviceCreateRequest,
+     * com.sitewhere.spi.device.request.IDeviceAssignmentCreateRequest)
+     */
+    @Override
+    public IDeviceAssignment createDeviceWithAssignment(IDeviceCreateRequest device,
+	    IDeviceAssignmentCreateRequest assignment) throws SiteWhereException {
+	ITenant tenant = UserContextManager.getCurrentTenant(true);
+	IDeviceAssignment result = super.createDeviceWithAssignment(device, assignment);
+	getDeviceAssignmentCache().setCacheEntry(tenant, result.getToken(), result);
+	getDeviceAssignmentByIdCache().setCacheEntry(tenant, result.getId(), result);
+	getDeviceCache().removeCacheEntry(tenant, device.getToken());
+	getDeviceByIdCache().removeCacheEntry(tenant, result.getDeviceId());
+	CacheUtils.logCacheUpdated(result);
+	return result;
+    }
+
     /*
      * @see
      * com.sitewhere.device.DeviceManagementDecorator#getDeviceByToken(java.lang.
@@ -179,6 +238,25 @@ public class CacheAwareDeviceManagement extends DeviceManagementDecorator {
 	return result;
     }
 
+    /*
+     * @see
+     * com.sitewhere.device.DeviceManagementDecorator#getDevicesByToken(java.util.
+     * List)
+     */
+    @Override
+    public List<IDevice> getDevicesByToken(List<String> tokens) throws SiteWhereException {
+	ITenant tenant = UserContextManager.getCurrentTenant(true);
+	List<IDevice> results = super.getDevicesByToken(tokens);
+	for (IDevice result : results) {
+	    if (getDeviceCache().getCacheEntry(tenant, result.getToken()) == null) {
+		getDeviceCache().setCacheEntry(tenant, result.getToken(), result);
+		getDeviceByIdCache().setCacheEntry(tenant, result.getId(), result);
+		CacheUtils.logCacheUpdated(result);
+	    }
+	}
+	return results;
+    }
+
     /*
      * @see com.sitewhere.device.DeviceManagementDecorator#getDevice(java.util.UUID)
      */
@@ -399,6 +477,70 @@ public class CacheAwareDeviceManagement extends DeviceManagementDecorator {
 	return result;
     }
 
+    /*
+     * @see
+     * com.sitewhere.device.DeviceManagementDecorator#createDeviceCommand(java.util.
+     * UUID, com.sitewhere.spi.device.request.IDeviceCommandCreateRequest)
+     */
+    @Override
+    public IDeviceCommand createDeviceCommand(UUID deviceTypeId, IDeviceCommandCreateRequest request)
+	    throws SiteWhereException {
+	ITenant tenant = UserContextManager.getCurrentTenant(true);
+	IDeviceCommand result = super.createDeviceCommand(deviceTypeId, request);
+	getDeviceCommandCache().setCacheEntry(tenant, result.getToken(), result);
+	CacheUtils.logCacheUpdated(result);
+	return result;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.device.DeviceManagementDecorator#getDeviceCommandByToken(java.
+     * lang.String)
+     */
+    @Override
+    public IDeviceCommand getDeviceCommandByToken(String token) throws SiteWhereException {
+	ITenant tenant = UserContextManager.getCurrentTenant(true);
+	IDeviceCommand result = super.getDeviceCommandByToken(token);
+	if ((result != null) && (getDeviceCommandCache().getCacheEntry(tenant, token) == null)) {
+	    getDeviceCommandCache().setCacheEntry(tenant, result.getToken(), result);
+	    CacheUtils.logCacheUpdated(result);
+	}
+	return result;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.device.DeviceManagementDecorator#updateDeviceCommand(java.util.
+     * UUID, com.sitewhere.spi.device.request.IDeviceCommandCreateRequest)
+     */
+    @Override
+    public IDeviceCommand updateDeviceCommand(UUID id, IDeviceCommandCreateRequest request)
+	    throws SiteWhereException {
+	ITenant tenant = UserContextManager.getCurrentTenant(true);
+	IDeviceCommand existing = super.getDeviceCommand(id);
+	IDeviceCommand result = super.updateDeviceCommand(id, request);
+	if ((existing != null) && (!existing.getToken().equals(result.getToken()))) {
+	    getDeviceCommandCache().removeCacheEntry(tenant, existing.getToken());
+	}
+	getDeviceCommandCache().setCacheEntry(tenant, result.getToken(), result);
+	CacheUtils.logCacheUpdated(result);
+	return result;
+    }
+
+    /*
+     * @see
+     * com.sitewhere.device.DeviceManagementDecorator#deleteDeviceCommand(java.util.
+     * UUID, boolean)
+     */
+    @Override
+    public IDeviceCommand deleteDeviceCommand(UUID id, boolean force) throws SiteWhereException {
+	ITenant tenant = UserContextManager.getCurrentTenant(true);
+	IDeviceCommand result = super.deleteDeviceCommand(id, force);
+	getDeviceCommandCache().removeCacheEntry(tenant, result.getToken());
+	CacheUtils.logCacheRemoved(result.getToken());
+	return result;
+    }
+
     public ICacheProvider<String, IArea> getAreaCache() {
 	return areaCache;
     }
@@ -431,6 +573,14 @@ public class CacheAwareDeviceManagement extends DeviceManagementDecorator {
 	this.deviceTypeByIdCache = deviceTypeByIdCache;
     }
 
+    public ICacheProvider<String, IDeviceCommand> getDeviceCommandCache() {
+	return deviceCommandCache;
+    }
+
+    public void setDeviceCommandCache(ICacheProvider<String, IDeviceCommand> deviceCommandCache) {
+	this.deviceCommandCache = deviceCommandCache;
+    }
+
     protected ICacheProvider<String, IDevice> getDeviceCache() {
 	return deviceCache;
     }
@@ -54,6 +54,10 @@ public class InstanceSettings implements IInstanceSettings {
     @Value("${sitewhere.tracer.server:jaeger}")
     private String tracerServer;
 
+    /** Maximum number of tenant engine operations executed concurrently */
+    @Value("${sitewhere.tenant.operations.parallelism:5}")
+    private int tenantOperationsParallelism;
+
     /*
      * (non-Javadoc)
      * 
@@ -185,4 +189,17 @@ public class InstanceSettings implements IInstanceSettings {
     public void setTracerServer(String tracerServer) {
 	this.tracerServer = tracerServer;
     }
+
+    /*
+     * @see com.sitewhere.spi.microservice.instance.IInstanceSettings#
+     * getTenantOperationsParallelism()
+     */
+    @Override
+    public int getTenantOperationsParallelism() {
+	return tenantOperationsParallelism;
+    }
+
+    public void setTenantOperationsParallelism(int tenantOperationsParallelism) {
+	this.tenantOperationsParallelism = tenantOperationsParallelism;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.microservice.kafka;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.kafka.clients.producer.RecordMetadata;
+
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Tracks the Kafka messages sent while processing a batch of inbound messages
+ * so that a receiver only acknowledges the batch to its broker once everything
+ * produced from it has been delivered. A receiver binds its tracker to the
+ * current thread while it processes a message and
+ * {@link MicroserviceKafkaProducer} registers every send made on that thread
+ * with the bound tracker. Each receiver owns its own tracker, so a failed send
+ * only affects the batch it belongs to.
+ *
+ * @author Derek
+ */
+public class KafkaDeliveryTracker {
+
+    /** Tracker bound to the current thread */
+    private static final ThreadLocal<KafkaDeliveryTracker> CURRENT = new ThreadLocal<KafkaDeliveryTracker>();
+
+    /** Results of sends in the current batch */
+    private List<Future<RecordMetadata>> results = new ArrayList<Future<RecordMetadata>>();
+
+    /** Producers that sent messages in the current batch */
+    private Set<MicroserviceKafkaProducer> producers = new LinkedHashSet<MicroserviceKafkaProducer>();
+
+    /** Number of sends that failed before returning a result */
+    private int failed;
+
+    /** First error reported for the current batch */
+    private Throwable firstError;
+
+    /**
+     * Get tracker bound to the current thread or null if none is bound.
+     *
+     * @return
+     */
+    public static KafkaDeliveryTracker getCurrent() {
+	return CURRENT.get();
+    }
+
+    /**
+     * Register a failure with the tracker bound to the current thread, if any,
+     * so that the inbound message is not acknowledged.
+     *
+     * @param t
+     */
+    public static void failCurrent(Throwable t) {
+	KafkaDeliveryTracker current = getCurrent();
+	if (current != null) {
+	    current.fail(t);
+	}
+    }
+
+    /**
+     * Bind tracker to the current thread so that sends are registered with it.
+     */
+    public void bind() {
+	CURRENT.set(this);
+    }
+
+    /**
+     * Unbind tracker from the current thread.
+     */
+    public void unbind() {
+	if (CURRENT.get() == this) {
+	    CURRENT.remove();
+	}
+    }
+
+    /**
+     * Register the result of a message sent by a producer.
+     *
+     * @param producer
+     * @param result
+     */
+    public synchronized void track(MicroserviceKafkaProducer producer, Future<RecordMetadata> result) {
+	producers.add(producer);
+	results.add(result);
+    }
+
+    /**
+     * Register a send that failed before a result was available.
+     *
+     * @param t
+     */
+    public synchronized void fail(Throwable t) {
+	recordFailure(t);
+    }
+
+    /**
+     * Block until every message in the current batch has completed and start a
+     * new batch. Throws an exception if any message in the batch could not be
+     * delivered, including messages that failed before this call.
+     *
+     * @throws SiteWhereException
+     */
+    public synchronized void await() throws SiteWhereException {
+	try {
+	    for (MicroserviceKafkaProducer producer : producers) {
+		producer.flush();
+	    }
+	    for (Future<RecordMetadata> result : results) {
+		try {
+		    result.get();
+		} catch (ExecutionException e) {
+		    recordFailure(e.getCause());
+		}
+	    }
+	    if (failed > 0) {
+		throw new SiteWhereException("Unable to deliver " + failed + " Kafka message(s).", firstError);
+	    }
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new SiteWhereException("Interrupted while waiting for Kafka delivery.", e);
+	} finally {
+	    reset();
+	}
+    }
+
+    /**
+     * Discard results for the current batch.
+     */
+    public synchronized void reset() {
+	results.clear();
+	producers.clear();
+	failed = 0;
+	firstError = null;
+    }
+
+    /**
+     * Get number of sends registered in the current batch.
+     *
+     * @return
+     */
+    public synchronized int getTrackedCount() {
+	return results.size() + failed;
+    }
+
+    /**
+     * Count a failed send, keeping the first error as the cause.
+     *
+     * @param t
+     */
+    protected void recordFailure(Throwable t) {
+	failed++;
+	if (firstError == null) {
+	    firstError = t;
+	}
+    }
+}
\ No newline at end of file
@@ -62,6 +62,9 @@ public class KafkaTopicNaming implements IKafkaTopicNaming {
     /** Topic suffix for persisted and enriched command invocations */
     protected static final String TENANT_TOPIC_INBOUND_ENRICHED_COMMAND_INVOCATIONS = "inbound-enriched-command-invocations";
 
+    /** Topic suffix for system commands to be delivered to devices */
+    protected static final String TENANT_TOPIC_OUTBOUND_SYSTEM_COMMANDS = "outbound-system-commands";
+
     @Autowired
     private IInstanceSettings instanceSettings;
 
@@ -185,6 +188,15 @@ public class KafkaTopicNaming implements IKafkaTopicNaming {
 	return getTenantPrefix(tenant) + TENANT_TOPIC_INBOUND_ENRICHED_COMMAND_INVOCATIONS;
     }
 
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IKafkaTopicNaming#
+     * getOutboundSystemCommandsTopic(com.sitewhere.spi.tenant.ITenant)
+     */
+    @Override
+    public String getOutboundSystemCommandsTopic(ITenant tenant) {
+	return getTenantPrefix(tenant) + TENANT_TOPIC_OUTBOUND_SYSTEM_COMMANDS;
+    }
+
     protected IInstanceSettings getInstanceSettings() {
 	return instanceSettings;
     }
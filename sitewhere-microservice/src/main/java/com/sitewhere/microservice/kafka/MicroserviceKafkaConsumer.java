@@ -9,6 +9,7 @@ package com.sitewhere.microservice.kafka;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -109,6 +110,41 @@ public abstract class MicroserviceKafkaConsumer extends TenantEngineLifecycleCom
 	return config;
     }
 
+    /**
+     * Subscribe to the source topics. Subclasses that read partitions directly
+     * rather than through consumer group management may override this.
+     * 
+     * @throws SiteWhereException
+     */
+    protected void subscribe() throws SiteWhereException {
+	getConsumer().subscribe(getSourceTopicNames());
+    }
+
+    /**
+     * Handle a record read from a source topic. Passes the key and message to
+     * {@link #received(String, byte[])}. Subclasses that need record headers
+     * may override this instead.
+     * 
+     * @param record
+     * @throws SiteWhereException
+     */
+    protected void received(ConsumerRecord<String, byte[]> record) throws SiteWhereException {
+	received(record.key(), record.value());
+    }
+
+    /**
+     * Commit offsets for records that have been processed. Called on the consumer
+     * thread after each batch of records for a partition. Subclasses that keep
+     * processed records in memory may hold offsets back until that state has been
+     * saved.
+     * 
+     * @param offsets
+     * @throws SiteWhereException
+     */
+    protected void commitOffsets(Map<TopicPartition, OffsetAndMetadata> offsets) throws SiteWhereException {
+	getConsumer().commitSync(offsets);
+    }
+
     /*
      * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaConsumer#
      * getMicroservice()
@@ -149,18 +185,18 @@ public abstract class MicroserviceKafkaConsumer extends TenantEngineLifecycleCom
 	@Override
 	public void run() {
 	    try {
-		getConsumer().subscribe(getSourceTopicNames());
+		subscribe();
 		while (true) {
 		    ConsumerRecords<String, byte[]> records = consumer.poll(Long.MAX_VALUE);
 
 		    for (TopicPartition topicPartition : records.partitions()) {
 			List<ConsumerRecord<String, byte[]>> topicRecords = records.records(topicPartition);
 			for (ConsumerRecord<String, byte[]> record : topicRecords) {
-			    received(record.key(), record.value());
+			    received(record);
 			}
 
 			long lastPartitionOffset = topicRecords.get(topicRecords.size() - 1).offset();
-			getConsumer().commitSync(Collections.singletonMap(topicPartition,
+			commitOffsets(Collections.singletonMap(topicPartition,
 				new OffsetAndMetadata(lastPartitionOffset + 1)));
 		    }
 		}
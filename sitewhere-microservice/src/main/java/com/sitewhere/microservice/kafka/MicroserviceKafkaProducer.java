@@ -8,14 +8,18 @@
 package com.sitewhere.microservice.kafka;
 
 import java.util.Properties;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 
@@ -38,17 +42,21 @@ public abstract class MicroserviceKafkaProducer extends TenantEngineLifecycleCom
     /** Static logger instance for callback */
     private static Log CALLBACK_LOGGER = LogFactory.getLog(MicroserviceApplication.class);
 
+    /** Number of messages that could not be delivered */
+    private AtomicLong failedSendCount = new AtomicLong();
+
     /** Create single callback */
-    private static Callback CALLBACK = new Callback() {
+    private Callback callback = new Callback() {
 	public void onCompletion(RecordMetadata metadata, Exception e) {
 	    if (e != null) {
+		failedSendCount.incrementAndGet();
 		CALLBACK_LOGGER.error("Unable to complete delivery of Kafka message.", e);
 	    }
 	}
     };
 
     /** Producer */
-    private KafkaProducer<String, byte[]> producer;
+    private Producer<String, byte[]> producer;
 
     /** Microservice */
     private IMicroservice microservice;
@@ -95,8 +103,39 @@ public abstract class MicroserviceKafkaProducer extends TenantEngineLifecycleCom
      */
     @Override
     public void send(String key, byte[] message) throws SiteWhereException {
-	ProducerRecord<String, byte[]> record = new ProducerRecord<String, byte[]>(getTargetTopicName(), key, message);
-	getProducer().send(record, CALLBACK);
+	send(key, message, null);
+    }
+
+    /*
+     * @see
+     * com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaProducer#send(java.
+     * lang.String, byte[], org.apache.kafka.common.header.Headers)
+     */
+    @Override
+    public void send(String key, byte[] message, Headers headers) throws SiteWhereException {
+	ProducerRecord<String, byte[]> record = new ProducerRecord<String, byte[]>(getTargetTopicName(), null, key,
+		message, headers);
+	KafkaDeliveryTracker tracker = KafkaDeliveryTracker.getCurrent();
+	try {
+	    Future<RecordMetadata> result = getProducer().send(record, callback);
+	    if (tracker != null) {
+		tracker.track(this, result);
+	    }
+	} catch (RuntimeException e) {
+	    failedSendCount.incrementAndGet();
+	    if (tracker != null) {
+		tracker.fail(e);
+	    }
+	    throw e;
+	}
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaProducer#flush()
+     */
+    @Override
+    public void flush() throws SiteWhereException {
+	getProducer().flush();
     }
 
     /**
@@ -127,11 +166,15 @@ public abstract class MicroserviceKafkaProducer extends TenantEngineLifecycleCom
 	this.microservice = microservice;
     }
 
-    public KafkaProducer<String, byte[]> getProducer() {
+    public long getFailedSendCount() {
+	return failedSendCount.get();
+    }
+
+    public Producer<String, byte[]> getProducer() {
 	return producer;
     }
 
-    public void setProducer(KafkaProducer<String, byte[]> producer) {
+    public void setProducer(Producer<String, byte[]> producer) {
 	this.producer = producer;
     }
 }
\ No newline at end of file
@@ -8,8 +8,10 @@
 package com.sitewhere.microservice.multitenant;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.curator.framework.CuratorFramework;
@@ -20,6 +22,7 @@ import com.sitewhere.configuration.ConfigurationUtils;
 import com.sitewhere.microservice.groovy.GroovyConfiguration;
 import com.sitewhere.microservice.scripting.TenantEngineScriptManager;
 import com.sitewhere.microservice.scripting.TenantEngineScriptSynchronizer;
+import com.sitewhere.microservice.zookeeper.ZkUtils;
 import com.sitewhere.rest.model.microservice.state.TenantEngineState;
 import com.sitewhere.rest.model.tenant.TenantTemplate;
 import com.sitewhere.server.lifecycle.CompositeLifecycleStep;
@@ -358,9 +361,21 @@ public abstract class MicroserviceTenantEngine extends TenantEngineLifecycleComp
 	state.setLifecycleStatus(getLifecycleStatus());
 	state.setLifecycleErrorStack(getLifecycleError() != null ? parseErrors(getLifecycleError()) : null);
 	state.setTenantToken(getTenant().getToken());
+	state.setMetrics(getCurrentMetrics());
 	return state;
     }
 
+    /**
+     * Get runtime metrics included in the published tenant engine state. Tenant
+     * engines that report metrics override this method.
+     * 
+     * @return
+     * @throws SiteWhereException
+     */
+    protected Map<String, Double> getCurrentMetrics() throws SiteWhereException {
+	return null;
+    }
+
     protected List<String> parseErrors(SiteWhereException e) {
 	List<String> errors = new ArrayList<>();
 	Throwable current = e;
@@ -479,24 +494,44 @@ public abstract class MicroserviceTenantEngine extends TenantEngineLifecycleComp
      */
     @Override
     public void waitForModuleBootstrapped(String identifier, long time, TimeUnit unit) throws SiteWhereException {
-	String bspath = getMicroservice().getInstanceTenantStatePath(getTenant().getId()) + "/" + identifier + "/"
-		+ MicroserviceTenantEngine.MODULE_BOOTSTRAPPED_NAME;
 	CuratorFramework curator = getMicroservice().getZookeeperManager().getCurator();
-	long deadline = System.currentTimeMillis() + unit.toMillis(time);
-	while ((deadline - System.currentTimeMillis()) > 0) {
-	    try {
-		if (curator.checkExists().forPath(bspath) != null) {
-		    return;
-		}
-		getLogger().info("Waiting for '" + identifier + "' to be bootstrapped before continuing...");
-		Thread.sleep(3000);
-	    } catch (InterruptedException e) {
-		throw new SiteWhereException("Interrupted while waiting for module to be bootstrapped.", e);
-	    } catch (Exception e) {
-		throw new SiteWhereException("Error checking for module bootstrapped.", e);
-	    }
+	getLogger().info("Waiting for '" + identifier + "' to be bootstrapped before continuing...");
+	if (!ZkUtils.waitForPath(curator, getModuleBootstrappedPath(identifier), time, unit)) {
+	    throw new SiteWhereException("Time limit exceeded for '" + identifier + "' to bootstrap.");
 	}
-	throw new SiteWhereException("Time limit exceeded for '" + identifier + "' to bootstrap.");
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine#
+     * watchForModuleBootstrapped(java.lang.String, long,
+     * java.util.concurrent.TimeUnit)
+     */
+    @Override
+    public CompletableFuture<Void> watchForModuleBootstrapped(String identifier, long time, TimeUnit unit)
+	    throws SiteWhereException {
+	CuratorFramework curator = getMicroservice().getZookeeperManager().getCurator();
+	return ZkUtils.watchForPath(curator, getModuleBootstrappedPath(identifier), time, unit);
+    }
+
+    /*
+     * @see com.sitewhere.spi.microservice.multitenant.IMicroserviceTenantEngine#
+     * getModuleBootstrapDependencies()
+     */
+    @Override
+    public List<String> getModuleBootstrapDependencies() {
+	return Collections.emptyList();
+    }
+
+    /**
+     * Get path of bootstrapped indicator for another module in the same tenant.
+     * 
+     * @param identifier
+     * @return
+     * @throws SiteWhereException
+     */
+    protected String getModuleBootstrappedPath(String identifier) throws SiteWhereException {
+	return getMicroservice().getInstanceTenantStatePath(getTenant().getId()) + "/" + identifier + "/"
+		+ MicroserviceTenantEngine.MODULE_BOOTSTRAPPED_NAME;
     }
 
     /*
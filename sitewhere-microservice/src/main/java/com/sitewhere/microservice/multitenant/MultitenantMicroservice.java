@@ -51,9 +51,6 @@ import com.sitewhere.spi.tenant.ITenant;
 public abstract class MultitenantMicroservice<T extends IMicroserviceTenantEngine> extends ConfigurableMicroservice
 	implements IMultitenantMicroservice<T> {
 
-    /** Max number of tenants being added/removed concurrently */
-    private static final int MAX_CONCURRENT_TENANT_OPERATIONS = 5;
-
     /** Tenant management API demux */
     private ITenantManagementApiDemux tenantManagementApiDemux;
 
@@ -72,6 +69,9 @@ public abstract class MultitenantMicroservice<T extends IMicroserviceTenantEngin
     /** Executor for tenant operations */
     private ExecutorService tenantOperations;
 
+    /** Executor that feeds queued tenants to tenant operations */
+    private ExecutorService tenantEngineStarter;
+
     /*
      * (non-Javadoc)
      * 
@@ -86,9 +86,11 @@ public abstract class MultitenantMicroservice<T extends IMicroserviceTenantEngin
 	createGrpcComponents();
 
 	// Handles threading for tenant operations.
-	this.tenantOperations = Executors.newFixedThreadPool(MAX_CONCURRENT_TENANT_OPERATIONS,
+	this.tenantOperations = Executors.newFixedThreadPool(
+		Math.max(1, getInstanceSettings().getTenantOperationsParallelism()),
 		new TenantOperationsThreadFactory());
-	tenantOperations.execute(new TenantEngineStarter(this));
+	this.tenantEngineStarter = Executors.newSingleThreadExecutor(new TenantOperationsThreadFactory());
+	tenantEngineStarter.execute(new TenantEngineStarter(this));
 
 	// Create step that will start components.
 	ICompositeLifecycleStep init = new CompositeLifecycleStep("Initialize " + getName());
@@ -173,6 +175,9 @@ public abstract class MultitenantMicroservice<T extends IMicroserviceTenantEngin
     @Override
     public void terminate(ILifecycleProgressMonitor monitor) throws SiteWhereException {
 	// Shut down any tenant operations.
+	if (tenantEngineStarter != null) {
+	    tenantEngineStarter.shutdownNow();
+	}
 	if (tenantOperations != null) {
 	    tenantOperations.shutdown();
 	}
@@ -532,6 +537,9 @@ public abstract class MultitenantMicroservice<T extends IMicroserviceTenantEngin
 		    }
 		} catch (SiteWhereException e) {
 		    getLogger().warn("Exception processing tenant engine.", e);
+		} catch (InterruptedException e) {
+		    getLogger().info("Tenant engine starter shutting down.");
+		    return;
 		} catch (Throwable e) {
 		    getLogger().warn("Unhandled exception processing tenant engine.", e);
 		}
@@ -7,8 +7,12 @@
  */
 package com.sitewhere.microservice.multitenant.operations;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -40,6 +44,9 @@ public class BootstrapTenantEngineOperation<T extends IMicroserviceTenantEngine>
     /** Static logger instance */
     private static Log LOGGER = LogFactory.getLog(BootstrapTenantEngineOperation.class);
 
+    /** Time to wait for modules the engine depends on to be bootstrapped */
+    private static final long DEPENDENCY_TIMEOUT_MINUTES = 5;
+
     /** Tenant engine being started */
     private T tenantEngine;
 
@@ -124,10 +131,46 @@ public class BootstrapTenantEngineOperation<T extends IMicroserviceTenantEngine>
 	this.tenantEngine = tenantEngine;
     }
 
+    /**
+     * Create a future for bootstrapping a tenant engine. The bootstrap operation
+     * is not submitted to the executor until all modules the engine depends on
+     * have been bootstrapped, so waiting engines do not hold executor threads. If
+     * a dependency is not bootstrapped within the time limit, the future completes
+     * exceptionally and the dependency watches are closed.
+     * 
+     * @param tenantEngine
+     * @param executor
+     * @return
+     */
     public static <T extends IMicroserviceTenantEngine> CompletableFuture<T> createCompletableFuture(T tenantEngine,
 	    ExecutorService executor) {
 	CompletableFuture<T> completableFuture = new CompletableFuture<T>();
-	executor.submit(new BootstrapTenantEngineOperation<T>(tenantEngine, completableFuture));
+	List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+	try {
+	    for (String identifier : tenantEngine.getModuleBootstrapDependencies()) {
+		LOGGER.info("Tenant engine '" + tenantEngine.getTenant().getName() + "' waiting for '" + identifier
+			+ "' to be bootstrapped.");
+		dependencies.add(tenantEngine.watchForModuleBootstrapped(identifier, DEPENDENCY_TIMEOUT_MINUTES,
+			TimeUnit.MINUTES));
+	    }
+	} catch (SiteWhereException e) {
+	    for (CompletableFuture<Void> dependency : dependencies) {
+		dependency.cancel(false);
+	    }
+	    completableFuture.completeExceptionally(e);
+	    return completableFuture;
+	}
+	CompletableFuture.allOf(dependencies.toArray(new CompletableFuture[0])).whenComplete((result, t) -> {
+	    if (t != null) {
+		completableFuture.completeExceptionally(t);
+	    } else {
+		try {
+		    executor.submit(new BootstrapTenantEngineOperation<T>(tenantEngine, completableFuture));
+		} catch (RejectedExecutionException e) {
+		    completableFuture.completeExceptionally(e);
+		}
+	    }
+	});
 	return completableFuture;
     }
 }
\ No newline at end of file
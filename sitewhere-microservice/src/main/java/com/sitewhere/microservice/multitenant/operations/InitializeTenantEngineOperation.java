@@ -9,12 +9,14 @@ package com.sitewhere.microservice.multitenant.operations;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.curator.framework.CuratorFramework;
 
 import com.sitewhere.microservice.multitenant.MultitenantMicroservice;
+import com.sitewhere.microservice.zookeeper.ZkUtils;
 import com.sitewhere.server.lifecycle.LifecycleProgressContext;
 import com.sitewhere.server.lifecycle.LifecycleProgressMonitor;
 import com.sitewhere.spi.SiteWhereException;
@@ -112,18 +114,9 @@ public class InitializeTenantEngineOperation<T extends IMicroserviceTenantEngine
      */
     protected void waitForTenantConfigurationBootstrapped() throws SiteWhereException {
 	CuratorFramework curator = getMicroservice().getZookeeperManager().getCurator();
-	try {
-	    long deadline = System.currentTimeMillis() + MAX_WAIT_FOR_TENANT_BOOTSTRAPPED;
-	    while ((deadline - System.currentTimeMillis()) > 0) {
-		if (curator.checkExists().forPath(
-			getMicroservice().getInstanceTenantBootstrappedIndicatorPath(getTenant().getId())) != null) {
-		    return;
-		}
-		Thread.sleep(500);
-	    }
+	String path = getMicroservice().getInstanceTenantBootstrappedIndicatorPath(getTenant().getId());
+	if (!ZkUtils.waitForPath(curator, path, MAX_WAIT_FOR_TENANT_BOOTSTRAPPED, TimeUnit.MILLISECONDS)) {
 	    throw new SiteWhereException("Tenant not bootstrapped within time limit. Aborting");
-	} catch (Throwable t) {
-	    throw new SiteWhereException("Unable to wait for tenant configuration bootstrap.", t);
 	}
     }
 
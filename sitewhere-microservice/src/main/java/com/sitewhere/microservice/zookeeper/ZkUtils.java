@@ -12,11 +12,20 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.NodeCache;
 
 import com.sitewhere.spi.SiteWhereException;
 
@@ -30,6 +39,10 @@ public class ZkUtils {
     /** Static logger instance */
     private static Log LOGGER = LogFactory.getLog(ZkUtils.class);
 
+    /** Expires watches that are bounded by a time limit */
+    private static final ScheduledExecutorService WATCH_TIMER = Executors
+	    .newSingleThreadScheduledExecutor(new WatchTimerThreadFactory());
+
     /**
      * Copy a folder recursively into Zk.
      * 
@@ -132,4 +145,98 @@ public class ZkUtils {
 	    }
 	}
     }
-}
+
+    /**
+     * Get a future that completes once the given path exists. The path is watched
+     * with a {@link NodeCache} rather than polled, and the cache is closed once
+     * the future completes or is cancelled.
+     * 
+     * @param curator
+     * @param path
+     * @return
+     */
+    public static CompletableFuture<Void> watchForPath(CuratorFramework curator, String path) {
+	CompletableFuture<Void> exists = new CompletableFuture<>();
+	NodeCache cache = new NodeCache(curator, path);
+	cache.getListenable().addListener(() -> {
+	    if (cache.getCurrentData() != null) {
+		exists.complete(null);
+	    }
+	});
+	exists.whenComplete((result, t) -> {
+	    try {
+		cache.close();
+	    } catch (IOException e) {
+		LOGGER.warn("Unable to close node cache for '" + path + "'.", e);
+	    }
+	});
+	try {
+	    cache.start(true);
+	    if (cache.getCurrentData() != null) {
+		exists.complete(null);
+	    }
+	} catch (Exception e) {
+	    exists.completeExceptionally(e);
+	}
+	return exists;
+    }
+
+    /**
+     * Get a future that completes once the given path exists or completes
+     * exceptionally with a {@link TimeoutException} once the time limit is
+     * reached. Either way the underlying {@link NodeCache} is closed.
+     * 
+     * @param curator
+     * @param path
+     * @param time
+     * @param unit
+     * @return
+     */
+    public static CompletableFuture<Void> watchForPath(CuratorFramework curator, String path, long time,
+	    TimeUnit unit) {
+	CompletableFuture<Void> exists = watchForPath(curator, path);
+	ScheduledFuture<?> timeout = WATCH_TIMER.schedule(
+		() -> exists.completeExceptionally(new TimeoutException("Time limit exceeded waiting for '" + path + "'.")),
+		time, unit);
+	exists.whenComplete((result, t) -> timeout.cancel(false));
+	return exists;
+    }
+
+    /**
+     * Block until the given path exists or the time limit is reached.
+     * 
+     * @param curator
+     * @param path
+     * @param time
+     * @param unit
+     * @return true if path exists, false if time limit was reached
+     * @throws SiteWhereException
+     */
+    public static boolean waitForPath(CuratorFramework curator, String path, long time, TimeUnit unit)
+	    throws SiteWhereException {
+	CompletableFuture<Void> exists = watchForPath(curator, path);
+	try {
+	    exists.get(time, unit);
+	    return true;
+	} catch (TimeoutException e) {
+	    return false;
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new SiteWhereException("Interrupted while waiting for '" + path + "'.", e);
+	} catch (ExecutionException e) {
+	    throw new SiteWhereException("Error waiting for '" + path + "'.", e.getCause());
+	} finally {
+	    exists.cancel(false);
+	}
+    }
+
+    /** Used for naming watch timer thread */
+    private static class WatchTimerThreadFactory implements ThreadFactory {
+
+	public Thread newThread(Runnable r) {
+	    Thread thread = new Thread(r, "Zk Watch Timer");
+	    thread.setDaemon(true);
+	    return thread;
+	}
+    }
+}
\ No newline at end of file
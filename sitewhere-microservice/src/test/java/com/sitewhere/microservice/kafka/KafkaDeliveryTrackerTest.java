@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.microservice.kafka;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Future;
+
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.Test;
+
+import com.sitewhere.spi.SiteWhereException;
+
+/**
+ * Verifies that delivery failures are attributed to the batch that produced
+ * them, regardless of when they happen relative to a flush.
+ *
+ * @author Derek
+ */
+public class KafkaDeliveryTrackerTest {
+
+    @Test
+    public void testFailureBeforeFlush() throws Exception {
+	MockProducer<String, byte[]> mock = new MockProducer<String, byte[]>(false, new StringSerializer(),
+		new ByteArraySerializer());
+	TestProducer producer = new TestProducer(mock);
+	KafkaDeliveryTracker failing = new KafkaDeliveryTracker();
+	KafkaDeliveryTracker healthy = new KafkaDeliveryTracker();
+
+	send(producer, failing, "failing-1");
+	send(producer, healthy, "healthy-1");
+	send(producer, failing, "failing-2");
+	send(producer, healthy, "healthy-2");
+
+	// Fail the first send before anything is flushed.
+	mock.errorNext(new KafkaException("Broker unavailable."));
+	assertEquals(1, producer.getFailedSendCount());
+
+	try {
+	    failing.await();
+	    fail("Batch with failed send was confirmed.");
+	} catch (SiteWhereException e) {
+	    assertEquals(KafkaException.class, e.getCause().getClass());
+	}
+
+	// Other batches sharing the producer are not affected.
+	healthy.await();
+	assertEquals(4, mock.history().size());
+
+	// Failure does not carry over to the next batch.
+	send(producer, failing, "failing-3");
+	failing.await();
+	assertEquals(0, failing.getTrackedCount());
+    }
+
+    @Test
+    public void testFailedSendCall() throws Exception {
+	MockProducer<String, byte[]> mock = new MockProducer<String, byte[]>(true, new StringSerializer(),
+		new ByteArraySerializer()) {
+
+	    @Override
+	    public synchronized Future<RecordMetadata> send(ProducerRecord<String, byte[]> record, Callback callback) {
+		throw new KafkaException("Buffer exhausted.");
+	    }
+	};
+	TestProducer producer = new TestProducer(mock);
+	KafkaDeliveryTracker tracker = new KafkaDeliveryTracker();
+	try {
+	    send(producer, tracker, "message");
+	    fail("Send did not fail.");
+	} catch (KafkaException e) {
+	}
+	try {
+	    tracker.await();
+	    fail("Batch with failed send was confirmed.");
+	} catch (SiteWhereException e) {
+	    assertEquals(1, producer.getFailedSendCount());
+	}
+    }
+
+    @Test
+    public void testUntrackedSend() throws Exception {
+	MockProducer<String, byte[]> mock = new MockProducer<String, byte[]>(true, new StringSerializer(),
+		new ByteArraySerializer());
+	TestProducer producer = new TestProducer(mock);
+	assertNull(KafkaDeliveryTracker.getCurrent());
+	producer.send("key", "message".getBytes());
+	assertEquals(1, mock.history().size());
+    }
+
+    /**
+     * Send a message with the tracker bound to the current thread.
+     *
+     * @param producer
+     * @param tracker
+     * @param key
+     * @throws SiteWhereException
+     */
+    protected void send(TestProducer producer, KafkaDeliveryTracker tracker, String key) throws SiteWhereException {
+	tracker.bind();
+	try {
+	    producer.send(key, key.getBytes());
+	} finally {
+	    tracker.unbind();
+	}
+    }
+
+    /**
+     * Producer that sends to a mock Kafka producer.
+     */
+    private static class TestProducer extends MicroserviceKafkaProducer {
+
+	public TestProducer(MockProducer<String, byte[]> mock) {
+	    super(null);
+	    setProducer(mock);
+	}
+
+	/*
+	 * @see com.sitewhere.spi.microservice.kafka.IMicroserviceKafkaProducer#
+	 * getTargetTopicName()
+	 */
+	@Override
+	public String getTargetTopicName() throws SiteWhereException {
+	    return "test";
+	}
+    }
+}
\ No newline at end of file
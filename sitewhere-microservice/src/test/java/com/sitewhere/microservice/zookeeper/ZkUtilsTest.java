@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) SiteWhere, LLC. All rights reserved. http://www.sitewhere.com
+ *
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package com.sitewhere.microservice.zookeeper;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sitewhere.spi.SiteWhereException;
+
+public class ZkUtilsTest {
+
+    /** Number of paths watched at once */
+    private static final int PATH_COUNT = 200;
+
+    /** Root path for tenant state */
+    private static final String TENANTS_PATH = "/sitewhere/state/tenants";
+
+    /** In-process Zookeeper */
+    private TestingServer server;
+
+    /** Curator client */
+    private CuratorFramework curator;
+
+    @Before
+    public void setup() throws Exception {
+	server = new TestingServer();
+	curator = CuratorFrameworkFactory.newClient(server.getConnectString(), new RetryOneTime(1000));
+	curator.start();
+	curator.blockUntilConnected();
+    }
+
+    @After
+    public void teardown() throws Exception {
+	curator.close();
+	server.close();
+    }
+
+    @Test
+    public void testWaitForExistingPath() throws Exception {
+	curator.create().creatingParentsIfNeeded().forPath(TENANTS_PATH + "/existing/bootstrapped");
+	assertTrue(ZkUtils.waitForPath(curator, TENANTS_PATH + "/existing/bootstrapped", 1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testWaitForMissingPathTimesOut() throws SiteWhereException {
+	long start = System.currentTimeMillis();
+	assertFalse(ZkUtils.waitForPath(curator, TENANTS_PATH + "/missing/bootstrapped", 500, TimeUnit.MILLISECONDS));
+	assertTrue((System.currentTimeMillis() - start) < 5000);
+    }
+
+    @Test
+    public void testBoundedWatchTimesOut() throws Exception {
+	CompletableFuture<Void> watch = ZkUtils.watchForPath(curator, TENANTS_PATH + "/missing/bootstrapped", 200,
+		TimeUnit.MILLISECONDS);
+	try {
+	    watch.get(10, TimeUnit.SECONDS);
+	    fail("Watch for missing path completed normally.");
+	} catch (ExecutionException e) {
+	    assertTrue(e.getCause() instanceof TimeoutException);
+	}
+    }
+
+    @Test
+    public void testBoundedWatchCompletesBeforeTimeout() throws Exception {
+	CompletableFuture<Void> watch = ZkUtils.watchForPath(curator, TENANTS_PATH + "/later/bootstrapped", 30,
+		TimeUnit.SECONDS);
+	curator.create().creatingParentsIfNeeded().forPath(TENANTS_PATH + "/later/bootstrapped");
+	watch.get(10, TimeUnit.SECONDS);
+	assertFalse(watch.isCompletedExceptionally());
+    }
+
+    /**
+     * Watches many paths at once, as the bootstrap operations for many tenant
+     * engines do, and verifies every watch completes once its path is created
+     * from several threads.
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testManyPathsWatchedConcurrently() throws Exception {
+	List<CompletableFuture<Void>> watches = new ArrayList<>();
+	for (int i = 0; i < PATH_COUNT; i++) {
+	    watches.add(ZkUtils.watchForPath(curator, TENANTS_PATH + "/tenant" + i + "/bootstrapped"));
+	}
+
+	ExecutorService creators = Executors.newFixedThreadPool(10);
+	try {
+	    for (int i = 0; i < PATH_COUNT; i++) {
+		String path = TENANTS_PATH + "/tenant" + i + "/bootstrapped";
+		creators.execute(() -> {
+		    try {
+			curator.create().creatingParentsIfNeeded().forPath(path);
+		    } catch (Exception e) {
+			throw new RuntimeException(e);
+		    }
+		});
+	    }
+	    CompletableFuture.allOf(watches.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+	} finally {
+	    creators.shutdownNow();
+	}
+	for (CompletableFuture<Void> watch : watches) {
+	    assertFalse(watch.isCompletedExceptionally());
+	}
+    }
+}
\ No newline at end of file